@@ -2,9 +2,13 @@ package org.lite.gateway.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.filter.RequestBodyCaptureFilter;
 import org.lite.gateway.service.ApiRouteService;
+import org.lite.gateway.service.HierarchicalRateLimiter;
 import org.lite.gateway.service.MetricService;
+import org.lite.gateway.service.TeamContextService;
 import org.lite.gateway.service.impl.ApiRouteLocatorImpl;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
@@ -26,10 +30,13 @@ public class GatewayConfig implements WebFluxConfigurer {
             CacheService cacheService,
             MetricService metricService,
             ObjectMapper objectMapper,
-            org.springframework.core.env.Environment environment) {
+            org.springframework.core.env.Environment environment,
+            HierarchicalRateLimiter hierarchicalRateLimiter,
+            RequestBodyCaptureFilter requestBodyCaptureFilter,
+            ObjectProvider<TeamContextService> teamContextService) {
         return new ApiRouteLocatorImpl(routeLocationBuilder,
                 apiRouteService, reactiveResilience4JCircuitBreakerFactory, cacheService, metricService, objectMapper,
-                environment);
+                environment, hierarchicalRateLimiter, requestBodyCaptureFilter, teamContextService);
     }
 
     @Bean
@@ -4,6 +4,7 @@ import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.filter.ApiKeyAuthenticationFilter;
 import org.lite.gateway.service.DynamicRouteService;
+import org.lite.gateway.service.RoutePermissionIndex;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
@@ -49,9 +50,10 @@ import reactor.core.publisher.Mono;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.springframework.util.AntPathMatcher;
+import org.lite.gateway.util.PathPatternTrie;
 
 import org.lite.gateway.repository.ApiRouteRepository;
 import org.lite.gateway.repository.TeamRouteRepository;
@@ -92,6 +94,7 @@ public class SecurityConfig implements BeanFactoryAware {
     private final ApiRouteRepository apiRouteRepository;
     private final TeamRouteRepository teamRouteRepository;
     private final Environment environment;
+    private final RoutePermissionIndex routePermissionIndex;
 
     private BeanFactory beanFactory;
 
@@ -102,7 +105,8 @@ public class SecurityConfig implements BeanFactoryAware {
             CacheService cacheService,
             ApiRouteRepository apiRouteRepository,
             TeamRouteRepository teamRouteRepository,
-            Environment environment) {
+            Environment environment,
+            RoutePermissionIndex routePermissionIndex) {
         this.dynamicRouteService = dynamicRouteService;
         this.customClientRegistrationRepository = customClientRegistrationRepository;
         this.customAuthorizedClientService = customAuthorizedClientService;
@@ -111,6 +115,7 @@ public class SecurityConfig implements BeanFactoryAware {
         this.apiRouteRepository = apiRouteRepository;
         this.teamRouteRepository = teamRouteRepository;
         this.environment = environment;
+        this.routePermissionIndex = routePermissionIndex;
     }
 
     @Override
@@ -154,6 +159,9 @@ public class SecurityConfig implements BeanFactoryAware {
     private static final List<String> PUBLIC_GET_ONLY = List.of(
             "/api/internal-public/**");
 
+    // Both public lists compiled once, with PUBLIC_GET_ONLY constrained to GET
+    private static final PathPatternTrie PUBLIC_PATHS = compilePublicPaths();
+
     private static final Pattern SCOPE_KEY_PATTERN = Pattern.compile("^/([\\w-]+)/");
     private static final Pattern ROUTE_PATTERN = Pattern.compile("/r/([^/]+)/");
 
@@ -385,6 +393,13 @@ public class SecurityConfig implements BeanFactoryAware {
         return path + "**";
     }
 
+    private static PathPatternTrie compilePublicPaths() {
+        PathPatternTrie.Builder builder = PathPatternTrie.builder();
+        PUBLIC_ANY_METHOD.forEach(builder::add);
+        PUBLIC_GET_ONLY.forEach(pattern -> builder.add(pattern, Set.of(org.springframework.http.HttpMethod.GET)));
+        return builder.build();
+    }
+
     private Mono<AuthorizationDecision> dynamicPathAuthorization(Mono<Authentication> authenticationMono,
             AuthorizationContext authorizationContext) {
         String path = authorizationContext.getExchange().getRequest().getPath().toString();
@@ -392,23 +407,13 @@ public class SecurityConfig implements BeanFactoryAware {
         // log.info("Checking authorization for path: {} with method: {}", path,
         // authorizationContext.getExchange().getRequest().getMethod());
 
-        // Allow public access to any endpoint in PUBLIC_ANY_METHOD
-        AntPathMatcher matcher = new AntPathMatcher();
-        boolean isPublicAny = PUBLIC_ANY_METHOD.stream().anyMatch(pattern -> matcher.match(pattern, path));
-        if (isPublicAny) {
-            log.info("Public access (any method) granted for endpoint: {}", path);
+        // Allow public access to any endpoint in PUBLIC_ANY_METHOD, and GET access to
+        // endpoints in PUBLIC_GET_ONLY
+        if (PUBLIC_PATHS.matches(path, authorizationContext.getExchange().getRequest().getMethod())) {
+            log.info("Public access granted for endpoint: {}", path);
             return Mono.just(new AuthorizationDecision(true));
         }
 
-        // Allow public GET access for endpoints in PUBLIC_GET_ONLY
-        if (authorizationContext.getExchange().getRequest().getMethod() == org.springframework.http.HttpMethod.GET) {
-            boolean isPublicGet = PUBLIC_GET_ONLY.stream().anyMatch(pattern -> matcher.match(pattern, path));
-            if (isPublicGet) {
-                log.info("Public GET access granted for endpoint: {}", path);
-                return Mono.just(new AuthorizationDecision(true));
-            }
-        }
-
         // 1st step
         // Use the path matcher from the DynamicRouteService to check if the path is
         // whitelisted.
@@ -614,13 +619,22 @@ public class SecurityConfig implements BeanFactoryAware {
                 }
             }
 
+            String apiKeyTeamId = (String) exchange.getAttribute("API_KEY_TEAM_ID");
+            Mono<List<String>> teamsMono = (apiKeyTeamId != null)
+                    ? Mono.just(List.of(apiKeyTeamId))
+                    : Mono.defer(() -> getTeamContextService().getAllAuthorizedTeams(exchange));
+
+            // Served from the in-memory snapshot once it has loaded; no Mongo or Redis round trip
+            if (routePermissionIndex.isReady()) {
+                return routePermissionIndex.findRoute(routeIdentifier)
+                        .map(route -> teamsMono.map(teams -> teams.stream().anyMatch(tid -> routePermissionIndex
+                                .hasPermission(tid, route.getId(), org.lite.gateway.entity.RoutePermission.USE)))
+                                .defaultIfEmpty(false))
+                        .orElse(Mono.just(false));
+            }
+
             return apiRouteRepository.findByRouteIdentifier(routeIdentifier)
                     .flatMap(route -> {
-                        String apiKeyTeamId = (String) exchange.getAttribute("API_KEY_TEAM_ID");
-                        Mono<List<String>> teamsMono = (apiKeyTeamId != null)
-                                ? Mono.just(List.of(apiKeyTeamId))
-                                : getTeamContextService().getAllAuthorizedTeams(exchange);
-
                         return teamsMono
                                 .flatMapMany(Flux::fromIterable)
                                 .flatMap(tid -> {
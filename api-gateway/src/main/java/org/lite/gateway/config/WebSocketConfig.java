@@ -11,6 +11,9 @@ import org.lite.gateway.service.KnowledgeHubDocumentProcessingService;
 import org.lite.gateway.service.KnowledgeHubDocumentService;
 import org.lite.gateway.service.impl.BaseChatExecutionService;
 import org.lite.gateway.service.ChatExecutionService;
+import org.lite.gateway.service.TeamContextService;
+import org.lite.gateway.service.WebSocketTopicRouter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,13 +31,7 @@ import org.springframework.web.reactive.socket.WebSocketSession;
 import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
-import reactor.util.retry.Retry;
 
-import java.time.Duration;
-import java.util.AbstractMap;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,28 +43,6 @@ import org.springframework.util.StringUtils;
 @Slf4j
 public class WebSocketConfig {
 
-    private final Sinks.Many<String> messagesSink = Sinks.many()
-            .multicast()
-            .onBackpressureBuffer(1024, false);
-    private final Sinks.Many<String> executionMessagesSink = Sinks.many()
-            .multicast()
-            .onBackpressureBuffer(1024, false);
-    private final Sinks.Many<String> chatMessagesSink = Sinks.many()
-            .multicast()
-            .onBackpressureBuffer(1024, false);
-    private final Sinks.Many<String> graphExtractionMessagesSink = Sinks.many()
-            .multicast()
-            .onBackpressureBuffer(1024, false);
-    private final Sinks.Many<String> collectionExportMessageSink = Sinks.many()
-            .multicast()
-            .onBackpressureBuffer(1024, false);
-    private final Sinks.Many<String> agentNotificationSink = Sinks.many()
-            .multicast()
-            .onBackpressureBuffer(1024, false);
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>(); // sessionId ->
-                                                                                                     // (destination ->
-                                                                                                     // subId)
     private final Map<String, String> activeExecutionMessages = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -89,6 +64,12 @@ public class WebSocketConfig {
     @Autowired
     private ReactiveStringRedisTemplate redisTemplate;
 
+    @Autowired
+    private WebSocketTopicRouter topicRouter;
+
+    @Autowired
+    private ObjectProvider<TeamContextService> teamContextService;
+
     private static final String EXECUTION_CHANNEL = "ws:execution:messages";
 
     @Bean("healthMessageChannel")
@@ -97,31 +78,13 @@ public class WebSocketConfig {
             @Override
             protected boolean sendInternal(@NonNull Message<?> message, long timeout) {
                 try {
-                    // Check if there are any active sessions
-                    if (sessions.isEmpty()) {
-                        log.debug("No active WebSocket sessions, skipping message emission");
+                    if (!topicRouter.hasSubscribers("/topic/health")) {
+                        log.debug("No WebSocket subscribers, skipping message emission");
                         return true;
                     }
 
                     String jsonPayload = objectMapper.writeValueAsString(message.getPayload());
-                    Sinks.EmitResult result;
-                    int attempts = 0;
-                    do {
-                        result = messagesSink.tryEmitNext(jsonPayload);
-                        if (result.isFailure()) {
-                            attempts++;
-                            log.warn("Attempt {} failed to emit message. Reason: {}. Retrying...",
-                                    attempts, result.name());
-                            Thread.sleep(100); // Small delay before retry
-                        }
-                    } while (result.isFailure() && attempts < 3);
-
-                    if (result.isFailure()) {
-                        log.error("Failed to emit message after {} attempts. Reason: {}. Payload: {}",
-                                attempts, result.name(), jsonPayload);
-                        return false;
-                    }
-                    log.debug("Successfully emitted message after {} attempts", attempts + 1);
+                    publish("/topic/health", jsonPayload);
                     return true;
                 } catch (Exception e) {
                     log.error("Error converting message to JSON", e);
@@ -160,14 +123,14 @@ public class WebSocketConfig {
                     redisTemplate.convertAndSend(EXECUTION_CHANNEL, jsonPayload)
                             .subscribe(count -> log.debug("Published execution message to {} pods via Redis", count));
 
-                    log.info("📊 WebSocket sessions count: {}", sessions.size());
-                    if (sessions.isEmpty()) {
+                    log.info("📊 WebSocket sessions count: {}", topicRouter.sessionCount());
+                    if (topicRouter.sessionCount() == 0) {
                         log.debug("📊 No local active WebSocket sessions, message still broadcasted via Redis");
                         return true;
                     }
 
                     log.info("📊 WebSocket sending JSON payload: {}", jsonPayload);
-                    log.debug("Successfully published execution message to Redis and local sinks via loopback");
+                    log.debug("Successfully published execution message to Redis; local subscribers receive it via loopback");
                     return true;
                 } catch (Exception e) {
                     log.error("Error converting execution message to JSON", e);
@@ -183,32 +146,14 @@ public class WebSocketConfig {
             @Override
             protected boolean sendInternal(@NonNull Message<?> message, long timeout) {
                 try {
-                    // Check if there are any active sessions
-                    if (sessions.isEmpty()) {
-                        log.debug("💬 No active WebSocket sessions, skipping chat message emission");
+                    if (!topicRouter.hasSubscribers("/topic/chat")) {
+                        log.debug("💬 No WebSocket subscribers, skipping chat message emission");
                         return true;
                     }
 
                     String jsonPayload = objectMapper.writeValueAsString(message.getPayload());
                     log.debug("💬 WebSocket sending chat message: {}", jsonPayload);
-                    Sinks.EmitResult result;
-                    int attempts = 0;
-                    do {
-                        result = chatMessagesSink.tryEmitNext(jsonPayload);
-                        if (result.isFailure()) {
-                            attempts++;
-                            log.warn("Attempt {} failed to emit chat message. Reason: {}. Retrying...",
-                                    attempts, result.name());
-                            Thread.sleep(100); // Small delay before retry
-                        }
-                    } while (result.isFailure() && attempts < 3);
-
-                    if (result.isFailure()) {
-                        log.error("Failed to emit chat message after {} attempts. Reason: {}. Payload: {}",
-                                attempts, result.name(), jsonPayload);
-                        return false;
-                    }
-                    log.debug("Successfully emitted chat message after {} attempts", attempts + 1);
+                    publish("/topic/chat", jsonPayload);
                     return true;
                 } catch (Exception e) {
                     log.error("Error converting chat message to JSON", e);
@@ -224,32 +169,14 @@ public class WebSocketConfig {
             @Override
             protected boolean sendInternal(@NonNull Message<?> message, long timeout) {
                 try {
-                    // Check if there are any active sessions
-                    if (sessions.isEmpty()) {
-                        log.debug("📊 No active WebSocket sessions, skipping graph extraction message emission");
+                    if (!topicRouter.hasSubscribers("/topic/graph-extraction")) {
+                        log.debug("📊 No WebSocket subscribers, skipping graph extraction message emission");
                         return true;
                     }
 
                     String jsonPayload = objectMapper.writeValueAsString(message.getPayload());
                     log.debug("📊 WebSocket sending graph extraction message: {}", jsonPayload);
-                    Sinks.EmitResult result;
-                    int attempts = 0;
-                    do {
-                        result = graphExtractionMessagesSink.tryEmitNext(jsonPayload);
-                        if (result.isFailure()) {
-                            attempts++;
-                            log.warn("Attempt {} failed to emit graph extraction message. Reason: {}. Retrying...",
-                                    attempts, result.name());
-                            Thread.sleep(100); // Small delay before retry
-                        }
-                    } while (result.isFailure() && attempts < 3);
-
-                    if (result.isFailure()) {
-                        log.error("Failed to emit graph extraction message after {} attempts. Reason: {}. Payload: {}",
-                                attempts, result.name(), jsonPayload);
-                        return false;
-                    }
-                    log.debug("Successfully emitted graph extraction message after {} attempts", attempts + 1);
+                    publish("/topic/graph-extraction", jsonPayload);
                     return true;
                 } catch (Exception e) {
                     log.error("Error converting graph extraction message to JSON", e);
@@ -265,32 +192,14 @@ public class WebSocketConfig {
             @Override
             protected boolean sendInternal(@NonNull Message<?> message, long timeout) {
                 try {
-                    // Check if there are any active sessions
-                    if (sessions.isEmpty()) {
-                        log.debug("📦 No active WebSocket sessions, skipping export message emission");
+                    if (!topicRouter.hasSubscribers("/topic/collection-export")) {
+                        log.debug("📦 No WebSocket subscribers, skipping export message emission");
                         return true;
                     }
 
                     String jsonPayload = objectMapper.writeValueAsString(message.getPayload());
                     log.debug("📦 WebSocket sending export message: {}", jsonPayload);
-                    Sinks.EmitResult result;
-                    int attempts = 0;
-                    do {
-                        result = collectionExportMessageSink.tryEmitNext(jsonPayload);
-                        if (result.isFailure()) {
-                            attempts++;
-                            log.warn("Attempt {} failed to emit export message. Reason: {}. Retrying...",
-                                    attempts, result.name());
-                            Thread.sleep(100); // Small delay before retry
-                        }
-                    } while (result.isFailure() && attempts < 3);
-
-                    if (result.isFailure()) {
-                        log.error("Failed to emit export message after {} attempts. Reason: {}. Payload: {}",
-                                attempts, result.name(), jsonPayload);
-                        return false;
-                    }
-                    log.debug("Successfully emitted export message after {} attempts", attempts + 1);
+                    publish("/topic/collection-export", jsonPayload);
                     return true;
                 } catch (Exception e) {
                     log.error("Error converting export message to JSON", e);
@@ -306,27 +215,14 @@ public class WebSocketConfig {
             @Override
             protected boolean sendInternal(@NonNull Message<?> message, long timeout) {
                 try {
-                    if (sessions.isEmpty()) {
-                        log.debug("🔔 No active WebSocket sessions, skipping notification emission");
+                    if (!topicRouter.hasSubscribers("/topic/notifications")) {
+                        log.debug("🔔 No WebSocket subscribers, skipping notification emission");
                         return true;
                     }
 
                     String jsonPayload = objectMapper.writeValueAsString(message.getPayload());
                     log.debug("🔔 WebSocket sending agent notification: {}", jsonPayload);
-                    Sinks.EmitResult result;
-                    int attempts = 0;
-                    do {
-                        result = agentNotificationSink.tryEmitNext(jsonPayload);
-                        if (result.isFailure()) {
-                            attempts++;
-                            Thread.sleep(100);
-                        }
-                    } while (result.isFailure() && attempts < 3);
-
-                    if (result.isFailure()) {
-                        log.error("Failed to emit notification after {} attempts. Reason: {}", attempts, result.name());
-                        return false;
-                    }
+                    publish("/topic/notifications", jsonPayload);
                     return true;
                 } catch (Exception e) {
                     log.error("Error converting notification to JSON", e);
@@ -368,59 +264,27 @@ public class WebSocketConfig {
             @Override
             public Mono<Void> handle(WebSocketSession session) {
                 String sessionId = session.getId();
-                sessions.put(sessionId, session);
                 log.info("WebSocket session connected: {}", sessionId);
 
-                // Handle outbound messages - Filtered by session subscriptions
-                // Note: Replay sinks are handled manually upon SUBSCRIBE to avoid race
-                // conditions
-                Flux<WebSocketMessage> outbound = Flux.merge(
-                        messagesSink.asFlux().map(msg -> new AbstractMap.SimpleEntry<>("/topic/health", msg)),
-                        executionMessagesSink.asFlux()
-                                .map(msg -> new AbstractMap.SimpleEntry<>("/topic/execution", msg)),
-                        chatMessagesSink.asFlux().map(msg -> new AbstractMap.SimpleEntry<>("/topic/chat", msg)),
-                        graphExtractionMessagesSink.asFlux()
-                                .map(msg -> new AbstractMap.SimpleEntry<>("/topic/graph-extraction", msg)),
-                        collectionExportMessageSink.asFlux()
-                                .map(msg -> new AbstractMap.SimpleEntry<>("/topic/collection-export", msg)),
-                        agentNotificationSink.asFlux()
-                                .map(msg -> new AbstractMap.SimpleEntry<>("/topic/notifications", msg)))
-                        .onBackpressureBuffer(256)
-                        .filter(entry -> {
-                            Map<String, String> subs = sessionSubscriptions.get(sessionId);
-                            return subs != null && subs.containsKey(entry.getKey());
-                        })
-                        .map(entry -> {
-                            String destination = entry.getKey();
-                            String message = entry.getValue();
-                            String subId = sessionSubscriptions.get(sessionId).get(destination);
-                            String frame = createStompFrame(message, destination, subId);
-                            log.debug("Created STOMP frame for session {} [sub: {}]: {}", sessionId, subId, frame);
-                            return session.textMessage(frame);
-                        })
-                        .onBackpressureBuffer(256)
-                        .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
-                                .maxBackoff(Duration.ofSeconds(1))
-                                .doBeforeRetry(
-                                        signal -> log.warn("Retrying message delivery for session {}, attempt {}",
-                                                sessionId, signal.totalRetries() + 1)))
-                        .doOnNext(message -> log.debug("Processing outbound message for session {}: {}",
-                                sessionId, message))
+                // Outbound messages are routed to this session's bounded queue by the topic
+                // router, which only visits sessions subscribed to a message's destination.
+                // Replay of active executions is queued there as well upon SUBSCRIBE.
+                Flux<WebSocketMessage> outbound = topicRouter.register(session)
                         .doOnSubscribe(sub -> log.info("Session {} subscribed to message stream", sessionId))
                         .doOnCancel(() -> log.info("Session {} message stream cancelled", sessionId))
-                        .onErrorContinue((error, obj) -> {
-                            log.error("Error in message processing for session {}: {}",
-                                    sessionId, error.getMessage());
-                        })
                         .doOnError(error -> log.error("Error in outbound stream for session {}: {}",
                                 sessionId, error.getMessage()));
 
-                // Handle inbound messages
+                // Handle inbound messages in order, so a SUBSCRIBE sees the teams its CONNECT verified
                 Flux<WebSocketMessage> inbound = session.receive()
-                        .doOnNext(msg -> log.debug("Received message from session {}: {}",
-                                sessionId, msg.getPayloadAsText()))
-                        .flatMap(msg -> {
-                            WebSocketMessage response = handleInboundMessage(session, msg);
+                        .map(WebSocketMessage::getPayloadAsText)
+                        .doOnNext(payload -> log.debug("Received message from session {}: {}",
+                                sessionId, payload))
+                        .concatMap(payload -> {
+                            if (payload.startsWith("CONNECT")) {
+                                return handleConnect(session, payload);
+                            }
+                            WebSocketMessage response = handleInboundMessage(session, payload);
                             return response != null ? Mono.just(response) : Mono.empty();
                         })
                         .doOnError(error -> log.error("Error in inbound stream for session {}: {}",
@@ -430,14 +294,13 @@ public class WebSocketConfig {
                 session.closeStatus()
                         .subscribe(status -> {
                             log.info("WebSocket session {} closed with status: {}", sessionId, status);
-                            sessions.remove(sessionId);
-                            sessionSubscriptions.remove(sessionId);
+                            topicRouter.remove(sessionId);
                         });
 
                 return session.send(Flux.merge(inbound, outbound))
                         .doOnError(error -> {
                             log.error("Error in session {}: {}", sessionId, error.getMessage());
-                            sessions.remove(sessionId);
+                            topicRouter.remove(sessionId);
                         });
             }
         };
@@ -449,66 +312,92 @@ public class WebSocketConfig {
                 .map(message -> message.getMessage())
                 .subscribe(jsonPayload -> {
                     log.debug("Received execution message from Redis: {}", jsonPayload);
-                    executionMessagesSink.tryEmitNext(jsonPayload);
+                    publish("/topic/execution", jsonPayload);
+                });
+    }
+
+    private void publish(String destination, String jsonPayload) {
+        // Team is only read from the payload when some session narrowed its subscription to a team
+        String teamId = topicRouter.isTeamScoped(destination) ? extractTeamId(jsonPayload) : null;
+        int delivered = topicRouter.publish(destination, teamId, jsonPayload);
+        log.debug("Routed message on {} to {} sessions", destination, delivered);
+    }
+
+    private String extractTeamId(String jsonPayload) {
+        try {
+            com.fasterxml.jackson.databind.JsonNode teamId = objectMapper.readTree(jsonPayload).get("teamId");
+            return teamId != null && teamId.isTextual() ? teamId.asText() : null;
+        } catch (Exception e) {
+            log.warn("Failed to read teamId from WebSocket message: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Verifies the bearer token of a CONNECT frame, if any, and records the teams it grants so
+     * subscriptions can be narrowed to them. A CONNECT without a token is accepted, but such a
+     * session cannot subscribe to a team.
+     */
+    private Mono<WebSocketMessage> handleConnect(WebSocketSession session, String payload) {
+        log.debug("Handling CONNECT frame for session: {}", session.getId());
+        String authorization = extractHeader(payload, "Authorization");
+        if (authorization == null) {
+            authorization = extractHeader(payload, "authorization");
+        }
+        if (authorization == null || authorization.isBlank()) {
+            return Mono.just(connectedFrame(session));
+        }
+        return teamContextService.getObject().getAuthorizedTeams(authorization)
+                .map(teams -> {
+                    topicRouter.authenticate(session.getId(), teams);
+                    return connectedFrame(session);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Rejecting WebSocket CONNECT for session {}: {}", session.getId(), e.getMessage());
+                    return Mono.just(session.textMessage("ERROR\nmessage:Invalid credentials\n\n\u0000"));
                 });
     }
 
-    private String createStompFrame(String message, String destination, String subscriptionId) {
-        log.debug("Creating STOMP frame for message: {} to destination: {} with sub: {}", message, destination,
-                subscriptionId);
-        return String.format(
+    private static WebSocketMessage connectedFrame(WebSocketSession session) {
+        return session.textMessage(
                 """
-                        MESSAGE
-                        destination:%s
-                        content-type:application/json
-                        subscription:%s
-                        message-id:%s
-
-                        %s
-                        \u0000""",
-                destination,
-                subscriptionId != null ? subscriptionId : "sub-0",
-                UUID.randomUUID().toString(),
-                message);
+                        CONNECTED
+                        version:1.2
+                        heart-beat:0,0
+
+                        \u0000""");
     }
 
-    private WebSocketMessage handleInboundMessage(WebSocketSession session, WebSocketMessage msg) {
+    private WebSocketMessage handleInboundMessage(WebSocketSession session, String payload) {
         try {
-            String payload = msg.getPayloadAsText();
             if (payload.trim().isEmpty()) {
                 log.trace("Received heartbeat from session: {}", session.getId());
                 return null; // Ignore heartbeats
             }
             log.debug("Processing STOMP message: {}", payload);
 
-            if (payload.startsWith("CONNECT")) {
-                log.debug("Handling CONNECT frame for session: {}", session.getId());
-                return session.textMessage(
-                        """
-                                CONNECTED
-                                version:1.2
-                                heart-beat:0,0
-
-                                \u0000""");
-            } else if (payload.startsWith("SUBSCRIBE")) {
+            if (payload.startsWith("SUBSCRIBE")) {
                 log.debug("Handling SUBSCRIBE frame for session: {}", session.getId());
                 // Extract destination and id
                 String destination = extractHeader(payload, "destination");
                 String subId = extractHeader(payload, "id");
+                // Must be one of the session's authenticated teams; required on team-scoped destinations
+                String teamId = extractHeader(payload, "teamId");
                 if (destination != null && subId != null) {
-                    sessionSubscriptions.computeIfAbsent(session.getId(), k -> new ConcurrentHashMap<>())
-                            .put(destination, subId);
-                    log.info("Session {} subscribed to {} with id {}", session.getId(), destination, subId);
+                    topicRouter.subscribe(session.getId(), destination, subId, teamId);
+                    log.info("Session {} subscribed to {} with id {} (team: {})", session.getId(), destination,
+                            subId, teamId != null ? teamId : "any");
 
                     // If it's the execution topic, manually replay active execution messages
                     if ("/topic/execution".equals(destination)) {
+                        List<String> messagesToReplay = activeExecutionMessages.values().stream()
+                                .filter(replayMsg -> teamId == null || teamId.equals(extractTeamId(replayMsg)))
+                                .toList();
                         log.info("Replaying {} active execution messages for session {}",
-                                activeExecutionMessages.size(), session.getId());
-                        List<String> messagesToReplay = new ArrayList<>(activeExecutionMessages.values());
-                        session.send(Flux.fromIterable(messagesToReplay)
-                                .map(replayMsg -> session
-                                        .textMessage(createStompFrame(replayMsg, destination, subId))))
-                                .subscribe();
+                                messagesToReplay.size(), session.getId());
+                        messagesToReplay.forEach(replayMsg -> topicRouter.sendTo(session.getId(),
+                                WebSocketTopicRouter.stompFrame(destination, subId, UUID.randomUUID().toString(),
+                                        replayMsg)));
                     }
                 }
 
@@ -530,8 +419,7 @@ public class WebSocketConfig {
 
                                 \u0000""");
             } else if (payload.startsWith("DISCONNECT")) {
-                sessions.remove(session.getId());
-                sessionSubscriptions.remove(session.getId());
+                topicRouter.remove(session.getId());
                 return session.textMessage(
                         """
                                 RECEIPT
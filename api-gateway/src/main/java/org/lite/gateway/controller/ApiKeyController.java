@@ -85,7 +85,7 @@ public class ApiKeyController {
                                 .filter(hasRole -> hasRole || user.getRoles().contains("SUPER_ADMIN"))
                                 .switchIfEmpty(Mono.error(new AccessDeniedException(
                                         "Admin access required for team " + apiKey.getTeamId()))))
-                        .then(apiKeyRepository.deleteById(id)));
+                        .then(apiKeyService.deleteApiKey(id)));
     }
 
     private ApiKeyResponse toApiKeyResponse(ApiKey apiKey) {
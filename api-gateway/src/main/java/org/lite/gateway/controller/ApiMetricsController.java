@@ -4,6 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.entity.ApiMetric;
 import org.lite.gateway.service.ApiMetricsService;
+import org.lite.gateway.service.AuditIngestionPipeline;
+import org.lite.gateway.service.ChunkAccessAuditAggregator;
+import org.lite.gateway.service.HierarchicalRateLimiter;
+import org.lite.gateway.service.KeywordIndexService;
+import org.lite.gateway.service.MetricsIngestionPipeline;
+import org.lite.gateway.service.MetricsRollupEngine;
+import org.lite.gateway.service.MilvusCollectionCatalog;
+import org.lite.gateway.service.ReactiveMilvusClient;
+import org.lite.gateway.service.WorkflowCollectionIndex;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +29,15 @@ import java.util.Map;
 public class ApiMetricsController {
 
     private final ApiMetricsService apiMetricsService;
+    private final MetricsIngestionPipeline metricsIngestionPipeline;
+    private final MetricsRollupEngine metricsRollupEngine;
+    private final HierarchicalRateLimiter hierarchicalRateLimiter;
+    private final ReactiveMilvusClient reactiveMilvusClient;
+    private final KeywordIndexService keywordIndexService;
+    private final MilvusCollectionCatalog milvusCollectionCatalog;
+    private final WorkflowCollectionIndex workflowCollectionIndex;
+    private final ChunkAccessAuditAggregator chunkAccessAuditAggregator;
+    private final AuditIngestionPipeline auditIngestionPipeline;
 
     @GetMapping
     public Flux<ApiMetric> getMetrics(
@@ -115,6 +133,60 @@ public class ApiMetricsController {
         return apiMetricsService.getTopEndpointsByService(serviceName, startDate, endDate, limit);
     }
 
+    @GetMapping("/latency-percentiles")
+    public Mono<Map<String, Object>> getLatencyPercentiles(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String toService) {
+
+        return apiMetricsService.getLatencyPercentiles(startDate, endDate, toService);
+    }
+
+    @GetMapping("/ingestion/stats")
+    public Mono<Map<String, Object>> getIngestionStats() {
+        return Mono.just(metricsIngestionPipeline.getStats());
+    }
+
+    @GetMapping("/rollups/stats")
+    public Mono<Map<String, Object>> getRollupStats() {
+        return Mono.just(metricsRollupEngine.getStats());
+    }
+
+    @GetMapping("/rate-limits")
+    public Mono<Map<String, Object>> getRateLimitStats() {
+        return Mono.just(hierarchicalRateLimiter.getStats());
+    }
+
+    @GetMapping("/milvus/stats")
+    public Mono<Map<String, Object>> getMilvusClientStats() {
+        return Mono.just(reactiveMilvusClient.getStats());
+    }
+
+    @GetMapping("/milvus/keyword-index/stats")
+    public Mono<Map<String, Object>> getKeywordIndexStats() {
+        return Mono.just(keywordIndexService.getStats());
+    }
+
+    @GetMapping("/milvus/catalog/stats")
+    public Mono<Map<String, Object>> getMilvusCatalogStats() {
+        return Mono.just(milvusCollectionCatalog.getStats());
+    }
+
+    @GetMapping("/workflow/collection-index/stats")
+    public Mono<Map<String, Object>> getWorkflowCollectionIndexStats() {
+        return Mono.just(workflowCollectionIndex.getStats());
+    }
+
+    @GetMapping("/audit/chunk-access/stats")
+    public Mono<Map<String, Object>> getChunkAccessAuditStats() {
+        return Mono.just(chunkAccessAuditAggregator.getStats());
+    }
+
+    @GetMapping("/audit/ingestion/stats")
+    public Mono<Map<String, Object>> getAuditIngestionStats() {
+        return Mono.just(auditIngestionPipeline.getStats());
+    }
+
     @GetMapping("/{id}")
     public Mono<ResponseEntity<ApiMetric>> getMetricById(@PathVariable String id) {
         return apiMetricsService.getMetricById(id)
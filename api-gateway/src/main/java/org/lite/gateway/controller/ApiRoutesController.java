@@ -12,6 +12,7 @@ import org.lite.gateway.entity.*;
 import org.lite.gateway.exception.DuplicateRouteException;
 import org.lite.gateway.repository.TeamRouteRepository;
 import org.lite.gateway.service.ApiRouteService;
+import org.lite.gateway.service.RoutePermissionIndex;
 import org.lite.gateway.service.TeamService;
 import org.lite.gateway.service.UserContextService;
 import org.lite.gateway.service.UserService;
@@ -41,6 +42,7 @@ public class ApiRoutesController {
     private final UserService userService;
     private final TransactionalOperator transactionalOperator;
     private final TeamRouteRepository teamRouteRepository;
+    private final RoutePermissionIndex routePermissionIndex;
 
     @GetMapping
     public Flux<ApiRouteDTO> getAllRoutes(@RequestParam(required = false) String teamId) {
@@ -299,6 +301,11 @@ public class ApiRoutesController {
             .map(ResponseEntity::ok);
     }
 
+    @GetMapping("/permission-index/stats")
+    public Mono<Map<String, Object>> getPermissionIndexStats() {
+        return Mono.just(routePermissionIndex.getStats());
+    }
+
     @GetMapping("/refresh/routes")
     public Mono<ResponseEntity<String>> refreshRoutes() {
         return apiRouteService.refreshRoutes()
@@ -4,7 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.dto.CacheRequestDTO;
 import org.lite.gateway.service.CacheService;
+import org.lite.gateway.service.EmbeddingCache;
+import org.lite.gateway.service.QueryEmbeddingCache;
 import org.lite.gateway.service.TeamContextService;
+import org.lite.gateway.service.VerifiedTokenCache;
+import org.lite.gateway.service.impl.ApiKeyCredentialCache;
+import org.lite.gateway.service.impl.TieredCacheService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
@@ -20,9 +26,40 @@ public class CacheController {
 
         private final CacheService cacheService;
         private final TeamContextService teamContextService;
+        private final ObjectProvider<TieredCacheService> tieredCacheService;
+        private final ApiKeyCredentialCache apiKeyCredentialCache;
+        private final VerifiedTokenCache verifiedTokenCache;
+        private final EmbeddingCache embeddingCache;
+        private final QueryEmbeddingCache queryEmbeddingCache;
 
         private static final String KEY_PREFIX = "app_cache:";
 
+        @GetMapping("/stats/local")
+        public Mono<Map<String, Object>> localTierStats() {
+                TieredCacheService tiered = tieredCacheService.getIfAvailable();
+                return Mono.just(tiered != null ? tiered.getStats() : Map.of("enabled", false));
+        }
+
+        @GetMapping("/stats/api-keys")
+        public Mono<Map<String, Object>> apiKeyCredentialStats() {
+                return Mono.just(apiKeyCredentialCache.getStats());
+        }
+
+        @GetMapping("/stats/tokens")
+        public Mono<Map<String, Object>> verifiedTokenStats() {
+                return Mono.just(verifiedTokenCache.getStats());
+        }
+
+        @GetMapping("/stats/embeddings")
+        public Mono<Map<String, Object>> embeddingStats() {
+                return Mono.just(embeddingCache.getStats());
+        }
+
+        @GetMapping("/stats/query-embeddings")
+        public Mono<Map<String, Object>> queryEmbeddingStats() {
+                return Mono.just(queryEmbeddingCache.getStats());
+        }
+
         @GetMapping("/{key}")
         public Mono<Map<String, String>> get(
                         @PathVariable String key,
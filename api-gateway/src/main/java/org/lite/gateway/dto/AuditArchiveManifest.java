@@ -0,0 +1,91 @@
+package org.lite.gateway.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * List of a team's indexed audit archives holding one month of events, stored next to them
+ * so a query can choose the archives to read without listing or opening any of them
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditArchiveManifest {
+
+    private String teamId;
+
+    /**
+     * Month of the archived events, as yyyy-MM
+     */
+    private String month;
+
+    private LocalDateTime updatedAt;
+
+    @Builder.Default
+    private List<Entry> archives = new ArrayList<>();
+
+    /**
+     * Keys of the month's archives in the former gzipped NDJSON format, recorded by the first
+     * archival of the month so queries need not list its days. Empty once they are migrated
+     * or if there were none; null if the month has not been checked.
+     */
+    private List<String> legacyArchives;
+
+    /**
+     * One archive file, with the time range and file-level bloom filters of its events
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        /**
+         * Object key in the audit bucket
+         */
+        private String key;
+
+        /**
+         * Key version the file is encrypted with
+         */
+        private String keyVersion;
+
+        private LocalDateTime minTimestamp;
+
+        private LocalDateTime maxTimestamp;
+
+        private int eventCount;
+
+        /**
+         * Size of the archive before encryption
+         */
+        private long plaintextLength;
+
+        /**
+         * Size of the stored, encrypted object
+         */
+        private long storedLength;
+
+        /**
+         * Position and size of the index in the plaintext archive
+         */
+        private long indexOffset;
+
+        private int indexLength;
+
+        /**
+         * Serialized bloom filters of the userIds, eventTypes and resourceIds in the file
+         */
+        private byte[] userIds;
+
+        private byte[] eventTypes;
+
+        private byte[] resourceIds;
+    }
+}
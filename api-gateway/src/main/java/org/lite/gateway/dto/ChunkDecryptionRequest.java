@@ -0,0 +1,27 @@
+package org.lite.gateway.dto;
+
+import lombok.Value;
+
+/**
+ * One ciphertext in a batch decryption, with the team and key version it was encrypted under.
+ * A null or empty key version means legacy v1 data. The chunk fields are optional and only
+ * used for the access audit.
+ */
+@Value
+public class ChunkDecryptionRequest {
+    String encryptedText;
+    String teamId;
+    String keyVersion;
+    String documentId;
+    String chunkId;
+    Integer chunkIndex;
+
+    public static ChunkDecryptionRequest of(String encryptedText, String teamId, String keyVersion) {
+        return new ChunkDecryptionRequest(encryptedText, teamId, keyVersion, null, null, null);
+    }
+
+    public static ChunkDecryptionRequest of(String encryptedText, String teamId, String keyVersion,
+            String documentId, String chunkId, Integer chunkIndex) {
+        return new ChunkDecryptionRequest(encryptedText, teamId, keyVersion, documentId, chunkId, chunkIndex);
+    }
+}
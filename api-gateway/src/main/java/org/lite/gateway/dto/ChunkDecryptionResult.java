@@ -0,0 +1,28 @@
+package org.lite.gateway.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Outcome of one entry in a batch decryption: the plaintext, or the reason it could not be
+ * decrypted.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ChunkDecryptionResult {
+    String text;
+    String error;
+
+    public static ChunkDecryptionResult decrypted(String text) {
+        return new ChunkDecryptionResult(text, null);
+    }
+
+    public static ChunkDecryptionResult failed(String error) {
+        return new ChunkDecryptionResult(null, error != null ? error : "Decryption failed");
+    }
+
+    public boolean isDecrypted() {
+        return error == null;
+    }
+}
@@ -0,0 +1,33 @@
+package org.lite.gateway.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MilvusBulkInsertResult {
+    private String collectionName;
+    private int requestedCount;
+    private long insertedCount;
+    private int insertCalls;
+    private List<RowFailure> failures;
+
+    public boolean hasFailures() {
+        return failures != null && !failures.isEmpty();
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowFailure {
+        private int rowIndex; // position in the submitted list
+        private String error;
+    }
+}
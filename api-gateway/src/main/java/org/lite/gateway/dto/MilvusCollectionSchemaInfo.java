@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Value;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 @Value
@@ -15,9 +16,20 @@ public class MilvusCollectionSchemaInfo {
     String vectorFieldName;
     String textFieldName;
     Integer textFieldMaxLength;
+    Integer vectorDimension;
+    Map<String, String> fieldDataTypes; // field name -> Milvus DataType name, in schema order
+    Set<String> nonNullableFields;
 
     public Set<String> getFieldNames() {
         return fieldNames == null ? Collections.emptySet() : fieldNames;
     }
+
+    public Map<String, String> getFieldDataTypes() {
+        return fieldDataTypes == null ? Collections.emptyMap() : fieldDataTypes;
+    }
+
+    public Set<String> getNonNullableFields() {
+        return nonNullableFields == null ? Collections.emptySet() : nonNullableFields;
+    }
 }
 
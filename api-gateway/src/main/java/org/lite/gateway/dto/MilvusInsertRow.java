@@ -0,0 +1,22 @@
+package org.lite.gateway.dto;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One row for a bulk Milvus insert: the record's scalar fields and its pre-computed embedding.
+ * {@code searchText} is the plaintext to put in the keyword index when the record's text
+ * field is encrypted; it is never sent to Milvus.
+ */
+@Value(staticConstructor = "of")
+public class MilvusInsertRow {
+    Map<String, Object> record;
+    List<Float> embedding;
+    String searchText;
+
+    public static MilvusInsertRow of(Map<String, Object> record, List<Float> embedding) {
+        return of(record, embedding, null);
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Document(collection = "agent_tasks")
@@ -73,6 +74,11 @@ public class AgentTask {
     @Field("linq_config")
     @JsonProperty("linq_config")
     private Map<String, Object> linqConfig; // Linq protocol configuration matching LinqRequest structure
+
+    // Lower-cased names of the Milvus collections the workflow steps call, set by WorkflowCollectionIndex
+    @org.springframework.data.mongodb.core.index.Indexed(name = "workflowCollections_idx")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private List<String> workflowCollections;
     
     // Direct API specific fields
     @Field("api_config")
@@ -20,7 +20,12 @@ public class ApiMetric {
     private String gatewayBaseUrl;   // The base URL of the gateway
     private String pathEndPoint;     // Endpoint path after the base URL
     private String queryParameters;  // Parameters for GET requests
-    private String requestPayload;   // Body data for POST requests
+    private String requestPayload;   // Leading bytes of the body for POST/PUT/PATCH requests
+    private long requestPayloadBytes;       // full body size
+    private String requestPayloadSha256;    // hash of the full body
+    private boolean requestPayloadTruncated; // true when requestPayload is only a prefix
     private boolean success;         // false if exception is thrown
     private String method;  // Add this field to store HTTP method
+    private long bytes;     // request + response content length, when known
+    private Integer sampleWeight; // requests this record stands for when others were sampled out or dropped; null is 1
 }
@@ -0,0 +1,38 @@
+package org.lite.gateway.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Per-minute pre-aggregation of {@link ApiMetric} records for one
+ * (routeIdentifier, fromService, toService) triple. Every pod upserts into the same
+ * document with $inc / $min / $max, so rollups from all gateway instances merge in place.
+ */
+@Data
+@Document("apiMetricRollups")
+@CompoundIndexes({
+    @CompoundIndex(name = "minute_services_idx", def = "{'minute': 1, 'fromService': 1, 'toService': 1}"),
+    @CompoundIndex(name = "to_service_minute_idx", def = "{'toService': 1, 'minute': 1}"),
+    @CompoundIndex(name = "from_service_minute_idx", def = "{'fromService': 1, 'minute': 1}")
+})
+public class ApiMetricRollup {
+    @Id
+    private String id;               // minute|routeIdentifier|fromService|toService
+    private LocalDateTime minute;    // start of the minute bucket
+    private String routeIdentifier;
+    private String fromService;
+    private String toService;
+    private long count;
+    private long errorCount;         // requests with success == false (non-2xx status)
+    private long bytes;              // request + response content length, when known
+    private long totalDuration;      // sum of durations in milliseconds
+    private long minDuration;
+    private long maxDuration;
+    private Map<String, Long> histogram; // LatencyHistogram bucket index -> count
+}
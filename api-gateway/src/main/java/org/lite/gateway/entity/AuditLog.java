@@ -35,6 +35,9 @@ import java.util.Map;
     @CompoundIndex(name = "team_event_timestamp_idx", def = "{'teamId': 1, 'eventType': 1, 'timestamp': -1}"),
     @CompoundIndex(name = "team_result_timestamp_idx", def = "{'teamId': 1, 'result': 1, 'timestamp': -1}"),
     @CompoundIndex(name = "team_user_timestamp_idx", def = "{'teamId': 1, 'userId': 1, 'timestamp': -1}"),
+    // Events written before sequencing have no sequence and are left out
+    @CompoundIndex(name = "team_sequence_unique_idx", def = "{'teamId': 1, 'sequence': 1}", unique = true,
+            partialFilter = "{'sequence': {$exists: true}}"),
     
     // For archival queries (logs not yet archived)
     @CompoundIndex(name = "not_archived_timestamp_idx", def = "{'archivedAt': 1, 'timestamp': 1}", sparse = true)
@@ -56,6 +59,12 @@ public class AuditLog {
     @Indexed
     private LocalDateTime timestamp;
     
+    /**
+     * Position of the event in its team's audit trail, unique per team and assigned in write
+     * order (null for events written before sequencing)
+     */
+    private Long sequence;
+    
     /**
      * Type of audit event
      */
@@ -0,0 +1,7 @@
+package org.lite.gateway.enums;
+
+public enum AuditOverflowPolicy {
+    BLOCK,              // Hold the caller until the buffer has room, up to the offer timeout
+    SPILL,              // Append to the local disk journal until the backlog has been written
+    DROP_LOW_SEVERITY   // Drop progress events when full; hold the caller for all others
+}
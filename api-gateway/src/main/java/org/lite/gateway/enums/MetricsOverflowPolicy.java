@@ -0,0 +1,7 @@
+package org.lite.gateway.enums;
+
+public enum MetricsOverflowPolicy {
+    DROP_NEWEST,    // Reject the incoming record when the buffer is full
+    DROP_OLDEST,    // Evict the oldest buffered record to make room for the incoming one
+    SAMPLE          // Above the high-water mark keep 1 in N records, reject when full
+}
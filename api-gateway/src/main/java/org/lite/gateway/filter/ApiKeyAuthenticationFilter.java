@@ -75,22 +75,23 @@ public class ApiKeyAuthenticationFilter implements WebFilter {
         // key/WebUI checks
         // AND populate the SecurityContext so that subsequent DynamicPathAuthorization
         // can see it
+        // The payload is decoded once here and reused by the hybrid-mode team check below
         String authHeaderValue = exchange.getRequest().getHeaders().getFirst(AUTHORIZATION_HEADER);
-        if (authHeaderValue != null && authHeaderValue.startsWith("Bearer ")) {
-            JsonNode payload = decodeTokenPayload(authHeaderValue.substring(7));
-            if (isAdmin(payload)) {
-                log.info("Administrator identified via early bypass for path: {}", path);
-
-                // Create a synthetic authentication object with ROLE_GATEWAY_ADMIN
-                UsernamePasswordAuthenticationToken adminAuth = new UsernamePasswordAuthenticationToken(
-                        payload.path("sub").asText("admin"),
-                        null,
-                        List.of(new SimpleGrantedAuthority("ROLE_GATEWAY_ADMIN")));
-
-                // Set the security context and continue the chain
-                return chain.filter(exchange)
-                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(adminAuth));
-            }
+        JsonNode bearerPayload = authHeaderValue != null && authHeaderValue.startsWith("Bearer ")
+                ? decodeTokenPayload(authHeaderValue.substring(7))
+                : null;
+        if (isAdmin(bearerPayload)) {
+            log.info("Administrator identified via early bypass for path: {}", path);
+
+            // Create a synthetic authentication object with ROLE_GATEWAY_ADMIN
+            UsernamePasswordAuthenticationToken adminAuth = new UsernamePasswordAuthenticationToken(
+                    bearerPayload.path("sub").asText("admin"),
+                    null,
+                    List.of(new SimpleGrantedAuthority("ROLE_GATEWAY_ADMIN")));
+
+            // Set the security context and continue the chain
+            return chain.filter(exchange)
+                    .contextWrite(ReactiveSecurityContextHolder.withAuthentication(adminAuth));
         }
 
         // [PUBLIC PATH BYPASS] Skip API key for public endpoints
@@ -169,8 +170,7 @@ public class ApiKeyAuthenticationFilter implements WebFilter {
                                     "Invalid Authorization header format. Must be 'Bearer token'"));
                         }
 
-                        String token = authHeader.substring(7);
-                        JsonNode payload = decodeTokenPayload(token);
+                        JsonNode payload = bearerPayload;
 
                         if (payload != null && isAdmin(payload)) {
                             log.info("Administrator identified: bypassing team validation for API key for path: {}",
@@ -0,0 +1,176 @@
+package org.lite.gateway.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Buffers routed POST/PUT/PATCH bodies so they can be replayed downstream (and re-read by
+ * the Retry filter) without joining them into one contiguous copy.
+ *
+ * The original {@link DataBuffer}s are retained as they arrive and replayed as read-only
+ * views over the same memory. Only a bounded prefix is copied out for metrics and auditing,
+ * together with the total size and a SHA-256 of the full body, and exposed through the
+ * {@link #CAPTURED_BODY_ATTR} exchange attribute. The retained buffers belong to this filter
+ * and are released exactly once when the exchange completes, is cancelled or fails.
+ */
+@Component
+@Slf4j
+public class RequestBodyCaptureFilter implements GatewayFilter, Ordered {
+
+    public static final String CAPTURED_BODY_ATTR = RequestBodyCaptureFilter.class.getName() + ".capturedBody";
+
+    private static final Set<HttpMethod> BODY_METHODS = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH);
+
+    private final int maxPrefixBytes;
+
+    public RequestBodyCaptureFilter(@Value("${linqra.metrics.body-capture.max-prefix-bytes:4096}") int maxPrefixBytes) {
+        this.maxPrefixBytes = Math.max(0, maxPrefixBytes);
+    }
+
+    /**
+     * What metrics and audit see of a request body.
+     *
+     * @param prefix     UTF-8 decoding of at most {@code max-prefix-bytes} leading bytes
+     * @param totalBytes size of the whole body
+     * @param sha256     hex SHA-256 of the whole body
+     * @param truncated  whether the prefix is shorter than the body
+     */
+    public record CapturedBody(String prefix, long totalBytes, String sha256, boolean truncated) {
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!BODY_METHODS.contains(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+        RetainedBody body = new RetainedBody(maxPrefixBytes);
+        return exchange.getRequest().getBody()
+                .doOnNext(body::add)
+                .then(Mono.defer(() -> {
+                    if (body.isEmpty()) {
+                        return chain.filter(exchange);
+                    }
+                    exchange.getAttributes().put(CAPTURED_BODY_ATTR, body.summary());
+                    ServerHttpRequestDecorator decorator = new ServerHttpRequestDecorator(exchange.getRequest()) {
+                        @Override
+                        public @NonNull Flux<DataBuffer> getBody() {
+                            return body.replay();
+                        }
+                    };
+                    return chain.filter(exchange.mutate().request(decorator).build());
+                }))
+                .doFinally(signal -> body.release());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * Buffers of one request body, the prefix copied out of them and a running digest.
+     * Buffers arriving after {@link #release()} (a late onNext racing a cancel) are released
+     * on the spot.
+     */
+    static final class RetainedBody {
+
+        private final List<DataBuffer> buffers = new ArrayList<>();
+        private final byte[] prefix;
+        private final MessageDigest digest;
+        private int prefixLength;
+        private long totalBytes;
+        private boolean released;
+
+        RetainedBody(int maxPrefixBytes) {
+            this.prefix = new byte[maxPrefixBytes];
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        synchronized void add(DataBuffer buffer) {
+            if (released) {
+                DataBufferUtils.release(buffer);
+                return;
+            }
+            buffers.add(buffer);
+            totalBytes += buffer.readableByteCount();
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer view = iterator.next();
+                    int copy = Math.min(view.remaining(), prefix.length - prefixLength);
+                    if (copy > 0) {
+                        view.duplicate().get(prefix, prefixLength, copy);
+                        prefixLength += copy;
+                    }
+                    digest.update(view);
+                }
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return buffers.isEmpty();
+        }
+
+        synchronized CapturedBody summary() {
+            return new CapturedBody(new String(prefix, 0, prefixLength, StandardCharsets.UTF_8), totalBytes,
+                    HexFormat.of().formatHex(digest.digest()), prefixLength < totalBytes);
+        }
+
+        /**
+         * Read-only views over the retained buffers. Views are unpooled, so downstream
+         * releasing them is a no-op and every subscription (e.g. a retry) sees the full body.
+         */
+        Flux<DataBuffer> replay() {
+            return Flux.defer(() -> {
+                List<DataBuffer> views = new ArrayList<>();
+                synchronized (this) {
+                    if (released) {
+                        return Flux.error(new IllegalStateException("Request body already released"));
+                    }
+                    for (DataBuffer buffer : buffers) {
+                        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                            while (iterator.hasNext()) {
+                                views.add(DefaultDataBufferFactory.sharedInstance.wrap(iterator.next()));
+                            }
+                        }
+                    }
+                }
+                return Flux.fromIterable(views);
+            });
+        }
+
+        synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            buffers.forEach(DataBufferUtils::release);
+            buffers.clear();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.lite.gateway.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR-style log-linear latency histogram in milliseconds.
+ *
+ * Values below 32ms are recorded exactly; above that every power-of-two range is split
+ * into 16 linear sub-buckets, which bounds the relative error of any reported percentile
+ * to about 6%. Values are clamped at roughly 24 days. Histograms with the same layout
+ * merge by adding bucket counts, so per-minute rollups can be combined into any wider
+ * window without losing percentile accuracy.
+ *
+ * Recording is lock-free; readers see a consistent-enough view for reporting.
+ */
+public class LatencyHistogram {
+
+    private static final int PRECISION_BITS = 5;
+    private static final int LINEAR_BUCKETS = 1 << PRECISION_BITS;            // 32 exact buckets
+    private static final int SUB_BUCKETS = LINEAR_BUCKETS >> 1;                // 16 per power of two
+    private static final long MAX_VALUE = (1L << 31) - 1;
+    public static final int BUCKET_COUNT = indexFor(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long valueMillis) {
+        counts.incrementAndGet(indexFor(valueMillis));
+    }
+
+    public void addBucket(int index, long count) {
+        if (index >= 0 && index < BUCKET_COUNT && count > 0) {
+            counts.addAndGet(index, count);
+        }
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+    }
+
+    public void merge(Map<String, ? extends Number> sparse) {
+        if (sparse == null) {
+            return;
+        }
+        sparse.forEach((index, count) -> addBucket(Integer.parseInt(index), count.longValue()));
+    }
+
+    public long totalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile value in (0, 100]
+     * @return the highest value equivalent to the bucket holding the requested percentile,
+     *         or 0 if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = totalCount();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return highestValueFor(i);
+            }
+        }
+        return highestValueFor(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Sparse representation (bucket index to count) used for storage; only non-empty
+     * buckets are included.
+     */
+    public Map<String, Long> toSparseMap() {
+        Map<String, Long> sparse = new HashMap<>();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = counts.get(i);
+            if (c != 0) {
+                sparse.put(Integer.toString(i), c);
+            }
+        }
+        return sparse;
+    }
+
+    public static LatencyHistogram fromSparseMap(Map<String, ? extends Number> sparse) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.merge(sparse);
+        return histogram;
+    }
+
+    static int indexFor(long value) {
+        long v = Math.min(Math.max(value, 0), MAX_VALUE);
+        if (v < LINEAR_BUCKETS) {
+            return (int) v;
+        }
+        int magnitude = (63 - Long.numberOfLeadingZeros(v)) - (PRECISION_BITS - 1);
+        int subBucket = (int) (v >> magnitude) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (magnitude - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueFor(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
@@ -157,6 +157,6 @@ public interface AgentTaskRepository extends ReactiveMongoRepository<AgentTask,
     @Query("{'enabled': true, 'cronExpression': {$exists: true, $ne: null, $ne: ''}, 'executionTrigger': 'CRON', 'scheduleOnStartup': true}")
     Flux<AgentTask> findCronTasksToScheduleOnStartup();
 
-    @Query(value = "{'linq_config.workflow.intent': {$regex: ?0, $options: 'i'}}", exists = true)
-    Mono<Boolean> existsByWorkflowIntentMatching(String regex);
+    // Lower-cased collection names the workflow steps call, kept by WorkflowCollectionIndex
+    Mono<Boolean> existsByWorkflowCollections(String collectionName);
 } 
\ No newline at end of file
@@ -0,0 +1,9 @@
+package org.lite.gateway.repository;
+
+import org.lite.gateway.entity.ApiMetricRollup;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ApiMetricRollupRepository extends ReactiveMongoRepository<ApiMetricRollup, String> {
+    Mono<ApiMetricRollup> findFirstByOrderByMinuteAsc();
+}
@@ -167,4 +167,9 @@ public interface AuditLogRepository extends ReactiveMongoRepository<AuditLog, St
          * Find oldest audit log for a team
          */
         Mono<AuditLog> findTopByTeamIdOrderByTimestampAsc(String teamId);
+
+        /**
+         * Find the audit log with the highest sequence number for a team
+         */
+        Mono<AuditLog> findFirstByTeamIdOrderBySequenceDesc(String teamId);
 }
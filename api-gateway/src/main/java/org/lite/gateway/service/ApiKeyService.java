@@ -10,5 +10,7 @@ public interface ApiKeyService {
 
     Mono<Void> revokeApiKey(String apiKeyId);
 
+    Mono<Void> deleteApiKey(String apiKeyId);
+
     Mono<ApiKey> getDefaultApiKeyForTeam(String teamId);
 }
\ No newline at end of file
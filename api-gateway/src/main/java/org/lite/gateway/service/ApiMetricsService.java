@@ -3,18 +3,26 @@ package org.lite.gateway.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.entity.ApiMetric;
+import org.lite.gateway.entity.ApiMetricRollup;
+import org.lite.gateway.model.LatencyHistogram;
 import org.lite.gateway.repository.ApiMetricRepository;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
 import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -28,6 +36,7 @@ public class ApiMetricsService {
 
     private final ApiMetricRepository apiMetricRepository;
     private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final MetricsRollupEngine metricsRollupEngine;
 
     public Flux<ApiMetric> getMetrics(LocalDateTime startDate, LocalDateTime endDate, 
                                     String fromService, String toService) {
@@ -40,6 +49,233 @@ public class ApiMetricsService {
     }
 
     public Mono<Map<String, Object>> getMetricsSummary(LocalDateTime startDate, LocalDateTime endDate) {
+        return metricsRollupEngine.planWindow(startDate, endDate)
+                .flatMap(plan -> plan
+                        .map(window -> hybridTotals(window, null)
+                                .map(totals -> {
+                                    RollupTotals total = totals.get(List.of());
+                                    if (total == null || total.count == 0) {
+                                        return new HashMap<String, Object>();
+                                    }
+                                    Map<String, Object> summary = new HashMap<>();
+                                    summary.put("totalRequests", total.count);
+                                    summary.put("totalDuration", total.totalDuration);
+                                    summary.put("avgDuration", total.avgDuration());
+                                    summary.put("maxDuration", total.maxDuration);
+                                    summary.put("minDuration", total.minDuration);
+                                    summary.put("successfulRequests", total.successCount());
+                                    summary.put("failedRequests", total.failureCount);
+                                    summary.put("estimatedRequests", total.estimatedCount());
+                                    return summary;
+                                }))
+                        .orElseGet(() -> rawMetricsSummary(startDate, endDate)));
+    }
+
+    public Mono<Map<String, Object>> getServiceInteractionsByService(String serviceName, LocalDateTime startDate, LocalDateTime endDate) {
+        return metricsRollupEngine.planWindow(startDate, endDate)
+                .flatMap(plan -> plan
+                        .map(window -> Mono.zip(
+                                hybridTotals(window, Criteria.where("toService").is(serviceName), "fromService"),
+                                hybridTotals(window, Criteria.where("fromService").is(serviceName), "toService")
+                        ).map(tuple -> {
+                            Map<String, Object> result = new HashMap<>();
+                            result.put("serviceName", serviceName);
+                            result.put("incoming", toInteractionRows(tuple.getT1(), "fromService"));
+                            result.put("outgoing", toInteractionRows(tuple.getT2(), "toService"));
+                            return result;
+                        }))
+                        .orElseGet(() -> rawServiceInteractionsByService(serviceName, startDate, endDate)));
+    }
+
+    public Mono<Map<String, Object>> getServiceInteractionsSummary(String serviceName, LocalDateTime startDate, LocalDateTime endDate) {
+        return metricsRollupEngine.planWindow(startDate, endDate)
+                .flatMap(plan -> plan
+                        .map(window -> Mono.zip(
+                                hybridTotals(window, Criteria.where("toService").is(serviceName)),
+                                hybridTotals(window, Criteria.where("fromService").is(serviceName))
+                        ).map(tuple -> buildInteractionsSummary(serviceName,
+                                toSummaryStats(tuple.getT1().get(List.of())),
+                                toSummaryStats(tuple.getT2().get(List.of())))))
+                        .orElseGet(() -> rawServiceInteractionsSummary(serviceName, startDate, endDate)));
+    }
+
+    public Flux<Map<String, Object>> getServiceInteractions(LocalDateTime startDate, LocalDateTime endDate) {
+        return metricsRollupEngine.planWindow(startDate, endDate)
+                .flatMapMany(plan -> plan
+                        .map(window -> hybridTotals(window, null, "fromService", "toService")
+                                .flatMapIterable(totals -> toInteractionRows(totals, "fromService", "toService")))
+                        .orElseGet(() -> rawServiceInteractions(startDate, endDate)));
+    }
+
+    /**
+     * Latency percentiles merged from the per-minute rollup histograms. Only minute
+     * granularity is available, so the range is widened to whole minutes.
+     */
+    public Mono<Map<String, Object>> getLatencyPercentiles(LocalDateTime startDate, LocalDateTime endDate, String toService) {
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+        LocalDateTime start = startDate != null ? startDate : end.minusHours(1);
+        Criteria criteria = Criteria.where("minute").gte(start.truncatedTo(ChronoUnit.MINUTES)).lte(end);
+        if (toService != null) {
+            criteria = criteria.and("toService").is(toService);
+        }
+        Query query = new Query(criteria);
+        query.fields().include("count", "histogram");
+        return reactiveMongoTemplate.find(query, ApiMetricRollup.class)
+                .reduce(new LatencyHistogram(), (histogram, rollup) -> {
+                    histogram.merge(rollup.getHistogram());
+                    return histogram;
+                })
+                .map(histogram -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("count", histogram.totalCount());
+                    result.put("p50", histogram.valueAtPercentile(50));
+                    result.put("p95", histogram.valueAtPercentile(95));
+                    result.put("p99", histogram.valueAtPercentile(99));
+                    return result;
+                });
+    }
+
+    /**
+     * Aggregates rollups over the window's minute-aligned span and raw metrics over the
+     * head/tail ranges, then merges both into per-group totals. Rollups are exact; raw
+     * records are scaled by their sample weight, and the requests only known through those
+     * weights are reported as {@code estimatedRequests}.
+     */
+    private Mono<Map<List<Object>, RollupTotals>> hybridTotals(MetricsRollupEngine.RollupWindow window,
+                                                               Criteria filter, String... groupFields) {
+        Criteria rollupTime = Criteria.where("minute").gte(window.rollupStart()).lt(window.rollupEnd());
+        GroupOperation rollupGroup = groupBy(groupFields)
+                .sum("count").as("count")
+                .sum("totalDuration").as("totalDuration")
+                .min("minDuration").as("minDuration")
+                .max("maxDuration").as("maxDuration")
+                .sum("errorCount").as("failureCount");
+        TypedAggregation<ApiMetricRollup> rollupAggregation = Aggregation.newAggregation(ApiMetricRollup.class,
+                Aggregation.match(withFilter(rollupTime, filter)), rollupGroup);
+
+        Criteria rawTime = new Criteria().orOperator(
+                Criteria.where("timestamp").gte(window.rawStart()).lt(window.rollupStart()),
+                Criteria.where("timestamp").gte(window.rollupEnd()).lte(window.rawEnd()));
+        AggregationExpression weight = ConditionalOperators.ifNull("sampleWeight").then(1);
+        GroupOperation rawGroup = groupBy(groupFields)
+                .sum(weight).as("count")
+                .count().as("recordCount")
+                .sum(ArithmeticOperators.Multiply.valueOf("duration").multiplyBy(weight)).as("totalDuration")
+                .min("duration").as("minDuration")
+                .max("duration").as("maxDuration")
+                .sum(ConditionalOperators.when(Criteria.where("success").is(false))
+                    .thenValueOf(weight)
+                    .otherwise(0)).as("failureCount");
+        TypedAggregation<ApiMetric> rawAggregation = Aggregation.newAggregation(ApiMetric.class,
+                Aggregation.match(withFilter(rawTime, filter)), rawGroup);
+
+        return Flux.merge(
+                        reactiveMongoTemplate.aggregate(rollupAggregation, OUTPUT_TYPE),
+                        reactiveMongoTemplate.aggregate(rawAggregation, OUTPUT_TYPE))
+                .collect(LinkedHashMap::new, (totals, row) -> totals
+                        .computeIfAbsent(groupKey(row, groupFields), key -> new RollupTotals())
+                        .add(row));
+    }
+
+    private static GroupOperation groupBy(String... groupFields) {
+        return groupFields.length == 0 ? Aggregation.group() : Aggregation.group(groupFields);
+    }
+
+    private static Criteria withFilter(Criteria time, Criteria filter) {
+        return filter == null ? time : new Criteria().andOperator(time, filter);
+    }
+
+    private static List<Object> groupKey(Map<String, Object> row, String... groupFields) {
+        Object id = row.get("_id");
+        List<Object> key = new ArrayList<>(groupFields.length);
+        for (String field : groupFields) {
+            key.add(groupFields.length > 1 && id instanceof Map<?, ?> compound ? compound.get(field) : id);
+        }
+        return key;
+    }
+
+    private static List<Map<String, Object>> toInteractionRows(Map<List<Object>, RollupTotals> totals, String... groupFields) {
+        return totals.entrySet().stream()
+                .filter(entry -> entry.getValue().count > 0)
+                .sorted(Comparator.comparingLong((Map.Entry<List<Object>, RollupTotals> entry) -> entry.getValue().count).reversed())
+                .map(entry -> {
+                    RollupTotals total = entry.getValue();
+                    Map<String, Object> row = new HashMap<>();
+                    for (int i = 0; i < groupFields.length; i++) {
+                        row.put(groupFields[i], entry.getKey().get(i));
+                    }
+                    row.put("count", total.count);
+                    row.put("avgDuration", total.avgDuration());
+                    row.put("totalDuration", total.totalDuration);
+                    row.put("successCount", total.successCount());
+                    row.put("failureCount", total.failureCount);
+                    row.put("estimatedRequests", total.estimatedCount());
+                    return row;
+                })
+                .toList();
+    }
+
+    private static Map<String, Object> toSummaryStats(RollupTotals total) {
+        Map<String, Object> stats = new HashMap<>();
+        if (total == null || total.count == 0) {
+            return stats;
+        }
+        stats.put("totalCount", total.count);
+        stats.put("avgDuration", total.avgDuration());
+        stats.put("totalDuration", total.totalDuration);
+        stats.put("minDuration", total.minDuration);
+        stats.put("maxDuration", total.maxDuration);
+        stats.put("successCount", total.successCount());
+        stats.put("failureCount", total.failureCount);
+        stats.put("estimatedRequests", total.estimatedCount());
+        return stats;
+    }
+
+    /**
+     * Mergeable partial aggregate; rollup and raw rows share the same field names. Raw rows
+     * also carry {@code recordCount}, the records behind their weighted {@code count}.
+     */
+    private static final class RollupTotals {
+        private long count;
+        private long estimatedCount;
+        private long totalDuration;
+        private long failureCount;
+        private long minDuration = Long.MAX_VALUE;
+        private long maxDuration = Long.MIN_VALUE;
+
+        void add(Map<String, Object> row) {
+            count += asLong(row.get("count"));
+            if (row.get("recordCount") instanceof Number records) {
+                estimatedCount += asLong(row.get("count")) - records.longValue();
+            }
+            totalDuration += asLong(row.get("totalDuration"));
+            failureCount += asLong(row.get("failureCount"));
+            if (row.get("minDuration") instanceof Number min) {
+                minDuration = Math.min(minDuration, min.longValue());
+            }
+            if (row.get("maxDuration") instanceof Number max) {
+                maxDuration = Math.max(maxDuration, max.longValue());
+            }
+        }
+
+        long estimatedCount() {
+            return estimatedCount;
+        }
+
+        long successCount() {
+            return count - failureCount;
+        }
+
+        double avgDuration() {
+            return count > 0 ? (double) totalDuration / count : 0.0;
+        }
+
+        private static long asLong(Object value) {
+            return value instanceof Number number ? number.longValue() : 0L;
+        }
+    }
+
+    private Mono<Map<String, Object>> rawMetricsSummary(LocalDateTime startDate, LocalDateTime endDate) {
         Criteria timeCriteria = new Criteria();
         if (startDate != null && endDate != null) {
             timeCriteria = Criteria.where("timestamp").gte(startDate).lte(endDate);
@@ -72,7 +308,7 @@ public class ApiMetricsService {
     }
 
 
-    public Mono<Map<String, Object>> getServiceInteractionsByService(String serviceName, LocalDateTime startDate, LocalDateTime endDate) {
+    private Mono<Map<String, Object>> rawServiceInteractionsByService(String serviceName, LocalDateTime startDate, LocalDateTime endDate) {
         Criteria timeCriteria = new Criteria();
         if (startDate != null && endDate != null) {
             timeCriteria = Criteria.where("timestamp").gte(startDate).lte(endDate);
@@ -143,7 +379,7 @@ public class ApiMetricsService {
         });
     }
 
-    public Mono<Map<String, Object>> getServiceInteractionsSummary(String serviceName, LocalDateTime startDate, LocalDateTime endDate) {
+    private Mono<Map<String, Object>> rawServiceInteractionsSummary(String serviceName, LocalDateTime startDate, LocalDateTime endDate) {
         Criteria timeCriteria = new Criteria();
         if (startDate != null && endDate != null) {
             timeCriteria = Criteria.where("timestamp").gte(startDate).lte(endDate);
@@ -213,34 +449,35 @@ public class ApiMetricsService {
                 reactiveMongoTemplate.aggregate(outgoingAggregation, OUTPUT_TYPE)
                         .next()
                         .defaultIfEmpty(new HashMap<>())
-        ).map(tuple -> {
-            Map<String, Object> incomingStats = tuple.getT1();
-            Map<String, Object> outgoingStats = tuple.getT2();
-            
-            // Calculate success rates
-            if (incomingStats.containsKey("totalCount")) {
-                int totalCount = ((Number) incomingStats.get("totalCount")).intValue();
-                int successCount = ((Number) incomingStats.get("successCount")).intValue();
-                double successRate = totalCount > 0 ? (successCount * 100.0 / totalCount) : 0.0;
-                incomingStats.put("successRate", successRate);
-            }
-            
-            if (outgoingStats.containsKey("totalCount")) {
-                int totalCount = ((Number) outgoingStats.get("totalCount")).intValue();
-                int successCount = ((Number) outgoingStats.get("successCount")).intValue();
-                double successRate = totalCount > 0 ? (successCount * 100.0 / totalCount) : 0.0;
-                outgoingStats.put("successRate", successRate);
-            }
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("serviceName", serviceName);
-            result.put("incoming", incomingStats);
-            result.put("outgoing", outgoingStats);
-            return result;
-        });
+        ).map(tuple -> buildInteractionsSummary(serviceName, tuple.getT1(), tuple.getT2()));
     }
 
-    public Flux<Map<String, Object>> getServiceInteractions(LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> buildInteractionsSummary(String serviceName,
+                                                         Map<String, Object> incomingStats,
+                                                         Map<String, Object> outgoingStats) {
+        // Calculate success rates
+        if (incomingStats.containsKey("totalCount")) {
+            long totalCount = ((Number) incomingStats.get("totalCount")).longValue();
+            long successCount = ((Number) incomingStats.get("successCount")).longValue();
+            double successRate = totalCount > 0 ? (successCount * 100.0 / totalCount) : 0.0;
+            incomingStats.put("successRate", successRate);
+        }
+
+        if (outgoingStats.containsKey("totalCount")) {
+            long totalCount = ((Number) outgoingStats.get("totalCount")).longValue();
+            long successCount = ((Number) outgoingStats.get("successCount")).longValue();
+            double successRate = totalCount > 0 ? (successCount * 100.0 / totalCount) : 0.0;
+            outgoingStats.put("successRate", successRate);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("serviceName", serviceName);
+        result.put("incoming", incomingStats);
+        result.put("outgoing", outgoingStats);
+        return result;
+    }
+
+    private Flux<Map<String, Object>> rawServiceInteractions(LocalDateTime startDate, LocalDateTime endDate) {
         Criteria timeCriteria = new Criteria();
         if (startDate != null && endDate != null) {
             timeCriteria = Criteria.where("timestamp").gte(startDate).lte(endDate);
@@ -49,6 +49,27 @@ public interface AuditArchivalService {
             String userId,
             String result);
 
+    /**
+     * Query archived audit logs from S3, newest first
+     *
+     * @param teamId     Team ID to filter by (required)
+     * @param startTime  Start of time range (required)
+     * @param endTime    End of time range (required)
+     * @param eventTypes Optional list of event types to filter by
+     * @param userId     Optional user ID to filter by
+     * @param resourceId Optional resource ID to filter by
+     * @param result     Optional result type to filter by
+     * @return Flux of matching AuditLog entries from S3 archives
+     */
+    Flux<AuditLog> queryArchivedLogs(
+            String teamId,
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            List<AuditEventType> eventTypes,
+            String userId,
+            String resourceId,
+            String result);
+
     /**
      * Get statistics about archival process
      * 
@@ -0,0 +1,584 @@
+package org.lite.gateway.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.lite.gateway.entity.AuditLog;
+import org.lite.gateway.enums.AuditEventType;
+import org.lite.gateway.enums.AuditOverflowPolicy;
+import org.lite.gateway.repository.AuditLogRepository;
+import org.lite.gateway.util.BoundedRingBuffer;
+import org.lite.gateway.util.DiskJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for {@link AuditLog} events. Callers only enqueue into a bounded
+ * lock-free ring buffer; a single drainer numbers the events of each team and writes one
+ * {@code insertMany} per batch, when {@code batchSize} events are waiting or every
+ * {@code flushIntervalMs}, whichever comes first.
+ *
+ * What happens when the buffer is full depends on the {@link AuditOverflowPolicy}. Events
+ * that do not fit are appended to a local {@link DiskJournal} under {@code SPILL}, and under
+ * {@code BLOCK} once the buffer has stayed full for {@code offerTimeoutMs}; events still
+ * buffered at shutdown are appended to it under every policy. While the
+ * journal holds a backlog, new events are appended behind it so they are written in the
+ * order they were submitted; the drainer replays it once the buffer is empty, including
+ * after a restart.
+ *
+ * Sequence numbers are handed out in write order from a counter document per team in
+ * {@code audit_sequences}. Each batch takes a block of numbers per team with one atomic
+ * {@code $inc}, so gateway instances writing the same team's events never share a number,
+ * and a unique index on team and sequence rejects any that would. The first time an
+ * instance sees a team, the counter is raised to at least the highest sequence already
+ * stored for it. The journal directory, an absolute path on a persistent volume, belongs
+ * to one instance. Writes are at-least-once: a journal batch interrupted by a crash is
+ * inserted again and the events already stored are skipped on their unique event id.
+ */
+@Service
+@Slf4j
+public class AuditIngestionPipeline {
+
+    private static final Duration OFFER_RETRY_DELAY = Duration.ofMillis(1);
+    private static final String NO_TEAM = "";
+    private static final String SEQUENCE_COLLECTION = "audit_sequences";
+    private static final String SEQUENCE_INDEX = "team_sequence_unique_idx";
+
+    // Progress and housekeeping events that may be shed under DROP_LOW_SEVERITY
+    private static final Set<AuditEventType> LOW_SEVERITY_EVENTS = EnumSet.of(
+            AuditEventType.DOCUMENT_PROCESSING_STARTED,
+            AuditEventType.GRAPH_EXTRACTION_STARTED,
+            AuditEventType.AGENT_TASK_EXECUTION_STARTED,
+            AuditEventType.WORKFLOW_EXECUTION_STARTED,
+            AuditEventType.WORKFLOW_STEP_EXECUTED,
+            AuditEventType.TOOL_EXECUTION_STARTED,
+            AuditEventType.TOOL_EXECUTION_COMPLETED,
+            AuditEventType.LLM_REQUEST_STARTED,
+            AuditEventType.LLM_REQUEST_COMPLETED,
+            AuditEventType.CHAT_EXECUTION_STARTED,
+            AuditEventType.CHAT_EXECUTION_COMPLETED,
+            AuditEventType.NOTIFICATION_SENT,
+            AuditEventType.TOKEN_REFRESHED);
+
+    private final AuditLogRepository auditLogRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final BoundedRingBuffer<AuditLog> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Duration flushTimeout;
+    private final Duration offerTimeout;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final int maxRetries;
+    private final DiskJournal journal;
+    private final ObjectMapper objectMapper;
+
+    private final Scheduler drainScheduler = Schedulers.newSingle("audit-ingestion", true);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final Set<String> seededTeams = ConcurrentHashMap.newKeySet();
+    private Disposable periodicFlush;
+
+    // Only touched by the drainer
+    private List<AuditLog> retryBatch;
+    private int retryAttempts;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder spilledEvents = new LongAdder();
+    private final LongAdder spilledBytes = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder droppedLowSeverity = new LongAdder();
+    private final LongAdder offerTimeouts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder sequenceBlocks = new LongAdder();
+    private final LongAdder sequenceConflicts = new LongAdder();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+
+    public AuditIngestionPipeline(
+            AuditLogRepository auditLogRepository,
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            @Value("${linqra.audit.ingestion.capacity:16384}") int capacity,
+            @Value("${linqra.audit.ingestion.batch-size:500}") int batchSize,
+            @Value("${linqra.audit.ingestion.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${linqra.audit.ingestion.flush-timeout-ms:10000}") long flushTimeoutMs,
+            @Value("${linqra.audit.ingestion.offer-timeout-ms:5000}") long offerTimeoutMs,
+            @Value("${linqra.audit.ingestion.overflow-policy:BLOCK}") AuditOverflowPolicy overflowPolicy,
+            @Value("${linqra.audit.ingestion.journal-directory:}") String journalDirectory,
+            @Value("${linqra.audit.ingestion.journal-sync:false}") boolean journalSync,
+            @Value("${linqra.audit.ingestion.max-retries:5}") int maxRetries) {
+        this.auditLogRepository = auditLogRepository;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.flushTimeout = Duration.ofMillis(flushTimeoutMs);
+        this.offerTimeout = Duration.ofMillis(Math.max(1, offerTimeoutMs));
+        this.overflowPolicy = overflowPolicy;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.journal = openJournal(journalDirectory, journalSync);
+    }
+
+    private DiskJournal openJournal(String directory, boolean sync) {
+        if (directory == null || directory.isBlank() || !Path.of(directory).isAbsolute()) {
+            throw new IllegalStateException("linqra.audit.ingestion.journal-directory must be set to an absolute "
+                    + "path on a persistent volume, got '" + directory + "'");
+        }
+        try {
+            DiskJournal opened = new DiskJournal(Path.of(directory), sync);
+            if (!opened.isEmpty()) {
+                log.info("Recovered {} audit events from journal {}", opened.pendingRecords(), directory);
+            }
+            return opened;
+        } catch (IOException e) {
+            if (overflowPolicy == AuditOverflowPolicy.SPILL) {
+                throw new IllegalStateException("Cannot open audit journal " + directory, e);
+            }
+            log.warn("Audit journal {} unavailable, buffered events will not survive a restart: {}",
+                    directory, e.getMessage());
+            return null;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        periodicFlush = drainScheduler.schedulePeriodically(this::drain,
+                flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Audit ingestion pipeline started (capacity={}, batchSize={}, flushIntervalMs={}, policy={})",
+                buffer.capacity(), batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (periodicFlush != null) {
+            periodicFlush.dispose();
+        }
+        // Wait for the batch in flight, then keep the drainer for ourselves
+        long deadline = System.nanoTime() + flushTimeout.toNanos();
+        while (!draining.compareAndSet(false, true)) {
+            if (System.nanoTime() > deadline) {
+                log.warn("Audit batch still in flight at shutdown");
+                break;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Final synchronous drain; whatever cannot be written goes to the journal
+        List<AuditLog> batch = takeRetryBatch();
+        boolean writable = true;
+        while (!batch.isEmpty() || buffer.drainTo(batch, batchSize) > 0) {
+            if (writable) {
+                try {
+                    assignSequences(batch).then(write(batch)).block(flushTimeout);
+                    batch.clear();
+                    continue;
+                } catch (Exception e) {
+                    writable = false;
+                    log.warn("Failed to flush {} audit events during shutdown: {}", batch.size(), e.getMessage());
+                }
+            }
+            spillOrFail(batch);
+            batch.clear();
+        }
+
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close audit journal: {}", e.getMessage());
+            }
+        }
+        drainScheduler.dispose();
+    }
+
+    /**
+     * Enqueues an event for the next bulk write. Completes once the event is buffered or
+     * journaled, or once it has been dropped by the overflow policy. Errors only under
+     * {@code BLOCK} when the buffer stays full past the offer timeout and the event cannot
+     * be journaled either, so the caller sees the backpressure instead of a silent loss.
+     */
+    public Mono<Void> submit(AuditLog auditLog) {
+        if (journal != null && !journal.isEmpty()) {
+            return spill(auditLog);
+        }
+        if (offer(auditLog)) {
+            return Mono.empty();
+        }
+
+        if (overflowPolicy == AuditOverflowPolicy.SPILL && journal != null) {
+            return spill(auditLog);
+        }
+        if (overflowPolicy == AuditOverflowPolicy.DROP_LOW_SEVERITY && isLowSeverity(auditLog)) {
+            droppedLowSeverity.increment();
+            dropped.increment();
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> offer(auditLog) ? Boolean.TRUE : null)
+                .repeatWhenEmpty(repeats -> repeats.delayElements(OFFER_RETRY_DELAY))
+                .timeout(offerTimeout)
+                .then()
+                .onErrorResume(TimeoutException.class, e -> {
+                    offerTimeouts.increment();
+                    log.warn("Audit buffer full for {} ms, journaling {} event {}", offerTimeout.toMillis(),
+                            auditLog.getEventType(), auditLog.getEventId());
+                    return journalOrFail(auditLog);
+                });
+    }
+
+    /**
+     * Appends an event that could not be buffered to the journal, or errors if there is no
+     * journal or the append fails.
+     */
+    private Mono<Void> journalOrFail(AuditLog auditLog) {
+        if (journal == null) {
+            failed.increment();
+            return Mono.error(new IllegalStateException("Audit buffer full for " + offerTimeout.toMillis()
+                    + " ms and no journal available for event " + auditLog.getEventId()));
+        }
+        return Mono.<Void>fromCallable(() -> {
+                    append(auditLog);
+                    enqueued.increment();
+                    return null;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(e -> {
+                    failed.increment();
+                    log.error("Failed to journal audit event {}: {}", auditLog.getEventId(), e.getMessage());
+                });
+    }
+
+    private boolean offer(AuditLog auditLog) {
+        if (!buffer.offer(auditLog)) {
+            scheduleDrain();
+            return false;
+        }
+        enqueued.increment();
+        if (buffer.size() >= batchSize) {
+            scheduleDrain();
+        }
+        return true;
+    }
+
+    private Mono<Void> spill(AuditLog auditLog) {
+        return Mono.fromRunnable(() -> {
+                    try {
+                        append(auditLog);
+                        enqueued.increment();
+                    } catch (IOException e) {
+                        dropped.increment();
+                        log.error("Failed to journal audit event {}: {}", auditLog.getEventId(), e.getMessage());
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private void append(AuditLog auditLog) throws IOException {
+        byte[] record = objectMapper.writeValueAsBytes(auditLog);
+        journal.append(record);
+        spilledEvents.increment();
+        spilledBytes.add(record.length);
+    }
+
+    static boolean isLowSeverity(AuditLog auditLog) {
+        return LOW_SEVERITY_EVENTS.contains(auditLog.getEventType())
+                && (auditLog.getResult() == null || "SUCCESS".equals(auditLog.getResult()));
+    }
+
+    private void scheduleDrain() {
+        if (!draining.get()) {
+            drainScheduler.schedule(this::drain);
+        }
+    }
+
+    /**
+     * Writes one batch: a failed batch being retried, else buffered events, else journaled
+     * ones. Only one batch is in flight at a time; if more work is waiting when the write
+     * completes, the next one is scheduled immediately.
+     */
+    void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<AuditLog> batch;
+        boolean fromJournal = false;
+        try {
+            batch = takeRetryBatch();
+            if (batch.isEmpty()) {
+                buffer.drainTo(batch, batchSize);
+            }
+            if (batch.isEmpty() && journal != null && !journal.isEmpty()) {
+                batch = readJournal();
+                fromJournal = true;
+            }
+        } catch (IOException e) {
+            log.error("Failed to read audit journal: {}", e.getMessage());
+            draining.set(false);
+            return;
+        }
+        if (batch.isEmpty()) {
+            draining.set(false);
+            return;
+        }
+
+        List<AuditLog> writing = batch;
+        boolean journaled = fromJournal;
+        long start = System.nanoTime();
+        assignSequences(writing)
+                .then(write(writing))
+                .timeout(flushTimeout)
+                .subscribe(
+                        unused -> {
+                        },
+                        error -> {
+                            onFailure(writing, journaled, error);
+                            draining.set(false);
+                        },
+                        () -> {
+                            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                            lastFlushMillis.set(elapsed);
+                            maxFlushMillis.accumulateAndGet(elapsed, Math::max);
+                            batches.increment();
+                            retryAttempts = 0;
+                            if (journaled) {
+                                commitJournal(writing.size());
+                            }
+                            draining.set(false);
+                            if (buffer.size() >= batchSize || (journal != null && !journal.isEmpty())) {
+                                drainScheduler.schedule(this::drain);
+                            }
+                        });
+    }
+
+    private List<AuditLog> takeRetryBatch() {
+        List<AuditLog> batch = retryBatch != null ? retryBatch : new ArrayList<>(batchSize);
+        retryBatch = null;
+        return batch;
+    }
+
+    private List<AuditLog> readJournal() throws IOException {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        for (byte[] record : journal.read(batchSize)) {
+            batch.add(objectMapper.readValue(record, AuditLog.class));
+        }
+        return batch;
+    }
+
+    private void commitJournal(int count) {
+        try {
+            journal.commit();
+            replayed.add(count);
+        } catch (IOException e) {
+            // The batch is stored; it is replayed once more and skipped as duplicates
+            log.warn("Failed to commit audit journal: {}", e.getMessage());
+            journal.rewind();
+        }
+    }
+
+    private void onFailure(List<AuditLog> batch, boolean fromJournal, Throwable error) {
+        if (fromJournal) {
+            // Journaled events stay on disk until they are written
+            journal.rewind();
+            retries.increment();
+            log.warn("Failed to write {} journaled audit events, will retry: {}", batch.size(), error.getMessage());
+            return;
+        }
+        if (retryAttempts < maxRetries) {
+            retryAttempts++;
+            retries.increment();
+            retryBatch = batch;
+            log.warn("Failed to write batch of {} audit events (attempt {}), will retry: {}",
+                    batch.size(), retryAttempts, error.getMessage());
+            return;
+        }
+        retryAttempts = 0;
+        log.error("Giving up on batch of {} audit events after {} retries: {}", batch.size(), maxRetries,
+                error.getMessage());
+        spillOrFail(batch);
+    }
+
+    private void spillOrFail(List<AuditLog> batch) {
+        if (journal != null) {
+            try {
+                for (AuditLog auditLog : batch) {
+                    append(auditLog);
+                }
+                return;
+            } catch (IOException e) {
+                log.error("Failed to journal {} audit events: {}", batch.size(), e.getMessage());
+            }
+        }
+        failed.add(batch.size());
+    }
+
+    /**
+     * Numbers the events that do not have a sequence yet from one block per team. Events
+     * journaled after an earlier attempt already numbered them keep their number, and their
+     * team's counter is raised past it.
+     */
+    private Mono<Void> assignSequences(List<AuditLog> batch) {
+        Map<String, List<AuditLog>> unnumbered = new LinkedHashMap<>();
+        Map<String, Long> highestNumbered = new LinkedHashMap<>();
+        for (AuditLog auditLog : batch) {
+            String team = teamKey(auditLog);
+            if (auditLog.getSequence() == null) {
+                unnumbered.computeIfAbsent(team, key -> new ArrayList<>()).add(auditLog);
+            } else {
+                highestNumbered.merge(team, auditLog.getSequence(), Math::max);
+            }
+        }
+        return Flux.fromIterable(highestNumbered.entrySet())
+                .concatMap(entry -> raiseCounter(entry.getKey(), entry.getValue()))
+                .thenMany(Flux.fromIterable(unnumbered.entrySet()))
+                .concatMap(entry -> allocate(entry.getKey(), entry.getValue().size())
+                        .doOnNext(last -> {
+                            long next = last - entry.getValue().size();
+                            for (AuditLog auditLog : entry.getValue()) {
+                                auditLog.setSequence(++next);
+                            }
+                        }))
+                .then();
+    }
+
+    /**
+     * Takes the next {@code count} numbers of the team's counter and returns the last one.
+     */
+    private Mono<Long> allocate(String team, int count) {
+        return seed(team)
+                .then(reactiveMongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(team)),
+                        new Update().inc("value", count),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        Document.class, SEQUENCE_COLLECTION))
+                .map(counter -> ((Number) counter.get("value")).longValue())
+                .doOnNext(last -> sequenceBlocks.increment());
+    }
+
+    /**
+     * Raises the team's counter to the highest sequence stored for it, once per team and
+     * instance, so a counter created after the team's first events continues after them.
+     */
+    private Mono<Void> seed(String team) {
+        if (seededTeams.contains(team)) {
+            return Mono.empty();
+        }
+        return auditLogRepository.findFirstByTeamIdOrderBySequenceDesc(NO_TEAM.equals(team) ? null : team)
+                .mapNotNull(AuditLog::getSequence)
+                .defaultIfEmpty(0L)
+                .flatMap(highest -> raiseCounter(team, highest))
+                .doOnSuccess(unused -> seededTeams.add(team));
+    }
+
+    private Mono<Void> raiseCounter(String team, long atLeast) {
+        return reactiveMongoTemplate.upsert(Query.query(Criteria.where("_id").is(team)),
+                        new Update().max("value", atLeast), SEQUENCE_COLLECTION)
+                .then();
+    }
+
+    private static String teamKey(AuditLog auditLog) {
+        return auditLog.getTeamId() != null ? auditLog.getTeamId() : NO_TEAM;
+    }
+
+    /**
+     * Bulk insert; if some events are already stored, inserts the batch one by one and
+     * skips those. An event whose sequence is taken, which only a number handed out outside
+     * the team's counter can cause, is numbered again instead.
+     */
+    private Mono<Void> write(List<AuditLog> batch) {
+        return Mono.defer(() -> auditLogRepository.insert(batch)
+                .then(Mono.<Void>fromRunnable(() -> inserted.add(batch.size())))
+                .onErrorResume(DuplicateKeyException.class, e -> Flux.fromIterable(batch)
+                        .concatMap(auditLog -> auditLogRepository.insert(auditLog)
+                                .onErrorResume(DuplicateKeyException.class, duplicate -> {
+                                    if (!isSequenceConflict(duplicate)) {
+                                        duplicates.increment();
+                                        return Mono.empty();
+                                    }
+                                    sequenceConflicts.increment();
+                                    log.warn("Audit event {} of team {} conflicts on sequence {}, renumbering it",
+                                            auditLog.getEventId(), auditLog.getTeamId(), auditLog.getSequence());
+                                    return allocate(teamKey(auditLog), 1)
+                                            .flatMap(sequence -> {
+                                                auditLog.setSequence(sequence);
+                                                return auditLogRepository.insert(auditLog);
+                                            });
+                                })
+                                .doOnNext(stored -> inserted.increment()))
+                        .then()));
+    }
+
+    private static boolean isSequenceConflict(DuplicateKeyException e) {
+        return e.getMessage() != null && e.getMessage().contains(SEQUENCE_INDEX);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enqueued", enqueued.sum());
+        stats.put("inserted", inserted.sum());
+        stats.put("duplicatesSkipped", duplicates.sum());
+        stats.put("batches", batches.sum());
+        stats.put("buffered", buffer.size());
+        stats.put("capacity", buffer.capacity());
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("lastFlushMillis", lastFlushMillis.get());
+        stats.put("maxFlushMillis", maxFlushMillis.get());
+        stats.put("spilledEvents", spilledEvents.sum());
+        stats.put("spilledBytes", spilledBytes.sum());
+        stats.put("journalPendingEvents", journal != null ? journal.pendingRecords() : 0L);
+        stats.put("journalPendingBytes", journal != null ? journal.pendingBytes() : 0L);
+        stats.put("replayedFromJournal", replayed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("droppedLowSeverity", droppedLowSeverity.sum());
+        stats.put("offerTimeouts", offerTimeouts.sum());
+        stats.put("retries", retries.sum());
+        stats.put("failed", failed.sum());
+        stats.put("teamsSequenced", seededTeams.size());
+        stats.put("sequenceBlocks", sequenceBlocks.sum());
+        stats.put("sequenceConflicts", sequenceConflicts.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,364 @@
+package org.lite.gateway.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.entity.AuditLog;
+import org.lite.gateway.enums.AuditEventType;
+import org.lite.gateway.filter.ServerWebExchangeContextFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects chunk decryption events in memory and writes one summary audit record per
+ * (request, user, team, collection, document) instead of one record per decrypted chunk.
+ *
+ * A summary is written once its group has seen no access for {@code idleMs}, has been open
+ * for {@code windowMs}, or holds {@code maxChunks} accesses. It carries the counts, the key
+ * versions, the chunk index ranges and a SHA-256 digest of the sorted chunk ids, so the set
+ * of chunks read can be verified later without storing every id. The user and team context
+ * is resolved once per request.
+ */
+@Service
+@Slf4j
+public class ChunkAccessAuditAggregator {
+
+    /**
+     * One chunk decryption. Everything but the team and key version is optional.
+     */
+    public record ChunkAccess(String teamId, String collectionName, String documentId, String chunkId,
+            Integer chunkIndex, String keyVersion, boolean success, String error) {
+
+        public static ChunkAccess of(String teamId, String keyVersion, boolean success, String error) {
+            return new ChunkAccess(teamId, null, null, null, null, keyVersion, success, error);
+        }
+
+        public static ChunkAccess of(String teamId, String documentId, String chunkId, Integer chunkIndex,
+                String keyVersion, boolean success, String error) {
+            return new ChunkAccess(teamId, null, documentId, chunkId, chunkIndex, keyVersion, success, error);
+        }
+    }
+
+    private record GroupKey(String requestId, String username, String teamId, String collectionName,
+            String documentId) {
+    }
+
+    /**
+     * The caller as resolved from the security context; {@code teamId} is empty when the
+     * context carries no team.
+     */
+    private record Principal(String username, String teamId) {
+    }
+
+    private static final class Group {
+
+        private final long openedAt;
+        private long lastAccessAt;
+        private boolean closed;
+        private int decrypted;
+        private int failed;
+        private String firstError;
+        private final Set<String> keyVersions = new TreeSet<>();
+        private final List<String> chunkIds = new ArrayList<>();
+        private final Set<Integer> chunkIndexes = new TreeSet<>();
+
+        Group(long now) {
+            this.openedAt = now;
+            this.lastAccessAt = now;
+        }
+
+        /**
+         * @return the number of accesses in the group, or -1 if it was already flushed
+         */
+        synchronized int add(ChunkAccess access, long now) {
+            if (closed) {
+                return -1;
+            }
+            lastAccessAt = now;
+            if (access.success()) {
+                decrypted++;
+            } else {
+                failed++;
+                if (firstError == null) {
+                    firstError = access.error();
+                }
+            }
+            if (access.keyVersion() != null) {
+                keyVersions.add(access.keyVersion());
+            }
+            if (access.chunkId() != null) {
+                chunkIds.add(access.chunkId());
+            }
+            if (access.chunkIndex() != null) {
+                chunkIndexes.add(access.chunkIndex());
+            }
+            return decrypted + failed;
+        }
+
+        synchronized boolean isExpired(long now, long windowMs, long idleMs) {
+            return now - lastAccessAt >= idleMs || now - openedAt >= windowMs;
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+    }
+
+    private final AuditService auditService;
+    private final UserContextService userContextService;
+    private final TeamContextService teamContextService;
+    private final long windowMs;
+    private final long idleMs;
+    private final int maxChunks;
+
+    private final Map<GroupKey, Group> groups = new ConcurrentHashMap<>();
+    private final Map<String, Mono<Principal>> principalsByRequest = new ConcurrentHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder summaries = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+
+    public ChunkAccessAuditAggregator(
+            @Lazy AuditService auditService,
+            UserContextService userContextService,
+            TeamContextService teamContextService,
+            @Value("${linqra.audit.chunk-access.window-ms:60000}") long windowMs,
+            @Value("${linqra.audit.chunk-access.idle-ms:2000}") long idleMs,
+            @Value("${linqra.audit.chunk-access.max-chunks:10000}") int maxChunks) {
+        this.auditService = auditService;
+        this.userContextService = userContextService;
+        this.teamContextService = teamContextService;
+        this.windowMs = Math.max(1, windowMs);
+        this.idleMs = Math.max(1, idleMs);
+        this.maxChunks = Math.max(1, maxChunks);
+    }
+
+    /**
+     * Adds a chunk decryption to the summary of the current request. Never fails.
+     */
+    public Mono<Void> record(ChunkAccess access) {
+        return Mono.deferContextual(ctx -> {
+            String requestId = requestId(ctx);
+            Mono<Principal> principal = requestId != null
+                    ? principalsByRequest.computeIfAbsent(requestId, id -> resolvePrincipal().cache())
+                    : resolvePrincipal();
+            return principal.doOnNext(caller -> add(requestId, caller, access, System.currentTimeMillis()));
+        })
+                .onErrorResume(e -> {
+                    log.warn("Failed to record chunk access for audit: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Principal> resolvePrincipal() {
+        Mono<String> usernameMono = userContextService.getCurrentUsername()
+                .defaultIfEmpty(UserContextService.SYSTEM_USER);
+        Mono<String> teamIdMono = teamContextService.getTeamFromContext()
+                .onErrorResume(e -> Mono.empty())
+                .defaultIfEmpty("");
+        return Mono.zip(usernameMono, teamIdMono)
+                .map(tuple -> new Principal(tuple.getT1(), tuple.getT2()));
+    }
+
+    private void add(String requestId, Principal caller, ChunkAccess access, long now) {
+        String teamId = !caller.teamId().isEmpty() ? caller.teamId() : access.teamId();
+        GroupKey key = new GroupKey(requestId, caller.username(), teamId, access.collectionName(),
+                access.documentId());
+        recorded.increment();
+        while (true) {
+            Group group = groups.computeIfAbsent(key, k -> new Group(now));
+            int size = group.add(access, now);
+            if (size >= maxChunks) {
+                flush(key, group);
+            }
+            if (size >= 0) {
+                return;
+            }
+            // Flushed between lookup and add; the next lookup opens a new group
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${linqra.audit.chunk-access.sweep-interval-ms:1000}")
+    public void flushExpired() {
+        flushExpired(System.currentTimeMillis());
+    }
+
+    void flushExpired(long now) {
+        groups.forEach((key, group) -> {
+            if (group.isExpired(now, windowMs, idleMs)) {
+                flush(key, group);
+            }
+        });
+        // Forget the callers of requests that have no open summary left
+        Set<String> openRequests = new HashSet<>();
+        groups.keySet().forEach(key -> openRequests.add(key.requestId()));
+        principalsByRequest.keySet().retainAll(openRequests);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        groups.forEach((key, group) -> {
+            if (groups.remove(key, group)) {
+                group.close();
+                try {
+                    write(key, group).block(Duration.ofSeconds(10));
+                } catch (Exception e) {
+                    log.warn("Failed to write chunk access summary during shutdown: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void flush(GroupKey key, Group group) {
+        if (groups.remove(key, group)) {
+            group.close();
+            write(key, group).subscribe();
+        }
+    }
+
+    private Mono<Void> write(GroupKey key, Group group) {
+        int total = group.decrypted + group.failed;
+        List<String> chunkIds = new ArrayList<>(group.chunkIds);
+        chunkIds.sort(null);
+
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("requestId", key.requestId());
+        context.put("collectionName", key.collectionName());
+        context.put("chunkCount", total);
+        context.put("decryptedCount", group.decrypted);
+        context.put("failedCount", group.failed);
+        context.put("keyVersions", new ArrayList<>(group.keyVersions));
+        if (!group.chunkIndexes.isEmpty()) {
+            context.put("chunkIndexRanges", indexRanges(group.chunkIndexes));
+        }
+        if (!chunkIds.isEmpty()) {
+            context.put("chunkIdCount", chunkIds.size());
+            context.put("firstChunkId", chunkIds.get(0));
+            context.put("lastChunkId", chunkIds.get(chunkIds.size() - 1));
+            context.put("chunkIdsSha256", chunkIdsDigest(chunkIds));
+        }
+        context.put("firstAccess", Instant.ofEpochMilli(group.openedAt).toString());
+        context.put("lastAccess", Instant.ofEpochMilli(group.lastAccessAt).toString());
+
+        AuditLog.AuditMetadata metadata = AuditLog.AuditMetadata.builder()
+                .reason(String.format("Decrypted %d of %d chunks for team %s (key versions: %s)",
+                        group.decrypted, total, key.teamId(), String.join(", ", group.keyVersions)))
+                .context(context)
+                .durationMs(group.lastAccessAt - group.openedAt)
+                .errorMessage(group.firstError)
+                .build();
+        boolean success = group.failed == 0;
+
+        return auditService.logEvent(
+                key.username(),
+                key.username(),
+                key.teamId(),
+                null, // ipAddress
+                null, // userAgent
+                success ? AuditEventType.CHUNK_DECRYPTED : AuditEventType.DECRYPTION_FAILED,
+                "READ",
+                "CHUNK",
+                null, // resourceId
+                key.documentId(),
+                null, // collectionId
+                success ? "SUCCESS" : "FAILED",
+                metadata,
+                null // complianceFlags
+        )
+                .doOnSuccess(unused -> summaries.increment())
+                .onErrorResume(error -> {
+                    failedWrites.increment();
+                    log.warn("Failed to write chunk access audit summary: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recorded", recorded.sum());
+        stats.put("summaries", summaries.sum());
+        stats.put("failedWrites", failedWrites.sum());
+        stats.put("openSummaries", groups.size());
+        stats.put("openRequests", principalsByRequest.size());
+        return stats;
+    }
+
+    private static String requestId(ContextView ctx) {
+        ServerWebExchange exchange = ctx.getOrDefault(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_KEY, null);
+        return exchange != null ? exchange.getRequest().getId() : null;
+    }
+
+    /**
+     * Hex SHA-256 of the chunk ids, sorted and separated by newlines. Recomputing it over the
+     * ids a summary claims verifies that the summary was not altered.
+     */
+    public static String chunkIdsDigest(Collection<String> chunkIds) {
+        List<String> sorted = new ArrayList<>(chunkIds);
+        sorted.sort(null);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String chunkId : sorted) {
+                digest.update(chunkId.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Collapses chunk indexes into ranges, e.g. {@code [0, 1, 2, 5, 7, 8]} to {@code "0-2,5,7-8"}.
+     */
+    public static String indexRanges(Collection<Integer> indexes) {
+        StringBuilder ranges = new StringBuilder();
+        Integer start = null;
+        Integer previous = null;
+        for (Integer index : new TreeSet<>(indexes)) {
+            if (previous != null && index == previous + 1) {
+                previous = index;
+                continue;
+            }
+            appendRange(ranges, start, previous);
+            start = index;
+            previous = index;
+        }
+        appendRange(ranges, start, previous);
+        return ranges.toString();
+    }
+
+    private static void appendRange(StringBuilder ranges, Integer start, Integer end) {
+        if (start == null) {
+            return;
+        }
+        if (!ranges.isEmpty()) {
+            ranges.append(',');
+        }
+        ranges.append(start);
+        if (!end.equals(start)) {
+            ranges.append('-').append(end);
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package org.lite.gateway.service;
 
+import org.lite.gateway.dto.ChunkDecryptionRequest;
+import org.lite.gateway.dto.ChunkDecryptionResult;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Service for encrypting and decrypting chunk text and entity properties.
  * 
@@ -29,6 +39,26 @@ public interface ChunkEncryptionService {
      */
     Mono<String> encryptChunkText(String plaintext, String teamId, String keyVersion);
 
+    /**
+     * Encrypt a batch of texts, such as the chunks of one document, with the same team key.
+     * 
+     * The default implementation encrypts one entry at a time; implementations should
+     * override it to resolve the key once for the batch.
+     * 
+     * @param plaintexts The texts to encrypt; null or empty entries are returned as is
+     * @param teamId     The team ID for key derivation
+     * @param keyVersion The encryption key version (e.g., "v1", "v2")
+     * @return Mono emitting the Base64-encoded encrypted texts, in input order
+     */
+    default Mono<List<String>> encryptChunkTexts(List<String> plaintexts, String teamId, String keyVersion) {
+        return Flux.fromIterable(plaintexts)
+                .concatMap(plaintext -> plaintext == null || plaintext.isEmpty()
+                        ? Mono.just(Optional.ofNullable(plaintext))
+                        : encryptChunkText(plaintext, teamId, keyVersion).map(Optional::of))
+                .collectList()
+                .map(encrypted -> encrypted.stream().map(text -> text.orElse(null)).toList());
+    }
+
     /**
      * Decrypt chunk text using team-specific key and key version.
      * 
@@ -51,6 +81,51 @@ public interface ChunkEncryptionService {
      */
     Mono<String> decryptChunkText(String encryptedText, String teamId, String keyVersion, boolean logAudit);
 
+    /**
+     * Decrypt the text of one stored chunk, recording which chunk was read in the audit log.
+     * 
+     * The default implementation audits the decryption without the chunk;
+     * implementations should override it.
+     * 
+     * @param encryptedText The Base64-encoded encrypted text
+     * @param teamId        The team ID for key derivation
+     * @param keyVersion    The encryption key version used to encrypt
+     * @param documentId    The document the chunk belongs to, or null
+     * @param chunkId       The chunk's id, or null
+     * @param chunkIndex    The chunk's position in its document, or null
+     * @return Mono emitting Decrypted plaintext
+     */
+    default Mono<String> decryptChunkText(String encryptedText, String teamId, String keyVersion, String documentId,
+            String chunkId, Integer chunkIndex) {
+        return decryptChunkText(encryptedText, teamId, keyVersion);
+    }
+
+    /**
+     * Decrypt a batch of chunk texts, such as the hits of one search, with a single audit
+     * record for the whole batch instead of one per chunk.
+     * 
+     * The default implementation decrypts one entry at a time without auditing;
+     * implementations should override it.
+     * 
+     * @param requests       The ciphertexts with their team and key version
+     * @param collectionName The collection the chunks were read from, recorded in the audit
+     * @return Mono emitting one result per request, in request order
+     */
+    default Mono<List<ChunkDecryptionResult>> decryptChunkTexts(List<ChunkDecryptionRequest> requests,
+            String collectionName) {
+        return Flux.fromIterable(requests)
+                .concatMap(request -> {
+                    String encryptedText = request.getEncryptedText();
+                    if (encryptedText == null || encryptedText.isEmpty()) {
+                        return Mono.just(ChunkDecryptionResult.decrypted(encryptedText));
+                    }
+                    return decryptChunkText(encryptedText, request.getTeamId(), request.getKeyVersion(), false)
+                            .map(ChunkDecryptionResult::decrypted)
+                            .onErrorResume(e -> Mono.just(ChunkDecryptionResult.failed(e.getMessage())));
+                })
+                .collectList();
+    }
+
     /**
      * Get the current encryption key version (for new encryptions).
      * 
@@ -88,6 +163,113 @@ public interface ChunkEncryptionService {
      */
     Mono<byte[]> decryptFile(byte[] encryptedBytes, String teamId, String keyVersion);
 
+    /**
+     * Size of the file {@link #encryptFileStream} writes for a plaintext of the given size.
+     * 
+     * The default implementation matches the default {@link #encryptFileStream}, which
+     * writes the whole-file format of {@link #encryptFile}.
+     * 
+     * @param plaintextLength The plaintext size in bytes
+     * @param keyVersion      The encryption key version
+     * @return The encrypted size in bytes
+     */
+    default long encryptedFileLength(long plaintextLength, String keyVersion) {
+        return plaintextLength + 12 + 16; // IV + GCM tag
+    }
+
+    /**
+     * Encrypt a file as a stream, without holding the whole file in memory.
+     * 
+     * The default implementation collects the content and calls {@link #encryptFile};
+     * implementations should override it.
+     * 
+     * @param content    The file content
+     * @param teamId     The team ID for key derivation
+     * @param keyVersion The encryption key version (e.g., "v1", "v2")
+     * @return Flux emitting the encrypted file, {@link #encryptedFileLength} bytes in total
+     */
+    default Flux<DataBuffer> encryptFileStream(Flux<DataBuffer> content, String teamId, String keyVersion) {
+        return DataBufferUtils.join(content)
+                .map(ChunkEncryptionService::readAndRelease)
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> encryptFile(bytes, teamId, keyVersion))
+                .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap)
+                .flux();
+    }
+
+    /**
+     * Decrypt a file as a stream, without holding the whole file in memory. Reads files
+     * written by {@link #encryptFileStream} and by {@link #encryptFile}.
+     * 
+     * The default implementation collects the content and calls {@link #decryptFile};
+     * implementations should override it.
+     * 
+     * @param encryptedContent The encrypted file content
+     * @param teamId           The team ID for key derivation
+     * @param keyVersion       The encryption key version used to encrypt
+     * @return Flux emitting the decrypted file content
+     */
+    default Flux<DataBuffer> decryptFileStream(Flux<DataBuffer> encryptedContent, String teamId,
+            String keyVersion) {
+        return DataBufferUtils.join(encryptedContent)
+                .map(ChunkEncryptionService::readAndRelease)
+                .flatMap(bytes -> decryptFile(bytes, teamId, keyVersion))
+                .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap)
+                .flux();
+    }
+
+    /**
+     * Decrypt a byte range of a stored file, reading only the parts of the file that hold it.
+     * 
+     * The default implementation reads and decrypts the whole file; implementations should
+     * override it.
+     * 
+     * @param reader          Reads byte ranges of the encrypted file
+     * @param encryptedLength The size of the encrypted file
+     * @param teamId          The team ID for key derivation
+     * @param keyVersion      The encryption key version used to encrypt
+     * @param offset          The first plaintext byte to return
+     * @param length          The number of plaintext bytes to return
+     * @return Flux emitting the decrypted bytes of the range, cut to the end of the file
+     */
+    default Flux<DataBuffer> decryptFileRange(FileRangeReader reader, long encryptedLength, String teamId,
+            String keyVersion, long offset, long length) {
+        if (encryptedLength <= 0) {
+            return Flux.empty();
+        }
+        return decryptFileStream(reader.read(0, encryptedLength - 1), teamId, keyVersion)
+                .as(DataBufferUtils::join)
+                .map(ChunkEncryptionService::readAndRelease)
+                .<DataBuffer>map(plaintext -> {
+                    int from = (int) Math.min(Math.max(0, offset), plaintext.length);
+                    int to = (int) Math.min(plaintext.length, from + Math.max(0, length));
+                    return DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(plaintext, from, to));
+                })
+                .flux();
+    }
+
+    /**
+     * Reads byte ranges of a stored encrypted file, such as ranged object storage downloads.
+     */
+    @FunctionalInterface
+    interface FileRangeReader {
+
+        /**
+         * @return Flux emitting the bytes from {@code start} to {@code endInclusive}
+         */
+        Flux<DataBuffer> read(long start, long endInclusive);
+    }
+
+    private static byte[] readAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
     /**
      * Rotate encryption key for a team.
      * Generates a new random key, encrypts it with Global Master Key, and saves as
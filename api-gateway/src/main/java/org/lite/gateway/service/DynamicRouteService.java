@@ -3,11 +3,12 @@ package org.lite.gateway.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.entity.ApiRoute;
+import org.lite.gateway.util.PathPatternTrie;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.stereotype.Service;
-import org.springframework.util.AntPathMatcher;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +20,9 @@ import java.util.concurrent.CopyOnWriteArraySet;
 @Slf4j
 public class DynamicRouteService {
 
+    // Client scopes are stored under this prefix so the local cache tier can hold them
+    public static final String SCOPE_KEY_PREFIX = "scope:";
+
     // set Initial internal whitelist paths
     private final Set<String> whitelistedPaths = new CopyOnWriteArraySet<>() {
         {
@@ -38,6 +42,9 @@ public class DynamicRouteService {
         }
     };
 
+    // Compiled view of whitelistedPaths, swapped atomically whenever the set changes
+    private volatile PathPatternTrie whitelistTrie = PathPatternTrie.of(whitelistedPaths);
+
     private final Map<String, String> clientScopes = new ConcurrentHashMap<>();
 
     private final CacheService cacheService;
@@ -62,11 +69,14 @@ public class DynamicRouteService {
 
                 // Add Cache-loaded paths to in-memory whitelist
                 whitelistedPaths.addAll(initialRoutes);
+                rebuildWhitelistTrie();
             }
 
+            migrateLegacyScopeKeys();
+
             // initialize the existing client scopes
             for (Map.Entry<String, String> entry : clientScopes.entrySet()) {
-                cacheService.set(entry.getKey(), entry.getValue(), java.time.Duration.ofHours(24)).subscribe();
+                cacheService.set(scopeKey(entry.getKey()), entry.getValue(), java.time.Duration.ofHours(24)).subscribe();
             }
         } catch (Exception e) {
             log.error("Failed to initialize DynamicRouteService with Cache: {}", e.getMessage());
@@ -74,7 +84,28 @@ public class DynamicRouteService {
     }
 
     public reactor.core.publisher.Mono<String> getClientScope(String path) {
-        return cacheService.get(path);
+        return cacheService.get(scopeKey(path));
+    }
+
+    public static String scopeKey(String path) {
+        return SCOPE_KEY_PREFIX + path;
+    }
+
+    // Scopes used to be stored under the bare route path; copy any still in Redis to their
+    // scope: keys so lookups keep finding them until the routes are next refreshed
+    private void migrateLegacyScopeKeys() {
+        Long migrated = Flux.fromIterable(whitelistedPaths)
+                .flatMap(path -> cacheService.get(scopeKey(path))
+                        .hasElement()
+                        .filter(exists -> !exists)
+                        .flatMap(missing -> cacheService.get(path))
+                        .flatMap(scope -> cacheService.set(scopeKey(path), scope, java.time.Duration.ofHours(24))
+                                .thenReturn(path)))
+                .count()
+                .block();
+        if (migrated != null && migrated > 0) {
+            log.info("Moved {} client scopes to {} keys", migrated, SCOPE_KEY_PREFIX);
+        }
     }
 
     // Add a path to the whitelist
@@ -86,12 +117,15 @@ public class DynamicRouteService {
         } catch (Exception e) {
             log.error("Failed to add path to Cache: {}", e.getMessage());
         }
-        whitelistedPaths.add(apiRoute.getPath());
+        if (whitelistedPaths.add(apiRoute.getPath())) {
+            rebuildWhitelistTrie();
+        }
     }
 
     public void addScope(ApiRoute apiRoute) {
         try {
-            cacheService.set(apiRoute.getPath(), apiRoute.getScope(), java.time.Duration.ofHours(24)).subscribe();
+            cacheService.set(scopeKey(apiRoute.getPath()), apiRoute.getScope(), java.time.Duration.ofHours(24))
+                    .subscribe();
             cacheService.publish(routesTopic.getTopic(), "ADD SCOPE:" + apiRoute.getScope()).subscribe();
         } catch (Exception e) {
             log.error("Failed to add scope to Cache: {}", e.getMessage());
@@ -105,14 +139,16 @@ public class DynamicRouteService {
         // Remove path from Redis and publish to notify other instances
         cacheService.removeFromSet("whitelistedPaths", apiRoute.getPath()).subscribe();
         cacheService.publish(routesTopic.getTopic(), "REMOVE PATH:" + apiRoute.getPath()).subscribe();
-        whitelistedPaths.remove(apiRoute.getPath());
+        if (whitelistedPaths.remove(apiRoute.getPath())) {
+            rebuildWhitelistTrie();
+        }
     }
 
     // Remove a scope from the whitelist, TODO: Not used right now but will add the
     // logic to the UI
     public void removeScope(ApiRoute apiRoute) {
         // Remove scope from Redis and publish to notify other instances
-        cacheService.set(apiRoute.getPath(), apiRoute.getScope(), java.time.Duration.ofMinutes(5)).subscribe(); // Actually
+        cacheService.set(scopeKey(apiRoute.getPath()), apiRoute.getScope(), java.time.Duration.ofMinutes(5)).subscribe(); // Actually
                                                                                                                 // we
                                                                                                                 // want
                                                                                                                 // to
@@ -134,30 +170,50 @@ public class DynamicRouteService {
         // Original didn't specify duration (infinite?).
         // I'll use a long duration or update CacheService to support infinite/default.
         // For now, 24 hours.
-        cacheService.set(apiRoute.getPath(), apiRoute.getScope(), java.time.Duration.ofHours(24)).subscribe();
+        cacheService.set(scopeKey(apiRoute.getPath()), apiRoute.getScope(), java.time.Duration.ofHours(24))
+                .subscribe();
         cacheService.publish(routesTopic.getTopic(), "REMOVE SCOPE:" + apiRoute.getScope()).subscribe();
         clientScopes.remove(apiRoute.getPath());
     }
 
+    // Apply a whitelist change published on routesTopic by this or another instance
+    public void onRoutesMessage(String message) {
+        boolean changed = false;
+        if (message.startsWith("ADD PATH:")) {
+            changed = whitelistedPaths.add(message.substring("ADD PATH:".length()));
+        } else if (message.startsWith("REMOVE PATH:")) {
+            changed = whitelistedPaths.remove(message.substring("REMOVE PATH:".length()));
+        } else if (message.startsWith("ADD:")) {
+            changed = whitelistedPaths.add(message.substring("ADD:".length()));
+        } else if (message.startsWith("REMOVE:")) {
+            changed = whitelistedPaths.remove(message.substring("REMOVE:".length()));
+        }
+        if (changed) {
+            rebuildWhitelistTrie();
+        }
+    }
+
     // Check if a path matches any whitelisted pattern
     public boolean isPathWhitelisted(String path) {
-        log.debug("Checking if path is whitelisted: {}", path);
-        log.debug("Current whitelisted paths: {}", whitelistedPaths);
+        boolean matches = whitelistTrie.matches(path);
+        log.debug("Path {} whitelisted: {}", path, matches);
+        return matches;
+    }
 
-        // First, check if the exact path is in the whitelist
-        if (whitelistedPaths.contains(path)) {
-            log.debug("Exact path match found for: {}", path);
-            return true;
+    private synchronized void rebuildWhitelistTrie() {
+        PathPatternTrie.Builder builder = PathPatternTrie.builder();
+        for (String pattern : whitelistedPaths) {
+            if (pattern == null || !pattern.startsWith("/")) {
+                log.warn("Ignoring whitelist entry that is not an absolute path pattern: {}", pattern);
+                continue;
+            }
+            // One malformed pattern must not cost every other path its whitelisting
+            try {
+                builder.add(pattern);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed whitelist pattern {}: {}", pattern, e.getMessage());
+            }
         }
-
-        return whitelistedPaths.stream()
-                .anyMatch(pattern -> {
-                    AntPathMatcher matcher = new AntPathMatcher();
-                    boolean matches = matcher.match(pattern, path);
-                    if (matches) {
-                        log.debug("Path {} matched pattern {}", path, pattern);
-                    }
-                    return matches;
-                });
+        whitelistTrie = builder.build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package org.lite.gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.entity.LinqLlmModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Coalesces embedding requests from concurrent callers into provider-sized batches.
+ *
+ * Each model (team, category, name, endpoint) has its own queue. A batch is sent as soon as
+ * it reaches {@code max-size} texts or {@code max-tokens} estimated tokens, or once the
+ * oldest queued text has waited {@code max-linger-ms}. At most {@code max-in-flight} batches
+ * per model are outstanding; texts submitted while that limit is reached wait in the queue
+ * and go out with the next batch when one completes. Every caller gets the vector for its
+ * own text. A failed batch is split in half and each half retried, down to single texts, so
+ * only the texts that also fail on their own fail their callers; errors that would fail any
+ * batch (authentication, rate limiting) fail the whole batch without splitting.
+ */
+@Service
+@Slf4j
+public class EmbeddingBatcher {
+
+    // Failures that do not depend on the texts sent, as reported by LinqLlmModelService
+    private static final Pattern BATCH_INDEPENDENT_ERROR = Pattern.compile("^HTTP (401|403|429)\\b");
+
+    private final EmbeddingProvider embeddingProvider;
+    private final int maxBatchSize;
+    private final int maxBatchTokens;
+    private final long maxLingerMillis;
+    private final int maxInFlight;
+    private final Scheduler scheduler;
+    private final Map<String, ModelQueue> queues = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder splitBatches = new LongAdder();
+
+    public EmbeddingBatcher(
+            EmbeddingProvider embeddingProvider,
+            @Value("${linqra.embedding.batch.max-size:64}") int maxBatchSize,
+            @Value("${linqra.embedding.batch.max-tokens:16000}") int maxBatchTokens,
+            @Value("${linqra.embedding.batch.max-linger-ms:10}") long maxLingerMillis,
+            @Value("${linqra.embedding.batch.max-in-flight:4}") int maxInFlight) {
+        this(embeddingProvider, maxBatchSize, maxBatchTokens, maxLingerMillis, maxInFlight, Schedulers.parallel());
+    }
+
+    EmbeddingBatcher(EmbeddingProvider embeddingProvider, int maxBatchSize, int maxBatchTokens,
+            long maxLingerMillis, int maxInFlight, Scheduler scheduler) {
+        this.embeddingProvider = embeddingProvider;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchTokens = Math.max(1, maxBatchTokens);
+        this.maxLingerMillis = Math.max(0, maxLingerMillis);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.scheduler = scheduler;
+    }
+
+    private record PendingText(String text, int tokens, Sinks.One<List<Float>> result) {
+    }
+
+    /**
+     * Queues a text for embedding with the given model.
+     *
+     * @return the embedding for {@code text}
+     */
+    public Mono<List<Float>> embed(String text, LinqLlmModel llmModel) {
+        return Mono.defer(() -> {
+            submitted.increment();
+            PendingText pending = new PendingText(text, estimateTokens(text), Sinks.one());
+            ModelQueue queue = queues.computeIfAbsent(queueKey(llmModel), key -> new ModelQueue(llmModel));
+            queue.add(pending);
+            return pending.result().asMono();
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        long batchCount = batches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("submitted", submitted.sum());
+        stats.put("batches", batchCount);
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("splitBatches", splitBatches.sum());
+        stats.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) submitted.sum() / batchCount);
+        stats.put("models", queues.size());
+        return stats;
+    }
+
+    // Same conservative 3 chars/token estimate the embedding windows are cut with
+    private static int estimateTokens(String text) {
+        return text == null ? 0 : Math.max(1, text.length() / 3);
+    }
+
+    private static boolean isBatchIndependent(Throwable error) {
+        return error.getMessage() != null && BATCH_INDEPENDENT_ERROR.matcher(error.getMessage()).find();
+    }
+
+    private static String queueKey(LinqLlmModel llmModel) {
+        return llmModel.getTeamId() + "|" + llmModel.getModelCategory() + "|" + llmModel.getModelName() + "|"
+                + llmModel.getEndpoint();
+    }
+
+    /**
+     * Pending texts and in-flight batches of one model. All state is guarded by the queue's
+     * monitor; provider calls are made outside it.
+     */
+    private final class ModelQueue {
+
+        private final LinqLlmModel llmModel;
+        private final int batchLimit;
+        private final ArrayDeque<PendingText> pending = new ArrayDeque<>();
+        private int pendingTokens;
+        private int inFlight;
+        private boolean lingerExpired;
+        private Disposable lingerTimer;
+
+        ModelQueue(LinqLlmModel llmModel) {
+            this.llmModel = llmModel;
+            this.batchLimit = Math.max(1, Math.min(maxBatchSize, embeddingProvider.maxBatchSize(llmModel)));
+        }
+
+        void add(PendingText text) {
+            synchronized (this) {
+                pending.addLast(text);
+                pendingTokens += text.tokens();
+                if (!isFull() && lingerTimer == null && !lingerExpired) {
+                    lingerTimer = scheduler.schedule(this::onLingerExpired, maxLingerMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            dispatch();
+        }
+
+        private void onLingerExpired() {
+            synchronized (this) {
+                lingerTimer = null;
+                lingerExpired = true;
+            }
+            dispatch();
+        }
+
+        private boolean isFull() {
+            return pending.size() >= batchLimit || pendingTokens >= maxBatchTokens;
+        }
+
+        /**
+         * Sends as many batches as are ready and allowed by the in-flight limit.
+         */
+        private void dispatch() {
+            while (true) {
+                List<PendingText> batch;
+                synchronized (this) {
+                    if (pending.isEmpty() || inFlight >= maxInFlight || !(isFull() || lingerExpired)) {
+                        return;
+                    }
+                    batch = takeBatch();
+                    inFlight++;
+                    if (pending.isEmpty()) {
+                        lingerExpired = false;
+                        if (lingerTimer != null) {
+                            lingerTimer.dispose();
+                            lingerTimer = null;
+                        }
+                    }
+                }
+                send(batch);
+            }
+        }
+
+        private List<PendingText> takeBatch() {
+            List<PendingText> batch = new ArrayList<>(Math.min(pending.size(), batchLimit));
+            int tokens = 0;
+            while (!pending.isEmpty() && batch.size() < batchLimit) {
+                PendingText next = pending.peekFirst();
+                // Always take at least one text, even if it alone exceeds the token budget
+                if (!batch.isEmpty() && tokens + next.tokens() > maxBatchTokens) {
+                    break;
+                }
+                pending.pollFirst();
+                pendingTokens -= next.tokens();
+                tokens += next.tokens();
+                batch.add(next);
+            }
+            return batch;
+        }
+
+        private void send(List<PendingText> batch) {
+            embedBatch(batch)
+                    .doFinally(signal -> onBatchDone())
+                    .subscribe();
+        }
+
+        /**
+         * Sends one provider call and completes its callers; on failure retries each half of the
+         * batch, within the same in-flight slot.
+         */
+        private Mono<Void> embedBatch(List<PendingText> batch) {
+            batches.increment();
+            List<String> texts = batch.stream().map(PendingText::text).toList();
+            return Mono.defer(() -> embeddingProvider.embed(texts, llmModel))
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("Embedding service returned no result")))
+                    .doOnNext(embeddings -> {
+                        for (int i = 0; i < batch.size(); i++) {
+                            batch.get(i).result().tryEmitValue(embeddings.get(i));
+                        }
+                    })
+                    .then()
+                    .onErrorResume(error -> {
+                        failedBatches.increment();
+                        if (batch.size() == 1 || isBatchIndependent(error)) {
+                            log.warn("Embedding batch of {} texts failed for model {}/{}: {}", batch.size(),
+                                    llmModel.getModelCategory(), llmModel.getModelName(), error.getMessage());
+                            batch.forEach(text -> text.result().tryEmitError(error));
+                            return Mono.empty();
+                        }
+                        splitBatches.increment();
+                        log.debug("Embedding batch of {} texts failed for model {}/{}, retrying each half: {}",
+                                batch.size(), llmModel.getModelCategory(), llmModel.getModelName(),
+                                error.getMessage());
+                        int half = batch.size() / 2;
+                        return embedBatch(batch.subList(0, half)).then(embedBatch(batch.subList(half, batch.size())));
+                    });
+        }
+
+        private void onBatchDone() {
+            synchronized (this) {
+                inFlight--;
+                // Texts queued behind the in-flight limit have waited long enough
+                if (!pending.isEmpty()) {
+                    lingerExpired = true;
+                }
+            }
+            dispatch();
+        }
+    }
+}
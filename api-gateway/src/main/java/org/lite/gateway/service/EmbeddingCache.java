@@ -0,0 +1,216 @@
+package org.lite.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed embedding cache shared across documents and teams.
+ *
+ * Entries are keyed by model category, model name, dimension and the SHA-256 of the
+ * normalized text (NFC, whitespace collapsed), so identical chunks in different documents
+ * are embedded once per model. Vectors are stored as little-endian float32 blobs, or
+ * float16 when {@code encoding=float16}, in a byte-weighted local tier in front of Redis.
+ * Redis values are the Base64 of the blob because {@link CacheService} is string-typed.
+ * Concurrent misses for the same key share one embedding call.
+ */
+@Service
+@Slf4j
+public class EmbeddingCache {
+
+    static final String KEY_PREFIX = "embedding:v2:";
+    private static final byte FORMAT_FLOAT32 = 'f';
+    private static final byte FORMAT_FLOAT16 = 'h';
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final CacheService cacheService;
+    private final Duration ttl;
+    private final boolean float16;
+    private final Cache<String, byte[]> local;
+    private final Map<String, Mono<List<Float>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder bytesSavedVsJson = new LongAdder();
+
+    public EmbeddingCache(
+            CacheService cacheService,
+            @Value("${linqra.embedding.cache.ttl-hours:168}") long ttlHours,
+            @Value("${linqra.embedding.cache.local.max-bytes:67108864}") long localMaxBytes,
+            @Value("${linqra.embedding.cache.encoding:float32}") String encoding) {
+        this.cacheService = cacheService;
+        this.ttl = Duration.ofHours(Math.max(1, ttlHours));
+        this.float16 = "float16".equalsIgnoreCase(encoding.trim());
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, localMaxBytes))
+                .weigher((String key, byte[] blob) -> key.length() + blob.length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached embedding of {@code text} for the model, or computes, caches and
+     * returns it.
+     *
+     * @param dimension the model's output dimension, or {@code null} when unknown
+     */
+    public Mono<List<Float>> getOrCompute(String modelCategory, String modelName, Integer dimension, String text,
+            Supplier<Mono<List<Float>>> compute) {
+        return Mono.defer(() -> {
+            String key = cacheKey(modelCategory, modelName, dimension, text);
+            byte[] blob = local.getIfPresent(key);
+            if (blob != null) {
+                localHits.increment();
+                return Mono.just(decode(blob));
+            }
+            return inFlight.computeIfAbsent(key, k -> loadOrCompute(k, compute)
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache());
+        });
+    }
+
+    private Mono<List<Float>> loadOrCompute(String key, Supplier<Mono<List<Float>>> compute) {
+        return cacheService.get(key)
+                .flatMap(cached -> {
+                    try {
+                        byte[] blob = Base64.getDecoder().decode(cached);
+                        List<Float> embedding = decode(blob);
+                        if (!embedding.isEmpty()) {
+                            local.put(key, blob);
+                            remoteHits.increment();
+                            return Mono.just(embedding);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Discarding unreadable cached embedding {}: {}", key, e.getMessage());
+                    }
+                    return Mono.<List<Float>>empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    misses.increment();
+                    return compute.get().flatMap(embedding -> store(key, embedding).thenReturn(embedding));
+                }));
+    }
+
+    private Mono<Void> store(String key, List<Float> embedding) {
+        if (embedding == null || embedding.isEmpty()) {
+            return Mono.empty();
+        }
+        byte[] blob = encode(embedding, float16);
+        local.put(key, blob);
+        String value = Base64.getEncoder().encodeToString(blob);
+        storedBytes.add(value.length());
+        bytesSavedVsJson.add(Math.max(0, jsonLength(embedding) - value.length()));
+        return cacheService.set(key, value, ttl)
+                .onErrorResume(e -> {
+                    log.warn("Failed to cache embedding {}: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = localHits.sum() + remoteHits.sum();
+        long lookups = hits + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.sum());
+        stats.put("remoteHits", remoteHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("storedBytes", storedBytes.sum());
+        stats.put("bytesSavedVsJson", bytesSavedVsJson.sum());
+        stats.put("localEntries", local.estimatedSize());
+        stats.put("localEvictions", local.stats().evictionCount());
+        stats.put("encoding", float16 ? "float16" : "float32");
+        return stats;
+    }
+
+    static String cacheKey(String modelCategory, String modelName, Integer dimension, String text) {
+        return KEY_PREFIX + modelCategory + ":" + modelName + ":" + (dimension != null ? dimension : 0) + ":"
+                + sha256(normalize(text));
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+    }
+
+    /**
+     * One format byte followed by the vector in little-endian float32 or float16.
+     */
+    static byte[] encode(List<Float> embedding, boolean float16) {
+        int width = float16 ? Short.BYTES : Float.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + embedding.size() * width).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(float16 ? FORMAT_FLOAT16 : FORMAT_FLOAT32);
+        for (Float value : embedding) {
+            if (float16) {
+                buffer.putShort(Float.floatToFloat16(value));
+            } else {
+                buffer.putFloat(value);
+            }
+        }
+        return buffer.array();
+    }
+
+    static List<Float> decode(byte[] blob) {
+        ByteBuffer buffer = ByteBuffer.wrap(blob).order(ByteOrder.LITTLE_ENDIAN);
+        byte format = buffer.get();
+        List<Float> embedding;
+        if (format == FORMAT_FLOAT32) {
+            embedding = new ArrayList<>(buffer.remaining() / Float.BYTES);
+            while (buffer.remaining() >= Float.BYTES) {
+                embedding.add(buffer.getFloat());
+            }
+        } else if (format == FORMAT_FLOAT16) {
+            embedding = new ArrayList<>(buffer.remaining() / Short.BYTES);
+            while (buffer.remaining() >= Short.BYTES) {
+                embedding.add(Float.float16ToFloat(buffer.getShort()));
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown embedding blob format " + format);
+        }
+        return embedding;
+    }
+
+    // Size of the JSON array of doubles the previous cache format stored
+    private static long jsonLength(List<Float> embedding) {
+        long length = 2 + Math.max(0, embedding.size() - 1);
+        for (Float value : embedding) {
+            length += Double.toString(value.doubleValue()).length();
+        }
+        return length;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.lite.gateway.service;
+
+import org.lite.gateway.entity.LinqLlmModel;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Turns texts into embedding vectors with one provider call per batch.
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * Embed a batch of texts
+     *
+     * @param texts    texts to embed, at most {@link #maxBatchSize(LinqLlmModel)}
+     * @param llmModel the embedding model configuration
+     * @return one vector per text, in the order of {@code texts}
+     */
+    Mono<List<List<Float>>> embed(List<String> texts, LinqLlmModel llmModel);
+
+    /**
+     * Largest batch the provider accepts in one request; 1 when it has no batch input form
+     */
+    int maxBatchSize(LinqLlmModel llmModel);
+}
@@ -0,0 +1,481 @@
+package org.lite.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Route → team → API key rate limiter that decides most requests from local token buckets.
+ *
+ * Redis holds the authoritative token bucket for every (route, level, tenant). Instead of
+ * one round trip per request, each pod leases a batch of tokens from that bucket through
+ * an atomic Lua script and hands them out locally; only when a local lease runs dry does a
+ * request wait for the next lease, and concurrent requests share that single call. Leases
+ * expire after {@code lease-ttl-ms}; whatever an expired lease still holds is handed back
+ * to the Redis bucket, either when the next request notices the expiry or by a periodic
+ * sweep for idle pods, so a pod cannot sit on quota it is not using. Overshoot across the
+ * fleet stays bounded by roughly one lease per pod. If Redis is unreachable a pod falls back
+ * to a local lease, failing open like Spring's RedisRateLimiter but still capped; local
+ * leases are never handed back.
+ *
+ * Daily call limits use the same leasing against a fixed-window counter; unused calls are
+ * returned with a DECRBY only into the window they were taken from. Each window is tagged
+ * with an id kept next to the counter, and a return carrying another window's id is dropped.
+ */
+@Service
+@Slf4j
+public class HierarchicalRateLimiter {
+
+    public static final String SCOPE_ROUTE = "route";
+    public static final String SCOPE_TEAM = "team";
+    public static final String SCOPE_API_KEY = "apiKey";
+    public static final String SCOPE_DAILY = "daily";
+
+    // Define result type to avoid raw type warnings
+    @SuppressWarnings("unchecked")
+    private static final Class<List<Long>> LEASE_RESULT = (Class<List<Long>>) (Class<?>) List.class;
+
+    // Token bucket refilled continuously from Redis server time; grants up to ARGV[3] tokens
+    private static final RedisScript<List<Long>> LEASE_TOKENS = RedisScript.of("""
+            local rate = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            local requested = tonumber(ARGV[3])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1]) or capacity
+            local ts = tonumber(state[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000)
+            local granted = math.min(requested, math.floor(tokens))
+            tokens = tokens - granted
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)
+            return {granted, math.floor(tokens)}
+            """, LEASE_RESULT);
+
+    // Puts ARGV[3] unused tokens back; a bucket whose key expired is already full
+    private static final RedisScript<Long> RETURN_TOKENS = RedisScript.of("""
+            local rate = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            local returned = tonumber(ARGV[3])
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            if not state[1] then
+                return 0
+            end
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local ts = tonumber(state[2]) or now
+            local tokens = math.min(capacity, tonumber(state[1]) + math.max(0, now - ts) * rate / 1000 + returned)
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)
+            return returned
+            """, Long.class);
+
+    // Fixed-window counter that only counts what it grants; the window starts on first use and
+    // KEYS[2] holds its id, the server time in ms it opened, expiring together with the counter
+    private static final RedisScript<List<Long>> LEASE_DAILY = RedisScript.of("""
+            local limit = tonumber(ARGV[1])
+            local requested = tonumber(ARGV[2])
+            local used = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local granted = math.max(0, math.min(requested, limit - used))
+            local window = redis.call('GET', KEYS[2])
+            if granted > 0 and redis.call('INCRBY', KEYS[1], granted) == granted then
+                window = nil
+                redis.call('EXPIRE', KEYS[1], tonumber(ARGV[3]))
+            end
+            if not window and (used > 0 or granted > 0) then
+                local time = redis.call('TIME')
+                window = tostring(tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000))
+                redis.call('SET', KEYS[2], window, 'PX', math.max(1, redis.call('PTTL', KEYS[1])))
+            end
+            return {granted, math.max(0, limit - used - granted), tonumber(window or '0')}
+            """, LEASE_RESULT);
+
+    // Gives back up to ARGV[2] unused calls taken in window ARGV[1]; a window that has since
+    // reset, or whose keys have expired, takes nothing back
+    private static final RedisScript<Long> RETURN_DAILY = RedisScript.of("""
+            if redis.call('GET', KEYS[2]) ~= ARGV[1] then
+                return 0
+            end
+            local used = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local returned = math.min(used, tonumber(ARGV[2]))
+            if returned > 0 then
+                redis.call('DECRBY', KEYS[1], returned)
+            end
+            return returned
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final boolean redisEnabled;
+    private final double leaseFraction;
+    private final long leaseTtlNanos;
+    private final long dailyLeaseTtlNanos;
+    private final double defaultTeamShare;
+    private final Cache<String, LeasedBucket> buckets;
+    private final LongAdder leaseCalls = new LongAdder();
+    private final LongAdder leaseFailures = new LongAdder();
+    private final LongAdder returnedTokens = new LongAdder();
+
+    public HierarchicalRateLimiter(
+            ReactiveStringRedisTemplate redisTemplate,
+            @Value("${app.redis.enabled:true}") boolean redisEnabled,
+            @Value("${linqra.rate-limit.lease-fraction:0.1}") double leaseFraction,
+            @Value("${linqra.rate-limit.lease-ttl-ms:1000}") long leaseTtlMs,
+            @Value("${linqra.rate-limit.daily-lease-ttl-ms:60000}") long dailyLeaseTtlMs,
+            @Value("${linqra.rate-limit.default-team-share:1.0}") double defaultTeamShare,
+            @Value("${linqra.rate-limit.max-buckets:100000}") long maxBuckets) {
+        this.redisTemplate = redisTemplate;
+        this.redisEnabled = redisEnabled;
+        this.leaseFraction = Math.min(1.0, Math.max(0.0, leaseFraction));
+        this.leaseTtlNanos = Duration.ofMillis(leaseTtlMs).toNanos();
+        this.dailyLeaseTtlNanos = Duration.ofMillis(dailyLeaseTtlMs).toNanos();
+        this.defaultTeamShare = Math.min(1.0, Math.max(0.01, defaultTeamShare));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .evictionListener((String key, LeasedBucket bucket, RemovalCause cause) -> {
+                    if (bucket != null) {
+                        bucket.releaseAll();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Limits for one route. Team and API key limits default to {@code default-team-share} of
+     * the route limit, which is the whole limit unless configured lower, so a route used by a
+     * single team keeps its full limit.
+     */
+    public record RateLimits(long routeRate, long routeBurst, long teamRate, long teamBurst,
+                             long apiKeyRate, long apiKeyBurst, int requestedTokens) {
+    }
+
+    public record RateLimitDecision(boolean allowed, String scope, long limit, long remaining,
+                                    long retryAfterSeconds) {
+    }
+
+    public RateLimits defaultLimits(long routeRate, long routeBurst, int requestedTokens) {
+        long teamRate = Math.max(1, (long) Math.ceil(routeRate * defaultTeamShare));
+        long teamBurst = Math.max(requestedTokens, (long) Math.ceil(routeBurst * defaultTeamShare));
+        return new RateLimits(routeRate, routeBurst, teamRate, teamBurst, teamRate, teamBurst, requestedTokens);
+    }
+
+    /**
+     * Checks route, then team, then API key. Tokens taken at an outer level are handed back
+     * locally when an inner level rejects, so a throttled tenant does not drain the route.
+     *
+     * @param teamId    tenant team, or null to skip the team level
+     * @param apiKeyId  stable non-secret API key identifier, or null to skip the key level
+     */
+    public Mono<RateLimitDecision> check(String routeId, RateLimits limits, String teamId, String apiKeyId) {
+        List<Level> levels = new ArrayList<>(3);
+        levels.add(new Level(SCOPE_ROUTE, "rl:" + routeId + ":route", limits.routeRate(), limits.routeBurst()));
+        if (teamId != null) {
+            levels.add(new Level(SCOPE_TEAM, "rl:" + routeId + ":team:" + teamId,
+                    limits.teamRate(), limits.teamBurst()));
+        }
+        if (apiKeyId != null) {
+            levels.add(new Level(SCOPE_API_KEY, "rl:" + routeId + ":key:" + apiKeyId,
+                    limits.apiKeyRate(), limits.apiKeyBurst()));
+        }
+        return acquireLevels(levels, 0, limits.requestedTokens(), null);
+    }
+
+    /**
+     * Takes one call from a daily quota shared by all pods.
+     */
+    public Mono<RateLimitDecision> checkDaily(String key, long maxCallsPerDay) {
+        LeasedBucket bucket = bucket(key);
+        long leaseSize = Math.max(1, Math.min(100, maxCallsPerDay / 100));
+        return acquire(bucket, 1, dailyLeaseTtlNanos,
+                () -> leaseDaily(key, maxCallsPerDay, leaseSize),
+                (grant, unused) -> release(RETURN_DAILY, List.of(key, windowKey(key)),
+                        String.valueOf(grant.window()), String.valueOf(unused)))
+                .map(allowed -> decision(allowed, SCOPE_DAILY, maxCallsPerDay, bucket,
+                        Duration.ofDays(1).toSeconds()));
+    }
+
+    private Mono<RateLimitDecision> acquireLevels(List<Level> levels, int index, int tokens,
+                                                  RateLimitDecision tightest) {
+        if (index == levels.size()) {
+            return Mono.just(tightest);
+        }
+        Level level = levels.get(index);
+        LeasedBucket bucket = bucket(level.key());
+        long leaseSize = Math.max(tokens, (long) Math.ceil(level.burst() * leaseFraction));
+        return acquire(bucket, tokens, leaseTtlNanos,
+                () -> leaseTokens(level.key(), level.rate(), level.burst(), leaseSize),
+                (grant, unused) -> release(RETURN_TOKENS, List.of(level.key()), String.valueOf(level.rate()),
+                        String.valueOf(level.burst()), String.valueOf(unused)))
+                .flatMap(allowed -> {
+                    RateLimitDecision decision = decision(allowed, level.scope(), level.burst(), bucket,
+                            Math.max(1, (long) Math.ceil(tokens / (double) level.rate())));
+                    if (!allowed) {
+                        // Give back what outer levels already granted
+                        for (int i = 0; i < index; i++) {
+                            bucket(levels.get(i).key()).refund(tokens);
+                        }
+                        return Mono.just(decision);
+                    }
+                    RateLimitDecision next = tightest == null || decision.remaining() < tightest.remaining()
+                            ? decision : tightest;
+                    return acquireLevels(levels, index + 1, tokens, next);
+                });
+    }
+
+    private Mono<Boolean> acquire(LeasedBucket bucket, int tokens, long leaseTtl, Supplier<Mono<Grant>> leaser,
+                                  Releaser releaser) {
+        if (bucket.tryConsume(tokens)) {
+            bucket.allowed.increment();
+            return Mono.just(true);
+        }
+        if (bucket.isExhausted()) {
+            // Redis had nothing left moments ago; do not ask again for every rejected request
+            bucket.rejected.increment();
+            return Mono.just(false);
+        }
+        return bucket.refill(leaser, releaser, leaseTtl)
+                .then(Mono.fromSupplier(() -> {
+                    boolean allowed = bucket.tryConsume(tokens);
+                    (allowed ? bucket.allowed : bucket.rejected).increment();
+                    return allowed;
+                }));
+    }
+
+    private RateLimitDecision decision(boolean allowed, String scope, long limit, LeasedBucket bucket,
+                                       long retryAfterSeconds) {
+        long remaining = bucket.available() + bucket.remoteRemaining;
+        return new RateLimitDecision(allowed, scope, limit, Math.min(limit, remaining), retryAfterSeconds);
+    }
+
+    private Mono<Grant> leaseTokens(String key, long rate, long burst, long leaseSize) {
+        return lease(LEASE_TOKENS, List.of(key), leaseSize,
+                String.valueOf(rate), String.valueOf(burst), String.valueOf(leaseSize));
+    }
+
+    private Mono<Grant> leaseDaily(String key, long maxCallsPerDay, long leaseSize) {
+        return lease(LEASE_DAILY, List.of(key, windowKey(key)), leaseSize,
+                String.valueOf(maxCallsPerDay), String.valueOf(leaseSize),
+                String.valueOf(Duration.ofDays(1).toSeconds()));
+    }
+
+    private static String windowKey(String key) {
+        return key + ":window";
+    }
+
+    private Mono<Grant> lease(RedisScript<List<Long>> script, List<String> keys, long leaseSize, String... args) {
+        String key = keys.get(0);
+        if (!redisEnabled) {
+            return Mono.just(new Grant(leaseSize, 0, false, 0));
+        }
+        leaseCalls.increment();
+        return redisTemplate.execute(script, keys, List.of(args))
+                .next()
+                .map(result -> new Grant(result.get(0), result.get(1), true, result.size() > 2 ? result.get(2) : 0))
+                .timeout(Duration.ofMillis(500))
+                .onErrorResume(e -> {
+                    leaseFailures.increment();
+                    log.warn("Rate limit lease for {} failed, using a local lease: {}", key, e.getMessage());
+                    return Mono.just(new Grant(leaseSize, 0, false, 0));
+                });
+    }
+
+    private Mono<Void> release(RedisScript<Long> script, List<String> keys, String... args) {
+        String key = keys.get(0);
+        return redisTemplate.execute(script, keys, List.of(args))
+                .next()
+                .doOnNext(returnedTokens::add)
+                .timeout(Duration.ofMillis(500))
+                .onErrorResume(e -> {
+                    log.debug("Returning unused rate limit tokens for {} failed: {}", key, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Hands back what expired leases on idle buckets still hold; busy buckets do this
+     * themselves on the first request after expiry.
+     */
+    @Scheduled(fixedDelayString = "${linqra.rate-limit.release-interval-ms:1000}")
+    public void releaseExpiredLeases() {
+        buckets.asMap().values().forEach(LeasedBucket::releaseIfExpired);
+    }
+
+    private LeasedBucket bucket(String key) {
+        return buckets.get(key, k -> new LeasedBucket());
+    }
+
+    /**
+     * Per-tenant counters, busiest rejections first.
+     */
+    public Map<String, Object> getStats() {
+        List<Map.Entry<String, LeasedBucket>> entries = new ArrayList<>(buckets.asMap().entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, LeasedBucket> e) -> e.getValue().rejected.sum())
+                .reversed());
+        Map<String, Object> tenants = new LinkedHashMap<>();
+        for (Map.Entry<String, LeasedBucket> entry : entries.subList(0, Math.min(100, entries.size()))) {
+            tenants.put(entry.getKey(), Map.of(
+                    "allowed", entry.getValue().allowed.sum(),
+                    "rejected", entry.getValue().rejected.sum()));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("buckets", buckets.estimatedSize());
+        result.put("leaseCalls", leaseCalls.sum());
+        result.put("leaseFailures", leaseFailures.sum());
+        result.put("returnedTokens", returnedTokens.sum());
+        result.put("tenants", tenants);
+        return result;
+    }
+
+    private record Level(String scope, String key, long rate, long burst) {
+    }
+
+    /**
+     * Result of one lease call; {@code remote} is false for local fallback leases, and
+     * {@code window} identifies the daily window the calls were taken from.
+     */
+    private record Grant(long granted, long remaining, boolean remote, long window) {
+    }
+
+    /**
+     * Hands unused tokens of a lease back to the Redis bucket it was granted from.
+     */
+    @FunctionalInterface
+    private interface Releaser {
+        Mono<Void> release(Grant grant, long unused);
+    }
+
+    /**
+     * One batch of tokens; {@code release} hands unused tokens back to Redis, or is null when
+     * the tokens did not come from Redis.
+     */
+    private record Lease(AtomicLong tokens, long expiresAt, LongFunction<Mono<Void>> release) {
+        boolean isExpired() {
+            return expiresAt == 0 || System.nanoTime() - expiresAt > 0;
+        }
+    }
+
+    /**
+     * Tokens leased from Redis and not yet handed out on this pod.
+     */
+    static final class LeasedBucket {
+        private static final Lease NONE = new Lease(new AtomicLong(), 0, null);
+
+        private final AtomicReference<Lease> lease = new AtomicReference<>(NONE);
+        private final AtomicReference<Mono<Void>> inflight = new AtomicReference<>();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private volatile long exhaustedUntil;
+        private volatile long remoteRemaining;
+
+        boolean tryConsume(int count) {
+            Lease current = lease.get();
+            if (current.isExpired()) {
+                release(current);
+                return false;
+            }
+            long available;
+            do {
+                available = current.tokens().get();
+                if (available < count) {
+                    return false;
+                }
+            } while (!current.tokens().compareAndSet(available, available - count));
+            return true;
+        }
+
+        long available() {
+            Lease current = lease.get();
+            return current.isExpired() ? 0 : Math.max(0, current.tokens().get());
+        }
+
+        boolean isExhausted() {
+            long until = exhaustedUntil;
+            return until != 0 && System.nanoTime() - until < 0;
+        }
+
+        void refund(int count) {
+            Lease current = lease.get();
+            current.tokens().addAndGet(count);
+            if (current.isExpired()) {
+                release(current);
+            }
+        }
+
+        void releaseIfExpired() {
+            Lease current = lease.get();
+            if (current.isExpired()) {
+                release(current);
+            }
+        }
+
+        void releaseAll() {
+            release(lease.getAndSet(NONE));
+        }
+
+        /**
+         * Returns whatever the lease still holds; the swap to zero makes concurrent calls
+         * return each token once.
+         */
+        private static void release(Lease expired) {
+            long unused = expired.tokens().getAndSet(0);
+            if (unused > 0 && expired.release() != null) {
+                expired.release().apply(unused)
+                        .subscribe(result -> {
+                        }, error -> log.debug("Returning rate limit tokens failed: {}", error.getMessage()));
+            }
+        }
+
+        /**
+         * Fetches one lease; requests that run dry while it is in flight wait on the same call.
+         */
+        Mono<Void> refill(Supplier<Mono<Grant>> leaser, Releaser releaser, long leaseTtl) {
+            Mono<Void> existing = inflight.get();
+            if (existing != null) {
+                return existing;
+            }
+            Sinks.Empty<Void> done = Sinks.empty();
+            Mono<Void> shared = done.asMono();
+            if (!inflight.compareAndSet(null, shared)) {
+                Mono<Void> winner = inflight.get();
+                return winner != null ? winner : Mono.empty();
+            }
+            leaser.get()
+                    .doOnNext(grant -> {
+                        long now = System.nanoTime();
+                        exhaustedUntil = grant.granted() == 0 ? now + leaseTtl / 4 : 0;
+                        remoteRemaining = grant.remaining();
+                        release(lease.getAndSet(new Lease(new AtomicLong(grant.granted()), now + leaseTtl,
+                                grant.remote() ? unused -> releaser.release(grant, unused) : null)));
+                    })
+                    .doFinally(signal -> {
+                        inflight.set(null);
+                        done.tryEmitEmpty();
+                    })
+                    .subscribe(grant -> {
+                    }, error -> log.warn("Rate limit refill failed: {}", error.getMessage()));
+            return shared;
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package org.lite.gateway.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.model.LatencyHistogram;
+import org.lite.gateway.util.Bm25Analyzer;
+import org.lite.gateway.util.Bm25Index;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Keyword (BM25) index of Milvus chunk text, kept next to each collection's vector index
+ * for hybrid search.
+ *
+ * Chunk text is encrypted in Milvus, so chunks are indexed from their plaintext when they
+ * are inserted and removed with their document or collection. There is one
+ * {@link Bm25Index} per collection and team, loaded lazily from its segment file and
+ * written back by a periodic flush when it has changed. Segment files are encrypted with
+ * the team's current chunk key, whose version is stored in the clear in the file header.
+ * When a team has no segment file yet, for example on a new volume or for a collection
+ * embedded before the index existed, its index is rebuilt from the chunks in Milvus through
+ * the {@link ChunkSource}. A segment file that exists but cannot be read fails the load
+ * instead, and the next access retries it, so a transient failure never replaces a good
+ * segment with an empty one.
+ *
+ * Searches never wait long for an index: the first access to a team's index starts its
+ * load in the background, and a search that finds it still loading after
+ * {@code linqra.milvus.keyword-index.load-wait-ms} returns no keyword hits, so the hybrid
+ * search falls back to vector results until the index is ready.
+ *
+ * The index assumes a single gateway instance: it lives in this process's memory and
+ * {@code linqra.milvus.keyword-index.directory}, which must be an absolute path on a
+ * persistent volume, is not shared. With several instances each one would only see the
+ * chunks inserted through it since its index was loaded, so the instance holds a Redis
+ * lease on its directory while it runs. A second instance configured with the same
+ * directory fails to start once the lease has outlived a lease TTL, and an instance that
+ * loses its lease stops writing segment files.
+ */
+@Service
+@Slf4j
+public class KeywordIndexService {
+
+    private static final int FILE_MAGIC = 0x4C4B4958; // "LKIX"
+    private static final String SEGMENT_SUFFIX = ".bm25";
+    private static final Duration REBUILD_TIMEOUT = Duration.ofMinutes(10);
+    private static final String LEASE_KEY_PREFIX = "keyword-index:owner:";
+
+    /**
+     * Takes or renews the lease on an index directory. KEYS[1] is the lease key, ARGV[1]
+     * this instance and ARGV[2] the lease TTL in ms. Returns the owner of the lease, which
+     * is this instance when it was taken.
+     */
+    private static final RedisScript<String> ACQUIRE_LEASE = RedisScript.of("""
+            local owner = redis.call('GET', KEYS[1])
+            if owner and owner ~= ARGV[1] then
+              return owner
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return ARGV[1]
+            """, String.class);
+
+    private static final RedisScript<Long> RELEASE_LEASE = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * Plaintext of one chunk to index under its Milvus primary key.
+     *
+     * @param metadata title, file name and subject of the chunk's document, or null; weighted
+     *                 above the text, see {@link Bm25Index#add(long, String, String, String)}
+     */
+    public record KeywordDocument(long id, String documentId, String text, String metadata) {
+    }
+
+    /**
+     * Reads the plaintext of every chunk a team has in a collection, to rebuild an index
+     * that has no segment file.
+     */
+    public interface ChunkSource {
+
+        Flux<KeywordDocument> readKeywordDocuments(String collectionName, String teamId);
+    }
+
+    private final ChunkEncryptionService chunkEncryptionService;
+    private final ChunkSource chunkSource;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final Path directory;
+    private final Duration loadWait;
+    private final Duration leaseTtl;
+    private final String instanceId = instanceName() + "/" + UUID.randomUUID();
+    private final AtomicBoolean leaseLost = new AtomicBoolean();
+    private final Bm25Analyzer analyzer = new Bm25Analyzer();
+    private final Map<String, Mono<Partition>> partitions = new ConcurrentHashMap<>();
+
+    private final LongAdder indexedChunks = new LongAdder();
+    private final LongAdder removedChunks = new LongAdder();
+    private final LongAdder segmentWrites = new LongAdder();
+    private final LongAdder segmentWriteFailures = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder searchesWhileLoading = new LongAdder();
+    private final LatencyHistogram searchLatencyMicros = new LatencyHistogram();
+
+    public KeywordIndexService(
+            ChunkEncryptionService chunkEncryptionService,
+            // Use @Lazy to break the circular dependency with the Milvus store, which feeds this index
+            @Lazy ChunkSource chunkSource,
+            ReactiveStringRedisTemplate redisTemplate,
+            @Value("${linqra.milvus.keyword-index.enabled:true}") boolean enabled,
+            @Value("${app.redis.enabled:true}") boolean redisEnabled,
+            @Value("${linqra.milvus.keyword-index.directory:}") String directory,
+            @Value("${linqra.milvus.keyword-index.load-wait-ms:200}") long loadWaitMillis,
+            @Value("${linqra.milvus.keyword-index.lease-ttl-ms:30000}") long leaseTtlMillis) {
+        this.chunkEncryptionService = chunkEncryptionService;
+        this.chunkSource = chunkSource;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.redisEnabled = redisEnabled;
+        this.directory = enabled ? requireDirectory(directory) : null;
+        this.loadWait = Duration.ofMillis(loadWaitMillis);
+        this.leaseTtl = Duration.ofMillis(leaseTtlMillis);
+    }
+
+    private static Path requireDirectory(String directory) {
+        if (directory == null || directory.isBlank() || !Paths.get(directory).isAbsolute()) {
+            throw new IllegalStateException("linqra.milvus.keyword-index.directory must be set to an absolute path "
+                    + "on a persistent volume when the keyword index is enabled, got '" + directory + "'");
+        }
+        return Paths.get(directory);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes the lease on the index directory, waiting up to a lease TTL for one left by an
+     * instance that stopped without releasing it, e.g. the previous pod of a deployment.
+     *
+     * @throws IllegalStateException if another running instance holds the lease
+     */
+    @PostConstruct
+    public void acquireDirectoryLease() {
+        if (!enabled) {
+            return;
+        }
+        if (!redisEnabled) {
+            log.warn("Redis is disabled, so the keyword index cannot check that no other gateway instance uses {}",
+                    directory);
+            return;
+        }
+        long deadline = System.nanoTime() + leaseTtl.toNanos();
+        String owner = tryLease().block(Duration.ofSeconds(10));
+        while (!instanceId.equals(owner) && System.nanoTime() < deadline) {
+            log.info("Keyword index directory {} is leased by {}, waiting for the lease to expire", directory, owner);
+            try {
+                Thread.sleep(Math.min(1_000, Math.max(1, leaseTtl.toMillis() / 10)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            owner = tryLease().block(Duration.ofSeconds(10));
+        }
+        if (!instanceId.equals(owner)) {
+            throw new IllegalStateException("Keyword index directory " + directory + " is in use by gateway instance "
+                    + owner + "; the keyword index supports a single instance per directory");
+        }
+        log.info("Keyword index directory {} leased by {}", directory, instanceId);
+    }
+
+    @Scheduled(fixedDelayString = "${linqra.milvus.keyword-index.lease-renew-ms:10000}")
+    public void renewDirectoryLease() {
+        if (!enabled || !redisEnabled || leaseLost.get()) {
+            return;
+        }
+        tryLease().subscribe(owner -> {
+            if (!instanceId.equals(owner) && leaseLost.compareAndSet(false, true)) {
+                log.error("Keyword index directory {} was leased by {}; this instance stops writing segment files",
+                        directory, owner);
+            }
+        }, e -> log.warn("Renewing the keyword index directory lease failed: {}", e.getMessage()));
+    }
+
+    private Mono<String> tryLease() {
+        return redisTemplate.execute(ACQUIRE_LEASE, List.of(leaseKey()),
+                        List.of(instanceId, String.valueOf(leaseTtl.toMillis())))
+                .next();
+    }
+
+    private String leaseKey() {
+        return LEASE_KEY_PREFIX + directory.toAbsolutePath().normalize();
+    }
+
+    private static String instanceName() {
+        String hostname = System.getenv("HOSTNAME");
+        return hostname == null || hostname.isBlank() ? "gateway" : hostname;
+    }
+
+    public Mono<Void> add(String collectionName, String teamId, List<KeywordDocument> documents) {
+        if (!enabled || documents.isEmpty()) {
+            return Mono.empty();
+        }
+        return partition(collectionName, teamId)
+                .doOnNext(partition -> {
+                    for (KeywordDocument document : documents) {
+                        partition.index.add(document.id(), document.documentId(), document.text(),
+                                document.metadata());
+                    }
+                    partition.dirty.set(true);
+                    indexedChunks.add(documents.size());
+                })
+                .then();
+    }
+
+    public Mono<Void> deleteDocument(String collectionName, String teamId, String documentId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return partition(collectionName, teamId)
+                .doOnNext(partition -> {
+                    int removed = partition.index.removeDocument(documentId);
+                    if (removed > 0) {
+                        partition.dirty.set(true);
+                        removedChunks.add(removed);
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Drops the keyword index of every team in a collection, including its segment files.
+     */
+    public Mono<Void> dropCollection(String collectionName) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        partitions.keySet().removeIf(key -> key.startsWith(collectionName + "|"));
+        Path collectionDirectory = directory.resolve(safeName(collectionName));
+        return Mono.fromRunnable(() -> {
+            if (!Files.isDirectory(collectionDirectory)) {
+                return;
+            }
+            try (Stream<Path> files = Files.walk(collectionDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete keyword index of collection {}: {}", collectionName, e.getMessage());
+            }
+        }).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    /**
+     * @return up to {@code topK} chunks of the team in the collection, best BM25 score first,
+     * or none if the index is still being loaded or rebuilt after the load wait
+     */
+    public Mono<List<Bm25Index.Hit>> search(String collectionName, String teamId, String query, int topK) {
+        if (!enabled) {
+            return Mono.just(List.of());
+        }
+        return partition(collectionName, teamId)
+                .map(partition -> {
+                    long startNanos = System.nanoTime();
+                    List<Bm25Index.Hit> hits = partition.index.search(query, topK);
+                    searchLatencyMicros.record((System.nanoTime() - startNanos) / 1_000);
+                    return hits;
+                })
+                // The load started by partition() goes on after the timeout cancels this search
+                .timeout(loadWait, Mono.fromSupplier(() -> {
+                    searchesWhileLoading.increment();
+                    log.debug("Keyword index of collection {} for team {} is still loading, searching without it",
+                            collectionName, teamId);
+                    return List.of();
+                }));
+    }
+
+    @Scheduled(fixedDelayString = "${linqra.milvus.keyword-index.flush-interval-ms:30000}")
+    public void scheduledFlush() {
+        flush().subscribe(null, e -> log.warn("Keyword index flush failed: {}", e.getMessage()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flush().block(Duration.ofSeconds(30));
+        } catch (Exception e) {
+            log.warn("Keyword index flush on shutdown failed: {}", e.getMessage());
+        }
+        if (enabled && redisEnabled && !leaseLost.get()) {
+            try {
+                // Lets the next instance start without waiting for the lease to expire
+                redisTemplate.execute(RELEASE_LEASE, List.of(leaseKey()), List.of(instanceId))
+                        .next()
+                        .block(Duration.ofSeconds(5));
+            } catch (Exception e) {
+                log.warn("Releasing the keyword index directory lease failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the segment of every loaded index that changed since it was last written.
+     */
+    public Mono<Void> flush() {
+        if (leaseLost.get()) {
+            // Another instance owns the directory now
+            return Mono.empty();
+        }
+        return Flux.fromIterable(partitions.values())
+                .flatMap(partitionMono -> partitionMono)
+                .filter(partition -> partition.dirty.compareAndSet(true, false))
+                .concatMap(this::writeSegment)
+                .then();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directoryLeaseLost", leaseLost.get());
+        stats.put("loadedIndexes", partitions.size());
+        stats.put("indexedChunks", indexedChunks.sum());
+        stats.put("removedChunks", removedChunks.sum());
+        stats.put("segmentWrites", segmentWrites.sum());
+        stats.put("segmentWriteFailures", segmentWriteFailures.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("loadFailures", loadFailures.sum());
+        stats.put("searchesWhileLoading", searchesWhileLoading.sum());
+        stats.put("searches", searchLatencyMicros.totalCount());
+        stats.put("searchP50Micros", searchLatencyMicros.valueAtPercentile(50));
+        stats.put("searchP99Micros", searchLatencyMicros.valueAtPercentile(99));
+        return stats;
+    }
+
+    /**
+     * The team's index, whose load starts on the first access and runs to completion whether
+     * or not the caller is still waiting for it.
+     */
+    private Mono<Partition> partition(String collectionName, String teamId) {
+        String key = collectionName + "|" + teamId;
+        return partitions.computeIfAbsent(key, k -> {
+            Mono<Partition> partition = load(collectionName, teamId)
+                    // A failed load is not cached, so the next access retries it
+                    .doOnError(e -> partitions.remove(k))
+                    .cache();
+            // Failures are logged by load()
+            partition.subscribe(loaded -> { }, e -> { });
+            return partition;
+        });
+    }
+
+    private Mono<Partition> load(String collectionName, String teamId) {
+        Path file = segmentPath(collectionName, teamId);
+        return Mono.fromCallable(() -> Files.exists(file) ? Files.readAllBytes(file) : null)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(bytes -> {
+                    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                        if (in.readInt() != FILE_MAGIC) {
+                            return Mono.error(new IOException("Not a keyword index segment file"));
+                        }
+                        String keyVersion = in.readUTF();
+                        byte[] encrypted = in.readAllBytes();
+                        return chunkEncryptionService.decryptFile(encrypted, teamId, keyVersion);
+                    } catch (IOException e) {
+                        return Mono.error(e);
+                    }
+                })
+                .map(segment -> {
+                    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(segment))) {
+                        Bm25Index index = Bm25Index.read(in, analyzer);
+                        log.info("Loaded keyword index of collection {} for team {} ({} chunks)", collectionName,
+                                teamId, index.size());
+                        return new Partition(collectionName, teamId, index);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Corrupt keyword index segment " + file, e);
+                    }
+                })
+                .doOnError(e -> {
+                    loadFailures.increment();
+                    log.warn("Failed to load keyword index of collection {} for team {}: {}", collectionName,
+                            teamId, e.getMessage());
+                })
+                .switchIfEmpty(Mono.defer(() -> rebuild(collectionName, teamId)));
+    }
+
+    /**
+     * Indexes the team's chunks as read from Milvus. The partition starts dirty so the next
+     * flush writes its segment file.
+     */
+    private Mono<Partition> rebuild(String collectionName, String teamId) {
+        Bm25Index index = new Bm25Index(analyzer);
+        return chunkSource.readKeywordDocuments(collectionName, teamId)
+                .doOnNext(document -> index.add(document.id(), document.documentId(), document.text(),
+                        document.metadata()))
+                .then(Mono.fromSupplier(() -> {
+                    rebuilds.increment();
+                    log.info("Rebuilt keyword index of collection {} for team {} from Milvus ({} chunks)",
+                            collectionName, teamId, index.size());
+                    Partition partition = new Partition(collectionName, teamId, index);
+                    partition.dirty.set(true);
+                    return partition;
+                }))
+                .timeout(REBUILD_TIMEOUT)
+                .doOnError(e -> {
+                    loadFailures.increment();
+                    log.warn("Failed to rebuild keyword index of collection {} for team {}: {}", collectionName,
+                            teamId, e.getMessage());
+                });
+    }
+
+    private Mono<Void> writeSegment(Partition partition) {
+        byte[] segment;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                partition.index.write(out);
+            }
+            segment = bytes.toByteArray();
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+        Path file = segmentPath(partition.collectionName, partition.teamId);
+        return chunkEncryptionService.getCurrentKeyVersion(partition.teamId)
+                .flatMap(keyVersion -> chunkEncryptionService.encryptFile(segment, partition.teamId, keyVersion)
+                        .flatMap(encrypted -> Mono.fromCallable(() -> {
+                            Files.createDirectories(file.getParent());
+                            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                                out.writeInt(FILE_MAGIC);
+                                out.writeUTF(keyVersion);
+                                out.write(encrypted);
+                            }
+                            return Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                                    StandardCopyOption.ATOMIC_MOVE);
+                        }).subscribeOn(Schedulers.boundedElastic())))
+                .doOnSuccess(written -> segmentWrites.increment())
+                .onErrorResume(e -> {
+                    // Keep the changes pending so the next flush retries them
+                    partition.dirty.set(true);
+                    segmentWriteFailures.increment();
+                    log.warn("Failed to write keyword index of collection {} for team {}: {}",
+                            partition.collectionName, partition.teamId, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Path segmentPath(String collectionName, String teamId) {
+        return directory.resolve(safeName(collectionName)).resolve(safeName(teamId) + SEGMENT_SUFFIX);
+    }
+
+    private static String safeName(String name) {
+        return name == null ? "_" : name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private static final class Partition {
+
+        private final String collectionName;
+        private final String teamId;
+        private final Bm25Index index;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        Partition(String collectionName, String teamId, Bm25Index index) {
+            this.collectionName = collectionName;
+            this.teamId = teamId;
+            this.index = index;
+        }
+    }
+}
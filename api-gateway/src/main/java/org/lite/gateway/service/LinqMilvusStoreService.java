@@ -1,8 +1,10 @@
 package org.lite.gateway.service;
 
 import org.lite.gateway.dto.MilvusCollectionInfo;
+import org.lite.gateway.dto.MilvusBulkInsertResult;
 import org.lite.gateway.dto.MilvusCollectionSchemaInfo;
 import org.lite.gateway.dto.MilvusCollectionVerificationResponse;
+import org.lite.gateway.dto.MilvusInsertRow;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +52,20 @@ public interface LinqMilvusStoreService {
      */
     Mono<Map<String, String>> storeRecord(String collectionName, Map<String, Object> record, String modelCategory, String modelName, String textField, String teamId, List<Float> embedding);
 
+    /**
+     * Stores many records with pre-computed embeddings using column-oriented inserts.
+     * Rows are validated against the cached collection schema once per batch; rows that fail
+     * validation or belong to a failed insert call are reported individually instead of
+     * failing the whole batch.
+     *
+     * @param collectionName The name of the collection.
+     * @param rows Records and their embeddings.
+     * @param textField The field name containing the chunk text.
+     * @param teamId The team ID for the records.
+     * @return Inserted count and per-row failures.
+     */
+    Mono<MilvusBulkInsertResult> storeRecords(String collectionName, List<MilvusInsertRow> rows, String textField, String teamId);
+
     /**
      * Queries the specified Milvus collection for similar records.
      *
@@ -9,10 +9,28 @@ import reactor.core.publisher.Mono;
 @Service
 public class MetricService {
     private final ApiMetricRepository apiMetricRepository;
+    private final MetricsIngestionPipeline metricsIngestionPipeline;
+    private final MetricsRollupEngine metricsRollupEngine;
 
     @Autowired
-    public MetricService(ApiMetricRepository apiMetricRepository) {
+    public MetricService(ApiMetricRepository apiMetricRepository,
+                         MetricsIngestionPipeline metricsIngestionPipeline,
+                         MetricsRollupEngine metricsRollupEngine) {
         this.apiMetricRepository = apiMetricRepository;
+        this.metricsIngestionPipeline = metricsIngestionPipeline;
+        this.metricsRollupEngine = metricsRollupEngine;
+    }
+
+    /**
+     * Folds the metric into the per-minute rollups and hands the raw record to the batched
+     * ingestion pipeline; never blocks the request path.
+     */
+    public void enqueueMetric(ApiMetric metric) {
+        if (isHealthCheckRequest(metric)) {
+            return;
+        }
+        metricsRollupEngine.record(metric);
+        metricsIngestionPipeline.offer(metric);
     }
 
     public Mono<Void> saveMetric(ApiMetric metric) {
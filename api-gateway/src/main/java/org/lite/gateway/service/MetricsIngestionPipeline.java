@@ -0,0 +1,224 @@
+package org.lite.gateway.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.entity.ApiMetric;
+import org.lite.gateway.enums.MetricsOverflowPolicy;
+import org.lite.gateway.repository.ApiMetricRepository;
+import org.lite.gateway.util.BoundedRingBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers {@link ApiMetric} records produced on the proxy path and writes them to Mongo
+ * in bulk. Producers only touch a lock-free ring buffer; a single drainer issues one
+ * {@code insertMany} per batch, either when {@code batchSize} records are waiting or every
+ * {@code flushIntervalMs}, whichever comes first.
+ *
+ * Records sampled out or dropped by the overflow policy are not lost from the totals: their
+ * count is carried onto the next record written for the same route and service pair as its
+ * {@link ApiMetric#getSampleWeight() sample weight}, so raw aggregations can scale by it.
+ */
+@Service
+@Slf4j
+public class MetricsIngestionPipeline {
+
+    private final ApiMetricRepository apiMetricRepository;
+    private final BoundedRingBuffer<ApiMetric> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Duration flushTimeout;
+    private final MetricsOverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int highWaterMark;
+
+    private final Scheduler drainScheduler = Schedulers.newSingle("metrics-ingestion", true);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicLong sampleCounter = new AtomicLong();
+    // Requests not written since the last accepted record, per route and service pair
+    private final Map<String, AtomicLong> unwritten = new ConcurrentHashMap<>();
+    private Disposable periodicFlush;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+
+    public MetricsIngestionPipeline(
+            ApiMetricRepository apiMetricRepository,
+            @Value("${linqra.metrics.ingestion.capacity:16384}") int capacity,
+            @Value("${linqra.metrics.ingestion.batch-size:500}") int batchSize,
+            @Value("${linqra.metrics.ingestion.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${linqra.metrics.ingestion.flush-timeout-ms:10000}") long flushTimeoutMs,
+            @Value("${linqra.metrics.ingestion.overflow-policy:SAMPLE}") MetricsOverflowPolicy overflowPolicy,
+            @Value("${linqra.metrics.ingestion.sample-rate:10}") int sampleRate) {
+        this.apiMetricRepository = apiMetricRepository;
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.flushTimeout = Duration.ofMillis(flushTimeoutMs);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        // Sampling kicks in at 75% occupancy so bursts degrade gradually instead of falling off a cliff
+        this.highWaterMark = (int) (buffer.capacity() * 0.75);
+    }
+
+    @PostConstruct
+    public void start() {
+        periodicFlush = drainScheduler.schedulePeriodically(this::drain,
+                flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Metrics ingestion pipeline started (capacity={}, batchSize={}, flushIntervalMs={}, policy={})",
+                buffer.capacity(), batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (periodicFlush != null) {
+            periodicFlush.dispose();
+        }
+        // Final synchronous drain so an orderly shutdown does not lose buffered metrics
+        List<ApiMetric> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                apiMetricRepository.insert(batch).then().block(flushTimeout);
+                flushed.add(batch.size());
+            } catch (Exception e) {
+                failed.add(batch.size());
+                log.warn("Failed to flush {} metrics during shutdown: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+        drainScheduler.dispose();
+    }
+
+    /**
+     * Non-blocking enqueue called from the gateway metrics filter.
+     *
+     * @return {@code true} if the metric was accepted, {@code false} if it was dropped or sampled out
+     */
+    public boolean offer(ApiMetric metric) {
+        if (overflowPolicy == MetricsOverflowPolicy.SAMPLE && buffer.size() >= highWaterMark
+                && sampleCounter.incrementAndGet() % sampleRate != 0) {
+            sampledOut.increment();
+            carryOver(metric, 1);
+            return false;
+        }
+
+        long carried = takeCarried(metric);
+        if (carried > 0) {
+            metric.setSampleWeight((int) Math.min(Integer.MAX_VALUE, 1 + carried));
+        }
+        boolean accepted = buffer.offer(metric);
+        if (!accepted && overflowPolicy == MetricsOverflowPolicy.DROP_OLDEST) {
+            ApiMetric evicted = buffer.poll();
+            if (evicted != null) {
+                dropped.increment();
+                carryOver(evicted, weight(evicted));
+            }
+            accepted = buffer.offer(metric);
+        }
+
+        if (!accepted) {
+            dropped.increment();
+            carryOver(metric, weight(metric));
+            metric.setSampleWeight(null);
+            return false;
+        }
+
+        enqueued.increment();
+        if (buffer.size() >= batchSize && !draining.get()) {
+            drainScheduler.schedule(this::drain);
+        }
+        return true;
+    }
+
+    private static String carryKey(ApiMetric metric) {
+        return metric.getRouteIdentifier() + '|' + metric.getFromService() + '|' + metric.getToService();
+    }
+
+    private static long weight(ApiMetric metric) {
+        return metric.getSampleWeight() != null ? metric.getSampleWeight() : 1;
+    }
+
+    private void carryOver(ApiMetric metric, long requests) {
+        unwritten.computeIfAbsent(carryKey(metric), key -> new AtomicLong()).addAndGet(requests);
+    }
+
+    private long takeCarried(ApiMetric metric) {
+        AtomicLong pending = unwritten.get(carryKey(metric));
+        return pending != null ? pending.getAndSet(0) : 0;
+    }
+
+    /**
+     * Writes one batch. Only one batch is in flight at a time; if more than a full batch
+     * is still waiting when the write completes, the next one is scheduled immediately.
+     */
+    void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<ApiMetric> batch = new ArrayList<>(batchSize);
+        buffer.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            draining.set(false);
+            return;
+        }
+
+        long start = System.nanoTime();
+        apiMetricRepository.insert(batch)
+                .then()
+                .timeout(flushTimeout)
+                .subscribe(
+                        unused -> {
+                        },
+                        error -> {
+                            failed.add(batch.size());
+                            log.warn("Failed to flush batch of {} metrics: {}", batch.size(), error.getMessage());
+                            draining.set(false);
+                        },
+                        () -> {
+                            flushed.add(batch.size());
+                            batches.increment();
+                            lastFlushMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                            draining.set(false);
+                            if (buffer.size() >= batchSize) {
+                                drainScheduler.schedule(this::drain);
+                            }
+                        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enqueued", enqueued.sum());
+        stats.put("flushed", flushed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("sampledOut", sampledOut.sum());
+        stats.put("carriedOver", unwritten.values().stream().mapToLong(AtomicLong::get).sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("buffered", buffer.size());
+        stats.put("capacity", buffer.capacity());
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("lastFlushMillis", lastFlushMillis.get());
+        return stats;
+    }
+}
@@ -0,0 +1,257 @@
+package org.lite.gateway.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.entity.ApiMetric;
+import org.lite.gateway.entity.ApiMetricRollup;
+import org.lite.gateway.model.LatencyHistogram;
+import org.lite.gateway.repository.ApiMetricRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Folds every proxied request into per-(route, fromService, toService, minute) buckets in
+ * memory and periodically upserts closed minutes into {@code apiMetricRollups}.
+ *
+ * Rollups are fed before the raw ingestion pipeline applies its overflow policy, so they
+ * stay exact even when raw records are sampled or dropped under load.
+ */
+@Service
+@Slf4j
+public class MetricsRollupEngine {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ApiMetricRollupRepository rollupRepository;
+    private final long flushIntervalMs;
+    private final Duration closeGrace;
+    private final Duration minRollupSpan;
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Scheduler flushScheduler = Schedulers.newSingle("metrics-rollup", true);
+    private final AtomicReference<LocalDateTime> coverageStart = new AtomicReference<>();
+    private final AtomicLong flushedBuckets = new AtomicLong();
+    private final LongAdder recorded = new LongAdder();
+    private Disposable periodicFlush;
+
+    public MetricsRollupEngine(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            ApiMetricRollupRepository rollupRepository,
+            @Value("${linqra.metrics.rollup.flush-interval-ms:10000}") long flushIntervalMs,
+            @Value("${linqra.metrics.rollup.close-grace-ms:5000}") long closeGraceMs,
+            @Value("${linqra.metrics.rollup.min-span-minutes:10}") long minRollupSpanMinutes) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.rollupRepository = rollupRepository;
+        this.flushIntervalMs = Math.max(1000, flushIntervalMs);
+        this.closeGrace = Duration.ofMillis(closeGraceMs);
+        this.minRollupSpan = Duration.ofMinutes(minRollupSpanMinutes);
+    }
+
+    @PostConstruct
+    public void start() {
+        periodicFlush = flushScheduler.schedulePeriodically(
+                () -> flushClosedBuckets(LocalDateTime.now()).subscribe(),
+                flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (periodicFlush != null) {
+            periodicFlush.dispose();
+        }
+        // Flush everything, including the open minute; $inc makes a later partial flush safe
+        try {
+            flushBuckets(new ArrayList<>(buckets.keySet())).block(Duration.ofSeconds(10));
+        } catch (Exception e) {
+            log.warn("Failed to flush metric rollups during shutdown: {}", e.getMessage());
+        }
+        flushScheduler.dispose();
+    }
+
+    public void record(ApiMetric metric) {
+        if (metric.getTimestamp() == null) {
+            return;
+        }
+        BucketKey key = new BucketKey(
+                metric.getTimestamp().truncatedTo(ChronoUnit.MINUTES),
+                metric.getRouteIdentifier(),
+                metric.getFromService(),
+                metric.getToService());
+        // compute holds the bin lock while recording, so flushBuckets' remove(key) either
+        // sees this increment or runs first and a fresh bucket picks it up for the next flush
+        buckets.compute(key, (k, bucket) -> {
+            Bucket target = bucket != null ? bucket : new Bucket();
+            target.record(metric);
+            return target;
+        });
+        recorded.increment();
+    }
+
+    /**
+     * Upserts every bucket whose minute closed at least {@code closeGrace} before {@code now}.
+     */
+    Mono<Void> flushClosedBuckets(LocalDateTime now) {
+        LocalDateTime closedBefore = now.minus(closeGrace).truncatedTo(ChronoUnit.MINUTES);
+        List<BucketKey> closed = buckets.keySet().stream()
+                .filter(key -> key.minute().isBefore(closedBefore))
+                .toList();
+        return flushBuckets(closed);
+    }
+
+    private Mono<Void> flushBuckets(List<BucketKey> keys) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(keys)
+                .flatMap(key -> {
+                    Bucket bucket = buckets.remove(key);
+                    if (bucket == null) {
+                        return Mono.empty();
+                    }
+                    return upsert(key, bucket)
+                            .doOnSuccess(unused -> flushedBuckets.incrementAndGet())
+                            .onErrorResume(e -> {
+                                log.warn("Failed to flush rollup {}: {}", key, e.getMessage());
+                                return Mono.empty();
+                            });
+                }, 8)
+                .then(Mono.fromRunnable(() -> keys.stream()
+                        .map(BucketKey::minute)
+                        .min(LocalDateTime::compareTo)
+                        .ifPresent(this::extendCoverage)));
+    }
+
+    private void extendCoverage(LocalDateTime minute) {
+        coverageStart.accumulateAndGet(minute,
+                (current, candidate) -> current == null || candidate.isBefore(current) ? candidate : current);
+    }
+
+    private Mono<Void> upsert(BucketKey key, Bucket bucket) {
+        Update update = new Update()
+                .setOnInsert("minute", key.minute())
+                .setOnInsert("routeIdentifier", key.routeIdentifier())
+                .setOnInsert("fromService", key.fromService())
+                .setOnInsert("toService", key.toService())
+                .inc("count", bucket.count.sum())
+                .inc("errorCount", bucket.errorCount.sum())
+                .inc("bytes", bucket.bytes.sum())
+                .inc("totalDuration", bucket.totalDuration.sum())
+                .min("minDuration", bucket.minDuration.get())
+                .max("maxDuration", bucket.maxDuration.get());
+        bucket.histogram.toSparseMap().forEach((index, count) -> update.inc("histogram." + index, count));
+
+        Query query = new Query(Criteria.where("_id").is(key.id()));
+        return reactiveMongoTemplate.upsert(query, update, ApiMetricRollup.class).then();
+    }
+
+    /**
+     * Splits [{@code start}, {@code end}] into a minute-aligned span served from rollups and
+     * short raw head/tail ranges, or returns empty when the range is too narrow or predates
+     * the first rollup.
+     */
+    public Mono<Optional<RollupWindow>> planWindow(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            return Mono.just(Optional.empty());
+        }
+        return resolveCoverageStart().map(coverage -> {
+            LocalDateTime rollupStart = ceilToMinute(start);
+            // Minutes are only trusted once every pod has had a chance to flush them
+            LocalDateTime watermark = LocalDateTime.now()
+                    .minus(closeGrace)
+                    .minus(Duration.ofMillis(flushIntervalMs * 2))
+                    .truncatedTo(ChronoUnit.MINUTES);
+            LocalDateTime rollupEnd = end.truncatedTo(ChronoUnit.MINUTES);
+            if (rollupEnd.isAfter(watermark)) {
+                rollupEnd = watermark;
+            }
+            if (rollupStart.isBefore(coverage)
+                    || Duration.between(rollupStart, rollupEnd).compareTo(minRollupSpan) < 0) {
+                return Optional.<RollupWindow>empty();
+            }
+            return Optional.of(new RollupWindow(start, rollupStart, rollupEnd, end));
+        }).defaultIfEmpty(Optional.empty());
+    }
+
+    private Mono<LocalDateTime> resolveCoverageStart() {
+        LocalDateTime known = coverageStart.get();
+        if (known != null) {
+            return Mono.just(known);
+        }
+        return rollupRepository.findFirstByOrderByMinuteAsc()
+                .map(ApiMetricRollup::getMinute)
+                .doOnNext(first -> coverageStart.compareAndSet(null, first));
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "recorded", recorded.sum(),
+                "openBuckets", buckets.size(),
+                "flushedBuckets", flushedBuckets.get(),
+                "coverageStart", Objects.toString(coverageStart.get(), ""));
+    }
+
+    private static LocalDateTime ceilToMinute(LocalDateTime time) {
+        LocalDateTime floor = time.truncatedTo(ChronoUnit.MINUTES);
+        return floor.equals(time) ? floor : floor.plusMinutes(1);
+    }
+
+    /**
+     * Raw records cover [rawStart, rollupStart) and [rollupEnd, rawEnd]; rollups cover
+     * [rollupStart, rollupEnd).
+     */
+    public record RollupWindow(LocalDateTime rawStart, LocalDateTime rollupStart,
+                               LocalDateTime rollupEnd, LocalDateTime rawEnd) {
+    }
+
+    private record BucketKey(LocalDateTime minute, String routeIdentifier, String fromService, String toService) {
+        String id() {
+            return minute + "|" + routeIdentifier + "|" + fromService + "|" + toService;
+        }
+    }
+
+    private static final class Bucket {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder totalDuration = new LongAdder();
+        private final AtomicLong minDuration = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong maxDuration = new AtomicLong(Long.MIN_VALUE);
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        void record(ApiMetric metric) {
+            long duration = metric.getDuration();
+            count.increment();
+            if (!metric.isSuccess()) {
+                errorCount.increment();
+            }
+            bytes.add(metric.getBytes());
+            totalDuration.add(duration);
+            minDuration.accumulateAndGet(duration, Math::min);
+            maxDuration.accumulateAndGet(duration, Math::max);
+            histogram.record(duration);
+        }
+    }
+}
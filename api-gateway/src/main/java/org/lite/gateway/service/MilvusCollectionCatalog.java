@@ -0,0 +1,359 @@
+package org.lite.gateway.service;
+
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.GetCollectionStatisticsResponse;
+import io.milvus.grpc.GetLoadStateResponse;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.param.R;
+import io.milvus.param.collection.DescribeCollectionParam;
+import io.milvus.param.collection.GetCollectionStatisticsParam;
+import io.milvus.param.collection.GetLoadStateParam;
+import io.milvus.param.collection.LoadCollectionParam;
+import io.milvus.param.collection.ShowCollectionsParam;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.service.ReactiveMilvusClient.Operation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Cached catalog of the Milvus collections: schema and properties as returned by
+ * describeCollection, owning team, load state and approximate row count.
+ *
+ * The catalog is rebuilt in the background on a fixed delay, one showCollections call plus
+ * a describe, load-state and statistics call per collection. Listing and describing then
+ * cost no Milvus round trips. Creating or altering a collection refreshes its entry, dropping
+ * it removes the entry, and inserts and deletes adjust the row count until the next rebuild
+ * replaces it with the server's figure.
+ *
+ * Collections that are searched often, and those listed in
+ * {@code linqra.milvus.catalog.preload-collections}, are loaded into memory after each
+ * rebuild, including the first one at startup, so searches do not wait for a load.
+ */
+@Service
+@Slf4j
+public class MilvusCollectionCatalog {
+
+    public enum LoadState {
+        LOADED, LOADING, NOT_LOADED, UNKNOWN
+    }
+
+    /**
+     * One collection as last seen in Milvus.
+     *
+     * @param teamId   the {@code teamId} collection property, or null
+     * @param rowCount approximate number of rows, or -1 if unknown
+     */
+    public record Entry(String name, DescribeCollectionResponse description, String teamId,
+            String collectionType, LoadState loadState, long rowCount, Instant refreshedAt) {
+
+        Entry withLoadState(LoadState state) {
+            return new Entry(name, description, teamId, collectionType, state, rowCount, refreshedAt);
+        }
+
+        Entry withRowCountDelta(long delta) {
+            if (rowCount < 0) {
+                return this;
+            }
+            return new Entry(name, description, teamId, collectionType, loadState, Math.max(0, rowCount + delta),
+                    refreshedAt);
+        }
+    }
+
+    private final ReactiveMilvusClient reactiveMilvusClient;
+    private final Set<String> preloadCollections;
+    private final int preloadHotCount;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> searchCounts = new ConcurrentHashMap<>();
+    private final AtomicReference<Mono<Void>> inFlightRefresh = new AtomicReference<>();
+    private final AtomicBoolean initialized = new AtomicBoolean();
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder describeHits = new LongAdder();
+    private final LongAdder describeMisses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private volatile Instant lastRefresh;
+
+    public MilvusCollectionCatalog(
+            ReactiveMilvusClient reactiveMilvusClient,
+            @Value("${linqra.milvus.catalog.preload-collections:}") String preloadCollections,
+            @Value("${linqra.milvus.catalog.preload-hot-count:5}") int preloadHotCount) {
+        this.reactiveMilvusClient = reactiveMilvusClient;
+        this.preloadCollections = Arrays.stream(preloadCollections.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        this.preloadHotCount = Math.max(0, preloadHotCount);
+    }
+
+    /**
+     * @return every collection, rebuilding the catalog first if it has never been built
+     */
+    public Mono<Collection<Entry>> entries() {
+        Mono<Void> ready = initialized.get() ? Mono.empty() : refresh();
+        return ready.then(Mono.fromSupplier(() -> List.copyOf(entries.values())));
+    }
+
+    /**
+     * Describe response of a collection, served from the catalog when present. Must run on
+     * the Milvus scheduler as it may call {@code client}; failed describes are not cached.
+     */
+    public R<DescribeCollectionResponse> describe(MilvusServiceClient client, String collectionName) {
+        Entry entry = entries.get(collectionName);
+        if (entry != null) {
+            describeHits.increment();
+            return R.success(entry.description());
+        }
+        describeMisses.increment();
+        R<DescribeCollectionResponse> response = client.describeCollection(DescribeCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (response.getStatus() == 0 && response.getData() != null) {
+            entries.putIfAbsent(collectionName, toEntry(collectionName, response.getData(), LoadState.UNKNOWN, -1));
+        }
+        return response;
+    }
+
+    /**
+     * Loads the collection into memory unless the catalog knows it is loaded. Must run on
+     * the Milvus scheduler; blocks until Milvus reports the load finished.
+     */
+    public void ensureLoaded(MilvusServiceClient client, String collectionName) {
+        Entry entry = entries.get(collectionName);
+        if (entry != null && entry.loadState() == LoadState.LOADED) {
+            return;
+        }
+        R<?> response = client.loadCollection(LoadCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (response.getStatus() != 0) {
+            log.warn("Failed to load collection {}: {}", collectionName, response.getMessage());
+            return;
+        }
+        loads.increment();
+        entries.computeIfPresent(collectionName, (name, current) -> current.withLoadState(LoadState.LOADED));
+    }
+
+    /**
+     * Counts a search so frequently searched collections are kept loaded.
+     */
+    public void recordSearch(String collectionName) {
+        searchCounts.computeIfAbsent(collectionName, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Forgets that a collection is loaded, e.g. after a search reported it was released.
+     */
+    public void markNotLoaded(String collectionName) {
+        entries.computeIfPresent(collectionName, (name, entry) -> entry.withLoadState(LoadState.NOT_LOADED));
+    }
+
+    public void recordInsert(String collectionName, long rows) {
+        entries.computeIfPresent(collectionName, (name, entry) -> entry.withRowCountDelta(rows));
+    }
+
+    public void recordDelete(String collectionName, long rows) {
+        entries.computeIfPresent(collectionName, (name, entry) -> entry.withRowCountDelta(-rows));
+    }
+
+    public void remove(String collectionName) {
+        entries.remove(collectionName);
+        searchCounts.remove(collectionName);
+    }
+
+    /**
+     * Re-reads one collection, e.g. after it was created or its properties changed. Never
+     * fails; on error the entry is dropped so the next lookup describes it again.
+     */
+    public Mono<Void> refreshCollection(String collectionName) {
+        return reactiveMilvusClient.run(Operation.ADMIN, collectionName, client -> readEntry(client, collectionName))
+                .doOnNext(entry -> entries.put(collectionName, entry))
+                .onErrorResume(e -> {
+                    log.warn("Failed to refresh catalog entry of collection {}: {}", collectionName, e.getMessage());
+                    entries.remove(collectionName);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    @Scheduled(fixedDelayString = "${linqra.milvus.catalog.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        refresh().subscribe(null, e -> log.warn("Milvus catalog refresh failed: {}", e.getMessage()));
+    }
+
+    /**
+     * Rebuilds the catalog, then loads hot collections. Concurrent callers share one rebuild.
+     */
+    public Mono<Void> refresh() {
+        Mono<Void> refresh = Mono.defer(this::rebuild)
+                .then(Mono.defer(this::preloadHotCollections))
+                // Cleared before the result is replayed, so a caller that saw this refresh finish
+                // starts a new one instead of getting the completed one back
+                .doOnTerminate(() -> inFlightRefresh.set(null))
+                .cache();
+        Mono<Void> running = inFlightRefresh.compareAndExchange(null, refresh);
+        return running != null ? running : refresh;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("collections", entries.size());
+        stats.put("loadedCollections", entries.values().stream()
+                .filter(entry -> entry.loadState() == LoadState.LOADED)
+                .count());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("lastRefresh", lastRefresh != null ? lastRefresh.toString() : null);
+        stats.put("describeHits", describeHits.sum());
+        stats.put("describeMisses", describeMisses.sum());
+        stats.put("loads", loads.sum());
+        return stats;
+    }
+
+    private Mono<Void> rebuild() {
+        return reactiveMilvusClient.executeForData(Operation.ADMIN, ReactiveMilvusClient.ALL_COLLECTIONS,
+                        client -> client.showCollections(ShowCollectionsParam.newBuilder().build()))
+                .flatMap(response -> {
+                    Set<String> names = new HashSet<>(response.getCollectionNamesList());
+                    return Flux.fromIterable(names)
+                            .flatMap(name -> reactiveMilvusClient.run(Operation.ADMIN, name,
+                                            client -> readEntry(client, name))
+                                    .doOnNext(entry -> entries.put(name, entry))
+                                    .onErrorResume(e -> {
+                                        log.warn("Failed to read collection {} into the catalog: {}", name,
+                                                e.getMessage());
+                                        return Mono.empty();
+                                    }))
+                            .then(Mono.fromRunnable(() -> entries.keySet().retainAll(names)));
+                })
+                .doOnSuccess(ignored -> {
+                    initialized.set(true);
+                    lastRefresh = Instant.now();
+                    refreshes.increment();
+                    log.debug("Milvus catalog refreshed: {} collections", entries.size());
+                })
+                .doOnError(e -> refreshFailures.increment())
+                .then();
+    }
+
+    /**
+     * Loads the configured and the most searched collections that are not loaded yet, and
+     * halves the search counts so hotness follows recent traffic.
+     */
+    private Mono<Void> preloadHotCollections() {
+        Set<String> hot = new LinkedHashSet<>(preloadCollections);
+        searchCounts.entrySet().stream()
+                .filter(entry -> entry.getValue().get() > 0)
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<String, AtomicLong> entry) -> entry.getValue().get()).reversed())
+                .limit(preloadHotCount)
+                .forEach(entry -> hot.add(entry.getKey()));
+        searchCounts.values().forEach(count -> count.getAndUpdate(value -> value / 2));
+
+        return Flux.fromIterable(hot)
+                .filter(name -> {
+                    Entry entry = entries.get(name);
+                    return entry != null && entry.loadState() != LoadState.LOADED;
+                })
+                .flatMap(name -> reactiveMilvusClient.run(Operation.ADMIN, name, client -> {
+                    log.info("Preloading collection {}", name);
+                    ensureLoaded(client, name);
+                    return name;
+                }).onErrorResume(e -> {
+                    log.warn("Failed to preload collection {}: {}", name, e.getMessage());
+                    return Mono.empty();
+                }))
+                .then();
+    }
+
+    private Entry readEntry(MilvusServiceClient client, String collectionName) {
+        R<DescribeCollectionResponse> response = client.describeCollection(DescribeCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build());
+        if (response.getStatus() != 0 || response.getData() == null) {
+            throw new IllegalStateException("Failed to describe collection " + collectionName + ": "
+                    + response.getMessage());
+        }
+        return toEntry(collectionName, response.getData(), fetchLoadState(client, collectionName),
+                fetchRowCount(client, collectionName));
+    }
+
+    private static Entry toEntry(String collectionName, DescribeCollectionResponse description, LoadState loadState,
+            long rowCount) {
+        String teamId = null;
+        String collectionType = null;
+        for (KeyValuePair property : description.getPropertiesList()) {
+            if ("teamId".equals(property.getKey())) {
+                teamId = property.getValue();
+            } else if ("collectionType".equals(property.getKey())) {
+                collectionType = property.getValue();
+            }
+        }
+        return new Entry(collectionName, description, teamId, collectionType, loadState, rowCount, Instant.now());
+    }
+
+    private LoadState fetchLoadState(MilvusServiceClient client, String collectionName) {
+        try {
+            R<GetLoadStateResponse> response = client.getLoadState(GetLoadStateParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .build());
+            if (response.getStatus() != 0 || response.getData() == null) {
+                return LoadState.UNKNOWN;
+            }
+            return switch (response.getData().getState()) {
+                case LoadStateLoaded -> LoadState.LOADED;
+                case LoadStateLoading -> LoadState.LOADING;
+                case LoadStateNotLoad -> LoadState.NOT_LOADED;
+                default -> LoadState.UNKNOWN;
+            };
+        } catch (Exception e) {
+            log.warn("Unable to fetch load state for collection {}: {}", collectionName, e.getMessage());
+            return LoadState.UNKNOWN;
+        }
+    }
+
+    /**
+     * Row count from the collection statistics, read from Milvus rather than the catalog.
+     *
+     * @return the row count, or -1 if it cannot be read
+     */
+    public long fetchRowCount(MilvusServiceClient client, String collectionName) {
+        try {
+            R<GetCollectionStatisticsResponse> statsResponse = client.getCollectionStatistics(
+                    GetCollectionStatisticsParam.newBuilder()
+                            .withCollectionName(collectionName)
+                            .build());
+            if (statsResponse.getData() != null) {
+                for (KeyValuePair stat : statsResponse.getData().getStatsList()) {
+                    if ("row_count".equals(stat.getKey())) {
+                        return Long.parseLong(stat.getValue());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to fetch row count for collection {}: {}", collectionName, e.getMessage());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,101 @@
+package org.lite.gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.dto.MilvusBulkInsertResult;
+import org.lite.gateway.dto.MilvusInsertRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates embedded chunk rows and writes them to Milvus in bulk.
+ *
+ * Rows are grouped until {@code max-rows} rows or {@code max-bytes} estimated bytes have
+ * been collected, whichever comes first; the remainder is flushed when the source completes.
+ * While one group is being inserted the next keeps filling, so embedding and inserting overlap.
+ */
+@Service
+@Slf4j
+public class MilvusWriteBehindBuffer {
+
+    private final LinqMilvusStoreService milvusStoreService;
+    private final int maxRows;
+    private final long maxBytes;
+
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+
+    public MilvusWriteBehindBuffer(
+            LinqMilvusStoreService milvusStoreService,
+            @Value("${linqra.milvus.write-behind.max-rows:256}") int maxRows,
+            @Value("${linqra.milvus.write-behind.max-bytes:4194304}") long maxBytes) {
+        this.milvusStoreService = milvusStoreService;
+        this.maxRows = Math.max(1, maxRows);
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    /**
+     * Writes {@code rows} to the collection, one bulk insert per flushed group.
+     *
+     * @return one result per flush, in order; row indexes in each result refer to that flush
+     */
+    public Flux<MilvusBulkInsertResult> write(String collectionName, Flux<MilvusInsertRow> rows, String textField,
+            String teamId) {
+        return batches(rows)
+                .concatMap(batch -> milvusStoreService.storeRecords(collectionName, batch, textField, teamId)
+                        .doOnNext(result -> {
+                            flushes.increment();
+                            rowsWritten.add(result.getInsertedCount());
+                            failedRows.add(result.getFailures() == null ? 0 : result.getFailures().size());
+                        }), 1);
+    }
+
+    /**
+     * Groups rows by the row-count and byte-size limits.
+     */
+    public Flux<List<MilvusInsertRow>> batches(Flux<MilvusInsertRow> rows) {
+        return Flux.defer(() -> {
+            // Per-subscription counters; bufferUntil calls the predicate serially
+            long[] pendingBytes = {0};
+            int[] pendingRows = {0};
+            return rows.bufferUntil(row -> {
+                pendingBytes[0] += estimateBytes(row);
+                pendingRows[0]++;
+                if (pendingRows[0] >= maxRows || pendingBytes[0] >= maxBytes) {
+                    pendingBytes[0] = 0;
+                    pendingRows[0] = 0;
+                    return true;
+                }
+                return false;
+            });
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rowsWritten", rowsWritten.sum());
+        stats.put("failedRows", failedRows.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("maxRows", maxRows);
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    static long estimateBytes(MilvusInsertRow row) {
+        long bytes = row.getEmbedding() == null ? 0 : 4L * row.getEmbedding().size();
+        if (row.getRecord() != null) {
+            for (Map.Entry<String, Object> entry : row.getRecord().entrySet()) {
+                bytes += entry.getKey().length();
+                Object value = entry.getValue();
+                bytes += value instanceof CharSequence text ? text.length() : 8;
+            }
+        }
+        return bytes;
+    }
+}
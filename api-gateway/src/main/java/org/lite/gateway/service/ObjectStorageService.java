@@ -45,6 +45,18 @@ public interface ObjectStorageService {
     Mono<Void> uploadFileBytes(String bucketName, String key, byte[] fileBytes, String contentType,
             String encryptionKeyVersion);
 
+    /**
+     * Upload file content as it is produced, without joining it in memory
+     * 
+     * @param key                  Key for the file
+     * @param content              File content, exactly {@code contentLength} bytes
+     * @param contentType          Content type of the file
+     * @param contentLength        Size of the content in bytes
+     * @param encryptionKeyVersion Optional encryption key version, stored in metadata
+     */
+    Mono<Void> uploadFileStream(String key, Flux<DataBuffer> content, String contentType, long contentLength,
+            String encryptionKeyVersion);
+
     /**
      * Download file - Reactive version
      * Note: This is a placeholder implementation. For actual file download, use
@@ -57,11 +69,37 @@ public interface ObjectStorageService {
      */
     Mono<byte[]> downloadFileContent(String key);
 
+    /**
+     * Download file content from a specific bucket as byte array
+     */
+    Mono<byte[]> downloadFileContent(String bucketName, String key);
+
+    /**
+     * Download file content as it arrives, without joining it in memory
+     */
+    Flux<DataBuffer> downloadFileStream(String key);
+
+    /**
+     * Download the bytes from {@code start} to {@code endInclusive} of a file
+     */
+    Flux<DataBuffer> downloadFileRange(String key, long start, long endInclusive);
+
+    /**
+     * Download the bytes from {@code start} to {@code endInclusive} of a file in a specific bucket
+     */
+    Flux<DataBuffer> downloadFileRange(String bucketName, String key, long start, long endInclusive);
+
     /**
      * Check if file exists
      */
     Mono<Boolean> fileExists(String key);
 
+    /**
+     * Check if file exists in a specific bucket; errors other than a missing file are
+     * propagated rather than reported as {@code false}
+     */
+    Mono<Boolean> fileExists(String bucketName, String key);
+
     /**
      * Delete file
      */
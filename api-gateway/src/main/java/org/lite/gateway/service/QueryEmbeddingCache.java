@@ -0,0 +1,123 @@
+package org.lite.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.model.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches query embeddings for Milvus search paths.
+ *
+ * Repeated questions from chat users and agent tasks are answered from a bounded
+ * in-process cache of decoded vectors, keyed by model, dimension and normalized query text,
+ * which falls back to the shared {@link EmbeddingCache} before calling the provider. Keys use
+ * the same dimension as the chunk embeddings of the collection, so a query whose text equals
+ * an embedded chunk reuses that vector. Concurrent
+ * identical queries that miss locally wait on one lookup, so at most one provider call is
+ * made per query. Search latency is recorded separately for queries whose embedding was
+ * served from cache and those that needed a provider call.
+ */
+@Service
+@Slf4j
+public class QueryEmbeddingCache {
+
+    private final EmbeddingCache embeddingCache;
+    private final Cache<String, List<Float>> local;
+    private final Map<String, Mono<QueryEmbedding>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LatencyHistogram hitSearchLatency = new LatencyHistogram();
+    private final LatencyHistogram missSearchLatency = new LatencyHistogram();
+
+    /**
+     * @param cacheHit whether the vector came from a cache rather than a provider call
+     */
+    public record QueryEmbedding(List<Float> embedding, boolean cacheHit) {
+    }
+
+    public QueryEmbeddingCache(
+            EmbeddingCache embeddingCache,
+            @Value("${linqra.search.query-embedding.max-entries:10000}") long maxEntries,
+            @Value("${linqra.search.query-embedding.ttl-minutes:60}") long ttlMinutes) {
+        this.embeddingCache = embeddingCache;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxEntries))
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1, ttlMinutes)))
+                .build();
+    }
+
+    /**
+     * Returns the embedding of {@code query} for the model, calling {@code compute} only when
+     * neither this cache nor the shared embedding cache holds it.
+     *
+     * @param dimension vector dimension of the searched collection, or null when unknown
+     */
+    public Mono<QueryEmbedding> embed(String query, String modelCategory, String modelName, Integer dimension,
+            Supplier<Mono<List<Float>>> compute) {
+        return Mono.defer(() -> {
+            String key = EmbeddingCache.cacheKey(modelCategory, modelName, dimension, query);
+            List<Float> cached = local.getIfPresent(key);
+            if (cached != null) {
+                localHits.increment();
+                return Mono.just(new QueryEmbedding(cached, true));
+            }
+            return inFlight.computeIfAbsent(key, k -> load(k, query, modelCategory, modelName, dimension, compute)
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache());
+        });
+    }
+
+    private Mono<QueryEmbedding> load(String key, String query, String modelCategory, String modelName,
+            Integer dimension, Supplier<Mono<List<Float>>> compute) {
+        AtomicBoolean computed = new AtomicBoolean();
+        return embeddingCache.getOrCompute(modelCategory, modelName, dimension, query, () -> {
+            computed.set(true);
+            return compute.get();
+        })
+                .map(embedding -> {
+                    local.put(key, List.copyOf(embedding));
+                    if (computed.get()) {
+                        misses.increment();
+                    } else {
+                        sharedHits.increment();
+                    }
+                    return new QueryEmbedding(embedding, !computed.get());
+                });
+    }
+
+    public void recordSearchLatency(boolean cacheHit, long millis) {
+        (cacheHit ? hitSearchLatency : missSearchLatency).record(millis);
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = localHits.sum() + sharedHits.sum();
+        long lookups = hits + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.sum());
+        stats.put("sharedHits", sharedHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("entries", local.estimatedSize());
+        stats.put("searchHitCount", hitSearchLatency.totalCount());
+        stats.put("searchHitP50Ms", hitSearchLatency.valueAtPercentile(50));
+        stats.put("searchHitP99Ms", hitSearchLatency.valueAtPercentile(99));
+        stats.put("searchMissCount", missSearchLatency.totalCount());
+        stats.put("searchMissP50Ms", missSearchLatency.valueAtPercentile(50));
+        stats.put("searchMissP99Ms", missSearchLatency.valueAtPercentile(99));
+        return stats;
+    }
+}
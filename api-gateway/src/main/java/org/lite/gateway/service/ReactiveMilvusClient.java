@@ -0,0 +1,309 @@
+package org.lite.gateway.service;
+
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.param.R;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.model.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking Milvus SDK calls off the event loop.
+ *
+ * Every call executes on a dedicated bounded-elastic scheduler, never on the subscriber's
+ * thread. Calls are grouped into lanes by collection and {@link Operation}; each lane lets
+ * at most {@code max-concurrency.<operation>} calls run at once and queues the rest in
+ * arrival order, so a burst of searches on one collection cannot starve writes or other
+ * collections. Each operation type has its own timeout. Queue depth, in-flight calls and
+ * per-operation latency are exposed through {@link #getStats()}. A call that times out
+ * keeps its lane slot until the blocking SDK call actually returns; such calls are reported
+ * as {@code abandoned}.
+ *
+ * Responses are returned as the SDK's {@link R} so callers keep their own status handling;
+ * exceptions thrown by the SDK and timeouts are signalled as errors.
+ */
+@Service
+@Slf4j
+public class ReactiveMilvusClient {
+
+    public enum Operation {
+        SEARCH, QUERY, WRITE, ADMIN
+    }
+
+    // Lane key for calls that are not about a single collection (e.g. showCollections)
+    public static final String ALL_COLLECTIONS = "*";
+
+    private final MilvusServiceClient milvusClient;
+    private final Scheduler scheduler;
+    private final boolean ownsScheduler;
+    private final Map<Operation, Integer> maxConcurrency = new EnumMap<>(Operation.class);
+    private final Map<Operation, Duration> timeouts = new EnumMap<>(Operation.class);
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Calls that timed out or were cancelled while the SDK call is still running
+    private final AtomicInteger abandoned = new AtomicInteger();
+    private final Map<Operation, LatencyHistogram> latency = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> timeoutCount = new EnumMap<>(Operation.class);
+
+    public ReactiveMilvusClient(
+            MilvusServiceClient milvusClient,
+            @Value("${linqra.milvus.client.threads:32}") int threads,
+            @Value("${linqra.milvus.client.queue-size:10000}") int queueSize,
+            @Value("${linqra.milvus.client.max-concurrency.search:16}") int searchConcurrency,
+            @Value("${linqra.milvus.client.max-concurrency.query:16}") int queryConcurrency,
+            @Value("${linqra.milvus.client.max-concurrency.write:4}") int writeConcurrency,
+            @Value("${linqra.milvus.client.max-concurrency.admin:4}") int adminConcurrency,
+            @Value("${linqra.milvus.client.timeout-ms.search:10000}") long searchTimeoutMs,
+            @Value("${linqra.milvus.client.timeout-ms.query:10000}") long queryTimeoutMs,
+            @Value("${linqra.milvus.client.timeout-ms.write:30000}") long writeTimeoutMs,
+            @Value("${linqra.milvus.client.timeout-ms.admin:60000}") long adminTimeoutMs) {
+        this(milvusClient, Schedulers.newBoundedElastic(Math.max(1, threads), Math.max(1, queueSize), "milvus"),
+                true,
+                Map.of(Operation.SEARCH, searchConcurrency, Operation.QUERY, queryConcurrency,
+                        Operation.WRITE, writeConcurrency, Operation.ADMIN, adminConcurrency),
+                Map.of(Operation.SEARCH, Duration.ofMillis(searchTimeoutMs),
+                        Operation.QUERY, Duration.ofMillis(queryTimeoutMs),
+                        Operation.WRITE, Duration.ofMillis(writeTimeoutMs),
+                        Operation.ADMIN, Duration.ofMillis(adminTimeoutMs)));
+    }
+
+    ReactiveMilvusClient(MilvusServiceClient milvusClient, Scheduler scheduler, boolean ownsScheduler,
+            Map<Operation, Integer> maxConcurrency, Map<Operation, Duration> timeouts) {
+        this.milvusClient = milvusClient;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+        for (Operation operation : Operation.values()) {
+            this.maxConcurrency.put(operation, Math.max(1, maxConcurrency.getOrDefault(operation, 4)));
+            this.timeouts.put(operation, timeouts.getOrDefault(operation, Duration.ofSeconds(30)));
+            this.latency.put(operation, new LatencyHistogram());
+            this.failures.put(operation, new LongAdder());
+            this.timeoutCount.put(operation, new LongAdder());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownsScheduler) {
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Runs one SDK call on the Milvus scheduler.
+     *
+     * @param operation      lane and timeout class of the call
+     * @param collectionName collection the call targets, or {@link #ALL_COLLECTIONS}
+     * @return the SDK response; errors if the call throws or exceeds the operation timeout
+     */
+    public <T> Mono<R<T>> execute(Operation operation, String collectionName,
+            Function<MilvusServiceClient, R<T>> call) {
+        return run(operation, collectionName, call);
+    }
+
+    /**
+     * Runs a unit of blocking work that makes one or more SDK calls on the Milvus scheduler,
+     * under the lane, timeout and metrics of {@code operation}. Completes empty if
+     * {@code work} returns {@code null}.
+     */
+    public <T> Mono<T> run(Operation operation, String collectionName, Function<MilvusServiceClient, T> work) {
+        return Mono.create(sink -> {
+            Lane lane = lanes.computeIfAbsent(operation + "|" + collectionName,
+                    key -> new Lane(maxConcurrency.get(operation)));
+            AtomicReference<Disposable> running = new AtomicReference<>();
+            Runnable start = () -> {
+                queued.decrementAndGet();
+                inFlight.incrementAndGet();
+                long startNanos = System.nanoTime();
+                Call call = new Call(() -> {
+                    inFlight.decrementAndGet();
+                    lane.release();
+                });
+                // Bookkeeping runs before the result is emitted so callers see settled metrics
+                AtomicBoolean finished = new AtomicBoolean();
+                Runnable finish = () -> {
+                    if (finished.compareAndSet(false, true)) {
+                        latency.get(operation).record((System.nanoTime() - startNanos) / 1_000_000);
+                        call.abandon();
+                    }
+                };
+                running.set(Mono.fromCallable(() -> call.run(() -> work.apply(milvusClient)))
+                        .subscribeOn(scheduler)
+                        .timeout(timeouts.get(operation), Schedulers.parallel())
+                        .doOnCancel(finish)
+                        .subscribe(value -> {
+                            finish.run();
+                            sink.success(value);
+                        }, error -> {
+                            finish.run();
+                            failures.get(operation).increment();
+                            if (error instanceof TimeoutException) {
+                                timeoutCount.get(operation).increment();
+                                log.warn("Milvus {} on collection {} timed out after {}", operation,
+                                        collectionName, timeouts.get(operation));
+                            }
+                            sink.error(error);
+                        }, () -> {
+                            finish.run();
+                            sink.success();
+                        }));
+            };
+            queued.incrementAndGet();
+            // MonoSink accepts a single cancel callback; it covers both the queued and running states
+            sink.onCancel(() -> {
+                if (lane.remove(start)) {
+                    queued.decrementAndGet();
+                    return;
+                }
+                Disposable runningCall = running.get();
+                if (runningCall != null) {
+                    runningCall.dispose();
+                }
+            });
+            lane.submit(start);
+        });
+    }
+
+    /**
+     * Like {@link #execute} but treats a non-zero status as an error carrying the SDK message,
+     * for callers that only need the response data.
+     */
+    public <T> Mono<T> executeForData(Operation operation, String collectionName,
+            Function<MilvusServiceClient, R<T>> call) {
+        return execute(operation, collectionName, call)
+                .flatMap(response -> {
+                    if (response.getStatus() != 0) {
+                        return Mono.error(new IllegalStateException("Milvus " + operation.name().toLowerCase()
+                                + " on " + collectionName + " failed: " + response.getMessage()));
+                    }
+                    return Mono.justOrEmpty(response.getData());
+                });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queued.get());
+        stats.put("inFlight", inFlight.get());
+        stats.put("abandoned", abandoned.get());
+        stats.put("lanes", lanes.size());
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latency.get(operation);
+            Map<String, Object> operationStats = new LinkedHashMap<>();
+            operationStats.put("calls", histogram.totalCount());
+            operationStats.put("failures", failures.get(operation).sum());
+            operationStats.put("timeouts", timeoutCount.get(operation).sum());
+            operationStats.put("p50Ms", histogram.valueAtPercentile(50));
+            operationStats.put("p99Ms", histogram.valueAtPercentile(99));
+            operationStats.put("maxConcurrency", maxConcurrency.get(operation));
+            stats.put(operation.name().toLowerCase(), operationStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Holds a lane slot from the moment a call is started until the SDK call returns. A call
+     * that times out or is cancelled before it reaches the scheduler gives its slot back
+     * straight away; one that is already inside the SDK keeps it, and counts as abandoned,
+     * until the SDK returns, so timeouts never let more calls into Milvus than the lane allows.
+     */
+    private final class Call {
+
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int RETURNED = 2;
+        private static final int ABANDONED = 3;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final Runnable releaseSlot;
+
+        Call(Runnable releaseSlot) {
+            this.releaseSlot = releaseSlot;
+        }
+
+        <T> T run(Supplier<T> work) {
+            if (!state.compareAndSet(PENDING, RUNNING)) {
+                // Abandoned while waiting for a scheduler thread; the slot is already released
+                return null;
+            }
+            try {
+                return work.get();
+            } finally {
+                if (!state.compareAndSet(RUNNING, RETURNED)) {
+                    abandoned.decrementAndGet();
+                }
+                releaseSlot.run();
+            }
+        }
+
+        void abandon() {
+            if (state.compareAndSet(PENDING, ABANDONED)) {
+                releaseSlot.run();
+            } else if (state.compareAndSet(RUNNING, ABANDONED)) {
+                abandoned.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Concurrency limit for one collection and operation type. Starts waiting calls in
+     * arrival order as running ones finish.
+     */
+    private static final class Lane {
+
+        private final int limit;
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+        Lane(int limit) {
+            this.limit = limit;
+        }
+
+        void submit(Runnable start) {
+            synchronized (this) {
+                if (running >= limit) {
+                    waiting.addLast(start);
+                    return;
+                }
+                running++;
+            }
+            start.run();
+        }
+
+        synchronized boolean remove(Runnable start) {
+            return waiting.remove(start);
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.pollFirst();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            next.run();
+        }
+    }
+}
@@ -6,13 +6,15 @@ import org.lite.gateway.entity.ApiRoute;
 import org.lite.gateway.entity.FilterConfig;
 import org.lite.gateway.filter.RedisRateLimiterFilter;
 import org.lite.gateway.model.RedisRateLimiterRecord;
-import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.lite.gateway.service.impl.ApiKeyCredentialCache;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.gateway.route.builder.GatewayFilterSpec;
-import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
@@ -21,23 +23,31 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 @Slf4j
 public class RedisRateLimiterFilterService implements FilterService {
 
-    private final ApplicationContext applicationContext;
+    private static final String API_KEY_HEADER = "x-api-key";
+    private static final String API_KEY_TEAM_ID = "API_KEY_TEAM_ID";
+
+    private final HierarchicalRateLimiter rateLimiter;
     private final CacheService cacheService;
     private final ObjectMapper objectMapper;
     private final boolean redisEnabled;
+    // Looked up per request like SecurityConfig does, as it sits on the security side of the context
+    private final ObjectProvider<TeamContextService> teamContextService;
 
-    public RedisRateLimiterFilterService(ApplicationContext applicationContext,
+    public RedisRateLimiterFilterService(HierarchicalRateLimiter rateLimiter,
             CacheService cacheService,
             ObjectMapper objectMapper,
-            @Value("${app.redis.enabled:true}") boolean redisEnabled) {
-        this.applicationContext = applicationContext;
+            @Value("${app.redis.enabled:true}") boolean redisEnabled,
+            ObjectProvider<TeamContextService> teamContextService) {
+        this.rateLimiter = rateLimiter;
         this.cacheService = cacheService;
         this.objectMapper = objectMapper;
         this.redisEnabled = redisEnabled;
+        this.teamContextService = teamContextService;
     }
 
     @Override
@@ -58,16 +68,17 @@ public class RedisRateLimiterFilterService implements FilterService {
             if (redisEnabled) {
                 RedisRateLimiterRecord redisRateLimiterRecord = new RedisRateLimiterRecord(
                         apiRoute.getRouteIdentifier(), replenishRate, burstCapacity, requestedTokens);
-                RedisRateLimiter redisRateLimiter = new RedisRateLimiter(replenishRate, burstCapacity, requestedTokens);
-                redisRateLimiter.setApplicationContext(applicationContext);
-
-                gatewayFilterSpec.requestRateLimiter().configure(config -> {
-                    config.setRouteId(apiRoute.getRouteIdentifier());
-                    config.setRateLimiter(redisRateLimiter);
-                    config.setKeyResolver(exchange -> Mono.just(apiRoute.getRouteIdentifier()));
-                    config.setDenyEmptyKey(true);
-                    config.setEmptyKeyStatus(HttpStatus.TOO_MANY_REQUESTS.name());
-                });
+                HierarchicalRateLimiter.RateLimits limits = rateLimits(filter.getArgs(), replenishRate,
+                        burstCapacity, requestedTokens);
+
+                // Route, team and API key buckets; team and key limits default to a share of the route
+                gatewayFilterSpec.filter((exchange, chain) -> teamId(exchange)
+                        .flatMap(teamId -> rateLimiter.check(apiRoute.getRouteIdentifier(), limits,
+                                teamId.orElse(null), apiKeyId(exchange)))
+                        .flatMap(decision -> {
+                            applyRateLimitHeaders(exchange, decision);
+                            return decision.allowed() ? chain.filter(exchange) : tooManyRequestsResponse(exchange);
+                        }));
                 gatewayFilterSpec.filter(new RedisRateLimiterFilter(redisRateLimiterRecord));
             }
         } catch (Exception e) {
@@ -76,8 +87,74 @@ public class RedisRateLimiterFilterService implements FilterService {
         }
     }
 
+    private HierarchicalRateLimiter.RateLimits rateLimits(Map<String, String> args, int replenishRate,
+            int burstCapacity, int requestedTokens) {
+        HierarchicalRateLimiter.RateLimits defaults = rateLimiter.defaultLimits(replenishRate, burstCapacity,
+                requestedTokens);
+        return new HierarchicalRateLimiter.RateLimits(
+                replenishRate,
+                burstCapacity,
+                longArg(args, "teamReplenishRate", defaults.teamRate()),
+                longArg(args, "teamBurstCapacity", defaults.teamBurst()),
+                longArg(args, "apiKeyReplenishRate", defaults.apiKeyRate()),
+                longArg(args, "apiKeyBurstCapacity", defaults.apiKeyBurst()),
+                requestedTokens);
+    }
+
+    private static long longArg(Map<String, String> args, String name, long defaultValue) {
+        String value = args.get(name);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /**
+     * Team of the caller: set by the API key filter for API key callers, otherwise resolved from
+     * the verified JWT (honouring a validated X-Team-ID). Anonymous callers skip the team level.
+     */
+    Mono<Optional<String>> teamId(ServerWebExchange exchange) {
+        String apiKeyTeamId = exchange.getAttribute(API_KEY_TEAM_ID);
+        if (apiKeyTeamId != null) {
+            return Mono.just(Optional.of(apiKeyTeamId));
+        }
+        return exchange.getPrincipal()
+                .filter(principal -> !(principal instanceof AnonymousAuthenticationToken))
+                .flatMap(principal -> teamContextService.getObject().getTeamFromContext(exchange))
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.debug("No team for rate limiting {}: {}", exchange.getRequest().getPath(), e.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private static String apiKeyId(ServerWebExchange exchange) {
+        String apiKey = exchange.getRequest().getHeaders().getFirst(API_KEY_HEADER);
+        // Only the digest is used so raw keys never end up in Redis keys or stats
+        return apiKey == null || apiKey.isBlank() ? null : ApiKeyCredentialCache.hash(apiKey);
+    }
+
+    private static void applyRateLimitHeaders(ServerWebExchange exchange,
+            HierarchicalRateLimiter.RateLimitDecision decision) {
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.set("X-RateLimit-Limit", String.valueOf(decision.limit()));
+        headers.set("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+        headers.set("X-RateLimit-Scope", decision.scope());
+        if (!decision.allowed()) {
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+        }
+    }
+
     private Mono<Boolean> handleDailyLimit(ApiRoute apiRoute, int maxCallsPerDay, ServerWebExchange exchange) {
         String dailyCallsKey = "dailyCalls:" + apiRoute.getPath(); // Use path or other identifier
+        if (redisEnabled) {
+            // Leased from a shared counter so most calls are counted without a Redis round trip
+            return rateLimiter.checkDaily(dailyCallsKey, maxCallsPerDay)
+                    .map(decision -> {
+                        if (!decision.allowed()) {
+                            applyRateLimitHeaders(exchange, decision);
+                        }
+                        return decision.allowed();
+                    });
+        }
         return cacheService.increment(dailyCallsKey)
                 .flatMap(currentCount -> {
                     if (currentCount == 1) {
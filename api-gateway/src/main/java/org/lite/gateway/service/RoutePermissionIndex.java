@@ -0,0 +1,329 @@
+package org.lite.gateway.service;
+
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.lite.gateway.entity.ApiRoute;
+import org.lite.gateway.entity.RoutePermission;
+import org.lite.gateway.entity.TeamRoute;
+import org.lite.gateway.repository.ApiRouteRepository;
+import org.lite.gateway.repository.TeamRouteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Per-pod, immutable snapshot of routes and team-route grants used by route authorization.
+ *
+ * The snapshot is loaded in full on startup, on every {@link RefreshRoutesEvent} and on a
+ * slow safety interval, and kept current in between from Mongo change streams on
+ * {@code apiRoutes} and {@code team_routes}. Each change publishes a new snapshot with a
+ * higher version, so a permission check is two hash lookups against whatever snapshot is
+ * current and never touches Redis or Mongo. Until the first load completes
+ * {@link #isReady()} is false and callers should use their own lookup.
+ */
+@Service
+@Slf4j
+public class RoutePermissionIndex {
+
+    private final ApiRouteRepository apiRouteRepository;
+    private final TeamRouteRepository teamRouteRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final long refreshIntervalMs;
+    private final boolean changeStreamsEnabled;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private final AtomicBoolean reloadInFlight = new AtomicBoolean();
+    private final AtomicBoolean changeStreamActive = new AtomicBoolean();
+    private final AtomicLong fullReloads = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private final Object writeLock = new Object();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    // Changes seen while a full reload is reading Mongo; replayed on top of its result
+    private List<Consumer<MutableSnapshot>> pendingDuringReload;
+
+    public RoutePermissionIndex(
+            ApiRouteRepository apiRouteRepository,
+            TeamRouteRepository teamRouteRepository,
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            @Value("${linqra.route-permissions.refresh-interval-ms:300000}") long refreshIntervalMs,
+            @Value("${linqra.route-permissions.change-streams.enabled:true}") boolean changeStreamsEnabled) {
+        this.apiRouteRepository = apiRouteRepository;
+        this.teamRouteRepository = teamRouteRepository;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.refreshIntervalMs = Math.max(1000, refreshIntervalMs);
+        this.changeStreamsEnabled = changeStreamsEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (changeStreamsEnabled) {
+            watchRoutes();
+            watchGrants();
+        }
+        reload().subscribe();
+        subscriptions.add(Flux.interval(Duration.ofMillis(refreshIntervalMs), Duration.ofMillis(refreshIntervalMs))
+                .onBackpressureDrop()
+                .concatMap(tick -> reload())
+                .subscribe());
+    }
+
+    @EventListener(RefreshRoutesEvent.class)
+    public void onRefreshRoutes() {
+        reload().subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.dispose();
+    }
+
+    public boolean isReady() {
+        return current.get().version() > 0;
+    }
+
+    public Optional<ApiRoute> findRoute(String routeIdentifier) {
+        return Optional.ofNullable(current.get().routesByIdentifier().get(routeIdentifier));
+    }
+
+    public boolean hasPermission(String teamId, String routeId, RoutePermission permission) {
+        Set<RoutePermission> granted = current.get().grants().get(new GrantKey(teamId, routeId));
+        return granted != null && granted.contains(permission);
+    }
+
+    public long version() {
+        return current.get().version();
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot snapshot = current.get();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("version", snapshot.version());
+        result.put("ageMs", snapshot.builtAt() == null ? -1 : Duration.between(snapshot.builtAt(), Instant.now()).toMillis());
+        result.put("routes", snapshot.routesByIdentifier().size());
+        result.put("grants", snapshot.grants().size());
+        result.put("fullReloads", fullReloads.get());
+        result.put("incrementalUpdates", incrementalUpdates.get());
+        result.put("changeStreamActive", changeStreamActive.get());
+        return result;
+    }
+
+    /**
+     * Reads every route and grant and publishes them as a new snapshot. Overlapping calls
+     * are collapsed into the one already running.
+     */
+    Mono<Void> reload() {
+        return Mono.defer(() -> {
+            if (!reloadInFlight.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            synchronized (writeLock) {
+                pendingDuringReload = new ArrayList<>();
+            }
+            return loadAndPublish();
+        });
+    }
+
+    private Mono<Void> loadAndPublish() {
+        return Mono.zip(apiRouteRepository.findAll().collectList(), teamRouteRepository.findAll().collectList())
+                .doOnNext(loaded -> {
+                    MutableSnapshot snapshot = new MutableSnapshot(Snapshot.EMPTY);
+                    loaded.getT1().forEach(snapshot::putRoute);
+                    loaded.getT2().forEach(snapshot::putGrant);
+                    synchronized (writeLock) {
+                        pendingDuringReload.forEach(change -> change.accept(snapshot));
+                        publish(snapshot);
+                    }
+                    fullReloads.incrementAndGet();
+                    log.debug("Route permission index reloaded: {} routes, {} grants",
+                            loaded.getT1().size(), loaded.getT2().size());
+                })
+                .onErrorResume(e -> {
+                    log.warn("Failed to reload route permission index: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    synchronized (writeLock) {
+                        pendingDuringReload = null;
+                    }
+                    reloadInFlight.set(false);
+                })
+                .then();
+    }
+
+    /**
+     * Applies one change on top of the current snapshot and publishes the result.
+     */
+    void apply(Consumer<MutableSnapshot> change) {
+        synchronized (writeLock) {
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(change);
+            }
+            MutableSnapshot snapshot = new MutableSnapshot(current.get());
+            change.accept(snapshot);
+            publish(snapshot);
+        }
+        incrementalUpdates.incrementAndGet();
+    }
+
+    private void publish(MutableSnapshot snapshot) {
+        Snapshot previous = current.get();
+        current.set(snapshot.freeze(previous.version() + 1));
+    }
+
+    private void watchRoutes() {
+        subscriptions.add(watch(ApiRoute.class, "apiRoutes", event -> {
+            ApiRoute route = event.getBody();
+            String id = documentId(event);
+            if (route != null) {
+                apply(snapshot -> snapshot.putRoute(route));
+            } else if (id != null && isDelete(event)) {
+                apply(snapshot -> snapshot.removeRoute(id));
+            }
+        }));
+    }
+
+    private void watchGrants() {
+        subscriptions.add(watch(TeamRoute.class, "team_routes", event -> {
+            TeamRoute grant = event.getBody();
+            String id = documentId(event);
+            if (grant != null) {
+                apply(snapshot -> snapshot.putGrant(grant));
+            } else if (id != null && isDelete(event)) {
+                apply(snapshot -> snapshot.removeGrant(id));
+            }
+        }));
+    }
+
+    private <T> Disposable watch(Class<T> type, String collection, Consumer<ChangeStreamEvent<T>> handler) {
+        return reactiveMongoTemplate.changeStream(type)
+                .withOptions(options -> options.fullDocumentLookup(FullDocument.UPDATE_LOOKUP))
+                .watchCollection(collection)
+                .listen()
+                .doOnSubscribe(subscription -> changeStreamActive.set(true))
+                .doOnNext(handler)
+                .doOnError(e -> {
+                    changeStreamActive.set(false);
+                    log.warn("Change stream on {} failed, relying on periodic reload: {}", collection, e.getMessage());
+                })
+                // Reload after reconnecting so changes missed while disconnected are picked up
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doAfterRetry(signal -> reload().subscribe()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    private static boolean isDelete(ChangeStreamEvent<?> event) {
+        return event.getOperationType() == OperationType.DELETE;
+    }
+
+    private static String documentId(ChangeStreamEvent<?> event) {
+        if (event.getRaw() == null || event.getRaw().getDocumentKey() == null) {
+            return null;
+        }
+        BsonValue id = event.getRaw().getDocumentKey().get("_id");
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.isString() ? id.asString().getValue() : null;
+    }
+
+    private record GrantKey(String teamId, String routeId) {
+    }
+
+    private record Snapshot(long version, Instant builtAt,
+                            Map<String, ApiRoute> routesByIdentifier, Map<String, String> routeIdentifierById,
+                            Map<GrantKey, Set<RoutePermission>> grants, Map<String, GrantKey> grantKeyById) {
+
+        static final Snapshot EMPTY = new Snapshot(0, null, Map.of(), Map.of(), Map.of(), Map.of());
+    }
+
+    /**
+     * Working copy used to build the next snapshot.
+     */
+    static final class MutableSnapshot {
+        private final Map<String, ApiRoute> routesByIdentifier;
+        private final Map<String, String> routeIdentifierById;
+        private final Map<GrantKey, Set<RoutePermission>> grants;
+        private final Map<String, GrantKey> grantKeyById;
+
+        private MutableSnapshot(Snapshot base) {
+            this.routesByIdentifier = new HashMap<>(base.routesByIdentifier());
+            this.routeIdentifierById = new HashMap<>(base.routeIdentifierById());
+            this.grants = new HashMap<>(base.grants());
+            this.grantKeyById = new HashMap<>(base.grantKeyById());
+        }
+
+        void putRoute(ApiRoute route) {
+            if (route.getId() == null || route.getRouteIdentifier() == null) {
+                return;
+            }
+            // Drop the old identifier if the route was renamed
+            String previousIdentifier = routeIdentifierById.put(route.getId(), route.getRouteIdentifier());
+            if (previousIdentifier != null && !previousIdentifier.equals(route.getRouteIdentifier())) {
+                routesByIdentifier.remove(previousIdentifier);
+            }
+            routesByIdentifier.put(route.getRouteIdentifier(), route);
+        }
+
+        void removeRoute(String id) {
+            String identifier = routeIdentifierById.remove(id);
+            if (identifier != null) {
+                routesByIdentifier.remove(identifier);
+            }
+        }
+
+        void putGrant(TeamRoute grant) {
+            if (grant.getId() == null || grant.getTeamId() == null || grant.getRouteId() == null) {
+                return;
+            }
+            GrantKey key = new GrantKey(grant.getTeamId(), grant.getRouteId());
+            GrantKey previousKey = grantKeyById.put(grant.getId(), key);
+            if (previousKey != null && !previousKey.equals(key)) {
+                grants.remove(previousKey);
+            }
+            grants.put(key, grant.getPermissions() == null ? Set.of() : Set.copyOf(grant.getPermissions()));
+        }
+
+        void removeGrant(String id) {
+            GrantKey key = grantKeyById.remove(id);
+            if (key != null) {
+                grants.remove(key);
+            }
+        }
+
+        private Snapshot freeze(long version) {
+            return new Snapshot(version, Instant.now(),
+                    Map.copyOf(routesByIdentifier), Map.copyOf(routeIdentifierById),
+                    Map.copyOf(grants), Map.copyOf(grantKeyById));
+        }
+    }
+}
@@ -7,7 +7,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
 import org.lite.gateway.exception.InvalidAuthenticationException;
@@ -26,8 +25,7 @@ import java.util.Map;
 public class TeamContextService {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final ReactiveJwtDecoder userJwtDecoder;
-    private final ReactiveJwtDecoder keycloakJwtDecoder;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserContextService userContextService;
 
     /**
@@ -105,9 +103,9 @@ public class TeamContextService {
         if (userToken != null) {
             String token = userToken.startsWith("Bearer ") ? userToken.substring(7) : userToken;
             boolean isKeycloakToken = userContextService.isKeycloakToken(token);
-            ReactiveJwtDecoder decoder = isKeycloakToken ? keycloakJwtDecoder : userJwtDecoder;
 
-            return decoder.decode(token)
+            return verifiedTokenCache.verify(exchange, token, isKeycloakToken)
+                    .map(VerifiedTokenCache.VerifiedToken::jwt)
                     .flatMap(jwt -> {
                         // 1. If explicit X-Team-ID header is present, try to validate and use it
                         if (requestedTeamId != null && !requestedTeamId.isBlank()) {
@@ -143,7 +141,7 @@ public class TeamContextService {
         }
 
         // No X-User-Token, fall back to Authorization header
-        log.info("No X-User-Token found, using Authorization header");
+        log.debug("No X-User-Token found, using Authorization header");
         if (requestedTeamId != null && !requestedTeamId.isBlank()) {
             return ReactiveSecurityContextHolder.getContext()
                     .map(SecurityContext::getAuthentication)
@@ -201,27 +199,39 @@ public class TeamContextService {
         if (userToken != null && !userToken.isEmpty()) {
             String token = userToken.startsWith("Bearer ") ? userToken.substring(7) : userToken;
             boolean isKeycloakToken = userContextService.isKeycloakToken(token);
-            ReactiveJwtDecoder decoder = isKeycloakToken ? keycloakJwtDecoder : userJwtDecoder;
 
-            return decoder.decode(token)
-                    .map(jwt -> {
-                        List<String> teams = extractAllTeamsFromJwt(jwt);
-                        if (isSuperAdmin(jwt)) {
-                            log.info("👑 Super Admin detected in token, granting ALL_TEAMS_BYPASS");
-                            if (!teams.contains("ALL_TEAMS_BYPASS")) {
-                                List<String> mutableTeams = new ArrayList<>(teams);
-                                mutableTeams.add("ALL_TEAMS_BYPASS");
-                                return mutableTeams;
-                            }
-                        }
-                        return teams;
-                    })
+            // The team set is derived once per token and kept with the verified token
+            return verifiedTokenCache.verify(exchange, token, isKeycloakToken)
+                    .map(verified -> verified.authorizedTeams(this::resolveAuthorizedTeams))
                     .onErrorResume(e -> getAllTeamsFromSecurityContext());
         }
 
         return getAllTeamsFromSecurityContext();
     }
 
+    /**
+     * All teams a bearer token is authorized for, for callers outside the HTTP security chain
+     * such as STOMP CONNECT frames. Errors if the token does not verify.
+     */
+    public Mono<List<String>> getAuthorizedTeams(String bearerToken) {
+        String token = bearerToken.startsWith("Bearer ") ? bearerToken.substring(7) : bearerToken;
+        return verifiedTokenCache.verify(token, userContextService.isKeycloakToken(token))
+                .map(verified -> verified.authorizedTeams(this::resolveAuthorizedTeams));
+    }
+
+    private List<String> resolveAuthorizedTeams(Jwt jwt) {
+        List<String> teams = extractAllTeamsFromJwt(jwt);
+        if (isSuperAdmin(jwt)) {
+            log.info("👑 Super Admin detected in token, granting ALL_TEAMS_BYPASS");
+            if (!teams.contains("ALL_TEAMS_BYPASS")) {
+                List<String> mutableTeams = new ArrayList<>(teams);
+                mutableTeams.add("ALL_TEAMS_BYPASS");
+                return mutableTeams;
+            }
+        }
+        return teams;
+    }
+
     private Mono<List<String>> getAllTeamsFromSecurityContext() {
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
@@ -7,7 +7,6 @@ import java.util.List;
 
 import org.lite.gateway.exception.InvalidAuthenticationException;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
-import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
@@ -19,8 +18,7 @@ public class UserContextService {
 
     public static final String SYSTEM_USER = "SYSTEM";
 
-    private final ReactiveJwtDecoder userJwtDecoder;
-    private final ReactiveJwtDecoder keycloakJwtDecoder;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     /**
      * Get current user from request headers (for controller endpoints)
@@ -43,9 +41,8 @@ public class UserContextService {
                     boolean isKeycloakToken = isKeycloakToken(token);
                     // log.debug("Token type: {}", isKeycloakToken ? "Keycloak" : "User");
 
-                    ReactiveJwtDecoder decoder = isKeycloakToken ? keycloakJwtDecoder : userJwtDecoder;
-
-                    return decoder.decode(token)
+                    return verifiedTokenCache.verify(exchange, token, isKeycloakToken)
+                            .map(VerifiedTokenCache.VerifiedToken::jwt)
                             .map(jwt -> {
                                 String username = isKeycloakToken ? jwt.getClaimAsString("preferred_username")
                                         : jwt.getClaimAsString("sub");
@@ -82,9 +79,8 @@ public class UserContextService {
                     String token = userToken.startsWith("Bearer ") ? userToken.substring(7) : userToken;
 
                     boolean isKeycloakToken = isKeycloakToken(token);
-                    ReactiveJwtDecoder decoder = isKeycloakToken ? keycloakJwtDecoder : userJwtDecoder;
-
-                    return decoder.decode(token)
+                    return verifiedTokenCache.verify(exchange, token, isKeycloakToken)
+                            .map(VerifiedTokenCache.VerifiedToken::jwt)
                             .map(jwt -> {
                                 java.util.List<String> ids = new java.util.ArrayList<>();
 
@@ -0,0 +1,165 @@
+package org.lite.gateway.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of signature-verified JWTs keyed by a SHA-256 digest of the token.
+ *
+ * A token is verified at most once per pod for as long as it is valid: entries expire at
+ * the token's {@code exp} (capped by {@code max-ttl-ms}), concurrent misses for the same
+ * token share one decode, and failed verifications are never cached. The exchange-aware
+ * overload additionally memoizes the result in the request attributes, so services that
+ * each look at X-User-Token during one request skip even the digest and cache lookup.
+ */
+@Service
+@Slf4j
+public class VerifiedTokenCache {
+
+    private static final String REQUEST_ATTRIBUTE_PREFIX = VerifiedTokenCache.class.getName() + ".";
+
+    private final ReactiveJwtDecoder userJwtDecoder;
+    private final ReactiveJwtDecoder keycloakJwtDecoder;
+    private final AsyncCache<String, VerifiedToken> tokens;
+    private final long maxTtlNanos;
+    private final LongAdder requestMemoHits = new LongAdder();
+
+    public VerifiedTokenCache(
+            ReactiveJwtDecoder userJwtDecoder,
+            ReactiveJwtDecoder keycloakJwtDecoder,
+            @Value("${linqra.auth.token-cache.max-entries:50000}") long maxEntries,
+            @Value("${linqra.auth.token-cache.max-ttl-ms:900000}") long maxTtlMs) {
+        this.userJwtDecoder = userJwtDecoder;
+        this.keycloakJwtDecoder = keycloakJwtDecoder;
+        this.maxTtlNanos = Duration.ofMillis(maxTtlMs).toNanos();
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return ttlFor(token);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return ttlFor(token);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * A verified token plus values derived from it that are worth computing only once.
+     */
+    public static final class VerifiedToken {
+        private final Jwt jwt;
+        private volatile List<String> authorizedTeams;
+
+        VerifiedToken(Jwt jwt) {
+            this.jwt = jwt;
+        }
+
+        public Jwt jwt() {
+            return jwt;
+        }
+
+        /**
+         * Returns the team set derived from this token, computing it on first use.
+         */
+        public List<String> authorizedTeams(Function<Jwt, List<String>> resolver) {
+            List<String> teams = authorizedTeams;
+            if (teams == null) {
+                teams = List.copyOf(resolver.apply(jwt));
+                authorizedTeams = teams;
+            }
+            return teams;
+        }
+    }
+
+    /**
+     * Verifies {@code token} once per request and once per pod per token lifetime.
+     */
+    public Mono<VerifiedToken> verify(ServerWebExchange exchange, String token, boolean keycloakToken) {
+        String attribute = REQUEST_ATTRIBUTE_PREFIX + token.hashCode();
+        Object memoized = exchange.getAttribute(attribute);
+        if (memoized instanceof RequestMemo memo && memo.token().equals(token)) {
+            requestMemoHits.increment();
+            return memo.result();
+        }
+        Mono<VerifiedToken> result = verify(token, keycloakToken).cache(
+                verified -> Duration.ofMillis(Long.MAX_VALUE),
+                error -> Duration.ZERO,
+                () -> Duration.ZERO);
+        exchange.getAttributes().put(attribute, new RequestMemo(token, result));
+        return result;
+    }
+
+    public Mono<VerifiedToken> verify(String token, boolean keycloakToken) {
+        ReactiveJwtDecoder decoder = keycloakToken ? keycloakJwtDecoder : userJwtDecoder;
+        return Mono.fromFuture(() -> tokens.get(digest(token),
+                (key, executor) -> decoder.decode(token).map(VerifiedToken::new).toFuture()));
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = tokens.synchronous().stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("verificationFailures", stats.loadFailureCount());
+        result.put("requestMemoHits", requestMemoHits.sum());
+        result.put("evictions", stats.evictionCount());
+        result.put("entries", tokens.synchronous().estimatedSize());
+        return result;
+    }
+
+    private long ttlFor(VerifiedToken token) {
+        Instant expiresAt = token.jwt().getExpiresAt();
+        if (expiresAt == null) {
+            return maxTtlNanos;
+        }
+        long untilExpiry = Duration.between(Instant.now(), expiresAt).toNanos();
+        return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record RequestMemo(String token, Mono<VerifiedToken> result) {
+    }
+}
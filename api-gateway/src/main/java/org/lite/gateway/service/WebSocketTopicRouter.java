@@ -0,0 +1,308 @@
+package org.lite.gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes STOMP messages to the WebSocket sessions subscribed to them.
+ *
+ * Subscriptions are indexed by destination and team, so a publish only visits the sessions
+ * subscribed to that destination (and to the message's team, or to any team) instead of
+ * every connected session. Each frame is encoded once per distinct subscription id and the
+ * same bytes are wrapped, not copied, for every recipient.
+ *
+ * Sessions may only narrow a subscription to a team they were authenticated for, and the
+ * destinations in {@code team-destinations}, whose messages always carry their team, cannot
+ * be subscribed to without naming one.
+ *
+ * Every session has a bounded outbound queue. A session whose queue overflows is treated
+ * as a slow consumer and closed, so it cannot hold memory or stall other recipients.
+ */
+@Service
+@Slf4j
+public class WebSocketTopicRouter {
+
+    /** Team key for subscriptions that did not name a team; they receive every team's messages. */
+    static final String ANY_TEAM = "*";
+
+    /** Authorized team granted to super admins, who may subscribe to any team. */
+    static final String ALL_TEAMS = "ALL_TEAMS_BYPASS";
+
+    private static final CloseStatus SLOW_CONSUMER = CloseStatus.POLICY_VIOLATION.withReason("Slow consumer");
+
+    private final int outboundQueueSize;
+    private final Set<String> teamDestinations;
+    private final Map<String, SessionOutbound> sessions = new ConcurrentHashMap<>();
+    // destination -> team -> subscriptions
+    private final Map<String, Map<String, Set<Subscription>>> index = new ConcurrentHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder frameEncodes = new LongAdder();
+    private final LongAdder slowConsumerDisconnects = new LongAdder();
+
+    public WebSocketTopicRouter(
+            @Value("${linqra.websocket.outbound-queue-size:256}") int outboundQueueSize,
+            @Value("${linqra.websocket.team-destinations:/topic/execution,/topic/graph-extraction,"
+                    + "/topic/collection-export}") String teamDestinations) {
+        this.outboundQueueSize = Math.max(1, outboundQueueSize);
+        this.teamDestinations = Arrays.stream(teamDestinations.split(","))
+                .map(String::trim)
+                .filter(destination -> !destination.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private record Subscription(SessionOutbound outbound, String destination, String teamKey, String subscriptionId) {
+    }
+
+    /**
+     * Registers a session and returns its outbound stream, which the caller hands to
+     * {@link WebSocketSession#send}. The stream can be subscribed to once.
+     */
+    public Flux<WebSocketMessage> register(WebSocketSession session) {
+        SessionOutbound outbound = new SessionOutbound(session, outboundQueueSize);
+        sessions.put(session.getId(), outbound);
+        return outbound.sink.asFlux()
+                .doOnDiscard(WebSocketMessage.class, WebSocketMessage::release);
+    }
+
+    /**
+     * Records the teams a session's credentials were verified for; a session that never
+     * authenticated has none.
+     */
+    public void authenticate(String sessionId, Collection<String> teams) {
+        SessionOutbound outbound = sessions.get(sessionId);
+        if (outbound != null) {
+            outbound.teams = Set.copyOf(teams);
+        }
+    }
+
+    /**
+     * Subscribes a session to a destination, replacing an earlier subscription to the same
+     * destination.
+     *
+     * @param teamId team whose messages the session wants, or null for all teams
+     * @throws IllegalArgumentException if the destination is team scoped and no team is named
+     * @throws AccessDeniedException if the session is not authenticated for the team
+     */
+    public void subscribe(String sessionId, String destination, String subscriptionId, String teamId) {
+        SessionOutbound outbound = sessions.get(sessionId);
+        if (outbound == null) {
+            return;
+        }
+        if (teamId == null || teamId.isBlank()) {
+            if (teamDestinations.contains(destination)) {
+                throw new IllegalArgumentException("teamId header is required to subscribe to " + destination);
+            }
+        } else if (!outbound.teams.contains(teamId) && !outbound.teams.contains(ALL_TEAMS)) {
+            throw new AccessDeniedException("Not authorized for team " + teamId);
+        }
+        Subscription subscription = new Subscription(outbound, destination,
+                teamId == null || teamId.isBlank() ? ANY_TEAM : teamId, subscriptionId);
+        Subscription previous = outbound.subscriptions.put(destination, subscription);
+        if (previous != null) {
+            unindex(previous);
+        }
+        // Index under the destination's map lock so a concurrent unindex cannot drop the set
+        index.compute(destination, (d, byTeam) -> {
+            Map<String, Set<Subscription>> teams = byTeam != null ? byTeam : new ConcurrentHashMap<>();
+            teams.computeIfAbsent(subscription.teamKey(), t -> ConcurrentHashMap.newKeySet()).add(subscription);
+            return teams;
+        });
+    }
+
+    public void remove(String sessionId) {
+        SessionOutbound outbound = sessions.remove(sessionId);
+        if (outbound == null) {
+            return;
+        }
+        outbound.subscriptions.values().forEach(this::unindex);
+        outbound.subscriptions.clear();
+        outbound.complete();
+    }
+
+    public boolean hasSubscribers(String destination) {
+        Map<String, Set<Subscription>> byTeam = index.get(destination);
+        return byTeam != null && !byTeam.isEmpty();
+    }
+
+    /**
+     * Whether any subscriber of the destination narrowed it to a team. If not, a message's
+     * team does not affect who receives it and callers can skip extracting it.
+     */
+    public boolean isTeamScoped(String destination) {
+        Map<String, Set<Subscription>> byTeam = index.get(destination);
+        return byTeam != null && (byTeam.size() > 1 || !byTeam.containsKey(ANY_TEAM));
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Delivers a JSON payload to the subscribers of a destination.
+     *
+     * @param teamId owning team of the message; null delivers to every subscriber
+     * @return number of sessions the frame was queued for
+     */
+    public int publish(String destination, String teamId, String payload) {
+        Map<String, Set<Subscription>> byTeam = index.get(destination);
+        if (byTeam == null || byTeam.isEmpty()) {
+            return 0;
+        }
+        published.increment();
+        String messageId = UUID.randomUUID().toString();
+        // Clients use a fixed subscription id per destination, so this usually holds one frame
+        Map<String, byte[]> framesBySubscriptionId = new HashMap<>(4);
+        int delivered = 0;
+        if (teamId == null) {
+            for (Set<Subscription> subscriptions : byTeam.values()) {
+                delivered += deliver(subscriptions, messageId, payload, framesBySubscriptionId);
+            }
+        } else {
+            delivered += deliver(byTeam.get(teamId), messageId, payload, framesBySubscriptionId);
+            delivered += deliver(byTeam.get(ANY_TEAM), messageId, payload, framesBySubscriptionId);
+        }
+        return delivered;
+    }
+
+    /**
+     * Queues an already formatted frame for one session, behind any frames routed to it
+     * earlier (used for replaying state on subscribe).
+     */
+    public boolean sendTo(String sessionId, String frame) {
+        SessionOutbound outbound = sessions.get(sessionId);
+        return outbound != null && offer(outbound, frame.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("destinations", index.size());
+        stats.put("published", published.sum());
+        stats.put("deliveries", deliveries.sum());
+        stats.put("frameEncodes", frameEncodes.sum());
+        stats.put("slowConsumerDisconnects", slowConsumerDisconnects.sum());
+        stats.put("outboundQueueSize", outboundQueueSize);
+        return stats;
+    }
+
+    public static String stompFrame(String destination, String subscriptionId, String messageId, String payload) {
+        return String.format(
+                """
+                        MESSAGE
+                        destination:%s
+                        content-type:application/json
+                        subscription:%s
+                        message-id:%s
+
+                        %s
+                        \u0000""",
+                destination,
+                subscriptionId != null ? subscriptionId : "sub-0",
+                messageId,
+                payload);
+    }
+
+    private int deliver(Collection<Subscription> subscriptions, String messageId, String payload,
+            Map<String, byte[]> framesBySubscriptionId) {
+        if (subscriptions == null) {
+            return 0;
+        }
+        int delivered = 0;
+        for (Subscription subscription : subscriptions) {
+            byte[] frame = framesBySubscriptionId.computeIfAbsent(String.valueOf(subscription.subscriptionId()),
+                    id -> {
+                        frameEncodes.increment();
+                        return stompFrame(subscription.destination(), subscription.subscriptionId(), messageId,
+                                payload).getBytes(StandardCharsets.UTF_8);
+                    });
+            if (offer(subscription.outbound(), frame)) {
+                delivered++;
+            }
+        }
+        deliveries.add(delivered);
+        return delivered;
+    }
+
+    private boolean offer(SessionOutbound outbound, byte[] frame) {
+        Sinks.EmitResult result = outbound.offer(frame);
+        // A unicast sink reports a full queue as FAIL_ZERO_SUBSCRIBER until its stream is subscribed
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW || result == Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            slowConsumerDisconnects.increment();
+            log.warn("Closing slow WebSocket session {}: {} outbound frames queued", outbound.session.getId(),
+                    outboundQueueSize);
+            remove(outbound.session.getId());
+            outbound.session.close(SLOW_CONSUMER)
+                    .subscribe(null, error -> log.debug("Error closing slow session {}: {}",
+                            outbound.session.getId(), error.getMessage()));
+        }
+        return result.isSuccess();
+    }
+
+    private void unindex(Subscription subscription) {
+        index.computeIfPresent(subscription.destination(), (destination, byTeam) -> {
+            byTeam.computeIfPresent(subscription.teamKey(), (team, subscriptions) -> {
+                subscriptions.remove(subscription);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+            return byTeam.isEmpty() ? null : byTeam;
+        });
+    }
+
+    /**
+     * Bounded queue in front of one session. Emission is serialized here because publishers
+     * on different threads may target the same session.
+     */
+    private static final class SessionOutbound {
+
+        private final WebSocketSession session;
+        private final Sinks.Many<WebSocketMessage> sink;
+        private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+        private volatile Set<String> teams = Set.of();
+        private boolean completed;
+
+        SessionOutbound(WebSocketSession session, int queueSize) {
+            this.session = session;
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<WebSocketMessage>get(queueSize).get());
+        }
+
+        synchronized Sinks.EmitResult offer(byte[] frame) {
+            if (completed) {
+                return Sinks.EmitResult.FAIL_TERMINATED;
+            }
+            WebSocketMessage message = new WebSocketMessage(WebSocketMessage.Type.TEXT,
+                    session.bufferFactory().wrap(frame));
+            Sinks.EmitResult result = sink.tryEmitNext(message);
+            if (result.isFailure()) {
+                message.release();
+            }
+            return result;
+        }
+
+        synchronized void complete() {
+            completed = true;
+            sink.tryEmitComplete();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package org.lite.gateway.service;
+
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.lite.gateway.entity.AgentTask;
+import org.lite.gateway.repository.AgentTaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of the Milvus collections that agent task workflows call, used to lock
+ * the names of collections a workflow depends on.
+ *
+ * A workflow references a collection when the intent of one of its steps is a collection
+ * endpoint, {@code /api/milvus/collections/<name>[/...]}. Names are matched case-insensitively.
+ * The index is built from all tasks when the application starts and updated from the Mongo
+ * save and delete events of {@link AgentTask}, so a lookup is a map read. Tasks changed by
+ * another gateway instance arrive through a change stream on {@code agent_tasks}, with a
+ * periodic rebuild as a safety net. Until the first build completes every collection counts
+ * as referenced.
+ *
+ * The lower-cased collection names are also stored on each task as
+ * {@code workflowCollections}, set before every save and backfilled by the rebuild, so
+ * changes that break a workflow can check {@link #isReferencedInStore} with an exact match
+ * on an indexed field instead of trusting an index that may lag behind other instances.
+ */
+@Service
+@Slf4j
+public class WorkflowCollectionIndex extends AbstractMongoEventListener<AgentTask> {
+
+    private static final Pattern COLLECTION_INTENT = Pattern.compile(
+            "^/api/milvus/collections/([^/?#]+)(?:[/?#].*)?$", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Collections referenced per task id, and the inverse. Replaced as a whole on change so
+     * readers never see a half-applied update.
+     */
+    private record Snapshot(Map<String, Set<String>> collectionsByTask, Map<String, Set<String>> tasksByCollection) {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of());
+
+        Snapshot with(String taskId, Set<String> collections) {
+            Map<String, Set<String>> byTask = new HashMap<>(collectionsByTask);
+            if (collections.isEmpty()) {
+                byTask.remove(taskId);
+            } else {
+                byTask.put(taskId, collections);
+            }
+            return of(byTask);
+        }
+
+        static Snapshot of(Map<String, Set<String>> byTask) {
+            Map<String, Set<String>> byCollection = new HashMap<>();
+            byTask.forEach((taskId, collections) -> collections.forEach(collection ->
+                    byCollection.computeIfAbsent(collection, key -> new LinkedHashSet<>()).add(taskId)));
+            return new Snapshot(Map.copyOf(byTask), Map.copyOf(byCollection));
+        }
+    }
+
+    private final AgentTaskRepository agentTaskRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final boolean changeStreamsEnabled;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private final AtomicBoolean changeStreamActive = new AtomicBoolean();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder backfilledTasks = new LongAdder();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    private volatile boolean built;
+
+    public WorkflowCollectionIndex(
+            AgentTaskRepository agentTaskRepository,
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            @Value("${linqra.workflow.collection-index.change-streams.enabled:true}") boolean changeStreamsEnabled) {
+        this.agentTaskRepository = agentTaskRepository;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.changeStreamsEnabled = changeStreamsEnabled;
+    }
+
+    /**
+     * @return whether any agent task workflow calls the collection; {@code true} for every
+     *         collection until the index has been built
+     */
+    public boolean isReferenced(String collectionName) {
+        return collectionName != null && (!built
+                || snapshot.get().tasksByCollection().containsKey(collectionName.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Asks Mongo whether any agent task workflow calls the collection, including tasks saved
+     * by other gateway instances that this index has not seen yet.
+     */
+    public Mono<Boolean> isReferencedInStore(String collectionName) {
+        if (collectionName == null) {
+            return Mono.just(false);
+        }
+        return agentTaskRepository.existsByWorkflowCollections(collectionName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return ids of the tasks whose workflow calls the collection
+     */
+    public Set<String> tasksReferencing(String collectionName) {
+        if (collectionName == null) {
+            return Set.of();
+        }
+        return Set.copyOf(snapshot.get().tasksByCollection()
+                .getOrDefault(collectionName.toLowerCase(Locale.ROOT), Set.of()));
+    }
+
+    public void update(AgentTask task) {
+        if (task.getId() == null) {
+            return;
+        }
+        Set<String> collections = referencedCollections(task.getLinqConfig());
+        snapshot.updateAndGet(current -> current.with(task.getId(), collections));
+        updates.increment();
+    }
+
+    public void remove(String taskId) {
+        snapshot.updateAndGet(current -> current.with(taskId, Set.of()));
+        updates.increment();
+    }
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<AgentTask> event) {
+        AgentTask task = event.getSource();
+        task.setWorkflowCollections(List.copyOf(referencedCollections(task.getLinqConfig())));
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<AgentTask> event) {
+        update(event.getSource());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<AgentTask> event) {
+        Document query = event.getSource();
+        Object id = query.get("_id");
+        if (id != null && query.size() == 1 && !(id instanceof Document)) {
+            remove(id.toString());
+        } else {
+            // Deleted by criteria; which tasks went away is unknown, so read them all again
+            rebuild().subscribe(null, e -> log.warn("Workflow collection index rebuild failed: {}", e.getMessage()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (changeStreamsEnabled) {
+            watchTasks();
+        }
+        scheduledRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.dispose();
+    }
+
+    @Scheduled(initialDelayString = "${linqra.workflow.collection-index.rebuild-interval-ms:300000}",
+            fixedDelayString = "${linqra.workflow.collection-index.rebuild-interval-ms:300000}")
+    public void scheduledRebuild() {
+        rebuild().subscribe(null, e -> log.warn("Workflow collection index rebuild failed: {}", e.getMessage()));
+    }
+
+    /**
+     * Replaces the index with one built from every stored task, and stores the referenced
+     * collections on the tasks saved before they were kept on the task.
+     */
+    public Mono<Void> rebuild() {
+        return agentTaskRepository.findAll()
+                .filter(task -> task.getId() != null)
+                .concatMap(task -> {
+                    Set<String> collections = referencedCollections(task.getLinqConfig());
+                    return backfill(task, collections).thenReturn(Map.entry(task.getId(), collections));
+                })
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .doOnNext(byTask -> {
+                    byTask.values().removeIf(Set::isEmpty);
+                    snapshot.set(Snapshot.of(byTask));
+                    built = true;
+                    rebuilds.increment();
+                    log.debug("Workflow collection index rebuilt: {} tasks reference {} collections",
+                            byTask.size(), snapshot.get().tasksByCollection().size());
+                })
+                .then();
+    }
+
+    private Mono<Void> backfill(AgentTask task, Set<String> collections) {
+        List<String> stored = task.getWorkflowCollections();
+        if (stored != null && Set.copyOf(stored).equals(collections)) {
+            return Mono.empty();
+        }
+        // Sets the field alone, so no other change to the task is overwritten
+        return reactiveMongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(task.getId())),
+                        Update.update("workflowCollections", List.copyOf(collections)), AgentTask.class)
+                .doOnNext(result -> backfilledTasks.increment())
+                .onErrorResume(e -> {
+                    log.warn("Failed to store the workflow collections of agent task {}: {}", task.getId(),
+                            e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void watchTasks() {
+        subscriptions.add(reactiveMongoTemplate.changeStream(AgentTask.class)
+                .withOptions(options -> options.fullDocumentLookup(FullDocument.UPDATE_LOOKUP))
+                .watchCollection("agent_tasks")
+                .listen()
+                .doOnSubscribe(subscription -> changeStreamActive.set(true))
+                .doOnNext(this::onChange)
+                .doOnError(e -> {
+                    changeStreamActive.set(false);
+                    log.warn("Change stream on agent_tasks failed, relying on periodic rebuild: {}", e.getMessage());
+                })
+                // Rebuild after reconnecting so changes missed while disconnected are picked up
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doAfterRetry(signal -> scheduledRebuild()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe());
+    }
+
+    void onChange(ChangeStreamEvent<AgentTask> event) {
+        AgentTask task = event.getBody();
+        if (task != null) {
+            update(task);
+        } else if (event.getOperationType() == OperationType.DELETE && event.getRaw() != null
+                && event.getRaw().getDocumentKey() != null) {
+            BsonValue id = event.getRaw().getDocumentKey().get("_id");
+            if (id != null && id.isObjectId()) {
+                remove(id.asObjectId().getValue().toHexString());
+            } else if (id != null && id.isString()) {
+                remove(id.asString().getValue());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("built", built);
+        stats.put("changeStreamActive", changeStreamActive.get());
+        stats.put("referencingTasks", current.collectionsByTask().size());
+        stats.put("referencedCollections", current.tasksByCollection().size());
+        stats.put("updates", updates.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("backfilledTasks", backfilledTasks.sum());
+        return stats;
+    }
+
+    /**
+     * Lower-cased names of the collections called by the intents of a task's workflow steps,
+     * from {@code query.workflow[].intent} and the top-level {@code workflow[].intent}.
+     */
+    static Set<String> referencedCollections(Map<String, Object> linqConfig) {
+        Set<String> collections = new LinkedHashSet<>();
+        if (linqConfig == null) {
+            return collections;
+        }
+        if (linqConfig.get("query") instanceof Map<?, ?> query) {
+            addCollection(collections, query.get("intent"));
+            addStepCollections(collections, query.get("workflow"));
+        }
+        addStepCollections(collections, linqConfig.get("workflow"));
+        return collections;
+    }
+
+    private static void addStepCollections(Set<String> collections, Object workflow) {
+        if (workflow instanceof Collection<?> steps) {
+            for (Object step : steps) {
+                if (step instanceof Map<?, ?> stepMap) {
+                    addCollection(collections, stepMap.get("intent"));
+                }
+            }
+        }
+    }
+
+    private static void addCollection(Set<String> collections, Object intent) {
+        if (intent instanceof String path) {
+            Matcher matcher = COLLECTION_INTENT.matcher(path.trim());
+            if (matcher.matches()) {
+                collections.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+}
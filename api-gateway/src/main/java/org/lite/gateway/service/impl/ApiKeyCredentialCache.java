@@ -0,0 +1,198 @@
+package org.lite.gateway.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.entity.ApiKey;
+import org.lite.gateway.service.CacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-pod cache of already validated API keys, keyed by the SHA-256 of the raw key.
+ *
+ * Entries hold the parsed {@link ApiKey} with its team and expiry resolved, so a hit needs
+ * neither Jackson nor Redis. An entry never outlives the key's own expiry, and keys that
+ * are created, revoked or deleted are dropped on every pod through {@link #REVOCATION_TOPIC}.
+ * Only key hashes are published, never the keys themselves.
+ */
+@Service
+@Slf4j
+public class ApiKeyCredentialCache {
+
+    public static final String REVOCATION_TOPIC = "apiKeyRevocationTopic";
+
+    private final CacheService cacheService;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Cache<String, ValidatedCredential> credentials;
+    private final long maxTtlNanos;
+    private final boolean listenerEnabled;
+
+    // Bumped on every revocation so a validation racing with it cannot re-populate the entry
+    private final AtomicLong revocationGeneration = new AtomicLong();
+    private final LongAdder revocationsSent = new LongAdder();
+    private final LongAdder revocationsReceived = new LongAdder();
+
+    /**
+     * A validated key together with the values the authentication filter needs from it.
+     */
+    public record ValidatedCredential(ApiKey apiKey, String teamId, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return expiresAt != null && !expiresAt.isAfter(now);
+        }
+    }
+
+    public ApiKeyCredentialCache(
+            CacheService cacheService,
+            ReactiveStringRedisTemplate redisTemplate,
+            @Value("${linqra.api-key.credential-cache.max-entries:10000}") long maxEntries,
+            @Value("${linqra.api-key.credential-cache.ttl-ms:60000}") long ttlMs,
+            @Value("${app.redis.listener.enabled:true}") boolean listenerEnabled) {
+        this.cacheService = cacheService;
+        this.redisTemplate = redisTemplate;
+        this.maxTtlNanos = Duration.ofMillis(ttlMs).toNanos();
+        this.listenerEnabled = listenerEnabled;
+        this.credentials = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, ValidatedCredential>() {
+                    @Override
+                    public long expireAfterCreate(String key, ValidatedCredential credential, long currentTime) {
+                        return ttlFor(credential);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, ValidatedCredential credential, long currentTime,
+                            long currentDuration) {
+                        return ttlFor(credential);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, ValidatedCredential credential, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribeToRevocations() {
+        if (!listenerEnabled) {
+            log.info("API key revocation listener disabled; credential cache relies on TTL only");
+            return;
+        }
+        redisTemplate.listenToChannel(REVOCATION_TOPIC)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onRevocation)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(
+                        message -> {
+                        },
+                        error -> log.error("API key revocation subscription terminated: {}", error.getMessage()));
+    }
+
+    /**
+     * @return the cached credential for {@code rawKey}, or null if absent or already expired
+     */
+    public ValidatedCredential get(String rawKey) {
+        String hash = hash(rawKey);
+        ValidatedCredential credential = credentials.getIfPresent(hash);
+        if (credential != null && credential.isExpired(Instant.now())) {
+            credentials.invalidate(hash);
+            return null;
+        }
+        return credential;
+    }
+
+    /**
+     * Generation to pass to {@link #put} so a revocation seen in between wins.
+     */
+    public long currentGeneration() {
+        return revocationGeneration.get();
+    }
+
+    public void put(String rawKey, ApiKey apiKey, long generation) {
+        if (generation != revocationGeneration.get()) {
+            return;
+        }
+        ValidatedCredential credential = new ValidatedCredential(apiKey, apiKey.getTeamId(), apiKey.getExpiresAt());
+        if (!credential.isExpired(Instant.now())) {
+            credentials.put(hash(rawKey), credential);
+        }
+    }
+
+    /**
+     * Drops {@code rawKey} locally and tells every other pod to do the same.
+     */
+    public Mono<Void> revoke(String rawKey) {
+        String hash = hash(rawKey);
+        revokeLocal(hash);
+        revocationsSent.increment();
+        return cacheService.publish(REVOCATION_TOPIC, hash)
+                .onErrorResume(e -> {
+                    log.warn("Failed to publish API key revocation: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    public void onRevocation(String hash) {
+        revokeLocal(hash);
+        revocationsReceived.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = credentials.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("entries", credentials.estimatedSize());
+        result.put("revocationsSent", revocationsSent.sum());
+        result.put("revocationsReceived", revocationsReceived.sum());
+        return result;
+    }
+
+    private void revokeLocal(String hash) {
+        revocationGeneration.incrementAndGet();
+        credentials.invalidate(hash);
+    }
+
+    private long ttlFor(ValidatedCredential credential) {
+        if (credential.expiresAt() == null) {
+            return maxTtlNanos;
+        }
+        long untilExpiry = Duration.between(Instant.now(), credential.expiresAt()).toNanos();
+        return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+    }
+
+    public static String hash(String rawKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
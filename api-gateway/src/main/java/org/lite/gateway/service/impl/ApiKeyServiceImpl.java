@@ -24,6 +24,7 @@ public class ApiKeyServiceImpl implements ApiKeyService {
     private final ApiKeyRepository apiKeyRepository;
     private final CacheService cacheService;
     private final ObjectMapper objectMapper;
+    private final ApiKeyCredentialCache credentialCache;
     private static final String API_KEY_CACHE_PREFIX = "api_key:";
     private static final Duration CACHE_DURATION = Duration.ofMinutes(5);
 
@@ -48,7 +49,8 @@ public class ApiKeyServiceImpl implements ApiKeyService {
                         apiKey.setExpiresAt(Instant.now().plus(expiresInDays, ChronoUnit.DAYS));
                     }
 
-                    return apiKeyRepository.save(apiKey);
+                    return apiKeyRepository.save(apiKey)
+                            .flatMap(saved -> credentialCache.revoke(saved.getKey()).thenReturn(saved));
                 });
     }
 
@@ -62,7 +64,13 @@ public class ApiKeyServiceImpl implements ApiKeyService {
 
     @Override
     public Mono<ApiKey> validateApiKey(String apiKey) {
+        ApiKeyCredentialCache.ValidatedCredential credential = credentialCache.get(apiKey);
+        if (credential != null && credential.apiKey().isEnabled()) {
+            return Mono.just(credential.apiKey());
+        }
+
         String cacheKey = API_KEY_CACHE_PREFIX + apiKey;
+        long generation = credentialCache.currentGeneration();
 
         return cacheService.get(cacheKey)
                 .flatMap(cachedValue -> {
@@ -96,7 +104,8 @@ public class ApiKeyServiceImpl implements ApiKeyService {
                             } catch (Exception e) {
                                 log.error("Error Caching API Key", e);
                             }
-                        }));
+                        }))
+                .doOnNext(validKey -> credentialCache.put(apiKey, validKey, generation));
     }
 
     private boolean isValid(ApiKey key) {
@@ -109,12 +118,23 @@ public class ApiKeyServiceImpl implements ApiKeyService {
                 .flatMap(apiKey -> {
                     apiKey.setEnabled(false);
                     return apiKeyRepository.save(apiKey)
-                            .then(cacheService.delete(API_KEY_CACHE_PREFIX + apiKey.getKey()).then());
+                            .then(cacheService.delete(API_KEY_CACHE_PREFIX + apiKey.getKey()))
+                            .then(credentialCache.revoke(apiKey.getKey()));
                 });
     }
 
+    @Override
+    public Mono<Void> deleteApiKey(String id) {
+        return apiKeyRepository.findById(id)
+                .flatMap(apiKey -> apiKeyRepository.deleteById(id)
+                        .then(cacheService.delete(API_KEY_CACHE_PREFIX + apiKey.getKey()))
+                        .then(credentialCache.revoke(apiKey.getKey())));
+    }
+
     public void invalidateKeyCache(String apiKey) {
-        cacheService.delete(API_KEY_CACHE_PREFIX + apiKey).subscribe();
+        cacheService.delete(API_KEY_CACHE_PREFIX + apiKey)
+                .then(credentialCache.revoke(apiKey))
+                .subscribe();
     }
 
     @Override
@@ -7,24 +7,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.entity.ApiMetric;
 import org.lite.gateway.entity.ApiRoute;
 import org.lite.gateway.entity.FilterConfig;
+import org.lite.gateway.filter.RequestBodyCaptureFilter;
 import org.lite.gateway.service.*;
-import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.*;
-import org.springframework.context.ApplicationContext;
-import org.springframework.context.ApplicationContextAware;
-import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -34,7 +28,7 @@ import java.util.Objects;
 @RequiredArgsConstructor
 @Service
 @Slf4j
-public class ApiRouteLocatorImpl implements RouteLocator, ApplicationContextAware {
+public class ApiRouteLocatorImpl implements RouteLocator {
     private final RouteLocatorBuilder routeLocatorBuilder;
     private final ApiRouteService apiRouteService;
     private final ReactiveResilience4JCircuitBreakerFactory reactiveResilience4JCircuitBreakerFactory;
@@ -42,8 +36,10 @@ public class ApiRouteLocatorImpl implements RouteLocator, ApplicationContextAwar
     private final MetricService metricService;
     private final ObjectMapper objectMapper;
     private final org.springframework.core.env.Environment environment;
+    private final HierarchicalRateLimiter hierarchicalRateLimiter;
+    private final RequestBodyCaptureFilter requestBodyCaptureFilter;
+    private final ObjectProvider<TeamContextService> teamContextService;
 
-    private ApplicationContext applicationContext;
     private Map<String, FilterService> filterServiceMap;
 
     @PostConstruct
@@ -52,7 +48,8 @@ public class ApiRouteLocatorImpl implements RouteLocator, ApplicationContextAwar
         this.filterServiceMap = Map.of(
                 "CircuitBreaker", new CircuitBreakerFilterService(reactiveResilience4JCircuitBreakerFactory),
                 "RedisRateLimiter",
-                new RedisRateLimiterFilterService(applicationContext, cacheService, objectMapper, redisEnabled),
+                new RedisRateLimiterFilterService(hierarchicalRateLimiter, cacheService, objectMapper, redisEnabled,
+                        teamContextService),
                 "TimeLimiter", new TimeLimiterFilterService(),
                 "Retry", new RetryFilterService());
     }
@@ -89,33 +86,8 @@ public class ApiRouteLocatorImpl implements RouteLocator, ApplicationContextAwar
             routeSpec = predicateSpec.path(apiRoute.getPath());
         }
 
-        // Add body caching filter first
-        routeSpec.filters(f -> f.filter((exchange, chain) -> {
-            String method = exchange.getRequest().getMethod().name().toUpperCase();
-            if (Arrays.asList("POST", "PUT", "PATCH").contains(method)) {
-                return DataBufferUtils.join(exchange.getRequest().getBody())
-                        .flatMap(dataBuffer -> {
-                            byte[] bytes = new byte[dataBuffer.readableByteCount()];
-                            dataBuffer.read(bytes);
-                            DataBufferUtils.release(dataBuffer);
-                            String body = new String(bytes, StandardCharsets.UTF_8);
-                            exchange.getAttributes().put("cachedRequestBody", body);
-
-                            ServerHttpRequestDecorator decorator = new ServerHttpRequestDecorator(
-                                    exchange.getRequest()) {
-                                @Override
-                                public @NonNull Flux<DataBuffer> getBody() {
-                                    return Flux.just(exchange.getResponse().bufferFactory()
-                                            .wrap(bytes));
-                                }
-                            };
-
-                            return chain.filter(exchange.mutate().request(decorator).build());
-                        })
-                        .switchIfEmpty(chain.filter(exchange));
-            }
-            return chain.filter(exchange);
-        }));
+        // Add body capture filter first; retains the body for replay and records a bounded prefix
+        routeSpec.filters(f -> f.filter(requestBodyCaptureFilter));
 
         // Apply resilience filters for non-health endpoints
         applyFilters(routeSpec, apiRoute);
@@ -155,6 +127,8 @@ public class ApiRouteLocatorImpl implements RouteLocator, ApplicationContextAwar
         metric.setTimestamp(LocalDateTime.now());
         metric.setDuration(duration);
         metric.setSuccess(success);
+        metric.setBytes(Math.max(0, exchange.getRequest().getHeaders().getContentLength())
+                + Math.max(0, exchange.getResponse().getHeaders().getContentLength()));
 
         // Set toService
         // Check for custom service name header
@@ -186,14 +160,18 @@ public class ApiRouteLocatorImpl implements RouteLocator, ApplicationContextAwar
 
         // For methods with body, get the cached body if available
         if (Arrays.asList("POST", "PUT", "PATCH").contains(httpMethod)) {
-            String cachedBody = exchange.getAttribute("cachedRequestBody");
-            if (cachedBody != null) {
-                metric.setRequestPayload(cachedBody);
+            RequestBodyCaptureFilter.CapturedBody capturedBody =
+                    exchange.getAttribute(RequestBodyCaptureFilter.CAPTURED_BODY_ATTR);
+            if (capturedBody != null) {
+                metric.setRequestPayload(capturedBody.prefix());
+                metric.setRequestPayloadBytes(capturedBody.totalBytes());
+                metric.setRequestPayloadSha256(capturedBody.sha256());
+                metric.setRequestPayloadTruncated(capturedBody.truncated());
             }
         }
 
-        // Save metric for all methods
-        metricService.saveMetric(metric).subscribe();
+        // Hand off to the batched ingestion pipeline instead of one insert per request
+        metricService.enqueueMetric(metric);
     }
 
     private String determineInteractionType(ServerWebExchange exchange, ApiMetric metric) {
@@ -265,9 +243,4 @@ public class ApiRouteLocatorImpl implements RouteLocator, ApplicationContextAwar
     public Flux<Route> getRoutesByMetadata(Map<String, Object> metadata) {
         return RouteLocator.super.getRoutesByMetadata(metadata);
     }
-
-    @Override
-    public void setApplicationContext(@NonNull ApplicationContext applicationContext) throws BeansException {
-        this.applicationContext = applicationContext;
-    }
 }
@@ -4,11 +4,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.config.StorageProperties;
+import org.lite.gateway.dto.AuditArchiveManifest;
+import org.lite.gateway.dto.StorageObject;
 import org.lite.gateway.entity.AuditLog;
 import org.lite.gateway.enums.AuditEventType;
 import org.lite.gateway.repository.AuditLogRepository;
 import org.lite.gateway.service.AuditArchivalService;
 import org.lite.gateway.service.ObjectStorageService;
+import org.lite.gateway.util.AuditArchiveFormat;
+import org.lite.gateway.util.BloomFilter;
+import org.lite.gateway.util.SegmentedFileCipher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,10 +29,18 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -39,6 +55,11 @@ public class AuditArchivalServiceImpl implements AuditArchivalService {
     private static final int DEFAULT_RETENTION_DAYS = 90;
     private static final String AUDIT_LOG_PREFIX = "audit-logs";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final String INDEXED_ARCHIVE_SUFFIX = ".lqa";
+    private static final String LEGACY_ARCHIVE_SUFFIX = ".json.gz";
+    private static final int ARCHIVE_BLOCK_SIZE = 256;
+    private static final int BLOCK_READ_CONCURRENCY = 4;
+    private static final Comparator<AuditLog> NEWEST_FIRST = Comparator.comparing(AuditLog::getTimestamp).reversed();
 
     private final AuditLogRepository auditLogRepository;
     private final ObjectStorageService objectStorageService;
@@ -46,6 +67,9 @@ public class AuditArchivalServiceImpl implements AuditArchivalService {
     private final ChunkEncryptionService chunkEncryptionService;
     private final StorageProperties storageProperties;
 
+    private record ArchivedGroup(AuditArchiveManifest.Entry entry, List<AuditLog> logs) {
+    }
+
     @Override
     public Mono<Void> archiveOldLogs(int retentionDays) {
         LocalDateTime threshold = LocalDateTime.now().minusDays(retentionDays);
@@ -71,121 +95,203 @@ public class AuditArchivalServiceImpl implements AuditArchivalService {
 
                     log.info("Found {} logs ready for archival", logs.size());
 
-                    // Group logs by date and team for efficient S3 storage
-                    Map<String, List<AuditLog>> groupedLogs = logs.stream()
-                            .collect(Collectors.groupingBy(log -> {
-                                String dateKey = log.getTimestamp().format(DATE_FORMATTER);
-                                String teamId = log.getTeamId() != null ? log.getTeamId() : "unknown";
-                                return dateKey + "/" + teamId;
-                            }));
-
-                    log.info("Grouped logs into {} archive files", groupedLogs.size());
-
-                    // Process each group
-                    List<Mono<Integer>> archiveTasks = new ArrayList<>();
-                    for (Map.Entry<String, List<AuditLog>> entry : groupedLogs.entrySet()) {
-                        String groupKey = entry.getKey();
-                        List<AuditLog> groupLogs = entry.getValue();
+                    // Group logs by team, then by date: one archive file per team and day
+                    Map<String, Map<String, List<AuditLog>>> groupedLogs = logs.stream()
+                            .collect(Collectors.groupingBy(
+                                    log -> log.getTeamId() != null ? log.getTeamId() : "unknown",
+                                    Collectors.groupingBy(log -> log.getTimestamp().format(DATE_FORMATTER),
+                                            TreeMap::new, Collectors.toList())));
 
-                        archiveTasks.add(archiveLogGroup(groupKey, groupLogs, thresholdTimestamp));
-                    }
+                    log.info("Grouped logs of {} teams into {} archive files", groupedLogs.size(),
+                            groupedLogs.values().stream().mapToInt(Map::size).sum());
 
-                    // Execute all archival tasks and sum the results
-                    return Flux.fromIterable(archiveTasks)
-                            .flatMap(task -> task)
+                    // Teams are archived in parallel; each team's manifest is updated once
+                    return Flux.fromIterable(groupedLogs.entrySet())
+                            .flatMap(entry -> archiveTeamLogs(entry.getKey(), entry.getValue()))
                             .reduce(0, (a, b) -> a + b)
                             .doOnSuccess(total -> log.info("Total logs archived: {}", total));
                 });
     }
 
     /**
-     * Archive a group of logs (same date and team) to S3
+     * Archive one team's logs, one file per day, then list the files in the team's monthly
+     * manifests. Logs are deleted from MongoDB only once their file is listed; days or months
+     * that fail stay in MongoDB for the next run.
      */
-    private Mono<Integer> archiveLogGroup(String groupKey, List<AuditLog> logs, LocalDateTime thresholdTimestamp) {
-        if (logs.isEmpty()) {
-            return Mono.just(0);
-        }
-
-        // Extract date and team from group key
-        String[] parts = groupKey.split("/");
-        String datePath = parts[0] + "/" + parts[1] + "/" + parts[2]; // yyyy/MM/dd
-        String teamId = parts.length > 3 ? parts[3] : "unknown";
-
+    private Mono<Integer> archiveTeamLogs(String teamId, Map<String, List<AuditLog>> logsByDate) {
         return chunkEncryptionService.getCurrentKeyVersion(teamId)
-                .flatMap(keyVersion -> {
-                    // Build S3 key with version:
-                    // audit-logs/{year}/{month}/{day}/{teamId}/events-{timestamp}-{version}.json.gz
-                    String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-                    String s3Key = String.format("%s/%s/%s/events-%s-%s.json.gz",
-                            AUDIT_LOG_PREFIX, datePath, teamId, timestamp, keyVersion);
-
-                    log.debug("Archiving {} logs to S3 key: {}", logs.size(), s3Key);
-
-                    try {
-                        // Convert logs to newline-delimited JSON (NDJSON)
-                        byte[] ndjsonBytes = convertToNDJSON(logs);
-
-                        // Compress with gzip
-                        byte[] compressedBytes = compressGzip(ndjsonBytes);
-
-                        log.debug("Compressed {} bytes to {} bytes (compression ratio: {:.2f}%)",
-                                ndjsonBytes.length, compressedBytes.length,
-                                (1.0 - (double) compressedBytes.length / ndjsonBytes.length) * 100);
-
-                        // Encrypt
-                        return chunkEncryptionService.encryptFile(compressedBytes, teamId, keyVersion)
-                                .flatMap(encryptedBytes -> {
-                                    // Upload to S3 Dedicated Audit Bucket
-                                    String auditBucket = storageProperties.getAuditBucketName();
-                                    return objectStorageService
-                                            .uploadFileBytes(auditBucket, s3Key, encryptedBytes, "application/gzip",
-                                                    keyVersion)
-                                            .then(Mono.defer(() -> {
-                                                // Delete logs from MongoDB after successful archival
-                                                log.debug("Deleting {} archived logs from MongoDB", logs.size());
-                                                return auditLogRepository.deleteAll(logs)
-                                                        .thenReturn(logs.size());
-                                            }));
-                                });
-
-                    } catch (Exception e) {
-                        return Mono.error(e);
-                    }
+                .flatMapMany(keyVersion -> Flux.fromIterable(logsByDate.entrySet())
+                        .concatMap(day -> archiveLogGroup(teamId, day.getKey(), day.getValue(), keyVersion)))
+                .collect(Collectors.groupingBy(group -> YearMonth.from(group.entry().getMinTimestamp()),
+                        TreeMap::new, Collectors.toList()))
+                .flatMapMany(groupsByMonth -> Flux.fromIterable(groupsByMonth.entrySet()))
+                .concatMap(month -> {
+                    List<AuditLog> archivedLogs = month.getValue().stream()
+                            .flatMap(group -> group.logs().stream())
+                            .collect(Collectors.toList());
+                    return updateManifest(teamId, month.getKey(),
+                                    month.getValue().stream().map(ArchivedGroup::entry).toList())
+                            .then(Mono.defer(() -> {
+                                // Delete logs from MongoDB after successful archival
+                                log.debug("Deleting {} archived logs from MongoDB", archivedLogs.size());
+                                return auditLogRepository.deleteAll(archivedLogs)
+                                        .thenReturn(archivedLogs.size());
+                            }))
+                            .onErrorResume(e -> {
+                                log.error("Error archiving logs of team {} for {}: {}", teamId, month.getKey(),
+                                        e.getMessage(), e);
+                                return Mono.just(0);
+                            });
                 })
-                .doOnSuccess(
-                        count -> log.info("Successfully archived and deleted {} logs from MongoDB (Encrypted)", count))
-                .doOnError(error -> log.error("Failed to archive logs to S3: {}", error.getMessage(), error))
+                .reduce(0, Integer::sum)
+                .doOnSuccess(count -> log.info(
+                        "Successfully archived and deleted {} logs of team {} from MongoDB (Encrypted)", count, teamId))
                 .onErrorResume(e -> {
-                    log.error("Error archiving log group {}: {}", groupKey, e.getMessage());
+                    log.error("Error archiving logs of team {}: {}", teamId, e.getMessage(), e);
                     return Mono.just(0);
                 });
     }
 
     /**
-     * Convert list of AuditLog entities to newline-delimited JSON (NDJSON)
+     * Archive a group of logs (same date and team) to S3 as an indexed archive
      */
-    private byte[] convertToNDJSON(List<AuditLog> logs) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    private Mono<ArchivedGroup> archiveLogGroup(String teamId, String datePath, List<AuditLog> logs,
+            String keyVersion) {
+        // Build S3 key with version:
+        // audit-logs/{year}/{month}/{day}/{teamId}/events-{timestamp}-{version}.lqa
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"));
+        String s3Key = String.format("%s/%s/%s/events-%s-%s%s",
+                AUDIT_LOG_PREFIX, datePath, teamId, timestamp, keyVersion, INDEXED_ARCHIVE_SUFFIX);
+        String auditBucket = storageProperties.getAuditBucketName();
+
+        log.debug("Archiving {} logs to S3 key: {}", logs.size(), s3Key);
+
+        return Mono.fromCallable(() -> AuditArchiveFormat.write(toArchiveEvents(logs), ARCHIVE_BLOCK_SIZE))
+                .flatMap(archive -> DataBufferUtils.join(chunkEncryptionService.encryptFileStream(
+                                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(archive.bytes())), teamId,
+                                keyVersion))
+                        .map(AuditArchivalServiceImpl::readAndRelease)
+                        .flatMap(encryptedBytes -> objectStorageService
+                                .uploadFileBytes(auditBucket, s3Key, encryptedBytes, "application/octet-stream",
+                                        keyVersion)
+                                .thenReturn(new ArchivedGroup(AuditArchiveManifest.Entry.builder()
+                                        .key(s3Key)
+                                        .keyVersion(keyVersion)
+                                        .minTimestamp(archive.index().minTimestamp())
+                                        .maxTimestamp(archive.index().maxTimestamp())
+                                        .eventCount(archive.index().eventCount())
+                                        .plaintextLength(archive.bytes().length)
+                                        .storedLength(encryptedBytes.length)
+                                        .indexOffset(archive.indexOffset())
+                                        .indexLength(archive.indexLength())
+                                        .userIds(archive.index().userIds().toByteArray())
+                                        .eventTypes(archive.index().eventTypes().toByteArray())
+                                        .resourceIds(archive.index().resourceIds().toByteArray())
+                                        .build(), logs)))
+                        .doOnSuccess(group -> log.debug("Archived {} logs in {} blocks, {} bytes",
+                                logs.size(), archive.index().blocks().size(), archive.bytes().length)))
+                .onErrorResume(e -> {
+                    log.error("Error archiving log group {}/{}: {}", datePath, teamId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
 
-        for (AuditLog log : logs) {
-            // Convert to JSON string
-            String json = objectMapper.writeValueAsString(log);
-            baos.write(json.getBytes(StandardCharsets.UTF_8));
-            baos.write('\n'); // Newline delimiter
+    private List<AuditArchiveFormat.Event> toArchiveEvents(List<AuditLog> logs) throws IOException {
+        List<AuditArchiveFormat.Event> events = new ArrayList<>(logs.size());
+        for (AuditLog auditLog : logs) {
+            events.add(new AuditArchiveFormat.Event(
+                    auditLog.getTimestamp(),
+                    auditLog.getUserId(),
+                    auditLog.getEventType() != null ? auditLog.getEventType().name() : null,
+                    auditLog.getResourceId(),
+                    objectMapper.writeValueAsBytes(auditLog)));
         }
+        return events;
+    }
 
-        return baos.toByteArray();
+    /**
+     * Add archives of one month to the team's manifest of that month, creating it on the
+     * first archival. The first archival of a month also records the month's legacy archives,
+     * which only older versions wrote. Manifests are rewritten whole, so archival must not
+     * run concurrently, nor alongside an older version still writing legacy archives.
+     */
+    private Mono<Void> updateManifest(String teamId, YearMonth month, List<AuditArchiveManifest.Entry> entries) {
+        String manifestKey = manifestKey(teamId, month);
+        return loadManifest(manifestKey)
+                .switchIfEmpty(Mono.fromSupplier(() -> AuditArchiveManifest.builder()
+                        .teamId(teamId)
+                        .month(month.toString())
+                        .build()))
+                .flatMap(manifest -> {
+                    if (manifest.getLegacyArchives() != null) {
+                        return Mono.just(manifest);
+                    }
+                    // Left unchecked on failure; queries then list the month's days as before
+                    return listLegacyArchives(teamId, month)
+                            .doOnNext(manifest::setLegacyArchives)
+                            .onErrorResume(e -> {
+                                log.warn("Error listing legacy archives of team {} for {}: {}", teamId, month,
+                                        e.getMessage());
+                                return Mono.empty();
+                            })
+                            .thenReturn(manifest);
+                })
+                .flatMap(manifest -> {
+                    manifest.getArchives().addAll(entries);
+                    manifest.getArchives().sort(Comparator.comparing(AuditArchiveManifest.Entry::getMinTimestamp));
+                    manifest.setUpdatedAt(LocalDateTime.now());
+                    return Mono.fromCallable(() -> compressGzip(objectMapper.writeValueAsBytes(manifest)))
+                            .flatMap(bytes -> objectStorageService.uploadFileBytes(
+                                    storageProperties.getAuditBucketName(), manifestKey, bytes, "application/gzip",
+                                    null));
+                });
     }
 
     /**
-     * Compress bytes with gzip
+     * @return the keys of the team's legacy archives of the month, listing each of its days
      */
-    private byte[] compressGzip(byte[] data) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
-            gzos.write(data);
+    private Mono<List<String>> listLegacyArchives(String teamId, YearMonth month) {
+        return Flux.fromIterable(generateDatePrefixes(teamId, month.atDay(1).atStartOfDay(),
+                        month.atEndOfMonth().atStartOfDay()))
+                .concatMap(objectStorageService::listFiles)
+                .flatMapIterable(storageObjects -> storageObjects)
+                .map(StorageObject::getKey)
+                .filter(key -> key.endsWith(LEGACY_ARCHIVE_SUFFIX))
+                .collectList();
+    }
+
+    /**
+     * @return the manifest stored under the key, or empty if there is none
+     */
+    private Mono<AuditArchiveManifest> loadManifest(String manifestKey) {
+        String auditBucket = storageProperties.getAuditBucketName();
+        return objectStorageService.fileExists(auditBucket, manifestKey)
+                .filter(Boolean::booleanValue)
+                .flatMap(exists -> objectStorageService.downloadFileContent(auditBucket, manifestKey))
+                .flatMap(bytes -> Mono.fromCallable(
+                        () -> objectMapper.readValue(decompressGzip(bytes), AuditArchiveManifest.class)));
+    }
+
+    /**
+     * @return the team's manifests of the months in the range, by month
+     */
+    private Mono<Map<YearMonth, AuditArchiveManifest>> loadManifests(String teamId, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startTime); !month.isAfter(YearMonth.from(endTime));
+                month = month.plusMonths(1)) {
+            months.add(month);
         }
-        return baos.toByteArray();
+        return Flux.fromIterable(months)
+                .flatMap(month -> loadManifest(manifestKey(teamId, month)))
+                .collectMap(manifest -> YearMonth.parse(manifest.getMonth()));
+    }
+
+    /**
+     * Manifests are gzipped: most of their size is base64 of the bloom filters
+     */
+    private static String manifestKey(String teamId, YearMonth month) {
+        return String.format("%s/manifests/%s/%s.json.gz", AUDIT_LOG_PREFIX, teamId, month);
     }
 
     @Override
@@ -196,56 +302,239 @@ public class AuditArchivalServiceImpl implements AuditArchivalService {
             List<AuditEventType> eventTypes,
             String userId,
             String result) {
-        log.info("Querying archived logs for team {} from {} to {}", teamId, startTime, endTime);
+        return queryArchivedLogs(teamId, startTime, endTime, eventTypes, userId, null, result);
+    }
 
-        // Generate list of date prefixes to search
-        List<String> prefixes = generateDatePrefixes(teamId, startTime, endTime);
-        log.debug("Generated {} S3 prefixes to search", prefixes.size());
+    @Override
+    public Flux<AuditLog> queryArchivedLogs(
+            String teamId,
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            List<AuditEventType> eventTypes,
+            String userId,
+            String resourceId,
+            String result) {
+        log.info("Querying archived logs for team {} from {} to {}", teamId, startTime, endTime);
 
-        // Query each prefix and combine results
-        return Flux.fromIterable(prefixes)
-                .flatMap(prefix -> objectStorageService.listFiles(prefix)
-                        .flatMapMany(storageObjects -> {
-                            log.debug("Found {} files under prefix {}", storageObjects.size(), prefix);
-                            return Flux.fromIterable(storageObjects)
-                                    .filter(obj -> obj.getKey().endsWith(".json.gz"))
-                                    .flatMap(obj -> downloadAndParseArchive(obj.getKey(), teamId));
-                        })
-                        .onErrorResume(e -> {
-                            log.warn("Error querying prefix {}: {}", prefix, e.getMessage());
-                            return Flux.empty();
-                        }))
-                // Filter by team (should match, but verify)
-                .filter(auditLog -> teamId.equals(auditLog.getTeamId()))
-                // Filter by timestamp range
-                .filter(auditLog -> {
-                    LocalDateTime ts = auditLog.getTimestamp();
-                    return ts != null && !ts.isBefore(startTime) && !ts.isAfter(endTime);
+        AuditArchiveFormat.Filter filter = new AuditArchiveFormat.Filter(startTime, endTime,
+                eventTypes != null ? eventTypes.stream().map(Enum::name).collect(Collectors.toSet()) : Set.of(),
+                userId, resourceId);
+        Predicate<AuditLog> matches = auditLog -> teamId.equals(auditLog.getTeamId())
+                && filter.matches(auditLog.getTimestamp(), auditLog.getUserId(),
+                        auditLog.getEventType() != null ? auditLog.getEventType().name() : null,
+                        auditLog.getResourceId())
+                && (result == null || result.isEmpty() || result.equalsIgnoreCase(auditLog.getResult()));
+
+        // Both sources read the manifests, which are loaded once
+        Mono<Map<YearMonth, AuditArchiveManifest>> manifests = loadManifests(teamId, startTime, endTime)
+                .onErrorResume(e -> {
+                    log.warn("Error loading archive manifests of team {}: {}", teamId, e.getMessage());
+                    return Mono.just(Map.of());
                 })
-                // Filter by event types if specified
-                .filter(auditLog -> {
-                    if (eventTypes == null || eventTypes.isEmpty()) {
-                        return true;
-                    }
-                    return eventTypes.contains(auditLog.getEventType());
+                .cache();
+
+        // Both sources are newest first, so merging keeps the whole result newest first
+        return Flux.mergeComparing(NEWEST_FIRST,
+                        queryIndexedArchives(teamId, manifests, filter, matches),
+                        queryLegacyArchives(teamId, startTime, endTime, manifests, matches))
+                .doOnComplete(() -> log.info("Completed querying archived logs for team {}", teamId));
+    }
+
+    /**
+     * Read the indexed archives that may hold matching logs. Archives are chosen from the
+     * manifests of the months in the range by time range and the bloom filters of their
+     * userIds, eventTypes and resourceIds, then blocks from each archive's index by the same
+     * criteria; only those blocks are downloaded. Archives whose time ranges overlap are
+     * merged, the others concatenated.
+     */
+    private Flux<AuditLog> queryIndexedArchives(String teamId, Mono<Map<YearMonth, AuditArchiveManifest>> manifests,
+            AuditArchiveFormat.Filter filter, Predicate<AuditLog> matches) {
+        return manifests
+                .map(byMonth -> byMonth.values().stream()
+                        .flatMap(manifest -> manifest.getArchives().stream())
+                        .toList())
+                .flatMapMany(archives -> {
+                    List<AuditArchiveManifest.Entry> candidates = archives.stream()
+                            .filter(entry -> filter.mayMatch(entry.getMinTimestamp(), entry.getMaxTimestamp(),
+                                    bloomFilter(entry.getUserIds()), bloomFilter(entry.getEventTypes()),
+                                    bloomFilter(entry.getResourceIds())))
+                            .sorted(Comparator.comparing(AuditArchiveManifest.Entry::getMaxTimestamp).reversed())
+                            .toList();
+                    log.debug("Reading {} of {} archives for team {}", candidates.size(), archives.size(), teamId);
+
+                    return Flux.fromIterable(overlappingRuns(candidates))
+                            .concatMap(run -> mergeNewestFirst(run.stream()
+                                    .map(entry -> readArchive(teamId, entry, filter, matches))
+                                    .toList()));
                 })
-                // Filter by user if specified
-                .filter(auditLog -> {
-                    if (userId == null || userId.isEmpty()) {
-                        return true;
+                .onErrorResume(e -> {
+                    log.warn("Error querying indexed archives of team {}: {}", teamId, e.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Split archives sorted by newest event into runs whose time ranges overlap. Every log
+     * in a run is newer than every log in the runs after it.
+     */
+    private static List<List<AuditArchiveManifest.Entry>> overlappingRuns(List<AuditArchiveManifest.Entry> entries) {
+        List<List<AuditArchiveManifest.Entry>> runs = new ArrayList<>();
+        List<AuditArchiveManifest.Entry> run = null;
+        LocalDateTime runStart = null;
+        for (AuditArchiveManifest.Entry entry : entries) {
+            if (run != null && !entry.getMaxTimestamp().isBefore(runStart)) {
+                run.add(entry);
+                if (entry.getMinTimestamp().isBefore(runStart)) {
+                    runStart = entry.getMinTimestamp();
+                }
+            } else {
+                run = new ArrayList<>();
+                run.add(entry);
+                runs.add(run);
+                runStart = entry.getMinTimestamp();
+            }
+        }
+        return runs;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Flux<AuditLog> mergeNewestFirst(List<Flux<AuditLog>> sources) {
+        return sources.size() == 1 ? sources.get(0) : Flux.mergeComparing(NEWEST_FIRST, sources.toArray(new Flux[0]));
+    }
+
+    /**
+     * Stream the matching logs of one archive, newest first, reading its index and then only
+     * the blocks that may hold them
+     */
+    private Flux<AuditLog> readArchive(String teamId, AuditArchiveManifest.Entry entry,
+            AuditArchiveFormat.Filter filter, Predicate<AuditLog> matches) {
+        BiFunction<Long, Integer, Mono<byte[]>> ranges;
+        if (entry.getPlaintextLength() <= SegmentedFileCipher.DEFAULT_SEGMENT_SIZE) {
+            // Range reads fetch whole encrypted segments, so an archive within one is read once
+            Mono<byte[]> archive = readArchiveRange(teamId, entry, 0, (int) entry.getPlaintextLength()).cache();
+            ranges = (offset, length) -> archive.map(
+                    bytes -> Arrays.copyOfRange(bytes, offset.intValue(), offset.intValue() + length));
+        } else {
+            ranges = (offset, length) -> readArchiveRange(teamId, entry, offset, length);
+        }
+        return ranges.apply(entry.getIndexOffset(), entry.getIndexLength())
+                .flatMap(bytes -> Mono.fromCallable(() -> AuditArchiveFormat.readIndex(bytes)))
+                .flatMapMany(index -> {
+                    List<AuditArchiveFormat.Block> blocks = new ArrayList<>();
+                    for (AuditArchiveFormat.Block block : index.blocks()) {
+                        if (filter.mayMatch(block.minTimestamp(), block.maxTimestamp(), block.userIds(),
+                                block.eventTypes(), block.resourceIds())) {
+                            blocks.add(0, block);
+                        }
                     }
-                    return userId.equals(auditLog.getUserId());
+                    log.debug("Reading {} of {} blocks of {}", blocks.size(), index.blocks().size(), entry.getKey());
+                    return Flux.fromIterable(blocks)
+                            .flatMapSequential(block -> ranges.apply(block.offset(), block.length())
+                                    .flatMap(bytes -> Mono.fromCallable(() -> parseBlock(bytes, matches))),
+                                    BLOCK_READ_CONCURRENCY)
+                            .flatMapIterable(logs -> logs);
                 })
-                // Filter by result if specified
-                .filter(auditLog -> {
-                    if (result == null || result.isEmpty()) {
-                        return true;
+                .onErrorResume(e -> {
+                    log.error("Error processing archive {}: {}", entry.getKey(), e.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Decrypt a byte range of an archive, downloading only the encrypted segments holding it
+     */
+    private Mono<byte[]> readArchiveRange(String teamId, AuditArchiveManifest.Entry entry, long offset, int length) {
+        String auditBucket = storageProperties.getAuditBucketName();
+        ChunkEncryptionService.FileRangeReader reader = (start, endInclusive) -> objectStorageService
+                .downloadFileRange(auditBucket, entry.getKey(), start, endInclusive);
+        return DataBufferUtils.join(chunkEncryptionService.decryptFileRange(reader, entry.getStoredLength(), teamId,
+                        entry.getKeyVersion(), offset, length))
+                .map(AuditArchivalServiceImpl::readAndRelease);
+    }
+
+    /**
+     * @return the matching logs of a block, newest first
+     */
+    private List<AuditLog> parseBlock(byte[] block, Predicate<AuditLog> matches) throws IOException {
+        List<AuditLog> logs = new ArrayList<>();
+        for (byte[] json : AuditArchiveFormat.readBlock(block)) {
+            AuditLog auditLog = objectMapper.readValue(json, AuditLog.class);
+            if (matches.test(auditLog)) {
+                logs.add(auditLog);
+            }
+        }
+        Collections.reverse(logs);
+        return logs;
+    }
+
+    private static BloomFilter bloomFilter(byte[] bytes) {
+        return bytes != null ? BloomFilter.fromByteArray(bytes) : null;
+    }
+
+    private static byte[] readAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Query the gzipped NDJSON archives written before the indexed format. These are read
+     * whole, from the keys recorded in the month's manifest, or else found by listing every
+     * day of the range.
+     */
+    private Flux<AuditLog> queryLegacyArchives(String teamId, LocalDateTime startTime, LocalDateTime endTime,
+            Mono<Map<YearMonth, AuditArchiveManifest>> manifests, Predicate<AuditLog> matches) {
+        // Generate list of date prefixes to search
+        List<String> prefixes = generateDatePrefixes(teamId, startTime, endTime);
+        log.debug("Generated {} S3 prefixes to search", prefixes.size());
+
+        return manifests
+                .flatMapMany(byMonth -> {
+                    List<String> recordedKeys = new ArrayList<>();
+                    List<String> unlistedPrefixes = new ArrayList<>();
+                    for (String prefix : prefixes) {
+                        AuditArchiveManifest manifest = byMonth.get(monthOfPrefix(prefix));
+                        if (manifest != null && manifest.getLegacyArchives() != null) {
+                            manifest.getLegacyArchives().stream()
+                                    .filter(key -> key.startsWith(prefix))
+                                    .forEach(recordedKeys::add);
+                        } else {
+                            unlistedPrefixes.add(prefix);
+                        }
                     }
-                    return result.equalsIgnoreCase(auditLog.getResult());
+                    log.debug("Listing {} of {} S3 prefixes, {} legacy archives recorded in manifests",
+                            unlistedPrefixes.size(), prefixes.size(), recordedKeys.size());
+
+                    // Query each unlisted prefix and combine results
+                    return Flux.fromIterable(recordedKeys)
+                            .concatWith(Flux.fromIterable(unlistedPrefixes)
+                                    .flatMap(prefix -> objectStorageService.listFiles(prefix)
+                                            .flatMapIterable(storageObjects -> {
+                                                log.debug("Found {} files under prefix {}", storageObjects.size(),
+                                                        prefix);
+                                                return storageObjects;
+                                            })
+                                            .map(StorageObject::getKey)
+                                            .onErrorResume(e -> {
+                                                log.warn("Error querying prefix {}: {}", prefix, e.getMessage());
+                                                return Flux.empty();
+                                            })))
+                            .filter(key -> key.endsWith(LEGACY_ARCHIVE_SUFFIX))
+                            .flatMap(key -> downloadAndParseArchive(key, teamId));
                 })
+                // Filter by team, time range, event types, user and result
+                .filter(matches)
                 // Sort by timestamp descending (newest first)
-                .sort((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()))
-                .doOnComplete(() -> log.info("Completed querying archived logs for team {}", teamId));
+                .sort(NEWEST_FIRST);
+    }
+
+    private static YearMonth monthOfPrefix(String prefix) {
+        return YearMonth.parse(prefix.substring(AUDIT_LOG_PREFIX.length() + 1, AUDIT_LOG_PREFIX.length() + 8),
+                DateTimeFormatter.ofPattern("yyyy/MM"));
     }
 
     /**
@@ -257,7 +546,7 @@ public class AuditArchivalServiceImpl implements AuditArchivalService {
         LocalDate end = endTime.toLocalDate();
 
         while (!currentDate.isAfter(end)) {
-            String prefix = String.format("%s/%s/%s",
+            String prefix = String.format("%s/%s/%s/",
                     AUDIT_LOG_PREFIX,
                     currentDate.format(DATE_FORMATTER),
                     teamId);
@@ -346,6 +635,14 @@ public class AuditArchivalServiceImpl implements AuditArchivalService {
         return null;
     }
 
+    private byte[] compressGzip(byte[] data) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
+            gzos.write(data);
+        }
+        return baos.toByteArray();
+    }
+
     /**
      * Decompress gzip bytes
      */
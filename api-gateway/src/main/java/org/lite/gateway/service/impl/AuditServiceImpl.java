@@ -9,6 +9,7 @@ import org.lite.gateway.entity.AuditLog;
 import org.lite.gateway.enums.AuditEventType;
 import org.lite.gateway.repository.AuditLogRepository;
 import org.lite.gateway.service.AuditArchivalService;
+import org.lite.gateway.service.AuditIngestionPipeline;
 import org.lite.gateway.service.AuditService;
 import org.lite.gateway.service.TeamContextService;
 import org.lite.gateway.service.UserContextService;
@@ -31,6 +32,7 @@ public class AuditServiceImpl implements AuditService {
 
         private final AuditLogRepository auditLogRepository;
         private final AuditArchivalService auditArchivalService;
+        private final AuditIngestionPipeline auditIngestionPipeline;
         private final UserContextService userContextService;
         private final TeamContextService teamContextService;
 
@@ -164,11 +166,10 @@ public class AuditServiceImpl implements AuditService {
                         // Publish to stream for real-time monitoring
                         auditSink.tryEmitNext(auditLog);
 
-                        return auditLogRepository.save(auditLog)
+                        // Written in bulk by the ingestion pipeline
+                        return auditIngestionPipeline.submit(auditLog)
                                         .doOnSuccess(logged -> log.debug("Audit event logged: {} - {} by {} in team {}",
-                                                        eventType, action, username, teamId))
-                                        .doOnError(e -> log.error("Failed to save audit log: {}", e.getMessage(), e))
-                                        .then();
+                                                        eventType, action, username, teamId));
                 });
         }
 
@@ -1,18 +1,27 @@
 package org.lite.gateway.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.dto.ChunkDecryptionRequest;
+import org.lite.gateway.dto.ChunkDecryptionResult;
 import org.lite.gateway.entity.AuditLog;
 import org.lite.gateway.entity.TeamChunkKey;
 import org.lite.gateway.enums.AuditEventType;
 import org.lite.gateway.repository.TeamChunkKeyRepository;
 import org.lite.gateway.service.AuditService;
+import org.lite.gateway.service.ChunkAccessAuditAggregator;
 import org.lite.gateway.service.ChunkEncryptionService;
 import org.lite.gateway.service.LinqraVaultService;
 import org.lite.gateway.service.TeamContextService;
 import org.lite.gateway.service.UserContextService;
+import org.lite.gateway.util.SegmentedFileCipher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 
@@ -23,9 +32,19 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Service for encrypting and decrypting chunk text and entity properties.
@@ -41,23 +60,39 @@ public class ChunkEncryptionServiceImpl implements ChunkEncryptionService {
     private static final int GCM_IV_LENGTH = 12; // 96 bits for GCM
     private static final int GCM_TAG_LENGTH = 16; // 128 bits
 
+    /**
+     * One cipher per thread, re-initialized for every operation. This skips the provider
+     * lookup of {@link Cipher#getInstance}, and re-initializing with the key of the previous
+     * operation skips the AES key expansion.
+     */
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    });
+
     private final LinqraVaultService vaultService;
     private final TeamChunkKeyRepository teamChunkKeyRepository;
     private final AuditService auditService;
     private final UserContextService userContextService;
     private final TeamContextService teamContextService;
+    private final ChunkAccessAuditAggregator chunkAccessAuditAggregator;
 
     public ChunkEncryptionServiceImpl(
             LinqraVaultService vaultService,
             TeamChunkKeyRepository teamChunkKeyRepository,
             @Lazy AuditService auditService,
             UserContextService userContextService,
-            TeamContextService teamContextService) {
+            TeamContextService teamContextService,
+            ChunkAccessAuditAggregator chunkAccessAuditAggregator) {
         this.vaultService = vaultService;
         this.teamChunkKeyRepository = teamChunkKeyRepository;
         this.auditService = auditService;
         this.userContextService = userContextService;
         this.teamContextService = teamContextService;
+        this.chunkAccessAuditAggregator = chunkAccessAuditAggregator;
     }
 
     private String globalMasterKey; // The Global Master Key (v1) acts as KEK
@@ -114,21 +149,7 @@ public class ChunkEncryptionServiceImpl implements ChunkEncryptionService {
         return getTeamKey(teamId, keyVersion)
                 .map(secretKey -> {
                     try {
-                        // Initialize cipher
-                        Cipher cipher = Cipher.getInstance(ALGORITHM);
-                        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-
-                        // Encrypt
-                        byte[] encryptedBytes = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-                        byte[] iv = cipher.getIV();
-
-                        // Combine IV + encrypted data (GCM includes tag)
-                        byte[] combined = new byte[iv.length + encryptedBytes.length];
-                        System.arraycopy(iv, 0, combined, 0, iv.length);
-                        System.arraycopy(encryptedBytes, 0, combined, iv.length, encryptedBytes.length);
-
-                        // Return Base64 encoded
-                        return Base64.getEncoder().encodeToString(combined);
+                        return encryptText(CIPHERS.get(), secretKey, plaintext);
                     } catch (Exception e) {
                         throw new RuntimeException("Encryption failed", e);
                     }
@@ -136,13 +157,73 @@ public class ChunkEncryptionServiceImpl implements ChunkEncryptionService {
                 .onErrorMap(e -> new RuntimeException("Failed to encrypt chunk text for team: " + teamId, e));
     }
 
+    /**
+     * Resolves the key once and encrypts the texts in slices on the parallel scheduler. Each
+     * text gets its own random IV.
+     */
+    @Override
+    public Mono<List<String>> encryptChunkTexts(List<String> plaintexts, String teamId, String keyVersion) {
+        if (plaintexts == null || plaintexts.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return getTeamKey(teamId, keyVersion)
+                .flatMap(secretKey -> {
+                    int slices = Math.min(plaintexts.size(), Schedulers.DEFAULT_POOL_SIZE);
+                    int sliceSize = (plaintexts.size() + slices - 1) / slices;
+                    return Flux.range(0, slices)
+                            .flatMapSequential(slice -> Mono.fromCallable(() -> encryptSlice(plaintexts,
+                                    slice * sliceSize, Math.min(plaintexts.size(), (slice + 1) * sliceSize),
+                                    secretKey))
+                                    .subscribeOn(Schedulers.parallel()))
+                            .collectList()
+                            // Joined by hand because null entries cannot be emitted as elements
+                            .map(parts -> {
+                                List<String> encrypted = new ArrayList<>(plaintexts.size());
+                                parts.forEach(encrypted::addAll);
+                                return encrypted;
+                            });
+                })
+                .onErrorMap(e -> new RuntimeException("Failed to encrypt chunk texts for team: " + teamId, e));
+    }
+
+    private static List<String> encryptSlice(List<String> plaintexts, int from, int to, SecretKey secretKey)
+            throws GeneralSecurityException {
+        List<String> encrypted = new ArrayList<>(Math.max(0, to - from));
+        Cipher cipher = CIPHERS.get();
+        for (int i = from; i < to; i++) {
+            String plaintext = plaintexts.get(i);
+            encrypted.add(isEmpty(plaintext) ? plaintext : encryptText(cipher, secretKey, plaintext));
+        }
+        return encrypted;
+    }
+
     @Override
     public Mono<String> decryptChunkText(String encryptedText, String teamId, String keyVersion) {
         return decryptChunkText(encryptedText, teamId, keyVersion, true);
     }
 
+    /**
+     * With {@code logAudit}, the decryption is added to the per-request access summary of
+     * {@link ChunkAccessAuditAggregator} rather than written as an audit record of its own.
+     */
     @Override
     public Mono<String> decryptChunkText(String encryptedText, String teamId, String keyVersion, boolean logAudit) {
+        return decryptChunkText(encryptedText, teamId, keyVersion, logAudit, null, null, null);
+    }
+
+    /**
+     * The decryption is added to the access summary of the chunk's document, with its id and
+     * index, by {@link ChunkAccessAuditAggregator}.
+     */
+    @Override
+    public Mono<String> decryptChunkText(String encryptedText, String teamId, String keyVersion, String documentId,
+            String chunkId, Integer chunkIndex) {
+        return decryptChunkText(encryptedText, teamId, keyVersion, true, documentId, chunkId, chunkIndex);
+    }
+
+    private Mono<String> decryptChunkText(String encryptedText, String teamId, String keyVersion, boolean logAudit,
+            String documentId, String chunkId, Integer chunkIndex) {
         if (encryptedText == null || encryptedText.isEmpty()) {
             return Mono.just(encryptedText);
         }
@@ -150,115 +231,246 @@ public class ChunkEncryptionServiceImpl implements ChunkEncryptionService {
         // If no key version specified, assume it's unencrypted legacy data or v1
         final String version = (keyVersion == null || keyVersion.isEmpty()) ? "v1" : keyVersion;
 
-        // Extract user and team context for audit logging
+        return getTeamKey(teamId, version)
+                .map(secretKey -> {
+                    try {
+                        return decryptText(CIPHERS.get(), secretKey, encryptedText);
+                    } catch (Exception e) {
+                        throw new RuntimeException("Decryption failed", e);
+                    }
+                })
+                .flatMap(decrypted -> logAudit
+                        ? chunkAccessAuditAggregator.record(ChunkAccessAuditAggregator.ChunkAccess.of(teamId,
+                                documentId, chunkId, chunkIndex, version, true, null))
+                                .thenReturn(decrypted)
+                        : Mono.just(decrypted))
+                .onErrorResume(error -> logAudit
+                        ? chunkAccessAuditAggregator.record(ChunkAccessAuditAggregator.ChunkAccess.of(teamId,
+                                documentId, chunkId, chunkIndex, version, false, error.getMessage()))
+                                .then(Mono.error(error))
+                        : Mono.error(error))
+                .onErrorMap(e -> new RuntimeException("Failed to decrypt chunk text for team: " + teamId, e));
+    }
+
+    /**
+     * Resolves each (team, key version) in the batch once, decrypts the entries in slices on
+     * the parallel scheduler with one {@link Cipher} per slice, and writes one audit record
+     * for the batch. Results keep request order.
+     */
+    @Override
+    public Mono<List<ChunkDecryptionResult>> decryptChunkTexts(List<ChunkDecryptionRequest> requests,
+            String collectionName) {
+        if (requests == null || requests.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        long startNanos = System.nanoTime();
+
+        Set<KeyRef> keyRefs = new LinkedHashSet<>();
+        for (ChunkDecryptionRequest request : requests) {
+            if (!isEmpty(request.getEncryptedText())) {
+                keyRefs.add(KeyRef.of(request));
+            }
+        }
+        Map<KeyRef, String> keyErrors = new ConcurrentHashMap<>();
+
+        return Flux.fromIterable(keyRefs)
+                .flatMap(ref -> getTeamKey(ref.teamId(), ref.version())
+                        .map(secretKey -> Map.entry(ref, secretKey))
+                        .onErrorResume(e -> {
+                            log.warn("Failed to resolve chunk key {} for team {}: {}", ref.version(), ref.teamId(),
+                                    e.getMessage());
+                            keyErrors.put(ref, e.getMessage() != null ? e.getMessage() : "Key resolution failed");
+                            return Mono.empty();
+                        }))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMap(keys -> {
+                    int slices = Math.min(requests.size(), Schedulers.DEFAULT_POOL_SIZE);
+                    int sliceSize = (requests.size() + slices - 1) / slices;
+                    return Flux.range(0, slices)
+                            .flatMapSequential(slice -> Mono.fromCallable(() -> decryptSlice(requests,
+                                    slice * sliceSize, Math.min(requests.size(), (slice + 1) * sliceSize), keys,
+                                    keyErrors))
+                                    .subscribeOn(Schedulers.parallel()))
+                            .concatMapIterable(Function.identity())
+                            .collectList();
+                })
+                .flatMap(results -> auditBatchDecryption(requests, results, collectionName, startNanos)
+                        .thenReturn(results));
+    }
+
+    private List<ChunkDecryptionResult> decryptSlice(List<ChunkDecryptionRequest> requests, int from, int to,
+            Map<KeyRef, SecretKey> keys, Map<KeyRef, String> keyErrors) {
+        List<ChunkDecryptionResult> results = new ArrayList<>(Math.max(0, to - from));
+        Cipher cipher = CIPHERS.get();
+        for (int i = from; i < to; i++) {
+            ChunkDecryptionRequest request = requests.get(i);
+            String encryptedText = request.getEncryptedText();
+            if (isEmpty(encryptedText)) {
+                results.add(ChunkDecryptionResult.decrypted(encryptedText));
+                continue;
+            }
+            KeyRef ref = KeyRef.of(request);
+            SecretKey secretKey = keys.get(ref);
+            if (secretKey == null) {
+                results.add(ChunkDecryptionResult.failed(
+                        keyErrors.getOrDefault(ref, "Encryption key not found: " + ref.version())));
+                continue;
+            }
+            try {
+                results.add(ChunkDecryptionResult.decrypted(decryptText(cipher, secretKey, encryptedText)));
+            } catch (Exception e) {
+                results.add(ChunkDecryptionResult.failed("Decryption failed: " + e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    private Mono<Void> auditBatchDecryption(List<ChunkDecryptionRequest> requests,
+            List<ChunkDecryptionResult> results, String collectionName, long startNanos) {
+        int attempted = 0;
+        int failed = 0;
+        String firstError = null;
+        Set<String> keyVersions = new TreeSet<>();
+        Set<String> teamIds = new TreeSet<>();
+        Set<String> documentIds = new TreeSet<>();
+        List<String> chunkIds = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ChunkDecryptionRequest request = requests.get(i);
+            if (isEmpty(request.getEncryptedText())) {
+                continue;
+            }
+            attempted++;
+            KeyRef ref = KeyRef.of(request);
+            keyVersions.add(ref.version());
+            if (ref.teamId() != null) {
+                teamIds.add(ref.teamId());
+            }
+            if (request.getDocumentId() != null) {
+                documentIds.add(request.getDocumentId());
+            }
+            if (request.getChunkId() != null) {
+                chunkIds.add(request.getChunkId());
+            }
+            if (!results.get(i).isDecrypted()) {
+                failed++;
+                if (firstError == null) {
+                    firstError = results.get(i).getError();
+                }
+            }
+        }
+        if (attempted == 0) {
+            return Mono.empty();
+        }
+
+        String fallbackTeamId = teamIds.isEmpty() ? null : teamIds.iterator().next();
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("collectionName", collectionName);
+        context.put("chunkCount", attempted);
+        context.put("decryptedCount", attempted - failed);
+        context.put("failedCount", failed);
+        context.put("keyVersions", new ArrayList<>(keyVersions));
+        context.put("teamIds", new ArrayList<>(teamIds));
+        if (!documentIds.isEmpty()) {
+            context.put("documentCount", documentIds.size());
+        }
+        if (!chunkIds.isEmpty()) {
+            // Chunk ids are not stored individually; the digest lets the accessed set be verified
+            context.put("chunkIdCount", chunkIds.size());
+            context.put("chunkIdsSha256", ChunkAccessAuditAggregator.chunkIdsDigest(chunkIds));
+        }
+        AuditLog.AuditMetadata metadata = AuditLog.AuditMetadata.builder()
+                .reason(String.format("Decrypted %d of %d chunks from collection %s (key versions: %s)",
+                        attempted - failed, attempted, collectionName, String.join(", ", keyVersions)))
+                .context(context)
+                .durationMs((System.nanoTime() - startNanos) / 1_000_000)
+                .errorMessage(firstError)
+                .build();
+        boolean success = failed == 0;
+
         Mono<String> usernameMono = userContextService.getCurrentUsername()
                 .defaultIfEmpty(UserContextService.SYSTEM_USER);
         Mono<String> teamIdMono = teamContextService.getTeamFromContext()
-                .defaultIfEmpty(teamId != null ? teamId : null)
-                .onErrorResume(e -> Mono.just(teamId)); // Fallback to provided teamId
+                .onErrorResume(e -> Mono.empty())
+                .defaultIfEmpty(fallbackTeamId != null ? fallbackTeamId : "");
 
         return Mono.zip(usernameMono, teamIdMono)
-                .flatMap(tuple -> {
-                    String username = tuple.getT1();
-                    String effectiveTeamId = tuple.getT2() != null ? tuple.getT2() : teamId;
-
-                    return getTeamKey(teamId, version)
-                            .map(secretKey -> {
-                                try {
-                                    // Decode Base64
-                                    byte[] combined = Base64.getDecoder().decode(encryptedText);
-
-                                    // Extract IV and encrypted data
-                                    if (combined.length < GCM_IV_LENGTH) {
-                                        throw new IllegalArgumentException(
-                                                "Invalid encrypted data: too short to contain IV");
-                                    }
-
-                                    byte[] iv = Arrays.copyOfRange(combined, 0, GCM_IV_LENGTH);
-                                    byte[] encryptedBytes = Arrays.copyOfRange(combined, GCM_IV_LENGTH,
-                                            combined.length);
-
-                                    // Initialize cipher
-                                    Cipher cipher = Cipher.getInstance(ALGORITHM);
-                                    GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-                                    cipher.init(Cipher.DECRYPT_MODE, secretKey, spec);
-
-                                    // Decrypt
-                                    byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
-                                    return new String(decryptedBytes, StandardCharsets.UTF_8);
-                                } catch (Exception e) {
-                                    throw new RuntimeException("Decryption failed", e);
-                                }
-                            })
-                            .flatMap(decrypted -> {
-                                if (logAudit) {
-                                    // Log successful chunk decryption (as part of reactive chain)
-                                    AuditLog.AuditMetadata metadata = AuditLog.AuditMetadata.builder()
-                                            .reason("Chunk text decrypted successfully for team: " + teamId
-                                                    + " (key version: " + version + ")")
-                                            .build();
-
-                                    return auditService.logEvent(
-                                            username,
-                                            username,
-                                            effectiveTeamId,
-                                            null, // ipAddress
-                                            null, // userAgent
-                                            AuditEventType.CHUNK_DECRYPTED,
-                                            "READ",
-                                            "CHUNK",
-                                            null, // resourceId (chunk ID not available here)
-                                            null, // documentId
-                                            null, // collectionId
-                                            "SUCCESS",
-                                            metadata,
-                                            null // complianceFlags
-                                    )
-                                            .doOnError(error -> log.warn(
-                                                    "Failed to log chunk decryption audit event: {}",
-                                                    error.getMessage()))
-                                            .onErrorResume(error -> Mono.empty()) // Don't fail main operation if audit
-                                                                                  // logging fails
-                                            .thenReturn(decrypted); // Return the decrypted text
-                                }
-                                return Mono.just(decrypted);
-                            })
-                            .onErrorResume(error -> {
-                                if (logAudit) {
-                                    // Log failed chunk decryption (as part of reactive chain)
-                                    AuditLog.AuditMetadata metadata = AuditLog.AuditMetadata.builder()
-                                            .reason("Chunk text decryption failed for team: " + teamId
-                                                    + " (key version: "
-                                                    + version + ") - " + error.getMessage())
-                                            .errorMessage(error.getMessage())
-                                            .build();
-
-                                    return auditService.logEvent(
-                                            username,
-                                            username,
-                                            effectiveTeamId,
-                                            null, // ipAddress
-                                            null, // userAgent
-                                            AuditEventType.DECRYPTION_FAILED,
-                                            "READ",
-                                            "CHUNK",
-                                            null, // resourceId
-                                            null, // documentId
-                                            null, // collectionId
-                                            "FAILED",
-                                            metadata,
-                                            null // complianceFlags
-                                    )
-                                            .doOnError(e -> log.warn(
-                                                    "Failed to log decryption failure audit event: {}",
-                                                    e.getMessage()))
-                                            .onErrorResume(e -> Mono.empty()) // Don't fail if audit logging fails
-                                            .then(Mono.error(error)); // Propagate the original error
-                                }
-                                return Mono.error(error);
-                            });
-                })
-                .onErrorMap(e -> new RuntimeException("Failed to decrypt chunk text for team: " + teamId, e));
+                .flatMap(tuple -> auditService.logEvent(
+                        tuple.getT1(),
+                        tuple.getT1(),
+                        tuple.getT2().isEmpty() ? null : tuple.getT2(),
+                        null, // ipAddress
+                        null, // userAgent
+                        success ? AuditEventType.CHUNK_DECRYPTED : AuditEventType.DECRYPTION_FAILED,
+                        "READ",
+                        "CHUNK",
+                        null, // resourceId
+                        null, // documentId
+                        null, // collectionId
+                        success ? "SUCCESS" : "FAILED",
+                        metadata,
+                        null // complianceFlags
+                ))
+                .doOnError(error -> log.warn("Failed to log batch chunk decryption audit event: {}",
+                        error.getMessage()))
+                .onErrorResume(error -> Mono.empty()); // Don't fail the search if audit logging fails
+    }
+
+    /**
+     * Encrypts to Base64 IV + ciphertext + tag with {@code cipher}, which is re-initialized for
+     * each call and may be reused for the next one.
+     */
+    private static String encryptText(Cipher cipher, SecretKey secretKey, String plaintext)
+            throws GeneralSecurityException {
+        return Base64.getEncoder().encodeToString(
+                encryptBytes(cipher, secretKey, plaintext.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Decrypts Base64 IV + ciphertext + tag with {@code cipher}, which is re-initialized for
+     * each call and may be reused for the next one.
+     */
+    private static String decryptText(Cipher cipher, SecretKey secretKey, String encryptedText)
+            throws GeneralSecurityException {
+        byte[] decryptedBytes = decryptBytes(cipher, secretKey, Base64.getDecoder().decode(encryptedText));
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return IV followed by the ciphertext and GCM tag
+     */
+    private static byte[] encryptBytes(Cipher cipher, SecretKey secretKey, byte[] plaintext)
+            throws GeneralSecurityException {
+        // Initialized without parameters, the cipher draws a fresh random IV each time
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+        byte[] iv = cipher.getIV();
+
+        // Write the ciphertext behind the IV instead of copying it there
+        byte[] combined = new byte[iv.length + cipher.getOutputSize(plaintext.length)];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        int written = cipher.doFinal(plaintext, 0, plaintext.length, combined, iv.length);
+        return iv.length + written == combined.length ? combined : Arrays.copyOf(combined, iv.length + written);
+    }
+
+    private static byte[] decryptBytes(Cipher cipher, SecretKey secretKey, byte[] combined)
+            throws GeneralSecurityException {
+        if (combined.length < GCM_IV_LENGTH) {
+            throw new IllegalArgumentException("Invalid encrypted data: too short to contain IV");
+        }
+        GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, combined, 0, GCM_IV_LENGTH);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, spec);
+        return cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
+    }
+
+    private static boolean isEmpty(String text) {
+        return text == null || text.isEmpty();
+    }
+
+    private record KeyRef(String teamId, String version) {
+
+        static KeyRef of(ChunkDecryptionRequest request) {
+            String keyVersion = request.getKeyVersion();
+            return new KeyRef(request.getTeamId(), keyVersion == null || keyVersion.isEmpty() ? "v1" : keyVersion);
+        }
     }
 
     @Override
@@ -276,26 +488,17 @@ public class ChunkEncryptionServiceImpl implements ChunkEncryptionService {
         return getTeamKey(teamId, keyVersion)
                 .map(secretKey -> {
                     try {
-                        // Initialize cipher
-                        Cipher cipher = Cipher.getInstance(ALGORITHM);
-                        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-
-                        // Encrypt file bytes
-                        byte[] encryptedBytes = cipher.doFinal(fileBytes);
-                        byte[] iv = cipher.getIV();
-
-                        // Combine IV + encrypted data
-                        byte[] combined = new byte[iv.length + encryptedBytes.length];
-                        System.arraycopy(iv, 0, combined, 0, iv.length);
-                        System.arraycopy(encryptedBytes, 0, combined, iv.length, encryptedBytes.length);
-
-                        return combined;
+                        return encryptBytes(CIPHERS.get(), secretKey, fileBytes);
                     } catch (Exception e) {
                         throw new RuntimeException("Encryption failed", e);
                     }
                 });
     }
 
+    /**
+     * Reads both the segmented format and the former whole-file format. Segmented files are
+     * decrypted with the key version named in their header.
+     */
     @Override
     public Mono<byte[]> decryptFile(byte[] encryptedBytes, String teamId, String keyVersion) {
         if (encryptedBytes == null || encryptedBytes.length == 0) {
@@ -303,103 +506,197 @@ public class ChunkEncryptionServiceImpl implements ChunkEncryptionService {
         }
         final String version = (keyVersion == null || keyVersion.isEmpty()) ? "v1" : keyVersion;
 
-        // Extract user and team context for audit logging
+        Mono<byte[]> decrypted;
+        if (SegmentedFileCipher.isSegmented(encryptedBytes)) {
+            decrypted = Mono.fromCallable(() -> SegmentedFileCipher.Header.parse(encryptedBytes))
+                    .flatMap(header -> getTeamKey(teamId, header.keyVersion()))
+                    .map(secretKey -> SegmentedFileCipher.decrypt(secretKey, encryptedBytes));
+        } else {
+            decrypted = getTeamKey(teamId, version)
+                    .map(secretKey -> {
+                        try {
+                            if (encryptedBytes.length < GCM_IV_LENGTH) {
+                                throw new IllegalArgumentException(
+                                        "Invalid encrypted file: too short to contain IV");
+                            }
+                            return decryptBytes(CIPHERS.get(), secretKey, encryptedBytes);
+                        } catch (Exception e) {
+                            throw new RuntimeException("Decryption failed", e);
+                        }
+                    });
+        }
+
+        return decrypted
+                .flatMap(bytes -> auditFileDecryption(teamId, version, bytes.length, null).thenReturn(bytes))
+                .onErrorResume(error -> auditFileDecryption(teamId, version, 0, error).then(Mono.error(error)));
+    }
+
+    @Override
+    public long encryptedFileLength(long plaintextLength, String keyVersion) {
+        return SegmentedFileCipher.encryptedLength(plaintextLength, keyVersion,
+                SegmentedFileCipher.DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Writes the segmented format of {@link SegmentedFileCipher}, holding at most one segment
+     * of the file in memory.
+     */
+    @Override
+    public Flux<DataBuffer> encryptFileStream(Flux<DataBuffer> content, String teamId, String keyVersion) {
+        return getTeamKey(teamId, keyVersion)
+                .flatMapMany(secretKey -> {
+                    SegmentedFileCipher.StreamEncryptor encryptor = new SegmentedFileCipher.StreamEncryptor(
+                            secretKey, keyVersion, SegmentedFileCipher.DEFAULT_SEGMENT_SIZE);
+                    return Flux.concat(
+                            Mono.fromCallable(encryptor::header),
+                            content.concatMapIterable(buffer -> {
+                                byte[] bytes = readAndRelease(buffer);
+                                return encryptor.update(bytes, 0, bytes.length);
+                            }),
+                            Mono.fromCallable(encryptor::finish));
+                })
+                .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .onErrorMap(e -> new RuntimeException("Failed to encrypt file for team: " + teamId, e));
+    }
+
+    /**
+     * Decrypts segmented files one segment at a time. Files of the former whole-file format
+     * are collected and decrypted whole.
+     */
+    @Override
+    public Flux<DataBuffer> decryptFileStream(Flux<DataBuffer> encryptedContent, String teamId, String keyVersion) {
+        final String version = (keyVersion == null || keyVersion.isEmpty()) ? "v1" : keyVersion;
+
+        return Flux.defer(() -> {
+            SegmentedFileCipher.StreamDecryptor decryptor = new SegmentedFileCipher.StreamDecryptor();
+            AtomicLong decryptedBytes = new AtomicLong();
+            return encryptedContent
+                    .concatMap(buffer -> {
+                        byte[] bytes = readAndRelease(buffer);
+                        List<byte[]> opened = decryptor.update(bytes, 0, bytes.length);
+                        if (!decryptor.awaitingKey()) {
+                            return Flux.fromIterable(opened);
+                        }
+                        // The header names the key version the file was written with
+                        return getTeamKey(teamId, decryptor.header().keyVersion())
+                                .flatMapIterable(secretKey -> {
+                                    List<byte[]> all = new ArrayList<>(opened);
+                                    all.addAll(decryptor.init(secretKey));
+                                    return all;
+                                });
+                    })
+                    .concatWith(Mono.defer(() -> decryptor.isLegacy()
+                            ? getTeamKey(teamId, version).flatMap(secretKey -> Mono.fromCallable(
+                                    () -> decryptBytes(CIPHERS.get(), secretKey, decryptor.legacyCiphertext())))
+                            : Mono.fromCallable(decryptor::finish)))
+                    .filter(bytes -> bytes.length > 0)
+                    .doOnNext(bytes -> decryptedBytes.addAndGet(bytes.length))
+                    .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap)
+                    .concatWith(Mono.defer(() -> auditFileDecryption(teamId, version, decryptedBytes.get(), null))
+                            .then(Mono.empty()))
+                    .onErrorResume(error -> auditFileDecryption(teamId, version, decryptedBytes.get(), error)
+                            .then(Mono.error(error)));
+        })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * Fetches and decrypts only the segments that hold the range. Files of the former
+     * whole-file format are read and decrypted whole.
+     */
+    @Override
+    public Flux<DataBuffer> decryptFileRange(FileRangeReader reader, long encryptedLength, String teamId,
+            String keyVersion, long offset, long length) {
+        if (encryptedLength <= 0) {
+            return Flux.empty();
+        }
+        long headerEnd = Math.min(encryptedLength, SegmentedFileCipher.MAX_HEADER_LENGTH);
+        return DataBufferUtils.join(reader.read(0, headerEnd - 1))
+                .map(ChunkEncryptionServiceImpl::readAndRelease)
+                .flatMapMany(head -> {
+                    if (!SegmentedFileCipher.isSegmented(head)) {
+                        return DataBufferUtils.join(reader.read(0, encryptedLength - 1))
+                                .map(ChunkEncryptionServiceImpl::readAndRelease)
+                                .flatMap(whole -> decryptFile(whole, teamId, keyVersion))
+                                .map(plaintext -> {
+                                    int from = (int) Math.min(Math.max(0, offset), plaintext.length);
+                                    int to = (int) Math.min(plaintext.length, from + Math.max(0, length));
+                                    return DefaultDataBufferFactory.sharedInstance.wrap(
+                                            Arrays.copyOfRange(plaintext, from, to));
+                                })
+                                .flux();
+                    }
+                    SegmentedFileCipher.Header header = SegmentedFileCipher.Header.parse(head);
+                    return getTeamKey(teamId, header.keyVersion())
+                            .flatMapMany(secretKey -> {
+                                SegmentedFileCipher.StreamDecryptor decryptor = SegmentedFileCipher.StreamDecryptor
+                                        .forRange(secretKey, header, encryptedLength, offset, length);
+                                SegmentedFileCipher.Range range = decryptor.range(encryptedLength);
+                                Flux<DataBuffer> segments = range.length() > 0
+                                        ? reader.read(range.start(), range.end() - 1)
+                                        : Flux.empty();
+                                return segments
+                                        .concatMapIterable(buffer -> {
+                                            byte[] bytes = readAndRelease(buffer);
+                                            return decryptor.update(bytes, 0, bytes.length);
+                                        })
+                                        .concatWith(Mono.fromCallable(decryptor::finish))
+                                        .filter(bytes -> bytes.length > 0)
+                                        .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap);
+                            });
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private static byte[] readAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private Mono<Void> auditFileDecryption(String teamId, String version, long size, Throwable error) {
+        AuditLog.AuditMetadata metadata = error == null
+                ? AuditLog.AuditMetadata.builder()
+                        .reason("File decrypted successfully for team: " + teamId + " (key version: " + version
+                                + "), size: " + size + " bytes")
+                        .build()
+                : AuditLog.AuditMetadata.builder()
+                        .reason("File decryption failed for team: " + teamId + " (key version: " + version + ") - "
+                                + error.getMessage())
+                        .errorMessage(error.getMessage())
+                        .build();
+
         Mono<String> usernameMono = userContextService.getCurrentUsername()
                 .defaultIfEmpty(UserContextService.SYSTEM_USER);
         Mono<String> teamIdMono = teamContextService.getTeamFromContext()
-                .defaultIfEmpty(teamId != null ? teamId : null)
-                .onErrorResume(e -> Mono.just(teamId)); // Fallback to provided teamId
+                .onErrorResume(e -> Mono.empty())
+                .defaultIfEmpty(teamId != null ? teamId : "");
 
         return Mono.zip(usernameMono, teamIdMono)
-                .flatMap(tuple -> {
-                    String username = tuple.getT1();
-                    String effectiveTeamId = tuple.getT2() != null ? tuple.getT2() : teamId;
-
-                    return getTeamKey(teamId, version)
-                            .map(secretKey -> {
-                                try {
-                                    // Extract IV and encrypted data
-                                    if (encryptedBytes.length < GCM_IV_LENGTH) {
-                                        throw new IllegalArgumentException(
-                                                "Invalid encrypted file: too short to contain IV");
-                                    }
-
-                                    byte[] iv = Arrays.copyOfRange(encryptedBytes, 0, GCM_IV_LENGTH);
-                                    byte[] encryptedData = Arrays.copyOfRange(encryptedBytes, GCM_IV_LENGTH,
-                                            encryptedBytes.length);
-
-                                    // Initialize cipher
-                                    Cipher cipher = Cipher.getInstance(ALGORITHM);
-                                    GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-                                    cipher.init(Cipher.DECRYPT_MODE, secretKey, spec);
-
-                                    // Decrypt file bytes
-                                    return cipher.doFinal(encryptedData);
-                                } catch (Exception e) {
-                                    throw new RuntimeException("Decryption failed", e);
-                                }
-                            })
-                            .flatMap(decrypted -> {
-                                // Log successful file decryption (as part of reactive chain)
-                                AuditLog.AuditMetadata metadata = AuditLog.AuditMetadata.builder()
-                                        .reason("File decrypted successfully for team: " + teamId + " (key version: "
-                                                + version + "), size: " + decrypted.length + " bytes")
-                                        .build();
-
-                                return auditService.logEvent(
-                                        username,
-                                        username,
-                                        effectiveTeamId,
-                                        null, // ipAddress
-                                        null, // userAgent
-                                        AuditEventType.CHUNK_DECRYPTED, // Using CHUNK_DECRYPTED for file decryption as
-                                                                        // well
-                                        "READ",
-                                        "FILE",
-                                        null, // resourceId (document ID not available here)
-                                        null, // documentId
-                                        null, // collectionId
-                                        "SUCCESS",
-                                        metadata,
-                                        null // complianceFlags
-                                )
-                                        .doOnError(error -> log.warn("Failed to log file decryption audit event: {}",
-                                                error.getMessage()))
-                                        .onErrorResume(error -> Mono.empty()) // Don't fail main operation if audit
-                                                                              // logging fails
-                                        .thenReturn(decrypted); // Return the decrypted bytes
-                            })
-                            .onErrorResume(error -> {
-                                // Log failed file decryption (as part of reactive chain)
-                                AuditLog.AuditMetadata metadata = AuditLog.AuditMetadata.builder()
-                                        .reason("File decryption failed for team: " + teamId + " (key version: "
-                                                + version + ") - " + error.getMessage())
-                                        .errorMessage(error.getMessage())
-                                        .build();
-
-                                return auditService.logEvent(
-                                        username,
-                                        username,
-                                        effectiveTeamId,
-                                        null, // ipAddress
-                                        null, // userAgent
-                                        AuditEventType.DECRYPTION_FAILED,
-                                        "READ",
-                                        "FILE",
-                                        null, // resourceId
-                                        null, // documentId
-                                        null, // collectionId
-                                        "FAILED",
-                                        metadata,
-                                        null // complianceFlags
-                                )
-                                        .doOnError(
-                                                e -> log.warn("Failed to log file decryption failure audit event: {}",
-                                                        e.getMessage()))
-                                        .onErrorResume(e -> Mono.empty()) // Don't fail if audit logging fails
-                                        .then(Mono.error(error)); // Propagate the original error
-                            });
-                });
+                .flatMap(tuple -> auditService.logEvent(
+                        tuple.getT1(),
+                        tuple.getT1(),
+                        tuple.getT2().isEmpty() ? null : tuple.getT2(),
+                        null, // ipAddress
+                        null, // userAgent
+                        // Using CHUNK_DECRYPTED for file decryption as well
+                        error == null ? AuditEventType.CHUNK_DECRYPTED : AuditEventType.DECRYPTION_FAILED,
+                        "READ",
+                        "FILE",
+                        null, // resourceId (document ID not available here)
+                        null, // documentId
+                        null, // collectionId
+                        error == null ? "SUCCESS" : "FAILED",
+                        metadata,
+                        null // complianceFlags
+                ))
+                .doOnError(e -> log.warn("Failed to log file decryption audit event: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty()); // Don't fail main operation if audit logging fails
     }
 
     private Mono<SecretKey> getTeamKey(String teamId, String version) {
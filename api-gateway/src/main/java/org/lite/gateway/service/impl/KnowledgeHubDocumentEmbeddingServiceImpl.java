@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.lite.gateway.dto.MilvusCollectionSchemaInfo;
+import org.lite.gateway.dto.MilvusInsertRow;
 import org.lite.gateway.dto.ProcessedDocumentDto;
 import org.lite.gateway.entity.KnowledgeHubCollection;
 import org.lite.gateway.entity.KnowledgeHubDocument;
@@ -17,14 +18,16 @@ import org.lite.gateway.enums.AuditActionType;
 import org.lite.gateway.enums.AuditEventType;
 import org.lite.gateway.enums.AuditResourceType;
 import org.lite.gateway.service.ChunkEncryptionService;
+import org.lite.gateway.service.EmbeddingCache;
 import org.lite.gateway.service.GraphExtractionJobService;
 import org.lite.gateway.service.KnowledgeHubDocumentEmbeddingService;
 import org.lite.gateway.service.LinqMilvusStoreService;
+import org.lite.gateway.service.MilvusWriteBehindBuffer;
 import org.lite.gateway.service.ObjectStorageService;
 import org.lite.gateway.util.AuditLogHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.lite.gateway.service.CacheService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
@@ -32,10 +35,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.data.util.Pair;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -55,8 +56,6 @@ import java.util.stream.Collectors;
 @Slf4j
 public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDocumentEmbeddingService {
 
-    private static final Duration EMBEDDING_CACHE_TTL = Duration.ofHours(6);
-    private static final String EMBEDDING_CACHE_PREFIX = "embedding:doc:";
     private static final String MILVUS_TEXT_FIELD = "text";
     private static final int DEFAULT_CONTEXT_WINDOW_TOKENS = 4096;
     private static final Set<DocumentStatus> ALLOWED_EMBEDDING_STATUSES = Set.of(
@@ -70,9 +69,10 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
     private final ObjectStorageService objectStorageService;
     private final LinqMilvusStoreService milvusStoreService;
     private final ObjectMapper objectMapper;
-    private final CacheService cacheService;
+    private final EmbeddingCache embeddingCache;
     private final LlmModelRepository llmModelRepository;
     private final ChunkEncryptionService chunkEncryptionService;
+    private final MilvusWriteBehindBuffer milvusWriteBehindBuffer;
     private final AuditLogHelper auditLogHelper;
     @Qualifier("executionMessageChannel")
     private final MessageChannel executionMessageChannel;
@@ -80,6 +80,10 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
     @Autowired(required = false)
     private GraphExtractionJobService graphExtractionJobService;
 
+    // Chunks embedded concurrently per document; the embedding batcher coalesces them into provider batches
+    @Value("${linqra.embedding.chunk-concurrency:32}")
+    private int chunkConcurrency;
+
     @Override
     public Mono<Void> embedDocument(String documentId, String teamId) {
         log.info("Starting embedding workflow for document {} (team {})", documentId, teamId);
@@ -451,13 +455,42 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
             List<ProcessedDocumentDto.ChunkDto> chunks,
             int contextWindowTokens,
             MilvusCollectionSchemaInfo schemaInfo) {
-        AtomicInteger embeddedCount = new AtomicInteger();
+        Flux<MilvusInsertRow> rows = Flux.fromIterable(chunks)
+                .flatMap(chunk -> embedChunk(document, collection, processedDocumentDto, chunk, contextWindowTokens,
+                        schemaInfo), Math.max(1, chunkConcurrency));
+        return writeChunkRows(document, collection, rows, schemaInfo);
+    }
 
-        return Flux.fromIterable(chunks)
-                .concatMap(chunk -> embedChunk(document, collection, processedDocumentDto, chunk, contextWindowTokens,
-                        schemaInfo)
-                        .doOnSuccess(v -> embeddedCount.incrementAndGet()))
-                .then(Mono.fromCallable(embeddedCount::get));
+    /**
+     * Writes embedded chunk rows through the write-behind buffer and returns the number stored.
+     * Fails the document when any row could not be inserted.
+     */
+    private Mono<Integer> writeChunkRows(KnowledgeHubDocument document,
+            KnowledgeHubCollection collection,
+            Flux<MilvusInsertRow> rows,
+            MilvusCollectionSchemaInfo schemaInfo) {
+        String textFieldName = schemaInfo != null && StringUtils.hasText(schemaInfo.getTextFieldName())
+                ? schemaInfo.getTextFieldName()
+                : MILVUS_TEXT_FIELD;
+        AtomicInteger failedCount = new AtomicInteger();
+
+        return milvusWriteBehindBuffer.write(collection.getMilvusCollectionName(), rows, textFieldName,
+                        document.getTeamId())
+                .doOnNext(result -> {
+                    if (result.hasFailures()) {
+                        failedCount.addAndGet(result.getFailures().size());
+                        result.getFailures().forEach(failure -> log.error(
+                                "Failed to store chunk row {} of a {}-row batch for document {}: {}",
+                                failure.getRowIndex(), result.getRequestedCount(), document.getDocumentId(),
+                                failure.getError()));
+                    }
+                })
+                .reduce(0L, (total, result) -> total + result.getInsertedCount())
+                .flatMap(inserted -> failedCount.get() > 0
+                        ? Mono.<Integer>error(new RuntimeException(String.format(
+                                "Failed to store %d chunk embeddings for document %s (%d stored)",
+                                failedCount.get(), document.getDocumentId(), inserted)))
+                        : Mono.just(inserted.intValue()));
     }
 
     private Mono<Integer> resolveContextWindowTokens(KnowledgeHubCollection collection) {
@@ -540,9 +573,7 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
                 windows.size(), contextWindowTokens, strideTokens, totalWindowTokens, chunks.size());
 
         return Flux.fromIterable(windows)
-                .concatMap(window -> {
-                    String windowCacheKey = buildWindowCacheKey(document.getDocumentId(),
-                            collection.getEmbeddingModelName(), window);
+                .flatMapSequential(window -> {
                     String windowText = enforceTokenLimit(window.getText(), contextWindowTokens,
                             String.format("window %d-%d of document %s", window.getStartIndex(), window.getEndIndex(),
                                     document.getDocumentId()));
@@ -552,13 +583,12 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
                                 window.getStartIndex(), window.getEndIndex());
                         return Mono.empty();
                     }
-                    return getEmbeddingWithCache(windowCacheKey, windowText, collection.getEmbeddingModel(),
-                            collection.getEmbeddingModelName(), document.getTeamId())
+                    return getEmbeddingWithCache(windowText, collection, document.getTeamId())
                             .map(embedding -> Pair.of(window, embedding))
                             .doOnError(error -> log.error("Failed to embed window {}-{} for document {}: {}",
                                     window.getStartIndex(), window.getEndIndex(), document.getDocumentId(),
                                     error.getMessage()));
-                })
+                }, Math.max(1, chunkConcurrency))
                 .collectList()
                 .flatMap(windowEmbeddings -> {
                     if (windowEmbeddings.isEmpty()) {
@@ -571,7 +601,7 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
                     log.info("Late chunking: mapped {} window embeddings to {} chunk indices for document {}",
                             windowEmbeddings.size(), chunkEmbeddingPool.size(), document.getDocumentId());
 
-                    return Flux.range(0, chunks.size())
+                    Flux<MilvusInsertRow> rows = Flux.range(0, chunks.size())
                             .concatMap(chunkIndex -> {
                                 ProcessedDocumentDto.ChunkDto chunk = chunks.get(chunkIndex);
                                 if (!StringUtils.hasText(chunk.getText())) {
@@ -591,8 +621,6 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
                                                     log.info(
                                                             "Late chunking: pooled vectors empty for chunk {} – falling back to direct embedding.",
                                                             chunk.getChunkId());
-                                                    String cacheKey = buildEmbeddingCacheKey(document.getDocumentId(),
-                                                            collection.getEmbeddingModelName(), chunk);
                                                     String chunkText = enforceTokenLimit(chunk.getText(),
                                                             contextWindowTokens,
                                                             String.format("chunk %s of document %s", chunk.getChunkId(),
@@ -600,9 +628,8 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
                                                     if (!StringUtils.hasText(chunkText)) {
                                                         return Mono.empty();
                                                     }
-                                                    return getEmbeddingWithCache(cacheKey, chunkText,
-                                                            collection.getEmbeddingModel(),
-                                                            collection.getEmbeddingModelName(), document.getTeamId());
+                                                    return getEmbeddingWithCache(chunkText, collection,
+                                                            document.getTeamId());
                                                 }
                                                 return Mono.just(embedding);
                                             });
@@ -610,39 +637,32 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
                                     log.info(
                                             "Late chunking: no pooled vectors for chunk {} – embedding chunk text directly.",
                                             chunk.getChunkId());
-                                    String cacheKey = buildEmbeddingCacheKey(document.getDocumentId(),
-                                            collection.getEmbeddingModelName(), chunk);
                                     String chunkText = enforceTokenLimit(chunk.getText(), contextWindowTokens,
                                             String.format("chunk %s of document %s", chunk.getChunkId(),
                                                     document.getDocumentId()));
                                     if (!StringUtils.hasText(chunkText)) {
                                         return Mono.empty();
                                     }
-                                    embeddingMono = getEmbeddingWithCache(cacheKey, chunkText,
-                                            collection.getEmbeddingModel(), collection.getEmbeddingModelName(),
+                                    embeddingMono = getEmbeddingWithCache(chunkText, collection,
                                             document.getTeamId());
                                 }
 
                                 return embeddingMono
-                                        .flatMap(embedding -> storeChunkRecord(collection, document,
+                                        .flatMap(embedding -> buildChunkRow(collection, document,
                                                 processedDocumentDto, chunk, embedding, chunkIndex, schemaInfo))
-                                        .doOnSuccess(v -> log.info(
-                                                "Late chunking: stored embedding for chunk {} (index {}) in document {}",
-                                                chunk.getChunkId(), chunkIndex, document.getDocumentId()))
                                         .doOnError(error -> log.error(
-                                                "Late chunking: failed to store embedding for chunk {} (index {}) in document {}: {}",
+                                                "Late chunking: failed to prepare embedding for chunk {} (index {}) in document {}: {}",
                                                 chunk.getChunkId(), chunkIndex, document.getDocumentId(),
-                                                error.getMessage()))
-                                        .thenReturn(1);
-                            })
-                            .reduce(0, Integer::sum)
+                                                error.getMessage()));
+                            });
+                    return writeChunkRows(document, collection, rows, schemaInfo)
                             .doOnSuccess(
                                     total -> log.info("Late chunking: stored embeddings for {} chunks of document {}",
                                             total, document.getDocumentId()));
                 });
     }
 
-    private Mono<Void> embedChunk(KnowledgeHubDocument document,
+    private Mono<MilvusInsertRow> embedChunk(KnowledgeHubDocument document,
             KnowledgeHubCollection collection,
             ProcessedDocumentDto processedDocumentDto,
             ProcessedDocumentDto.ChunkDto chunk,
@@ -655,7 +675,6 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
             return Mono.empty();
         }
 
-        String cacheKey = buildEmbeddingCacheKey(document.getDocumentId(), collection.getEmbeddingModelName(), chunk);
         String embeddingText = enforceTokenLimit(chunk.getText(), contextWindowTokens,
                 String.format("chunk %s of document %s", chunk.getChunkId(), document.getDocumentId()));
         if (!StringUtils.hasText(embeddingText)) {
@@ -664,17 +683,15 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
             return Mono.empty();
         }
 
-        return getEmbeddingWithCache(cacheKey, embeddingText, collection.getEmbeddingModel(),
-                collection.getEmbeddingModelName(), document.getTeamId())
-                .flatMap(embedding -> storeChunkRecord(
+        return getEmbeddingWithCache(embeddingText, collection, document.getTeamId())
+                .flatMap(embedding -> buildChunkRow(
                         collection,
                         document,
                         processedDocumentDto,
                         chunk,
                         embedding,
                         resolveChunkIndex(processedDocumentDto, chunk),
-                        schemaInfo))
-                .then();
+                        schemaInfo));
     }
 
     private int resolveChunkIndex(ProcessedDocumentDto processedDocumentDto, ProcessedDocumentDto.ChunkDto chunk) {
@@ -699,7 +716,7 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
         return -1;
     }
 
-    private Mono<Void> storeChunkRecord(KnowledgeHubCollection collection,
+    private Mono<MilvusInsertRow> buildChunkRow(KnowledgeHubCollection collection,
             KnowledgeHubDocument document,
             ProcessedDocumentDto processedDocumentDto,
             ProcessedDocumentDto.ChunkDto chunk,
@@ -810,15 +827,12 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
                                         metadataSnapshot);
                             }
 
-                            return milvusStoreService.storeRecord(
-                                    collection.getMilvusCollectionName(),
-                                    record,
-                                    collection.getEmbeddingModel(),
-                                    collection.getEmbeddingModelName(),
-                                    textFieldName,
-                                    document.getTeamId(),
-                                    embedding)
-                                    .then();
+                            // The keyword index sees the plaintext; the file name lets keyword
+                            // search match documents by name as well as content
+                            String searchText = StringUtils.hasText(document.getFileName())
+                                    ? plaintext + "\n" + document.getFileName()
+                                    : plaintext;
+                            return Mono.just(MilvusInsertRow.of(record, embedding, searchText));
                         }));
     }
 
@@ -1006,11 +1020,6 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
         return Math.min(estimated, 8192);
     }
 
-    private String buildWindowCacheKey(String documentId, String modelName, ChunkWindow window) {
-        return EMBEDDING_CACHE_PREFIX + documentId + ":" + (modelName != null ? modelName : "default") +
-                ":window:" + window.getStartIndex() + "-" + window.getEndIndex();
-    }
-
     private static class ChunkWindow {
         private final int startIndex;
         private final int endIndex;
@@ -1041,40 +1050,15 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
         }
     }
 
-    private Mono<List<Float>> getEmbeddingWithCache(String cacheKey,
-            String text,
-            String modelCategory,
-            String modelName,
-            String teamId) {
-        return cacheService.get(cacheKey)
-                .subscribeOn(Schedulers.boundedElastic())
-                .flatMap(cached -> {
-                    try {
-                        List<Double> cachedValues = objectMapper.readValue(cached,
-                                objectMapper.getTypeFactory().constructCollectionType(List.class, Double.class));
-                        if (!cachedValues.isEmpty()) {
-                            List<Float> embedding = cachedValues.stream().map(Double::floatValue)
-                                    .collect(Collectors.toList());
-                            return Mono.just(embedding);
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to deserialize cached embedding for key {}: {}", cacheKey, e.getMessage());
-                    }
-                    return Mono.<List<Float>>empty();
-                })
-                .switchIfEmpty(milvusStoreService.getEmbedding(text, modelCategory, modelName, teamId)
-                        .flatMap(embedding -> Mono.fromRunnable(() -> {
-                            try {
-                                List<Double> toCache = embedding.stream().map(Float::doubleValue).toList();
-                                cacheService.set(cacheKey, objectMapper.writeValueAsString(toCache),
-                                        EMBEDDING_CACHE_TTL)
-                                        .subscribe();
-                            } catch (Exception e) {
-                                log.warn("Failed to cache embedding for key {}: {}", cacheKey, e.getMessage());
-                            }
-                        })
-                                .subscribeOn(Schedulers.boundedElastic())
-                                .thenReturn(embedding)));
+    /**
+     * Embeds text through the shared content-addressed cache, so identical chunks are embedded
+     * once per model across documents.
+     */
+    private Mono<List<Float>> getEmbeddingWithCache(String text, KnowledgeHubCollection collection, String teamId) {
+        return embeddingCache.getOrCompute(collection.getEmbeddingModel(), collection.getEmbeddingModelName(),
+                collection.getEmbeddingDimension(), text,
+                () -> milvusStoreService.getEmbedding(text, collection.getEmbeddingModel(),
+                        collection.getEmbeddingModelName(), teamId));
     }
 
     private Mono<Void> finalizeEmbedding(KnowledgeHubDocument document,
@@ -1150,18 +1134,6 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
         }
     }
 
-    private String buildEmbeddingCacheKey(String documentId, String modelName, ProcessedDocumentDto.ChunkDto chunk) {
-        String suffix;
-        if (chunk.getChunkIndex() != null) {
-            suffix = chunk.getChunkIndex().toString();
-        } else if (StringUtils.hasText(chunk.getChunkId())) {
-            suffix = chunk.getChunkId();
-        } else {
-            suffix = String.valueOf(Math.abs(Objects.hash(chunk.getText())));
-        }
-        return EMBEDDING_CACHE_PREFIX + documentId + ":" + modelName + ":" + suffix;
-    }
-
     /**
      * Decrypt sensitive fields in ProcessedDocumentDto after reading from S3.
      * Decrypts chunk text and metadata fields.
@@ -1204,10 +1176,14 @@ public class KnowledgeHubDocumentEmbeddingServiceImpl implements KnowledgeHubDoc
 
         // Decrypt chunk text
         if (processedDoc.getChunks() != null && !processedDoc.getChunks().isEmpty()) {
+            String documentId = processedDoc.getProcessingMetadata() != null
+                    ? processedDoc.getProcessingMetadata().getDocumentId()
+                    : null;
             tasks.add(Flux.fromIterable(processedDoc.getChunks())
                     .flatMap(chunk -> {
                         if (chunk.getText() != null && !chunk.getText().isEmpty()) {
-                            return chunkEncryptionService.decryptChunkText(chunk.getText(), teamId, finalKeyVersion)
+                            return chunkEncryptionService.decryptChunkText(chunk.getText(), teamId, finalKeyVersion,
+                                            documentId, chunk.getChunkId(), chunk.getChunkIndex())
                                     .map(decrypted -> {
                                         chunk.setText(decrypted);
                                         return chunk;
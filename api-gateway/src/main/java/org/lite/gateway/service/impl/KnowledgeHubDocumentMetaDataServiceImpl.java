@@ -946,9 +946,13 @@ public class KnowledgeHubDocumentMetaDataServiceImpl implements KnowledgeHubDocu
 
         // Decrypt chunk text
         if (processedDoc.getChunks() != null && !processedDoc.getChunks().isEmpty()) {
+            String documentId = processedDoc.getProcessingMetadata() != null
+                    ? processedDoc.getProcessingMetadata().getDocumentId()
+                    : null;
             for (ProcessedDocumentDto.ChunkDto chunk : processedDoc.getChunks()) {
                 if (chunk.getText() != null && !chunk.getText().isEmpty()) {
-                    decryptionTasks.add(chunkEncryptionService.decryptChunkText(chunk.getText(), teamId, keyVersion)
+                    decryptionTasks.add(chunkEncryptionService.decryptChunkText(chunk.getText(), teamId, keyVersion,
+                                    documentId, chunk.getChunkId(), chunk.getChunkIndex())
                             .doOnNext(chunk::setText)
                             .onErrorResume(e -> {
                                 log.debug(
@@ -17,6 +17,8 @@ import org.lite.gateway.service.*;
 import org.lite.gateway.util.AuditLogHelper;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
@@ -35,6 +37,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -228,39 +231,51 @@ public class KnowledgeHubDocumentProcessingServiceImpl implements KnowledgeHubDo
                     Boolean isEncrypted = document.getEncrypted();
                     String encryptionKeyVersion = document.getEncryptionKeyVersion();
 
-                    // Step 1: Download file from S3
-                    // Step 1: Download file from S3
-                    return objectStorageService.downloadFileContent(document.getS3Key())
-                            .doOnSuccess(
-                                    bytes -> log.info("Downloaded {} bytes for document: {}", bytes.length, documentId))
-                            .flatMap(bytes -> {
-                                // Check if file is encrypted and decrypt if needed
-                                Mono<byte[]> fileBytesMono;
-                                if (document.getEncrypted() != null && document.getEncrypted()
-                                        && document.getEncryptionKeyVersion() != null
-                                        && !document.getEncryptionKeyVersion().isEmpty()) {
-                                    log.info("Decrypting encrypted file for document: {} (key version: {})",
-                                            documentId, document.getEncryptionKeyVersion());
-                                    fileBytesMono = chunkEncryptionService.decryptFile(
-                                            bytes,
-                                            document.getTeamId(),
-                                            document.getEncryptionKeyVersion())
-                                            .doOnSuccess(decrypted -> log.info(
-                                                    "Decrypted file for document {}: {} bytes -> {} bytes",
-                                                    documentId, bytes.length, decrypted.length))
-                                            .onErrorResume(e -> {
-                                                log.error("Failed to decrypt file for document {}: {}", documentId,
-                                                        e.getMessage(), e);
-                                                return Mono.error(
-                                                        new RuntimeException(
-                                                                "Failed to decrypt file: " + e.getMessage(), e));
-                                            });
-                                } else {
-                                    log.debug("File for document {} is not encrypted (legacy file)", documentId);
-                                    fileBytesMono = Mono.just(bytes);
-                                }
+                    // Step 1: Download file from S3, decrypting encrypted files as they stream in so the
+                    // ciphertext is never held in memory next to the plaintext Tika needs
+                    AtomicLong storedBytes = new AtomicLong();
+                    Mono<byte[]> fileBytesMono;
+                    if (document.getEncrypted() != null && document.getEncrypted()
+                            && document.getEncryptionKeyVersion() != null
+                            && !document.getEncryptionKeyVersion().isEmpty()) {
+                        log.info("Decrypting encrypted file for document: {} (key version: {})",
+                                documentId, document.getEncryptionKeyVersion());
+                        Flux<DataBuffer> encryptedContent = objectStorageService.downloadFileStream(document.getS3Key())
+                                .doOnNext(buffer -> storedBytes.addAndGet(buffer.readableByteCount()));
+                        fileBytesMono = DataBufferUtils.join(chunkEncryptionService.decryptFileStream(
+                                encryptedContent,
+                                document.getTeamId(),
+                                document.getEncryptionKeyVersion()))
+                                .map(buffer -> {
+                                    try {
+                                        byte[] decrypted = new byte[buffer.readableByteCount()];
+                                        buffer.read(decrypted);
+                                        return decrypted;
+                                    } finally {
+                                        DataBufferUtils.release(buffer);
+                                    }
+                                })
+                                .defaultIfEmpty(new byte[0])
+                                .doOnSuccess(decrypted -> log.info(
+                                        "Decrypted file for document {}: {} bytes -> {} bytes",
+                                        documentId, storedBytes.get(), decrypted.length))
+                                .onErrorResume(e -> {
+                                    log.error("Failed to decrypt file for document {}: {}", documentId,
+                                            e.getMessage(), e);
+                                    return Mono.error(
+                                            new RuntimeException(
+                                                    "Failed to decrypt file: " + e.getMessage(), e));
+                                });
+                    } else {
+                        log.debug("File for document {} is not encrypted (legacy file)", documentId);
+                        fileBytesMono = objectStorageService.downloadFileContent(document.getS3Key())
+                                .doOnNext(bytes -> storedBytes.set(bytes.length));
+                    }
 
-                                return fileBytesMono.flatMap(fileBytes -> {
+                    return fileBytesMono
+                            .doOnSuccess(bytes -> log.info("Downloaded {} bytes for document: {}", storedBytes.get(),
+                                    documentId))
+                            .flatMap(fileBytes -> {
                                     // Step 2: Parse document with Tika
                                     log.info("Parsing document with Tika: {}", documentId);
                                     TikaDocumentParser.ParseResult parseResult = tikaDocumentParser.parse(fileBytes,
@@ -343,7 +358,7 @@ public class KnowledgeHubDocumentProcessingServiceImpl implements KnowledgeHubDo
                                                                                             parseResult.getText()
                                                                                                     .length());
                                                                                     auditContext.put("fileSizeBytes",
-                                                                                            bytes.length);
+                                                                                            storedBytes.get());
                                                                                     auditContext.put(
                                                                                             "decryptedFileSizeBytes",
                                                                                             fileBytes.length);
@@ -410,7 +425,6 @@ public class KnowledgeHubDocumentProcessingServiceImpl implements KnowledgeHubDo
                                                         }));
                                             });
                                 });
-                            });
                 })
                 .onErrorResume(error -> {
                     log.error("Error processing document: {}", documentId, error);
@@ -1083,15 +1097,14 @@ public class KnowledgeHubDocumentProcessingServiceImpl implements KnowledgeHubDo
         return chunkRepository.deleteAllByDocumentId(document.getDocumentId())
                 .then(chunkEncryptionService.getCurrentKeyVersion(document.getTeamId()))
                 .flatMap(currentKeyVersion -> {
-                    // Process chunks reactively
-                    return Flux.fromIterable(chunkResults)
-                            .flatMap(chunk -> {
-                                // Encrypt chunk text with current key version
-                                return chunkEncryptionService.encryptChunkText(
-                                        chunk.getText(),
-                                        document.getTeamId(),
-                                        currentKeyVersion)
-                                        .map(encryptedText -> org.lite.gateway.entity.KnowledgeHubChunk.builder()
+                    // Encrypt all chunk texts with current key version in one batch
+                    List<String> texts = chunkResults.stream().map(ChunkingService.ChunkResult::getText).toList();
+                    return chunkEncryptionService.encryptChunkTexts(texts, document.getTeamId(), currentKeyVersion)
+                            .flatMapMany(encryptedTexts -> Flux.range(0, chunkResults.size())
+                                    .map(i -> {
+                                        ChunkingService.ChunkResult chunk = chunkResults.get(i);
+                                        String encryptedText = encryptedTexts.get(i);
+                                        return org.lite.gateway.entity.KnowledgeHubChunk.builder()
                                                 .chunkId(UUID.randomUUID().toString())
                                                 .documentId(document.getDocumentId())
                                                 .teamId(document.getTeamId())
@@ -1110,8 +1123,8 @@ public class KnowledgeHubDocumentProcessingServiceImpl implements KnowledgeHubDo
                                                 .metadataOnly(Boolean.TRUE.equals(chunk.getMetadataOnly()))
                                                 .createdAt(System.currentTimeMillis())
                                                 .chunkStrategy(document.getChunkStrategy())
-                                                .build());
-                            })
+                                                .build();
+                                    }))
                             .collectList()
                             .flatMap(chunks -> {
                                 // Bulk save all chunks
@@ -193,47 +193,41 @@ public class KnowledgeHubDocumentServiceImpl implements KnowledgeHubDocumentServ
                                                                                 documentId));
                                         }
 
-                                        // File is not encrypted yet - encrypt it
-                                        log.info("Encrypting file for document: {}", documentId);
-
-                                        return objectStorageService.downloadFileContent(s3Key)
-                                                        .flatMap(plainBytes -> {
-                                                                // Encrypt file bytes
+                                        // File is not encrypted yet - encrypt it while streaming it back to the same
+                                        // key, so neither the plaintext nor the ciphertext is held in memory
+                                        return objectStorageService.getFileMetadata(s3Key)
+                                                        .flatMap(metadata -> {
+                                                                long plainLength = metadata.getContentLength() != null
+                                                                                ? metadata.getContentLength()
+                                                                                : fileSize;
                                                                 return chunkEncryptionService
                                                                                 .getCurrentKeyVersion(
                                                                                                 document.getTeamId())
-                                                                                .flatMap(encryptionKeyVersion -> chunkEncryptionService
-                                                                                                .encryptFile(
-                                                                                                                plainBytes,
-                                                                                                                document.getTeamId(),
-                                                                                                                encryptionKeyVersion)
-                                                                                                .flatMap(encryptedBytes -> {
-                                                                                                        log.info(
-                                                                                                                        "Encrypted file for document {}: {} bytes -> {} bytes (key version: {})",
-                                                                                                                        documentId,
-                                                                                                                        plainBytes.length,
-                                                                                                                        encryptedBytes.length,
+                                                                                .flatMap(encryptionKeyVersion -> {
+                                                                                        long encryptedLength = chunkEncryptionService
+                                                                                                        .encryptedFileLength(plainLength,
                                                                                                                         encryptionKeyVersion);
+                                                                                        log.info(
+                                                                                                        "Encrypting file for document {}: {} bytes -> {} bytes (key version: {})",
+                                                                                                        documentId,
+                                                                                                        plainLength,
+                                                                                                        encryptedLength,
+                                                                                                        encryptionKeyVersion);
 
                                                                                                         // Re-upload
                                                                                                         // encrypted
                                                                                                         // file (replace
                                                                                                         // original)
                                                                                                         return objectStorageService
-                                                                                                                        .uploadFileBytes(
+                                                                                                                        .uploadFileStream(
                                                                                                                                         s3Key,
-                                                                                                                                        encryptedBytes,
+                                                                                                                                        chunkEncryptionService.encryptFileStream(
+                                                                                                                                                        objectStorageService.downloadFileStream(s3Key),
+                                                                                                                                                        document.getTeamId(),
+                                                                                                                                                        encryptionKeyVersion),
                                                                                                                                         document.getContentType(),
-                                                                                                                                        encryptionKeyVersion // Pass
-                                                                                                                                                             // encryption
-                                                                                                                                                             // key
-                                                                                                                                                             // version
-                                                                                                                                                             // to
-                                                                                                                                                             // store
-                                                                                                                                                             // in
-                                                                                                                                                             // S3
-                                                                                                                                                             // metadata
-                                                                                                        )
+                                                                                                                                        encryptedLength,
+                                                                                                                                        encryptionKeyVersion)
                                                                                                                         .then(Mono.fromCallable(
                                                                                                                                         () -> {
                                                                                                                                                 // Update
@@ -253,7 +247,7 @@ public class KnowledgeHubDocumentServiceImpl implements KnowledgeHubDocumentServ
                                                                                                                                                 document.setEncryptionKeyVersion(
                                                                                                                                                                 encryptionKeyVersion);
                                                                                                                                                 document.setFileSize(
-                                                                                                                                                                (long) encryptedBytes.length); // Update
+                                                                                                                                                                encryptedLength); // Update
                                                                                                                                                                                                // file
                                                                                                                                                                                                // size
                                                                                                                                                                                                // after
@@ -294,7 +288,7 @@ public class KnowledgeHubDocumentServiceImpl implements KnowledgeHubDocumentServ
                                                                                                                                                 fileSize);
                                                                                                                                 auditContext.put(
                                                                                                                                                 "encryptedFileSize",
-                                                                                                                                                encryptedBytes.length);
+                                                                                                                                                encryptedLength);
                                                                                                                                 auditContext.put(
                                                                                                                                                 "s3Key",
                                                                                                                                                 s3Key);
@@ -306,8 +300,8 @@ public class KnowledgeHubDocumentServiceImpl implements KnowledgeHubDocumentServ
                                                                                                                                                 encryptionKeyVersion);
                                                                                                                                 auditContext.put(
                                                                                                                                                 "sizeChangeBytes",
-                                                                                                                                                encryptedBytes.length
-                                                                                                                                                                - plainBytes.length);
+                                                                                                                                                encryptedLength
+                                                                                                                                                                - plainLength);
                                                                                                                                 auditContext.put(
                                                                                                                                                 "durationMs",
                                                                                                                                                 durationMs);
@@ -320,8 +314,8 @@ public class KnowledgeHubDocumentServiceImpl implements KnowledgeHubDocumentServ
                                                                                                                                                 .format(
                                                                                                                                                                 "Document '%s' uploaded and encrypted successfully - %d bytes -> %d bytes (key version: %s)",
                                                                                                                                                                 fileName,
-                                                                                                                                                                plainBytes.length,
-                                                                                                                                                                encryptedBytes.length,
+                                                                                                                                                                plainLength,
+                                                                                                                                                                encryptedLength,
                                                                                                                                                                 encryptionKeyVersion);
 
                                                                                                                                 return documentRepository
@@ -343,7 +337,7 @@ public class KnowledgeHubDocumentServiceImpl implements KnowledgeHubDocumentServ
                                                                                                                                                                         .thenReturn(doc);
                                                                                                                                                 });
                                                                                                                         });
-                                                                                                }));
+                                                                                                });
                                                         })
                                                         .flatMap(doc -> maybePublishProcessingEvent(doc, documentId))
                                                         .onErrorResume(error -> {
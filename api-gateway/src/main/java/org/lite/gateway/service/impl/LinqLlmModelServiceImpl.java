@@ -827,9 +827,28 @@ public class LinqLlmModelServiceImpl implements LinqLlmModelService {
         } else {
             log.debug("Using static LLM endpoint (no {model} placeholder to replace): {}", endpoint);
         }
+        // Batched embeddings use the providers' batch endpoints where they differ
+        if (embedTexts(request) != null) {
+            if ("gemini-embed".equals(llmModel.getModelCategory())) {
+                endpoint = endpoint.replace(":embedContent", ":batchEmbedContents");
+            } else if ("ollama-embed".equals(llmModel.getModelCategory()) && endpoint.endsWith("/api/embeddings")) {
+                endpoint = endpoint.substring(0, endpoint.length() - "/api/embeddings".length()) + "/api/embed";
+            }
+        }
         return endpoint;
     }
 
+    /**
+     * Texts of a batched embed request (the "texts" param), or null for a single "text".
+     */
+    private List<String> embedTexts(LinqRequest request) {
+        if (request.getQuery() == null || request.getQuery().getParams() == null
+                || !(request.getQuery().getParams().get("texts") instanceof List<?> texts)) {
+            return null;
+        }
+        return texts.stream().map(text -> text != null ? text.toString() : "").toList();
+    }
+
     private Object buildLlmPayload(LinqRequest request, LinqLlmModel llmModel) {
         Map<String, Object> payload = new HashMap<>();
         LinqRequest.Query.LlmConfig llmConfig = request.getQuery().getLlmConfig();
@@ -1079,7 +1098,8 @@ public class LinqLlmModelServiceImpl implements LinqLlmModelService {
                 String textOpenAi = textParamOpenAi != null ? textParamOpenAi.toString() : "";
                 String modelOpenAi = llmConfig != null && llmConfig.getModel() != null ? llmConfig.getModel()
                         : "text-embedding-ada-002";
-                payload.put("input", textOpenAi);
+                List<String> textsOpenAi = embedTexts(request);
+                payload.put("input", textsOpenAi != null ? textsOpenAi : textOpenAi);
                 payload.put("model", modelOpenAi);
                 log.info("Building OpenAI Embedding payload for {} - text: {}, model: {}", modelCategory, textOpenAi,
                         modelOpenAi);
@@ -1089,7 +1109,13 @@ public class LinqLlmModelServiceImpl implements LinqLlmModelService {
                 String textOllama = textParamOllama != null ? textParamOllama.toString() : "";
                 String modelOllama = llmConfig != null && llmConfig.getModel() != null ? llmConfig.getModel()
                         : "nomic-embed-text";
-                payload.put("prompt", textOllama);
+                List<String> textsOllama = embedTexts(request);
+                if (textsOllama != null) {
+                    // /api/embed takes a list of inputs
+                    payload.put("input", textsOllama);
+                } else {
+                    payload.put("prompt", textOllama);
+                }
                 payload.put("model", modelOllama);
 
                 Map<String, Object> embedOptions = new HashMap<>();
@@ -1124,8 +1150,17 @@ public class LinqLlmModelServiceImpl implements LinqLlmModelService {
                 String geminiText = geminiTextParam != null ? geminiTextParam.toString() : "";
                 String geminiModel = llmConfig != null && llmConfig.getModel() != null ? llmConfig.getModel()
                         : "text-embedding-004";
-                // Gemini embedContent API format
-                payload.put("content", Map.of("parts", List.of(Map.of("text", geminiText))));
+                List<String> geminiTexts = embedTexts(request);
+                if (geminiTexts != null) {
+                    // Gemini batchEmbedContents API format
+                    payload.put("requests", geminiTexts.stream()
+                            .map(text -> Map.of("model", "models/" + geminiModel,
+                                    "content", Map.of("parts", List.of(Map.of("text", text)))))
+                            .toList());
+                } else {
+                    // Gemini embedContent API format
+                    payload.put("content", Map.of("parts", List.of(Map.of("text", geminiText))));
+                }
                 log.info("Building Gemini embedding payload - text: {}, model: {}", geminiText, geminiModel);
                 break;
             case "cohere-chat":
@@ -1248,7 +1283,8 @@ public class LinqLlmModelServiceImpl implements LinqLlmModelService {
                 String cohereText = cohereTextParam != null ? cohereTextParam.toString() : "";
                 String cohereEmbedModel = llmConfig != null && llmConfig.getModel() != null ? llmConfig.getModel()
                         : "embed-english-v3.0";
-                payload.put("texts", List.of(cohereText));
+                List<String> cohereTexts = embedTexts(request);
+                payload.put("texts", cohereTexts != null ? cohereTexts : List.of(cohereText));
                 payload.put("model", cohereEmbedModel);
                 payload.put("input_type", "search_document");
                 log.info("Building Cohere embedding payload - text: {}, model: {}", cohereText, cohereEmbedModel);
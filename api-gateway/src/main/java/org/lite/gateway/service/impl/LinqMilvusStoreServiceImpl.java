@@ -2,22 +2,30 @@ package org.lite.gateway.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.lite.gateway.dto.LinqRequest;
 import org.springframework.beans.factory.annotation.Value;
+import org.lite.gateway.dto.ChunkDecryptionRequest;
+import org.lite.gateway.dto.ChunkDecryptionResult;
+import org.lite.gateway.dto.MilvusBulkInsertResult;
 import org.lite.gateway.dto.MilvusCollectionInfo;
 import org.lite.gateway.dto.MilvusCollectionSchemaInfo;
 import org.lite.gateway.dto.MilvusCollectionVerificationResponse;
-import org.lite.gateway.repository.AgentTaskRepository;
+import org.lite.gateway.dto.MilvusInsertRow;
 import org.lite.gateway.service.ChunkEncryptionService;
+import org.lite.gateway.service.EmbeddingBatcher;
+import org.lite.gateway.service.KeywordIndexService;
 import org.lite.gateway.service.LinqMilvusStoreService;
+import org.lite.gateway.service.MilvusCollectionCatalog;
 import org.lite.gateway.service.LinqLlmModelService;
+import org.lite.gateway.service.QueryEmbeddingCache;
+import org.lite.gateway.service.ReactiveMilvusClient;
+import org.lite.gateway.service.ReactiveMilvusClient.Operation;
+import org.lite.gateway.service.WorkflowCollectionIndex;
 import org.lite.gateway.validation.validator.MilvusSchemaValidator;
 import org.springframework.stereotype.Service;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
-import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Mono;
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.common.clientenum.ConsistencyLevelEnum;
 import io.milvus.grpc.DataType;
@@ -38,13 +46,12 @@ import io.milvus.param.collection.DropCollectionParam;
 import io.milvus.param.collection.ShowCollectionsParam;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import io.milvus.grpc.DescribeCollectionResponse;
 import io.milvus.param.collection.DescribeCollectionParam;
 import io.milvus.grpc.KeyValuePair;
-import io.milvus.grpc.FieldData;
 import io.milvus.grpc.FieldSchema;
 import io.milvus.param.collection.AlterCollectionParam;
 import io.milvus.param.collection.GetCollectionStatisticsParam;
@@ -52,6 +59,7 @@ import io.milvus.grpc.GetCollectionStatisticsResponse;
 import io.milvus.param.dml.DeleteParam;
 import io.milvus.grpc.MutationResult;
 
+import io.milvus.param.dml.QueryIteratorParam;
 import io.milvus.param.dml.QueryParam;
 import io.milvus.grpc.QueryResults;
 import io.milvus.response.QueryResultsWrapper;
@@ -64,16 +72,23 @@ import org.lite.gateway.enums.AuditEventType;
 import org.lite.gateway.enums.AuditResourceType;
 import org.lite.gateway.enums.AuditResultType;
 import org.lite.gateway.util.AuditLogHelper;
+import org.lite.gateway.util.Bm25Index;
+import org.lite.gateway.util.MilvusSearchResultDecoder;
+import org.lite.gateway.util.RankFusion;
 import java.time.LocalDateTime;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
+public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService, KeywordIndexService.ChunkSource {
 
     private final LinqLlmModelService linqLlmModelService;
-    private final MilvusServiceClient milvusClient;
-    private final AgentTaskRepository agentTaskRepository;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final ReactiveMilvusClient reactiveMilvusClient;
+    private final KeywordIndexService keywordIndexService;
+    private final MilvusCollectionCatalog collectionCatalog;
+    private final WorkflowCollectionIndex workflowCollectionIndex;
     private final ChunkEncryptionService chunkEncryptionService;
     private final AuditLogHelper auditLogHelper;
     private final ConcurrentHashMap<String, MilvusCollectionSchemaInfo> collectionSchemaCache = new ConcurrentHashMap<>();
@@ -81,38 +96,69 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
     @Value("${milvus.uri:#{null}}")
     private String milvusUri;
 
-    @PostConstruct
-    public void checkConnection() {
-        try {
-            log.info("🔍 Checking Milvus Connection...");
-            log.info("   URI: {}", milvusUri != null ? milvusUri : "LOCAL (null URI)");
+    @Value("${linqra.milvus.bulk.max-rows:500}")
+    private int bulkMaxRows;
 
-            R<ShowCollectionsResponse> response = milvusClient
-                    .showCollections(ShowCollectionsParam.newBuilder().build());
+    @Value("${linqra.milvus.hybrid.fusion:rrf}")
+    private String hybridFusion;
 
-            if (response.getStatus() != 0) {
-                log.error("❌ Failed to list collections: {}", response.getMessage());
-            } else {
-                List<String> names = response.getData().getCollectionNamesList();
-                log.debug("✅ Found {} collections: {}", names.size(), names);
-
-                // Detailed check for a few
-                for (String name : names) {
-                    R<DescribeCollectionResponse> desc = milvusClient
-                            .describeCollection(DescribeCollectionParam.newBuilder()
-                                    .withCollectionName(name)
-                                    .build());
-                    if (desc.getStatus() == 0) {
-                        log.debug("   - {} (ID: {}, Loaded: {})", name, desc.getData().getCollectionID(),
-                                desc.getData());
-                    } else {
-                        log.warn("   - {} (Describe Failed: {})", name, desc.getMessage());
+    @Value("${linqra.milvus.hybrid.rrf-k:60}")
+    private int hybridRrfK;
+
+    @Value("${linqra.milvus.hybrid.vector-weight:0.5}")
+    private double hybridVectorWeight;
+
+    @Value("${linqra.milvus.hybrid.candidates-per-result:4}")
+    private int hybridCandidatesPerResult;
+
+    @Value("${linqra.milvus.hybrid.max-candidates:200}")
+    private int hybridMaxCandidates;
+
+    @PostConstruct
+    public void checkConnection() {
+        reactiveMilvusClient.run(Operation.ADMIN, ReactiveMilvusClient.ALL_COLLECTIONS, client -> {
+            try {
+                log.info("🔍 Checking Milvus Connection...");
+                log.info("   URI: {}", milvusUri != null ? milvusUri : "LOCAL (null URI)");
+
+                R<ShowCollectionsResponse> response = client
+                        .showCollections(ShowCollectionsParam.newBuilder().build());
+
+                if (response.getStatus() != 0) {
+                    log.error("❌ Failed to list collections: {}", response.getMessage());
+                } else {
+                    List<String> names = response.getData().getCollectionNamesList();
+                    log.debug("✅ Found {} collections: {}", names.size(), names);
+
+                    // Detailed check for a few
+                    for (String name : names) {
+                        R<DescribeCollectionResponse> desc = client
+                                .describeCollection(DescribeCollectionParam.newBuilder()
+                                        .withCollectionName(name)
+                                        .build());
+                        if (desc.getStatus() == 0) {
+                            log.debug("   - {} (ID: {}, Loaded: {})", name, desc.getData().getCollectionID(),
+                                    desc.getData());
+                        } else {
+                            log.warn("   - {} (Describe Failed: {})", name, desc.getMessage());
+                        }
                     }
                 }
+            } catch (Exception e) {
+                log.error("❌ Milvus connection check failed", e);
             }
-        } catch (Exception e) {
-            log.error("❌ Milvus connection check failed", e);
-        }
+            return null;
+        }).subscribe(ignored -> {
+        }, e -> log.error("❌ Milvus connection check failed", e));
+    }
+
+    /**
+     * Runs a block of Milvus calls on the Milvus scheduler and subscribes to the Mono it
+     * builds once the blocking part has finished.
+     */
+    private <T> Mono<T> onMilvus(Operation operation, String collectionName,
+            Function<MilvusServiceClient, Mono<T>> body) {
+        return reactiveMilvusClient.run(operation, collectionName, body).flatMap(Function.identity());
     }
 
     private static final String EMBEDDING_FIELD = "embedding";
@@ -122,12 +168,9 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
     private static final int INDEX_PARAM_EF_CONSTRUCTION = 64;
     private static final int SEARCH_PARAM_EF = 64;
     private static final int SHARDS_NUM = 2;
-
-    // Regex patterns for keyword extraction
-    private static final Pattern QUOTED_TEXT_PATTERN = Pattern.compile("\"([^\"]+)\"");
-    private static final Pattern CAPITALIZED_PHRASE_PATTERN = Pattern
-            .compile("\\b[A-Z][a-zA-Z0-9]*(?:\\s+(?:[A-Z][a-zA-Z0-9]*|[0-9]+))+\\b");
-    private static final Pattern ALPHANUMERIC_ID_PATTERN = Pattern.compile("\\b[A-Za-z]+-\\d+\\b");
+    // Record fields indexed as keyword metadata, formerly boosted by 0.25 per matching query term
+    private static final List<String> KEYWORD_METADATA_FIELDS = List.of("title", "fileName", "subject");
+    private static final long KEYWORD_REBUILD_BATCH_SIZE = 1000;
 
     private static final Map<String, DataType> DATA_TYPE_MAP = Map.ofEntries(
             Map.entry("BOOL", DataType.Bool),
@@ -182,38 +225,155 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         log.info("Creating Milvus collection {} for team {}", collectionName, teamId);
         LocalDateTime startTime = LocalDateTime.now();
 
-        try {
-            R<Boolean> hasCollection = milvusClient.hasCollection(HasCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
-                    .build());
+        return onMilvus(Operation.ADMIN, collectionName, client -> {
+            try {
+                R<Boolean> hasCollection = client.hasCollection(HasCollectionParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .build());
 
-            if (hasCollection.getStatus() != 0) {
-                throw new IllegalStateException(
-                        "Failed to check if collection exists: " + hasCollection.getMessage());
-            }
+                if (hasCollection.getStatus() != 0) {
+                    throw new IllegalStateException(
+                            "Failed to check if collection exists: " + hasCollection.getMessage());
+                }
+
+                if (Boolean.TRUE.equals(hasCollection.getData())) {
+                    log.info("Collection {} already exists, skipping creation but ensuring it is loaded", collectionName);
+
+                    // Ensure it is loaded (critical for pre-existing/script-created collections)
+                    R<?> loadResponse = client.loadCollection(LoadCollectionParam.newBuilder()
+                            .withCollectionName(collectionName)
+                            .build());
+
+                    if (loadResponse.getStatus() != 0) {
+                        log.warn("Failed to load existing collection {}: {}", collectionName, loadResponse.getMessage());
+                        // Not throwing generic exception here as we might want to return success for
+                        // existing collection
+                    }
+
+                    // Log skipped creation attempt
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> auditContext = new HashMap<>();
+                    auditContext.put("collectionName", collectionName);
+                    auditContext.put("teamId", teamId);
+                    auditContext.put("collectionType", collectionType);
+                    auditContext.put("reason", "Collection already exists");
+                    auditContext.put("durationMs", durationMs);
+
+                    // Chain audit logging before returning
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.RAG_COLLECTION_CREATED,
+                            AuditActionType.CREATE,
+                            AuditResourceType.COLLECTION,
+                            collectionName,
+                            String.format("Collection creation skipped - collection '%s' already exists", collectionName),
+                            auditContext,
+                            null,
+                            null,
+                            AuditResultType.SUCCESS)
+                            .doOnError(auditError -> log.error("Failed to log audit event (collection already exists): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .thenReturn(Map.of("message",
+                                    "Collection " + collectionName + " already exists, skipping creation"));
+                }
 
-            if (Boolean.TRUE.equals(hasCollection.getData())) {
-                log.info("Collection {} already exists, skipping creation but ensuring it is loaded", collectionName);
+                List<FieldType> fields = schemaFields.stream().map(this::mapToFieldType).toList();
 
-                // Ensure it is loaded (critical for pre-existing/script-created collections)
-                R<?> loadResponse = milvusClient.loadCollection(LoadCollectionParam.newBuilder()
+                CreateCollectionParam.Builder builder = CreateCollectionParam.newBuilder()
                         .withCollectionName(collectionName)
-                        .build());
+                        .withDescription(description != null ? description : "")
+                        .withShardsNum(SHARDS_NUM)
+                        .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+
+                        .withSchema(CollectionSchemaParam.newBuilder()
+                                .withFieldTypes(fields)
+                                .build());
+
+                R<?> createResponse = client.createCollection(builder.build());
+                if (createResponse.getStatus() != 0) {
+                    throw new IllegalStateException(
+                            "Failed to create collection " + collectionName + ": " + createResponse.getMessage());
+                }
+                log.info("Created Milvus collection: {}", collectionName);
+
+                // Create index on embedding field
+                String embeddingField = schemaFields.stream()
+                        .filter(f -> "FLOAT_VECTOR".equals(f.get("dtype")))
+                        .findFirst()
+                        .map(f -> (String) f.get("name"))
+                        .orElseThrow(() -> new IllegalArgumentException("No FloatVector field found"));
+
+                CreateIndexParam indexParam = CreateIndexParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .withFieldName(embeddingField)
+                        .withIndexType(INDEX_TYPE)
+                        .withMetricType(METRIC_TYPE)
+
+                        .withExtraParam(
+                                "{\"M\":" + INDEX_PARAM_M + ",\"efConstruction\":" + INDEX_PARAM_EF_CONSTRUCTION + "}")
+                        .build();
+
+                R<?> indexResponse = client.createIndex(indexParam);
+                if (indexResponse.getStatus() != 0) {
+                    throw new IllegalStateException(
+                            "Failed to create index for " + collectionName + ": " + indexResponse.getMessage());
+                }
+                log.debug("Created index on field: {}", embeddingField);
 
+                // Load collection
+                R<?> loadResponse = client.loadCollection(LoadCollectionParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .build());
                 if (loadResponse.getStatus() != 0) {
-                    log.warn("Failed to load existing collection {}: {}", collectionName, loadResponse.getMessage());
-                    // Not throwing generic exception here as we might want to return success for
-                    // existing collection
+                    throw new IllegalStateException(
+                            "Failed to load collection " + collectionName + ": " + loadResponse.getMessage());
+                }
+                log.debug("Loaded Milvus collection: {}", collectionName);
+
+                // Set teamId as a collection property
+                Map<String, String> collectionProperties = new HashMap<>();
+                collectionProperties.put("teamId", teamId);
+                if (collectionType != null && !collectionType.isBlank()) {
+                    collectionProperties.put("collectionType", collectionType);
+                }
+                if (properties != null) {
+                    properties.forEach((key, value) -> {
+                        if (key != null && value != null) {
+                            collectionProperties.put(key, value);
+                        }
+                    });
                 }
 
-                // Log skipped creation attempt
+                AlterCollectionParam.Builder alterBuilder = AlterCollectionParam.newBuilder()
+                        .withCollectionName(collectionName);
+                collectionProperties.forEach(alterBuilder::withProperty);
+                client.alterCollection(alterBuilder.build());
+                // alterCollection might not return R<RpcStatus> in older versions, checking
+                // signature?
+                // Usually returns R<RpcStatus> or void. Previously it was void in my view?
+                // Wait, Milvus client methods usually return R.
+                // Let's assume it returns R and check status.
+                R<?> alterResponse = client.alterCollection(alterBuilder.build());
+                if (alterResponse.getStatus() != 0) {
+                    log.warn("Failed to set properties for collection {}: {}", collectionName, alterResponse.getMessage());
+                }
+                log.debug("Set collection properties {} for {}", collectionProperties, collectionName);
+
+                // Log successful collection creation
                 long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
                 Map<String, Object> auditContext = new HashMap<>();
                 auditContext.put("collectionName", collectionName);
                 auditContext.put("teamId", teamId);
                 auditContext.put("collectionType", collectionType);
-                auditContext.put("reason", "Collection already exists");
+                auditContext.put("description", description);
+                auditContext.put("schemaFieldCount", schemaFields.size());
+                auditContext.put("embeddingField", embeddingField);
+                auditContext.put("indexType", INDEX_TYPE.name());
+                auditContext.put("metricType", METRIC_TYPE.name());
+                auditContext.put("shardsNum", SHARDS_NUM);
+                auditContext.put("properties", collectionProperties);
                 auditContext.put("durationMs", durationMs);
+                auditContext.put("creationTimestamp", LocalDateTime.now().toString());
 
                 // Chain audit logging before returning
                 return auditLogHelper.logDetailedEvent(
@@ -221,173 +381,80 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                         AuditActionType.CREATE,
                         AuditResourceType.COLLECTION,
                         collectionName,
-                        String.format("Collection creation skipped - collection '%s' already exists", collectionName),
+                        String.format("Milvus collection '%s' created successfully for team '%s'", collectionName, teamId),
                         auditContext,
                         null,
-                        null,
-                        AuditResultType.SUCCESS)
-                        .doOnError(auditError -> log.error("Failed to log audit event (collection already exists): {}",
+                        null)
+                        .doOnError(auditError -> log.error("Failed to log audit event (collection created): {}",
                                 auditError.getMessage(), auditError))
                         .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .thenReturn(Map.of("message",
-                                "Collection " + collectionName + " already exists, skipping creation"));
-            }
-
-            List<FieldType> fields = schemaFields.stream().map(this::mapToFieldType).toList();
-
-            CreateCollectionParam.Builder builder = CreateCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
-                    .withDescription(description != null ? description : "")
-                    .withShardsNum(SHARDS_NUM)
-                    .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
-
-                    .withSchema(CollectionSchemaParam.newBuilder()
-                            .withFieldTypes(fields)
-                            .build());
-
-            R<?> createResponse = milvusClient.createCollection(builder.build());
-            if (createResponse.getStatus() != 0) {
-                throw new IllegalStateException(
-                        "Failed to create collection " + collectionName + ": " + createResponse.getMessage());
-            }
-            log.info("Created Milvus collection: {}", collectionName);
-
-            // Create index on embedding field
-            String embeddingField = schemaFields.stream()
-                    .filter(f -> "FLOAT_VECTOR".equals(f.get("dtype")))
-                    .findFirst()
-                    .map(f -> (String) f.get("name"))
-                    .orElseThrow(() -> new IllegalArgumentException("No FloatVector field found"));
-
-            CreateIndexParam indexParam = CreateIndexParam.newBuilder()
-                    .withCollectionName(collectionName)
-                    .withFieldName(embeddingField)
-                    .withIndexType(INDEX_TYPE)
-                    .withMetricType(METRIC_TYPE)
-
-                    .withExtraParam(
-                            "{\"M\":" + INDEX_PARAM_M + ",\"efConstruction\":" + INDEX_PARAM_EF_CONSTRUCTION + "}")
-                    .build();
+                        .thenReturn(Map.of("message", "Collection " + collectionName + " created successfully"));
+            } catch (Exception e) {
+                log.error("Failed to create collection {}: {}", collectionName, e.getMessage());
 
-            R<?> indexResponse = milvusClient.createIndex(indexParam);
-            if (indexResponse.getStatus() != 0) {
-                throw new IllegalStateException(
-                        "Failed to create index for " + collectionName + ": " + indexResponse.getMessage());
-            }
-            log.debug("Created index on field: {}", embeddingField);
+                // Log failed collection creation
+                long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                Map<String, Object> errorContext = new HashMap<>();
+                errorContext.put("collectionName", collectionName);
+                errorContext.put("teamId", teamId);
+                errorContext.put("collectionType", collectionType);
+                errorContext.put("description", description);
+                errorContext.put("schemaFieldCount", schemaFields != null ? schemaFields.size() : 0);
+                errorContext.put("error", e.getMessage());
+                errorContext.put("errorType", e.getClass().getSimpleName());
+                errorContext.put("durationMs", durationMs);
+                errorContext.put("failureTimestamp", LocalDateTime.now().toString());
 
-            // Load collection
-            R<?> loadResponse = milvusClient.loadCollection(LoadCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
-                    .build());
-            if (loadResponse.getStatus() != 0) {
-                throw new IllegalStateException(
-                        "Failed to load collection " + collectionName + ": " + loadResponse.getMessage());
+                // Chain audit logging before returning error
+                return auditLogHelper.logDetailedEvent(
+                        AuditEventType.RAG_COLLECTION_CREATED,
+                        AuditActionType.CREATE,
+                        AuditResourceType.COLLECTION,
+                        collectionName,
+                        String.format("Milvus collection creation failed for '%s': %s", collectionName, e.getMessage()),
+                        errorContext,
+                        null,
+                        null,
+                        AuditResultType.FAILED)
+                        .doOnError(auditError -> log.error("Failed to log audit event (collection creation failed): {}",
+                                auditError.getMessage(), auditError))
+                        .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                        .then(Mono.error(e));
             }
-            log.debug("Loaded Milvus collection: {}", collectionName);
+        }).flatMap(result -> collectionCatalog.refreshCollection(collectionName).thenReturn(result));
+    }
 
-            // Set teamId as a collection property
-            Map<String, String> collectionProperties = new HashMap<>();
-            collectionProperties.put("teamId", teamId);
-            if (collectionType != null && !collectionType.isBlank()) {
-                collectionProperties.put("collectionType", collectionType);
+    /**
+     * Dimension of the collection's float vector field, or null when the schema does not say.
+     * Query embeddings are cached under it so they share entries with the chunk embeddings.
+     */
+    private static Integer vectorDimension(DescribeCollectionResponse collection) {
+        for (FieldSchema field : collection.getSchema().getFieldsList()) {
+            if (field.getDataType() != DataType.FloatVector) {
+                continue;
             }
-            if (properties != null) {
-                properties.forEach((key, value) -> {
-                    if (key != null && value != null) {
-                        collectionProperties.put(key, value);
+            for (KeyValuePair param : field.getTypeParamsList()) {
+                if ("dim".equalsIgnoreCase(param.getKey())) {
+                    try {
+                        return Integer.parseInt(param.getValue());
+                    } catch (NumberFormatException e) {
+                        return null;
                     }
-                });
-            }
-
-            AlterCollectionParam.Builder alterBuilder = AlterCollectionParam.newBuilder()
-                    .withCollectionName(collectionName);
-            collectionProperties.forEach(alterBuilder::withProperty);
-            milvusClient.alterCollection(alterBuilder.build());
-            // alterCollection might not return R<RpcStatus> in older versions, checking
-            // signature?
-            // Usually returns R<RpcStatus> or void. Previously it was void in my view?
-            // Wait, Milvus client methods usually return R.
-            // Let's assume it returns R and check status.
-            R<?> alterResponse = milvusClient.alterCollection(alterBuilder.build());
-            if (alterResponse.getStatus() != 0) {
-                log.warn("Failed to set properties for collection {}: {}", collectionName, alterResponse.getMessage());
+                }
             }
-            log.debug("Set collection properties {} for {}", collectionProperties, collectionName);
-
-            // Log successful collection creation
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> auditContext = new HashMap<>();
-            auditContext.put("collectionName", collectionName);
-            auditContext.put("teamId", teamId);
-            auditContext.put("collectionType", collectionType);
-            auditContext.put("description", description);
-            auditContext.put("schemaFieldCount", schemaFields.size());
-            auditContext.put("embeddingField", embeddingField);
-            auditContext.put("indexType", INDEX_TYPE.name());
-            auditContext.put("metricType", METRIC_TYPE.name());
-            auditContext.put("shardsNum", SHARDS_NUM);
-            auditContext.put("properties", collectionProperties);
-            auditContext.put("durationMs", durationMs);
-            auditContext.put("creationTimestamp", LocalDateTime.now().toString());
-
-            // Chain audit logging before returning
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.RAG_COLLECTION_CREATED,
-                    AuditActionType.CREATE,
-                    AuditResourceType.COLLECTION,
-                    collectionName,
-                    String.format("Milvus collection '%s' created successfully for team '%s'", collectionName, teamId),
-                    auditContext,
-                    null,
-                    null)
-                    .doOnError(auditError -> log.error("Failed to log audit event (collection created): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .thenReturn(Map.of("message", "Collection " + collectionName + " created successfully"));
-        } catch (Exception e) {
-            log.error("Failed to create collection {}: {}", collectionName, e.getMessage());
-
-            // Log failed collection creation
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> errorContext = new HashMap<>();
-            errorContext.put("collectionName", collectionName);
-            errorContext.put("teamId", teamId);
-            errorContext.put("collectionType", collectionType);
-            errorContext.put("description", description);
-            errorContext.put("schemaFieldCount", schemaFields != null ? schemaFields.size() : 0);
-            errorContext.put("error", e.getMessage());
-            errorContext.put("errorType", e.getClass().getSimpleName());
-            errorContext.put("durationMs", durationMs);
-            errorContext.put("failureTimestamp", LocalDateTime.now().toString());
-
-            // Chain audit logging before returning error
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.RAG_COLLECTION_CREATED,
-                    AuditActionType.CREATE,
-                    AuditResourceType.COLLECTION,
-                    collectionName,
-                    String.format("Milvus collection creation failed for '%s': %s", collectionName, e.getMessage()),
-                    errorContext,
-                    null,
-                    null,
-                    AuditResultType.FAILED)
-                    .doOnError(auditError -> log.error("Failed to log audit event (collection creation failed): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .then(Mono.error(e));
         }
+        return null;
     }
 
     @Override
     public Mono<MilvusCollectionSchemaInfo> getCollectionSchema(String collectionName) {
-        return Mono.fromCallable(() -> {
-            MilvusCollectionSchemaInfo cached = collectionSchemaCache.get(collectionName);
-            if (cached != null) {
-                return cached;
-            }
+        MilvusCollectionSchemaInfo cached = collectionSchemaCache.get(collectionName);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
 
-            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
+        return reactiveMilvusClient.run(Operation.ADMIN, collectionName, client -> {
+            R<DescribeCollectionResponse> describeResponse = client.describeCollection(
                     DescribeCollectionParam.newBuilder()
                             .withCollectionName(collectionName)
 
@@ -435,6 +502,26 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                 }
             }
 
+            Integer vectorDimension = null;
+            Map<String, String> fieldDataTypes = new LinkedHashMap<>();
+            Set<String> nonNullableFields = new LinkedHashSet<>();
+            for (FieldSchema field : data.getSchema().getFieldsList()) {
+                fieldDataTypes.put(field.getName(), field.getDataType().name());
+                if (!field.getNullable()) {
+                    nonNullableFields.add(field.getName());
+                }
+                if (field.getName().equals(vectorFieldName)) {
+                    for (KeyValuePair param : field.getTypeParamsList()) {
+                        if ("dim".equalsIgnoreCase(param.getKey())) {
+                            try {
+                                vectorDimension = Integer.parseInt(param.getValue());
+                            } catch (NumberFormatException ignored) {
+                            }
+                        }
+                    }
+                }
+            }
+
             String collectionType = data.getPropertiesList().stream()
                     .filter(property -> "collectionType".equals(property.getKey()))
                     .map(KeyValuePair::getValue)
@@ -448,12 +535,14 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                     .vectorFieldName(vectorFieldName)
                     .textFieldName(textFieldName)
                     .textFieldMaxLength(textFieldMaxLength)
+                    .vectorDimension(vectorDimension)
+                    .fieldDataTypes(Collections.unmodifiableMap(fieldDataTypes))
+                    .nonNullableFields(Collections.unmodifiableSet(nonNullableFields))
                     .build();
 
             collectionSchemaCache.put(collectionName, schemaInfo);
             return schemaInfo;
-        })
-                .subscribeOn(Schedulers.boundedElastic());
+        });
     }
 
     private FieldType mapToFieldType(Map<String, Object> field) {
@@ -486,8 +575,9 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         return builder.build();
     }
 
-    private MilvusCollectionInfo buildCollectionInfo(String collectionName, String teamId,
-            DescribeCollectionResponse describeResponse) {
+    private MilvusCollectionInfo buildCollectionInfo(MilvusCollectionCatalog.Entry entry, String teamId) {
+        String collectionName = entry.name();
+        DescribeCollectionResponse describeResponse = entry.description();
         Integer vectorDimension = null;
         String vectorFieldName = null;
         String description = null;
@@ -552,10 +642,9 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
             }
         }
 
-        long fetchedRowCount = getCollectionRowCount(collectionName);
-        if (fetchedRowCount >= 0) {
-            rowCount = fetchedRowCount;
-            properties.put("rowCount", String.valueOf(fetchedRowCount));
+        if (entry.rowCount() >= 0) {
+            rowCount = entry.rowCount();
+            properties.put("rowCount", String.valueOf(entry.rowCount()));
         }
 
         return MilvusCollectionInfo.builder()
@@ -572,33 +661,21 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
     }
 
     private boolean isCollectionNameLocked(String collectionName) {
-        try {
-            String regex = "^/api/milvus/collections/" + Pattern.quote(collectionName) + "(/.*)?$";
-            return Boolean.TRUE.equals(agentTaskRepository.existsByWorkflowIntentMatching(regex).block());
-        } catch (Exception e) {
-            log.warn("Unable to determine usage for collection {}: {}", collectionName, e.getMessage());
-            return false;
-        }
+        return workflowCollectionIndex.isReferenced(collectionName);
     }
 
-    private long getCollectionRowCount(String collectionName) {
-        try {
-            R<GetCollectionStatisticsResponse> statsResponse = milvusClient.getCollectionStatistics(
-                    GetCollectionStatisticsParam.newBuilder()
-                            .withCollectionName(collectionName)
-
-                            .build());
-            if (statsResponse.getData() != null) {
-                for (KeyValuePair stat : statsResponse.getData().getStatsList()) {
-                    if ("row_count".equals(stat.getKey())) {
-                        return Long.parseLong(stat.getValue());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.warn("Unable to fetch row count for collection {}: {}", collectionName, e.getMessage());
-        }
-        return -1;
+    /**
+     * Like {@link #isCollectionNameLocked} but read from Mongo, so a task saved by another
+     * gateway instance an instant ago is seen. When Mongo cannot be asked the name counts as
+     * locked.
+     */
+    private Mono<Boolean> isCollectionNameLockedInStore(String collectionName) {
+        return workflowCollectionIndex.isReferencedInStore(collectionName)
+                .onErrorResume(e -> {
+                    log.warn("Unable to determine workflow usage of collection {}, treating it as locked: {}",
+                            collectionName, e.getMessage());
+                    return Mono.just(true);
+                });
     }
 
     @Override
@@ -719,99 +796,176 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
     private Mono<Map<String, String>> storeWithEmbedding(String collectionName, Map<String, Object> record,
             List<Float> embedding, String textField, String teamId, LocalDateTime startTime, String documentId,
             String collectionId, String target, String modelName, boolean preComputedEmbedding) {
-        try {
-            String text = (String) record.get(textField);
+        return onMilvus(Operation.WRITE, collectionName, client -> {
+            try {
+                String text = (String) record.get(textField);
 
-            // First get the collection schema to ensure we provide all fields
-            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                    DescribeCollectionParam.newBuilder()
-                            .withCollectionName(collectionName)
-                            .build());
+                // First get the collection schema to ensure we provide all fields
+                R<DescribeCollectionResponse> describeResponse = collectionCatalog.describe(client, collectionName);
 
-            if (describeResponse.getStatus() != 0) {
-                throw new IllegalStateException(
-                        "Failed to describe collection " + collectionName + ": " + describeResponse.getMessage());
-            }
-            if (describeResponse.getData() == null || describeResponse.getData().getSchema() == null) {
-                throw new IllegalStateException("Describe collection returned no schema for " + collectionName);
-            }
+                if (describeResponse.getStatus() != 0) {
+                    throw new IllegalStateException(
+                            "Failed to describe collection " + collectionName + ": " + describeResponse.getMessage());
+                }
+                if (describeResponse.getData() == null || describeResponse.getData().getSchema() == null) {
+                    throw new IllegalStateException("Describe collection returned no schema for " + collectionName);
+                }
 
-            List<InsertParam.Field> fields = new ArrayList<>();
+                List<InsertParam.Field> fields = new ArrayList<>();
 
-            // Add ID field with unique identifier per record
-            long uniqueId = Math.abs(UUID.randomUUID().getMostSignificantBits());
-            fields.add(new InsertParam.Field("id", Collections.singletonList(uniqueId)));
+                // Add ID field with unique identifier per record
+                long uniqueId = Math.abs(UUID.randomUUID().getMostSignificantBits());
+                fields.add(new InsertParam.Field("id", Collections.singletonList(uniqueId)));
 
-            // Add created_at field with current timestamp
-            fields.add(new InsertParam.Field("created_at", Collections.singletonList(System.currentTimeMillis())));
+                // Add created_at field with current timestamp
+                fields.add(new InsertParam.Field("created_at", Collections.singletonList(System.currentTimeMillis())));
 
-            // Add embedding field
-            fields.add(new InsertParam.Field("embedding", Collections.singletonList(embedding)));
+                // Add embedding field
+                fields.add(new InsertParam.Field("embedding", Collections.singletonList(embedding)));
 
-            // Add text field
-            fields.add(new InsertParam.Field(textField, Collections.singletonList(text)));
+                // Add text field
+                fields.add(new InsertParam.Field(textField, Collections.singletonList(text)));
 
-            // Add all other fields from the schema, using null if not provided in the
-            // record
-            for (io.milvus.grpc.FieldSchema fieldSchema : describeResponse.getData().getSchema().getFieldsList()) {
-                String fieldName = fieldSchema.getName();
-                if (!fieldName.equals("id") && !fieldName.equals("embedding") && !fieldName.equals(textField)) {
-                    Object value = record.get(fieldName);
+                // Add all other fields from the schema, using null if not provided in the
+                // record
+                for (io.milvus.grpc.FieldSchema fieldSchema : describeResponse.getData().getSchema().getFieldsList()) {
+                    String fieldName = fieldSchema.getName();
+                    if (!fieldName.equals("id") && !fieldName.equals("embedding") && !fieldName.equals(textField)) {
+                        Object value = record.get(fieldName);
 
-                    // Check if field is required (not nullable) and value is null
-                    String dataTypeName = fieldSchema.getDataType() != null ? fieldSchema.getDataType().name() : "";
-                    if (value == null && Boolean.FALSE.equals(fieldSchema.getNullable())) {
-                        // For non-nullable fields, provide a default value based on the data type
-                        value = determineDefaultValue(fieldName, dataTypeName);
-                    }
+                        // Check if field is required (not nullable) and value is null
+                        String dataTypeName = fieldSchema.getDataType() != null ? fieldSchema.getDataType().name() : "";
+                        if (value == null && Boolean.FALSE.equals(fieldSchema.getNullable())) {
+                            // For non-nullable fields, provide a default value based on the data type
+                            value = determineDefaultValue(fieldName, dataTypeName);
+                        }
 
-                    // If value is null, pass it through as-is
-                    Object convertedValue = value;
-                    if (value != null) {
-                        try {
-                            convertedValue = coerceValueForType(value, dataTypeName, fieldName);
-                        } catch (NumberFormatException e) {
-                            log.warn("Failed to parse number for field {} with value '{}': {}. Using default value.",
-                                    fieldName, value, e.getMessage());
-                            // Use default values for number fields when parsing fails
-                            convertedValue = fallbackDefaultValueForParsing(dataTypeName, value);
-                        } catch (Exception e) {
-                            log.warn("Failed to convert value for field {}: {}. Using original value.", fieldName,
-                                    e.getMessage());
+                        // If value is null, pass it through as-is
+                        Object convertedValue = value;
+                        if (value != null) {
+                            try {
+                                convertedValue = coerceValueForType(value, dataTypeName, fieldName);
+                            } catch (NumberFormatException e) {
+                                log.warn("Failed to parse number for field {} with value '{}': {}. Using default value.",
+                                        fieldName, value, e.getMessage());
+                                // Use default values for number fields when parsing fails
+                                convertedValue = fallbackDefaultValueForParsing(dataTypeName, value);
+                            } catch (Exception e) {
+                                log.warn("Failed to convert value for field {}: {}. Using original value.", fieldName,
+                                        e.getMessage());
+                            }
                         }
-                    }
 
-                    // Add the field with either the converted value or null
-                    fields.add(new InsertParam.Field(fieldName, Collections.singletonList(convertedValue)));
+                        // Add the field with either the converted value or null
+                        fields.add(new InsertParam.Field(fieldName, Collections.singletonList(convertedValue)));
+                    }
                 }
-            }
 
-            InsertParam insertParam = InsertParam.newBuilder()
-                    .withCollectionName(collectionName)
-                    .withFields(fields)
-                    .build();
+                InsertParam insertParam = InsertParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .withFields(fields)
+                        .build();
 
-            log.debug("Inserting record with fields: {}", fields.stream()
-                    .map(f -> f.getName() + ": " + f.getValues().getFirst())
-                    .collect(Collectors.joining(", ")));
+                log.debug("Inserting record with fields: {}", fields.stream()
+                        .map(f -> f.getName() + ": " + f.getValues().getFirst())
+                        .collect(Collectors.joining(", ")));
 
-            R<io.milvus.grpc.MutationResult> insertResponse = milvusClient.insert(insertParam);
-            if (insertResponse.getStatus() != 0) {
-                log.error("Milvus insert returned non-zero status {} for collection {}", insertResponse.getStatus(),
-                        collectionName);
+                R<io.milvus.grpc.MutationResult> insertResponse = client.insert(insertParam);
+                if (insertResponse.getStatus() != 0) {
+                    log.error("Milvus insert returned non-zero status {} for collection {}", insertResponse.getStatus(),
+                            collectionName);
+
+                    // Log failed storage
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> errorContext = new HashMap<>();
+                    errorContext.put("collectionName", collectionName);
+                    errorContext.put("teamId", teamId);
+                    errorContext.put("documentId", documentId);
+                    errorContext.put("collectionId", collectionId);
+                    errorContext.put("embeddingSize", embedding != null ? embedding.size() : 0);
+                    errorContext.put("preComputedEmbedding", preComputedEmbedding);
+                    errorContext.put("textField", textField);
+                    errorContext.put("milvusStatus", insertResponse.getStatus());
+                    errorContext.put("error", insertResponse.getMessage());
+                    errorContext.put("durationMs", durationMs);
+                    errorContext.put("failureTimestamp", LocalDateTime.now().toString());
+
+                    // Chain audit logging before returning error
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.CHUNK_CREATED,
+                            AuditActionType.CREATE,
+                            AuditResourceType.CHUNK,
+                            documentId != null ? documentId : collectionName,
+                            String.format(
+                                    "Record storage failed in collection '%s' - Milvus insert returned non-zero status",
+                                    collectionName),
+                            errorContext,
+                            documentId,
+                            collectionId,
+                            AuditResultType.FAILED)
+                            .doOnError(auditError -> log.error("Failed to log audit event (Milvus insert failed): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .then(Mono.error(new IllegalStateException(
+                                    "Milvus insert failed with status: " + insertResponse.getStatus())));
+                }
+                long insertCount = insertResponse.getData().getInsertCnt();
+                collectionCatalog.recordInsert(collectionName, insertCount);
+                log.info("Stored record in collection {} (inserted {} vectors)", collectionName, insertCount);
+
+                String keywordText = keywordText(record, null, textField);
+                List<KeywordIndexService.KeywordDocument> keywordDocument = keywordText != null
+                        && keywordIndexService.isEnabled()
+                                ? List.of(new KeywordIndexService.KeywordDocument(uniqueId, documentId, keywordText,
+                                        keywordMetadata(record)))
+                                : List.of();
+
+                // Log successful storage
+                long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                Map<String, Object> auditContext = new HashMap<>();
+                auditContext.put("collectionName", collectionName);
+                auditContext.put("teamId", teamId);
+                auditContext.put("documentId", documentId);
+                auditContext.put("collectionId", collectionId);
+                auditContext.put("embeddingSize", embedding != null ? embedding.size() : 0);
+                auditContext.put("preComputedEmbedding", preComputedEmbedding);
+                auditContext.put("textField", textField);
+                auditContext.put("target", target);
+                auditContext.put("modelName", modelName);
+                auditContext.put("insertCount", insertCount);
+                auditContext.put("recordFieldCount", record.size());
+                auditContext.put("durationMs", durationMs);
+                auditContext.put("storageTimestamp", LocalDateTime.now().toString());
 
-                // Log failed storage
+                // Chain audit logging before returning
+                return auditLogHelper.logDetailedEvent(
+                        AuditEventType.CHUNK_CREATED,
+                        AuditActionType.CREATE,
+                        AuditResourceType.CHUNK,
+                        documentId != null ? documentId : collectionName,
+                        String.format("Record stored successfully in collection '%s' for team '%s'", collectionName,
+                                teamId),
+                        auditContext,
+                        documentId,
+                        collectionId)
+                        .doOnError(auditError -> log.error("Failed to log audit event (record stored): {}",
+                                auditError.getMessage(), auditError))
+                        .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                        .then(indexKeywords(collectionName, teamId, keywordDocument))
+                        .thenReturn(Map.of("message", "Record stored successfully in collection " + collectionName));
+            } catch (Exception e) {
+                log.error("Failed to store record in collection {}: {}", collectionName, e.getMessage(), e);
+
+                // Log storage failure
                 long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
                 Map<String, Object> errorContext = new HashMap<>();
                 errorContext.put("collectionName", collectionName);
                 errorContext.put("teamId", teamId);
                 errorContext.put("documentId", documentId);
                 errorContext.put("collectionId", collectionId);
-                errorContext.put("embeddingSize", embedding != null ? embedding.size() : 0);
-                errorContext.put("preComputedEmbedding", preComputedEmbedding);
                 errorContext.put("textField", textField);
-                errorContext.put("milvusStatus", insertResponse.getStatus());
-                errorContext.put("error", insertResponse.getMessage());
+                errorContext.put("error", e.getMessage());
+                errorContext.put("errorType", e.getClass().getSimpleName());
                 errorContext.put("durationMs", durationMs);
                 errorContext.put("failureTimestamp", LocalDateTime.now().toString());
 
@@ -821,86 +975,382 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                         AuditActionType.CREATE,
                         AuditResourceType.CHUNK,
                         documentId != null ? documentId : collectionName,
-                        String.format(
-                                "Record storage failed in collection '%s' - Milvus insert returned non-zero status",
-                                collectionName),
+                        String.format("Record storage failed in collection '%s': %s", collectionName, e.getMessage()),
                         errorContext,
                         documentId,
                         collectionId,
                         AuditResultType.FAILED)
-                        .doOnError(auditError -> log.error("Failed to log audit event (Milvus insert failed): {}",
+                        .doOnError(auditError -> log.error("Failed to log audit event (record storage failed in catch): {}",
                                 auditError.getMessage(), auditError))
                         .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .then(Mono.error(new IllegalStateException(
-                                "Milvus insert failed with status: " + insertResponse.getStatus())));
+                        .then(Mono.error(e));
             }
-            long insertCount = insertResponse.getData().getInsertCnt();
-            log.info("Stored record in collection {} (inserted {} vectors)", collectionName, insertCount);
+        });
+    }
 
-            // Log successful storage
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> auditContext = new HashMap<>();
-            auditContext.put("collectionName", collectionName);
-            auditContext.put("teamId", teamId);
-            auditContext.put("documentId", documentId);
-            auditContext.put("collectionId", collectionId);
-            auditContext.put("embeddingSize", embedding != null ? embedding.size() : 0);
-            auditContext.put("preComputedEmbedding", preComputedEmbedding);
-            auditContext.put("textField", textField);
-            auditContext.put("target", target);
-            auditContext.put("modelName", modelName);
-            auditContext.put("insertCount", insertCount);
-            auditContext.put("recordFieldCount", record.size());
-            auditContext.put("durationMs", durationMs);
-            auditContext.put("storageTimestamp", LocalDateTime.now().toString());
+    @Override
+    public Mono<MilvusBulkInsertResult> storeRecords(String collectionName, List<MilvusInsertRow> rows,
+            String textField, String teamId) {
+        if (teamId == null || teamId.trim().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("teamId cannot be null or empty"));
+        }
+        if (rows == null || rows.isEmpty()) {
+            return Mono.just(MilvusBulkInsertResult.builder()
+                    .collectionName(collectionName)
+                    .failures(List.of())
+                    .build());
+        }
+        LocalDateTime startTime = LocalDateTime.now();
+        int batchSize = Math.max(1, bulkMaxRows);
+        int batchCount = (rows.size() + batchSize - 1) / batchSize;
+
+        return getCollectionSchema(collectionName)
+                .flatMap(schema -> Flux.range(0, batchCount)
+                        .concatMap(batch -> {
+                            int from = batch * batchSize;
+                            int to = Math.min(rows.size(), from + batchSize);
+                            return insertBatch(collectionName, schema, rows, from, to, textField, teamId);
+                        })
+                        .collectList())
+                .map(batches -> {
+                    List<MilvusBulkInsertResult.RowFailure> failures = new ArrayList<>();
+                    long inserted = 0;
+                    int insertCalls = 0;
+                    for (MilvusBulkInsertResult batch : batches) {
+                        inserted += batch.getInsertedCount();
+                        insertCalls += batch.getInsertCalls();
+                        failures.addAll(batch.getFailures());
+                    }
+                    return MilvusBulkInsertResult.builder()
+                            .collectionName(collectionName)
+                            .requestedCount(rows.size())
+                            .insertedCount(inserted)
+                            .insertCalls(insertCalls)
+                            .failures(failures)
+                            .build();
+                })
+                .flatMap(result -> {
+                    Map<String, Object> firstRecord = rows.getFirst().getRecord();
+                    String documentId = firstRecord != null && firstRecord.get("documentId") != null
+                            ? firstRecord.get("documentId").toString() : null;
+                    String collectionId = firstRecord != null && firstRecord.get("collectionId") != null
+                            ? firstRecord.get("collectionId").toString() : null;
 
-            // Chain audit logging before returning
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.CHUNK_CREATED,
-                    AuditActionType.CREATE,
-                    AuditResourceType.CHUNK,
-                    documentId != null ? documentId : collectionName,
-                    String.format("Record stored successfully in collection '%s' for team '%s'", collectionName,
-                            teamId),
-                    auditContext,
-                    documentId,
-                    collectionId)
-                    .doOnError(auditError -> log.error("Failed to log audit event (record stored): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .thenReturn(Map.of("message", "Record stored successfully in collection " + collectionName));
-        } catch (Exception e) {
-            log.error("Failed to store record in collection {}: {}", collectionName, e.getMessage(), e);
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> auditContext = new HashMap<>();
+                    auditContext.put("collectionName", collectionName);
+                    auditContext.put("teamId", teamId);
+                    auditContext.put("documentId", documentId);
+                    auditContext.put("collectionId", collectionId);
+                    auditContext.put("textField", textField);
+                    auditContext.put("requestedCount", result.getRequestedCount());
+                    auditContext.put("insertCount", result.getInsertedCount());
+                    auditContext.put("failedCount", result.getFailures().size());
+                    auditContext.put("insertCalls", result.getInsertCalls());
+                    auditContext.put("durationMs", durationMs);
+                    auditContext.put("storageTimestamp", LocalDateTime.now().toString());
+
+                    log.info("Stored {}/{} records in collection {} with {} insert calls", result.getInsertedCount(),
+                            result.getRequestedCount(), collectionName, result.getInsertCalls());
 
-            // Log storage failure
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> errorContext = new HashMap<>();
-            errorContext.put("collectionName", collectionName);
-            errorContext.put("teamId", teamId);
-            errorContext.put("documentId", documentId);
-            errorContext.put("collectionId", collectionId);
-            errorContext.put("textField", textField);
-            errorContext.put("error", e.getMessage());
-            errorContext.put("errorType", e.getClass().getSimpleName());
-            errorContext.put("durationMs", durationMs);
-            errorContext.put("failureTimestamp", LocalDateTime.now().toString());
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.CHUNK_CREATED,
+                            AuditActionType.CREATE,
+                            AuditResourceType.CHUNK,
+                            documentId != null ? documentId : collectionName,
+                            String.format("Bulk stored %d of %d records in collection '%s' for team '%s'",
+                                    result.getInsertedCount(), result.getRequestedCount(), collectionName, teamId),
+                            auditContext,
+                            documentId,
+                            collectionId,
+                            result.getInsertedCount() > 0 || !result.hasFailures()
+                                    ? AuditResultType.SUCCESS
+                                    : AuditResultType.FAILED)
+                            .doOnError(auditError -> log.error("Failed to log audit event (bulk store): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .thenReturn(result);
+                });
+    }
 
-            // Chain audit logging before returning error
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.CHUNK_CREATED,
-                    AuditActionType.CREATE,
-                    AuditResourceType.CHUNK,
-                    documentId != null ? documentId : collectionName,
-                    String.format("Record storage failed in collection '%s': %s", collectionName, e.getMessage()),
-                    errorContext,
-                    documentId,
-                    collectionId,
-                    AuditResultType.FAILED)
-                    .doOnError(auditError -> log.error("Failed to log audit event (record storage failed in catch): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .then(Mono.error(e));
+    /**
+     * Validates rows {@code [from, to)} against the schema, builds one column per schema field
+     * from the valid ones and inserts them with a single call.
+     */
+    private Mono<MilvusBulkInsertResult> insertBatch(String collectionName, MilvusCollectionSchemaInfo schema,
+            List<MilvusInsertRow> rows, int from, int to, String textField, String teamId) {
+        return reactiveMilvusClient.run(Operation.WRITE, collectionName, client -> {
+            List<MilvusBulkInsertResult.RowFailure> failures = new ArrayList<>();
+            Map<String, String> columnTypes = new LinkedHashMap<>(schema.getFieldDataTypes());
+            columnTypes.putIfAbsent(textField, "VarChar");
+            List<String> columnNames = new ArrayList<>(columnTypes.keySet());
+            List<List<Object>> columns = new ArrayList<>(columnNames.size());
+            for (int c = 0; c < columnNames.size(); c++) {
+                columns.add(new ArrayList<>(to - from));
+            }
+            List<Integer> rowIndexes = new ArrayList<>(to - from);
+            long now = System.currentTimeMillis();
+
+            for (int i = from; i < to; i++) {
+                try {
+                    Object[] values = buildRowValues(schema, columnNames, columnTypes, rows.get(i), textField, now);
+                    for (int c = 0; c < values.length; c++) {
+                        columns.get(c).add(values[c]);
+                    }
+                    rowIndexes.add(i);
+                } catch (Exception e) {
+                    failures.add(new MilvusBulkInsertResult.RowFailure(i, e.getMessage()));
+                }
+            }
+
+            if (rowIndexes.isEmpty()) {
+                return new InsertedBatch(MilvusBulkInsertResult.builder().failures(failures).build(), List.of());
+            }
+
+            List<InsertParam.Field> fields = new ArrayList<>(columnNames.size());
+            for (int c = 0; c < columnNames.size(); c++) {
+                fields.add(new InsertParam.Field(columnNames.get(c), columns.get(c)));
+            }
+
+            String insertError;
+            try {
+                R<MutationResult> insertResponse = client.insert(InsertParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .withFields(fields)
+                        .build());
+                if (insertResponse.getStatus() == 0) {
+                    collectionCatalog.recordInsert(collectionName, insertResponse.getData().getInsertCnt());
+                    return new InsertedBatch(MilvusBulkInsertResult.builder()
+                            .insertedCount(insertResponse.getData().getInsertCnt())
+                            .insertCalls(1)
+                            .failures(failures)
+                            .build(),
+                            keywordDocuments(rows, rowIndexes, insertResponse.getData(), textField));
+                }
+                insertError = "Milvus insert failed with status " + insertResponse.getStatus() + ": "
+                        + insertResponse.getMessage();
+            } catch (Exception e) {
+                insertError = "Milvus insert failed: " + e.getMessage();
+            }
+
+            // The schema may have changed underneath the cached copy; describe again next time
+            collectionSchemaCache.remove(collectionName);
+            log.error("Bulk insert of {} rows into collection {} failed: {}", rowIndexes.size(), collectionName,
+                    insertError);
+            for (int index : rowIndexes) {
+                failures.add(new MilvusBulkInsertResult.RowFailure(index, insertError));
+            }
+            failures.sort(Comparator.comparingInt(MilvusBulkInsertResult.RowFailure::getRowIndex));
+            return new InsertedBatch(MilvusBulkInsertResult.builder()
+                    .insertCalls(1)
+                    .failures(failures)
+                    .build(), List.of());
+        }).flatMap(batch -> indexKeywords(collectionName, teamId, batch.keywordDocuments())
+                .thenReturn(batch.result()));
+    }
+
+    /**
+     * Result of one bulk insert call and the keyword index entries of the rows it inserted.
+     */
+    private record InsertedBatch(MilvusBulkInsertResult result,
+            List<KeywordIndexService.KeywordDocument> keywordDocuments) {
+    }
+
+    /**
+     * Keyword index entries for inserted rows, keyed by the primary keys Milvus returned in
+     * insert order.
+     */
+    private List<KeywordIndexService.KeywordDocument> keywordDocuments(List<MilvusInsertRow> rows,
+            List<Integer> rowIndexes, MutationResult mutation, String textField) {
+        if (!keywordIndexService.isEnabled() || !mutation.getIDs().hasIntId()) {
+            return List.of();
+        }
+        List<Long> ids = mutation.getIDs().getIntId().getDataList();
+        if (ids.size() != rowIndexes.size()) {
+            log.warn("Milvus returned {} ids for {} inserted rows; skipping keyword indexing", ids.size(),
+                    rowIndexes.size());
+            return List.of();
+        }
+        List<KeywordIndexService.KeywordDocument> documents = new ArrayList<>(ids.size());
+        for (int k = 0; k < ids.size(); k++) {
+            MilvusInsertRow row = rows.get(rowIndexes.get(k));
+            String text = keywordText(row.getRecord(), row.getSearchText(), textField);
+            if (text != null) {
+                Object documentId = row.getRecord().get("documentId");
+                documents.add(new KeywordIndexService.KeywordDocument(ids.get(k),
+                        documentId != null ? documentId.toString() : null, text,
+                        keywordMetadata(row.getRecord())));
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Text to put in the keyword index: the row's plaintext when given, otherwise the text
+     * field unless the record says it is encrypted.
+     */
+    private static String keywordText(Map<String, Object> record, String searchText, String textField) {
+        if (StringUtils.hasText(searchText)) {
+            return searchText;
+        }
+        if (record.get("encryptionKeyVersion") != null) {
+            return null;
+        }
+        return record.get(textField) instanceof String text && !text.isEmpty() ? text : null;
+    }
+
+    /**
+     * Title, file name and subject of a record joined by spaces, or null when it has none.
+     * The keyword index weights them above the chunk text, as the former search boost did.
+     */
+    private static String keywordMetadata(Map<String, ?> record) {
+        StringJoiner metadata = new StringJoiner(" ");
+        for (String fieldName : KEYWORD_METADATA_FIELDS) {
+            if (record.get(fieldName) instanceof String value && !value.isEmpty()) {
+                metadata.add(value);
+            }
+        }
+        return metadata.length() > 0 ? metadata.toString() : null;
+    }
+
+    private Mono<Void> indexKeywords(String collectionName, String teamId,
+            List<KeywordIndexService.KeywordDocument> documents) {
+        return keywordIndexService.add(collectionName, teamId, documents)
+                .onErrorResume(e -> {
+                    log.warn("Failed to update keyword index of collection {}: {}", collectionName, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Reads the team's chunks with a query iterator, one page per call on the QUERY lane, and
+     * decrypts their text in batches. Chunks whose text cannot be decrypted are skipped.
+     */
+    @Override
+    public Flux<KeywordIndexService.KeywordDocument> readKeywordDocuments(String collectionName, String teamId) {
+        return getCollectionSchema(collectionName).flatMapMany(schema -> {
+            String textField = schema.getTextFieldName();
+            List<String> outFields = new ArrayList<>(List.of("id", textField));
+            List<String> optionalFields = new ArrayList<>(List.of("documentId", "encryptionKeyVersion"));
+            optionalFields.addAll(KEYWORD_METADATA_FIELDS);
+            for (String fieldName : optionalFields) {
+                if (schema.getFieldNames().contains(fieldName)) {
+                    outFields.add(fieldName);
+                }
+            }
+            QueryIteratorParam param = QueryIteratorParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .withExpr(schema.getFieldNames().contains("teamId")
+                            ? String.format("teamId == \"%s\"", teamId) : "")
+                    .withOutFields(outFields)
+                    .withBatchSize(KEYWORD_REBUILD_BATCH_SIZE)
+                    .build();
+            return reactiveMilvusClient.executeForData(Operation.QUERY, collectionName,
+                            client -> client.queryIterator(param))
+                    .flatMapMany(iterator -> reactiveMilvusClient
+                            .run(Operation.QUERY, collectionName, client -> iterator.next())
+                            .repeat()
+                            .takeWhile(rows -> !rows.isEmpty())
+                            .concatMap(rows -> decryptKeywordDocuments(rows, textField, teamId, collectionName))
+                            .doFinally(signal -> iterator.close()));
+        });
+    }
+
+    private Flux<KeywordIndexService.KeywordDocument> decryptKeywordDocuments(
+            List<QueryResultsWrapper.RowRecord> rows, String textField, String teamId, String collectionName) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        List<ChunkDecryptionRequest> requests = new ArrayList<>();
+        for (QueryResultsWrapper.RowRecord row : rows) {
+            Map<String, Object> record = row.getFieldValues();
+            if (record.get("id") instanceof Long && record.get(textField) instanceof String text
+                    && !text.isEmpty()) {
+                // If no encryption key version stored, fall back to v1 (legacy data)
+                Object version = record.get("encryptionKeyVersion");
+                records.add(record);
+                requests.add(ChunkDecryptionRequest.of(text, teamId,
+                        version != null && !version.toString().isEmpty() ? version.toString() : "v1"));
+            }
+        }
+        if (requests.isEmpty()) {
+            return Flux.empty();
+        }
+        return chunkEncryptionService.decryptChunkTexts(requests, collectionName)
+                .flatMapIterable(results -> {
+                    List<KeywordIndexService.KeywordDocument> documents = new ArrayList<>(results.size());
+                    for (int i = 0; i < results.size(); i++) {
+                        Map<String, Object> record = records.get(i);
+                        String text;
+                        if (results.get(i).isDecrypted()) {
+                            text = results.get(i).getText();
+                        } else if (record.get("encryptionKeyVersion") == null) {
+                            // Stored before chunk encryption: the text is plaintext
+                            text = (String) record.get(textField);
+                        } else {
+                            continue;
+                        }
+                        Object documentId = record.get("documentId");
+                        documents.add(new KeywordIndexService.KeywordDocument((Long) record.get("id"),
+                                documentId != null ? documentId.toString() : null, text, keywordMetadata(record)));
+                    }
+                    if (documents.size() < results.size()) {
+                        log.warn("Skipped {} chunks of collection {} that could not be decrypted for the keyword index",
+                                results.size() - documents.size(), collectionName);
+                    }
+                    return documents;
+                });
+    }
+
+    /**
+     * Values of one row in column order, with the same defaults and coercions as
+     * {@link #storeWithEmbedding}, except that a value which cannot be converted to its column
+     * type fails the row instead of failing the whole insert call. Throws when the row cannot
+     * be inserted.
+     */
+    private Object[] buildRowValues(MilvusCollectionSchemaInfo schema, List<String> columnNames,
+            Map<String, String> columnTypes, MilvusInsertRow row, String textField, long now) {
+        Map<String, Object> record = row.getRecord();
+        if (record == null) {
+            throw new IllegalArgumentException("Record is missing");
+        }
+        if (!(record.get(textField) instanceof String text)) {
+            throw new IllegalArgumentException("Text field " + textField + " not found in record");
+        }
+        if (schema.getTextFieldMaxLength() != null && textField.equals(schema.getTextFieldName())
+                && text.getBytes(java.nio.charset.StandardCharsets.UTF_8).length > schema.getTextFieldMaxLength()) {
+            throw new IllegalArgumentException("Text field " + textField + " exceeds max length "
+                    + schema.getTextFieldMaxLength());
+        }
+        List<Float> embedding = row.getEmbedding();
+        if (embedding == null || embedding.isEmpty()) {
+            throw new IllegalArgumentException("Embedding is missing");
+        }
+        if (schema.getVectorDimension() != null && embedding.size() != schema.getVectorDimension()) {
+            throw new IllegalArgumentException("Embedding dimension " + embedding.size()
+                    + " does not match collection dimension " + schema.getVectorDimension());
+        }
+
+        Object[] values = new Object[columnNames.size()];
+        for (int c = 0; c < values.length; c++) {
+            String fieldName = columnNames.get(c);
+            String dataTypeName = columnTypes.get(fieldName);
+            if (fieldName.equals("id")) {
+                values[c] = Math.abs(UUID.randomUUID().getMostSignificantBits());
+            } else if (fieldName.equals(schema.getVectorFieldName())) {
+                values[c] = embedding;
+            } else if (fieldName.equals(textField)) {
+                values[c] = text;
+            } else {
+                Object value = record.get(fieldName);
+                if (value == null && fieldName.equals("created_at")) {
+                    value = now;
+                }
+                if (value == null && schema.getNonNullableFields().contains(fieldName)) {
+                    value = determineDefaultValue(fieldName, dataTypeName);
+                }
+                values[c] = value == null ? null : convertValueForType(value, dataTypeName, fieldName);
+            }
         }
+        return values;
     }
 
     private Object determineDefaultValue(String fieldName, String dataTypeName) {
@@ -942,45 +1392,7 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         }
 
         try {
-            return switch (dataTypeName) {
-                case "Int64" -> {
-                    if (value instanceof Number number) {
-                        yield number.longValue();
-                    }
-                    String strValue = value.toString().trim();
-                    yield strValue.isEmpty() ? 0L : Long.parseLong(strValue);
-                }
-                case "Int32", "Int16", "Int8" -> {
-                    if (value instanceof Number number) {
-                        yield number.intValue();
-                    }
-                    String strValue = value.toString().trim();
-                    yield strValue.isEmpty() ? 0 : Integer.parseInt(strValue);
-                }
-                case "Float" -> {
-                    if (value instanceof Number number) {
-                        yield number.floatValue();
-                    }
-                    String strValue = value.toString().trim();
-                    yield strValue.isEmpty() ? 0.0f : Float.parseFloat(strValue);
-                }
-                case "Double" -> {
-                    if (value instanceof Number number) {
-                        yield number.doubleValue();
-                    }
-                    String strValue = value.toString().trim();
-                    yield strValue.isEmpty() ? 0.0 : Double.parseDouble(strValue);
-                }
-                case "Bool" -> {
-                    if (value instanceof Boolean boolValue) {
-                        yield boolValue;
-                    }
-                    String strValue = value.toString().trim();
-                    yield strValue.isEmpty() ? Boolean.FALSE : Boolean.parseBoolean(strValue);
-                }
-                case "VarChar", "String", "Text" -> value.toString();
-                default -> value;
-            };
+            return parseValueForType(value, dataTypeName);
         } catch (Exception e) {
             log.warn("Failed to coerce value for field {} of type {}: {}. Falling back to original value.", fieldName,
                     dataTypeName, e.getMessage());
@@ -988,6 +1400,63 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         }
     }
 
+    /**
+     * Strict variant of {@link #coerceValueForType} for bulk inserts.
+     */
+    private Object convertValueForType(Object value, String dataTypeName, String fieldName) {
+        if (value == null || dataTypeName == null) {
+            return value;
+        }
+        try {
+            return parseValueForType(value, dataTypeName);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' of type " + dataTypeName
+                    + " cannot hold value '" + value + "'", e);
+        }
+    }
+
+    private static Object parseValueForType(Object value, String dataTypeName) {
+        return switch (dataTypeName) {
+            case "Int64" -> {
+                if (value instanceof Number number) {
+                    yield number.longValue();
+                }
+                String strValue = value.toString().trim();
+                yield strValue.isEmpty() ? 0L : Long.parseLong(strValue);
+            }
+            case "Int32", "Int16", "Int8" -> {
+                if (value instanceof Number number) {
+                    yield number.intValue();
+                }
+                String strValue = value.toString().trim();
+                yield strValue.isEmpty() ? 0 : Integer.parseInt(strValue);
+            }
+            case "Float" -> {
+                if (value instanceof Number number) {
+                    yield number.floatValue();
+                }
+                String strValue = value.toString().trim();
+                yield strValue.isEmpty() ? 0.0f : Float.parseFloat(strValue);
+            }
+            case "Double" -> {
+                if (value instanceof Number number) {
+                    yield number.doubleValue();
+                }
+                String strValue = value.toString().trim();
+                yield strValue.isEmpty() ? 0.0 : Double.parseDouble(strValue);
+            }
+            case "Bool" -> {
+                if (value instanceof Boolean boolValue) {
+                    yield boolValue;
+                }
+                String strValue = value.toString().trim();
+                yield strValue.isEmpty() ? Boolean.FALSE : Boolean.parseBoolean(strValue);
+            }
+            case "VarChar", "String", "Text" -> value.toString();
+            default -> value;
+        };
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public Mono<List<Float>> getEmbedding(String text, String modelCategory, String modelName, String teamId) {
@@ -1027,16 +1496,12 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                     maxTokens);
         }
 
+        // Windows are submitted together so the batcher can send them in one provider call
         return Flux.fromIterable(windows)
-                .concatMap(window -> generateSingleEmbedding(window, llmModel.getModelCategory(),
-                        llmModel.getModelName(), llmModel)
+                .flatMapSequential(window -> embeddingBatcher.embed(window, llmModel)
                         .onErrorResume(e -> {
-                            // Check if error is due to context length and if we can reduce the window size
-                            boolean isContextError = e.getMessage() != null &&
-                                    (e.getMessage().contains("context length")
-                                            || e.getMessage().contains("Internal Server Error"));
-
-                            if (isContextError && maxTokens > 512) {
+                            // Only a context length error is worth retrying with a smaller window
+                            if (isContextLengthError(e) && maxTokens > 512) {
                                 log.warn(
                                         "Context length error for model {} with limit {}. Retrying window ({}) with safe limit 512.",
                                         llmModel.getModelName(), maxTokens, window.length());
@@ -1050,88 +1515,19 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
     }
 
     /**
-     * Generate a single embedding for the given text using the specified model.
-     */
-    @SuppressWarnings("unchecked")
-    private Mono<List<Float>> generateSingleEmbedding(String text, String modelCategory, String modelName,
-            org.lite.gateway.entity.LinqLlmModel llmModel) {
-        log.debug("Generating embedding for text length: {} using model: {}/{}",
-                text.length(), modelCategory, modelName);
-
-        LinqRequest request = new LinqRequest();
-        LinqRequest.Link link = new LinqRequest.Link();
-        link.setTarget(modelCategory);
-        link.setAction("generate");
-        request.setLink(link);
-
-        LinqRequest.Query query = new LinqRequest.Query();
-        query.setIntent("embed");
-        query.setParams(Map.of("text", text));
-
-        LinqRequest.Query.LlmConfig llmConfig = new LinqRequest.Query.LlmConfig();
-        llmConfig.setModel(modelName);
-        query.setLlmConfig(llmConfig);
-        request.setQuery(query);
-
-        return linqLlmModelService.executeLlmRequest(request, llmModel)
-                .map(response -> {
-                    Map<String, Object> result = (Map<String, Object>) response.getResult();
-                    if (result == null) {
-                        throw new IllegalStateException("Received null result from embedding service");
-                    }
-                    if (result.containsKey("error")) {
-                        throw new IllegalStateException("Embedding service error: " + result.get("error"));
-                    }
-                    return parseEmbeddingResponse(result, modelCategory);
-                });
-    }
-
-    /**
-     * Parse embedding response based on model category.
+     * Whether a provider error says the input exceeded the model's context, as reported by
+     * OpenAI, Cohere, Gemini, Ollama and HuggingFace; a bare HTTP 500 is not taken as one.
      */
-    @SuppressWarnings("unchecked")
-    private List<Float> parseEmbeddingResponse(Map<String, Object> result, String modelCategory) {
-        if ("openai-embed".equals(modelCategory)) {
-            List<Map<String, Object>> data = (List<Map<String, Object>>) result.get("data");
-            if (data == null || data.isEmpty()) {
-                throw new IllegalStateException("No data received from OpenAI embedding service");
-            }
-            List<Object> rawEmbedding = (List<Object>) data.getFirst().get("embedding");
-            return rawEmbedding.stream().map(v -> ((Number) v).floatValue()).collect(Collectors.toList());
-        } else if ("huggingface-embed".equals(modelCategory)) {
-            List<Object> rawEmbedding = (List<Object>) result.get("embeddings");
-            if (rawEmbedding == null) {
-                rawEmbedding = (List<Object>) result.get("embedding");
-            }
-            if (rawEmbedding == null) {
-                throw new IllegalStateException("No embedding data received from HuggingFace embedding service");
-            }
-            return rawEmbedding.stream().map(v -> ((Number) v).floatValue()).collect(Collectors.toList());
-        } else if ("gemini-embed".equals(modelCategory)) {
-            Map<String, Object> embedding = (Map<String, Object>) result.get("embedding");
-            if (embedding == null) {
-                throw new IllegalStateException("No embedding received from Gemini embedding service");
-            }
-            List<Object> values = (List<Object>) embedding.get("values");
-            if (values == null || values.isEmpty()) {
-                throw new IllegalStateException("No embedding values received from Gemini embedding service");
-            }
-            return values.stream().map(v -> ((Number) v).floatValue()).collect(Collectors.toList());
-        } else if ("cohere-embed".equals(modelCategory)) {
-            List<List<Object>> embeddings = (List<List<Object>>) result.get("embeddings");
-            if (embeddings == null || embeddings.isEmpty()) {
-                throw new IllegalStateException("No embeddings received from Cohere embedding service");
-            }
-            List<Object> firstEmbedding = embeddings.getFirst();
-            return firstEmbedding.stream().map(v -> ((Number) v).floatValue()).collect(Collectors.toList());
-        } else if ("ollama-embed".equals(modelCategory)) {
-            List<Object> rawEmbedding = (List<Object>) result.get("embedding");
-            if (rawEmbedding == null) {
-                throw new IllegalStateException("No embedding data received from Ollama embedding service");
-            }
-            return rawEmbedding.stream().map(v -> ((Number) v).floatValue()).collect(Collectors.toList());
+    static boolean isContextLengthError(Throwable error) {
+        String message = error.getMessage();
+        if (message == null) {
+            return false;
         }
-        throw new IllegalArgumentException("Unsupported embedding modelCategory: " + modelCategory);
+        String lower = message.toLowerCase(Locale.ROOT);
+        return lower.contains("context length") || lower.contains("context window")
+                || lower.contains("maximum context") || lower.contains("too many tokens")
+                || lower.contains("input length exceeds") || lower.contains("token count")
+                || lower.contains("input is too long") || lower.contains("sequence length");
     }
 
     /**
@@ -1183,12 +1579,9 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         log.info("Querying collection {} for {} results (team: {})", collectionName, nResults, teamId);
         LocalDateTime startTime = LocalDateTime.now();
 
-        return Mono.fromCallable(() -> {
+        return reactiveMilvusClient.run(Operation.SEARCH, collectionName, client -> {
             // Get collection schema to check which fields exist
-            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                    DescribeCollectionParam.newBuilder()
-                            .withCollectionName(collectionName)
-                            .build());
+            R<DescribeCollectionResponse> describeResponse = collectionCatalog.describe(client, collectionName);
 
             List<String> availableFields = new ArrayList<>();
             if (describeResponse.getStatus() == 0 && describeResponse.getData() != null) {
@@ -1225,20 +1618,21 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
 
             SearchParam searchParam = searchParamBuilder.build();
 
-            R<SearchResults> searchResponse = milvusClient.search(searchParam);
+            collectionCatalog.recordSearch(collectionName);
+            collectionCatalog.ensureLoaded(client, collectionName);
+            R<SearchResults> searchResponse = client.search(searchParam);
 
-            // Check for "not loaded" error and retry
+            // The catalog may think a collection is loaded after it was released elsewhere
             if (searchResponse.getStatus() != 0) {
                 String msg = searchResponse.getMessage();
                 if (msg != null && (msg.contains("not loaded") || msg.contains("has not been loaded"))) {
                     log.warn("Collection {} is not loaded. Loading now and retrying search...", collectionName);
 
-                    milvusClient.loadCollection(LoadCollectionParam.newBuilder()
-                            .withCollectionName(collectionName)
-                            .build());
+                    collectionCatalog.markNotLoaded(collectionName);
+                    collectionCatalog.ensureLoaded(client, collectionName);
 
                     // Retry search
-                    searchResponse = milvusClient.search(searchParam);
+                    searchResponse = client.search(searchParam);
                 }
             }
 
@@ -1248,57 +1642,27 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
 
             return searchResponse.getData();
         })
-                .subscribeOn(Schedulers.boundedElastic())
                 .flatMap(results -> {
                     SearchResultData resultData = results.getResults();
+                    MilvusSearchResultDecoder decoder = MilvusSearchResultDecoder.of(resultData);
 
                     String textField = Arrays.stream(outputFields)
                             .filter(f -> !f.equals("id") && !f.equals("embedding"))
                             .findFirst().orElse(outputFields[0]);
 
-                    return Flux.range(0, (int) resultData.getNumQueries())
-                            .concatMap(i -> {
-                                // Extract ID
-                                Object id = null;
-                                var idFieldData = resultData.getFieldsDataList().stream()
-                                        .filter(f -> f.getFieldName().equals("id"))
-                                        .findFirst()
-                                        .orElse(null);
-                                if (idFieldData != null && idFieldData.getScalars().hasLongData()
-                                        && idFieldData.getScalars().getLongData().getDataCount() > i) {
-                                    id = idFieldData.getScalars().getLongData().getData(i);
-                                }
-
-                                final Object fId = id;
-
-                                // Extract Distance
-                                Float distance = 0.0f;
-                                var distanceField = resultData.getFieldsDataList().stream()
-                                        .filter(f -> f.getFieldName().equals("distance"))
-                                        .findFirst()
-                                        .orElse(null);
-
-                                if (distanceField != null) {
-                                    if (distanceField.getScalars().hasFloatData()
-                                            && distanceField.getScalars().getFloatData().getDataCount() > i) {
-                                        distance = distanceField.getScalars().getFloatData().getData(i);
-                                    } else if (distanceField.getScalars().hasDoubleData()
-                                            && distanceField.getScalars().getDoubleData().getDataCount() > i) {
-                                        distance = (float) distanceField.getScalars().getDoubleData().getData(i);
-                                    }
-                                }
-                                final Float fDistance = distance;
-
-                                // Decrypt text
-                                return decryptTextFromSearchResults(resultData, textField, i, teamId)
-                                        .map(decryptedText -> {
-                                            Map<String, Object> item = new HashMap<>();
-                                            item.put("id", fId);
-                                            item.put("text", decryptedText);
-                                            item.put("distance", fDistance);
-                                            return item;
-                                        });
-                            })
+                    int rowCount = (int) resultData.getNumQueries();
+
+                    // Decrypt all texts in one batch
+                    return decryptSearchResultTexts(decoder, textField, rowCount, teamId, collectionName)
+                            .flatMapMany(decryptedTexts -> Flux.range(0, rowCount)
+                                    .map(i -> {
+                                        Map<String, Object> item = new HashMap<>();
+                                        item.put("id",
+                                                decoder.hasInt64("id", i) ? decoder.getInt64("id", i, 0L) : null);
+                                        item.put("text", decryptedTexts.get(i));
+                                        item.put("distance", decoder.getFloat("distance", i, 0.0f));
+                                        return item;
+                                    }))
                             .collectList()
                             .flatMap(items -> {
                                 List<Object> ids = items.stream().map(m -> m.get("id")).collect(Collectors.toList());
@@ -1389,22 +1753,92 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         log.info("Deleting collection {} for team {}", collectionName, teamId);
         LocalDateTime startTime = LocalDateTime.now();
 
-        try {
-            R<Boolean> hasCollection = milvusClient.hasCollection(HasCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
+        return onMilvus(Operation.ADMIN, collectionName, client -> {
+            try {
+                R<Boolean> hasCollection = client.hasCollection(HasCollectionParam.newBuilder()
+                        .withCollectionName(collectionName)
 
-                    .build());
+                        .build());
+
+                if (!hasCollection.getData()) {
+                    log.info("Collection {} does not exist, skipping deletion", collectionName);
+
+                    // Log skipped deletion
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> auditContext = new HashMap<>();
+                    auditContext.put("collectionName", collectionName);
+                    auditContext.put("teamId", teamId);
+                    auditContext.put("reason", "Collection does not exist");
+                    auditContext.put("durationMs", durationMs);
+
+                    // Chain audit logging before returning
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.RAG_COLLECTION_DELETED,
+                            AuditActionType.DELETE,
+                            AuditResourceType.COLLECTION,
+                            collectionName,
+                            String.format("Collection deletion skipped - collection '%s' does not exist", collectionName),
+                            auditContext,
+                            null,
+                            null,
+                            AuditResultType.SUCCESS)
+                            .doOnError(auditError -> log.error("Failed to log audit event (collection does not exist): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .thenReturn(Map.of("message", "Collection " + collectionName + " does not exist"));
+                }
+
+                // Read the live count: the catalog's figure may lag behind recent inserts
+                long rowCount = collectionCatalog.fetchRowCount(client, collectionName);
+                if (rowCount > 0) {
+                    String message = String.format("Collection %s contains %d records and cannot be deleted",
+                            collectionName, rowCount);
+                    log.warn(message);
+
+                    // Log denied deletion
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> errorContext = new HashMap<>();
+                    errorContext.put("collectionName", collectionName);
+                    errorContext.put("teamId", teamId);
+                    errorContext.put("rowCount", rowCount);
+                    errorContext.put("error", message);
+                    errorContext.put("durationMs", durationMs);
+                    errorContext.put("failureTimestamp", LocalDateTime.now().toString());
+
+                    // Chain audit logging before returning error
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.RAG_COLLECTION_DELETED,
+                            AuditActionType.DELETE,
+                            AuditResourceType.COLLECTION,
+                            collectionName,
+                            String.format("Collection deletion denied for '%s' - contains %d records", collectionName,
+                                    rowCount),
+                            errorContext,
+                            null,
+                            null,
+                            AuditResultType.DENIED)
+                            .doOnError(auditError -> log.error("Failed to log audit event (deletion denied): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .then(Mono.error(new IllegalStateException(message)));
+                }
+
+                client.dropCollection(DropCollectionParam.newBuilder()
+                        .withCollectionName(collectionName)
 
-            if (!hasCollection.getData()) {
-                log.info("Collection {} does not exist, skipping deletion", collectionName);
+                        .build());
+                collectionSchemaCache.remove(collectionName);
+                collectionCatalog.remove(collectionName);
+                log.info("Deleted collection {}", collectionName);
 
-                // Log skipped deletion
+                // Log successful deletion
                 long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
                 Map<String, Object> auditContext = new HashMap<>();
                 auditContext.put("collectionName", collectionName);
                 auditContext.put("teamId", teamId);
-                auditContext.put("reason", "Collection does not exist");
+                auditContext.put("rowCount", rowCount);
                 auditContext.put("durationMs", durationMs);
+                auditContext.put("deletionTimestamp", LocalDateTime.now().toString());
 
                 // Chain audit logging before returning
                 return auditLogHelper.logDetailedEvent(
@@ -1412,30 +1846,25 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                         AuditActionType.DELETE,
                         AuditResourceType.COLLECTION,
                         collectionName,
-                        String.format("Collection deletion skipped - collection '%s' does not exist", collectionName),
+                        String.format("Collection '%s' deleted successfully for team '%s'", collectionName, teamId),
                         auditContext,
                         null,
-                        null,
-                        AuditResultType.SUCCESS)
-                        .doOnError(auditError -> log.error("Failed to log audit event (collection does not exist): {}",
+                        null)
+                        .doOnError(auditError -> log.error("Failed to log audit event (collection deleted): {}",
                                 auditError.getMessage(), auditError))
                         .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .thenReturn(Map.of("message", "Collection " + collectionName + " does not exist"));
-            }
-
-            long rowCount = getCollectionRowCount(collectionName);
-            if (rowCount > 0) {
-                String message = String.format("Collection %s contains %d records and cannot be deleted",
-                        collectionName, rowCount);
-                log.warn(message);
+                        .then(keywordIndexService.dropCollection(collectionName))
+                        .thenReturn(Map.of("message", "Collection " + collectionName + " deleted successfully"));
+            } catch (Exception e) {
+                log.error("Failed to delete collection {}: {}", collectionName, e.getMessage());
 
-                // Log denied deletion
+                // Log deletion failure
                 long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
                 Map<String, Object> errorContext = new HashMap<>();
                 errorContext.put("collectionName", collectionName);
                 errorContext.put("teamId", teamId);
-                errorContext.put("rowCount", rowCount);
-                errorContext.put("error", message);
+                errorContext.put("error", e.getMessage());
+                errorContext.put("errorType", e.getClass().getSimpleName());
                 errorContext.put("durationMs", durationMs);
                 errorContext.put("failureTimestamp", LocalDateTime.now().toString());
 
@@ -1445,190 +1874,250 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                         AuditActionType.DELETE,
                         AuditResourceType.COLLECTION,
                         collectionName,
-                        String.format("Collection deletion denied for '%s' - contains %d records", collectionName,
-                                rowCount),
+                        String.format("Collection deletion failed for '%s': %s", collectionName, e.getMessage()),
                         errorContext,
                         null,
                         null,
-                        AuditResultType.DENIED)
-                        .doOnError(auditError -> log.error("Failed to log audit event (deletion denied): {}",
+                        AuditResultType.FAILED)
+                        .doOnError(auditError -> log.error("Failed to log audit event (deletion failed): {}",
                                 auditError.getMessage(), auditError))
                         .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .then(Mono.error(new IllegalStateException(message)));
+                        .then(Mono.error(e));
             }
+        });
+    }
 
-            milvusClient.dropCollection(DropCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
+    @Override
+    public Mono<List<MilvusCollectionInfo>> listCollections(String teamId, String collectionType) {
+        log.info("Listing collections for team {} with type filter: {}", teamId, collectionType);
+        String normalizedFilter = collectionType != null && !collectionType.isBlank()
+                ? collectionType.trim().toLowerCase()
+                : null;
+        return collectionCatalog.entries()
+                .flatMapMany(Flux::fromIterable)
+                .filter(entry -> teamId.equals(entry.teamId()))
+                .map(entry -> buildCollectionInfo(entry, teamId))
+                .filter(info -> normalizedFilter == null || normalizedFilter.equals(
+                        info.getCollectionType() != null ? info.getCollectionType().toLowerCase() : ""))
+                .sort(Comparator.comparing(MilvusCollectionInfo::getName))
+                .collectList()
+                .doOnNext(collections -> log.info("Found {} collections for team {}", collections.size(), teamId))
+                .doOnError(e -> log.error("Failed to list collections: {}", e.getMessage()));
+    }
 
-                    .build());
-            log.info("Deleted collection {}", collectionName);
+    @Override
+    public Mono<Map<String, String>> updateCollectionMetadata(String collectionName,
+            String teamId,
+            Map<String, String> metadata) {
+        log.info("Updating metadata for collection {} (team {})", collectionName, teamId);
+        LocalDateTime startTime = LocalDateTime.now();
 
-            // Log successful deletion
+        if (metadata == null || metadata.isEmpty()) {
+            // Log skipped update
             long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
             Map<String, Object> auditContext = new HashMap<>();
             auditContext.put("collectionName", collectionName);
             auditContext.put("teamId", teamId);
-            auditContext.put("rowCount", rowCount);
+            auditContext.put("reason", "No metadata provided");
             auditContext.put("durationMs", durationMs);
-            auditContext.put("deletionTimestamp", LocalDateTime.now().toString());
 
             // Chain audit logging before returning
             return auditLogHelper.logDetailedEvent(
-                    AuditEventType.RAG_COLLECTION_DELETED,
-                    AuditActionType.DELETE,
+                    AuditEventType.RAG_COLLECTION_UPDATED,
+                    AuditActionType.UPDATE,
                     AuditResourceType.COLLECTION,
                     collectionName,
-                    String.format("Collection '%s' deleted successfully for team '%s'", collectionName, teamId),
+                    String.format("Collection metadata update skipped for '%s' - no metadata provided", collectionName),
                     auditContext,
                     null,
-                    null)
-                    .doOnError(auditError -> log.error("Failed to log audit event (collection deleted): {}",
+                    null,
+                    AuditResultType.SUCCESS)
+                    .doOnError(auditError -> log.error("Failed to log audit event (no metadata provided): {}",
                             auditError.getMessage(), auditError))
                     .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .thenReturn(Map.of("message", "Collection " + collectionName + " deleted successfully"));
-        } catch (Exception e) {
-            log.error("Failed to delete collection {}: {}", collectionName, e.getMessage());
+                    .thenReturn(Map.of("message", "No metadata provided"));
+        }
 
-            // Log deletion failure
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> errorContext = new HashMap<>();
-            errorContext.put("collectionName", collectionName);
-            errorContext.put("teamId", teamId);
-            errorContext.put("error", e.getMessage());
-            errorContext.put("errorType", e.getClass().getSimpleName());
-            errorContext.put("durationMs", durationMs);
-            errorContext.put("failureTimestamp", LocalDateTime.now().toString());
-
-            // Chain audit logging before returning error
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.RAG_COLLECTION_DELETED,
-                    AuditActionType.DELETE,
-                    AuditResourceType.COLLECTION,
-                    collectionName,
-                    String.format("Collection deletion failed for '%s': %s", collectionName, e.getMessage()),
-                    errorContext,
-                    null,
-                    null,
-                    AuditResultType.FAILED)
-                    .doOnError(auditError -> log.error("Failed to log audit event (deletion failed): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .then(Mono.error(e));
-        }
+        // Only an alias change needs the workflow lookup, which is done before taking a Milvus client
+        boolean aliasRequested = metadata.keySet().stream()
+                .anyMatch(key -> key != null && "collectionAlias".equals(key.trim()));
+        Mono<Boolean> nameLockedMono = aliasRequested ? isCollectionNameLockedInStore(collectionName) : Mono.just(false);
+        return nameLockedMono
+                .flatMap(nameLocked -> alterCollectionMetadata(collectionName, teamId, metadata, startTime, nameLocked))
+                .flatMap(result -> collectionCatalog.refreshCollection(collectionName).thenReturn(result));
     }
 
-    @Override
-    public Mono<List<MilvusCollectionInfo>> listCollections(String teamId, String collectionType) {
-        log.info("Listing collections for team {} with type filter: {}", teamId, collectionType);
-        try {
-            R<ShowCollectionsResponse> response = milvusClient.showCollections(ShowCollectionsParam.newBuilder()
+    private Mono<Map<String, String>> alterCollectionMetadata(String collectionName, String teamId,
+            Map<String, String> metadata, LocalDateTime startTime, boolean nameLocked) {
+        return onMilvus(Operation.ADMIN, collectionName, client -> {
+            try {
+                Map<String, String> sanitizedMetadata = new HashMap<>();
+                metadata.forEach((key, value) -> {
+                    if (key != null && !key.isBlank()) {
+                        sanitizedMetadata.put(key.trim(), value != null ? value.trim() : "");
+                    }
+                });
 
-                    .build());
-            List<String> allCollections = response.getData().getCollectionNamesList();
+                if (sanitizedMetadata.isEmpty()) {
+                    // Log skipped update
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> auditContext = new HashMap<>();
+                    auditContext.put("collectionName", collectionName);
+                    auditContext.put("teamId", teamId);
+                    auditContext.put("reason", "No valid metadata after sanitization");
+                    auditContext.put("durationMs", durationMs);
 
-            // Filter collections in parallel using CompletableFuture
-            List<CompletableFuture<MilvusCollectionInfo>> futures = allCollections.stream()
-                    .map(collectionName -> CompletableFuture.supplyAsync(() -> {
-                        try {
-                            // Get collection properties
-                            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                                    DescribeCollectionParam.newBuilder()
-                                            .withCollectionName(collectionName)
+                    // Chain audit logging before returning
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.RAG_COLLECTION_UPDATED,
+                            AuditActionType.UPDATE,
+                            AuditResourceType.COLLECTION,
+                            collectionName,
+                            String.format("Collection metadata update skipped for '%s' - no valid metadata",
+                                    collectionName),
+                            auditContext,
+                            null,
+                            null,
+                            AuditResultType.SUCCESS)
+                            .doOnError(auditError -> log.error("Failed to log audit event (no valid metadata): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .thenReturn(Map.of("message", "No metadata provided"));
+                }
 
-                                            .build());
+                R<DescribeCollectionResponse> describeResponse = client.describeCollection(
+                        DescribeCollectionParam.newBuilder()
+                                .withCollectionName(collectionName)
 
-                            // Check if collection has teamId property matching the requested teamId
-                            for (KeyValuePair property : describeResponse.getData().getPropertiesList()) {
-                                if ("teamId".equals(property.getKey()) && teamId.equals(property.getValue())) {
-                                    MilvusCollectionInfo info = buildCollectionInfo(collectionName, teamId,
-                                            describeResponse.getData());
-                                    if (collectionType != null && !collectionType.isBlank()) {
-                                        String normalizedFilter = collectionType.trim().toLowerCase();
-                                        String infoType = info.getCollectionType() != null
-                                                ? info.getCollectionType().toLowerCase()
-                                                : "";
-                                        if (!normalizedFilter.equals(infoType)) {
-                                            return null;
-                                        }
-                                    }
-                                    log.info("Found collection {} for team {}", collectionName, teamId);
-                                    return info;
-                                }
-                            }
-                            return null;
-                        } catch (Exception e) {
-                            log.warn("Failed to get properties for collection {}: {}", collectionName, e.getMessage());
-                            return null;
-                        }
-                    }))
-                    .toList();
-
-            // Wait for all checks to complete and collect results
-            List<MilvusCollectionInfo> collections = new ArrayList<>();
-            for (CompletableFuture<MilvusCollectionInfo> future : futures) {
-                MilvusCollectionInfo info = future.get();
-                if (info != null) {
-                    collections.add(info);
+                                .build());
+
+                if (describeResponse.getStatus() != 0 || describeResponse.getData() == null) {
+                    // Log collection not found
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> errorContext = new HashMap<>();
+                    errorContext.put("collectionName", collectionName);
+                    errorContext.put("teamId", teamId);
+                    errorContext.put("error", "Collection not found: " + collectionName);
+                    errorContext.put("durationMs", durationMs);
+
+                    // Chain audit logging before returning error
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.RAG_COLLECTION_UPDATED,
+                            AuditActionType.UPDATE,
+                            AuditResourceType.COLLECTION,
+                            collectionName,
+                            String.format("Collection metadata update failed for '%s' - collection not found",
+                                    collectionName),
+                            errorContext,
+                            null,
+                            null,
+                            AuditResultType.FAILED)
+                            .doOnError(auditError -> log.error("Failed to log audit event (collection not found): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .then(Mono.error(new RuntimeException("Collection not found: " + collectionName)));
                 }
-            }
 
-            log.info("Found {} collections for team {}", collections.size(), teamId);
-            return Mono.just(collections);
-        } catch (Exception e) {
-            log.error("Failed to list collections: {}", e.getMessage());
-            return Mono.error(e);
-        }
-    }
+                boolean teamMatch = describeResponse.getData().getPropertiesList().stream()
+                        .anyMatch(property -> "teamId".equals(property.getKey()) && teamId.equals(property.getValue()));
 
-    @Override
-    public Mono<Map<String, String>> updateCollectionMetadata(String collectionName,
-            String teamId,
-            Map<String, String> metadata) {
-        log.info("Updating metadata for collection {} (team {})", collectionName, teamId);
-        LocalDateTime startTime = LocalDateTime.now();
+                if (!teamMatch) {
+                    // Log team mismatch (DENIED)
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> errorContext = new HashMap<>();
+                    errorContext.put("collectionName", collectionName);
+                    errorContext.put("teamId", teamId);
+                    errorContext.put("error", "Collection " + collectionName + " does not belong to team " + teamId);
+                    errorContext.put("durationMs", durationMs);
 
-        if (metadata == null || metadata.isEmpty()) {
-            // Log skipped update
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> auditContext = new HashMap<>();
-            auditContext.put("collectionName", collectionName);
-            auditContext.put("teamId", teamId);
-            auditContext.put("reason", "No metadata provided");
-            auditContext.put("durationMs", durationMs);
+                    // Chain audit logging before returning error
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.RAG_COLLECTION_UPDATED,
+                            AuditActionType.UPDATE,
+                            AuditResourceType.COLLECTION,
+                            collectionName,
+                            String.format("Collection metadata update denied for '%s' - team mismatch", collectionName),
+                            errorContext,
+                            null,
+                            null,
+                            AuditResultType.DENIED)
+                            .doOnError(auditError -> log.error("Failed to log audit event (team mismatch): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .then(Mono.error(new RuntimeException(
+                                    "Collection " + collectionName + " does not belong to team " + teamId)));
+                }
 
-            // Chain audit logging before returning
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.RAG_COLLECTION_UPDATED,
-                    AuditActionType.UPDATE,
-                    AuditResourceType.COLLECTION,
-                    collectionName,
-                    String.format("Collection metadata update skipped for '%s' - no metadata provided", collectionName),
-                    auditContext,
-                    null,
-                    null,
-                    AuditResultType.SUCCESS)
-                    .doOnError(auditError -> log.error("Failed to log audit event (no metadata provided): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .thenReturn(Map.of("message", "No metadata provided"));
-        }
+                String currentAlias = describeResponse.getData().getPropertiesList().stream()
+                        .filter(property -> "collectionAlias".equals(property.getKey()))
+                        .map(KeyValuePair::getValue)
+                        .findFirst()
+                        .orElse("");
 
-        try {
-            Map<String, String> sanitizedMetadata = new HashMap<>();
-            metadata.forEach((key, value) -> {
-                if (key != null && !key.isBlank()) {
-                    sanitizedMetadata.put(key.trim(), value != null ? value.trim() : "");
+                String requestedAlias = sanitizedMetadata.getOrDefault("collectionAlias", currentAlias);
+
+                boolean aliasChange = sanitizedMetadata.containsKey("collectionAlias")
+                        && !Objects.equals(normalizeAlias(currentAlias), normalizeAlias(requestedAlias));
+
+                if (aliasChange && nameLocked) {
+                    // Log denied update due to locked collection
+                    long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
+                    Map<String, Object> errorContext = new HashMap<>();
+                    errorContext.put("collectionName", collectionName);
+                    errorContext.put("teamId", teamId);
+                    errorContext.put("currentAlias", currentAlias);
+                    errorContext.put("requestedAlias", requestedAlias);
+                    errorContext.put("error", "Collection " + collectionName
+                            + " is referenced by existing agent workflows and its name cannot be changed.");
+                    errorContext.put("durationMs", durationMs);
+
+                    // Chain audit logging before returning error
+                    return auditLogHelper.logDetailedEvent(
+                            AuditEventType.RAG_COLLECTION_UPDATED,
+                            AuditActionType.UPDATE,
+                            AuditResourceType.COLLECTION,
+                            collectionName,
+                            String.format("Collection metadata update denied for '%s' - collection name is locked",
+                                    collectionName),
+                            errorContext,
+                            null,
+                            null,
+                            AuditResultType.DENIED)
+                            .doOnError(auditError -> log.error("Failed to log audit event (name locked): {}",
+                                    auditError.getMessage(), auditError))
+                            .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
+                            .then(Mono.error(new ResponseStatusException(
+                                    HttpStatus.CONFLICT,
+                                    "Collection " + collectionName
+                                            + " is referenced by existing agent workflows and its name cannot be changed.")));
                 }
-            });
 
-            if (sanitizedMetadata.isEmpty()) {
-                // Log skipped update
+                if (sanitizedMetadata.containsKey("collectionAlias")) {
+                    sanitizedMetadata.put("collectionAlias", normalizeAlias(requestedAlias));
+                }
+
+                AlterCollectionParam.Builder alterBuilder = AlterCollectionParam.newBuilder()
+                        .withCollectionName(collectionName);
+
+                sanitizedMetadata.forEach((key, value) -> {
+                    if (key != null && !key.isBlank() && value != null) {
+                        alterBuilder.withProperty(key.trim(), value);
+                    }
+                });
+
+                client.alterCollection(alterBuilder.build());
+                collectionSchemaCache.remove(collectionName);
+                log.info("Updated metadata for collection {}: {}", collectionName, sanitizedMetadata);
+
+                // Log successful update
                 long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
                 Map<String, Object> auditContext = new HashMap<>();
                 auditContext.put("collectionName", collectionName);
                 auditContext.put("teamId", teamId);
-                auditContext.put("reason", "No valid metadata after sanitization");
+                auditContext.put("metadata", sanitizedMetadata);
+                auditContext.put("metadataKeys", sanitizedMetadata.keySet());
                 auditContext.put("durationMs", durationMs);
+                auditContext.put("updateTimestamp", LocalDateTime.now().toString());
 
                 // Chain audit logging before returning
                 return auditLogHelper.logDetailedEvent(
@@ -1636,32 +2125,27 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                         AuditActionType.UPDATE,
                         AuditResourceType.COLLECTION,
                         collectionName,
-                        String.format("Collection metadata update skipped for '%s' - no valid metadata",
-                                collectionName),
+                        String.format("Collection metadata updated successfully for '%s'", collectionName),
                         auditContext,
                         null,
-                        null,
-                        AuditResultType.SUCCESS)
-                        .doOnError(auditError -> log.error("Failed to log audit event (no valid metadata): {}",
+                        null)
+                        .doOnError(auditError -> log.error("Failed to log audit event (metadata updated): {}",
                                 auditError.getMessage(), auditError))
                         .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .thenReturn(Map.of("message", "No metadata provided"));
-            }
-
-            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                    DescribeCollectionParam.newBuilder()
-                            .withCollectionName(collectionName)
-
-                            .build());
+                        .thenReturn(Map.of("message", "Collection metadata updated"));
+            } catch (Exception e) {
+                log.error("Failed to update collection metadata for {}: {}", collectionName, e.getMessage());
 
-            if (describeResponse.getStatus() != 0 || describeResponse.getData() == null) {
-                // Log collection not found
+                // Log update failure
                 long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
                 Map<String, Object> errorContext = new HashMap<>();
                 errorContext.put("collectionName", collectionName);
                 errorContext.put("teamId", teamId);
-                errorContext.put("error", "Collection not found: " + collectionName);
+                errorContext.put("metadata", metadata);
+                errorContext.put("error", e.getMessage());
+                errorContext.put("errorType", e.getClass().getSimpleName());
                 errorContext.put("durationMs", durationMs);
+                errorContext.put("failureTimestamp", LocalDateTime.now().toString());
 
                 // Chain audit logging before returning error
                 return auditLogHelper.logDetailedEvent(
@@ -1669,162 +2153,17 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                         AuditActionType.UPDATE,
                         AuditResourceType.COLLECTION,
                         collectionName,
-                        String.format("Collection metadata update failed for '%s' - collection not found",
-                                collectionName),
+                        String.format("Collection metadata update failed for '%s': %s", collectionName, e.getMessage()),
                         errorContext,
                         null,
                         null,
                         AuditResultType.FAILED)
-                        .doOnError(auditError -> log.error("Failed to log audit event (collection not found): {}",
-                                auditError.getMessage(), auditError))
-                        .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .then(Mono.error(new RuntimeException("Collection not found: " + collectionName)));
-            }
-
-            boolean teamMatch = describeResponse.getData().getPropertiesList().stream()
-                    .anyMatch(property -> "teamId".equals(property.getKey()) && teamId.equals(property.getValue()));
-
-            if (!teamMatch) {
-                // Log team mismatch (DENIED)
-                long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-                Map<String, Object> errorContext = new HashMap<>();
-                errorContext.put("collectionName", collectionName);
-                errorContext.put("teamId", teamId);
-                errorContext.put("error", "Collection " + collectionName + " does not belong to team " + teamId);
-                errorContext.put("durationMs", durationMs);
-
-                // Chain audit logging before returning error
-                return auditLogHelper.logDetailedEvent(
-                        AuditEventType.RAG_COLLECTION_UPDATED,
-                        AuditActionType.UPDATE,
-                        AuditResourceType.COLLECTION,
-                        collectionName,
-                        String.format("Collection metadata update denied for '%s' - team mismatch", collectionName),
-                        errorContext,
-                        null,
-                        null,
-                        AuditResultType.DENIED)
-                        .doOnError(auditError -> log.error("Failed to log audit event (team mismatch): {}",
-                                auditError.getMessage(), auditError))
-                        .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .then(Mono.error(new RuntimeException(
-                                "Collection " + collectionName + " does not belong to team " + teamId)));
-            }
-
-            String currentAlias = describeResponse.getData().getPropertiesList().stream()
-                    .filter(property -> "collectionAlias".equals(property.getKey()))
-                    .map(KeyValuePair::getValue)
-                    .findFirst()
-                    .orElse("");
-
-            String requestedAlias = sanitizedMetadata.getOrDefault("collectionAlias", currentAlias);
-
-            boolean aliasChange = sanitizedMetadata.containsKey("collectionAlias")
-                    && !Objects.equals(normalizeAlias(currentAlias), normalizeAlias(requestedAlias));
-
-            if (aliasChange && isCollectionNameLocked(collectionName)) {
-                // Log denied update due to locked collection
-                long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-                Map<String, Object> errorContext = new HashMap<>();
-                errorContext.put("collectionName", collectionName);
-                errorContext.put("teamId", teamId);
-                errorContext.put("currentAlias", currentAlias);
-                errorContext.put("requestedAlias", requestedAlias);
-                errorContext.put("error", "Collection " + collectionName
-                        + " is referenced by existing agent workflows and its name cannot be changed.");
-                errorContext.put("durationMs", durationMs);
-
-                // Chain audit logging before returning error
-                return auditLogHelper.logDetailedEvent(
-                        AuditEventType.RAG_COLLECTION_UPDATED,
-                        AuditActionType.UPDATE,
-                        AuditResourceType.COLLECTION,
-                        collectionName,
-                        String.format("Collection metadata update denied for '%s' - collection name is locked",
-                                collectionName),
-                        errorContext,
-                        null,
-                        null,
-                        AuditResultType.DENIED)
-                        .doOnError(auditError -> log.error("Failed to log audit event (name locked): {}",
+                        .doOnError(auditError -> log.error("Failed to log audit event (metadata update failed): {}",
                                 auditError.getMessage(), auditError))
                         .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                        .then(Mono.error(new ResponseStatusException(
-                                HttpStatus.CONFLICT,
-                                "Collection " + collectionName
-                                        + " is referenced by existing agent workflows and its name cannot be changed.")));
+                        .then(Mono.error(e));
             }
-
-            if (sanitizedMetadata.containsKey("collectionAlias")) {
-                sanitizedMetadata.put("collectionAlias", normalizeAlias(requestedAlias));
-            }
-
-            AlterCollectionParam.Builder alterBuilder = AlterCollectionParam.newBuilder()
-                    .withCollectionName(collectionName);
-
-            sanitizedMetadata.forEach((key, value) -> {
-                if (key != null && !key.isBlank() && value != null) {
-                    alterBuilder.withProperty(key.trim(), value);
-                }
-            });
-
-            milvusClient.alterCollection(alterBuilder.build());
-            log.info("Updated metadata for collection {}: {}", collectionName, sanitizedMetadata);
-
-            // Log successful update
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> auditContext = new HashMap<>();
-            auditContext.put("collectionName", collectionName);
-            auditContext.put("teamId", teamId);
-            auditContext.put("metadata", sanitizedMetadata);
-            auditContext.put("metadataKeys", sanitizedMetadata.keySet());
-            auditContext.put("durationMs", durationMs);
-            auditContext.put("updateTimestamp", LocalDateTime.now().toString());
-
-            // Chain audit logging before returning
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.RAG_COLLECTION_UPDATED,
-                    AuditActionType.UPDATE,
-                    AuditResourceType.COLLECTION,
-                    collectionName,
-                    String.format("Collection metadata updated successfully for '%s'", collectionName),
-                    auditContext,
-                    null,
-                    null)
-                    .doOnError(auditError -> log.error("Failed to log audit event (metadata updated): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .thenReturn(Map.of("message", "Collection metadata updated"));
-        } catch (Exception e) {
-            log.error("Failed to update collection metadata for {}: {}", collectionName, e.getMessage());
-
-            // Log update failure
-            long durationMs = java.time.Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Map<String, Object> errorContext = new HashMap<>();
-            errorContext.put("collectionName", collectionName);
-            errorContext.put("teamId", teamId);
-            errorContext.put("metadata", metadata);
-            errorContext.put("error", e.getMessage());
-            errorContext.put("errorType", e.getClass().getSimpleName());
-            errorContext.put("durationMs", durationMs);
-            errorContext.put("failureTimestamp", LocalDateTime.now().toString());
-
-            // Chain audit logging before returning error
-            return auditLogHelper.logDetailedEvent(
-                    AuditEventType.RAG_COLLECTION_UPDATED,
-                    AuditActionType.UPDATE,
-                    AuditResourceType.COLLECTION,
-                    collectionName,
-                    String.format("Collection metadata update failed for '%s': %s", collectionName, e.getMessage()),
-                    errorContext,
-                    null,
-                    null,
-                    AuditResultType.FAILED)
-                    .doOnError(auditError -> log.error("Failed to log audit event (metadata update failed): {}",
-                            auditError.getMessage(), auditError))
-                    .onErrorResume(auditError -> Mono.empty()) // Don't fail if audit logging fails
-                    .then(Mono.error(e));
-        }
+        });
     }
 
     private String normalizeAlias(String alias) {
@@ -1837,61 +2176,13 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
     @Override
     public Mono<List<MilvusCollectionInfo>> listAllCollections() {
         log.info("Listing all collections");
-        try {
-            R<ShowCollectionsResponse> response = milvusClient.showCollections(ShowCollectionsParam.newBuilder()
-
-                    .build());
-            List<String> allCollections = response.getData().getCollectionNamesList();
-
-            // Filter collections in parallel using CompletableFuture
-            List<CompletableFuture<MilvusCollectionInfo>> futures = allCollections.stream()
-                    .map(collectionName -> CompletableFuture.supplyAsync(() -> {
-                        try {
-                            // Get collection properties
-                            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                                    DescribeCollectionParam.newBuilder()
-                                            .withCollectionName(collectionName)
-
-                                            .build());
-
-                            // Find teamId in properties
-                            for (KeyValuePair property : describeResponse.getData().getPropertiesList()) {
-                                if ("teamId".equals(property.getKey())) {
-                                    String teamId = property.getValue();
-                                    log.info("Found teamId {} for collection {}", teamId, collectionName);
-                                    return buildCollectionInfo(collectionName, teamId, describeResponse.getData());
-                                }
-                            }
-
-                            log.info("No teamId found for collection {}", collectionName);
-                            return buildCollectionInfo(collectionName, "unknown", describeResponse.getData());
-                        } catch (Exception e) {
-                            log.warn("Failed to get properties for collection {}: {}", collectionName, e.getMessage());
-                            return MilvusCollectionInfo.builder()
-                                    .name(collectionName)
-                                    .teamId("unknown")
-                                    .nameLocked(isCollectionNameLocked(collectionName))
-                                    .rowCount(null)
-                                    .build();
-                        }
-                    }))
-                    .toList();
-
-            // Wait for all checks to complete and collect results
-            List<MilvusCollectionInfo> collections = new ArrayList<>();
-            for (CompletableFuture<MilvusCollectionInfo> future : futures) {
-                MilvusCollectionInfo info = future.get();
-                if (info != null) {
-                    collections.add(info);
-                }
-            }
-
-            log.info("Found {} collections", collections.size());
-            return Mono.just(collections);
-        } catch (Exception e) {
-            log.error("Failed to list all collections: {}", e.getMessage());
-            return Mono.error(e);
-        }
+        return collectionCatalog.entries()
+                .flatMapMany(Flux::fromIterable)
+                .map(entry -> buildCollectionInfo(entry, entry.teamId() != null ? entry.teamId() : "unknown"))
+                .sort(Comparator.comparing(MilvusCollectionInfo::getName))
+                .collectList()
+                .doOnNext(collections -> log.info("Found {} collections", collections.size()))
+                .doOnError(e -> log.error("Failed to list all collections: {}", e.getMessage()));
     }
 
     @Override
@@ -1906,268 +2197,138 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         log.info(
                 "Verifying record in collection {} for team {} with text: {} using target: {} and model: {} with filters: {}",
                 collectionName, teamId, text, target, modelName, metadataFilters);
-        try {
-            // First verify the collection belongs to the team
-            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                    DescribeCollectionParam.newBuilder()
-                            .withCollectionName(collectionName)
-
-                            .build());
-
-            // Check if describeCollection was successful
-            if (describeResponse.getStatus() != 0) {
-                log.error("Failed to describe collection {}: status={}, message={}",
-                        collectionName, describeResponse.getStatus(), describeResponse.getMessage());
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("found", false);
-                errorResponse.put("message",
-                        "Collection does not exist or access denied: " + describeResponse.getMessage());
-                errorResponse.put("id", null);
-                errorResponse.put(textField, null);
-                errorResponse.put("distance", null);
-                errorResponse.put("match_type", null);
-                errorResponse.put("search_text", text);
-                // Add empty metadata fields if any were requested
-                if (metadataFilters != null) {
-                    for (String fieldName : metadataFilters.keySet()) {
-                        errorResponse.put(fieldName, null);
+        return onMilvus(Operation.ADMIN, collectionName, client -> {
+            try {
+                // First verify the collection belongs to the team
+                R<DescribeCollectionResponse> describeResponse = collectionCatalog.describe(client, collectionName);
+
+                // Check if describeCollection was successful
+                if (describeResponse.getStatus() != 0) {
+                    log.error("Failed to describe collection {}: status={}, message={}",
+                            collectionName, describeResponse.getStatus(), describeResponse.getMessage());
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("found", false);
+                    errorResponse.put("message",
+                            "Collection does not exist or access denied: " + describeResponse.getMessage());
+                    errorResponse.put("id", null);
+                    errorResponse.put(textField, null);
+                    errorResponse.put("distance", null);
+                    errorResponse.put("match_type", null);
+                    errorResponse.put("search_text", text);
+                    // Add empty metadata fields if any were requested
+                    if (metadataFilters != null) {
+                        for (String fieldName : metadataFilters.keySet()) {
+                            errorResponse.put(fieldName, null);
+                        }
                     }
+                    return Mono.just(errorResponse);
                 }
-                return Mono.just(errorResponse);
-            }
 
-            if (describeResponse.getData() == null) {
-                log.error("Describe collection {} returned null data", collectionName);
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("found", false);
-                errorResponse.put("message", "Collection does not exist or access denied");
-                errorResponse.put("id", null);
-                errorResponse.put(textField, null);
-                errorResponse.put("distance", null);
-                errorResponse.put("match_type", null);
-                errorResponse.put("search_text", text);
-                // Add empty metadata fields if any were requested
-                if (metadataFilters != null) {
-                    for (String fieldName : metadataFilters.keySet()) {
-                        errorResponse.put(fieldName, null);
+                if (describeResponse.getData() == null) {
+                    log.error("Describe collection {} returned null data", collectionName);
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("found", false);
+                    errorResponse.put("message", "Collection does not exist or access denied");
+                    errorResponse.put("id", null);
+                    errorResponse.put(textField, null);
+                    errorResponse.put("distance", null);
+                    errorResponse.put("match_type", null);
+                    errorResponse.put("search_text", text);
+                    // Add empty metadata fields if any were requested
+                    if (metadataFilters != null) {
+                        for (String fieldName : metadataFilters.keySet()) {
+                            errorResponse.put(fieldName, null);
+                        }
                     }
+                    return Mono.just(errorResponse);
                 }
-                return Mono.just(errorResponse);
-            }
 
-            DescribeCollectionResponse collectionData = describeResponse.getData();
+                DescribeCollectionResponse collectionData = describeResponse.getData();
 
-            // Log collection schema for debugging
-            // log.info("Collection schema for {}: {}", collectionName,
-            // collectionData.getSchema());
+                // Log collection schema for debugging
+                // log.info("Collection schema for {}: {}", collectionName,
+                // collectionData.getSchema());
 
-            boolean teamIdMatches = false;
-            for (KeyValuePair property : collectionData.getPropertiesList()) {
-                if ("teamId".equals(property.getKey()) && teamId.equals(property.getValue())) {
-                    teamIdMatches = true;
-                    break;
+                boolean teamIdMatches = false;
+                for (KeyValuePair property : collectionData.getPropertiesList()) {
+                    if ("teamId".equals(property.getKey()) && teamId.equals(property.getValue())) {
+                        teamIdMatches = true;
+                        break;
+                    }
                 }
-            }
 
-            if (!teamIdMatches) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("found", false);
-                errorResponse.put("message", "Collection does not belong to team " + teamId);
-                errorResponse.put("id", null);
-                errorResponse.put(textField, null);
-                errorResponse.put("distance", null);
-                errorResponse.put("match_type", null);
-                errorResponse.put("search_text", text);
-                // Add empty metadata fields if any were requested
-                if (metadataFilters != null) {
-                    for (String fieldName : metadataFilters.keySet()) {
-                        errorResponse.put(fieldName, null);
+                if (!teamIdMatches) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("found", false);
+                    errorResponse.put("message", "Collection does not belong to team " + teamId);
+                    errorResponse.put("id", null);
+                    errorResponse.put(textField, null);
+                    errorResponse.put("distance", null);
+                    errorResponse.put("match_type", null);
+                    errorResponse.put("search_text", text);
+                    // Add empty metadata fields if any were requested
+                    if (metadataFilters != null) {
+                        for (String fieldName : metadataFilters.keySet()) {
+                            errorResponse.put(fieldName, null);
+                        }
                     }
+                    return Mono.just(errorResponse);
                 }
-                return Mono.just(errorResponse);
-            }
 
-            // Get embedding for the search text using dynamic llm target and model
-            return getEmbedding(text, target, modelName, teamId)
-                    .flatMap(searchEmbedding -> {
-                        try {
-                            // Build dynamic out fields and get available fields list
-                            List<String> availableFields = collectionData.getSchema().getFieldsList()
-                                    .stream()
-                                    .map(io.milvus.grpc.FieldSchema::getName)
-                                    .collect(Collectors.toList());
-
-                            // Build dynamic filter expression (pass available fields to check schema)
-                            String filterExpression = buildFilterExpression(teamId, metadataFilters, textField,
-                                    availableFields);
-
-                            // Build dynamic out fields (availableFields already defined above)
-
-                            String collectionType = collectionData.getPropertiesList().stream()
-                                    .filter(property -> "collectionType".equals(property.getKey()))
-                                    .map(KeyValuePair::getValue)
-                                    .findFirst()
-                                    .orElse(null);
-
-                            List<String> rawOutFields = buildOutFields(textField, metadataFilters, availableFields,
-                                    collectionType);
-                            // Ensure decryption fields are included and variable is final for lambda use
-                            final List<String> outFields = ensureDecryptionFields(rawOutFields, availableFields);
-
-                            // Use vector search to find similar records
-                            SearchParam.Builder searchParamBuilder = SearchParam.newBuilder()
-                                    .withCollectionName(collectionName)
-                                    .withFloatVectors(List.of(searchEmbedding))
-                                    .withLimit(5L)
-                                    .withMetricType(METRIC_TYPE)
-                                    .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
-                                    .withVectorFieldName(EMBEDDING_FIELD)
-                                    .withOutFields(outFields)
-                                    .withParams("{\"ef\":" + SEARCH_PARAM_EF + "}");
-
-                            // Only add filter expression if it's not empty
-                            if (!filterExpression.isEmpty()) {
-                                searchParamBuilder.withExpr(filterExpression);
-                            }
-
-                            SearchParam searchParam = searchParamBuilder.build();
-
-                            log.info("Executing semantic search for text: {} with filter: {}", text, filterExpression);
-                            SearchResults results = milvusClient.search(searchParam).getData();
-
-                            if (results == null || results.getResults().getNumQueries() == 0) {
-                                log.info("No results found in semantic search");
-                                Map<String, Object> noResultsResponse = new HashMap<>();
-                                noResultsResponse.put("found", false);
-                                noResultsResponse.put("message", "No search results found");
-                                noResultsResponse.put("id", null);
-                                noResultsResponse.put(textField, null);
-                                noResultsResponse.put("distance", null);
-                                noResultsResponse.put("match_type", null);
-                                noResultsResponse.put("search_text", text);
-                                // Add empty metadata fields if any were requested
-                                if (metadataFilters != null) {
-                                    for (String fieldName : metadataFilters.keySet()) {
-                                        noResultsResponse.put(fieldName, null);
+                // Get embedding for the search text using dynamic llm target and model
+                return queryEmbeddingCache.embed(text, target, modelName, vectorDimension(collectionData),
+                        () -> getEmbedding(text, target, modelName, teamId))
+                        .map(QueryEmbeddingCache.QueryEmbedding::embedding)
+                        .flatMap(searchEmbedding -> onMilvus(Operation.SEARCH, collectionName, searchClient -> {
+                                try {
+                                    // Build dynamic out fields and get available fields list
+                                    List<String> availableFields = collectionData.getSchema().getFieldsList()
+                                            .stream()
+                                            .map(io.milvus.grpc.FieldSchema::getName)
+                                            .collect(Collectors.toList());
+
+                                    // Build dynamic filter expression (pass available fields to check schema)
+                                    String filterExpression = buildFilterExpression(teamId, metadataFilters, textField,
+                                            availableFields);
+
+                                    // Build dynamic out fields (availableFields already defined above)
+
+                                    String collectionType = collectionData.getPropertiesList().stream()
+                                            .filter(property -> "collectionType".equals(property.getKey()))
+                                            .map(KeyValuePair::getValue)
+                                            .findFirst()
+                                            .orElse(null);
+
+                                    List<String> rawOutFields = buildOutFields(textField, metadataFilters, availableFields,
+                                            collectionType);
+                                    // Ensure decryption fields are included and variable is final for lambda use
+                                    final List<String> outFields = ensureDecryptionFields(rawOutFields, availableFields);
+
+                                    // Use vector search to find similar records
+                                    SearchParam.Builder searchParamBuilder = SearchParam.newBuilder()
+                                            .withCollectionName(collectionName)
+                                            .withFloatVectors(List.of(searchEmbedding))
+                                            .withLimit(5L)
+                                            .withMetricType(METRIC_TYPE)
+                                            .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                                            .withVectorFieldName(EMBEDDING_FIELD)
+                                            .withOutFields(outFields)
+                                            .withParams("{\"ef\":" + SEARCH_PARAM_EF + "}");
+
+                                    // Only add filter expression if it's not empty
+                                    if (!filterExpression.isEmpty()) {
+                                        searchParamBuilder.withExpr(filterExpression);
                                     }
-                                }
-                                return Mono.just(noResultsResponse);
-                            }
-
-                            SearchResultData resultData = results.getResults();
-
-                            // Use Flux to process results reactively
-                            return Flux.range(0, (int) resultData.getNumQueries())
-                                    .concatMap(i -> {
-                                        // Extract ID
-                                        Object id = null;
-                                        var idFieldData = resultData.getFieldsDataList().stream()
-                                                .filter(f -> f.getFieldName().equals("id"))
-                                                .findFirst()
-                                                .orElse(null);
-                                        if (idFieldData != null && idFieldData.getScalars().hasLongData()
-                                                && idFieldData.getScalars().getLongData().getDataCount() > i) {
-                                            id = idFieldData.getScalars().getLongData().getData(i);
-                                        }
-
-                                        final Object fId = id;
-
-                                        // Extract Distance
-                                        Float distance = 0.0f;
-                                        var distanceField = resultData.getFieldsDataList().stream()
-                                                .filter(f -> f.getFieldName().equals("distance"))
-                                                .findFirst()
-                                                .orElse(null);
-
-                                        if (distanceField != null) {
-                                            if (distanceField.getScalars().hasFloatData()
-                                                    && distanceField.getScalars().getFloatData().getDataCount() > i) {
-                                                distance = distanceField.getScalars().getFloatData().getData(i);
-                                            } else if (distanceField.getScalars().hasDoubleData()
-                                                    && distanceField.getScalars().getDoubleData().getDataCount() > i) {
-                                                distance = (float) distanceField.getScalars().getDoubleData()
-                                                        .getData(i);
-                                            }
-                                        }
-                                        final Float fDistance = distance;
-
-                                        // Extract metadata
-                                        Map<String, Object> metadata = new HashMap<>();
-                                        for (String fieldName : outFields) {
-                                            if (!fieldName.equals("id") && !fieldName.equals(textField)) {
-                                                var fieldData = resultData.getFieldsDataList().stream()
-                                                        .filter(f -> f.getFieldName().equals(fieldName))
-                                                        .findFirst()
-                                                        .orElse(null);
-                                                if (fieldData != null) {
-                                                    Object value = extractFieldValue(fieldData, i);
-                                                    metadata.put(fieldName, value);
-                                                }
-                                            }
-                                        }
-
-                                        // Decrypt text reactively
-                                        return decryptTextFromSearchResults(resultData, textField, i, teamId)
-                                                .map(decryptedText -> {
-                                                    Map<String, Object> doc = new HashMap<>();
-                                                    doc.put("id", fId);
-                                                    doc.put("text", decryptedText);
-                                                    doc.put("distance", fDistance);
-                                                    doc.put("metadata", metadata);
-                                                    return doc;
-                                                });
-                                    })
-                                    .collectList()
-                                    .flatMap(documents -> {
-                                        // Find exact match
-                                        for (Map<String, Object> doc : documents) {
-                                            String storedText = (String) doc.get("text");
-                                            if (storedText != null && storedText.equalsIgnoreCase(text)) {
-                                                Map<String, Object> match = new HashMap<>();
-                                                match.put("found", true);
-                                                match.put("id", doc.get("id"));
-                                                match.put(textField, storedText);
-                                                match.put("distance", doc.get("distance"));
-                                                match.put("match_type", "exact");
-                                                match.put("search_text", text);
-                                                @SuppressWarnings("unchecked")
-                                                Map<String, Object> metadataMap = (Map<String, Object>) doc
-                                                        .get("metadata");
-                                                match.putAll(metadataMap);
-                                                return Mono.just(match);
-                                            }
-                                        }
 
-                                        // If no exact match, return best semantic match
-                                        if (!documents.isEmpty()) {
-                                            Map<String, Object> bestDoc = documents.get(0);
-                                            Map<String, Object> bestMatch = new HashMap<>();
-                                            bestMatch.put("found", true);
-                                            bestMatch.put("id", bestDoc.get("id"));
-                                            bestMatch.put(textField, bestDoc.get("text"));
-                                            bestMatch.put("distance", bestDoc.get("distance"));
-
-                                            float dist = (Float) bestDoc.get("distance");
-                                            if (dist < 0.1) {
-                                                bestMatch.put("match_type", "exact_semantic");
-                                            } else if (dist < 0.3) {
-                                                bestMatch.put("match_type", "high_similarity");
-                                            } else if (dist < 0.5) {
-                                                bestMatch.put("match_type", "medium_similarity");
-                                            } else {
-                                                bestMatch.put("match_type", "low_similarity");
-                                            }
+                                    SearchParam searchParam = searchParamBuilder.build();
 
-                                            bestMatch.put("search_text", text);
-                                            bestMatch.put("message",
-                                                    "Exact match not found, returning best semantic match");
-                                            @SuppressWarnings("unchecked")
-                                            Map<String, Object> bestMetadataMap = (Map<String, Object>) bestDoc
-                                                    .get("metadata");
-                                            bestMatch.putAll(bestMetadataMap);
-                                            return Mono.just(bestMatch);
-                                        }
+                                    log.info("Executing semantic search for text: {} with filter: {}", text, filterExpression);
+                                    collectionCatalog.recordSearch(collectionName);
+                                    collectionCatalog.ensureLoaded(searchClient, collectionName);
+                                    SearchResults results = searchClient.search(searchParam).getData();
 
+                                    if (results == null || results.getResults().getNumQueries() == 0) {
+                                        log.info("No results found in semantic search");
                                         Map<String, Object> noResultsResponse = new HashMap<>();
                                         noResultsResponse.put("found", false);
                                         noResultsResponse.put("message", "No search results found");
@@ -2183,18 +2344,115 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                                             }
                                         }
                                         return Mono.just(noResultsResponse);
-                                    });
+                                    }
 
-                        } catch (Exception e) {
-                            log.error("Failed to perform semantic search: {}", e.getMessage(), e);
-                            return Mono.error(e);
-                        }
-                    });
+                                    SearchResultData resultData = results.getResults();
+                                    MilvusSearchResultDecoder decoder = MilvusSearchResultDecoder.of(resultData);
+
+                                    int rowCount = (int) resultData.getNumQueries();
+
+                                    // Decrypt all texts in one batch, then build documents in result order
+                                    return decryptSearchResultTexts(decoder, textField, rowCount, teamId,
+                                            collectionName)
+                                            .flatMapMany(decryptedTexts -> Flux.range(0, rowCount)
+                                                    .map(i -> {
+                                                        // Extract metadata
+                                                        Map<String, Object> metadata = new HashMap<>();
+                                                        for (String fieldName : outFields) {
+                                                            if (!fieldName.equals("id") && !fieldName.equals(textField)
+                                                                    && decoder.hasField(fieldName)) {
+                                                                metadata.put(fieldName, decoder.getValue(fieldName, i));
+                                                            }
+                                                        }
 
-        } catch (Exception e) {
-            log.error("Failed to verify record in collection {}: {}", collectionName, e.getMessage(), e);
-            return Mono.error(e);
-        }
+                                                        Map<String, Object> doc = new HashMap<>();
+                                                        doc.put("id", decoder.hasInt64("id", i)
+                                                                ? decoder.getInt64("id", i, 0L)
+                                                                : null);
+                                                        doc.put("text", decryptedTexts.get(i));
+                                                        doc.put("distance", decoder.getFloat("distance", i, 0.0f));
+                                                        doc.put("metadata", metadata);
+                                                        return doc;
+                                                    }))
+                                            .collectList()
+                                            .flatMap(documents -> {
+                                                // Find exact match
+                                                for (Map<String, Object> doc : documents) {
+                                                    String storedText = (String) doc.get("text");
+                                                    if (storedText != null && storedText.equalsIgnoreCase(text)) {
+                                                        Map<String, Object> match = new HashMap<>();
+                                                        match.put("found", true);
+                                                        match.put("id", doc.get("id"));
+                                                        match.put(textField, storedText);
+                                                        match.put("distance", doc.get("distance"));
+                                                        match.put("match_type", "exact");
+                                                        match.put("search_text", text);
+                                                        @SuppressWarnings("unchecked")
+                                                        Map<String, Object> metadataMap = (Map<String, Object>) doc
+                                                                .get("metadata");
+                                                        match.putAll(metadataMap);
+                                                        return Mono.just(match);
+                                                    }
+                                                }
+
+                                                // If no exact match, return best semantic match
+                                                if (!documents.isEmpty()) {
+                                                    Map<String, Object> bestDoc = documents.get(0);
+                                                    Map<String, Object> bestMatch = new HashMap<>();
+                                                    bestMatch.put("found", true);
+                                                    bestMatch.put("id", bestDoc.get("id"));
+                                                    bestMatch.put(textField, bestDoc.get("text"));
+                                                    bestMatch.put("distance", bestDoc.get("distance"));
+
+                                                    float dist = (Float) bestDoc.get("distance");
+                                                    if (dist < 0.1) {
+                                                        bestMatch.put("match_type", "exact_semantic");
+                                                    } else if (dist < 0.3) {
+                                                        bestMatch.put("match_type", "high_similarity");
+                                                    } else if (dist < 0.5) {
+                                                        bestMatch.put("match_type", "medium_similarity");
+                                                    } else {
+                                                        bestMatch.put("match_type", "low_similarity");
+                                                    }
+
+                                                    bestMatch.put("search_text", text);
+                                                    bestMatch.put("message",
+                                                            "Exact match not found, returning best semantic match");
+                                                    @SuppressWarnings("unchecked")
+                                                    Map<String, Object> bestMetadataMap = (Map<String, Object>) bestDoc
+                                                            .get("metadata");
+                                                    bestMatch.putAll(bestMetadataMap);
+                                                    return Mono.just(bestMatch);
+                                                }
+
+                                                Map<String, Object> noResultsResponse = new HashMap<>();
+                                                noResultsResponse.put("found", false);
+                                                noResultsResponse.put("message", "No search results found");
+                                                noResultsResponse.put("id", null);
+                                                noResultsResponse.put(textField, null);
+                                                noResultsResponse.put("distance", null);
+                                                noResultsResponse.put("match_type", null);
+                                                noResultsResponse.put("search_text", text);
+                                                // Add empty metadata fields if any were requested
+                                                if (metadataFilters != null) {
+                                                    for (String fieldName : metadataFilters.keySet()) {
+                                                        noResultsResponse.put(fieldName, null);
+                                                    }
+                                                }
+                                                return Mono.just(noResultsResponse);
+                                            });
+
+                                } catch (Exception e) {
+                                    log.error("Failed to perform semantic search: {}", e.getMessage(), e);
+                                    return Mono.error(e);
+                                }
+                        }));
+
+            } catch (Exception e) {
+                log.error("Failed to verify record in collection {}: {}", collectionName, e.getMessage(), e);
+                return Mono.error(e);
+            }
+        });
     }
 
     /**
@@ -2308,794 +2566,864 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
                     }
                 }
             }
-        }
-
-        return new ArrayList<>(requested);
-    }
-
-    /**
-     * Extract field value based on data type
-     */
-    private Object extractFieldValue(FieldData fieldData, int index) {
-        if (fieldData.getScalars().hasStringData() && fieldData.getScalars().getStringData().getDataCount() > index) {
-            return fieldData.getScalars().getStringData().getData(index);
-        } else if (fieldData.getScalars().hasLongData()
-                && fieldData.getScalars().getLongData().getDataCount() > index) {
-            return fieldData.getScalars().getLongData().getData(index);
-        } else if (fieldData.getScalars().hasFloatData()
-                && fieldData.getScalars().getFloatData().getDataCount() > index) {
-            return fieldData.getScalars().getFloatData().getData(index);
-        } else if (fieldData.getScalars().hasDoubleData()
-                && fieldData.getScalars().getDoubleData().getDataCount() > index) {
-            return fieldData.getScalars().getDoubleData().getData(index);
-        } else if (fieldData.getScalars().hasBoolData()
-                && fieldData.getScalars().getBoolData().getDataCount() > index) {
-            return fieldData.getScalars().getBoolData().getData(index);
-        }
-        return null;
-    }
-
-    @Override
-    public Mono<Map<String, Object>> searchRecord(String collectionName, String textField, String text, String teamId,
-            String target, String modelName) {
-        return searchRecord(collectionName, textField, text, teamId, target, modelName, 10, null);
-    }
-
-    @Override
-    public Mono<Map<String, Object>> searchRecord(String collectionName, String textField, String text, String teamId,
-            String target, String modelName, int nResults, Map<String, Object> metadataFilters) {
-        log.info(
-                "Searching records in collection {} for team {} with text: {} using target: {} and model: {} with filters: {} and nResults: {}",
-                collectionName, teamId, text, target, modelName, metadataFilters, nResults);
-
-        // Hybrid Search: Extract significant keywords for re-ranking
-        Set<String> keywords = extractKeywords(text);
-        final int effectiveTopK;
-        if (!keywords.isEmpty()) {
-            // Oversample to get better recall for specific terms
-            // Increased to 20x (max 500) because "Instructions" documents can drown out
-            // "Form" documents in top 100
-            effectiveTopK = Math.min(nResults * 20, 500);
-            log.info("🚀 Hybrid Search Active: Extracted keywords {} - Oversampling topK from {} to {}", keywords,
-                    nResults, effectiveTopK);
-        } else {
-            effectiveTopK = nResults;
-        }
-
-        try {
-            // First verify the collection belongs to the team
-            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                    DescribeCollectionParam.newBuilder()
-                            .withCollectionName(collectionName)
-
-                            .build());
-
-            // Check if describeCollection was successful
-            if (describeResponse.getStatus() != 0) {
-                log.error("Failed to describe collection {}: status={}, message={}",
-                        collectionName, describeResponse.getStatus(), describeResponse.getMessage());
-                return Mono.just(Map.of(
-                        "found", false,
-                        "message", "Collection does not exist or access denied: " + describeResponse.getMessage(),
-                        "search_text", text,
-                        "total_results", 0,
-                        "results", new ArrayList<>()));
-            }
-
-            if (describeResponse.getData() == null) {
-                log.error("Describe collection {} returned null data", collectionName);
-                return Mono.just(Map.of(
-                        "found", false,
-                        "message", "Collection does not exist or access denied",
-                        "search_text", text,
-                        "total_results", 0,
-                        "results", new ArrayList<>()));
-            }
+        }
 
-            // Log collection properties for debugging
-            log.info("Inspecting properties for collection: {}", collectionName);
-            if (describeResponse.getData().getPropertiesList().isEmpty()) {
-                log.warn("⚠️ Collection {} has NO properties!", collectionName);
-            }
-            describeResponse.getData().getPropertiesList()
-                    .forEach(p -> log.debug("   -> Property: {} = {}", p.getKey(), p.getValue()));
+        return new ArrayList<>(requested);
+    }
 
-            // Get embedding for the search text using dynamic tool and model
-            return getEmbedding(text, target, modelName, teamId)
-                    .flatMap(searchEmbedding -> {
-                        try {
-                            // Build dynamic out fields and get available fields list
-                            List<String> availableFields = describeResponse.getData().getSchema().getFieldsList()
-                                    .stream()
-                                    .map(io.milvus.grpc.FieldSchema::getName)
-                                    .collect(Collectors.toList());
-
-                            // Build dynamic filter expression (pass available fields to check schema)
-                            String filterExpression = buildFilterExpression(teamId, metadataFilters, availableFields);
-
-                            String collectionType = describeResponse.getData().getPropertiesList().stream()
-                                    .filter(property -> "collectionType".equals(property.getKey()))
-                                    .map(KeyValuePair::getValue)
-                                    .findFirst()
-                                    .orElse(null);
-
-                            List<String> outFields = buildOutFields(textField, metadataFilters, availableFields,
-                                    collectionType);
-                            // Ensure decryption fields are included (only if they exist in the collection)
-                            outFields = ensureDecryptionFields(outFields, availableFields);
-
-                            // Use vector search to find similar records
-                            SearchParam.Builder searchParamBuilder = SearchParam.newBuilder()
-                                    .withCollectionName(collectionName)
-                                    .withFloatVectors(List.of(searchEmbedding))
-                                    .withLimit((long) effectiveTopK)
-                                    .withMetricType(METRIC_TYPE)
-                                    .withConsistencyLevel(ConsistencyLevelEnum.BOUNDED) // Reverted to BOUNDED for
-                                                                                        // better
-                                                                                        // availability
-                                    .withVectorFieldName(EMBEDDING_FIELD)
-                                    .withOutFields(outFields)
-                                    .withParams("{\"ef\":" + SEARCH_PARAM_EF + "}");
-
-                            // Only add filter expression if it's not empty
-                            if (!filterExpression.isEmpty()) {
-                                searchParamBuilder.withExpr(filterExpression);
-                            }
+    @Override
+    public Mono<Map<String, Object>> searchRecord(String collectionName, String textField, String text, String teamId,
+            String target, String modelName) {
+        return searchRecord(collectionName, textField, text, teamId, target, modelName, 10, null);
+    }
 
-                            SearchParam searchParam = searchParamBuilder.build();
+    @Override
+    public Mono<Map<String, Object>> searchRecord(String collectionName, String textField, String text, String teamId,
+            String target, String modelName, int nResults, Map<String, Object> metadataFilters) {
+        log.info(
+                "Searching records in collection {} for team {} with text: {} using target: {} and model: {} with filters: {} and nResults: {}",
+                collectionName, teamId, text, target, modelName, metadataFilters, nResults);
+        long searchStartNanos = System.nanoTime();
+
+        // Hybrid search: both the vector and the keyword (BM25) index return candidates, whose
+        // rankings are fused and cut to nResults
+        final int effectiveTopK = Math.max(nResults, Math.min(nResults * hybridCandidatesPerResult,
+                hybridMaxCandidates));
+        Mono<List<Bm25Index.Hit>> keywordHitsMono = keywordIndexService.search(collectionName, teamId, text,
+                effectiveTopK)
+                .onErrorResume(e -> {
+                    log.warn("Keyword search on collection {} failed, using vector results only: {}",
+                            collectionName, e.getMessage());
+                    return Mono.just(List.of());
+                });
 
-                            log.info(
-                                    "Executing semantic search for text: {} with filter: {} and nResults: {} (effective: {})",
-                                    text, filterExpression.isEmpty() ? "none" : filterExpression, nResults,
-                                    effectiveTopK);
+        return onMilvus(Operation.ADMIN, collectionName, client -> {
+            try {
+                // First verify the collection belongs to the team
+                R<DescribeCollectionResponse> describeResponse = collectionCatalog.describe(client, collectionName);
+
+                // Check if describeCollection was successful
+                if (describeResponse.getStatus() != 0) {
+                    log.error("Failed to describe collection {}: status={}, message={}",
+                            collectionName, describeResponse.getStatus(), describeResponse.getMessage());
+                    return Mono.just(Map.of(
+                            "found", false,
+                            "message", "Collection does not exist or access denied: " + describeResponse.getMessage(),
+                            "search_text", text,
+                            "total_results", 0,
+                            "results", new ArrayList<>()));
+                }
 
-                            // Initial search
-                            R<SearchResults> searchResponse = milvusClient.search(searchParam);
-                            SearchResults finalResults = null;
+                if (describeResponse.getData() == null) {
+                    log.error("Describe collection {} returned null data", collectionName);
+                    return Mono.just(Map.of(
+                            "found", false,
+                            "message", "Collection does not exist or access denied",
+                            "search_text", text,
+                            "total_results", 0,
+                            "results", new ArrayList<>()));
+                }
 
-                            // Check for failure in the response wrapper
-                            if (searchResponse.getStatus() != R.Status.Success.getCode()) {
-                                log.error("❌ Search failed for {}: [{}] {}", collectionName, searchResponse.getStatus(),
-                                        searchResponse.getMessage());
-                                throw new RuntimeException("Milvus search failed: " + searchResponse.getMessage());
-                            }
+                // Log collection properties for debugging
+                log.info("Inspecting properties for collection: {}", collectionName);
+                if (describeResponse.getData().getPropertiesList().isEmpty()) {
+                    log.warn("⚠️ Collection {} has NO properties!", collectionName);
+                }
+                describeResponse.getData().getPropertiesList()
+                        .forEach(p -> log.debug("   -> Property: {} = {}", p.getKey(), p.getValue()));
+
+                // Get embedding for the search text using dynamic tool and model
+                AtomicBoolean queryEmbeddingCached = new AtomicBoolean();
+                return queryEmbeddingCache.embed(text, target, modelName,
+                        vectorDimension(describeResponse.getData()),
+                        () -> getEmbedding(text, target, modelName, teamId))
+                        .doOnNext(queryEmbedding -> queryEmbeddingCached.set(queryEmbedding.cacheHit()))
+                        .map(QueryEmbeddingCache.QueryEmbedding::embedding)
+                        .zipWith(keywordHitsMono)
+                        .flatMap(inputs -> onMilvus(Operation.SEARCH, collectionName, searchClient -> {
+                                try {
+                                    List<Float> searchEmbedding = inputs.getT1();
+                                    List<Bm25Index.Hit> keywordHits = inputs.getT2();
+                                    // Without keyword hits there is nothing to fuse, so no oversampling
+                                    int vectorTopK = keywordHits.isEmpty() ? nResults : effectiveTopK;
+
+                                    // Build dynamic out fields and get available fields list
+                                    List<String> availableFields = describeResponse.getData().getSchema().getFieldsList()
+                                            .stream()
+                                            .map(io.milvus.grpc.FieldSchema::getName)
+                                            .collect(Collectors.toList());
+
+                                    // Build dynamic filter expression (pass available fields to check schema)
+                                    String filterExpression = buildFilterExpression(teamId, metadataFilters, availableFields);
+
+                                    String collectionType = describeResponse.getData().getPropertiesList().stream()
+                                            .filter(property -> "collectionType".equals(property.getKey()))
+                                            .map(KeyValuePair::getValue)
+                                            .findFirst()
+                                            .orElse(null);
+
+                                    List<String> outFields = buildOutFields(textField, metadataFilters, availableFields,
+                                            collectionType);
+                                    // Ensure decryption fields are included (only if they exist in the collection)
+                                    outFields = ensureDecryptionFields(outFields, availableFields);
+
+                                    // Use vector search to find similar records
+                                    SearchParam.Builder searchParamBuilder = SearchParam.newBuilder()
+                                            .withCollectionName(collectionName)
+                                            .withFloatVectors(List.of(searchEmbedding))
+                                            .withLimit((long) vectorTopK)
+                                            .withMetricType(METRIC_TYPE)
+                                            .withConsistencyLevel(ConsistencyLevelEnum.BOUNDED) // Reverted to BOUNDED for
+                                                                                                // better
+                                                                                                // availability
+                                            .withVectorFieldName(EMBEDDING_FIELD)
+                                            .withOutFields(outFields)
+                                            .withParams("{\"ef\":" + SEARCH_PARAM_EF + "}");
+
+                                    // Only add filter expression if it's not empty
+                                    if (!filterExpression.isEmpty()) {
+                                        searchParamBuilder.withExpr(filterExpression);
+                                    }
 
-                            finalResults = searchResponse.getData();
-
-                            if (finalResults == null || finalResults.getResults().getNumQueries() == 0) {
-                                log.info("No results found in semantic search");
-                                // Return consistent structure for no results
-                                Map<String, Object> noResultsResponse = new HashMap<>();
-                                noResultsResponse.put("found", false);
-                                noResultsResponse.put("message", "No search results found");
-                                noResultsResponse.put("search_text", text);
-                                noResultsResponse.put("total_results", 0);
-                                noResultsResponse.put("results", new ArrayList<>());
-                                return Mono.just(noResultsResponse);
-                            }
+                                    SearchParam searchParam = searchParamBuilder.build();
 
-                            // Process search results reactively
-                            SearchResultData resultData = finalResults.getResults();
-                            List<Long> topKs = resultData.getTopksList();
-
-                            final List<String> finalOutFields = outFields;
-
-                            return Flux.range(0, topKs.size())
-                                    .concatMap(queryIndex -> {
-                                        int resultsForQuery = Math.toIntExact(topKs.get(queryIndex));
-                                        int currentOffset = queryIndex * resultsForQuery; // simplified offset
-                                                                                          // calculation assuming equal
-                                                                                          // nResults
-
-                                        return Flux.range(0, resultsForQuery)
-                                                .concatMap(rank -> {
-                                                    int index = currentOffset + rank;
-                                                    Map<String, Object> record = new HashMap<>();
-
-                                                    // Add query/rank context
-                                                    record.put("query_index", queryIndex);
-                                                    record.put("rank", rank + 1);
-
-                                                    // Primary key / ID field
-                                                    if (resultData.getIds().hasIntId()
-                                                            && resultData.getIds().getIntId().getDataCount() > index) {
-                                                        record.put("id", resultData.getIds().getIntId().getData(index));
-                                                    } else if (resultData.getIds().hasStrId()
-                                                            && resultData.getIds().getStrId().getDataCount() > index) {
-                                                        record.put("id", resultData.getIds().getStrId().getData(index));
-                                                    }
+                                    log.info(
+                                            "Executing semantic search for text: {} with filter: {} and nResults: {} (vector: {}, keyword hits: {})",
+                                            text, filterExpression.isEmpty() ? "none" : filterExpression, nResults,
+                                            vectorTopK, keywordHits.size());
 
-                                                    // Distance (similarity score)
-                                                    float distance = 0.0f;
-                                                    if (resultData.getScoresCount() > index) {
-                                                        distance = resultData.getScores(index);
-                                                    }
-                                                    record.put("distance", distance);
-
-                                                    if (distance < 0.1f) {
-                                                        record.put("match_type", "exact");
-                                                    } else if (distance < 0.3f) {
-                                                        record.put("match_type", "high_similarity");
-                                                    } else if (distance < 0.5f) {
-                                                        record.put("match_type", "medium_similarity");
-                                                    } else {
-                                                        record.put("match_type", "low_similarity");
-                                                    }
+                                    // Initial search
+                                    collectionCatalog.recordSearch(collectionName);
+                                    collectionCatalog.ensureLoaded(searchClient, collectionName);
+                                    R<SearchResults> searchResponse = searchClient.search(searchParam);
+                                    SearchResults finalResults = null;
 
-                                                    // Additional metadata fields
-                                                    for (String fieldName : finalOutFields) {
-                                                        if (!fieldName.equals("id") && !fieldName.equals(textField)) {
-                                                            var fieldData = resultData.getFieldsDataList().stream()
-                                                                    .filter(f -> f.getFieldName().equals(fieldName))
-                                                                    .findFirst()
-                                                                    .orElse(null);
-                                                            if (fieldData != null) {
-                                                                Object value = extractFieldValue(fieldData, index);
-                                                                if (value != null) {
-                                                                    record.put(fieldName, value);
-                                                                }
-                                                            }
-                                                        }
-                                                    }
+                                    // Check for failure in the response wrapper
+                                    if (searchResponse.getStatus() != R.Status.Success.getCode()) {
+                                        log.error("❌ Search failed for {}: [{}] {}", collectionName, searchResponse.getStatus(),
+                                                searchResponse.getMessage());
+                                        throw new RuntimeException("Milvus search failed: " + searchResponse.getMessage());
+                                    }
 
-                                                    final Map<String, Object> fRecord = record;
-
-                                                    // Chunk text field (decrypted)
-                                                    return decryptTextFromSearchResults(resultData, textField, index,
-                                                            teamId)
-                                                            .map(decryptedText -> {
-                                                                if (decryptedText != null && !decryptedText.isEmpty()) {
-                                                                    fRecord.put(textField, decryptedText);
-                                                                }
-                                                                return fRecord;
-                                                            });
-                                                });
-                                    })
-                                    .collectList()
-                                    .flatMap(searchResults -> {
-                                        List<Map<String, Object>> finalResultsList = new ArrayList<>(searchResults);
-
-                                        // Hybrid Search: Client-side Re-ranking
-                                        if (!keywords.isEmpty() && !finalResultsList.isEmpty()) {
-                                            log.debug("🔄 Re-ranking {} results based on keywords: {}",
-                                                    finalResultsList.size(), keywords);
-                                            for (Map<String, Object> record : finalResultsList) {
-                                                float currentScore = record.containsKey("distance")
-                                                        ? ((Number) record.get("distance")).floatValue()
-                                                        : 0.0f;
-                                                float boost = 0.0f;
-                                                Set<String> matchedFields = new HashSet<>();
-
-                                                // 1. Check Content (Text)
-                                                String recordText = (String) record.get(textField);
-                                                if (recordText != null) {
-                                                    for (String keyword : keywords) {
-                                                        if (recordText.contains(keyword)) {
-                                                            boost += 0.15f;
-                                                            matchedFields.add("text");
-                                                        }
-                                                    }
-                                                }
+                                    finalResults = searchResponse.getData();
 
-                                                // 2. Check Metadata (Title, FileName, Subject)
-                                                // This helps distinguish "Form I-485" from "I-485 Instructions" if the
-                                                // filename/title matches exactly
-                                                String[] metaFields = { "title", "fileName", "subject" };
-                                                for (String fieldName : metaFields) {
-                                                    if (record.containsKey(fieldName)) {
-                                                        Object val = record.get(fieldName);
-                                                        if (val != null) {
-                                                            String metaVal = val.toString();
-                                                            for (String keyword : keywords) {
-                                                                if (metaVal.contains(keyword)) {
-                                                                    boost += 0.25f; // Higher boost for metadata match
-                                                                                    // (Title is very strong signal)
-                                                                    matchedFields.add(fieldName);
-                                                                }
-                                                            }
-                                                        }
-                                                    }
-                                                }
+                                    if ((finalResults == null || finalResults.getResults().getNumQueries() == 0)
+                                            && keywordHits.isEmpty()) {
+                                        log.info("No results found in semantic search");
+                                        // Return consistent structure for no results
+                                        Map<String, Object> noResultsResponse = new HashMap<>();
+                                        noResultsResponse.put("found", false);
+                                        noResultsResponse.put("message", "No search results found");
+                                        noResultsResponse.put("search_text", text);
+                                        noResultsResponse.put("total_results", 0);
+                                        noResultsResponse.put("results", new ArrayList<>());
+                                        return Mono.just(noResultsResponse);
+                                    }
 
-                                                if (boost > 0) {
-                                                    record.put("start_score", currentScore);
-                                                    float newScore = currentScore + boost;
-                                                    record.put("distance", newScore);
-                                                    record.put("keyword_boost", boost);
-                                                    record.put("match_type", "keyword_boosted");
-                                                    record.put("matched_fields", matchedFields);
-                                                }
-                                            }
+                                    // Process search results reactively
+                                    SearchResultData resultData = finalResults != null
+                                            ? finalResults.getResults()
+                                            : SearchResultData.getDefaultInstance();
+                                    MilvusSearchResultDecoder decoder = MilvusSearchResultDecoder.of(resultData);
+                                    List<Long> topKs = resultData.getTopksList();
 
-                                            // Re-sort by new distance (descending)
-                                            finalResultsList.sort((r1, r2) -> {
-                                                float s1 = ((Number) r1.getOrDefault("distance", 0.0f)).floatValue();
-                                                float s2 = ((Number) r2.getOrDefault("distance", 0.0f)).floatValue();
-                                                return Float.compare(s2, s1);
-                                            });
+                                    final List<String> finalOutFields = outFields;
 
-                                            // Truncate to original requested nResults
-                                            if (finalResultsList.size() > nResults) {
-                                                log.debug("✂️ Truncating re-ranked results from {} to {}",
-                                                        finalResultsList.size(), nResults);
-                                                finalResultsList = finalResultsList.subList(0, nResults);
-                                            }
-                                        }
+                                    // Row positions used below: query q occupies [q * topK_q, (q + 1) * topK_q)
+                                    int rowCount = 0;
+                                    for (int q = 0; q < topKs.size(); q++) {
+                                        rowCount = Math.max(rowCount, (q + 1) * Math.toIntExact(topKs.get(q)));
+                                    }
+                                    final int vectorRowCount = rowCount;
 
-                                        // Build the final response
-                                        Map<String, Object> finalResponseMap = new HashMap<>();
-                                        finalResponseMap.put("found", true);
-                                        finalResponseMap.put("search_text", text);
-                                        finalResponseMap.put("total_results", finalResultsList.size());
-                                        finalResponseMap.put("results", finalResultsList);
-                                        finalResponseMap.put("message",
-                                                String.format("Found %d relevant records", finalResultsList.size()));
-
-                                        log.info("Successfully searched records with {} results",
-                                                finalResultsList.size());
-                                        return Mono.just(finalResponseMap);
-                                    });
-                        } catch (Exception e) {
-                            log.error("Failed to perform semantic search: {}", e.getMessage(), e);
-                            return Mono.error(e);
-                        }
-                    });
+                                    // Keyword hits the vector search missed are read by primary key, which
+                                    // also applies the team and metadata filters to them
+                                    Set<Object> vectorIds = new HashSet<>();
+                                    for (int row = 0; row < vectorRowCount; row++) {
+                                        vectorIds.add(decoder.id(row));
+                                    }
+                                    List<Long> keywordOnlyIds = keywordHits.stream()
+                                            .map(Bm25Index.Hit::id)
+                                            .filter(id -> !vectorIds.contains(id))
+                                            .toList();
+                                    MilvusSearchResultDecoder keywordDecoder = queryRowsById(searchClient,
+                                            collectionName, keywordOnlyIds, filterExpression, outFields);
+                                    int keywordRowCount = (int) keywordDecoder.data().getTopK();
+
+                                    // Decrypt all texts in one batch, then build records in result order
+                                    return decryptSearchResultTexts(
+                                            List.of(new DecoderRows(decoder, vectorRowCount),
+                                                    new DecoderRows(keywordDecoder, keywordRowCount)),
+                                            textField, teamId, collectionName)
+                                            .flatMapMany(decryptedTexts -> Flux.range(0, topKs.size())
+                                                    .concatMap(queryIndex -> {
+                                                        int resultsForQuery = Math.toIntExact(topKs.get(queryIndex));
+                                                        int currentOffset = queryIndex * resultsForQuery; // simplified offset
+                                                                                                          // calculation assuming equal
+                                                                                                          // nResults
+
+                                                        return Flux.range(0, resultsForQuery)
+                                                                .map(rank -> {
+                                                                    int index = currentOffset + rank;
+                                                                    Map<String, Object> record = new HashMap<>();
+
+                                                                    // Add query/rank context
+                                                                    record.put("query_index", queryIndex);
+                                                                    record.put("rank", rank + 1);
+
+                                                                    // Primary key / ID field
+                                                                    Object id = decoder.id(index);
+                                                                    if (id != null) {
+                                                                        record.put("id", id);
+                                                                    }
+
+                                                                    // Distance (similarity score)
+                                                                    float distance = decoder.score(index);
+                                                                    record.put("distance", distance);
+
+                                                                    if (distance < 0.1f) {
+                                                                        record.put("match_type", "exact");
+                                                                    } else if (distance < 0.3f) {
+                                                                        record.put("match_type", "high_similarity");
+                                                                    } else if (distance < 0.5f) {
+                                                                        record.put("match_type", "medium_similarity");
+                                                                    } else {
+                                                                        record.put("match_type", "low_similarity");
+                                                                    }
+
+                                                                    // Additional metadata fields
+                                                                    for (String fieldName : finalOutFields) {
+                                                                        if (!fieldName.equals("id") && !fieldName.equals(textField)) {
+                                                                            Object value = decoder.getValue(fieldName, index);
+                                                                            if (value != null) {
+                                                                                record.put(fieldName, value);
+                                                                            }
+                                                                        }
+                                                                    }
+
+                                                                    // Chunk text field (decrypted)
+                                                                    String decryptedText = index < decryptedTexts.size()
+                                                                            ? decryptedTexts.get(index)
+                                                                            : null;
+                                                                    if (decryptedText != null && !decryptedText.isEmpty()) {
+                                                                        record.put(textField, decryptedText);
+                                                                    }
+                                                                    return record;
+                                                                });
+                                                    })
+                                                    .concatWith(Flux.range(0, keywordRowCount)
+                                                            .map(row -> keywordOnlyRecord(keywordDecoder, row,
+                                                                    decryptedTexts.get(vectorRowCount + row),
+                                                                    textField, finalOutFields))))
+                                            .collectList()
+                                            .flatMap(searchResults -> {
+                                                List<Map<String, Object>> finalResultsList = keywordHits.isEmpty()
+                                                        ? new ArrayList<>(searchResults)
+                                                        : fuseHybridResults(searchResults, keywordHits, nResults);
+
+                                                // Build the final response
+                                                Map<String, Object> finalResponseMap = new HashMap<>();
+                                                finalResponseMap.put("found", true);
+                                                finalResponseMap.put("search_text", text);
+                                                finalResponseMap.put("total_results", finalResultsList.size());
+                                                finalResponseMap.put("results", finalResultsList);
+                                                finalResponseMap.put("message",
+                                                        String.format("Found %d relevant records", finalResultsList.size()));
+
+                                                log.info("Successfully searched records with {} results",
+                                                        finalResultsList.size());
+                                                return Mono.just(finalResponseMap);
+                                            });
+                                } catch (Exception e) {
+                                    log.error("Failed to perform semantic search: {}", e.getMessage(), e);
+                                    return Mono.error(e);
+                                }
+                        }))
+                        .doOnSuccess(response -> queryEmbeddingCache.recordSearchLatency(queryEmbeddingCached.get(),
+                                (System.nanoTime() - searchStartNanos) / 1_000_000));
 
-        } catch (Exception e) {
-            log.error("Failed to search records in collection {}: {}", collectionName, e.getMessage(), e);
-            return Mono.error(e);
-        }
+            } catch (Exception e) {
+                log.error("Failed to search records in collection {}: {}", collectionName, e.getMessage(), e);
+                return Mono.error(e);
+            }
+        });
     }
 
     @Override
     public Mono<Map<String, Object>> getCollectionDetails() {
         log.info("Getting detailed collection information");
-        try {
-            log.info("Calling showCollections with database 'default'");
-            R<ShowCollectionsResponse> response = milvusClient.showCollections(ShowCollectionsParam.newBuilder()
+        return onMilvus(Operation.ADMIN, ReactiveMilvusClient.ALL_COLLECTIONS, client -> {
+            try {
+                log.info("Calling showCollections with database 'default'");
+                R<ShowCollectionsResponse> response = client.showCollections(ShowCollectionsParam.newBuilder()
 
-                    .build());
+                        .build());
 
-            log.info("ShowCollections response status: {}", response.getStatus());
+                log.info("ShowCollections response status: {}", response.getStatus());
 
-            // Check if the response is successful
-            if (response.getStatus() != 0) {
-                String errorMessage = response.getMessage();
-                if (errorMessage == null) {
-                    errorMessage = "Unknown error occurred while listing collections";
-                }
-                log.error("ShowCollections failed with status {}: {}", response.getStatus(), errorMessage);
+                // Check if the response is successful
+                if (response.getStatus() != 0) {
+                    String errorMessage = response.getMessage();
+                    if (errorMessage == null) {
+                        errorMessage = "Unknown error occurred while listing collections";
+                    }
+                    log.error("ShowCollections failed with status {}: {}", response.getStatus(), errorMessage);
 
-                // Try without database specification as fallback
-                log.info("Trying showCollections without database specification as fallback");
-                R<ShowCollectionsResponse> fallbackResponse = milvusClient
-                        .showCollections(ShowCollectionsParam.newBuilder()
-                                .build());
+                    // Try without database specification as fallback
+                    log.info("Trying showCollections without database specification as fallback");
+                    R<ShowCollectionsResponse> fallbackResponse = client
+                            .showCollections(ShowCollectionsParam.newBuilder()
+                                    .build());
+
+                    if (fallbackResponse.getStatus() != 0) {
+                        String fallbackErrorMessage = fallbackResponse.getMessage();
+                        if (fallbackErrorMessage == null) {
+                            fallbackErrorMessage = "Unknown error occurred while listing collections";
+                        }
+                        log.error("Fallback ShowCollections also failed with status {}: {}", fallbackResponse.getStatus(),
+                                fallbackErrorMessage);
+                        return Mono.error(new RuntimeException("Failed to list collections: " + fallbackErrorMessage));
+                    }
 
-                if (fallbackResponse.getStatus() != 0) {
-                    String fallbackErrorMessage = fallbackResponse.getMessage();
-                    if (fallbackErrorMessage == null) {
-                        fallbackErrorMessage = "Unknown error occurred while listing collections";
+                    if (fallbackResponse.getData() == null) {
+                        log.error("Fallback ShowCollections returned null data");
+                        return Mono.error(new RuntimeException("No data received from Milvus"));
                     }
-                    log.error("Fallback ShowCollections also failed with status {}: {}", fallbackResponse.getStatus(),
-                            fallbackErrorMessage);
-                    return Mono.error(new RuntimeException("Failed to list collections: " + fallbackErrorMessage));
+
+                    response = fallbackResponse;
+                    log.info("Using fallback response without database specification");
                 }
 
-                if (fallbackResponse.getData() == null) {
-                    log.error("Fallback ShowCollections returned null data");
+                if (response.getData() == null) {
+                    log.error("ShowCollections returned null data");
                     return Mono.error(new RuntimeException("No data received from Milvus"));
                 }
 
-                response = fallbackResponse;
-                log.info("Using fallback response without database specification");
-            }
-
-            if (response.getData() == null) {
-                log.error("ShowCollections returned null data");
-                return Mono.error(new RuntimeException("No data received from Milvus"));
-            }
-
-            List<String> allCollections = response.getData().getCollectionNamesList();
+                List<String> allCollections = response.getData().getCollectionNamesList();
 
-            log.info("Found {} collections in current database context: {}", allCollections.size(), allCollections);
+                log.info("Found {} collections in current database context: {}", allCollections.size(), allCollections);
 
-            if (allCollections.isEmpty()) {
-                log.warn("No collections found. This might indicate a database context issue.");
-            }
+                if (allCollections.isEmpty()) {
+                    log.warn("No collections found. This might indicate a database context issue.");
+                }
 
-            Map<String, Object> result = new HashMap<>();
-            List<Map<String, Object>> collections = new ArrayList<>();
+                Map<String, Object> result = new HashMap<>();
+                List<Map<String, Object>> collections = new ArrayList<>();
 
-            for (String collectionName : allCollections) {
-                try {
-                    // Get collection properties
-                    R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(
-                            DescribeCollectionParam.newBuilder()
-                                    .withCollectionName(collectionName)
+                for (String collectionName : allCollections) {
+                    try {
+                        // Get collection properties
+                        R<DescribeCollectionResponse> describeResponse = client.describeCollection(
+                                DescribeCollectionParam.newBuilder()
+                                        .withCollectionName(collectionName)
 
-                                    .build());
+                                        .build());
 
-                    Map<String, Object> collectionInfo = new HashMap<>();
-                    collectionInfo.put("name", collectionName);
+                        Map<String, Object> collectionInfo = new HashMap<>();
+                        collectionInfo.put("name", collectionName);
 
-                    // Get teamId from properties
-                    for (KeyValuePair property : describeResponse.getData().getPropertiesList()) {
-                        if ("teamId".equals(property.getKey())) {
-                            collectionInfo.put("teamId", property.getValue());
-                            break;
+                        // Get teamId from properties
+                        for (KeyValuePair property : describeResponse.getData().getPropertiesList()) {
+                            if ("teamId".equals(property.getKey())) {
+                                collectionInfo.put("teamId", property.getValue());
+                                break;
+                            }
                         }
-                    }
 
-                    // Get schema information
-                    List<Map<String, Object>> fields = new ArrayList<>();
-                    for (io.milvus.grpc.FieldSchema field : describeResponse.getData().getSchema().getFieldsList()) {
-                        Map<String, Object> fieldInfo = new HashMap<>();
-                        fieldInfo.put("name", field.getName());
-                        fieldInfo.put("dataType", field.getDataType().name());
-                        fieldInfo.put("isPrimary", field.getIsPrimaryKey());
-                        if (field.getTypeParamsCount() > 0) {
-                            // Convert Protobuf type params to simple map
-                            Map<String, String> typeParams = new HashMap<>();
-                            for (KeyValuePair param : field.getTypeParamsList()) {
-                                typeParams.put(param.getKey(), param.getValue());
+                        // Get schema information
+                        List<Map<String, Object>> fields = new ArrayList<>();
+                        for (io.milvus.grpc.FieldSchema field : describeResponse.getData().getSchema().getFieldsList()) {
+                            Map<String, Object> fieldInfo = new HashMap<>();
+                            fieldInfo.put("name", field.getName());
+                            fieldInfo.put("dataType", field.getDataType().name());
+                            fieldInfo.put("isPrimary", field.getIsPrimaryKey());
+                            if (field.getTypeParamsCount() > 0) {
+                                // Convert Protobuf type params to simple map
+                                Map<String, String> typeParams = new HashMap<>();
+                                for (KeyValuePair param : field.getTypeParamsList()) {
+                                    typeParams.put(param.getKey(), param.getValue());
+                                }
+                                fieldInfo.put("typeParams", typeParams);
                             }
-                            fieldInfo.put("typeParams", typeParams);
+                            fields.add(fieldInfo);
                         }
-                        fields.add(fieldInfo);
-                    }
-                    collectionInfo.put("schema", fields);
+                        collectionInfo.put("schema", fields);
 
-                    // Get collection statistics
-                    try {
-                        R<GetCollectionStatisticsResponse> statsResponse = milvusClient.getCollectionStatistics(
-                                GetCollectionStatisticsParam.newBuilder()
-                                        .withCollectionName(collectionName)
+                        // Get collection statistics
+                        try {
+                            R<GetCollectionStatisticsResponse> statsResponse = client.getCollectionStatistics(
+                                    GetCollectionStatisticsParam.newBuilder()
+                                            .withCollectionName(collectionName)
 
-                                        .build());
-                        // Extract row count from the response
-                        long rowCount = 0;
-                        for (KeyValuePair stat : statsResponse.getData().getStatsList()) {
-                            if ("row_count".equals(stat.getKey())) {
-                                rowCount = Long.parseLong(stat.getValue());
-                                break;
+                                            .build());
+                            // Extract row count from the response
+                            long rowCount = 0;
+                            for (KeyValuePair stat : statsResponse.getData().getStatsList()) {
+                                if ("row_count".equals(stat.getKey())) {
+                                    rowCount = Long.parseLong(stat.getValue());
+                                    break;
+                                }
                             }
+                            collectionInfo.put("rowCount", rowCount);
+                        } catch (Exception e) {
+                            log.warn("Failed to get row count for collection {}: {}", collectionName, e.getMessage());
+                            collectionInfo.put("rowCount", "unknown");
                         }
-                        collectionInfo.put("rowCount", rowCount);
-                    } catch (Exception e) {
-                        log.warn("Failed to get row count for collection {}: {}", collectionName, e.getMessage());
-                        collectionInfo.put("rowCount", "unknown");
-                    }
 
-                    collections.add(collectionInfo);
+                        collections.add(collectionInfo);
 
-                } catch (Exception e) {
-                    log.warn("Failed to get details for collection {}: {}", collectionName, e.getMessage());
-                    Map<String, Object> errorInfo = new HashMap<>();
-                    errorInfo.put("name", collectionName);
-                    errorInfo.put("error", e.getMessage());
-                    collections.add(errorInfo);
+                    } catch (Exception e) {
+                        log.warn("Failed to get details for collection {}: {}", collectionName, e.getMessage());
+                        Map<String, Object> errorInfo = new HashMap<>();
+                        errorInfo.put("name", collectionName);
+                        errorInfo.put("error", e.getMessage());
+                        collections.add(errorInfo);
+                    }
                 }
-            }
 
-            result.put("collections", collections);
-            result.put("totalCollections", collections.size());
-            result.put("database", "default");
+                result.put("collections", collections);
+                result.put("totalCollections", collections.size());
+                result.put("database", "default");
 
-            log.info("Retrieved details for {} collections", collections.size());
-            return Mono.just(result);
-        } catch (Exception e) {
-            log.error("Failed to get collection details: {}", e.getMessage());
-            return Mono.error(e);
-        }
+                log.info("Retrieved details for {} collections", collections.size());
+                return Mono.just(result);
+            } catch (Exception e) {
+                log.error("Failed to get collection details: {}", e.getMessage());
+                return Mono.error(e);
+            }
+        });
     }
 
     @Override
     public Mono<MilvusCollectionVerificationResponse> verifyCollection(String collectionName, String teamId) {
         log.info("Verifying Milvus collection {} for team {}", collectionName, teamId);
-        try {
-            DescribeCollectionParam describeParam = DescribeCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
+        return onMilvus(Operation.ADMIN, collectionName, client -> {
+            try {
+                DescribeCollectionParam describeParam = DescribeCollectionParam.newBuilder()
+                        .withCollectionName(collectionName)
 
-                    .build();
+                        .build();
 
-            R<DescribeCollectionResponse> describeResponse = milvusClient.describeCollection(describeParam);
-            if (describeResponse.getStatus() != 0 || describeResponse.getData() == null) {
-                String message = describeResponse.getMessage() != null ? describeResponse.getMessage()
-                        : "Unknown error";
-                log.error("Failed to describe collection {}: {}", collectionName, message);
-                return Mono.error(new RuntimeException("Failed to describe Milvus collection: " + message));
-            }
+                R<DescribeCollectionResponse> describeResponse = client.describeCollection(describeParam);
+                if (describeResponse.getStatus() != 0 || describeResponse.getData() == null) {
+                    String message = describeResponse.getMessage() != null ? describeResponse.getMessage()
+                            : "Unknown error";
+                    log.error("Failed to describe collection {}: {}", collectionName, message);
+                    return Mono.error(new RuntimeException("Failed to describe Milvus collection: " + message));
+                }
 
-            DescribeCollectionResponse data = describeResponse.getData();
+                DescribeCollectionResponse data = describeResponse.getData();
 
-            String collectionTeamId = null;
-            Map<String, String> collectionProperties = new LinkedHashMap<>();
-            for (KeyValuePair property : data.getPropertiesList()) {
-                collectionProperties.put(property.getKey(), property.getValue());
-                if ("teamId".equals(property.getKey())) {
-                    collectionTeamId = property.getValue();
+                String collectionTeamId = null;
+                Map<String, String> collectionProperties = new LinkedHashMap<>();
+                for (KeyValuePair property : data.getPropertiesList()) {
+                    collectionProperties.put(property.getKey(), property.getValue());
+                    if ("teamId".equals(property.getKey())) {
+                        collectionTeamId = property.getValue();
+                    }
                 }
-            }
-
-            if (collectionTeamId != null && !Objects.equals(collectionTeamId, teamId)) {
-                return Mono.error(new RuntimeException(
-                        "Milvus collection '" + collectionName + "' does not belong to team " + teamId));
-            }
 
-            List<Map<String, Object>> schemaFields = new ArrayList<>();
-            for (FieldSchema field : data.getSchema().getFieldsList()) {
-                Map<String, Object> fieldInfo = new HashMap<>();
-                fieldInfo.put("name", field.getName());
-                fieldInfo.put("dataType", field.getDataType().name());
-                fieldInfo.put("isPrimary", field.getIsPrimaryKey());
+                if (collectionTeamId != null && !Objects.equals(collectionTeamId, teamId)) {
+                    return Mono.error(new RuntimeException(
+                            "Milvus collection '" + collectionName + "' does not belong to team " + teamId));
+                }
 
-                if (field.getTypeParamsCount() > 0) {
-                    Map<String, String> typeParams = new HashMap<>();
-                    for (KeyValuePair param : field.getTypeParamsList()) {
-                        typeParams.put(param.getKey(), param.getValue());
+                List<Map<String, Object>> schemaFields = new ArrayList<>();
+                for (FieldSchema field : data.getSchema().getFieldsList()) {
+                    Map<String, Object> fieldInfo = new HashMap<>();
+                    fieldInfo.put("name", field.getName());
+                    fieldInfo.put("dataType", field.getDataType().name());
+                    fieldInfo.put("isPrimary", field.getIsPrimaryKey());
+
+                    if (field.getTypeParamsCount() > 0) {
+                        Map<String, String> typeParams = new HashMap<>();
+                        for (KeyValuePair param : field.getTypeParamsList()) {
+                            typeParams.put(param.getKey(), param.getValue());
+                        }
+                        fieldInfo.put("typeParams", typeParams);
                     }
-                    fieldInfo.put("typeParams", typeParams);
-                }
 
-                schemaFields.add(fieldInfo);
-            }
+                    schemaFields.add(fieldInfo);
+                }
 
-            long rowCount = 0L;
-            try {
-                GetCollectionStatisticsParam statsParam = GetCollectionStatisticsParam.newBuilder()
-                        .withCollectionName(collectionName)
+                long rowCount = 0L;
+                try {
+                    GetCollectionStatisticsParam statsParam = GetCollectionStatisticsParam.newBuilder()
+                            .withCollectionName(collectionName)
 
-                        .build();
-                R<GetCollectionStatisticsResponse> statsResponse = milvusClient.getCollectionStatistics(statsParam);
-                if (statsResponse.getData() != null) {
-                    for (KeyValuePair stat : statsResponse.getData().getStatsList()) {
-                        if ("row_count".equals(stat.getKey())) {
-                            rowCount = Long.parseLong(stat.getValue());
-                            break;
+                            .build();
+                    R<GetCollectionStatisticsResponse> statsResponse = client.getCollectionStatistics(statsParam);
+                    if (statsResponse.getData() != null) {
+                        for (KeyValuePair stat : statsResponse.getData().getStatsList()) {
+                            if ("row_count".equals(stat.getKey())) {
+                                rowCount = Long.parseLong(stat.getValue());
+                                break;
+                            }
                         }
                     }
+                } catch (Exception e) {
+                    log.warn("Failed to fetch row count for collection {}: {}", collectionName, e.getMessage());
                 }
-            } catch (Exception e) {
-                log.warn("Failed to fetch row count for collection {}: {}", collectionName, e.getMessage());
-            }
 
-            MilvusSchemaValidator.ValidationResult validationResult = MilvusSchemaValidator.validate(schemaFields,
-                    null);
-
-            List<MilvusCollectionVerificationResponse.FieldInfo> fieldInfos = schemaFields.stream()
-                    .map(field -> {
-                        Map<String, String> typeParams = null;
-                        Object paramsObj = field.get("typeParams");
-                        if (paramsObj instanceof Map<?, ?> map) {
-                            typeParams = map.entrySet().stream()
-                                    .collect(Collectors.toMap(
-                                            entry -> String.valueOf(entry.getKey()),
-                                            entry -> String.valueOf(entry.getValue())));
-                        }
+                MilvusSchemaValidator.ValidationResult validationResult = MilvusSchemaValidator.validate(schemaFields,
+                        null);
+
+                List<MilvusCollectionVerificationResponse.FieldInfo> fieldInfos = schemaFields.stream()
+                        .map(field -> {
+                            Map<String, String> typeParams = null;
+                            Object paramsObj = field.get("typeParams");
+                            if (paramsObj instanceof Map<?, ?> map) {
+                                typeParams = map.entrySet().stream()
+                                        .collect(Collectors.toMap(
+                                                entry -> String.valueOf(entry.getKey()),
+                                                entry -> String.valueOf(entry.getValue())));
+                            }
 
-                        Integer maxLength = null;
-                        if (typeParams != null && typeParams.containsKey("max_length")) {
-                            try {
-                                maxLength = Integer.parseInt(typeParams.get("max_length"));
-                            } catch (NumberFormatException ignored) {
-                                // ignore invalid value
+                            Integer maxLength = null;
+                            if (typeParams != null && typeParams.containsKey("max_length")) {
+                                try {
+                                    maxLength = Integer.parseInt(typeParams.get("max_length"));
+                                } catch (NumberFormatException ignored) {
+                                    // ignore invalid value
+                                }
                             }
-                        }
 
-                        return MilvusCollectionVerificationResponse.FieldInfo.builder()
-                                .name(String.valueOf(field.get("name")))
-                                .dataType(String.valueOf(field.get("dataType")))
-                                .primary(Boolean.TRUE.equals(field.get("isPrimary")))
-                                .typeParams(typeParams)
-                                .maxLength(maxLength)
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-
-            MilvusCollectionVerificationResponse response = MilvusCollectionVerificationResponse.builder()
-                    .name(collectionName)
-                    .teamId(collectionTeamId != null ? collectionTeamId : teamId)
-                    .vectorDimension(validationResult.getVectorDimension())
-                    .vectorFieldName(validationResult.getVectorFieldName())
-                    .rowCount(rowCount)
-                    .description(data.getSchema() != null ? data.getSchema().getDescription() : null)
-                    .valid(validationResult.isValid())
-                    .issues(validationResult.getIssues())
-                    .properties(collectionProperties)
-                    .schema(fieldInfos)
-                    .build();
+                            return MilvusCollectionVerificationResponse.FieldInfo.builder()
+                                    .name(String.valueOf(field.get("name")))
+                                    .dataType(String.valueOf(field.get("dataType")))
+                                    .primary(Boolean.TRUE.equals(field.get("isPrimary")))
+                                    .typeParams(typeParams)
+                                    .maxLength(maxLength)
+                                    .build();
+                        })
+                        .collect(Collectors.toList());
+
+                MilvusCollectionVerificationResponse response = MilvusCollectionVerificationResponse.builder()
+                        .name(collectionName)
+                        .teamId(collectionTeamId != null ? collectionTeamId : teamId)
+                        .vectorDimension(validationResult.getVectorDimension())
+                        .vectorFieldName(validationResult.getVectorFieldName())
+                        .rowCount(rowCount)
+                        .description(data.getSchema() != null ? data.getSchema().getDescription() : null)
+                        .valid(validationResult.isValid())
+                        .issues(validationResult.getIssues())
+                        .properties(collectionProperties)
+                        .schema(fieldInfos)
+                        .build();
 
-            return Mono.just(response);
-        } catch (Exception e) {
-            log.error("Failed to verify Milvus collection {}: {}", collectionName, e.getMessage());
-            return Mono.error(e);
-        }
+                return Mono.just(response);
+            } catch (Exception e) {
+                log.error("Failed to verify Milvus collection {}: {}", collectionName, e.getMessage());
+                return Mono.error(e);
+            }
+        });
     }
 
     @Override
     public Mono<Long> deleteDocumentEmbeddings(String collectionName, String documentId, String teamId) {
         log.info("Deleting embeddings for document {} in collection {} (team {})", documentId, collectionName, teamId);
 
-        try {
-            // Check if collection exists first to avoid "collection not found" error
-            R<Boolean> hasCollection = milvusClient.hasCollection(HasCollectionParam.newBuilder()
-                    .withCollectionName(collectionName)
+        return onMilvus(Operation.WRITE, collectionName, client -> {
+            try {
+                // Check if collection exists first to avoid "collection not found" error
+                R<Boolean> hasCollection = client.hasCollection(HasCollectionParam.newBuilder()
+                        .withCollectionName(collectionName)
 
-                    .build());
+                        .build());
 
-            if (hasCollection.getData() == null || !hasCollection.getData()) {
-                log.warn("Collection {} does not exist, skipping deletion of document {}", collectionName, documentId);
-                return Mono.just(0L);
-            }
+                if (hasCollection.getData() == null || !hasCollection.getData()) {
+                    log.warn("Collection {} does not exist, skipping deletion of document {}", collectionName, documentId);
+                    return Mono.just(0L);
+                }
 
-            String expr = String.format("documentId == \"%s\" && teamId == \"%s\"", documentId, teamId);
+                String expr = String.format("documentId == \"%s\" && teamId == \"%s\"", documentId, teamId);
 
-            DeleteParam deleteParam = DeleteParam.newBuilder()
-                    .withCollectionName(collectionName)
+                DeleteParam deleteParam = DeleteParam.newBuilder()
+                        .withCollectionName(collectionName)
 
-                    .withExpr(expr)
-                    .build();
+                        .withExpr(expr)
+                        .build();
 
-            R<MutationResult> response = milvusClient.delete(deleteParam);
+                R<MutationResult> response = client.delete(deleteParam);
 
-            if (response.getStatus() != 0) {
-                String message = response.getMessage() != null ? response.getMessage() : "Unknown error";
-                log.error("Milvus delete operation failed for collection {}: {}", collectionName, message);
-                return Mono.error(new RuntimeException("Failed to delete embeddings from Milvus: " + message));
-            }
+                if (response.getStatus() != 0) {
+                    String message = response.getMessage() != null ? response.getMessage() : "Unknown error";
+                    log.error("Milvus delete operation failed for collection {}: {}", collectionName, message);
+                    return Mono.error(new RuntimeException("Failed to delete embeddings from Milvus: " + message));
+                }
 
-            long deletedCount = response.getData().getDeleteCnt();
-            log.info("Deleted {} embeddings for document {} in collection {}", deletedCount, documentId,
-                    collectionName);
-            return Mono.just(deletedCount);
-        } catch (Exception e) {
-            log.error("Failed to delete embeddings for document {} in collection {}: {}", documentId, collectionName,
-                    e.getMessage());
-            return Mono.error(e);
-        }
+                long deletedCount = response.getData().getDeleteCnt();
+                collectionCatalog.recordDelete(collectionName, deletedCount);
+                log.info("Deleted {} embeddings for document {} in collection {}", deletedCount, documentId,
+                        collectionName);
+                return keywordIndexService.deleteDocument(collectionName, teamId, documentId)
+                        .onErrorResume(e -> {
+                            log.warn("Failed to remove document {} from keyword index of collection {}: {}",
+                                    documentId, collectionName, e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(deletedCount);
+            } catch (Exception e) {
+                log.error("Failed to delete embeddings for document {} in collection {}: {}", documentId, collectionName,
+                        e.getMessage());
+                return Mono.error(e);
+            }
+        });
     }
 
     @Override
     public Mono<Long> countDocumentEmbeddings(String collectionName, String documentId, String teamId) {
         log.info("Counting embeddings for document {} in collection {} (team {})", documentId, collectionName, teamId);
-        try {
-            String expr = String.format("documentId == \"%s\" && teamId == \"%s\"", documentId, teamId);
+        return onMilvus(Operation.QUERY, collectionName, client -> {
+            try {
+                String expr = String.format("documentId == \"%s\" && teamId == \"%s\"", documentId, teamId);
 
-            QueryParam.Builder queryBuilder = QueryParam.newBuilder()
-                    .withCollectionName(collectionName)
+                QueryParam.Builder queryBuilder = QueryParam.newBuilder()
+                        .withCollectionName(collectionName)
+
+                        .withExpr(expr);
+                queryBuilder.withOutFields(Collections.singletonList("documentId"));
+                QueryParam queryParam = queryBuilder.build();
+
+                R<QueryResults> response = client.query(queryParam);
+                if (response.getStatus() != 0) {
+                    String message = response.getMessage() != null ? response.getMessage() : "Unknown error";
+                    log.error("Milvus query operation failed for collection {}: {}", collectionName, message);
+                    return Mono.error(new RuntimeException("Failed to query embeddings from Milvus: " + message));
+                }
+
+                QueryResultsWrapper wrapper = new QueryResultsWrapper(response.getData());
+                long count = wrapper.getRowCount();
+                log.info("Counted {} embeddings for document {} in collection {}", count, documentId, collectionName);
+                return Mono.just(count);
+            } catch (Exception e) {
+                log.error("Failed to count embeddings for document {} in collection {}: {}", documentId, collectionName,
+                        e.getMessage());
+                return Mono.error(e);
+            }
+        });
+    }
+
+    /**
+     * Decrypts the text field of the first {@code rowCount} rows of a Milvus search result
+     * in one batch. Each row is decrypted with its stored encryptionKeyVersion (legacy v1
+     * when none is stored) and teamId, falling back to {@code defaultTeamId}.
+     *
+     * @return one entry per row in row order: the decrypted text, an empty string for rows
+     *         without text, or the encrypted text when the row could not be decrypted
+     */
+    private Mono<List<String>> decryptSearchResultTexts(MilvusSearchResultDecoder decoder, String textField,
+            int rowCount, String defaultTeamId, String collectionName) {
+        return decryptSearchResultTexts(List.of(new DecoderRows(decoder, rowCount)), textField, defaultTeamId,
+                collectionName);
+    }
+
+    /**
+     * First {@code rowCount} rows of a decoded search or query result.
+     */
+    private record DecoderRows(MilvusSearchResultDecoder decoder, int rowCount) {
+    }
 
-                    .withExpr(expr);
-            queryBuilder.withOutFields(Collections.singletonList("documentId"));
-            QueryParam queryParam = queryBuilder.build();
+    /**
+     * Like {@link #decryptSearchResultTexts(MilvusSearchResultDecoder, String, int, String, String)}
+     * for the rows of several results in one batch; the texts of each source follow those of
+     * the previous one.
+     */
+    private Mono<List<String>> decryptSearchResultTexts(List<DecoderRows> sources, String textField,
+            String defaultTeamId, String collectionName) {
+        List<String> encryptedTexts = new ArrayList<>();
+        List<ChunkDecryptionRequest> requests = new ArrayList<>();
+        for (DecoderRows source : sources) {
+            MilvusSearchResultDecoder decoder = source.decoder();
+            for (int row = 0; row < source.rowCount(); row++) {
+                Object value = decoder.getValue(textField, row);
+                String encryptedText = value != null ? value.toString() : "";
+                encryptedTexts.add(encryptedText);
+                if (encryptedText.isEmpty()) {
+                    continue;
+                }
 
-            R<QueryResults> response = milvusClient.query(queryParam);
-            if (response.getStatus() != 0) {
-                String message = response.getMessage() != null ? response.getMessage() : "Unknown error";
-                log.error("Milvus query operation failed for collection {}: {}", collectionName, message);
-                return Mono.error(new RuntimeException("Failed to query embeddings from Milvus: " + message));
+                // If no encryption key version stored, fall back to v1 (legacy data)
+                Object versionObj = decoder.getValue("encryptionKeyVersion", row);
+                String keyVersion = versionObj != null && !versionObj.toString().isEmpty()
+                        ? versionObj.toString()
+                        : "v1";
+
+                Object teamIdObj = decoder.getValue("teamId", row);
+                String recordTeamId = teamIdObj != null && !teamIdObj.toString().isEmpty()
+                        ? teamIdObj.toString()
+                        : defaultTeamId;
+
+                // Chunk identity for the access audit, when the result carries it
+                Object documentIdObj = decoder.getValue("documentId", row);
+                Object chunkIdObj = decoder.getValue("chunkId", row);
+                Object chunkIndexObj = decoder.getValue("chunkIndex", row);
+                requests.add(ChunkDecryptionRequest.of(encryptedText, recordTeamId, keyVersion,
+                        documentIdObj != null ? documentIdObj.toString() : null,
+                        chunkIdObj != null ? chunkIdObj.toString() : null,
+                        chunkIndexObj instanceof Number number ? number.intValue() : null));
             }
+        }
+        int rowCount = encryptedTexts.size();
 
-            QueryResultsWrapper wrapper = new QueryResultsWrapper(response.getData());
-            long count = wrapper.getRowCount();
-            log.info("Counted {} embeddings for document {} in collection {}", count, documentId, collectionName);
-            return Mono.just(count);
-        } catch (Exception e) {
-            log.error("Failed to count embeddings for document {} in collection {}: {}", documentId, collectionName,
-                    e.getMessage());
-            return Mono.error(e);
+        if (requests.isEmpty()) {
+            return Mono.just(encryptedTexts);
         }
+
+        return chunkEncryptionService.decryptChunkTexts(requests, collectionName)
+                .map(results -> {
+                    List<String> texts = new ArrayList<>(rowCount);
+                    int failed = 0;
+                    int next = 0;
+                    for (String encryptedText : encryptedTexts) {
+                        if (encryptedText.isEmpty()) {
+                            texts.add(encryptedText);
+                            continue;
+                        }
+                        ChunkDecryptionResult result = results.get(next);
+                        ChunkDecryptionRequest request = requests.get(next++);
+                        if (result.isDecrypted()) {
+                            texts.add(result.getText());
+                        } else {
+                            failed++;
+                            log.warn("Failed to decrypt chunk text for team {} with key version {}: {}. "
+                                    + "Returning encrypted text.",
+                                    request.getTeamId(), request.getKeyVersion(), result.getError());
+                            texts.add(encryptedText); // Fallback to encrypted text if decryption fails
+                        }
+                    }
+                    log.debug("🔐 Decrypted {} of {} chunk texts from collection {}", requests.size() - failed,
+                            requests.size(), collectionName);
+                    return texts;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Failed to decrypt {} chunk texts from collection {}: {}. Returning encrypted text.",
+                            requests.size(), collectionName, e.getMessage());
+                    return Mono.just(encryptedTexts);
+                });
     }
 
     /**
-     * Helper method to decrypt text from Milvus search results.
-     * Extracts encryptionKeyVersion and teamId from field data and decrypts the
-     * text.
-     * 
-     * @param resultData    The search result data
-     * @param textField     The name of the text field
-     * @param index         The index of the result to decrypt
-     * @param defaultTeamId The default teamId to use if not found in results
-     * @return Decrypted text, or encrypted text if decryption fails
+     * Reads rows by primary key for keyword hits the vector search did not return. Rows
+     * outside {@code filterExpression} are not returned.
+     *
+     * @return a decoder over the query result columns whose topK is the number of rows read
      */
-    private Mono<String> decryptTextFromSearchResults(SearchResultData resultData, String textField, int index,
-            String defaultTeamId) {
-        // Get encrypted text
-        var textFieldData = resultData.getFieldsDataList().stream()
-                .filter(f -> f.getFieldName().equals(textField))
-                .findFirst()
-                .orElse(null);
-
-        String encryptedText = null;
-        if (textFieldData != null) {
-            Object value = extractFieldValue(textFieldData, index);
-            if (value != null) {
-                encryptedText = value.toString();
-            }
+    private MilvusSearchResultDecoder queryRowsById(MilvusServiceClient client, String collectionName,
+            List<Long> ids, String filterExpression, List<String> outFields) {
+        if (ids.isEmpty()) {
+            return MilvusSearchResultDecoder.of(SearchResultData.getDefaultInstance());
+        }
+        String expr = "id in " + ids;
+        if (!filterExpression.isEmpty()) {
+            expr += " && (" + filterExpression + ")";
+        }
+        List<String> fields = new ArrayList<>(outFields);
+        if (!fields.contains("id")) {
+            fields.add("id");
         }
 
-        if (encryptedText == null || encryptedText.isEmpty()) {
-            return Mono.just("");
+        R<QueryResults> response = client.query(QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr(expr)
+                .withOutFields(fields)
+                .withConsistencyLevel(ConsistencyLevelEnum.BOUNDED)
+                .build());
+        if (response.getStatus() != 0) {
+            log.warn("Failed to read {} keyword hits from collection {}: {}", ids.size(), collectionName,
+                    response.getMessage());
+            return MilvusSearchResultDecoder.of(SearchResultData.getDefaultInstance());
         }
 
-        // Get encryptionKeyVersion - if null/empty, data is unencrypted
-        String keyVersion = null;
-        var keyVersionFieldData = resultData.getFieldsDataList().stream()
-                .filter(f -> f.getFieldName().equals("encryptionKeyVersion"))
-                .findFirst()
-                .orElse(null);
-        if (keyVersionFieldData != null) {
-            Object versionObj = extractFieldValue(keyVersionFieldData, index);
-            if (versionObj != null) {
-                String version = versionObj.toString();
-                if (version != null && !version.isEmpty()) {
-                    keyVersion = version;
+        long rows = new QueryResultsWrapper(response.getData()).getRowCount();
+        return MilvusSearchResultDecoder.of(SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(rows)
+                .addTopks(rows)
+                .addAllFieldsData(response.getData().getFieldsDataList())
+                .build());
+    }
+
+    /**
+     * Search record for a row that only the keyword index returned; it has no vector distance.
+     */
+    private static Map<String, Object> keywordOnlyRecord(MilvusSearchResultDecoder decoder, int row,
+            String decryptedText, String textField, List<String> outFields) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("query_index", 0);
+        Object id = decoder.getValue("id", row);
+        if (id != null) {
+            record.put("id", id);
+        }
+        record.put("match_type", "keyword");
+        for (String fieldName : outFields) {
+            if (!fieldName.equals("id") && !fieldName.equals(textField)) {
+                Object value = decoder.getValue(fieldName, row);
+                if (value != null) {
+                    record.put(fieldName, value);
                 }
             }
         }
+        if (decryptedText != null && !decryptedText.isEmpty()) {
+            record.put(textField, decryptedText);
+        }
+        return record;
+    }
 
-        // Get teamId
-        String recordTeamId = defaultTeamId;
-        var teamIdFieldData = resultData.getFieldsDataList().stream()
-                .filter(f -> f.getFieldName().equals("teamId"))
-                .findFirst()
-                .orElse(null);
-        if (teamIdFieldData != null) {
-            Object teamIdObj = extractFieldValue(teamIdFieldData, index);
-            if (teamIdObj != null) {
-                String tid = teamIdObj.toString();
-                if (tid != null && !tid.isEmpty()) {
-                    recordTeamId = tid;
-                }
+    /**
+     * Fuses the vector ranking of {@code records} (vector hits in search order, followed by
+     * keyword-only records) with the BM25 ranking of {@code keywordHits} and keeps the best
+     * {@code nResults}. Uses reciprocal-rank fusion unless {@code linqra.milvus.hybrid.fusion}
+     * is {@code weighted}. Keyword hits Milvus did not return, because they were deleted or
+     * fall outside the filters, are dropped.
+     */
+    private List<Map<String, Object>> fuseHybridResults(List<Map<String, Object>> records,
+            List<Bm25Index.Hit> keywordHits, int nResults) {
+        Map<Object, Map<String, Object>> recordsById = new LinkedHashMap<>();
+        List<Object> vectorRanking = new ArrayList<>();
+        Map<Object, Float> vectorScores = new LinkedHashMap<>();
+        for (Map<String, Object> record : records) {
+            Object id = record.get("id");
+            if (id == null || recordsById.putIfAbsent(id, record) != null) {
+                continue;
+            }
+            if (!"keyword".equals(record.get("match_type"))) {
+                vectorRanking.add(id);
+                // COSINE similarity, so higher is better like the BM25 score
+                vectorScores.put(id, ((Number) record.getOrDefault("distance", 0.0f)).floatValue());
             }
         }
-
-        final String fEncryptedText = encryptedText;
-        final String fTeamId = recordTeamId;
-
-        // Debug logging for decryption diagnostics
-        log.info("🔐 Decryption attempt: teamId={}, keyVersion={}, textLength={}, textPreview={}",
-                recordTeamId, keyVersion,
-                encryptedText != null ? encryptedText.length() : 0,
-                encryptedText != null && encryptedText.length() > 50 ? encryptedText.substring(0, 50) + "..."
-                        : encryptedText);
-
-        Mono<String> decryptionMono;
-
-        // If no encryption key version stored, fall back to v1 (legacy data)
-        // New collections with encryptionKeyVersion field will have the version stored
-        if (keyVersion == null || keyVersion.isEmpty()) {
-            // Legacy data: fall back to v1 (HMAC-derived key)
-            String legacyVersion = "v1";
-            log.info("🔐 No keyVersion stored in collection, using legacy v1 for team {}", fTeamId);
-            decryptionMono = chunkEncryptionService.decryptChunkText(fEncryptedText, fTeamId, legacyVersion, false)
-                    .onErrorResume(e -> {
-                        log.warn("🔐 Legacy v1 decryption failed for team {}: {}. Returning encrypted text.",
-                                fTeamId, e.getMessage());
-                        return Mono.just(fEncryptedText);
-                    });
-        } else {
-            log.info("🔐 Using stored keyVersion: {} for team {}", keyVersion, fTeamId);
-            decryptionMono = chunkEncryptionService.decryptChunkText(fEncryptedText, fTeamId, keyVersion, false);
+        List<Object> keywordRanking = new ArrayList<>();
+        Map<Object, Float> keywordScores = new LinkedHashMap<>();
+        for (Bm25Index.Hit hit : keywordHits) {
+            if (recordsById.containsKey(hit.id())) {
+                keywordRanking.add(hit.id());
+                keywordScores.put(hit.id(), hit.score());
+            }
         }
 
-        final String fVersion = keyVersion;
+        Map<Object, Double> fused = "weighted".equalsIgnoreCase(hybridFusion)
+                ? RankFusion.weighted(List.of(vectorScores, keywordScores),
+                        new double[] { hybridVectorWeight, 1 - hybridVectorWeight })
+                : RankFusion.reciprocalRank(List.of(vectorRanking, keywordRanking), hybridRrfK);
 
-        return decryptionMono
-                .doOnNext(decryptedText -> {
-                    if (decryptedText != null && decryptedText.equals(fEncryptedText)) {
-                        log.warn("🔐 Decrypted text matches encrypted text - decryption may have failed silently");
-                    } else {
-                        log.info("🔐 Decryption successful, decrypted length: {}",
-                                decryptedText != null ? decryptedText.length() : 0);
-                    }
-                })
-                .onErrorResume(e -> {
-                    log.warn(
-                            "Failed to decrypt chunk text for team {} with key version {}: {}. Returning encrypted text.",
-                            fTeamId, fVersion, e.getMessage());
-                    return Mono.just(fEncryptedText); // Fallback to encrypted text if decryption fails
-                });
+        List<Map<String, Object>> fusedRecords = new ArrayList<>(Math.min(nResults, fused.size()));
+        for (Map.Entry<Object, Double> entry : fused.entrySet()) {
+            if (fusedRecords.size() >= nResults) {
+                break;
+            }
+            Map<String, Object> record = recordsById.get(entry.getKey());
+            Float keywordScore = keywordScores.get(entry.getKey());
+            if (keywordScore != null) {
+                record.put("bm25_score", keywordScore);
+            }
+            record.put("fusion_score", entry.getValue());
+            record.put("rank", fusedRecords.size() + 1);
+            fusedRecords.add(record);
+        }
+        log.debug("Fused {} vector and {} keyword candidates into {} results", vectorRanking.size(),
+                keywordRanking.size(), fusedRecords.size());
+        return fusedRecords;
     }
 
     /**
@@ -3116,49 +3444,4 @@ public class LinqMilvusStoreServiceImpl implements LinqMilvusStoreService {
         }
         return fields;
     }
-
-    /**
-     * Helper method to extract significant keywords/phrases from a query.
-     * Extracts:
-     * 1. Quoted text (e.g. "Biographic Information")
-     * 2. Capitalized phrases (e.g. Part 7, General Instructions)
-     * 3. Alphanumeric identifiers (e.g. I-485)
-     */
-    private Set<String> extractKeywords(String query) {
-        if (query == null || query.isEmpty()) {
-            return Collections.emptySet();
-        }
-
-        Set<String> keywords = new HashSet<>();
-
-        // 1. Extract Quoted Text
-        java.util.regex.Matcher quotedMatcher = QUOTED_TEXT_PATTERN.matcher(query);
-        while (quotedMatcher.find()) {
-            keywords.add(quotedMatcher.group(1));
-        }
-
-        // 2. Extract Capitalized Phrases (sequences of Capitalized Words, excluding
-        // common stop words if needed, but keeping simple for now)
-        // Improved Regex: Allows subsequent words to be numbers (e.g. "Part 7")
-        // Pattern: \b[A-Z][a-zA-Z0-9]*(?:\s+([A-Z][a-zA-Z0-9]*|[0-9]+))+\b
-        java.util.regex.Matcher capitalizedMatcher = CAPITALIZED_PHRASE_PATTERN.matcher(query);
-        while (capitalizedMatcher.find()) {
-            String phrase = capitalizedMatcher.group();
-            // Filter out single short words (like "The", "A") unless they are part of a
-            // phrase or look like an ID
-            // The regex enforces at least 2 tokens, so single words are already excluded.
-            keywords.add(phrase);
-        }
-
-        // 3. Extract Alphanumeric Identifiers (e.g. I-485, N-400) - specifically
-        // looking for letter-number patterns
-        // \b[A-Za-z]+-\d+\b
-        java.util.regex.Matcher idMatcher = ALPHANUMERIC_ID_PATTERN.matcher(query);
-        while (idMatcher.find()) {
-            keywords.add(idMatcher.group());
-        }
-
-        log.debug("Extracted keywords from query '{}': {}", query, keywords);
-        return keywords;
-    }
 }
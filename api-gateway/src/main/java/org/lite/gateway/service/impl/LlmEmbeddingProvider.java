@@ -0,0 +1,157 @@
+package org.lite.gateway.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.dto.LinqRequest;
+import org.lite.gateway.entity.LinqLlmModel;
+import org.lite.gateway.service.EmbeddingProvider;
+import org.lite.gateway.service.LinqLlmModelService;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Embeds through the team's configured LLM model. OpenAI, Cohere, Gemini and Ollama take
+ * a list of inputs per request; other categories are called with one text at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LlmEmbeddingProvider implements EmbeddingProvider {
+
+    // Provider-side limits on inputs per request
+    private static final Map<String, Integer> BATCH_LIMITS = Map.of(
+            "openai-embed", 2048,
+            "cohere-embed", 96,
+            "gemini-embed", 100,
+            "ollama-embed", 512);
+
+    private final LinqLlmModelService linqLlmModelService;
+
+    @Override
+    public int maxBatchSize(LinqLlmModel llmModel) {
+        return BATCH_LIMITS.getOrDefault(llmModel.getModelCategory(), 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Mono<List<List<Float>>> embed(List<String> texts, LinqLlmModel llmModel) {
+        String modelCategory = llmModel.getModelCategory();
+        boolean batched = maxBatchSize(llmModel) > 1;
+        if (!batched && texts.size() != 1) {
+            return Mono.error(new IllegalArgumentException(
+                    "Embedding modelCategory " + modelCategory + " does not accept batched input"));
+        }
+        log.debug("Generating {} embeddings using model: {}/{}", texts.size(), modelCategory,
+                llmModel.getModelName());
+
+        LinqRequest request = new LinqRequest();
+        LinqRequest.Link link = new LinqRequest.Link();
+        link.setTarget(modelCategory);
+        link.setAction("generate");
+        request.setLink(link);
+
+        LinqRequest.Query query = new LinqRequest.Query();
+        query.setIntent("embed");
+        query.setParams(batched ? Map.of("texts", texts) : Map.of("text", texts.getFirst()));
+
+        LinqRequest.Query.LlmConfig llmConfig = new LinqRequest.Query.LlmConfig();
+        llmConfig.setModel(llmModel.getModelName());
+        query.setLlmConfig(llmConfig);
+        request.setQuery(query);
+
+        return linqLlmModelService.executeLlmRequest(request, llmModel)
+                .map(response -> {
+                    Map<String, Object> result = (Map<String, Object>) response.getResult();
+                    if (result == null) {
+                        throw new IllegalStateException("Received null result from embedding service");
+                    }
+                    if (result.containsKey("error")) {
+                        throw new IllegalStateException("Embedding service error: " + result.get("error"));
+                    }
+                    List<List<Float>> embeddings = batched
+                            ? parseBatchResponse(result, modelCategory)
+                            : List.of(parseSingleResponse(result, modelCategory));
+                    if (embeddings.size() != texts.size()) {
+                        throw new IllegalStateException("Embedding service returned " + embeddings.size()
+                                + " embeddings for " + texts.size() + " texts");
+                    }
+                    return embeddings;
+                });
+    }
+
+    /**
+     * Parse the batch input forms of the OpenAI, Cohere, Gemini and Ollama embedding APIs.
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<Float>> parseBatchResponse(Map<String, Object> result, String modelCategory) {
+        switch (modelCategory) {
+            case "openai-embed": {
+                List<Map<String, Object>> data = (List<Map<String, Object>>) result.get("data");
+                if (data == null || data.isEmpty()) {
+                    throw new IllegalStateException("No data received from OpenAI embedding service");
+                }
+                return data.stream()
+                        .sorted(Comparator.comparingInt(item -> ((Number) item.getOrDefault("index", 0)).intValue()))
+                        .map(item -> toFloats((List<Object>) item.get("embedding")))
+                        .toList();
+            }
+            case "cohere-embed": {
+                Object embeddings = result.get("embeddings");
+                // v2 responses nest vectors by embedding type
+                if (embeddings instanceof Map<?, ?> byType) {
+                    embeddings = byType.get("float");
+                }
+                if (!(embeddings instanceof List<?> vectors) || vectors.isEmpty()) {
+                    throw new IllegalStateException("No embeddings received from Cohere embedding service");
+                }
+                return vectors.stream().map(vector -> toFloats((List<Object>) vector)).toList();
+            }
+            case "gemini-embed": {
+                List<Map<String, Object>> embeddings = (List<Map<String, Object>>) result.get("embeddings");
+                if (embeddings == null || embeddings.isEmpty()) {
+                    throw new IllegalStateException("No embeddings received from Gemini embedding service");
+                }
+                return embeddings.stream().map(embedding -> toFloats((List<Object>) embedding.get("values"))).toList();
+            }
+            case "ollama-embed": {
+                List<List<Object>> embeddings = (List<List<Object>>) result.get("embeddings");
+                if (embeddings == null || embeddings.isEmpty()) {
+                    throw new IllegalStateException("No embedding data received from Ollama embedding service");
+                }
+                return embeddings.stream().map(this::toFloats).toList();
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported batched embedding modelCategory: " + modelCategory);
+        }
+    }
+
+    /**
+     * Parse a single-text embedding response based on model category.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Float> parseSingleResponse(Map<String, Object> result, String modelCategory) {
+        if ("huggingface-embed".equals(modelCategory)) {
+            List<Object> rawEmbedding = (List<Object>) result.get("embeddings");
+            if (rawEmbedding == null) {
+                rawEmbedding = (List<Object>) result.get("embedding");
+            }
+            if (rawEmbedding == null) {
+                throw new IllegalStateException("No embedding data received from HuggingFace embedding service");
+            }
+            return toFloats(rawEmbedding);
+        }
+        throw new IllegalArgumentException("Unsupported embedding modelCategory: " + modelCategory);
+    }
+
+    private List<Float> toFloats(List<Object> rawEmbedding) {
+        if (rawEmbedding == null || rawEmbedding.isEmpty()) {
+            throw new IllegalStateException("Empty embedding received from embedding service");
+        }
+        return rawEmbedding.stream().map(v -> ((Number) v).floatValue()).collect(Collectors.toList());
+    }
+}
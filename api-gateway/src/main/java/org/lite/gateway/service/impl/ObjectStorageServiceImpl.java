@@ -10,6 +10,7 @@ import org.lite.gateway.exception.StorageException;
 import org.lite.gateway.service.ObjectStorageService;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -171,6 +172,47 @@ public class ObjectStorageServiceImpl implements ObjectStorageService {
                 .then();
     }
 
+    @Override
+    public Mono<Void> uploadFileStream(String key, Flux<DataBuffer> content, String contentType, long contentLength,
+            String encryptionKeyVersion) {
+        return Mono.defer(() -> {
+            log.info("Streaming file to storage: {} ({} bytes)", key, contentLength);
+
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("uploaded-at", Instant.now().toString());
+            metadata.put("upload-method", "server-side-encrypted");
+
+            if (encryptionKeyVersion != null && !encryptionKeyVersion.isEmpty()) {
+                metadata.put("encryption-key-version", encryptionKeyVersion);
+            }
+
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(storageProperties.getBucketName())
+                    .key(key)
+                    .contentType(contentType)
+                    .contentLength(contentLength)
+                    .metadata(metadata)
+                    .build();
+
+            // The SDK may hold on to the buffers, so copy each one out before releasing it
+            Flux<ByteBuffer> body = content.map(dataBuffer -> {
+                try {
+                    ByteBuffer copy = ByteBuffer.allocate(dataBuffer.readableByteCount());
+                    dataBuffer.toByteBuffer(copy);
+                    return copy;
+                } finally {
+                    DataBufferUtils.release(dataBuffer);
+                }
+            });
+
+            return Mono.fromFuture(() -> s3AsyncClient.putObject(putObjectRequest,
+                    AsyncRequestBody.fromPublisher(body)));
+        })
+                .doOnSuccess(response -> log.info("Successfully streamed file: {}", key))
+                .doOnError(error -> log.error("Failed to stream file: {}", key, error))
+                .then();
+    }
+
     @Override
     public Mono<Void> downloadFile(String key) {
         log.info("Download requested for key: {} - Use generatePresignedDownloadUrl instead", key);
@@ -179,11 +221,16 @@ public class ObjectStorageServiceImpl implements ObjectStorageService {
 
     @Override
     public Mono<byte[]> downloadFileContent(String key) {
+        return downloadFileContent(storageProperties.getBucketName(), key);
+    }
+
+    @Override
+    public Mono<byte[]> downloadFileContent(String bucketName, String key) {
         return Mono.fromCallable(() -> {
             // log.info("Downloading file content: {}", key);
 
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(storageProperties.getBucketName())
+                    .bucket(bucketName)
                     .key(key)
                     .build();
 
@@ -195,6 +242,35 @@ public class ObjectStorageServiceImpl implements ObjectStorageService {
                 .doOnError(error -> log.error("Failed to download file: {}", key, error));
     }
 
+    @Override
+    public Flux<DataBuffer> downloadFileStream(String key) {
+        return download(GetObjectRequest.builder()
+                .bucket(storageProperties.getBucketName())
+                .key(key)
+                .build());
+    }
+
+    @Override
+    public Flux<DataBuffer> downloadFileRange(String key, long start, long endInclusive) {
+        return downloadFileRange(storageProperties.getBucketName(), key, start, endInclusive);
+    }
+
+    @Override
+    public Flux<DataBuffer> downloadFileRange(String bucketName, String key, long start, long endInclusive) {
+        return download(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + start + "-" + endInclusive)
+                .build());
+    }
+
+    private Flux<DataBuffer> download(GetObjectRequest getObjectRequest) {
+        return Mono.fromFuture(() -> s3AsyncClient.getObject(getObjectRequest, AsyncResponseTransformer.toPublisher()))
+                .flatMapMany(Flux::from)
+                .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap)
+                .doOnError(error -> log.error("Failed to download file: {}", getObjectRequest.key(), error));
+    }
+
     @Override
     public Mono<Boolean> fileExists(String key) {
         return Mono.fromCallable(() -> {
@@ -217,6 +293,17 @@ public class ObjectStorageServiceImpl implements ObjectStorageService {
                 .onErrorReturn(false);
     }
 
+    @Override
+    public Mono<Boolean> fileExists(String bucketName, String key) {
+        return Mono.fromFuture(() -> s3AsyncClient.headObject(HeadObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .build()))
+                .map(response -> true)
+                .onErrorReturn(NoSuchKeyException.class, false)
+                .onErrorResume(S3Exception.class, e -> e.statusCode() == 404 ? Mono.just(false) : Mono.error(e));
+    }
+
     @Override
     public Mono<Void> deleteFile(String key) {
         return Mono.fromCallable(() -> {
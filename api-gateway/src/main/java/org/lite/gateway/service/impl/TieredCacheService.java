@@ -0,0 +1,317 @@
+package org.lite.gateway.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.lite.gateway.service.CacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier {@link CacheService}: a bounded in-process tier in front of Redis.
+ *
+ * Only keys under the configured prefixes (API keys, route permissions and client scopes
+ * by default) are held locally; everything else goes straight to Redis. The local tier is
+ * a Caffeine cache (W-TinyLFU admission) weighed by approximate entry size, and each
+ * entry lives no longer than the smaller of {@code max-ttl-ms} and the key's remaining
+ * Redis TTL. Writes through this service invalidate other pods over the
+ * {@link #INVALIDATION_TOPIC} channel using the regular {@link CacheService#publish}.
+ */
+@Service
+@Primary
+@Profile("!remote-dev")
+@Slf4j
+public class TieredCacheService implements CacheService {
+
+    public static final String INVALIDATION_TOPIC = "cacheInvalidationTopic";
+    private static final Duration UNKNOWN_TTL = Duration.ofMillis(-1);
+
+    private final RedisCacheServiceImpl remote;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Cache<String, LocalEntry> local;
+    private final List<String> localPrefixes;
+    private final long maxLocalTtlNanos;
+    private final boolean listenerEnabled;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Bumped on every local invalidation so a slow miss cannot re-populate a stale value
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+    private final LongAdder invalidationsSent = new LongAdder();
+    private final LongAdder invalidationsReceived = new LongAdder();
+    private final LongAdder invalidationLagTotalMs = new LongAdder();
+    private final AtomicLong invalidationLagMaxMs = new AtomicLong();
+
+    private record LocalEntry(String value, long ttlNanos) {
+    }
+
+    public TieredCacheService(
+            RedisCacheServiceImpl remote,
+            ReactiveStringRedisTemplate redisTemplate,
+            @Value("${linqra.cache.local.max-bytes:67108864}") long maxBytes,
+            @Value("${linqra.cache.local.max-ttl-ms:30000}") long maxTtlMs,
+            @Value("${linqra.cache.local.prefixes:api_key:,permission:,scope:}") String prefixes,
+            @Value("${app.redis.listener.enabled:true}") boolean listenerEnabled) {
+        this.remote = remote;
+        this.redisTemplate = redisTemplate;
+        this.maxLocalTtlNanos = Duration.ofMillis(maxTtlMs).toNanos();
+        this.listenerEnabled = listenerEnabled;
+        this.localPrefixes = Arrays.stream(prefixes.split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .toList();
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, LocalEntry entry) -> 64 + 2 * (key.length() + entry.value().length()))
+                .expireAfter(new Expiry<String, LocalEntry>() {
+                    @Override
+                    public long expireAfterCreate(String key, LocalEntry entry, long currentTime) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LocalEntry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LocalEntry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribeToInvalidations() {
+        if (!listenerEnabled) {
+            log.info("Cache invalidation listener disabled; local tier relies on TTL only");
+            return;
+        }
+        redisTemplate.listenToChannel(INVALIDATION_TOPIC)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onInvalidation)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(
+                        message -> {
+                        },
+                        error -> log.error("Cache invalidation subscription terminated: {}", error.getMessage()));
+    }
+
+    @Override
+    public Mono<String> get(String key) {
+        if (!isLocal(key)) {
+            return remote.get(key);
+        }
+        LocalEntry cached = local.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached.value());
+        }
+        long generation = invalidationGeneration.get();
+        return Mono.zip(remote.get(key), remoteTtl(key).defaultIfEmpty(UNKNOWN_TTL))
+                .map(tuple -> {
+                    // A value whose TTL could not be read is served but not cached locally
+                    if (tuple.getT2() != UNKNOWN_TTL && generation == invalidationGeneration.get()) {
+                        putLocal(key, tuple.getT1(), tuple.getT2());
+                    }
+                    return tuple.getT1();
+                });
+    }
+
+    @Override
+    public Mono<Void> set(String key, String value, Duration duration) {
+        if (!isLocal(key)) {
+            return remote.set(key, value, duration);
+        }
+        return remote.set(key, value, duration)
+                .then(Mono.defer(() -> {
+                    invalidateLocal(key);
+                    putLocal(key, value, duration);
+                    return broadcastInvalidation(key);
+                }));
+    }
+
+    @Override
+    public Mono<Boolean> setIfAbsent(String key, String value, Duration duration) {
+        return remote.setIfAbsent(key, value, duration)
+                .flatMap(stored -> stored && isLocal(key)
+                        ? invalidateEverywhere(key).thenReturn(true)
+                        : Mono.just(stored));
+    }
+
+    @Override
+    public Mono<Boolean> delete(String key) {
+        if (!isLocal(key)) {
+            return remote.delete(key);
+        }
+        return remote.delete(key)
+                .flatMap(deleted -> invalidateEverywhere(key).thenReturn(deleted));
+    }
+
+    @Override
+    public Mono<Long> increment(String key) {
+        if (!isLocal(key)) {
+            return remote.increment(key);
+        }
+        return remote.increment(key)
+                .flatMap(value -> invalidateEverywhere(key).thenReturn(value));
+    }
+
+    @Override
+    public Mono<Boolean> expire(String key, Duration duration) {
+        if (!isLocal(key)) {
+            return remote.expire(key, duration);
+        }
+        return remote.expire(key, duration)
+                .flatMap(updated -> invalidateEverywhere(key).thenReturn(updated));
+    }
+
+    @Override
+    public Mono<Long> addToSet(String key, String value) {
+        return remote.addToSet(key, value);
+    }
+
+    @Override
+    public Mono<Long> removeFromSet(String key, String value) {
+        return remote.removeFromSet(key, value);
+    }
+
+    @Override
+    public Mono<Set<String>> getSetMembers(String key) {
+        return remote.getSetMembers(key);
+    }
+
+    @Override
+    public Mono<Long> publish(String topic, String message) {
+        return remote.publish(topic, message);
+    }
+
+    @Override
+    public Mono<String> getHash(String key, String hashKey) {
+        return remote.getHash(key, hashKey);
+    }
+
+    @Override
+    public Mono<Boolean> putHash(String key, String hashKey, String value) {
+        return remote.putHash(key, hashKey, value);
+    }
+
+    @Override
+    public Mono<Long> removeHashKey(String key, String hashKey) {
+        return remote.removeHashKey(key, hashKey);
+    }
+
+    @Override
+    public Mono<Map<String, String>> getHashEntries(String key) {
+        return remote.getHashEntries(key);
+    }
+
+    @Override
+    public Mono<Long> rightPush(String key, String value) {
+        return remote.rightPush(key, value);
+    }
+
+    @Override
+    public Mono<String> leftPop(String key) {
+        return remote.leftPop(key);
+    }
+
+    @Override
+    public Flux<String> keys(String pattern) {
+        return remote.keys(pattern);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = local.stats();
+        long received = invalidationsReceived.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictedBytes", stats.evictionWeight());
+        result.put("entries", local.estimatedSize());
+        result.put("invalidationsSent", invalidationsSent.sum());
+        result.put("invalidationsReceived", received);
+        result.put("invalidationLagAvgMs", received > 0 ? (double) invalidationLagTotalMs.sum() / received : 0.0);
+        result.put("invalidationLagMaxMs", invalidationLagMaxMs.get());
+        return result;
+    }
+
+    public void onInvalidation(String message) {
+        // Format: <instanceId>|<publishedAtMillis>|<key>
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        invalidateLocal(parts[2]);
+        invalidationsReceived.increment();
+        try {
+            long lag = Math.max(0, System.currentTimeMillis() - Long.parseLong(parts[1]));
+            invalidationLagTotalMs.add(lag);
+            invalidationLagMaxMs.accumulateAndGet(lag, Math::max);
+        } catch (NumberFormatException e) {
+            log.debug("Malformed invalidation timestamp: {}", message);
+        }
+    }
+
+    private boolean isLocal(String key) {
+        for (String prefix : localPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putLocal(String key, String value, Duration remoteTtl) {
+        long ttl = remoteTtl == null || remoteTtl.isZero()
+                ? maxLocalTtlNanos
+                : Math.min(maxLocalTtlNanos, remoteTtl.toNanos());
+        local.put(key, new LocalEntry(value, ttl));
+    }
+
+    /**
+     * Remaining Redis TTL; {@link Duration#ZERO} means the key has no expiry.
+     */
+    private Mono<Duration> remoteTtl(String key) {
+        return redisTemplate.getExpire(key)
+                .timeout(Duration.ofMillis(500))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private void invalidateLocal(String key) {
+        invalidationGeneration.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    private Mono<Void> invalidateEverywhere(String key) {
+        invalidateLocal(key);
+        return broadcastInvalidation(key);
+    }
+
+    private Mono<Void> broadcastInvalidation(String key) {
+        invalidationsSent.increment();
+        return remote.publish(INVALIDATION_TOPIC, instanceId + "|" + System.currentTimeMillis() + "|" + key).then();
+    }
+}
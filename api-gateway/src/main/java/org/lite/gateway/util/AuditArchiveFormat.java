@@ -0,0 +1,300 @@
+package org.lite.gateway.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Indexed audit archive: events sorted by timestamp, stored in gzip-compressed blocks of
+ * newline-delimited JSON, followed by an index that lets a reader skip blocks, or the whole
+ * file, that cannot hold events matching a query.
+ *
+ * File layout (big-endian, as written by {@link DataOutputStream}):
+ * <pre>
+ * int    magic 'LQAA', int format version
+ * block* gzip of the events' JSON, one per line
+ * index  int magic 'LQAI', int format version
+ *        int event count, time min, time max, bloom userIds, bloom eventTypes, bloom resourceIds
+ *        int block count, then per block: long offset, int length, int event count,
+ *        time min, time max, bloom userIds, bloom eventTypes, bloom resourceIds
+ * trailer long index offset, int index length, int magic 'LQAA'
+ * </pre>
+ * A time is {@code long epochSecond, int nano} of the UTC-interpreted local date-time; a bloom
+ * is {@code int length} followed by {@link BloomFilter#toByteArray()}. A reader fetches the
+ * trailer, then the index, then only the byte ranges of the blocks it needs.
+ */
+public final class AuditArchiveFormat {
+
+    public static final int TRAILER_LENGTH = 16;
+
+    private static final int MAGIC = 0x4C514141; // "LQAA"
+    private static final int INDEX_MAGIC = 0x4C514149; // "LQAI"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * One event to archive: its JSON and the fields the index covers. Null fields are not
+     * indexed.
+     */
+    public record Event(LocalDateTime timestamp, String userId, String eventType, String resourceId, byte[] json) {
+    }
+
+    public record Block(long offset, int length, int eventCount, LocalDateTime minTimestamp,
+            LocalDateTime maxTimestamp, BloomFilter userIds, BloomFilter eventTypes, BloomFilter resourceIds) {
+    }
+
+    public record Index(int eventCount, LocalDateTime minTimestamp, LocalDateTime maxTimestamp,
+            BloomFilter userIds, BloomFilter eventTypes, BloomFilter resourceIds, List<Block> blocks) {
+    }
+
+    /**
+     * @param bytes       the archive file
+     * @param indexOffset where the index starts
+     * @param indexLength the size of the index
+     */
+    public record Archive(byte[] bytes, Index index, long indexOffset, int indexLength) {
+    }
+
+    public record Trailer(long indexOffset, int indexLength) {
+    }
+
+    /**
+     * Which events a query wants. Null or empty criteria match everything; {@code start} and
+     * {@code end} are inclusive.
+     */
+    public record Filter(LocalDateTime start, LocalDateTime end, Set<String> eventTypes, String userId,
+            String resourceId) {
+
+        /**
+         * @return {@code false} if no event in the given time range with values in the given
+         *         filters can match; null filters are treated as holding every value
+         */
+        public boolean mayMatch(LocalDateTime minTimestamp, LocalDateTime maxTimestamp, BloomFilter userIds,
+                BloomFilter eventTypes, BloomFilter resourceIds) {
+            if (start != null && maxTimestamp != null && maxTimestamp.isBefore(start)) {
+                return false;
+            }
+            if (end != null && minTimestamp != null && minTimestamp.isAfter(end)) {
+                return false;
+            }
+            if (hasValue(userId) && userIds != null && !userIds.mightContain(userId)) {
+                return false;
+            }
+            if (hasValue(resourceId) && resourceIds != null && !resourceIds.mightContain(resourceId)) {
+                return false;
+            }
+            if (this.eventTypes != null && !this.eventTypes.isEmpty() && eventTypes != null) {
+                return this.eventTypes.stream().anyMatch(eventTypes::mightContain);
+            }
+            return true;
+        }
+
+        public boolean matches(LocalDateTime timestamp, String userId, String eventType, String resourceId) {
+            if (timestamp == null || (start != null && timestamp.isBefore(start))
+                    || (end != null && timestamp.isAfter(end))) {
+                return false;
+            }
+            if (hasValue(this.userId) && !this.userId.equals(userId)) {
+                return false;
+            }
+            if (hasValue(this.resourceId) && !this.resourceId.equals(resourceId)) {
+                return false;
+            }
+            return eventTypes == null || eventTypes.isEmpty() || eventTypes.contains(eventType);
+        }
+
+        private static boolean hasValue(String value) {
+            return value != null && !value.isEmpty();
+        }
+    }
+
+    private AuditArchiveFormat() {
+    }
+
+    /**
+     * Writes an archive of the events, sorted by timestamp, {@code blockSize} events per block.
+     */
+    public static Archive write(List<Event> events, int blockSize) throws IOException {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparing(Event::timestamp));
+        int eventsPerBlock = Math.max(1, blockSize);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+
+        List<Block> blocks = new ArrayList<>();
+        for (int from = 0; from < sorted.size(); from += eventsPerBlock) {
+            List<Event> slice = sorted.subList(from, Math.min(sorted.size(), from + eventsPerBlock));
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                for (Event event : slice) {
+                    gzip.write(event.json());
+                    gzip.write('\n');
+                }
+            }
+            long offset = out.size();
+            compressed.writeTo(out);
+            blocks.add(new Block(offset, compressed.size(), slice.size(), slice.get(0).timestamp(),
+                    slice.get(slice.size() - 1).timestamp(), bloom(slice, Event::userId),
+                    bloom(slice, Event::eventType), bloom(slice, Event::resourceId)));
+        }
+
+        Index index = new Index(sorted.size(),
+                sorted.isEmpty() ? null : sorted.get(0).timestamp(),
+                sorted.isEmpty() ? null : sorted.get(sorted.size() - 1).timestamp(),
+                bloom(sorted, Event::userId), bloom(sorted, Event::eventType), bloom(sorted, Event::resourceId),
+                blocks);
+        long indexOffset = out.size();
+        writeIndex(out, index);
+        int indexLength = (int) (out.size() - indexOffset);
+        out.writeLong(indexOffset);
+        out.writeInt(indexLength);
+        out.writeInt(MAGIC);
+        out.flush();
+        return new Archive(file.toByteArray(), index, indexOffset, indexLength);
+    }
+
+    private static BloomFilter bloom(List<Event> events, Function<Event, String> field) {
+        Set<String> values = new HashSet<>();
+        for (Event event : events) {
+            String value = field.apply(event);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        BloomFilter filter = BloomFilter.create(values.size(), FALSE_POSITIVE_RATE);
+        values.forEach(filter::put);
+        return filter;
+    }
+
+    private static void writeIndex(DataOutputStream out, Index index) throws IOException {
+        out.writeInt(INDEX_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(index.eventCount());
+        writeTime(out, index.minTimestamp());
+        writeTime(out, index.maxTimestamp());
+        writeBloom(out, index.userIds());
+        writeBloom(out, index.eventTypes());
+        writeBloom(out, index.resourceIds());
+        out.writeInt(index.blocks().size());
+        for (Block block : index.blocks()) {
+            out.writeLong(block.offset());
+            out.writeInt(block.length());
+            out.writeInt(block.eventCount());
+            writeTime(out, block.minTimestamp());
+            writeTime(out, block.maxTimestamp());
+            writeBloom(out, block.userIds());
+            writeBloom(out, block.eventTypes());
+            writeBloom(out, block.resourceIds());
+        }
+    }
+
+    /**
+     * Parses the last {@link #TRAILER_LENGTH} bytes of an archive.
+     */
+    public static Trailer readTrailer(byte[] trailer) {
+        ByteBuffer buffer = ByteBuffer.wrap(trailer);
+        if (trailer.length != TRAILER_LENGTH || buffer.getInt(12) != MAGIC) {
+            throw new IllegalArgumentException("Not an indexed audit archive");
+        }
+        return new Trailer(buffer.getLong(0), buffer.getInt(8));
+    }
+
+    public static Index readIndex(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != INDEX_MAGIC) {
+            throw new IOException("Not an audit archive index");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported audit archive index version " + version);
+        }
+        int eventCount = in.readInt();
+        LocalDateTime minTimestamp = readTime(in);
+        LocalDateTime maxTimestamp = readTime(in);
+        BloomFilter userIds = readBloom(in);
+        BloomFilter eventTypes = readBloom(in);
+        BloomFilter resourceIds = readBloom(in);
+        int blockCount = in.readInt();
+        List<Block> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            blocks.add(new Block(in.readLong(), in.readInt(), in.readInt(), readTime(in), readTime(in),
+                    readBloom(in), readBloom(in), readBloom(in)));
+        }
+        return new Index(eventCount, minTimestamp, maxTimestamp, userIds, eventTypes, resourceIds, blocks);
+    }
+
+    /**
+     * @return the JSON of the events in a block, in timestamp order
+     */
+    public static List<byte[]> readBlock(byte[] block) throws IOException {
+        byte[] lines;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(block))) {
+            lines = in.readAllBytes();
+        }
+        List<byte[]> events = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= lines.length; i++) {
+            if (i == lines.length || lines[i] == '\n') {
+                if (i > start) {
+                    events.add(Arrays.copyOfRange(lines, start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return events;
+    }
+
+    /**
+     * @return whether {@code header} starts with the magic and format version of this format
+     */
+    public static boolean isIndexedArchive(byte[] header) {
+        if (header == null || header.length < HEADER_LENGTH) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        return buffer.getInt(0) == MAGIC && buffer.getInt(4) == FORMAT_VERSION;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        // Long.MIN_VALUE marks an empty archive
+        out.writeLong(time != null ? time.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+        out.writeInt(time != null ? time.getNano() : 0);
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        return epochSecond == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private static void writeBloom(DataOutputStream out, BloomFilter bloom) throws IOException {
+        byte[] bytes = bloom.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BloomFilter readBloom(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return BloomFilter.fromByteArray(bytes);
+    }
+}
@@ -0,0 +1,86 @@
+package org.lite.gateway.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns chunk text and queries into the terms of a {@link Bm25Index}.
+ *
+ * Text is split into runs of letters and digits, lowercased, and stripped of common English
+ * stop words. Identifiers joined by '-', '_' or '.' (form numbers such as I-485, versions,
+ * file names) are kept as one term and also emitted part by part, so a query for "I-485"
+ * matches the identifier exactly while "485" still finds it. Plural suffixes are removed
+ * with a conservative stemmer; tokens longer than {@link #MAX_TOKEN_LENGTH} are dropped as
+ * they are almost always encoded data rather than words.
+ */
+public final class Bm25Analyzer {
+
+    public static final int MAX_TOKEN_LENGTH = 64;
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("[\\p{L}\\p{N}]+(?:[-_.][\\p{L}\\p{N}]+)*");
+    private static final Pattern PART_SEPARATOR = Pattern.compile("[-_.]");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have", "if", "in",
+            "into", "is", "it", "its", "no", "not", "of", "on", "or", "such", "that", "the", "their", "then",
+            "there", "these", "they", "this", "to", "was", "were", "will", "with", "what", "which", "who", "how");
+
+    /**
+     * @return the terms of {@code text} in order, with repeats
+     */
+    public List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        Matcher matcher = TOKEN_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String token = matcher.group().toLowerCase(Locale.ROOT);
+            if (token.length() > MAX_TOKEN_LENGTH) {
+                continue;
+            }
+            if (!PART_SEPARATOR.matcher(token).find()) {
+                addTerm(terms, token);
+                continue;
+            }
+            terms.add(token);
+            for (String part : PART_SEPARATOR.split(token)) {
+                if (part.length() > 1 || Character.isDigit(part.charAt(0))) {
+                    addTerm(terms, part);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String token) {
+        if (!STOP_WORDS.contains(token)) {
+            terms.add(stem(token));
+        }
+    }
+
+    /**
+     * Removes plural endings from alphabetic words: "policies" becomes "policy" and "forms"
+     * becomes "form", while "class", "status" and "analysis" are left alone.
+     */
+    static String stem(String token) {
+        int length = token.length();
+        if (length <= 3 || !Character.isLetter(token.charAt(length - 1))) {
+            return token;
+        }
+        if (token.endsWith("ies") && length > 4) {
+            return token.substring(0, length - 3) + "y";
+        }
+        if (token.endsWith("sses")) {
+            return token.substring(0, length - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us") && !token.endsWith("is")) {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+}
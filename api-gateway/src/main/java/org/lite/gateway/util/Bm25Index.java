@@ -0,0 +1,462 @@
+package org.lite.gateway.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory BM25 inverted index over the chunks of one collection.
+ *
+ * Each chunk is stored under its Milvus primary key and gets an ordinal in insertion order.
+ * Postings list, per term, the ordinals containing it with their term frequency; since
+ * ordinals only grow, postings are appended in order and never re-sorted. Removing a chunk
+ * marks its ordinal deleted; like Lucene, deleted chunks still count in document frequency
+ * and average length until the index is compacted, which happens when more than half of
+ * the ordinals are deleted and whenever a segment is written.
+ *
+ * Segment format (big-endian, as written by {@link DataOutputStream}):
+ * <pre>
+ * int    magic 'BM25', int format version
+ * float  k1, float b
+ * int    document count, then per document: long id, int length, UTF documentId
+ * int    term count, then per term: UTF term, int posting count,
+ *        then per posting: varint ordinal delta, varint term frequency
+ * </pre>
+ *
+ * Reads and searches share a read lock; adds and removes take the write lock.
+ */
+public final class Bm25Index {
+
+    public static final float DEFAULT_K1 = 1.2f;
+    public static final float DEFAULT_B = 0.75f;
+    // Weight of metadata terms relative to body terms, as in BM25F
+    public static final int METADATA_WEIGHT = 2;
+
+    private static final int MAGIC = 0x424D3235; // "BM25"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * @param documentId the source document of the chunk, or null
+     */
+    public record Hit(long id, String documentId, float score) {
+    }
+
+    private final Bm25Analyzer analyzer;
+    private final float k1;
+    private final float b;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[64];
+    private int[] lengths = new int[64];
+    private String[] documentIds = new String[64];
+    private int maxOrdinal;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private long totalLength;
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private final Map<String, Set<Integer>> ordinalsByDocument = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    public Bm25Index(Bm25Analyzer analyzer) {
+        this(analyzer, DEFAULT_K1, DEFAULT_B);
+    }
+
+    public Bm25Index(Bm25Analyzer analyzer, float k1, float b) {
+        this.analyzer = analyzer;
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Indexes one chunk, replacing any chunk already stored under {@code id}.
+     */
+    public void add(long id, String documentId, String text) {
+        add(id, documentId, text, null);
+    }
+
+    /**
+     * Indexes one chunk with metadata such as its document title, replacing any chunk already
+     * stored under {@code id}. Each metadata term counts {@link #METADATA_WEIGHT} times in the
+     * chunk's term frequencies and length, so a query term found in the title outweighs the
+     * same term in the body.
+     */
+    public void add(long id, String documentId, String text, String metadata) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : analyzer.analyze(text)) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        if (metadata != null) {
+            for (String term : analyzer.analyze(metadata)) {
+                frequencies.merge(term, METADATA_WEIGHT, Integer::sum);
+                length += METADATA_WEIGHT;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            Integer previous = ordinalById.get(id);
+            if (previous != null) {
+                delete(previous);
+            }
+            int ordinal = maxOrdinal++;
+            ensureCapacity(maxOrdinal);
+            ids[ordinal] = id;
+            lengths[ordinal] = length;
+            documentIds[ordinal] = documentId;
+            totalLength += length;
+            ordinalById.put(id, ordinal);
+            if (documentId != null) {
+                ordinalsByDocument.computeIfAbsent(documentId, key -> new LinkedHashSet<>()).add(ordinal);
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new Postings()).append(ordinal, entry.getValue());
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether a chunk was stored under {@code id}
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(id);
+            if (ordinal == null) {
+                return false;
+            }
+            delete(ordinal);
+            compactIfSparse();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every chunk of a document.
+     *
+     * @return the number of chunks removed
+     */
+    public int removeDocument(String documentId) {
+        lock.writeLock().lock();
+        try {
+            Set<Integer> ordinals = ordinalsByDocument.get(documentId);
+            if (ordinals == null) {
+                return 0;
+            }
+            List<Integer> removed = new ArrayList<>(ordinals);
+            for (int ordinal : removed) {
+                delete(ordinal);
+            }
+            compactIfSparse();
+            return removed.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return maxOrdinal - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code topK} chunks matching any query term, best first; ties keep
+     *         insertion order
+     */
+    public List<Hit> search(String query, int topK) {
+        Set<String> terms = new LinkedHashSet<>(analyzer.analyze(query));
+        if (terms.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (maxOrdinal == 0) {
+                return List.of();
+            }
+            float averageLength = Math.max(1f, (float) totalLength / maxOrdinal);
+            float[] scores = new float[maxOrdinal];
+            BitSet matched = new BitSet(maxOrdinal);
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int documentFrequency = termPostings.size;
+                double idf = Math.log(1 + (maxOrdinal - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (int p = 0; p < termPostings.size; p++) {
+                    int ordinal = termPostings.ordinals[p];
+                    if (deleted.get(ordinal)) {
+                        continue;
+                    }
+                    int tf = termPostings.frequencies[p];
+                    float norm = k1 * (1 - b + b * lengths[ordinal] / averageLength);
+                    scores[ordinal] += (float) (idf * tf * (k1 + 1) / (tf + norm));
+                    matched.set(ordinal);
+                }
+            }
+
+            Comparator<Integer> worstFirst = Comparator.<Integer>comparingDouble(ordinal -> scores[ordinal])
+                    .thenComparing(Comparator.<Integer>reverseOrder());
+            PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(topK, maxOrdinal) + 1, worstFirst);
+            for (int ordinal = matched.nextSetBit(0); ordinal >= 0; ordinal = matched.nextSetBit(ordinal + 1)) {
+                best.offer(ordinal);
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+            Hit[] hits = new Hit[best.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                int ordinal = best.poll();
+                hits[i] = new Hit(ids[ordinal], documentIds[ordinal], scores[ordinal]);
+            }
+            return Arrays.asList(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the live chunks as a segment, compacting the index first.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (deletedCount > 0) {
+                compact();
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeFloat(k1);
+            out.writeFloat(b);
+            out.writeInt(maxOrdinal);
+            for (int ordinal = 0; ordinal < maxOrdinal; ordinal++) {
+                out.writeLong(ids[ordinal]);
+                out.writeInt(lengths[ordinal]);
+                out.writeUTF(documentIds[ordinal] != null ? documentIds[ordinal] : "");
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings termPostings = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(termPostings.size);
+                int previous = 0;
+                for (int p = 0; p < termPostings.size; p++) {
+                    writeVarInt(out, termPostings.ordinals[p] - previous);
+                    writeVarInt(out, termPostings.frequencies[p]);
+                    previous = termPostings.ordinals[p];
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a segment written by {@link #write}.
+     *
+     * @throws IOException if the data is not a segment of a supported format version
+     */
+    public static Bm25Index read(DataInputStream in, Bm25Analyzer analyzer) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a BM25 segment");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported BM25 segment version " + version);
+        }
+        Bm25Index index = new Bm25Index(analyzer, in.readFloat(), in.readFloat());
+        int documentCount = in.readInt();
+        index.ensureCapacity(documentCount);
+        for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+            long id = in.readLong();
+            int length = in.readInt();
+            String documentId = in.readUTF();
+            index.ids[ordinal] = id;
+            index.lengths[ordinal] = length;
+            index.documentIds[ordinal] = documentId.isEmpty() ? null : documentId;
+            index.totalLength += length;
+            index.ordinalById.put(id, ordinal);
+            if (!documentId.isEmpty()) {
+                index.ordinalsByDocument.computeIfAbsent(documentId, key -> new LinkedHashSet<>()).add(ordinal);
+            }
+        }
+        index.maxOrdinal = documentCount;
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String term = in.readUTF();
+            int size = in.readInt();
+            Postings termPostings = new Postings(size);
+            int ordinal = 0;
+            for (int p = 0; p < size; p++) {
+                ordinal += readVarInt(in);
+                if (ordinal >= documentCount) {
+                    throw new IOException("Posting for term '" + term + "' points past the document table");
+                }
+                termPostings.append(ordinal, readVarInt(in));
+            }
+            index.postings.put(term, termPostings);
+        }
+        return index;
+    }
+
+    private void delete(int ordinal) {
+        if (deleted.get(ordinal)) {
+            return;
+        }
+        deleted.set(ordinal);
+        deletedCount++;
+        ordinalById.remove(ids[ordinal], ordinal);
+        String documentId = documentIds[ordinal];
+        if (documentId != null) {
+            Set<Integer> ordinals = ordinalsByDocument.get(documentId);
+            if (ordinals != null) {
+                ordinals.remove(ordinal);
+                if (ordinals.isEmpty()) {
+                    ordinalsByDocument.remove(documentId);
+                }
+            }
+        }
+    }
+
+    private void compactIfSparse() {
+        if (deletedCount > 0 && deletedCount * 2 > maxOrdinal) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers live chunks densely in their original order and drops deleted postings.
+     */
+    private void compact() {
+        int[] remap = new int[maxOrdinal];
+        int live = 0;
+        totalLength = 0;
+        ordinalById.clear();
+        ordinalsByDocument.clear();
+        for (int ordinal = 0; ordinal < maxOrdinal; ordinal++) {
+            if (deleted.get(ordinal)) {
+                remap[ordinal] = -1;
+                continue;
+            }
+            remap[ordinal] = live;
+            ids[live] = ids[ordinal];
+            lengths[live] = lengths[ordinal];
+            documentIds[live] = documentIds[ordinal];
+            totalLength += lengths[live];
+            ordinalById.put(ids[live], live);
+            if (documentIds[live] != null) {
+                ordinalsByDocument.computeIfAbsent(documentIds[live], key -> new LinkedHashSet<>()).add(live);
+            }
+            live++;
+        }
+        Arrays.fill(documentIds, live, maxOrdinal, null);
+        postings.values().removeIf(termPostings -> termPostings.remap(remap) == 0);
+        maxOrdinal = live;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int newLength = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            documentIds = Arrays.copyOf(documentIds, newLength);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int next = in.readUnsignedByte();
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in BM25 segment");
+    }
+
+    /**
+     * Ordinals containing one term, ascending, with the term's frequency in each.
+     */
+    private static final class Postings {
+
+        private int[] ordinals;
+        private int[] frequencies;
+        private int size;
+
+        Postings() {
+            this(4);
+        }
+
+        Postings(int capacity) {
+            ordinals = new int[Math.max(1, capacity)];
+            frequencies = new int[ordinals.length];
+        }
+
+        void append(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /**
+         * @return the number of postings left after dropping ordinals mapped to -1
+         */
+        int remap(int[] remap) {
+            int kept = 0;
+            for (int p = 0; p < size; p++) {
+                int ordinal = remap[ordinals[p]];
+                if (ordinal >= 0) {
+                    ordinals[kept] = ordinal;
+                    frequencies[kept] = frequencies[p];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+}
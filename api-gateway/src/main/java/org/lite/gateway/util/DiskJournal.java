@@ -0,0 +1,219 @@
+package org.lite.gateway.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal of byte records, read back in append order and acknowledged
+ * once the reader has stored them elsewhere.
+ *
+ * Records are written to {@code journal.log} as {@code [length][crc32][bytes]}. The offset of
+ * the first unacknowledged record is kept in {@code journal.offset}, replaced atomically on
+ * every {@link #commit()}. Opening a journal resumes from that offset, so records appended
+ * but not acknowledged before a crash are read again; a record cut short by the crash fails
+ * its length or checksum check and is truncated away with everything after it. Once every
+ * record has been acknowledged the log is truncated to empty.
+ *
+ * Delivery is at-least-once: records read and stored but not yet committed when the
+ * process stops are read again after a restart.
+ */
+public final class DiskJournal implements Closeable {
+
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    private final Path logFile;
+    private final Path offsetFile;
+    private final Path offsetTempFile;
+    private final FileChannel channel;
+    private final boolean sync;
+
+    private long committed;
+    private long readPosition;
+    private long end;
+    private long pendingRecords;
+    private long inFlightRecords;
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed, and recovers the records
+     * that were not acknowledged.
+     *
+     * @param sync whether every append is forced to the storage device before returning
+     */
+    public DiskJournal(Path directory, boolean sync) throws IOException {
+        Files.createDirectories(directory);
+        this.logFile = directory.resolve("journal.log");
+        this.offsetFile = directory.resolve("journal.offset");
+        this.offsetTempFile = directory.resolve("journal.offset.tmp");
+        this.sync = sync;
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        if (Files.exists(offsetFile)) {
+            byte[] bytes = Files.readAllBytes(offsetFile);
+            if (bytes.length == Long.BYTES) {
+                offset = ByteBuffer.wrap(bytes).getLong();
+            }
+        }
+        // The log may have been truncated after the offset was last written
+        committed = offset >= 0 && offset <= size ? offset : 0;
+
+        long position = committed;
+        long records = 0;
+        while (true) {
+            long next = nextRecord(position, size);
+            if (next < 0) {
+                break;
+            }
+            position = next;
+            records++;
+        }
+        if (position < size) {
+            // Torn or corrupt tail from a crash during an append
+            channel.truncate(position);
+        }
+        end = position;
+        readPosition = committed;
+        pendingRecords = records;
+    }
+
+    /**
+     * @return the offset after the valid record at {@code position}, or -1 if there is none
+     */
+    private long nextRecord(long position, long size) throws IOException {
+        if (size - position < RECORD_HEADER_LENGTH) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        readFully(header, position);
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 0 || length > MAX_RECORD_LENGTH || size - position - RECORD_HEADER_LENGTH < length) {
+            return -1;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(body, position + RECORD_HEADER_LENGTH);
+        return checksum(body.array()) == checksum ? position + RECORD_HEADER_LENGTH + length : -1;
+    }
+
+    public synchronized void append(byte[] record) throws IOException {
+        if (record.length > MAX_RECORD_LENGTH) {
+            throw new IllegalArgumentException("Journal record too large: " + record.length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_LENGTH + record.length);
+        buffer.putInt(record.length).putInt(checksum(record)).put(record).flip();
+        long position = end;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        end = position;
+        pendingRecords++;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records following those handed out by earlier reads.
+     * They are read again after {@link #rewind()} or a restart until {@link #commit()}.
+     */
+    public synchronized List<byte[]> read(int maxRecords) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        while (records.size() < maxRecords && readPosition < end) {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+            readFully(header, readPosition);
+            header.flip();
+            int length = header.getInt();
+            header.getInt();
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(body, readPosition + RECORD_HEADER_LENGTH);
+            records.add(body.array());
+            readPosition += RECORD_HEADER_LENGTH + length;
+        }
+        inFlightRecords += records.size();
+        return records;
+    }
+
+    /**
+     * Acknowledges every record handed out by {@link #read(int)}.
+     */
+    public synchronized void commit() throws IOException {
+        committed = readPosition;
+        pendingRecords -= inFlightRecords;
+        inFlightRecords = 0;
+        if (committed == end) {
+            // Truncate before resetting the offset; an offset past the end is read as 0
+            channel.truncate(0);
+            committed = 0;
+            readPosition = 0;
+            end = 0;
+        }
+        writeOffset(committed);
+    }
+
+    /**
+     * Makes the records handed out since the last {@link #commit()} readable again.
+     */
+    public synchronized void rewind() {
+        readPosition = committed;
+        inFlightRecords = 0;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+
+    /**
+     * @return the number of records not yet acknowledged
+     */
+    public synchronized long pendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * @return the size of the records not yet acknowledged, with their headers
+     */
+    public synchronized long pendingBytes() {
+        return end - committed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeOffset(long offset) throws IOException {
+        Files.write(offsetTempFile, ByteBuffer.allocate(Long.BYTES).putLong(offset).array());
+        Files.move(offsetTempFile, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal " + logFile);
+            }
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
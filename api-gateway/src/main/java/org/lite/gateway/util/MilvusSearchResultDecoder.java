@@ -0,0 +1,208 @@
+package org.lite.gateway.util;
+
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.IDs;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.grpc.VectorField;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row-oriented view over the columnar {@link SearchResultData} of a Milvus search.
+ *
+ * Milvus returns one {@link FieldData} column per output field. The decoder indexes those
+ * columns by field name and resolves each column's storage type once per response, so
+ * reading a value is a map lookup plus a positional read instead of a scan of the field
+ * list for every row and field. Accessors are typed; scores are read as primitive floats.
+ * When a response lists a field twice the first column wins, and reads outside a column's
+ * row count return the accessor's empty value.
+ */
+public final class MilvusSearchResultDecoder {
+
+    private enum Kind {
+        VARCHAR, INT64, INT32, FLOAT, DOUBLE, BOOL, JSON, FLOAT_VECTOR, UNSUPPORTED
+    }
+
+    private final SearchResultData data;
+    private final Map<String, Column> columns;
+
+    private MilvusSearchResultDecoder(SearchResultData data) {
+        this.data = data;
+        List<FieldData> fields = data.getFieldsDataList();
+        this.columns = new HashMap<>(Math.max(16, fields.size() * 2));
+        for (FieldData field : fields) {
+            columns.putIfAbsent(field.getFieldName(), new Column(field));
+        }
+    }
+
+    public static MilvusSearchResultDecoder of(SearchResultData data) {
+        return new MilvusSearchResultDecoder(data);
+    }
+
+    public SearchResultData data() {
+        return data;
+    }
+
+    public boolean hasField(String fieldName) {
+        return columns.containsKey(fieldName);
+    }
+
+    /**
+     * @return the score of the row, or 0 when the response carries no score for it
+     */
+    public float score(int row) {
+        return row < data.getScoresCount() ? data.getScores(row) : 0.0f;
+    }
+
+    /**
+     * @return the primary key of the row as a {@code Long} or {@code String}, or null
+     */
+    public Object id(int row) {
+        IDs ids = data.getIds();
+        if (ids.hasIntId() && ids.getIntId().getDataCount() > row) {
+            return ids.getIntId().getData(row);
+        }
+        if (ids.hasStrId() && ids.getStrId().getDataCount() > row) {
+            return ids.getStrId().getData(row);
+        }
+        return null;
+    }
+
+    public String getVarchar(String fieldName, int row) {
+        Column column = column(fieldName, row);
+        return column != null && column.kind == Kind.VARCHAR ? column.scalars.getStringData().getData(row) : null;
+    }
+
+    public boolean hasInt64(String fieldName, int row) {
+        Column column = column(fieldName, row);
+        return column != null && (column.kind == Kind.INT64 || column.kind == Kind.INT32);
+    }
+
+    public long getInt64(String fieldName, int row, long defaultValue) {
+        Column column = column(fieldName, row);
+        if (column == null) {
+            return defaultValue;
+        }
+        return switch (column.kind) {
+            case INT64 -> column.scalars.getLongData().getData(row);
+            case INT32 -> column.scalars.getIntData().getData(row);
+            default -> defaultValue;
+        };
+    }
+
+    /**
+     * Reads a float or double column as a float.
+     */
+    public float getFloat(String fieldName, int row, float defaultValue) {
+        Column column = column(fieldName, row);
+        if (column == null) {
+            return defaultValue;
+        }
+        return switch (column.kind) {
+            case FLOAT -> column.scalars.getFloatData().getData(row);
+            case DOUBLE -> (float) column.scalars.getDoubleData().getData(row);
+            default -> defaultValue;
+        };
+    }
+
+    /**
+     * @return the raw JSON text of the row's value, or null
+     */
+    public String getJson(String fieldName, int row) {
+        Column column = column(fieldName, row);
+        return column != null && column.kind == Kind.JSON
+                ? column.scalars.getJsonData().getData(row).toStringUtf8()
+                : null;
+    }
+
+    /**
+     * @return a copy of the row's vector, or null when the field is not a float vector
+     */
+    public float[] getFloatVector(String fieldName, int row) {
+        Column column = column(fieldName, row);
+        if (column == null || column.kind != Kind.FLOAT_VECTOR) {
+            return null;
+        }
+        VectorField vectors = column.field.getVectors();
+        float[] vector = new float[column.dim];
+        int offset = row * column.dim;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = vectors.getFloatVector().getData(offset + i);
+        }
+        return vector;
+    }
+
+    /**
+     * Boxed value of a varchar, int64, float, double or bool column for generic metadata
+     * maps, or null for other types and missing rows.
+     */
+    public Object getValue(String fieldName, int row) {
+        Column column = column(fieldName, row);
+        if (column == null) {
+            return null;
+        }
+        return switch (column.kind) {
+            case VARCHAR -> column.scalars.getStringData().getData(row);
+            case INT64 -> column.scalars.getLongData().getData(row);
+            case FLOAT -> column.scalars.getFloatData().getData(row);
+            case DOUBLE -> column.scalars.getDoubleData().getData(row);
+            case BOOL -> column.scalars.getBoolData().getData(row);
+            default -> null;
+        };
+    }
+
+    private Column column(String fieldName, int row) {
+        Column column = columns.get(fieldName);
+        return column != null && row >= 0 && row < column.rows ? column : null;
+    }
+
+    private static final class Column {
+
+        private final FieldData field;
+        private final ScalarField scalars;
+        private final Kind kind;
+        private final int rows;
+        private final int dim;
+
+        Column(FieldData field) {
+            this.field = field;
+            this.scalars = field.getScalars();
+            if (field.hasVectors() && field.getVectors().hasFloatVector() && field.getVectors().getDim() > 0) {
+                this.kind = Kind.FLOAT_VECTOR;
+                this.dim = (int) field.getVectors().getDim();
+                this.rows = field.getVectors().getFloatVector().getDataCount() / dim;
+                return;
+            }
+            this.dim = 0;
+            // Scalar data is a protobuf oneof, so at most one of these arrays is set
+            if (scalars.hasStringData()) {
+                kind = Kind.VARCHAR;
+                rows = scalars.getStringData().getDataCount();
+            } else if (scalars.hasLongData()) {
+                kind = Kind.INT64;
+                rows = scalars.getLongData().getDataCount();
+            } else if (scalars.hasFloatData()) {
+                kind = Kind.FLOAT;
+                rows = scalars.getFloatData().getDataCount();
+            } else if (scalars.hasDoubleData()) {
+                kind = Kind.DOUBLE;
+                rows = scalars.getDoubleData().getDataCount();
+            } else if (scalars.hasBoolData()) {
+                kind = Kind.BOOL;
+                rows = scalars.getBoolData().getDataCount();
+            } else if (scalars.hasIntData()) {
+                kind = Kind.INT32;
+                rows = scalars.getIntData().getDataCount();
+            } else if (scalars.hasJsonData()) {
+                kind = Kind.JSON;
+                rows = scalars.getJsonData().getDataCount();
+            } else {
+                kind = Kind.UNSUPPORTED;
+                rows = 0;
+            }
+        }
+    }
+}
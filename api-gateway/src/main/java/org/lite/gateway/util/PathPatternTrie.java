@@ -0,0 +1,295 @@
+package org.lite.gateway.util;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable segment trie over a set of Ant-style path patterns, each optionally limited to
+ * a set of HTTP methods.
+ *
+ * Patterns are split on {@code /} and compiled once: literal segments become hash-map
+ * children, {@code *} and {@code **} become dedicated wildcard edges, and segments that
+ * mix literals with {@code *}, {@code ?} or {@code {var}} become a small list of regex
+ * edges. A lookup therefore walks the request path once instead of evaluating every
+ * pattern; only {@code **} edges branch. Matching follows {@link org.springframework.util.AntPathMatcher}
+ * semantics, including a trailing {@code /**} matching the bare prefix.
+ *
+ * Instances never change after {@link Builder#build()}; callers swap in a new trie to
+ * pick up pattern changes.
+ */
+public final class PathPatternTrie {
+
+    private static final PathPatternTrie EMPTY = new Builder().build();
+
+    private final Node root;
+    private final int size;
+
+    private PathPatternTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static PathPatternTrie empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static PathPatternTrie of(Iterable<String> patterns) {
+        Builder builder = new Builder();
+        patterns.forEach(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if any pattern matches {@code path}, regardless of method constraints
+     */
+    public boolean matches(String path) {
+        return matches(path, null);
+    }
+
+    /**
+     * @param method request method; {@code null} ignores method constraints
+     */
+    public boolean matches(String path, HttpMethod method) {
+        if (path == null || !path.startsWith("/")) {
+            return false;
+        }
+        String[] segments = tokenize(path);
+        return match(root, segments, 0, new Query(path.endsWith("/"), method), false);
+    }
+
+    private static boolean match(Node node, String[] segments, int index, Query query, boolean crossedDoubleWildcard) {
+        if (node.doubleWildcard != null) {
+            // '**' swallows zero or more segments; try the shortest expansion first
+            for (int next = index; next <= segments.length; next++) {
+                if (match(node.doubleWildcard, segments, next, query, true)) {
+                    return true;
+                }
+            }
+        }
+        if (index == segments.length) {
+            return matchesAtEnd(node, query, crossedDoubleWildcard);
+        }
+        String segment = segments[index];
+        Node literal = node.literals.get(segment);
+        if (literal != null && match(literal, segments, index + 1, query, crossedDoubleWildcard)) {
+            return true;
+        }
+        if (node.singleWildcard != null
+                && match(node.singleWildcard, segments, index + 1, query, crossedDoubleWildcard)) {
+            return true;
+        }
+        for (RegexEdge edge : node.regexEdges) {
+            if (edge.pattern.matcher(segment).matches()
+                    && match(edge.target, segments, index + 1, query, crossedDoubleWildcard)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesAtEnd(Node node, Query query, boolean crossedDoubleWildcard) {
+        // Path is exhausted: patterns ending in '**' ignore a trailing slash, others must agree
+        for (Terminal terminal : node.terminals) {
+            if ((terminal.endsWithDoubleWildcard || terminal.trailingSlash == query.trailingSlash)
+                    && terminal.allows(query.method)) {
+                return true;
+            }
+        }
+        // AntPathMatcher lets '/a/*' match '/a/' as long as no '**' came before
+        return query.trailingSlash && !crossedDoubleWildcard && node.singleWildcard != null
+                && anyTerminalAllows(node.singleWildcard, query.method);
+    }
+
+    private static boolean anyTerminalAllows(Node node, HttpMethod method) {
+        for (Terminal terminal : node.terminals) {
+            if (terminal.allows(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] tokenize(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    public static final class Builder {
+
+        private final Node root = new Node();
+        private int size;
+
+        public Builder add(String pattern) {
+            return add(pattern, null);
+        }
+
+        /**
+         * @param methods allowed methods; {@code null} or empty allows every method
+         * @throws IllegalArgumentException if the pattern is malformed; the builder is left unchanged
+         */
+        public Builder add(String pattern, Set<HttpMethod> methods) {
+            if (pattern == null || !pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Path pattern must start with '/': " + pattern);
+            }
+            String[] segments = tokenize(pattern);
+            // Compile every regex segment before touching the trie
+            Pattern[] compiled = new Pattern[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                if (isRegex(segments[i])) {
+                    compiled[i] = compileSegment(segments[i]);
+                }
+            }
+            Node node = root;
+            for (int i = 0; i < segments.length; i++) {
+                node = node.child(segments[i], compiled[i]);
+            }
+            boolean endsWithDoubleWildcard = segments.length > 0 && "**".equals(segments[segments.length - 1]);
+            node.terminals.add(new Terminal(pattern.endsWith("/"), endsWithDoubleWildcard,
+                    methods == null || methods.isEmpty() ? null : Set.copyOf(methods)));
+            size++;
+            return this;
+        }
+
+        public PathPatternTrie build() {
+            return new PathPatternTrie(root.freeze(), size);
+        }
+    }
+
+    private static final class Node {
+        private Map<String, Node> literals = new HashMap<>();
+        private Node singleWildcard;
+        private Node doubleWildcard;
+        private List<RegexEdge> regexEdges = new ArrayList<>();
+        private List<Terminal> terminals = new ArrayList<>();
+
+        Node child(String segment, Pattern compiled) {
+            if ("**".equals(segment)) {
+                if (doubleWildcard == null) {
+                    doubleWildcard = new Node();
+                }
+                return doubleWildcard;
+            }
+            if ("*".equals(segment)) {
+                if (singleWildcard == null) {
+                    singleWildcard = new Node();
+                }
+                return singleWildcard;
+            }
+            if (isLiteral(segment)) {
+                return literals.computeIfAbsent(segment, s -> new Node());
+            }
+            for (RegexEdge edge : regexEdges) {
+                if (edge.source.equals(segment)) {
+                    return edge.target;
+                }
+            }
+            RegexEdge edge = new RegexEdge(segment, compiled, new Node());
+            regexEdges.add(edge);
+            return edge.target;
+        }
+
+        Node freeze() {
+            literals.replaceAll((segment, child) -> child.freeze());
+            literals = Map.copyOf(literals);
+            if (singleWildcard != null) {
+                singleWildcard = singleWildcard.freeze();
+            }
+            if (doubleWildcard != null) {
+                doubleWildcard = doubleWildcard.freeze();
+            }
+            regexEdges.forEach(edge -> edge.target.freeze());
+            regexEdges = List.copyOf(regexEdges);
+            terminals = List.copyOf(terminals);
+            return this;
+        }
+    }
+
+    private record RegexEdge(String source, Pattern pattern, Node target) {
+    }
+
+    private record Query(boolean trailingSlash, HttpMethod method) {
+    }
+
+    private record Terminal(boolean trailingSlash, boolean endsWithDoubleWildcard, Set<HttpMethod> methods) {
+
+        boolean allows(HttpMethod method) {
+            return method == null || methods == null || methods.contains(method);
+        }
+    }
+
+    private static boolean isLiteral(String segment) {
+        return segment.indexOf('*') < 0 && segment.indexOf('?') < 0 && segment.indexOf('{') < 0;
+    }
+
+    private static boolean isRegex(String segment) {
+        return !"*".equals(segment) && !"**".equals(segment) && !isLiteral(segment);
+    }
+
+    /**
+     * Same translation as AntPathMatcher for a single segment: '?' is one character, '*' is
+     * any run of characters and '{name}' / '{name:regex}' are URI template variables.
+     *
+     * @throws IllegalArgumentException for an unclosed variable or an invalid variable regex
+     */
+    private static Pattern compileSegment(String segment) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < segment.length()) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                if (c == '*') {
+                    regex.append(".*");
+                } else if (c == '?') {
+                    regex.append('.');
+                } else {
+                    int close = segment.indexOf('}', i);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Unclosed variable in path segment: " + segment);
+                    }
+                    String variable = segment.substring(i + 1, close);
+                    int colon = variable.indexOf(':');
+                    regex.append('(').append(colon < 0 ? ".*" : variable.substring(colon + 1)).append(')');
+                    i = close;
+                }
+            } else {
+                literal.append(c);
+            }
+            i++;
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
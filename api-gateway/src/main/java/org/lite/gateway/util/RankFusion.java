@@ -0,0 +1,78 @@
+package org.lite.gateway.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the rankings of several retrievers (e.g. vector and BM25 search) into one.
+ *
+ * Both methods return keys best first, with ties in the order keys were first seen.
+ */
+public final class RankFusion {
+
+    public static final int DEFAULT_RRF_K = 60;
+
+    private RankFusion() {
+    }
+
+    /**
+     * Reciprocal-rank fusion: each key scores {@code sum(1 / (k + rank))} over the rankings
+     * it appears in, with ranks starting at 1. Only positions matter, so retrievers with
+     * incomparable score scales can be combined without calibration.
+     *
+     * @param rankings keys of each retriever, best first
+     */
+    public static <K> LinkedHashMap<K, Double> reciprocalRank(List<? extends List<K>> rankings, int k) {
+        Map<K, Double> scores = new LinkedHashMap<>();
+        for (List<K> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                scores.merge(ranking.get(rank), 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        return sorted(scores);
+    }
+
+    /**
+     * Weighted score fusion: each retriever's scores are min-max normalized to [0, 1] and
+     * summed with the retriever's weight. A key missing from a retriever gets 0 from it.
+     *
+     * @param scoredLists scores of each retriever, higher is better
+     * @param weights     one weight per retriever
+     */
+    public static <K> LinkedHashMap<K, Double> weighted(List<? extends Map<K, ? extends Number>> scoredLists,
+            double[] weights) {
+        if (weights.length != scoredLists.size()) {
+            throw new IllegalArgumentException("Expected " + scoredLists.size() + " weights but got "
+                    + weights.length);
+        }
+        Map<K, Double> scores = new LinkedHashMap<>();
+        for (int list = 0; list < scoredLists.size(); list++) {
+            Map<K, ? extends Number> scored = scoredLists.get(list);
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (Number score : scored.values()) {
+                min = Math.min(min, score.doubleValue());
+                max = Math.max(max, score.doubleValue());
+            }
+            double range = max - min;
+            for (Map.Entry<K, ? extends Number> entry : scored.entrySet()) {
+                double normalized = range > 0 ? (entry.getValue().doubleValue() - min) / range : 1.0;
+                scores.merge(entry.getKey(), weights[list] * normalized, Double::sum);
+            }
+        }
+        return sorted(scores);
+    }
+
+    private static <K> LinkedHashMap<K, Double> sorted(Map<K, Double> scores) {
+        List<Map.Entry<K, Double>> entries = new ArrayList<>(scores.entrySet());
+        // List.sort is stable, so equal scores keep first-seen order
+        entries.sort(Map.Entry.<K, Double>comparingByValue().reversed());
+        LinkedHashMap<K, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<K, Double> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,565 @@
+package org.lite.gateway.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Segmented AES-GCM file format, written and read as a stream with memory bounded by the
+ * segment size.
+ *
+ * A file is a header followed by segments:
+ * <pre>
+ * header:  "LQSG" | format version (1) | segment size (4) | key version length (1) | key version
+ *          | salt (16) | nonce prefix (7)
+ * segment: AES-GCM ciphertext of up to segment size bytes | tag (16)
+ * </pre>
+ * Every segment but the last holds exactly segment size plaintext bytes; the last holds the
+ * rest, possibly nothing. Segments are encrypted with a per-file key, HMAC-SHA256 of the
+ * salt under the team key, so random nonce prefixes of different files never share a key.
+ * The nonce of a segment is the nonce prefix, the segment index and a final-segment flag,
+ * and the header is authenticated with every segment: a reordered, dropped, appended or
+ * truncated segment, or an edited header, fails authentication. The last segment must be
+ * read as final, so a file cut at a segment boundary is detected too.
+ *
+ * Files written by the former whole-file format start with a random 12-byte IV, which
+ * matches the magic and format version of this header with probability 2^-40.
+ */
+public final class SegmentedFileCipher {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+    public static final int TAG_LENGTH = 16;
+
+    private static final byte[] MAGIC = { 'L', 'Q', 'S', 'G' };
+    private static final byte FORMAT_VERSION = 1;
+    private static final int FIXED_HEADER_LENGTH = MAGIC.length + 1 + 4 + 1;
+    private static final int SALT_LENGTH = 16;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int MIN_SEGMENT_SIZE = 64;
+    private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Longest possible header, enough to read before parsing one. */
+    public static final int MAX_HEADER_LENGTH = FIXED_HEADER_LENGTH + 255 + SALT_LENGTH + NONCE_PREFIX_LENGTH;
+
+    private SegmentedFileCipher() {
+    }
+
+    /**
+     * @return whether {@code data} starts with the magic and format version of this format
+     */
+    public static boolean isSegmented(byte[] data) {
+        return data != null && data.length > MAGIC.length
+                && Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length)
+                && data[MAGIC.length] == FORMAT_VERSION;
+    }
+
+    /**
+     * @return size of the encrypted file for a plaintext of {@code plaintextLength} bytes
+     */
+    public static long encryptedLength(long plaintextLength, String keyVersion, int segmentSize) {
+        long segments = Math.max(1, (plaintextLength + segmentSize - 1) / segmentSize);
+        return headerLength(keyVersion) + plaintextLength + segments * TAG_LENGTH;
+    }
+
+    /**
+     * Encrypts a file held in memory.
+     */
+    public static byte[] encrypt(SecretKey key, String keyVersion, int segmentSize, byte[] plaintext) {
+        SegmentCipher segments = new SegmentCipher(key, Header.create(keyVersion, segmentSize));
+        Header header = segments.header();
+        byte[] encrypted = new byte[Math.toIntExact(encryptedLength(plaintext.length, keyVersion, segmentSize))];
+        System.arraycopy(header.encoded(), 0, encrypted, 0, header.length());
+        long count = header.segmentCount(encrypted.length);
+        for (long index = 0; index < count; index++) {
+            int from = (int) (index * segmentSize);
+            int length = Math.min(segmentSize, plaintext.length - from);
+            byte[] sealed = segments.seal(index, plaintext, from, length, index == count - 1);
+            System.arraycopy(sealed, 0, encrypted, (int) header.segmentOffset(index), sealed.length);
+        }
+        return encrypted;
+    }
+
+    /**
+     * Decrypts a file held in memory, using the key of the version named in its header.
+     */
+    public static byte[] decrypt(SecretKey key, byte[] encrypted) {
+        Header header = Header.parse(encrypted);
+        SegmentCipher segments = new SegmentCipher(key, header);
+        long count = header.segmentCount(encrypted.length);
+        byte[] plaintext = new byte[Math.toIntExact(header.plaintextLength(encrypted.length))];
+        for (long index = 0; index < count; index++) {
+            int offset = (int) header.segmentOffset(index);
+            int length = Math.min(header.encryptedSegmentSize(), encrypted.length - offset);
+            byte[] opened = segments.open(index, encrypted, offset, length, index == count - 1);
+            System.arraycopy(opened, 0, plaintext, (int) (index * header.segmentSize()), opened.length);
+        }
+        return plaintext;
+    }
+
+    private static int headerLength(String keyVersion) {
+        return FIXED_HEADER_LENGTH + keyVersion.getBytes(StandardCharsets.UTF_8).length + SALT_LENGTH
+                + NONCE_PREFIX_LENGTH;
+    }
+
+    /**
+     * Parsed file header, with the layout of the segments it describes.
+     */
+    public record Header(int segmentSize, String keyVersion, byte[] salt, byte[] noncePrefix, byte[] encoded) {
+
+        static Header create(String keyVersion, int segmentSize) {
+            if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+                throw new IllegalArgumentException("Segment size out of range: " + segmentSize);
+            }
+            byte[] version = keyVersion.getBytes(StandardCharsets.UTF_8);
+            if (version.length > 255) {
+                throw new IllegalArgumentException("Key version too long: " + keyVersion);
+            }
+            byte[] salt = new byte[SALT_LENGTH];
+            byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+            RANDOM.nextBytes(salt);
+            RANDOM.nextBytes(noncePrefix);
+            ByteBuffer encoded = ByteBuffer.allocate(headerLength(keyVersion))
+                    .put(MAGIC)
+                    .put(FORMAT_VERSION)
+                    .putInt(segmentSize)
+                    .put((byte) version.length)
+                    .put(version)
+                    .put(salt)
+                    .put(noncePrefix);
+            return new Header(segmentSize, keyVersion, salt, noncePrefix, encoded.array());
+        }
+
+        /**
+         * @return length of the header at the start of {@code data}, or -1 if more than
+         *         {@code length} bytes are needed to tell
+         */
+        static int encodedLength(byte[] data, int length) {
+            if (!startsLikeHeader(data, length)) {
+                throw new IllegalArgumentException("Invalid encrypted file: not a segmented file");
+            }
+            if (length < FIXED_HEADER_LENGTH) {
+                return -1;
+            }
+            return FIXED_HEADER_LENGTH + (data[FIXED_HEADER_LENGTH - 1] & 0xFF) + SALT_LENGTH + NONCE_PREFIX_LENGTH;
+        }
+
+        /**
+         * @return false if the first {@code length} bytes of {@code data} cannot start a header
+         */
+        static boolean startsLikeHeader(byte[] data, int length) {
+            int known = Math.min(length, MAGIC.length + 1);
+            for (int i = 0; i < known; i++) {
+                if (data[i] != (i < MAGIC.length ? MAGIC[i] : FORMAT_VERSION)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public static Header parse(byte[] data) {
+            int length = encodedLength(data, data.length);
+            if (length < 0 || data.length < length) {
+                throw new IllegalArgumentException("Invalid encrypted file: incomplete header");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+            buffer.position(MAGIC.length + 1);
+            int segmentSize = buffer.getInt();
+            if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE) {
+                throw new IllegalArgumentException("Invalid encrypted file: segment size " + segmentSize);
+            }
+            byte[] version = new byte[buffer.get() & 0xFF];
+            buffer.get(version);
+            byte[] salt = new byte[SALT_LENGTH];
+            buffer.get(salt);
+            byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+            buffer.get(noncePrefix);
+            return new Header(segmentSize, new String(version, StandardCharsets.UTF_8), salt, noncePrefix,
+                    Arrays.copyOf(data, length));
+        }
+
+        public int length() {
+            return encoded.length;
+        }
+
+        /**
+         * @return encrypted size of a full segment
+         */
+        public int encryptedSegmentSize() {
+            return segmentSize + TAG_LENGTH;
+        }
+
+        /**
+         * @return number of segments in an encrypted file of {@code encryptedLength} bytes
+         */
+        public long segmentCount(long encryptedLength) {
+            long body = encryptedLength - length();
+            long segments = (body + encryptedSegmentSize() - 1) / encryptedSegmentSize();
+            if (body < TAG_LENGTH || body - (segments - 1) * encryptedSegmentSize() < TAG_LENGTH) {
+                throw new IllegalArgumentException("Invalid encrypted file: truncated segment");
+            }
+            return segments;
+        }
+
+        public long plaintextLength(long encryptedLength) {
+            return encryptedLength - length() - segmentCount(encryptedLength) * TAG_LENGTH;
+        }
+
+        /**
+         * @return offset of segment {@code index} in the encrypted file
+         */
+        public long segmentOffset(long index) {
+            return length() + index * encryptedSegmentSize();
+        }
+    }
+
+    /**
+     * Seals and opens the segments of one file, in any order.
+     */
+    public static final class SegmentCipher {
+
+        private final Header header;
+        private final SecretKey segmentKey;
+        private final Cipher cipher;
+
+        public SegmentCipher(SecretKey key, Header header) {
+            this.header = header;
+            try {
+                Mac hmac = Mac.getInstance("HmacSHA256");
+                hmac.init(new SecretKeySpec(key.getEncoded(), "HmacSHA256"));
+                this.segmentKey = new SecretKeySpec(hmac.doFinal(header.salt()), "AES");
+                this.cipher = Cipher.getInstance(ALGORITHM);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to derive file segment key", e);
+            }
+        }
+
+        public Header header() {
+            return header;
+        }
+
+        public byte[] seal(long index, byte[] plaintext, int offset, int length, boolean last) {
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, segmentKey, nonce(index, last));
+                cipher.updateAAD(header.encoded());
+                return cipher.doFinal(plaintext, offset, length);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to encrypt segment " + index, e);
+            }
+        }
+
+        public byte[] open(long index, byte[] ciphertext, int offset, int length, boolean last) {
+            if (length < TAG_LENGTH || length > header.encryptedSegmentSize()) {
+                throw new IllegalArgumentException("Invalid encrypted file: segment " + index + " has "
+                        + length + " bytes");
+            }
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, segmentKey, nonce(index, last));
+                cipher.updateAAD(header.encoded());
+                return cipher.doFinal(ciphertext, offset, length);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Invalid encrypted file: segment " + index
+                        + " failed authentication", e);
+            }
+        }
+
+        private GCMParameterSpec nonce(long index, boolean last) {
+            if (index < 0 || index > 0xFFFFFFFFL) {
+                throw new IllegalArgumentException("Segment index out of range: " + index);
+            }
+            byte[] nonce = ByteBuffer.allocate(NONCE_PREFIX_LENGTH + 5)
+                    .put(header.noncePrefix())
+                    .putInt((int) index)
+                    .put((byte) (last ? 1 : 0))
+                    .array();
+            return new GCMParameterSpec(TAG_LENGTH * 8, nonce);
+        }
+    }
+
+    /**
+     * Encrypts a file fed in pieces of any size. Not thread-safe.
+     */
+    public static final class StreamEncryptor {
+
+        private final SegmentCipher segments;
+        private final byte[] pending;
+        private int filled;
+        private long nextIndex;
+        private boolean finished;
+
+        public StreamEncryptor(SecretKey key, String keyVersion, int segmentSize) {
+            this.segments = new SegmentCipher(key, Header.create(keyVersion, segmentSize));
+            this.pending = new byte[segmentSize];
+        }
+
+        public byte[] header() {
+            return segments.header().encoded().clone();
+        }
+
+        /**
+         * @return the segments completed by this piece
+         */
+        public List<byte[]> update(byte[] data, int offset, int length) {
+            if (finished) {
+                throw new IllegalStateException("Encryption already finished");
+            }
+            List<byte[]> sealed = new ArrayList<>();
+            int end = offset + length;
+            while (offset < end) {
+                // A full segment is held back until more data shows it is not the last one
+                if (filled == pending.length) {
+                    sealed.add(segments.seal(nextIndex++, pending, 0, filled, false));
+                    filled = 0;
+                }
+                int copied = Math.min(pending.length - filled, end - offset);
+                System.arraycopy(data, offset, pending, filled, copied);
+                filled += copied;
+                offset += copied;
+            }
+            return sealed;
+        }
+
+        /**
+         * @return the final segment
+         */
+        public byte[] finish() {
+            if (finished) {
+                throw new IllegalStateException("Encryption already finished");
+            }
+            finished = true;
+            return segments.seal(nextIndex++, pending, 0, filled, true);
+        }
+    }
+
+    /**
+     * Decrypts a file fed in pieces of any size. Not thread-safe.
+     *
+     * The key version is read from the header, so the key is supplied once the header is in:
+     * when {@link #awaitingKey()} turns true, call {@link #init} before feeding more data.
+     * A file that does not start with a header is taken for the former whole-file format and
+     * collected whole, see {@link #isLegacy()}.
+     */
+    public static final class StreamDecryptor {
+
+        private byte[] pending = new byte[MAX_HEADER_LENGTH];
+        private int filled;
+        private boolean legacy;
+        private Header header;
+        private SegmentCipher segments;
+        private long nextIndex;
+        private final long endIndex;
+        private final long finalIndex;
+        private long skip;
+        private long remaining;
+
+        /**
+         * Reads a whole file from its first byte.
+         */
+        public StreamDecryptor() {
+            this.endIndex = -1;
+            this.finalIndex = -1;
+            this.remaining = Long.MAX_VALUE;
+        }
+
+        private StreamDecryptor(SegmentCipher segments, long firstIndex, long endIndex, long finalIndex, long skip,
+                long remaining) {
+            this.header = segments.header();
+            this.segments = segments;
+            this.pending = new byte[header.encryptedSegmentSize()];
+            this.nextIndex = firstIndex;
+            this.endIndex = endIndex;
+            this.finalIndex = finalIndex;
+            this.skip = skip;
+            this.remaining = remaining;
+        }
+
+        /**
+         * Reads the plaintext bytes {@code [offset, offset + length)} of a file of
+         * {@code encryptedLength} bytes from the encrypted bytes
+         * {@code [range.start(), range.end())}, which the caller fetches and feeds in.
+         */
+        public static StreamDecryptor forRange(SecretKey key, Header header, long encryptedLength, long offset,
+                long length) {
+            long segmentCount = header.segmentCount(encryptedLength);
+            long plaintextLength = header.plaintextLength(encryptedLength);
+            long start = Math.min(Math.max(0, offset), plaintextLength);
+            long end = Math.min(plaintextLength, start + Math.max(0, length));
+            long firstIndex = start / header.segmentSize();
+            long endIndex = end > start ? (end - 1) / header.segmentSize() + 1 : firstIndex;
+            return new StreamDecryptor(new SegmentCipher(key, header), firstIndex, endIndex, segmentCount - 1,
+                    start - firstIndex * header.segmentSize(), end - start);
+        }
+
+        /**
+         * @return encrypted bytes {@code [start, end)} that a {@link #forRange} decryptor needs,
+         *         asked before feeding it
+         */
+        public Range range(long encryptedLength) {
+            long start = header.segmentOffset(nextIndex);
+            long end = Math.min(encryptedLength, header.segmentOffset(endIndex));
+            return new Range(start, Math.max(start, end));
+        }
+
+        public Header header() {
+            return header;
+        }
+
+        public boolean awaitingKey() {
+            return header != null && segments == null;
+        }
+
+        /**
+         * @return whether the data fed so far is a file of the former whole-file format
+         */
+        public boolean isLegacy() {
+            return legacy;
+        }
+
+        public byte[] legacyCiphertext() {
+            if (!legacy) {
+                throw new IllegalStateException("Not a whole-file ciphertext");
+            }
+            return Arrays.copyOf(pending, filled);
+        }
+
+        /**
+         * @return plaintext of the segments already fed in
+         */
+        public List<byte[]> init(SecretKey key) {
+            if (!awaitingKey()) {
+                throw new IllegalStateException("Decryptor is not waiting for a key");
+            }
+            segments = new SegmentCipher(key, header);
+            byte[] body = Arrays.copyOfRange(pending, header.length(), filled);
+            pending = new byte[header.encryptedSegmentSize()];
+            filled = 0;
+            return update(body, 0, body.length);
+        }
+
+        /**
+         * @return plaintext of the segments completed by this piece
+         */
+        public List<byte[]> update(byte[] data, int offset, int length) {
+            List<byte[]> opened = new ArrayList<>();
+            int end = offset + length;
+            while (offset < end) {
+                if (header == null && !legacy) {
+                    offset += readHeader(data, offset, end);
+                    continue;
+                }
+                if (legacy || segments == null) {
+                    // Held until the key is known, or until the whole-file ciphertext is complete
+                    ensureCapacity(filled + end - offset);
+                    System.arraycopy(data, offset, pending, filled, end - offset);
+                    filled += end - offset;
+                    break;
+                }
+                int segmentLength = header.encryptedSegmentSize();
+                if (filled == segmentLength) {
+                    if (finalIndex >= 0) {
+                        throw new IllegalArgumentException("Invalid encrypted file: data after final segment");
+                    }
+                    // Without a known length, a full segment is the final one unless more data arrives
+                    openPending(opened, false);
+                }
+                if (nextIndex == endIndex) {
+                    throw new IllegalArgumentException("Invalid encrypted file: data after requested segments");
+                }
+                int copied = Math.min(segmentLength - filled, end - offset);
+                System.arraycopy(data, offset, pending, filled, copied);
+                filled += copied;
+                offset += copied;
+                if (filled == segmentLength && finalIndex >= 0 && nextIndex != finalIndex) {
+                    openPending(opened, false);
+                }
+            }
+            return opened;
+        }
+
+        /**
+         * @return plaintext of the final segment, or of the last segment of a range
+         */
+        public byte[] finish() {
+            if (legacy) {
+                throw new IllegalStateException("Whole-file ciphertexts are decrypted by the caller");
+            }
+            if (header == null) {
+                throw new IllegalArgumentException("Invalid encrypted file: incomplete header");
+            }
+            if (segments == null) {
+                throw new IllegalStateException("Decryptor is waiting for a key");
+            }
+            List<byte[]> opened = new ArrayList<>(1);
+            if (finalIndex < 0 || filled > 0) {
+                if (filled < TAG_LENGTH) {
+                    throw new IllegalArgumentException("Invalid encrypted file: truncated after segment "
+                            + (nextIndex - 1));
+                }
+                openPending(opened, true);
+            }
+            if (endIndex >= 0 && nextIndex != endIndex) {
+                throw new IllegalArgumentException("Invalid encrypted file: expected segments up to " + endIndex
+                        + ", read up to " + nextIndex);
+            }
+            return opened.isEmpty() ? new byte[0] : opened.get(0);
+        }
+
+        private int readHeader(byte[] data, int offset, int end) {
+            int copied = Math.min(pending.length - filled, end - offset);
+            System.arraycopy(data, offset, pending, filled, copied);
+            filled += copied;
+            if (!Header.startsLikeHeader(pending, filled)) {
+                legacy = true;
+                return copied;
+            }
+            int length = Header.encodedLength(pending, filled);
+            if (length >= 0 && filled >= length) {
+                header = Header.parse(Arrays.copyOf(pending, length));
+            }
+            return copied;
+        }
+
+        private void openPending(List<byte[]> opened, boolean atEnd) {
+            long index = nextIndex++;
+            boolean last = finalIndex < 0 ? atEnd : index == finalIndex;
+            byte[] plaintext = segments.open(index, pending, 0, filled, last);
+            filled = 0;
+            if (skip > 0 || remaining < plaintext.length) {
+                int from = (int) Math.min(skip, plaintext.length);
+                int to = (int) Math.min(plaintext.length, from + remaining);
+                skip -= from;
+                plaintext = Arrays.copyOfRange(plaintext, from, to);
+            }
+            remaining -= plaintext.length;
+            if (plaintext.length > 0) {
+                opened.add(plaintext);
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (pending.length < capacity) {
+                pending = Arrays.copyOf(pending, Math.max(capacity, pending.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Byte range {@code [start, end)} of an encrypted file.
+     */
+    public record Range(long start, long end) {
+
+        public long length() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.lite.gateway.filter;
+
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestBodyCaptureFilterTest {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(new UnpooledByteBufAllocator(false));
+    private final List<NettyDataBuffer> allocated = new ArrayList<>();
+    private RequestBodyCaptureFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RequestBodyCaptureFilter(8);
+    }
+
+    @AfterEach
+    void assertNoLeaks() {
+        for (NettyDataBuffer buffer : allocated) {
+            assertEquals(0, buffer.getNativeBuffer().refCnt(), "request body buffer leaked");
+        }
+    }
+
+    @Test
+    void testBodyIsReplayedAndOnlyPrefixIsCaptured() throws Exception {
+        MockServerWebExchange exchange = exchange(buffer("{\"name\":"), buffer("\"linqra\"}"));
+        AtomicReference<String> forwarded = new AtomicReference<>();
+        GatewayFilterChain chain = e -> DataBufferUtils.join(e.getRequest().getBody())
+                .doOnNext(joined -> {
+                    forwarded.set(joined.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(joined);
+                })
+                .then();
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertEquals("{\"name\":\"linqra\"}", forwarded.get());
+        RequestBodyCaptureFilter.CapturedBody captured = exchange.getAttribute(RequestBodyCaptureFilter.CAPTURED_BODY_ATTR);
+        assertNotNull(captured);
+        assertEquals("{\"name\":", captured.prefix());
+        assertEquals(17, captured.totalBytes());
+        assertTrue(captured.truncated());
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest("{\"name\":\"linqra\"}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(HexFormat.of().formatHex(hash), captured.sha256());
+    }
+
+    @Test
+    void testBodyCanBeReadAgainOnRetry() {
+        MockServerWebExchange exchange = exchange(buffer("retry-me"));
+        List<String> reads = new ArrayList<>();
+        GatewayFilterChain chain = e -> Flux.concat(readBody(e.getRequest().getBody()), readBody(e.getRequest().getBody()))
+                .doOnNext(reads::add)
+                .then();
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertEquals(List.of("retry-me", "retry-me"), reads);
+    }
+
+    @Test
+    void testBuffersAreReleasedWhenDownstreamFails() {
+        MockServerWebExchange exchange = exchange(buffer("a"), buffer("b"));
+        GatewayFilterChain chain = e -> Mono.error(new IllegalStateException("upstream down"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    void testBuffersAreReleasedWhenBodyFailsMidStream() {
+        Flux<DataBuffer> body = Flux.concat(Flux.just(buffer("partial")), Flux.error(new IllegalStateException("reset")));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/orders").body(body));
+        GatewayFilterChain chain = e -> Mono.empty();
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyError(IllegalStateException.class);
+        assertNull(exchange.getAttribute(RequestBodyCaptureFilter.CAPTURED_BODY_ATTR));
+    }
+
+    @Test
+    void testBuffersAreReleasedWhenExchangeIsCancelled() {
+        MockServerWebExchange exchange = exchange(buffer("slow"));
+        GatewayFilterChain chain = e -> Mono.never();
+
+        // Cancel once the body has been read and the chain is waiting on the upstream
+        StepVerifier.create(filter.filter(exchange, chain))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+        assertNotNull(exchange.getAttribute(RequestBodyCaptureFilter.CAPTURED_BODY_ATTR));
+    }
+
+    @Test
+    void testLateBufferAfterReleaseIsReleased() {
+        RequestBodyCaptureFilter.RetainedBody body = new RequestBodyCaptureFilter.RetainedBody(8);
+        body.add(buffer("first"));
+        body.release();
+        body.add(buffer("late"));
+        body.release();
+    }
+
+    @Test
+    void testGetRequestIsNotBuffered() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders"));
+        GatewayFilterChain chain = e -> Mono.empty();
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+        assertNull(exchange.getAttribute(RequestBodyCaptureFilter.CAPTURED_BODY_ATTR));
+    }
+
+    private MockServerWebExchange exchange(DataBuffer... buffers) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/orders").body(Flux.just(buffers)));
+    }
+
+    private NettyDataBuffer buffer(String content) {
+        NettyDataBuffer buffer = bufferFactory.wrap(Unpooled.wrappedBuffer(content.getBytes(StandardCharsets.UTF_8)));
+        allocated.add(buffer);
+        return buffer;
+    }
+
+    private static Mono<String> readBody(Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body).map(joined -> {
+            String content = joined.toString(StandardCharsets.UTF_8);
+            DataBufferUtils.release(joined);
+            return content;
+        });
+    }
+}
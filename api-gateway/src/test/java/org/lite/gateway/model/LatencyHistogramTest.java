@@ -0,0 +1,50 @@
+package org.lite.gateway.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(20, histogram.totalCount());
+        assertEquals(10, histogram.valueAtPercentile(50));
+        assertEquals(19, histogram.valueAtPercentile(95));
+        assertEquals(20, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void testRelativeErrorIsBounded() {
+        for (long value : new long[]{33, 100, 777, 4_096, 65_000, 1_234_567}) {
+            long reported = LatencyHistogram.highestValueFor(LatencyHistogram.indexFor(value));
+            assertTrue(reported >= value, "Reported value should not under-state latency");
+            assertTrue((reported - value) / (double) value < 0.07, "Error too large for " + value);
+        }
+    }
+
+    @Test
+    void testMergeMatchesSingleHistogram() {
+        LatencyHistogram minuteOne = new LatencyHistogram();
+        LatencyHistogram minuteTwo = new LatencyHistogram();
+        LatencyHistogram combined = new LatencyHistogram();
+        for (int i = 0; i < 1000; i++) {
+            long value = (i * 37L) % 2000;
+            (i % 2 == 0 ? minuteOne : minuteTwo).record(value);
+            combined.record(value);
+        }
+
+        LatencyHistogram merged = LatencyHistogram.fromSparseMap(minuteOne.toSparseMap());
+        merged.merge(minuteTwo.toSparseMap());
+
+        assertEquals(combined.totalCount(), merged.totalCount());
+        assertEquals(combined.valueAtPercentile(50), merged.valueAtPercentile(50));
+        assertEquals(combined.valueAtPercentile(95), merged.valueAtPercentile(95));
+        assertEquals(combined.valueAtPercentile(99), merged.valueAtPercentile(99));
+    }
+}
@@ -0,0 +1,110 @@
+package org.lite.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lite.gateway.entity.ApiKey;
+import org.lite.gateway.repository.ApiKeyRepository;
+import org.lite.gateway.service.impl.ApiKeyCredentialCache;
+import org.lite.gateway.service.impl.ApiKeyServiceImpl;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyCredentialCacheTest {
+
+    private static final String RAW_KEY = "lm_0123456789abcdef";
+
+    @Mock
+    private ApiKeyRepository apiKeyRepository;
+    @Mock
+    private CacheService cacheService;
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    private ApiKeyCredentialCache credentialCache;
+    private ApiKeyServiceImpl apiKeyService;
+
+    @BeforeEach
+    void setUp() {
+        credentialCache = new ApiKeyCredentialCache(cacheService, redisTemplate, 100, 60_000, false);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        apiKeyService = new ApiKeyServiceImpl(apiKeyRepository, cacheService, objectMapper, credentialCache);
+    }
+
+    @Test
+    void testSecondValidationIsServedWithoutRedisOrMongo() {
+        ApiKey key = apiKey(null);
+        when(cacheService.get("api_key:" + RAW_KEY)).thenReturn(Mono.empty());
+        when(cacheService.set(anyString(), anyString(), any())).thenReturn(Mono.empty());
+        when(apiKeyRepository.findByKey(RAW_KEY)).thenReturn(Mono.just(key));
+
+        assertSame(key, apiKeyService.validateApiKey(RAW_KEY).block());
+        assertSame(key, apiKeyService.validateApiKey(RAW_KEY).block());
+
+        verify(cacheService, times(1)).get(anyString());
+        verify(apiKeyRepository, times(1)).findByKey(RAW_KEY);
+        assertEquals(1L, credentialCache.getStats().get("hits"));
+    }
+
+    @Test
+    void testRevokePublishesHashAndDropsEntry() {
+        when(cacheService.publish(anyString(), anyString())).thenReturn(Mono.just(1L));
+        credentialCache.put(RAW_KEY, apiKey(null), credentialCache.currentGeneration());
+        assertNotNull(credentialCache.get(RAW_KEY));
+
+        credentialCache.revoke(RAW_KEY).block();
+
+        assertNull(credentialCache.get(RAW_KEY));
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(cacheService).publish(eq(ApiKeyCredentialCache.REVOCATION_TOPIC), message.capture());
+        assertFalse(message.getValue().contains(RAW_KEY), "Raw keys must not be broadcast");
+    }
+
+    @Test
+    void testRemoteRevocationDropsEntryAndBlocksRacingPut() {
+        long generation = credentialCache.currentGeneration();
+        credentialCache.put(RAW_KEY, apiKey(null), generation);
+
+        // Another pod revokes using the hash it published
+        when(cacheService.publish(anyString(), anyString())).thenReturn(Mono.just(1L));
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        new ApiKeyCredentialCache(cacheService, redisTemplate, 100, 60_000, false).revoke(RAW_KEY).block();
+        verify(cacheService).publish(anyString(), message.capture());
+        credentialCache.onRevocation(message.getValue());
+
+        assertNull(credentialCache.get(RAW_KEY));
+        credentialCache.put(RAW_KEY, apiKey(null), generation);
+        assertNull(credentialCache.get(RAW_KEY), "A validation started before the revocation must not re-populate");
+    }
+
+    @Test
+    void testExpiredKeyIsNotServed() {
+        credentialCache.put(RAW_KEY, apiKey(Instant.now().minus(1, ChronoUnit.SECONDS)),
+                credentialCache.currentGeneration());
+
+        assertNull(credentialCache.get(RAW_KEY));
+    }
+
+    private ApiKey apiKey(Instant expiresAt) {
+        ApiKey key = new ApiKey();
+        key.setId("key-1");
+        key.setKey(RAW_KEY);
+        key.setName("name-1");
+        key.setTeamId("team-1");
+        key.setExpiresAt(expiresAt);
+        return key;
+    }
+}
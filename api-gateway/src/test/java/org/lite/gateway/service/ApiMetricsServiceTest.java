@@ -0,0 +1,196 @@
+package org.lite.gateway.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lite.gateway.entity.ApiMetricRollup;
+import org.lite.gateway.repository.ApiMetricRepository;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiMetricsServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 14, 10, 0, 30);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 3, 14, 12, 0, 15);
+    private static final MetricsRollupEngine.RollupWindow WINDOW = new MetricsRollupEngine.RollupWindow(
+            START, START.withSecond(0).plusMinutes(1), END.withSecond(0), END);
+
+    @Mock
+    private ApiMetricRepository apiMetricRepository;
+
+    @Mock
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Mock
+    private MetricsRollupEngine metricsRollupEngine;
+
+    private ApiMetricsService service;
+
+    /**
+     * Pipelines issued against the rollup and raw collections, as Document strings.
+     */
+    private final List<String> rollupPipelines = new ArrayList<>();
+    private final List<String> rawPipelines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new ApiMetricsService(apiMetricRepository, reactiveMongoTemplate, metricsRollupEngine);
+    }
+
+    private static Map<String, Object> row(Object id, long count, long totalDuration, long min, long max,
+                                           long failures) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("_id", id);
+        row.put("count", count);
+        row.put("totalDuration", totalDuration);
+        row.put("minDuration", min);
+        row.put("maxDuration", max);
+        row.put("failureCount", failures);
+        return row;
+    }
+
+    /**
+     * Answers rollup aggregations with {@code rollupRows} and raw aggregations with {@code rawRows}.
+     */
+    private void stubAggregations(List<Map<String, Object>> rollupRows, List<Map<String, Object>> rawRows) {
+        when(reactiveMongoTemplate.aggregate(any(TypedAggregation.class),
+                ArgumentMatchers.<Class<Map<String, Object>>>any()))
+                .thenAnswer(invocation -> {
+                    TypedAggregation<?> aggregation = invocation.getArgument(0);
+                    String pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).stream()
+                            .map(Document::toString)
+                            .toList()
+                            .toString();
+                    if (aggregation.getInputType() == ApiMetricRollup.class) {
+                        rollupPipelines.add(pipeline);
+                        return Flux.fromIterable(rollupRows);
+                    }
+                    rawPipelines.add(pipeline);
+                    return Flux.fromIterable(rawRows);
+                });
+    }
+
+    @Test
+    void testSummaryMergesRollupAndRawTotals() {
+        when(metricsRollupEngine.planWindow(START, END)).thenReturn(Mono.just(Optional.of(WINDOW)));
+        stubAggregations(
+                List.of(row(null, 100, 5_000, 5, 400, 3)),
+                List.of(row(null, 4, 80, 2, 30, 1)));
+
+        Map<String, Object> summary = service.getMetricsSummary(START, END).block();
+
+        assertEquals(104L, summary.get("totalRequests"));
+        assertEquals(5_080L, summary.get("totalDuration"));
+        assertEquals(5_080.0 / 104, (double) summary.get("avgDuration"), 1e-9);
+        assertEquals(2L, summary.get("minDuration"));
+        assertEquals(400L, summary.get("maxDuration"));
+        assertEquals(4L, summary.get("failedRequests"));
+        assertEquals(100L, summary.get("successfulRequests"));
+        assertEquals(0L, summary.get("estimatedRequests"));
+
+        // Rollups cover the minute-aligned middle, raw records the head and tail
+        assertEquals(1, rollupPipelines.size());
+        assertTrue(rollupPipelines.get(0).contains("minute="));
+        assertEquals(1, rawPipelines.size());
+        assertTrue(rawPipelines.get(0).contains("$or="));
+    }
+
+    @Test
+    void testSampledRawRecordsAreWeightedAndReportedAsEstimated() {
+        when(metricsRollupEngine.planWindow(START, END)).thenReturn(Mono.just(Optional.of(WINDOW)));
+        // 3 raw records standing for 12 requests, 9 of them sampled out by the pipeline
+        Map<String, Object> raw = row(null, 12, 240, 2, 30, 4);
+        raw.put("recordCount", 3L);
+        stubAggregations(List.of(row(null, 100, 5_000, 5, 400, 3)), List.of(raw));
+
+        Map<String, Object> summary = service.getMetricsSummary(START, END).block();
+
+        assertEquals(112L, summary.get("totalRequests"));
+        assertEquals(7L, summary.get("failedRequests"));
+        assertEquals(9L, summary.get("estimatedRequests"));
+        assertTrue(rawPipelines.get(0).contains("sampleWeight"));
+    }
+
+    @Test
+    void testServiceInteractionsMergeByServicePair() {
+        when(metricsRollupEngine.planWindow(START, END)).thenReturn(Mono.just(Optional.of(WINDOW)));
+        stubAggregations(
+                List.of(row(Map.of("fromService", "gateway", "toService", "orders"), 50, 500, 1, 40, 2),
+                        row(Map.of("fromService", "gateway", "toService", "payments"), 10, 300, 5, 90, 0)),
+                List.of(row(Map.of("fromService", "gateway", "toService", "payments"), 45, 450, 3, 20, 1)));
+
+        List<Map<String, Object>> rows = service.getServiceInteractions(START, END).collectList().block();
+
+        assertEquals(2, rows.size());
+        // Sorted by merged count: payments (55) before orders (50)
+        assertEquals("payments", rows.get(0).get("toService"));
+        assertEquals("gateway", rows.get(0).get("fromService"));
+        assertEquals(55L, rows.get(0).get("count"));
+        assertEquals(750L, rows.get(0).get("totalDuration"));
+        assertEquals(1L, rows.get(0).get("failureCount"));
+        assertEquals(54L, rows.get(0).get("successCount"));
+        assertEquals("orders", rows.get(1).get("toService"));
+        assertEquals(50L, rows.get(1).get("count"));
+    }
+
+    @Test
+    void testInteractionsByServiceSplitsIncomingAndOutgoing() {
+        when(metricsRollupEngine.planWindow(START, END)).thenReturn(Mono.just(Optional.of(WINDOW)));
+        stubAggregations(List.of(row("gateway", 20, 200, 1, 30, 0)), List.of());
+
+        Map<String, Object> result = service.getServiceInteractionsByService("orders", START, END).block();
+
+        assertEquals("orders", result.get("serviceName"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> incoming = (List<Map<String, Object>>) result.get("incoming");
+        assertEquals(1, incoming.size());
+        assertEquals("gateway", incoming.get(0).get("fromService"));
+        assertEquals(20L, incoming.get(0).get("count"));
+        assertEquals(2, rollupPipelines.size());
+        assertTrue(rollupPipelines.stream().anyMatch(p -> p.contains("toService=orders")));
+        assertTrue(rollupPipelines.stream().anyMatch(p -> p.contains("fromService=orders")));
+    }
+
+    @Test
+    void testSummaryWithoutRollupWindowUsesRawMetrics() {
+        when(metricsRollupEngine.planWindow(START, END)).thenReturn(Mono.just(Optional.empty()));
+        Map<String, Object> raw = new HashMap<>();
+        raw.put("totalRequests", 7);
+        stubAggregations(List.of(), List.of(raw));
+
+        Map<String, Object> summary = service.getMetricsSummary(START, END).block();
+
+        assertEquals(7, summary.get("totalRequests"));
+        assertTrue(rollupPipelines.isEmpty());
+        assertEquals(1, rawPipelines.size());
+    }
+
+    @Test
+    void testEmptySummaryWhenNothingMatches() {
+        when(metricsRollupEngine.planWindow(START, END)).thenReturn(Mono.just(Optional.of(WINDOW)));
+        stubAggregations(List.of(), List.of());
+
+        assertTrue(service.getMetricsSummary(START, END).block().isEmpty());
+        verify(reactiveMongoTemplate, times(2)).aggregate(any(TypedAggregation.class),
+                ArgumentMatchers.<Class<Map<String, Object>>>any());
+    }
+}
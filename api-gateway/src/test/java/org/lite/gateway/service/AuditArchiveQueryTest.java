@@ -0,0 +1,509 @@
+package org.lite.gateway.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.config.StorageProperties;
+import org.lite.gateway.dto.AuditArchiveManifest;
+import org.lite.gateway.dto.StorageObject;
+import org.lite.gateway.entity.AuditLog;
+import org.lite.gateway.enums.AuditEventType;
+import org.lite.gateway.repository.AuditLogRepository;
+import org.lite.gateway.repository.TeamChunkKeyRepository;
+import org.lite.gateway.service.impl.AuditArchivalServiceImpl;
+import org.lite.gateway.service.impl.ChunkEncryptionServiceImpl;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Archives audit logs into a filesystem-backed object store and queries them back. Indexed
+ * archives are compared against a full scan of legacy archives on a generated year of logs,
+ * asserting on results and bytes read; the benchmark group repeats the comparison on a larger
+ * year and prints timings, bytes read and requests.
+ */
+class AuditArchiveQueryTest {
+
+    private static final LocalDateTime YEAR_START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final int USERS = 1000;
+    private static final int RESOURCES = 5000;
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    private Path storeDirectory;
+    private ObjectMapper objectMapper;
+    private StorageProperties storageProperties;
+    private ChunkEncryptionServiceImpl chunkEncryptionService;
+
+    /**
+     * Requests and bytes served by a filesystem-backed store
+     */
+    private static class StoreStats {
+        final AtomicLong downloads = new AtomicLong();
+        final AtomicLong listings = new AtomicLong();
+        final AtomicLong bytesRead = new AtomicLong();
+        volatile boolean failManifestUploads;
+
+        void reset() {
+            downloads.set(0);
+            listings.set(0);
+            bytesRead.set(0);
+        }
+    }
+
+    private record Query(String name, LocalDateTime start, LocalDateTime end, List<AuditEventType> eventTypes,
+            String userId, String resourceId, boolean selective) {
+    }
+
+    private record Run(List<String> eventIds, long millis, long downloads, long listings, long bytesRead) {
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storeDirectory = Files.createTempDirectory("audit-archive-test");
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        storageProperties = new StorageProperties();
+
+        LinqraVaultService vaultService = mock(LinqraVaultService.class);
+        when(vaultService.getSecret("chunk.encryption.master.key"))
+                .thenReturn(Base64.getEncoder().encodeToString(new byte[32]));
+        TeamChunkKeyRepository keyRepository = mock(TeamChunkKeyRepository.class);
+        when(keyRepository.findByTeamIdAndVersion(anyString(), anyString())).thenReturn(Mono.empty());
+        when(keyRepository.findByTeamIdAndIsActiveTrue(anyString())).thenReturn(Mono.empty());
+        AuditService auditService = mock(AuditService.class);
+        when(auditService.logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any())).thenReturn(Mono.empty());
+        UserContextService userContextService = mock(UserContextService.class);
+        when(userContextService.getCurrentUsername()).thenReturn(Mono.just("auditor"));
+        TeamContextService teamContextService = mock(TeamContextService.class);
+        when(teamContextService.getTeamFromContext()).thenReturn(Mono.empty());
+
+        chunkEncryptionService = new ChunkEncryptionServiceImpl(vaultService, keyRepository, auditService,
+                userContextService, teamContextService, new ChunkAccessAuditAggregator(auditService,
+                        userContextService, teamContextService, 60_000, 2_000, 10_000));
+        chunkEncryptionService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(storeDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * An object store keeping each object as a file under {@code root/bucket/key}
+     */
+    private ObjectStorageService storage(Path root, StoreStats stats) {
+        String defaultBucket = storageProperties.getBucketName();
+        ObjectStorageService storage = mock(ObjectStorageService.class);
+        when(storage.uploadFileBytes(anyString(), anyString(), any(byte[].class), anyString(), any()))
+                .thenAnswer(inv -> {
+                    String key = inv.getArgument(1);
+                    if (stats.failManifestUploads && key.contains("/manifests/")) {
+                        return Mono.error(new IOException("Storage unavailable"));
+                    }
+                    return Mono.fromRunnable(() -> write(root.resolve(inv.<String>getArgument(0)).resolve(key),
+                            inv.getArgument(2)));
+                });
+        when(storage.fileExists(anyString(), anyString())).thenAnswer(inv -> Mono.fromCallable(
+                () -> Files.exists(root.resolve(inv.<String>getArgument(0)).resolve(inv.<String>getArgument(1)))));
+        when(storage.downloadFileContent(anyString(), anyString())).thenAnswer(inv -> Mono.fromCallable(
+                () -> read(root.resolve(inv.<String>getArgument(0)).resolve(inv.<String>getArgument(1)), stats)));
+        when(storage.downloadFileContent(anyString())).thenAnswer(inv -> Mono.fromCallable(
+                () -> read(root.resolve(defaultBucket).resolve(inv.<String>getArgument(0)), stats)));
+        when(storage.downloadFileRange(anyString(), anyString(), anyLong(), anyLong())).thenAnswer(inv -> {
+            Path path = root.resolve(inv.<String>getArgument(0)).resolve(inv.<String>getArgument(1));
+            long start = inv.getArgument(2);
+            long endInclusive = inv.getArgument(3);
+            return Mono.fromCallable(() -> readRange(path, start, endInclusive, stats))
+                    .map(DefaultDataBufferFactory.sharedInstance::wrap)
+                    .flux();
+        });
+        when(storage.listFiles(anyString())).thenAnswer(inv -> Mono.fromCallable(
+                () -> list(root.resolve(defaultBucket), inv.getArgument(0), stats)));
+        return storage;
+    }
+
+    private static void write(Path path, byte[] bytes) {
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(path, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] read(Path path, StoreStats stats) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        stats.downloads.incrementAndGet();
+        stats.bytesRead.addAndGet(bytes.length);
+        return bytes;
+    }
+
+    private static byte[] readRange(Path path, long start, long endInclusive, StoreStats stats) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            byte[] bytes = new byte[(int) (Math.min(endInclusive + 1, file.length()) - start)];
+            file.seek(start);
+            file.readFully(bytes);
+            stats.downloads.incrementAndGet();
+            stats.bytesRead.addAndGet(bytes.length);
+            return bytes;
+        }
+    }
+
+    private static List<StorageObject> list(Path bucket, String prefix, StoreStats stats) throws IOException {
+        stats.listings.incrementAndGet();
+        if (!Files.exists(bucket)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(bucket)) {
+            return paths.filter(Files::isRegularFile)
+                    .map(path -> bucket.relativize(path).toString())
+                    .filter(key -> key.startsWith(prefix))
+                    .map(key -> StorageObject.builder().key(key).build())
+                    .toList();
+        }
+    }
+
+    private AuditLogRepository repository(List<List<AuditLog>> runs) {
+        AuditLogRepository repository = mock(AuditLogRepository.class);
+        List<Flux<AuditLog>> results = runs.stream().map(Flux::fromIterable).toList();
+        when(repository.findLogsReadyForArchival(any())).thenReturn(results.get(0),
+                results.subList(1, results.size()).toArray(new Flux[0]));
+        when(repository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+        return repository;
+    }
+
+    private AuditArchivalServiceImpl service(ObjectStorageService storage, AuditLogRepository repository) {
+        return new AuditArchivalServiceImpl(repository, storage, objectMapper, chunkEncryptionService,
+                storageProperties);
+    }
+
+    private static AuditLog auditLog(int n, LocalDateTime timestamp, String teamId, String userId,
+            AuditEventType eventType, String resourceId, String result) {
+        return AuditLog.builder()
+                .eventId("event-" + n)
+                .timestamp(timestamp)
+                .teamId(teamId)
+                .userId(userId)
+                .username(userId)
+                .eventType(eventType)
+                .action("READ")
+                .result(result)
+                .resourceType("DOCUMENT")
+                .resourceId(resourceId)
+                .documentId(resourceId)
+                .build();
+    }
+
+    /**
+     * A year of logs spread evenly over time, 90% of them for team-a
+     */
+    private static List<AuditLog> generateYear(int eventsPerDay) {
+        Random random = new Random(42);
+        int total = 365 * eventsPerDay;
+        long spacingSeconds = 86_400L / eventsPerDay;
+        List<AuditLog> logs = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            int type = random.nextInt(100);
+            AuditEventType eventType = type < 60 ? AuditEventType.DOCUMENT_ACCESSED
+                    : type < 90 ? AuditEventType.CHUNK_DECRYPTED
+                    : type < 99 ? AuditEventType.RAG_QUERY
+                    : AuditEventType.DOCUMENT_DELETED;
+            logs.add(auditLog(i, YEAR_START.plusSeconds(i * spacingSeconds),
+                    random.nextInt(10) == 0 ? "team-b" : "team-a",
+                    "user-" + random.nextInt(USERS),
+                    eventType,
+                    "doc-" + random.nextInt(RESOURCES),
+                    random.nextInt(20) == 0 ? "FAILED" : "SUCCESS"));
+        }
+        return logs;
+    }
+
+    /**
+     * Writes the logs as the gzipped, encrypted NDJSON files archival produced before the
+     * indexed format, one per team and day
+     */
+    private void writeLegacyArchives(Path root, List<AuditLog> logs) throws IOException {
+        Map<String, List<AuditLog>> groups = logs.stream()
+                .collect(Collectors.groupingBy(log -> log.getTimestamp().format(DATE_FORMATTER) + "/"
+                        + log.getTeamId()));
+        for (Map.Entry<String, List<AuditLog>> group : groups.entrySet()) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                for (AuditLog log : group.getValue()) {
+                    gzip.write((objectMapper.writeValueAsString(log) + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            String teamId = group.getValue().get(0).getTeamId();
+            byte[] encrypted = chunkEncryptionService.encryptFile(compressed.toByteArray(), teamId, "v1")
+                    .block(TIMEOUT);
+            write(root.resolve(storageProperties.getBucketName())
+                    .resolve("audit-logs/" + group.getKey() + "/events-20250101000000-v1.json.gz"), encrypted);
+        }
+    }
+
+    private static List<String> expected(List<AuditLog> logs, String teamId, Query query) {
+        return logs.stream()
+                .filter(log -> teamId.equals(log.getTeamId()))
+                .filter(log -> !log.getTimestamp().isBefore(query.start()) && !log.getTimestamp().isAfter(query.end()))
+                .filter(log -> query.eventTypes() == null || query.eventTypes().isEmpty()
+                        || query.eventTypes().contains(log.getEventType()))
+                .filter(log -> query.userId() == null || query.userId().equals(log.getUserId()))
+                .filter(log -> query.resourceId() == null || query.resourceId().equals(log.getResourceId()))
+                .sorted(Comparator.comparing(AuditLog::getTimestamp).reversed())
+                .map(AuditLog::getEventId)
+                .toList();
+    }
+
+    private static Run run(AuditArchivalService service, StoreStats stats, String teamId, Query query) {
+        stats.reset();
+        long start = System.nanoTime();
+        List<String> eventIds = service.queryArchivedLogs(teamId, query.start(), query.end(), query.eventTypes(),
+                        query.userId(), query.resourceId(), null)
+                .map(AuditLog::getEventId)
+                .collectList()
+                .block(TIMEOUT);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new Run(eventIds, millis, stats.downloads.get(), stats.listings.get(), stats.bytesRead.get());
+    }
+
+    @Test
+    void testIndexedQueriesMatchLegacyScanAndReadLess() throws IOException {
+        compareWithLegacyScan(30, false);
+    }
+
+    @Tag("benchmark")
+    @Test
+    void testIndexedQueryCostAgainstLegacyScan() throws IOException {
+        compareWithLegacyScan(300, true);
+    }
+
+    private void compareWithLegacyScan(int eventsPerDay, boolean printTimings) throws IOException {
+        List<AuditLog> year = generateYear(eventsPerDay);
+        StoreStats indexedStats = new StoreStats();
+        AuditArchivalServiceImpl indexed = service(storage(storeDirectory.resolve("indexed"), indexedStats),
+                repository(List.of(year)));
+        long archiveStart = System.nanoTime();
+        assertEquals(year.size(), indexed.archiveLogsBefore(YEAR_START.plusYears(1)).block(TIMEOUT));
+        long archiveMillis = (System.nanoTime() - archiveStart) / 1_000_000;
+
+        StoreStats legacyStats = new StoreStats();
+        writeLegacyArchives(storeDirectory.resolve("legacy"), year);
+        AuditArchivalServiceImpl legacy = service(storage(storeDirectory.resolve("legacy"), legacyStats),
+                repository(List.of(List.of())));
+
+        AuditLog sample = year.stream()
+                .filter(log -> "team-a".equals(log.getTeamId()) && log.getTimestamp().getDayOfYear() == 200)
+                .findFirst()
+                .orElseThrow();
+        LocalDateTime day = sample.getTimestamp().toLocalDate().atStartOfDay();
+        List<Query> queries = List.of(
+                new Query("one user, one day", day, day.plusDays(1).minusNanos(1), null, sample.getUserId(),
+                        null, false),
+                new Query("one user, one year", YEAR_START, YEAR_START.plusYears(1), null, sample.getUserId(),
+                        null, true),
+                new Query("one resource, 90 days", day.minusDays(89), day.plusDays(1).minusNanos(1), null, null,
+                        sample.getResourceId(), true),
+                new Query("rare event type, one month", day.minusDays(29), day.plusDays(1).minusNanos(1),
+                        List.of(AuditEventType.DOCUMENT_DELETED), null, null, false),
+                new Query("all events, one day", day, day.plusDays(1).minusNanos(1), null, null, null, false),
+                new Query("all events, one month", day.minusDays(29), day.plusDays(1).minusNanos(1), null, null,
+                        null, false));
+
+        if (printTimings) {
+            // Warm up both paths before measuring
+            for (Query query : queries) {
+                run(indexed, indexedStats, "team-a", query);
+                run(legacy, legacyStats, "team-a", query);
+            }
+            System.out.printf("Archived %d logs into indexed archives in %d ms%n", year.size(), archiveMillis);
+            System.out.printf("%-28s %8s | %8s %9s %9s %12s | %8s %9s %9s %12s%n", "query", "results", "idx ms",
+                    "idx gets", "idx lists", "idx bytes", "scan ms", "scan gets", "scan lists", "scan bytes");
+        }
+        for (Query query : queries) {
+            List<String> expected = expected(year, "team-a", query);
+            Run indexedRun = run(indexed, indexedStats, "team-a", query);
+            Run legacyRun = run(legacy, legacyStats, "team-a", query);
+            if (printTimings) {
+                System.out.printf("%-28s %8d | %8d %9d %9d %12d | %8d %9d %9d %12d%n", query.name(),
+                        expected.size(), indexedRun.millis(), indexedRun.downloads(), indexedRun.listings(),
+                        indexedRun.bytesRead(), legacyRun.millis(), legacyRun.downloads(), legacyRun.listings(),
+                        legacyRun.bytesRead());
+            }
+
+            assertFalse(expected.isEmpty(), query.name());
+            assertEquals(expected, indexedRun.eventIds(), query.name());
+            assertEquals(expected, legacyRun.eventIds(), query.name());
+            if (query.selective()) {
+                // Archives are per day and one user is active on about a quarter of them, so even
+                // a perfect index reads that share of the days plus the range's monthly manifests
+                assertTrue(indexedRun.bytesRead() < legacyRun.bytesRead() / 2, query.name());
+            }
+        }
+    }
+
+    @Test
+    void testArchivalWritesMonthlyManifestsAndDeletesLogs() throws IOException {
+        List<AuditLog> logs = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            logs.add(auditLog(i, YEAR_START.plusHours(i * 24L + 3), "team-a", "user-" + (i % 5),
+                    AuditEventType.DOCUMENT_ACCESSED, "doc-" + i, "SUCCESS"));
+        }
+        Path root = storeDirectory.resolve("store");
+        AuditLogRepository repository = repository(List.of(logs));
+        AuditArchivalServiceImpl service = service(storage(root, new StoreStats()), repository);
+
+        assertEquals(60, service.archiveLogsBefore(YEAR_START.plusYears(1)).block(TIMEOUT));
+
+        Path manifests = root.resolve(storageProperties.getAuditBucketName()).resolve("audit-logs/manifests/team-a");
+        AuditArchiveManifest january = readManifest(manifests.resolve("2025-01.json.gz"));
+        AuditArchiveManifest february = readManifest(manifests.resolve("2025-02.json.gz"));
+        assertEquals("2025-01", january.getMonth());
+        assertEquals(List.of(), january.getLegacyArchives());
+        assertEquals(31, january.getArchives().size());
+        assertEquals(28, february.getArchives().size());
+        AuditArchiveManifest.Entry first = january.getArchives().get(0);
+        assertEquals(1, first.getEventCount());
+        assertEquals(YEAR_START.plusHours(3), first.getMinTimestamp());
+        assertTrue(first.getKey().startsWith("audit-logs/2025/01/01/team-a/events-"));
+        assertTrue(first.getKey().endsWith("-v1.lqa"));
+        assertEquals(Files.size(root.resolve(storageProperties.getAuditBucketName()).resolve(first.getKey())),
+                first.getStoredLength());
+        verify(repository, times(3)).deleteAll(anyIterable());
+    }
+
+    private AuditArchiveManifest readManifest(Path path) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            return objectMapper.readValue(in, AuditArchiveManifest.class);
+        }
+    }
+
+    @Test
+    void testLegacyArchivesAreRecordedInManifestsAndReadWithoutListing() throws IOException {
+        // Days 1-2 of January were archived by an older version, days 3-4 are archived now
+        List<AuditLog> legacyLogs = new ArrayList<>();
+        List<AuditLog> logs = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            AuditLog log = auditLog(i, YEAR_START.plusHours(i * 2L + 1), "team-a", "user-" + (i % 3),
+                    AuditEventType.DOCUMENT_ACCESSED, "doc-" + i, "SUCCESS");
+            (i < 24 ? legacyLogs : logs).add(log);
+        }
+        Path root = storeDirectory.resolve("store");
+        writeLegacyArchives(root, legacyLogs);
+        StoreStats stats = new StoreStats();
+        AuditArchivalServiceImpl service = service(storage(root, stats), repository(List.of(logs)));
+        assertEquals(16, service.archiveLogsBefore(YEAR_START.plusYears(1)).block(TIMEOUT));
+
+        AuditArchiveManifest january = readManifest(root.resolve(storageProperties.getAuditBucketName())
+                .resolve("audit-logs/manifests/team-a/2025-01.json.gz"));
+        assertEquals(List.of("audit-logs/2025/01/01/team-a/events-20250101000000-v1.json.gz",
+                "audit-logs/2025/01/02/team-a/events-20250101000000-v1.json.gz"), january.getLegacyArchives());
+
+        stats.reset();
+        List<String> all = service.queryArchivedLogs("team-a", YEAR_START, YEAR_START.plusDays(31).minusNanos(1),
+                        null, null, null)
+                .map(AuditLog::getEventId)
+                .collectList()
+                .block(TIMEOUT);
+        assertEquals(expected(Stream.concat(legacyLogs.stream(), logs.stream()).toList(), "team-a",
+                new Query("january", YEAR_START, YEAR_START.plusDays(31), null, null, null, false)), all);
+        assertEquals(0, stats.listings.get());
+
+        // February has no manifest, so its days are still listed
+        stats.reset();
+        assertTrue(service.queryArchivedLogs("team-a", YEAR_START.plusMonths(1), YEAR_START.plusMonths(2)
+                        .minusNanos(1), null, null, null).collectList().block(TIMEOUT).isEmpty());
+        assertEquals(28, stats.listings.get());
+    }
+
+    @Test
+    void testOverlappingArchivesAreMergedNewestFirst() {
+        // Logs of the same day archived in two runs, e.g. because some arrived late
+        List<AuditLog> firstRun = new ArrayList<>();
+        List<AuditLog> secondRun = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            AuditLog log = auditLog(i, YEAR_START.plusMinutes(i), "team-a", "user-" + (i % 3),
+                    AuditEventType.RAG_QUERY, "doc-" + (i % 4), i % 10 == 0 ? "FAILED" : "SUCCESS");
+            (i % 2 == 0 ? firstRun : secondRun).add(log);
+        }
+        secondRun.add(auditLog(100, YEAR_START.plusDays(1), "team-a", "user-0", AuditEventType.RAG_QUERY, "doc-0",
+                "SUCCESS"));
+        AuditArchivalServiceImpl service = service(storage(storeDirectory.resolve("store"), new StoreStats()),
+                repository(List.of(firstRun, secondRun)));
+        assertEquals(50, service.archiveLogsBefore(YEAR_START.plusYears(1)).block(TIMEOUT));
+        assertEquals(51, service.archiveLogsBefore(YEAR_START.plusYears(1)).block(TIMEOUT));
+
+        List<AuditLog> all = service.queryArchivedLogs("team-a", YEAR_START, YEAR_START.plusDays(2), null, null,
+                null).collectList().block(TIMEOUT);
+        assertEquals(101, all.size());
+        assertEquals("event-100", all.get(0).getEventId());
+        for (int i = 1; i < all.size(); i++) {
+            assertEquals("event-" + (100 - i), all.get(i).getEventId());
+        }
+
+        List<String> failed = service.queryArchivedLogs("team-a", YEAR_START, YEAR_START.plusDays(2), null,
+                        "user-1", "failed")
+                .map(AuditLog::getEventId)
+                .collectList()
+                .block(TIMEOUT);
+        assertEquals(List.of("event-70", "event-40", "event-10"), failed);
+
+        assertTrue(service.queryArchivedLogs("team-b", YEAR_START, YEAR_START.plusDays(2), null, null, null)
+                .collectList().block(TIMEOUT).isEmpty());
+    }
+
+    @Test
+    void testFailedManifestUpdateKeepsLogs() {
+        List<AuditLog> logs = List.of(
+                auditLog(1, YEAR_START.plusHours(1), "team-a", "user-1", AuditEventType.DOCUMENT_ACCESSED, "doc-1",
+                        "SUCCESS"),
+                auditLog(2, YEAR_START.plusHours(2), "team-a", "user-2", AuditEventType.DOCUMENT_ACCESSED, "doc-2",
+                        "SUCCESS"));
+        StoreStats stats = new StoreStats();
+        stats.failManifestUploads = true;
+        AuditLogRepository repository = repository(List.of(logs));
+        AuditArchivalServiceImpl service = service(storage(storeDirectory.resolve("store"), stats), repository);
+
+        assertEquals(0, service.archiveLogsBefore(YEAR_START.plusYears(1)).block(TIMEOUT));
+
+        verify(repository, never()).deleteAll(anyIterable());
+        assertTrue(service.queryArchivedLogs("team-a", YEAR_START, YEAR_START.plusDays(1), null, null, null)
+                .collectList().block(TIMEOUT).isEmpty());
+    }
+}
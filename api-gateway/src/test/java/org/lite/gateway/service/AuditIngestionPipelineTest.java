@@ -0,0 +1,407 @@
+package org.lite.gateway.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.entity.AuditLog;
+import org.lite.gateway.enums.AuditEventType;
+import org.lite.gateway.enums.AuditOverflowPolicy;
+import org.lite.gateway.repository.AuditLogRepository;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditIngestionPipelineTest {
+
+    private AuditLogRepository auditLogRepository;
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private Path journalDirectory;
+    private final Map<String, Long> counters = new HashMap<>();
+    private final List<AuditIngestionPipeline> pipelines = new ArrayList<>();
+    private final List<AuditLog> stored = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journalDirectory = Files.createTempDirectory("audit-journal-test");
+        auditLogRepository = mock(AuditLogRepository.class);
+        when(auditLogRepository.findFirstByTeamIdOrderBySequenceDesc(any())).thenReturn(Mono.empty());
+        when(auditLogRepository.insert(anyList())).thenAnswer(inv -> {
+            List<AuditLog> batch = inv.getArgument(0);
+            stored.addAll(batch);
+            return Flux.fromIterable(batch);
+        });
+        reactiveMongoTemplate = counterTemplate(counters);
+    }
+
+    /**
+     * A template holding the audit_sequences counters in {@code counters}, applying $inc and $max
+     * atomically as the store would.
+     */
+    private static ReactiveMongoTemplate counterTemplate(Map<String, Long> counters) {
+        ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+        when(template.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("audit_sequences"))).thenAnswer(inv -> Mono.fromSupplier(() -> {
+                    String team = (String) inv.<Query>getArgument(0).getQueryObject().get("_id");
+                    long count = inv.<UpdateDefinition>getArgument(1).getUpdateObject()
+                            .get("$inc", Document.class).get("value", Number.class).longValue();
+                    synchronized (counters) {
+                        return new Document("_id", team).append("value", counters.merge(team, count, Long::sum));
+                    }
+                }));
+        when(template.upsert(any(Query.class), any(UpdateDefinition.class), eq("audit_sequences")))
+                .thenAnswer(inv -> Mono.fromRunnable(() -> {
+                    String team = (String) inv.<Query>getArgument(0).getQueryObject().get("_id");
+                    long atLeast = inv.<UpdateDefinition>getArgument(1).getUpdateObject()
+                            .get("$max", Document.class).get("value", Number.class).longValue();
+                    synchronized (counters) {
+                        counters.merge(team, atLeast, Math::max);
+                    }
+                }));
+        return template;
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipelines.forEach(AuditIngestionPipeline::shutdown);
+    }
+
+    private AuditIngestionPipeline pipeline(AuditLogRepository repository, int capacity,
+            AuditOverflowPolicy overflowPolicy, int maxRetries) {
+        AuditIngestionPipeline pipeline = new AuditIngestionPipeline(repository, reactiveMongoTemplate, capacity, 100, 1000, 1000, 5000,
+                overflowPolicy, journalDirectory.toString(), false, maxRetries);
+        pipelines.add(pipeline);
+        return pipeline;
+    }
+
+    private static AuditLog event(String teamId, AuditEventType eventType, String eventId) {
+        return AuditLog.builder()
+                .eventId(eventId)
+                .timestamp(LocalDateTime.now())
+                .eventType(eventType)
+                .teamId(teamId)
+                .userId("alice")
+                .action("READ")
+                .result("SUCCESS")
+                .build();
+    }
+
+    private static void submit(AuditIngestionPipeline pipeline, AuditLog auditLog) {
+        pipeline.submit(auditLog).block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Drains until {@code count} events are stored; overflow also schedules drains in the background.
+     */
+    private void awaitStored(AuditIngestionPipeline pipeline, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stored.size() < count && System.currentTimeMillis() < deadline) {
+            pipeline.drain();
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<String> eventIds(List<AuditLog> logs) {
+        return logs.stream().map(AuditLog::getEventId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testDrainWritesOneBulkInsertWithPerTeamSequences() {
+        when(auditLogRepository.findFirstByTeamIdOrderBySequenceDesc("team-a"))
+                .thenReturn(Mono.just(AuditLog.builder().sequence(41L).build()));
+        AuditIngestionPipeline pipeline = pipeline(auditLogRepository, 64, AuditOverflowPolicy.BLOCK, 5);
+
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-1"));
+        submit(pipeline, event("team-b", AuditEventType.DOCUMENT_VIEWED, "b-1"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-2"));
+        verifyNoInteractions(auditLogRepository);
+        pipeline.drain();
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-3"));
+        submit(pipeline, event("team-b", AuditEventType.DOCUMENT_VIEWED, "b-2"));
+        pipeline.drain();
+
+        verify(auditLogRepository, times(2)).insert(anyList());
+        assertEquals(List.of("a-1", "b-1", "a-2", "a-3", "b-2"), eventIds(stored));
+        assertEquals(List.of(42L, 1L, 43L, 44L, 2L),
+                stored.stream().map(AuditLog::getSequence).collect(Collectors.toList()));
+        // Each team's counter is seeded from the store once
+        verify(auditLogRepository, times(1)).findFirstByTeamIdOrderBySequenceDesc("team-a");
+        verify(auditLogRepository, times(1)).findFirstByTeamIdOrderBySequenceDesc("team-b");
+
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(5L, stats.get("enqueued"));
+        assertEquals(5L, stats.get("inserted"));
+        assertEquals(2L, stats.get("batches"));
+        assertEquals(0, stats.get("buffered"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedBatchIsRetriedWithTheSameSequences() {
+        AuditLogRepository failingOnce = mock(AuditLogRepository.class);
+        when(failingOnce.findFirstByTeamIdOrderBySequenceDesc(any())).thenReturn(Mono.empty());
+        when(failingOnce.insert(anyList()))
+                .thenReturn(Flux.error(new IllegalStateException("primary stepped down")))
+                .thenAnswer(inv -> Flux.fromIterable(inv.<List<AuditLog>>getArgument(0)));
+        AuditIngestionPipeline pipeline = pipeline(failingOnce, 64, AuditOverflowPolicy.BLOCK, 5);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-1"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-2"));
+
+        pipeline.drain();
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-3"));
+        pipeline.drain();
+        pipeline.drain();
+
+        ArgumentCaptor<List> batches = ArgumentCaptor.forClass(List.class);
+        verify(failingOnce, times(3)).insert(batches.capture());
+        List<AuditLog> retried = batches.getAllValues().get(1);
+        assertEquals(List.of("a-1", "a-2"), eventIds(retried));
+        assertEquals(List.of(1L, 2L), retried.stream().map(AuditLog::getSequence).collect(Collectors.toList()));
+        assertEquals(1L, pipeline.getStats().get("retries"));
+        assertEquals(3L, pipeline.getStats().get("inserted"));
+    }
+
+    @Test
+    void testAlreadyStoredEventsAreSkipped() {
+        when(auditLogRepository.insert(anyList())).thenReturn(Flux.error(new DuplicateKeyException("E11000")));
+        when(auditLogRepository.insert(any(AuditLog.class))).thenAnswer(inv -> {
+            AuditLog auditLog = inv.getArgument(0);
+            return "a-1".equals(auditLog.getEventId())
+                    ? Mono.error(new DuplicateKeyException("E11000"))
+                    : Mono.just(auditLog);
+        });
+        AuditIngestionPipeline pipeline = pipeline(auditLogRepository, 64, AuditOverflowPolicy.BLOCK, 5);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-1"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-2"));
+
+        pipeline.drain();
+
+        verify(auditLogRepository, times(2)).insert(any(AuditLog.class));
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(1L, stats.get("inserted"));
+        assertEquals(1L, stats.get("duplicatesSkipped"));
+        assertEquals(0L, stats.get("retries"));
+    }
+
+    @Test
+    void testEventWhoseSequenceIsTakenIsNumberedAgain() {
+        // a-1's number was handed out outside the counter, e.g. before the counter was seeded
+        DuplicateKeyException sequenceTaken = new DuplicateKeyException(
+                "E11000 duplicate key error index: team_sequence_unique_idx dup key: { teamId: \"team-a\", sequence: 2 }");
+        when(auditLogRepository.insert(anyList())).thenReturn(Flux.error(sequenceTaken));
+        when(auditLogRepository.insert(any(AuditLog.class))).thenAnswer(inv -> {
+            AuditLog auditLog = inv.getArgument(0);
+            if ("a-1".equals(auditLog.getEventId()) && auditLog.getSequence() == 2L) {
+                return Mono.error(sequenceTaken);
+            }
+            stored.add(auditLog);
+            return Mono.just(auditLog);
+        });
+        AuditIngestionPipeline pipeline = pipeline(auditLogRepository, 64, AuditOverflowPolicy.BLOCK, 5);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-0"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-1"));
+
+        pipeline.drain();
+
+        assertEquals(List.of("a-0", "a-1"), eventIds(stored));
+        assertEquals(List.of(1L, 3L), stored.stream().map(AuditLog::getSequence).collect(Collectors.toList()));
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(2L, stats.get("inserted"));
+        assertEquals(0L, stats.get("duplicatesSkipped"));
+        assertEquals(1L, stats.get("sequenceConflicts"));
+    }
+
+    @Test
+    void testInstancesWritingTheSameTeamNeverShareASequence() throws InterruptedException {
+        when(auditLogRepository.findFirstByTeamIdOrderBySequenceDesc("team-a"))
+                .thenReturn(Mono.just(AuditLog.builder().sequence(10L).build()));
+        AuditIngestionPipeline first = pipeline(auditLogRepository, 64, AuditOverflowPolicy.BLOCK, 5);
+        AuditIngestionPipeline second = pipeline(auditLogRepository, 64, AuditOverflowPolicy.BLOCK, 5);
+
+        Thread other = new Thread(() -> {
+            for (int i = 0; i < 50; i++) {
+                submit(second, event("team-a", AuditEventType.DOCUMENT_VIEWED, "second-" + i));
+                second.drain();
+            }
+        });
+        other.start();
+        for (int i = 0; i < 50; i++) {
+            submit(first, event("team-a", AuditEventType.DOCUMENT_VIEWED, "first-" + i));
+            first.drain();
+        }
+        other.join();
+
+        List<Long> sequences = stored.stream().map(AuditLog::getSequence).sorted().collect(Collectors.toList());
+        assertEquals(100, new HashSet<>(sequences).size());
+        assertEquals(11L, sequences.get(0));
+        assertEquals(110L, sequences.get(sequences.size() - 1));
+    }
+
+    @Test
+    void testSpilledEventsSurviveACrash() {
+        // The store is down, so the first instance can neither number, write nor commit anything
+        AuditLogRepository unavailable = mock(AuditLogRepository.class);
+        when(unavailable.findFirstByTeamIdOrderBySequenceDesc(any())).thenReturn(Mono.empty());
+        when(unavailable.insert(anyList())).thenReturn(Flux.error(new IllegalStateException("no primary")));
+        ReactiveMongoTemplate unavailableTemplate = mock(ReactiveMongoTemplate.class);
+        when(unavailableTemplate.upsert(any(Query.class), any(UpdateDefinition.class), anyString()))
+                .thenReturn(Mono.error(new IllegalStateException("no primary")));
+        when(unavailableTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Document.class), anyString()))
+                .thenReturn(Mono.error(new IllegalStateException("no primary")));
+        AuditIngestionPipeline crashed = new AuditIngestionPipeline(unavailable, unavailableTemplate, 2, 100, 1000, 1000, 5000,
+                AuditOverflowPolicy.SPILL, journalDirectory.toString(), false, 5);
+        for (int i = 0; i < 5; i++) {
+            submit(crashed, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-" + i));
+        }
+        Map<String, Object> stats = crashed.getStats();
+        assertEquals(5L, stats.get("enqueued"));
+        assertEquals(3L, stats.get("spilledEvents"));
+        assertTrue((Long) stats.get("spilledBytes") > 0);
+        assertEquals(3L, stats.get("journalPendingEvents"));
+
+        // Restart without an orderly shutdown of the first instance
+        AuditIngestionPipeline restarted = pipeline(auditLogRepository, 64, AuditOverflowPolicy.SPILL, 5);
+        assertEquals(3L, restarted.getStats().get("journalPendingEvents"));
+        restarted.drain();
+
+        assertEquals(List.of("a-2", "a-3", "a-4"), eventIds(stored));
+        assertEquals(List.of(1L, 2L, 3L), stored.stream().map(AuditLog::getSequence).collect(Collectors.toList()));
+        assertEquals(AuditEventType.DOCUMENT_VIEWED, stored.get(0).getEventType());
+        assertNotNull(stored.get(0).getTimestamp());
+        assertEquals(3L, restarted.getStats().get("replayedFromJournal"));
+        assertEquals(0L, restarted.getStats().get("journalPendingEvents"));
+    }
+
+    @Test
+    void testNewEventsQueueBehindTheJournalBacklog() throws InterruptedException {
+        AuditIngestionPipeline pipeline = pipeline(auditLogRepository, 2, AuditOverflowPolicy.SPILL, 5);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-0"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-1"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-2"));
+
+        // The buffer has room again, but a-3 must not overtake the journaled a-2
+        awaitStored(pipeline, 2);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-3"));
+        awaitStored(pipeline, 4);
+
+        assertEquals(List.of("a-0", "a-1", "a-2", "a-3"), eventIds(stored));
+        assertEquals(List.of(1L, 2L, 3L, 4L), stored.stream().map(AuditLog::getSequence).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testDropLowSeverityShedsProgressEventsOnly() {
+        AuditIngestionPipeline pipeline = pipeline(auditLogRepository, 2, AuditOverflowPolicy.DROP_LOW_SEVERITY, 5);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-0"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-1"));
+
+        submit(pipeline, event("team-a", AuditEventType.LLM_REQUEST_COMPLETED, "a-2"));
+        // Waits for the drainer to make room instead of being dropped
+        submit(pipeline, event("team-a", AuditEventType.ACCESS_DENIED, "a-3"));
+
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(1L, stats.get("droppedLowSeverity"));
+        assertEquals(1L, stats.get("dropped"));
+        assertEquals(3L, stats.get("enqueued"));
+        assertTrue(AuditIngestionPipeline.isLowSeverity(event("team-a", AuditEventType.TOOL_EXECUTION_STARTED, "x")));
+        AuditLog failedTool = event("team-a", AuditEventType.TOOL_EXECUTION_COMPLETED, "y");
+        failedTool.setResult("FAILED");
+        assertFalse(AuditIngestionPipeline.isLowSeverity(failedTool));
+        assertFalse(AuditIngestionPipeline.isLowSeverity(event("team-a", AuditEventType.KEY_ROTATION_STARTED, "z")));
+    }
+
+    @Test
+    void testShutdownWritesBufferedEvents() {
+        AuditIngestionPipeline pipeline = new AuditIngestionPipeline(auditLogRepository, reactiveMongoTemplate, 64, 100, 1000, 1000, 5000,
+                AuditOverflowPolicy.BLOCK, journalDirectory.toString(), false, 5);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-0"));
+        submit(pipeline, event("team-b", AuditEventType.DOCUMENT_VIEWED, "b-0"));
+
+        pipeline.shutdown();
+
+        assertEquals(List.of("a-0", "b-0"), eventIds(stored));
+        assertEquals(2L, pipeline.getStats().get("inserted"));
+    }
+
+    /**
+     * A full BLOCK pipeline (capacity 1 rounds up to 2) whose first bulk insert waits for {@code gate}.
+     */
+    private AuditIngestionPipeline stalledBlockingPipeline(String journal, Sinks.Empty<Void> gate) {
+        when(auditLogRepository.insert(anyList())).thenAnswer(inv -> {
+            List<AuditLog> batch = inv.getArgument(0);
+            return gate.asMono().thenMany(Flux.defer(() -> {
+                stored.addAll(batch);
+                return Flux.fromIterable(batch);
+            }));
+        });
+        AuditIngestionPipeline pipeline = new AuditIngestionPipeline(auditLogRepository, reactiveMongoTemplate, 1, 100, 1000, 10000, 20,
+                AuditOverflowPolicy.BLOCK, journal, false, 5);
+        pipelines.add(pipeline);
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-0"));
+        pipeline.drain();
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-1"));
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-2"));
+        return pipeline;
+    }
+
+    @Test
+    void testBlockJournalsEventsAfterTheOfferTimeout() throws InterruptedException {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        AuditIngestionPipeline pipeline = stalledBlockingPipeline(journalDirectory.toString(), gate);
+
+        submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-3"));
+
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(1L, stats.get("offerTimeouts"));
+        assertEquals(1L, stats.get("spilledEvents"));
+        assertEquals(0L, stats.get("dropped"));
+
+        gate.tryEmitEmpty();
+        awaitStored(pipeline, 4);
+        assertEquals(List.of("a-0", "a-1", "a-2", "a-3"), eventIds(stored));
+    }
+
+    @Test
+    void testBlockWithoutJournalSignalsTheFullBuffer() throws IOException {
+        // A file where the journal directory should be, so the journal cannot be opened
+        Path notADirectory = Files.createFile(journalDirectory.resolve("journal"));
+        Sinks.Empty<Void> gate = Sinks.empty();
+        AuditIngestionPipeline pipeline = stalledBlockingPipeline(notADirectory.toString(), gate);
+
+        assertThrows(IllegalStateException.class,
+                () -> submit(pipeline, event("team-a", AuditEventType.DOCUMENT_VIEWED, "a-3")));
+        assertEquals(1L, pipeline.getStats().get("failed"));
+        gate.tryEmitEmpty();
+    }
+
+    @Test
+    void testJournalDirectoryMustBeAnAbsolutePath() {
+        assertThrows(IllegalStateException.class, () -> new AuditIngestionPipeline(auditLogRepository, reactiveMongoTemplate, 64, 100,
+                1000, 1000, 5000, AuditOverflowPolicy.BLOCK, "data/audit-journal", false, 5));
+        assertThrows(IllegalStateException.class, () -> new AuditIngestionPipeline(auditLogRepository, reactiveMongoTemplate, 64, 100,
+                1000, 1000, 5000, AuditOverflowPolicy.BLOCK, "", false, 5));
+    }
+}
@@ -0,0 +1,188 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.entity.AuditLog;
+import org.lite.gateway.enums.AuditEventType;
+import org.lite.gateway.filter.ServerWebExchangeContextFilter;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChunkAccessAuditAggregatorTest {
+
+    private static final long LATER = System.currentTimeMillis() + 3_600_000;
+
+    private AuditService auditService;
+    private UserContextService userContextService;
+    private TeamContextService teamContextService;
+    private ChunkAccessAuditAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        auditService = mock(AuditService.class);
+        when(auditService.logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any())).thenReturn(Mono.empty());
+        userContextService = mock(UserContextService.class);
+        when(userContextService.getCurrentUsername()).thenReturn(Mono.just("alice"));
+        teamContextService = mock(TeamContextService.class);
+        when(teamContextService.getTeamFromContext()).thenReturn(Mono.just("team-a"));
+        aggregator = new ChunkAccessAuditAggregator(auditService, userContextService, teamContextService, 60_000,
+                2_000, 100);
+    }
+
+    private static ServerWebExchange exchange(String requestId) {
+        ServerHttpRequest request = mock(ServerHttpRequest.class);
+        when(request.getId()).thenReturn(requestId);
+        ServerWebExchange exchange = mock(ServerWebExchange.class);
+        when(exchange.getRequest()).thenReturn(request);
+        return exchange;
+    }
+
+    private void record(ServerWebExchange exchange, ChunkAccessAuditAggregator.ChunkAccess access) {
+        aggregator.record(access)
+                .contextWrite(ctx -> ctx.put(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_KEY, exchange))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static ChunkAccessAuditAggregator.ChunkAccess chunk(String documentId, int index, String keyVersion) {
+        return new ChunkAccessAuditAggregator.ChunkAccess("team-a", "kh_docs", documentId, "chunk-" + index, index,
+                keyVersion, true, null);
+    }
+
+    private AuditLog.AuditMetadata verifySummary(AuditEventType eventType, String documentId, String result) {
+        ArgumentCaptor<AuditLog.AuditMetadata> metadata = ArgumentCaptor.forClass(AuditLog.AuditMetadata.class);
+        verify(auditService).logEvent(eq("alice"), eq("alice"), eq("team-a"), isNull(), isNull(), eq(eventType),
+                eq("READ"), eq("CHUNK"), isNull(), eq(documentId), isNull(), eq(result), metadata.capture(),
+                isNull());
+        return metadata.getValue();
+    }
+
+    @Test
+    void testOneSummaryPerRequest() {
+        ServerWebExchange exchange = exchange("req-1");
+        for (int i = 0; i < 50; i++) {
+            record(exchange, chunk("doc-1", i < 40 ? i : i + 10, i % 2 == 0 ? "v1" : "v2"));
+        }
+        verifyNoInteractions(auditService);
+
+        aggregator.flushExpired(LATER);
+
+        Map<String, Object> context = verifySummary(AuditEventType.CHUNK_DECRYPTED, "doc-1", "SUCCESS").getContext();
+        assertEquals("req-1", context.get("requestId"));
+        assertEquals("kh_docs", context.get("collectionName"));
+        assertEquals(50, context.get("chunkCount"));
+        assertEquals(0, context.get("failedCount"));
+        assertEquals(List.of("v1", "v2"), context.get("keyVersions"));
+        assertEquals("0-39,50-59", context.get("chunkIndexRanges"));
+        // The caller is resolved once for the whole request
+        verify(userContextService, times(1)).getCurrentUsername();
+        verify(teamContextService, times(1)).getTeamFromContext();
+        assertEquals(0, aggregator.getStats().get("openRequests"));
+    }
+
+    @Test
+    void testSummariesAreSplitByRequestAndDocument() {
+        ServerWebExchange first = exchange("req-1");
+        ServerWebExchange second = exchange("req-2");
+        record(first, chunk("doc-1", 0, "v1"));
+        record(first, chunk("doc-2", 0, "v1"));
+        record(second, chunk("doc-1", 1, "v1"));
+
+        aggregator.flushExpired(LATER);
+
+        verify(auditService, times(2)).logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                eq("doc-1"), any(), any(), any(), any());
+        verify(auditService, times(1)).logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                eq("doc-2"), any(), any(), any(), any());
+        assertEquals(3L, aggregator.getStats().get("summaries"));
+    }
+
+    @Test
+    void testOpenSummaryIsNotWrittenBeforeItExpires() {
+        record(exchange("req-1"), chunk("doc-1", 0, "v1"));
+
+        aggregator.flushExpired(System.currentTimeMillis());
+
+        verifyNoInteractions(auditService);
+        assertEquals(1, aggregator.getStats().get("openSummaries"));
+    }
+
+    @Test
+    void testFullSummaryIsWrittenEarly() {
+        ServerWebExchange exchange = exchange("req-1");
+        for (int i = 0; i < 150; i++) {
+            record(exchange, chunk("doc-1", i, "v1"));
+        }
+
+        Map<String, Object> context = verifySummary(AuditEventType.CHUNK_DECRYPTED, "doc-1", "SUCCESS").getContext();
+        assertEquals(100, context.get("chunkCount"));
+        assertEquals("0-99", context.get("chunkIndexRanges"));
+        assertEquals(1, aggregator.getStats().get("openSummaries"));
+    }
+
+    @Test
+    void testFailureMarksTheSummaryFailed() {
+        ServerWebExchange exchange = exchange("req-1");
+        record(exchange, chunk("doc-1", 0, "v1"));
+        record(exchange, new ChunkAccessAuditAggregator.ChunkAccess("team-a", "kh_docs", "doc-1", "chunk-1", 1, "v9",
+                false, "Encryption key not found: v9"));
+
+        aggregator.flushExpired(LATER);
+
+        AuditLog.AuditMetadata metadata = verifySummary(AuditEventType.DECRYPTION_FAILED, "doc-1", "FAILED");
+        assertEquals(1, metadata.getContext().get("decryptedCount"));
+        assertEquals(1, metadata.getContext().get("failedCount"));
+        assertEquals("Encryption key not found: v9", metadata.getErrorMessage());
+    }
+
+    @Test
+    void testChunkIdDigestVerifiesTheAccessedSet() throws Exception {
+        ServerWebExchange exchange = exchange("req-1");
+        record(exchange, chunk("doc-1", 2, "v1"));
+        record(exchange, chunk("doc-1", 1, "v1"));
+
+        aggregator.flushExpired(LATER);
+
+        Map<String, Object> context = verifySummary(AuditEventType.CHUNK_DECRYPTED, "doc-1", "SUCCESS").getContext();
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest("chunk-1\nchunk-2\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(expected, context.get("chunkIdsSha256"));
+        assertEquals(expected, ChunkAccessAuditAggregator.chunkIdsDigest(List.of("chunk-2", "chunk-1")));
+        assertNotEquals(expected, ChunkAccessAuditAggregator.chunkIdsDigest(List.of("chunk-1", "chunk-3")));
+        assertEquals("chunk-1", context.get("firstChunkId"));
+        assertEquals("chunk-2", context.get("lastChunkId"));
+    }
+
+    @Test
+    void testIndexRanges() {
+        assertEquals("", ChunkAccessAuditAggregator.indexRanges(List.of()));
+        assertEquals("4", ChunkAccessAuditAggregator.indexRanges(List.of(4)));
+        assertEquals("0-2,5,7-8", ChunkAccessAuditAggregator.indexRanges(List.of(8, 0, 1, 2, 5, 7, 1)));
+    }
+
+    @Test
+    void testShutdownWritesOpenSummaries() {
+        record(exchange("req-1"), chunk("doc-1", 0, "v1"));
+        aggregator.record(ChunkAccessAuditAggregator.ChunkAccess.of("team-a", "v1", true, null))
+                .block(Duration.ofSeconds(5));
+
+        aggregator.shutdown();
+
+        verify(auditService, times(2)).logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any());
+        assertEquals(0, aggregator.getStats().get("openSummaries"));
+    }
+}
@@ -0,0 +1,135 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.dto.ChunkDecryptionRequest;
+import org.lite.gateway.dto.ChunkDecryptionResult;
+import org.lite.gateway.entity.AuditLog;
+import org.lite.gateway.enums.AuditEventType;
+import org.lite.gateway.repository.TeamChunkKeyRepository;
+import org.lite.gateway.service.impl.ChunkEncryptionServiceImpl;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChunkEncryptionBatchDecryptionTest {
+
+    private TeamChunkKeyRepository keyRepository;
+    private AuditService auditService;
+    private ChunkAccessAuditAggregator aggregator;
+    private ChunkEncryptionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        LinqraVaultService vaultService = mock(LinqraVaultService.class);
+        when(vaultService.getSecret("chunk.encryption.master.key"))
+                .thenReturn(Base64.getEncoder().encodeToString(new byte[32]));
+        keyRepository = mock(TeamChunkKeyRepository.class);
+        when(keyRepository.findByTeamIdAndVersion(anyString(), anyString())).thenReturn(Mono.empty());
+        auditService = mock(AuditService.class);
+        when(auditService.logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any())).thenReturn(Mono.empty());
+        UserContextService userContextService = mock(UserContextService.class);
+        when(userContextService.getCurrentUsername()).thenReturn(Mono.just("alice"));
+        TeamContextService teamContextService = mock(TeamContextService.class);
+        when(teamContextService.getTeamFromContext()).thenReturn(Mono.empty());
+
+        aggregator = new ChunkAccessAuditAggregator(auditService, userContextService, teamContextService, 60_000,
+                2_000, 10_000);
+        service = new ChunkEncryptionServiceImpl(vaultService, keyRepository, auditService, userContextService,
+                teamContextService, aggregator);
+        service.init();
+    }
+
+    private String encrypt(String plaintext, String teamId) {
+        return service.encryptChunkText(plaintext, teamId, "v1").block(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testBatchKeepsOrderAcrossTeamsAndSlices() {
+        List<ChunkDecryptionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String teamId = i % 3 == 0 ? "team-a" : "team-b";
+            requests.add(ChunkDecryptionRequest.of(encrypt("chunk " + i, teamId), teamId, i % 2 == 0 ? "v1" : null));
+        }
+
+        List<ChunkDecryptionResult> results = service.decryptChunkTexts(requests, "kh_docs")
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(results.get(i).isDecrypted(), "row " + i + ": " + results.get(i).getError());
+            assertEquals("chunk " + i, results.get(i).getText());
+        }
+        // Blank key versions are read as legacy v1, so each team's key is resolved once
+        verify(keyRepository, never()).findByTeamIdAndVersion(anyString(), anyString());
+    }
+
+    @Test
+    void testFailuresAreReportedPerEntryAndAuditedOncePerBatch() {
+        List<ChunkDecryptionRequest> requests = List.of(
+                ChunkDecryptionRequest.of(encrypt("first", "team-a"), "team-a", "v1"),
+                ChunkDecryptionRequest.of("", "team-a", "v1"),
+                ChunkDecryptionRequest.of(encrypt("wrong team", "team-a"), "team-b", "v1"),
+                ChunkDecryptionRequest.of(encrypt("missing key", "team-a"), "team-a", "v7"));
+
+        List<ChunkDecryptionResult> results = service.decryptChunkTexts(requests, "kh_docs")
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("first", results.get(0).getText());
+        assertEquals("", results.get(1).getText());
+        assertFalse(results.get(2).isDecrypted());
+        assertFalse(results.get(3).isDecrypted());
+        assertTrue(results.get(3).getError().contains("v7"));
+
+        ArgumentCaptor<AuditLog.AuditMetadata> metadata = ArgumentCaptor.forClass(AuditLog.AuditMetadata.class);
+        verify(auditService, times(1)).logEvent(eq("alice"), eq("alice"), eq("team-a"), isNull(), isNull(),
+                eq(AuditEventType.DECRYPTION_FAILED), eq("READ"), eq("CHUNK"), isNull(), isNull(), isNull(),
+                eq("FAILED"), metadata.capture(), isNull());
+        Map<String, Object> context = metadata.getValue().getContext();
+        assertEquals(3, context.get("chunkCount"));
+        assertEquals(1, context.get("decryptedCount"));
+        assertEquals(2, context.get("failedCount"));
+        assertEquals(List.of("v1", "v7"), context.get("keyVersions"));
+    }
+
+    @Test
+    void testChunkDecryptionIsAuditedWithItsDocumentAndChunk() {
+        String first = encrypt("first", "team-a");
+        String second = encrypt("second", "team-a");
+
+        assertEquals("first", service.decryptChunkText(first, "team-a", "v1", "doc-1", "chunk-a", 0)
+                .block(Duration.ofSeconds(5)));
+        assertEquals("second", service.decryptChunkText(second, "team-a", "v1", "doc-1", "chunk-b", 1)
+                .block(Duration.ofSeconds(5)));
+        aggregator.shutdown();
+
+        ArgumentCaptor<AuditLog.AuditMetadata> metadata = ArgumentCaptor.forClass(AuditLog.AuditMetadata.class);
+        verify(auditService, times(1)).logEvent(eq("alice"), eq("alice"), eq("team-a"), isNull(), isNull(),
+                eq(AuditEventType.CHUNK_DECRYPTED), eq("READ"), eq("CHUNK"), isNull(), eq("doc-1"), isNull(),
+                eq("SUCCESS"), metadata.capture(), isNull());
+        Map<String, Object> context = metadata.getValue().getContext();
+        assertEquals(2, context.get("chunkCount"));
+        assertEquals("0-1", context.get("chunkIndexRanges"));
+        assertEquals("chunk-a", context.get("firstChunkId"));
+        assertEquals("chunk-b", context.get("lastChunkId"));
+    }
+
+    @Test
+    void testEmptyBatchIsNotAudited() {
+        List<ChunkDecryptionResult> results = service.decryptChunkTexts(
+                List.of(ChunkDecryptionRequest.of("", "team-a", "v1")), "kh_docs").block(Duration.ofSeconds(5));
+
+        assertEquals(1, results.size());
+        verifyNoInteractions(auditService);
+    }
+}
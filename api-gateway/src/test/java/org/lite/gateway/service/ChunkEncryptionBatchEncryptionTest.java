@@ -0,0 +1,215 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.dto.ChunkDecryptionRequest;
+import org.lite.gateway.dto.ChunkDecryptionResult;
+import org.lite.gateway.repository.TeamChunkKeyRepository;
+import org.lite.gateway.service.impl.ChunkEncryptionServiceImpl;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Batch encryption of chunk texts, and a comparison of the pooled cipher path against the
+ * former implementation, which created a {@link Cipher} for every operation. Timings are
+ * printed, not asserted, and only measured in the benchmark group.
+ */
+class ChunkEncryptionBatchEncryptionTest {
+
+    private static final byte[] MASTER_KEY = new byte[32];
+    private static final int[] PAYLOAD_SIZES = { 200, 4 * 1024, 64 * 1024 };
+    private static final int BATCH_SIZE = 64;
+
+    private ChunkEncryptionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        LinqraVaultService vaultService = mock(LinqraVaultService.class);
+        when(vaultService.getSecret("chunk.encryption.master.key"))
+                .thenReturn(Base64.getEncoder().encodeToString(MASTER_KEY));
+        TeamChunkKeyRepository keyRepository = mock(TeamChunkKeyRepository.class);
+        when(keyRepository.findByTeamIdAndVersion(anyString(), anyString())).thenReturn(Mono.empty());
+        AuditService auditService = mock(AuditService.class);
+        when(auditService.logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any())).thenReturn(Mono.empty());
+        UserContextService userContextService = mock(UserContextService.class);
+        when(userContextService.getCurrentUsername()).thenReturn(Mono.just("alice"));
+        TeamContextService teamContextService = mock(TeamContextService.class);
+        when(teamContextService.getTeamFromContext()).thenReturn(Mono.empty());
+
+        service = new ChunkEncryptionServiceImpl(vaultService, keyRepository, auditService, userContextService,
+                teamContextService, new ChunkAccessAuditAggregator(auditService, userContextService,
+                        teamContextService, 60_000, 2_000, 10_000));
+        service.init();
+    }
+
+    @Test
+    void testBatchEncryptionRoundTripsInOrder() {
+        List<String> plaintexts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            plaintexts.add(i % 10 == 0 ? "" : "chunk " + i);
+        }
+        plaintexts.add(null);
+
+        List<String> encrypted = service.encryptChunkTexts(plaintexts, "team-a", "v1").block(Duration.ofSeconds(5));
+
+        assertEquals(plaintexts.size(), encrypted.size());
+        assertEquals("", encrypted.get(0));
+        assertNull(encrypted.get(100));
+        for (int i = 1; i < 100; i++) {
+            if (i % 10 != 0) {
+                assertEquals(plaintexts.get(i), service.decryptChunkText(encrypted.get(i), "team-a", "v1", false)
+                        .block(Duration.ofSeconds(5)));
+            }
+        }
+    }
+
+    @Test
+    void testEveryEncryptionUsesAFreshIv() throws Exception {
+        List<String> encrypted = service.encryptChunkTexts(List.of("same", "same", "same"), "team-a", "v1")
+                .block(Duration.ofSeconds(5));
+        String single = service.encryptChunkText("same", "team-a", "v1").block(Duration.ofSeconds(5));
+
+        List<String> ivs = new ArrayList<>();
+        for (String ciphertext : List.of(encrypted.get(0), encrypted.get(1), encrypted.get(2), single)) {
+            ivs.add(Base64.getEncoder().encodeToString(Arrays.copyOf(Base64.getDecoder().decode(ciphertext), 12)));
+        }
+        assertEquals(4, ivs.stream().distinct().count());
+        // The format is unchanged, so the former implementation can still read it
+        assertEquals("same", formerDecrypt(legacyKey("team-a"), single));
+    }
+
+    @Test
+    void testFileEncryptionRoundTrip() {
+        byte[] file = new byte[100_000];
+        new Random(7).nextBytes(file);
+
+        byte[] encrypted = service.encryptFile(file, "team-a", "v1").block(Duration.ofSeconds(5));
+        byte[] decrypted = service.decryptFile(encrypted, "team-a", "v1").block(Duration.ofSeconds(5));
+
+        assertEquals(file.length + 12 + 16, encrypted.length);
+        assertArrayEquals(file, decrypted);
+    }
+
+    @Tag("benchmark")
+    @Test
+    void testCipherPoolingThroughput() throws Exception {
+        SecretKey key = legacyKey("team-a");
+        Random random = new Random(42);
+        for (int size : PAYLOAD_SIZES) {
+            List<String> batch = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(randomText(random, size));
+            }
+            int iterations = Math.max(2, 20_000 / (size / 200) / BATCH_SIZE);
+
+            // Warm up each path before measuring it
+            for (int round = 0; round < 2; round++) {
+                long formerEncrypt = time(iterations, () -> {
+                    for (String text : batch) {
+                        formerEncrypt(key, text);
+                    }
+                });
+                long singleEncrypt = time(iterations, () -> {
+                    for (String text : batch) {
+                        service.encryptChunkText(text, "team-a", "v1").block();
+                    }
+                });
+                long batchEncrypt = time(iterations,
+                        () -> service.encryptChunkTexts(batch, "team-a", "v1").block());
+
+                List<String> encrypted = service.encryptChunkTexts(batch, "team-a", "v1").block();
+                List<ChunkDecryptionRequest> requests = encrypted.stream()
+                        .map(text -> ChunkDecryptionRequest.of(text, "team-a", "v1"))
+                        .toList();
+                long formerDecrypt = time(iterations, () -> {
+                    for (String text : encrypted) {
+                        formerDecrypt(key, text);
+                    }
+                });
+                long singleDecrypt = time(iterations, () -> {
+                    for (String text : encrypted) {
+                        service.decryptChunkText(text, "team-a", "v1", false).block();
+                    }
+                });
+                long batchDecrypt = time(iterations, () -> service.decryptChunkTexts(requests, "kh_docs").block());
+
+                if (round == 1) {
+                    long ops = (long) iterations * BATCH_SIZE;
+                    System.out.printf("%6d B encrypt ns/op: former %d, pooled single %d, pooled batch %d%n", size,
+                            formerEncrypt / ops, singleEncrypt / ops, batchEncrypt / ops);
+                    System.out.printf("%6d B decrypt ns/op: former %d, pooled single %d, pooled batch %d%n", size,
+                            formerDecrypt / ops, singleDecrypt / ops, batchDecrypt / ops);
+                }
+
+                List<ChunkDecryptionResult> results = service.decryptChunkTexts(requests, "kh_docs").block();
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    assertEquals(batch.get(i), results.get(i).getText());
+                }
+            }
+        }
+    }
+
+    private interface Body {
+        void run() throws Exception;
+    }
+
+    private static long time(int iterations, Body body) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String randomText(Random random, int size) {
+        StringBuilder text = new StringBuilder(size);
+        while (text.length() < size) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    private static SecretKey legacyKey(String teamId) throws Exception {
+        Mac hmac = Mac.getInstance("HmacSHA256");
+        hmac.init(new SecretKeySpec(MASTER_KEY, "HmacSHA256"));
+        return new SecretKeySpec(hmac.doFinal(teamId.getBytes(StandardCharsets.UTF_8)), "AES");
+    }
+
+    // The former per-operation implementation, kept as the baseline
+
+    private static String formerEncrypt(SecretKey key, String plaintext) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+        byte[] encryptedBytes = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+        byte[] iv = cipher.getIV();
+        byte[] combined = new byte[iv.length + encryptedBytes.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encryptedBytes, 0, combined, iv.length, encryptedBytes.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    private static String formerDecrypt(SecretKey key, String encryptedText) throws Exception {
+        byte[] combined = Base64.getDecoder().decode(encryptedText);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, Arrays.copyOfRange(combined, 0, 12)));
+        return new String(cipher.doFinal(combined, 12, combined.length - 12), StandardCharsets.UTF_8);
+    }
+}
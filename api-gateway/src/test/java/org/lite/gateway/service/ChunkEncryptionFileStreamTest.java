@@ -0,0 +1,179 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.repository.TeamChunkKeyRepository;
+import org.lite.gateway.service.impl.ChunkEncryptionServiceImpl;
+import org.lite.gateway.util.SegmentedFileCipher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChunkEncryptionFileStreamTest {
+
+    private static final int FILE_SIZE = 3 * SegmentedFileCipher.DEFAULT_SEGMENT_SIZE + 1234;
+
+    private ChunkEncryptionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        LinqraVaultService vaultService = mock(LinqraVaultService.class);
+        when(vaultService.getSecret("chunk.encryption.master.key"))
+                .thenReturn(Base64.getEncoder().encodeToString(new byte[32]));
+        TeamChunkKeyRepository keyRepository = mock(TeamChunkKeyRepository.class);
+        when(keyRepository.findByTeamIdAndVersion(anyString(), anyString())).thenReturn(Mono.empty());
+        AuditService auditService = mock(AuditService.class);
+        when(auditService.logEvent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any())).thenReturn(Mono.empty());
+        UserContextService userContextService = mock(UserContextService.class);
+        when(userContextService.getCurrentUsername()).thenReturn(Mono.just("alice"));
+        TeamContextService teamContextService = mock(TeamContextService.class);
+        when(teamContextService.getTeamFromContext()).thenReturn(Mono.empty());
+
+        service = new ChunkEncryptionServiceImpl(vaultService, keyRepository, auditService, userContextService,
+                teamContextService, new ChunkAccessAuditAggregator(auditService, userContextService,
+                        teamContextService, 60_000, 2_000, 10_000));
+        service.init();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Splits the bytes into buffers of uneven sizes, as a network download would.
+     */
+    private static Flux<DataBuffer> buffers(byte[] bytes) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        Random sizes = new Random(11);
+        int offset = 0;
+        while (offset < bytes.length) {
+            int length = Math.min(bytes.length - offset, 1 + sizes.nextInt(20_000));
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, offset,
+                    offset + length)));
+            offset += length;
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    private static byte[] join(Flux<DataBuffer> content) {
+        return DataBufferUtils.join(content)
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .block(Duration.ofSeconds(10));
+    }
+
+    private byte[] encryptStreamed(byte[] plaintext) {
+        return join(service.encryptFileStream(buffers(plaintext), "team-a", "v1"));
+    }
+
+    @Test
+    void testStreamRoundTripAndLength() {
+        byte[] plaintext = randomBytes(FILE_SIZE);
+
+        byte[] encrypted = encryptStreamed(plaintext);
+
+        assertEquals(service.encryptedFileLength(plaintext.length, "v1"), encrypted.length);
+        assertTrue(SegmentedFileCipher.isSegmented(encrypted));
+        assertArrayEquals(plaintext, join(service.decryptFileStream(buffers(encrypted), "team-a", "v1")));
+        // Whole-file reads of the segmented format
+        assertArrayEquals(plaintext, service.decryptFile(encrypted, "team-a", "v1").block(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void testEmptyFileRoundTrip() {
+        byte[] encrypted = encryptStreamed(new byte[0]);
+
+        assertEquals(service.encryptedFileLength(0, "v1"), encrypted.length);
+        assertEquals(0, join(service.decryptFileStream(buffers(encrypted), "team-a", "v1")).length);
+    }
+
+    @Test
+    void testStreamReadsFormerWholeFileFormat() {
+        byte[] plaintext = randomBytes(100_000);
+        byte[] legacy = service.encryptFile(plaintext, "team-a", "v1").block(Duration.ofSeconds(10));
+
+        // encryptFile is unchanged, so files written before the segmented format stay readable
+        assertFalse(SegmentedFileCipher.isSegmented(legacy));
+        assertArrayEquals(plaintext, join(service.decryptFileStream(buffers(legacy), "team-a", "v1")));
+    }
+
+    @Test
+    void testRangeReadsOnlyTheSegmentsHoldingIt() {
+        byte[] plaintext = randomBytes(FILE_SIZE);
+        byte[] encrypted = encryptStreamed(plaintext);
+        List<long[]> reads = new ArrayList<>();
+        ChunkEncryptionService.FileRangeReader reader = (start, endInclusive) -> {
+            reads.add(new long[] { start, endInclusive });
+            return buffers(Arrays.copyOfRange(encrypted, (int) start, (int) endInclusive + 1));
+        };
+
+        int offset = SegmentedFileCipher.DEFAULT_SEGMENT_SIZE + 100;
+        byte[] range = join(service.decryptFileRange(reader, encrypted.length, "team-a", "v1", offset, 5000));
+
+        assertArrayEquals(Arrays.copyOfRange(plaintext, offset, offset + 5000), range);
+        assertEquals(2, reads.size());
+        long segmentRead = reads.get(1)[1] - reads.get(1)[0] + 1;
+        assertEquals(SegmentedFileCipher.DEFAULT_SEGMENT_SIZE + SegmentedFileCipher.TAG_LENGTH, segmentRead);
+    }
+
+    @Test
+    void testRangeOfFormerWholeFileFormat() {
+        byte[] plaintext = randomBytes(10_000);
+        byte[] legacy = service.encryptFile(plaintext, "team-a", "v1").block(Duration.ofSeconds(10));
+        ChunkEncryptionService.FileRangeReader reader = (start, endInclusive) -> buffers(
+                Arrays.copyOfRange(legacy, (int) start, (int) endInclusive + 1));
+
+        byte[] range = join(service.decryptFileRange(reader, legacy.length, "team-a", "v1", 9000, 5000));
+
+        assertArrayEquals(Arrays.copyOfRange(plaintext, 9000, 10_000), range);
+    }
+
+    @Test
+    void testTruncatedStreamFails() {
+        byte[] encrypted = encryptStreamed(randomBytes(FILE_SIZE));
+        byte[] truncated = Arrays.copyOf(encrypted, encrypted.length - 1234 - SegmentedFileCipher.TAG_LENGTH);
+
+        StepVerifier.create(service.decryptFileStream(buffers(truncated), "team-a", "v1").then())
+                .expectError(IllegalArgumentException.class)
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testReorderedSegmentsFail() {
+        byte[] encrypted = encryptStreamed(randomBytes(FILE_SIZE));
+        int headerLength = SegmentedFileCipher.Header.parse(encrypted).length();
+        int segmentLength = SegmentedFileCipher.DEFAULT_SEGMENT_SIZE + SegmentedFileCipher.TAG_LENGTH;
+        byte[] reordered = encrypted.clone();
+        System.arraycopy(encrypted, headerLength, reordered, headerLength + segmentLength, segmentLength);
+        System.arraycopy(encrypted, headerLength + segmentLength, reordered, headerLength, segmentLength);
+
+        StepVerifier.create(service.decryptFileStream(buffers(reordered), "team-a", "v1").then())
+                .expectError(IllegalArgumentException.class)
+                .verify(Duration.ofSeconds(10));
+        StepVerifier.create(service.decryptFile(reordered, "team-a", "v1"))
+                .expectError(IllegalArgumentException.class)
+                .verify(Duration.ofSeconds(10));
+    }
+}
@@ -212,6 +212,11 @@ class DocumentServiceImplIntegrationTest {
                 return Mono.just(encryptedBytes); // No decryption for tests (assumes already plaintext)
             }
 
+            @Override
+            public long encryptedFileLength(long plaintextLength, String keyVersion) {
+                return plaintextLength; // No encryption for tests
+            }
+
             @Override
             public Mono<String> rotateKey(String teamId) {
                 return Mono.just("v" + versionCounter.incrementAndGet());
@@ -0,0 +1,45 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.ChannelTopic;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DynamicRouteServiceTest {
+
+    private final CacheService cacheService = mock(CacheService.class);
+    private final DynamicRouteService service = new DynamicRouteService(cacheService, new ChannelTopic("routes"));
+
+    @Test
+    void testMalformedPatternDoesNotDropOtherWhitelistedPaths() {
+        service.onRoutesMessage("ADD PATH:/partner/{id/**");
+        service.onRoutesMessage("ADD PATH:/partner/public/**");
+
+        assertTrue(service.isPathWhitelisted("/api/teams/42"));
+        assertTrue(service.isPathWhitelisted("/partner/public/docs"));
+        assertFalse(service.isPathWhitelisted("/partner/42/docs"));
+    }
+
+    @Test
+    void testScopesUnderBarePathKeysAreMovedToScopeKeys() {
+        when(cacheService.getSetMembers("whitelistedPaths")).thenReturn(Mono.just(Set.of("/inventory-service/**")));
+        when(cacheService.addToSet(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(cacheService.get(anyString())).thenReturn(Mono.empty());
+        when(cacheService.get("/inventory-service/**")).thenReturn(Mono.just("inventory.read"));
+        when(cacheService.set(anyString(), anyString(), any())).thenReturn(Mono.empty());
+
+        service.initialize();
+
+        verify(cacheService).set("scope:/inventory-service/**", "inventory.read", Duration.ofHours(24));
+        verify(cacheService, never()).set(eq("scope:/api/**"), anyString(), any());
+
+        when(cacheService.get("scope:/inventory-service/**")).thenReturn(Mono.just("inventory.read"));
+        assertEquals("inventory.read", service.getClientScope("/inventory-service/**").block());
+    }
+}
@@ -0,0 +1,216 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.entity.LinqLlmModel;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddingBatcherTest {
+
+    private LinqLlmModel model;
+
+    @BeforeEach
+    void setUp() {
+        model = new LinqLlmModel();
+        model.setTeamId("team-1");
+        model.setModelCategory("openai-embed");
+        model.setModelName("text-embedding-3-small");
+        model.setEndpoint("https://api.openai.com/v1/embeddings");
+    }
+
+    @Test
+    void testConcurrentCallersShareBatchesAndGetTheirOwnVectors() {
+        FakeEmbeddingProvider provider = new FakeEmbeddingProvider(8, 2048, Duration.ofMillis(200));
+        // A long linger and a slow provider keep a loaded host from flushing partial batches before
+        // all texts are queued
+        EmbeddingBatcher batcher = new EmbeddingBatcher(provider, 16, 100_000, 10_000, 4, Schedulers.parallel());
+        List<String> texts = IntStream.range(0, 64).mapToObj(i -> "chunk " + i).toList();
+
+        List<List<Float>> vectors = Flux.fromIterable(texts)
+                .flatMapSequential(text -> batcher.embed(text, model), 64)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertNotNull(vectors);
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(provider.vectorFor(texts.get(i)), vectors.get(i));
+        }
+        assertEquals(4, provider.calls().size());
+        assertTrue(provider.calls().stream().allMatch(batch -> batch.size() == 16));
+    }
+
+    @Test
+    void testPartialBatchIsFlushedAfterLinger() {
+        FakeEmbeddingProvider provider = new FakeEmbeddingProvider(4, 2048, Duration.ZERO);
+        EmbeddingBatcher batcher = new EmbeddingBatcher(provider, 64, 100_000, 200, 4, Schedulers.parallel());
+
+        List<List<Float>> vectors = Flux.just("a", "b", "c")
+                .flatMapSequential(text -> batcher.embed(text, model))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(3, vectors.size());
+        assertEquals(List.of(List.of("a", "b", "c")), provider.calls());
+    }
+
+    @Test
+    void testBatchesRespectTokenBudgetAndProviderLimit() {
+        FakeEmbeddingProvider provider = new FakeEmbeddingProvider(4, 5, Duration.ZERO);
+        // 30 chars ≈ 10 tokens per text, so a 25-token budget fits two texts
+        EmbeddingBatcher batcher = new EmbeddingBatcher(provider, 64, 25, 10, 4, Schedulers.parallel());
+        String text = "x".repeat(30);
+
+        Flux.range(0, 6)
+                .flatMap(i -> batcher.embed(text + i, model))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertTrue(provider.calls().stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(6, provider.calls().stream().mapToInt(List::size).sum());
+
+        FakeEmbeddingProvider single = new FakeEmbeddingProvider(4, 1, Duration.ZERO);
+        EmbeddingBatcher unbatched = new EmbeddingBatcher(single, 64, 100_000, 10, 4, Schedulers.parallel());
+        Flux.range(0, 3).flatMap(i -> unbatched.embed("t" + i, model)).blockLast(Duration.ofSeconds(5));
+        assertTrue(single.calls().stream().allMatch(batch -> batch.size() == 1));
+    }
+
+    @Test
+    void testInFlightBatchesAreBounded() {
+        FakeEmbeddingProvider provider = new FakeEmbeddingProvider(4, 2048, Duration.ofMillis(20));
+        EmbeddingBatcher batcher = new EmbeddingBatcher(provider, 4, 100_000, 1, 2, Schedulers.parallel());
+
+        List<List<Float>> vectors = Flux.range(0, 200)
+                .flatMap(i -> batcher.embed("text " + i, model), 200)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(200, vectors.size());
+        assertTrue(provider.maxObservedInFlight() <= 2);
+        // Texts queued behind the limit go out in full batches
+        assertTrue(provider.calls().size() <= 60);
+    }
+
+    @Test
+    void testFailedBatchFailsEachCaller() {
+        EmbeddingProvider failing = new EmbeddingProvider() {
+            @Override
+            public Mono<List<List<Float>>> embed(List<String> texts, LinqLlmModel llmModel) {
+                return Mono.error(new IllegalStateException("context length exceeded"));
+            }
+
+            @Override
+            public int maxBatchSize(LinqLlmModel llmModel) {
+                return 8;
+            }
+        };
+        EmbeddingBatcher batcher = new EmbeddingBatcher(failing, 3, 100_000, 10_000, 4, Schedulers.parallel());
+
+        List<Throwable> errors = Flux.range(0, 3)
+                .flatMap(i -> batcher.embed("t" + i, model)
+                        .then(Mono.<Throwable>empty())
+                        .onErrorResume(Mono::just))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(3, errors.size());
+        assertTrue(errors.stream().allMatch(error -> error.getMessage().contains("context length")));
+        // [t0 t1 t2] -> [t0] and [t1 t2] -> [t1] and [t2]: every text failed on its own too
+        assertEquals(5L, batcher.getStats().get("failedBatches"));
+    }
+
+    @Test
+    void testFailedBatchOnlyFailsTheTextsThatFailAlone() {
+        FakeEmbeddingProvider vectors = new FakeEmbeddingProvider(4, 8, Duration.ZERO);
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        EmbeddingProvider poisoned = new EmbeddingProvider() {
+            @Override
+            public Mono<List<List<Float>>> embed(List<String> texts, LinqLlmModel llmModel) {
+                calls.add(List.copyOf(texts));
+                return texts.contains("poison")
+                        ? Mono.error(new RuntimeException("HTTP 400: input is too long"))
+                        : vectors.embed(texts, llmModel);
+            }
+
+            @Override
+            public int maxBatchSize(LinqLlmModel llmModel) {
+                return 8;
+            }
+        };
+        EmbeddingBatcher batcher = new EmbeddingBatcher(poisoned, 8, 100_000, 10_000, 4, Schedulers.parallel());
+        List<String> texts = List.of("t0", "t1", "t2", "poison", "t4", "t5", "t6", "t7");
+
+        List<Object> results = Flux.fromIterable(texts)
+                .flatMapSequential(text -> batcher.embed(text, model)
+                        .<Object>map(vector -> vector)
+                        .onErrorResume(Mono::just))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        for (int i = 0; i < texts.size(); i++) {
+            if (texts.get(i).equals("poison")) {
+                assertInstanceOf(RuntimeException.class, results.get(i));
+            } else {
+                assertEquals(vectors.vectorFor(texts.get(i)), results.get(i));
+            }
+        }
+        // The batch, then halves down to the poisoned text: 8 -> 4 + 4 -> 2 + 2 -> 1 + 1
+        assertEquals(7, calls.size());
+        assertTrue(calls.contains(List.of("poison")));
+        assertEquals(3L, batcher.getStats().get("splitBatches"));
+    }
+
+    @Test
+    void testRateLimitedBatchIsNotSplit() {
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        EmbeddingProvider throttled = new EmbeddingProvider() {
+            @Override
+            public Mono<List<List<Float>>> embed(List<String> texts, LinqLlmModel llmModel) {
+                calls.add(List.copyOf(texts));
+                return Mono.error(new RuntimeException("HTTP 429: rate limit reached"));
+            }
+
+            @Override
+            public int maxBatchSize(LinqLlmModel llmModel) {
+                return 8;
+            }
+        };
+        EmbeddingBatcher batcher = new EmbeddingBatcher(throttled, 4, 100_000, 10_000, 4, Schedulers.parallel());
+
+        long failed = Flux.range(0, 4)
+                .flatMap(i -> batcher.embed("t" + i, model).then(Mono.just(false)).onErrorReturn(true))
+                .filter(Boolean::booleanValue)
+                .count()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(4L, failed);
+        assertEquals(1, calls.size());
+        assertEquals(0L, batcher.getStats().get("splitBatches"));
+    }
+
+    @Test
+    void testThroughputAgainstSlowProvider() {
+        // 2,000 chunks against a provider with 50ms per call: one call per chunk would take 100s
+        FakeEmbeddingProvider provider = new FakeEmbeddingProvider(16, 2048, Duration.ofMillis(50));
+        EmbeddingBatcher batcher = new EmbeddingBatcher(provider, 64, 100_000, 10, 4, Schedulers.parallel());
+
+        long start = System.nanoTime();
+        Long embedded = Flux.range(0, 2_000)
+                .flatMap(i -> batcher.embed("chunk " + i, model), 256)
+                .count()
+                .block(Duration.ofSeconds(30));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("embedded %d chunks in %d ms with %d provider calls%n", embedded, elapsedMillis,
+                provider.calls().size());
+        assertEquals(2_000L, embedded);
+        assertTrue(provider.calls().size() <= 2_000 / 64 + 4 * 4);
+    }
+}
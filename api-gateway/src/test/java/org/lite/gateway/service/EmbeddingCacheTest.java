@@ -0,0 +1,124 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.service.impl.InMemoryCacheServiceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddingCacheTest {
+
+    private CacheService remote;
+    private AtomicInteger computeCalls;
+
+    @BeforeEach
+    void setUp() {
+        remote = new InMemoryCacheServiceImpl();
+        computeCalls = new AtomicInteger();
+    }
+
+    private Mono<List<Float>> compute(List<Float> vector) {
+        return Mono.fromCallable(() -> {
+            computeCalls.incrementAndGet();
+            return vector;
+        }).delayElement(Duration.ofMillis(20));
+    }
+
+    private static List<Float> vector(int dimension) {
+        List<Float> vector = new ArrayList<>(dimension);
+        for (int i = 0; i < dimension; i++) {
+            vector.add((float) Math.sin(i) * 0.37f);
+        }
+        return vector;
+    }
+
+    @Test
+    void testFloat32RoundTripIsExactAndLittleEndian() {
+        List<Float> vector = vector(1536);
+        byte[] blob = EmbeddingCache.encode(vector, false);
+
+        assertEquals(1 + 1536 * 4, blob.length);
+        assertEquals(vector, EmbeddingCache.decode(blob));
+
+        byte[] one = EmbeddingCache.encode(List.of(1.0f), false);
+        // 1.0f is 0x3F800000; little-endian puts the low byte first
+        assertArrayEquals(new byte[] { 'f', 0x00, 0x00, (byte) 0x80, 0x3F }, one);
+    }
+
+    @Test
+    void testFloat16RoundTripIsClose() {
+        List<Float> vector = vector(768);
+        byte[] blob = EmbeddingCache.encode(vector, true);
+
+        assertEquals(1 + 768 * 2, blob.length);
+        List<Float> decoded = EmbeddingCache.decode(blob);
+        for (int i = 0; i < vector.size(); i++) {
+            assertEquals(vector.get(i), decoded.get(i), 1e-3);
+        }
+    }
+
+    @Test
+    void testKeyIsSharedAcrossDocumentsAndNormalizesWhitespace() {
+        String a = EmbeddingCache.cacheKey("openai-embed", "text-embedding-3-small", 1536,
+                "Confidential –  do not distribute.\n");
+        String b = EmbeddingCache.cacheKey("openai-embed", "text-embedding-3-small", 1536,
+                "  Confidential – do not\tdistribute.");
+
+        assertEquals(a, b);
+        assertNotEquals(a, EmbeddingCache.cacheKey("openai-embed", "text-embedding-3-large", 1536,
+                "Confidential – do not distribute."));
+        assertNotEquals(a, EmbeddingCache.cacheKey("openai-embed", "text-embedding-3-small", 512,
+                "Confidential – do not distribute."));
+        // Case changes the embedding, so it is part of the key
+        assertNotEquals(a, EmbeddingCache.cacheKey("openai-embed", "text-embedding-3-small", 1536,
+                "CONFIDENTIAL – do not distribute."));
+    }
+
+    @Test
+    void testConcurrentMissesShareOneComputeAndLaterLookupsHit() {
+        EmbeddingCache cache = new EmbeddingCache(remote, 1, 1 << 20, "float32");
+        List<Float> vector = vector(64);
+
+        List<List<Float>> results = Flux.range(0, 20)
+                .flatMap(i -> cache.getOrCompute("openai-embed", "m", 64, "boilerplate footer", () -> compute(vector)))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(20, results.size());
+        assertTrue(results.stream().allMatch(vector::equals));
+        assertEquals(1, computeCalls.get());
+
+        cache.getOrCompute("openai-embed", "m", 64, "boilerplate  footer", () -> compute(vector))
+                .block(Duration.ofSeconds(5));
+        assertEquals(1, computeCalls.get());
+        assertEquals(1L, cache.getStats().get("localHits"));
+        assertTrue((Long) cache.getStats().get("bytesSavedVsJson") > 0);
+    }
+
+    @Test
+    void testSecondPodReadsBinaryBlobFromRemoteTier() {
+        EmbeddingCache writer = new EmbeddingCache(remote, 1, 1 << 20, "float16");
+        EmbeddingCache reader = new EmbeddingCache(remote, 1, 1 << 20, "float32");
+        List<Float> vector = vector(32);
+
+        writer.getOrCompute("cohere-embed", "embed-v3", 32, "shared text", () -> compute(vector))
+                .block(Duration.ofSeconds(5));
+        List<Float> fromRemote = reader.getOrCompute("cohere-embed", "embed-v3", 32, "shared text",
+                () -> compute(vector)).block(Duration.ofSeconds(5));
+
+        assertEquals(1, computeCalls.get());
+        assertEquals(32, fromRemote.size());
+        assertEquals(1L, reader.getStats().get("remoteHits"));
+        String stored = remote.get(EmbeddingCache.cacheKey("cohere-embed", "embed-v3", 32, "shared text"))
+                .block();
+        // Base64 of 1 + 32 * 2 bytes
+        assertEquals(88, stored.length());
+    }
+}
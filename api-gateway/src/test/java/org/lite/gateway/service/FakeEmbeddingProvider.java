@@ -0,0 +1,70 @@
+package org.lite.gateway.service;
+
+import org.lite.gateway.entity.LinqLlmModel;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offline embedding provider for batching tests: returns deterministic vectors derived from
+ * each text after a fixed per-call latency, and records the batches it was called with.
+ */
+class FakeEmbeddingProvider implements EmbeddingProvider {
+
+    private final int dimension;
+    private final int maxBatchSize;
+    private final Duration latency;
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxObservedInFlight = new AtomicInteger();
+
+    FakeEmbeddingProvider(int dimension, int maxBatchSize, Duration latency) {
+        this.dimension = dimension;
+        this.maxBatchSize = maxBatchSize;
+        this.latency = latency;
+    }
+
+    @Override
+    public Mono<List<List<Float>>> embed(List<String> texts, LinqLlmModel llmModel) {
+        return Mono.defer(() -> {
+            calls.add(List.copyOf(texts));
+            maxObservedInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            List<List<Float>> vectors = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                vectors.add(vectorFor(text));
+            }
+            return Mono.just(vectors).delayElement(latency);
+        })
+                // A call stops being in flight when its result is signalled; doFinally would only run
+                // after the caller's completion handler, which may already have started the next call
+                .doOnTerminate(inFlight::decrementAndGet)
+                .doOnCancel(inFlight::decrementAndGet);
+    }
+
+    @Override
+    public int maxBatchSize(LinqLlmModel llmModel) {
+        return maxBatchSize;
+    }
+
+    List<Float> vectorFor(String text) {
+        List<Float> vector = new ArrayList<>(dimension);
+        int seed = text.hashCode();
+        for (int i = 0; i < dimension; i++) {
+            seed = seed * 31 + i;
+            vector.add((seed % 1000) / 1000f);
+        }
+        return vector;
+    }
+
+    List<List<String>> calls() {
+        return calls;
+    }
+
+    int maxObservedInFlight() {
+        return maxObservedInFlight.get();
+    }
+}
@@ -0,0 +1,208 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HierarchicalRateLimiterTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    private HierarchicalRateLimiter limiter;
+    private final Map<String, AtomicInteger> leasesByKey = new ConcurrentHashMap<>();
+    private final List<List<String>> returns = new ArrayList<>();
+    private final AtomicLong dailyWindow = new AtomicLong(7);
+
+    @BeforeEach
+    void setUp() {
+        limiter = new HierarchicalRateLimiter(redisTemplate, true, 0.1, 60_000, 60_000, 0.5, 1000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRequestsAreServedFromOneLease() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(invocation -> {
+            List<String> args = invocation.getArgument(2);
+            return Flux.just(List.of(Long.parseLong(args.get(2)), 90L));
+        });
+        HierarchicalRateLimiter.RateLimits limits = limiter.defaultLimits(100, 100, 1);
+
+        for (int i = 0; i < 10; i++) {
+            HierarchicalRateLimiter.RateLimitDecision decision = limiter.check("orders", limits, null, null).block();
+            assertTrue(decision.allowed());
+            assertEquals(HierarchicalRateLimiter.SCOPE_ROUTE, decision.scope());
+        }
+
+        // Lease size is 10% of the burst, so ten requests need a single round trip
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), anyList());
+        assertEquals(1L, limiter.getStats().get("leaseCalls"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testThrottledTeamDoesNotDrainTheRoute() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(invocation -> {
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            List<String> args = invocation.getArgument(2);
+            leasesByKey.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            long granted = key.endsWith(":team:noisy") ? 0 : Long.parseLong(args.get(2));
+            return Flux.just(List.of(granted, 0L));
+        });
+        HierarchicalRateLimiter.RateLimits limits = limiter.defaultLimits(100, 100, 1);
+
+        for (int i = 0; i < 20; i++) {
+            HierarchicalRateLimiter.RateLimitDecision decision = limiter.check("orders", limits, "noisy", null).block();
+            assertFalse(decision.allowed());
+            assertEquals(HierarchicalRateLimiter.SCOPE_TEAM, decision.scope());
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.check("orders", limits, "quiet", null).block().allowed());
+        }
+
+        // The route lease was refunded on every team rejection and still covered the quiet team
+        assertEquals(1, leasesByKey.get("rl:orders:route").get());
+        assertEquals(1, leasesByKey.get("rl:orders:team:noisy").get());
+        Map<String, Map<String, Long>> tenants = (Map<String, Map<String, Long>>) limiter.getStats().get("tenants");
+        assertEquals(20L, tenants.get("rl:orders:team:noisy").get("rejected"));
+        assertEquals(10L, tenants.get("rl:orders:team:quiet").get("allowed"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRedisFailureFallsBackToABoundedLocalLease() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.error(new IllegalStateException("connection refused")));
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (limiter.checkDaily("dailyCalls:/orders", 500).block().allowed()) {
+                allowed++;
+            }
+        }
+
+        // Each failed lease hands out at most one lease worth (1% of the daily limit) locally
+        assertEquals(20, allowed);
+        assertEquals(4L, limiter.getStats().get("leaseFailures"));
+    }
+
+    /**
+     * Grants every requested lease in full and records token returns as [key, args...]. Daily
+     * leases are tagged with window {@code dailyWindow}.
+     */
+    @SuppressWarnings("unchecked")
+    private void stubRedisGrantingLeases() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(invocation -> {
+            RedisScript<?> script = invocation.getArgument(0);
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            List<String> args = invocation.getArgument(2);
+            if (script.getResultType() == Long.class) {
+                List<String> returned = new ArrayList<>();
+                returned.add(key);
+                returned.addAll(args);
+                returns.add(returned);
+                return Flux.just(Long.parseLong(args.get(args.size() - 1)));
+            }
+            if (script.getScriptAsString().contains("capacity")) {
+                return Flux.just(List.of(Long.parseLong(args.get(2)), 100L));
+            }
+            return Flux.just(List.of(Long.parseLong(args.get(1)), 100L, dailyWindow.get()));
+        });
+    }
+
+    @Test
+    void testExpiredLeaseIsReturnedByTheSweep() throws InterruptedException {
+        stubRedisGrantingLeases();
+        limiter = new HierarchicalRateLimiter(redisTemplate, true, 0.1, 20, 60_000, 1.0, 1000);
+        HierarchicalRateLimiter.RateLimits limits = limiter.defaultLimits(100, 100, 1);
+
+        assertTrue(limiter.check("orders", limits, null, null).block().allowed());
+        limiter.releaseExpiredLeases();
+        assertTrue(returns.isEmpty(), "A live lease must not be returned");
+
+        Thread.sleep(40);
+        limiter.releaseExpiredLeases();
+        limiter.releaseExpiredLeases();
+
+        // Ten tokens leased, one used; the other nine go back exactly once
+        assertEquals(List.of(List.of("rl:orders:route", "100", "100", "9")), returns);
+        assertEquals(9L, limiter.getStats().get("returnedTokens"));
+    }
+
+    @Test
+    void testExpiredDailyLeaseIsReturnedOnTheNextRequest() throws InterruptedException {
+        stubRedisGrantingLeases();
+        limiter = new HierarchicalRateLimiter(redisTemplate, true, 0.1, 60_000, 20, 1.0, 1000);
+
+        assertTrue(limiter.checkDaily("dailyCalls:/orders", 1000).block().allowed());
+        assertTrue(limiter.checkDaily("dailyCalls:/orders", 1000).block().allowed());
+        Thread.sleep(40);
+        assertTrue(limiter.checkDaily("dailyCalls:/orders", 1000).block().allowed());
+
+        // The first lease of ten served two calls; its eight unused calls are decremented
+        assertEquals(List.of(List.of("dailyCalls:/orders", "7", "8")), returns);
+        assertEquals(2L, limiter.getStats().get("leaseCalls"));
+    }
+
+    @Test
+    void testDailyReturnIsTaggedWithTheWindowItWasLeasedFrom() throws InterruptedException {
+        stubRedisGrantingLeases();
+        limiter = new HierarchicalRateLimiter(redisTemplate, true, 0.1, 60_000, 200, 1.0, 1000);
+
+        assertTrue(limiter.checkDaily("dailyCalls:/orders", 1000).block().allowed());
+        Thread.sleep(300);
+        // The daily window resets before the next lease; the old lease's calls carry its id
+        dailyWindow.set(8);
+        assertTrue(limiter.checkDaily("dailyCalls:/orders", 1000).block().allowed());
+        Thread.sleep(300);
+        limiter.releaseExpiredLeases();
+
+        assertEquals(List.of(List.of("dailyCalls:/orders", "7", "9"), List.of("dailyCalls:/orders", "8", "9")),
+                returns);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLocalLeaseIsNotReturned() throws InterruptedException {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.error(new IllegalStateException("connection refused")));
+        limiter = new HierarchicalRateLimiter(redisTemplate, true, 0.1, 60_000, 20, 1.0, 1000);
+
+        assertTrue(limiter.checkDaily("dailyCalls:/orders", 500).block().allowed());
+        Thread.sleep(40);
+        limiter.releaseExpiredLeases();
+
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), anyList());
+        assertEquals(0L, limiter.getStats().get("returnedTokens"));
+    }
+
+    @Test
+    void testDefaultLimitsKeepTheFullRouteLimit() {
+        limiter = new HierarchicalRateLimiter(redisTemplate, true, 0.1, 1000, 60_000, 1.0, 1000);
+
+        HierarchicalRateLimiter.RateLimits limits = limiter.defaultLimits(100, 200, 1);
+
+        assertEquals(100, limits.teamRate());
+        assertEquals(200, limits.teamBurst());
+        assertEquals(100, limits.apiKeyRate());
+        assertEquals(200, limits.apiKeyBurst());
+    }
+}
@@ -0,0 +1,347 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.util.Bm25Analyzer;
+import org.lite.gateway.util.Bm25Index;
+import org.lite.gateway.util.RankFusion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Offline relevance and latency evaluation of hybrid search on a synthetic corpus.
+ *
+ * Chunks belong to topics; their embeddings are the topic centroid plus noise, so the
+ * simulated vector model knows what a chunk is about but not which form numbers it
+ * mentions. Chunks are grouped into documents whose title words appear only in the
+ * title metadata. Identifier queries ask for one chunk by its form number, written the way
+ * users type it; topic queries ask for any chunk of a topic; title queries ask for the
+ * chunks of one document by its title. Each strategy the search has used is scored on the
+ * same queries: vector only, the former substring boost of over-fetched vector results,
+ * BM25 only, and reciprocal-rank fusion of vector and BM25, with and without the title
+ * indexed as metadata. Metrics are printed; relevance is asserted against fixed minimums as
+ * well as against the other strategies. BM25 build and search latency is measured in the
+ * benchmark group only.
+ */
+class HybridSearchEvaluationTest {
+
+    private static final int TOPICS = 40;
+    private static final int CHUNKS_PER_TOPIC = 50;
+    private static final int DIMENSIONS = 32;
+    private static final int WORDS_PER_CHUNK = 40;
+    private static final int N_RESULTS = 10;
+    private static final int QUERIES = 300;
+    private static final int CHUNKS_PER_DOCUMENT = 10;
+
+    // Minimum relevance of the store's search path on this corpus, a margin below what it measures
+    private static final double MIN_IDENTIFIER_RECALL = 0.95;
+    private static final double MIN_TOPIC_NDCG = 0.7;
+    private static final double MIN_TITLE_NDCG = 0.5;
+
+    // The identifier pattern and boost of the former substring re-ranking
+    private static final Pattern ALPHANUMERIC_ID_PATTERN = Pattern.compile("\\b[A-Za-z]+-\\d+\\b");
+    private static final float SUBSTRING_BOOST = 0.15f;
+
+    private record Chunk(long id, int topic, String formNumber, String title, String text, float[] embedding) {
+    }
+
+    private record Query(String text, float[] embedding, Set<Long> relevant) {
+    }
+
+    private record Metrics(double recall, double mrr, double ndcg) {
+    }
+
+    private record Corpus(List<Chunk> chunks, List<Query> identifierQueries, List<Query> topicQueries,
+                          List<Query> titleQueries) {
+    }
+
+    @Test
+    void testHybridSearchRelevance() {
+        Corpus corpus = corpus();
+        List<Chunk> chunks = corpus.chunks();
+        List<Query> identifierQueries = corpus.identifierQueries();
+        List<Query> topicQueries = corpus.topicQueries();
+        List<Query> titleQueries = corpus.titleQueries();
+        Bm25Index index = new Bm25Index(new Bm25Analyzer());
+        Bm25Index textOnlyIndex = new Bm25Index(new Bm25Analyzer());
+        for (Chunk chunk : chunks) {
+            index.add(chunk.id(), "doc-" + chunk.id() / CHUNKS_PER_DOCUMENT, chunk.text(), chunk.title());
+            textOnlyIndex.add(chunk.id(), "doc-" + chunk.id() / CHUNKS_PER_DOCUMENT, chunk.text());
+        }
+
+        Metrics vectorIds = evaluate(identifierQueries, query -> vectorSearch(chunks, query, N_RESULTS));
+        Metrics boostIds = evaluate(identifierQueries, query -> substringBoost(chunks, query));
+        Metrics bm25Ids = evaluate(identifierQueries, query -> bm25Search(index, query, N_RESULTS));
+        Metrics hybridIds = evaluate(identifierQueries, query -> hybridSearch(chunks, index, query));
+        Metrics vectorTopics = evaluate(topicQueries, query -> vectorSearch(chunks, query, N_RESULTS));
+        Metrics hybridTopics = evaluate(topicQueries, query -> hybridSearch(chunks, index, query));
+        Metrics vectorTitles = evaluate(titleQueries, query -> vectorSearch(chunks, query, N_RESULTS));
+        Metrics textOnlyTitles = evaluate(titleQueries, query -> hybridSearch(chunks, textOnlyIndex, query));
+        Metrics hybridTitles = evaluate(titleQueries, query -> hybridSearch(chunks, index, query));
+
+        System.out.printf("identifier queries recall@%d / MRR: vector %.3f / %.3f, substring boost %.3f / %.3f, "
+                + "bm25 %.3f / %.3f, rrf %.3f / %.3f%n", N_RESULTS, vectorIds.recall(), vectorIds.mrr(),
+                boostIds.recall(), boostIds.mrr(), bm25Ids.recall(), bm25Ids.mrr(), hybridIds.recall(),
+                hybridIds.mrr());
+        System.out.printf("topic queries MRR / nDCG@%d: vector %.3f / %.3f, rrf %.3f / %.3f%n", N_RESULTS,
+                vectorTopics.mrr(), vectorTopics.ndcg(), hybridTopics.mrr(), hybridTopics.ndcg());
+        System.out.printf("title queries nDCG@%d: vector %.3f, rrf without metadata %.3f, rrf %.3f%n", N_RESULTS,
+                vectorTitles.ndcg(), textOnlyTitles.ndcg(), hybridTitles.ndcg());
+
+        assertTrue(hybridIds.recall() > vectorIds.recall(), "Hybrid search should find identifiers vectors miss");
+        assertTrue(hybridIds.recall() >= boostIds.recall(), "Hybrid search should not lose to the substring boost");
+        assertTrue(hybridTopics.mrr() >= 0.9 * vectorTopics.mrr(), "Hybrid search should keep topical relevance");
+        assertTrue(hybridTitles.ndcg() > textOnlyTitles.ndcg(), "Indexed titles should rank their chunks higher");
+        assertTrue(hybridIds.recall() >= MIN_IDENTIFIER_RECALL, "identifier recall " + hybridIds.recall());
+        assertTrue(hybridTopics.ndcg() >= MIN_TOPIC_NDCG, "topic nDCG " + hybridTopics.ndcg());
+        assertTrue(hybridTitles.ndcg() >= MIN_TITLE_NDCG, "title nDCG " + hybridTitles.ndcg());
+    }
+
+    @Tag("benchmark")
+    @Test
+    void testBm25BuildAndSearchLatency() {
+        Corpus corpus = corpus();
+        Bm25Index index = new Bm25Index(new Bm25Analyzer());
+        long buildStart = System.nanoTime();
+        for (Chunk chunk : corpus.chunks()) {
+            index.add(chunk.id(), "doc-" + chunk.id() / CHUNKS_PER_DOCUMENT, chunk.text(), chunk.title());
+        }
+        long buildMicros = (System.nanoTime() - buildStart) / 1_000;
+
+        long searchStart = System.nanoTime();
+        for (Query query : corpus.identifierQueries()) {
+            index.search(query.text(), N_RESULTS * 4);
+        }
+        for (Query query : corpus.topicQueries()) {
+            index.search(query.text(), N_RESULTS * 4);
+        }
+        long searchNanos = (System.nanoTime() - searchStart) / (2L * QUERIES);
+
+        System.out.printf("corpus=%d chunks, %d terms, BM25 build %d us, BM25 search %d ns/query%n",
+                corpus.chunks().size(), index.termCount(), buildMicros, searchNanos);
+        assertTrue(index.termCount() > 0);
+    }
+
+    /**
+     * The synthetic corpus and its identifier, topic and title queries, the same on every call
+     */
+    private static Corpus corpus() {
+        Random random = new Random(42);
+        float[][] centroids = new float[TOPICS][];
+        List<List<String>> topicWords = new ArrayList<>();
+        for (int topic = 0; topic < TOPICS; topic++) {
+            centroids[topic] = randomUnitVector(random);
+            List<String> words = new ArrayList<>();
+            for (int w = 0; w < 12; w++) {
+                words.add(pseudoWord(random));
+            }
+            topicWords.add(words);
+        }
+        List<String> commonWords = IntStream.range(0, 200).mapToObj(i -> pseudoWord(random)).toList();
+
+        List<Chunk> chunks = new ArrayList<>();
+        List<String> titles = new ArrayList<>();
+        for (int topic = 0; topic < TOPICS; topic++) {
+            for (int c = 0; c < CHUNKS_PER_TOPIC; c++) {
+                long id = chunks.size();
+                if (id % CHUNKS_PER_DOCUMENT == 0) {
+                    // Title words are drawn from their own syllables, so chunk text never contains them
+                    titles.add("Petition for " + titleWord(random) + " " + titleWord(random));
+                }
+                String formNumber = (char) ('A' + random.nextInt(26)) + "-" + (100 + id);
+                StringBuilder text = new StringBuilder();
+                for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+                    List<String> source = random.nextInt(10) < 4 ? topicWords.get(topic) : commonWords;
+                    text.append(source.get(random.nextInt(source.size()))).append(' ');
+                    if (w == WORDS_PER_CHUNK / 2) {
+                        text.append("Form ").append(formNumber).append(' ');
+                    }
+                }
+                chunks.add(new Chunk(id, topic, formNumber, titles.get(titles.size() - 1), text.toString(),
+                        noisy(centroids[topic], 0.35f, random)));
+            }
+        }
+
+        List<Query> identifierQueries = new ArrayList<>();
+        List<Query> topicQueries = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            Chunk target = chunks.get(random.nextInt(chunks.size()));
+            // Half the users type the form number in lower case, which the substring boost missed
+            String formNumber = q % 2 == 0 ? target.formNumber() : target.formNumber().toLowerCase(Locale.ROOT);
+            identifierQueries.add(new Query("instructions for form " + formNumber,
+                    noisy(centroids[target.topic()], 0.35f, random), Set.of(target.id())));
+
+            int topic = random.nextInt(TOPICS);
+            List<String> words = topicWords.get(topic);
+            String text = words.get(random.nextInt(words.size())) + " " + words.get(random.nextInt(words.size()));
+            Set<Long> relevant = new HashSet<>();
+            chunks.stream().filter(chunk -> chunk.topic() == topic).forEach(chunk -> relevant.add(chunk.id()));
+            topicQueries.add(new Query(text, noisy(centroids[topic], 0.35f, random), relevant));
+        }
+
+        List<Query> titleQueries = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            int document = random.nextInt(titles.size());
+            Chunk first = chunks.get(document * CHUNKS_PER_DOCUMENT);
+            Set<Long> relevant = new HashSet<>();
+            chunks.stream().filter(chunk -> chunk.id() / CHUNKS_PER_DOCUMENT == document)
+                    .forEach(chunk -> relevant.add(chunk.id()));
+            titleQueries.add(new Query(first.title().substring("Petition for ".length()).toLowerCase(Locale.ROOT),
+                    noisy(centroids[first.topic()], 0.35f, random), relevant));
+        }
+
+        return new Corpus(chunks, identifierQueries, topicQueries, titleQueries);
+    }
+
+    /**
+     * Recall of the first relevant result within {@link #N_RESULTS}, mean reciprocal rank
+     * and nDCG at {@link #N_RESULTS} with binary relevance. With many relevant chunks per
+     * query, as for topic queries, the MRR is close to precision at 1.
+     */
+    private static Metrics evaluate(List<Query> queries, Function<Query, List<Long>> search) {
+        double found = 0;
+        double reciprocalRanks = 0;
+        double ndcgs = 0;
+        for (Query query : queries) {
+            List<Long> results = search.apply(query);
+            double dcg = 0;
+            boolean first = true;
+            for (int rank = 0; rank < Math.min(N_RESULTS, results.size()); rank++) {
+                if (query.relevant().contains(results.get(rank))) {
+                    dcg += 1 / log2(rank + 2);
+                    if (first) {
+                        found++;
+                        reciprocalRanks += 1.0 / (rank + 1);
+                        first = false;
+                    }
+                }
+            }
+            double idealDcg = 0;
+            for (int rank = 0; rank < Math.min(N_RESULTS, query.relevant().size()); rank++) {
+                idealDcg += 1 / log2(rank + 2);
+            }
+            ndcgs += dcg / idealDcg;
+        }
+        return new Metrics(found / queries.size(), reciprocalRanks / queries.size(), ndcgs / queries.size());
+    }
+
+    private static double log2(int value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    private static List<Long> vectorSearch(List<Chunk> chunks, Query query, int topK) {
+        return chunks.stream()
+                .sorted(Comparator.comparingDouble((Chunk chunk) -> -cosine(chunk.embedding(), query.embedding())))
+                .limit(topK)
+                .map(Chunk::id)
+                .toList();
+    }
+
+    private static List<Long> bm25Search(Bm25Index index, Query query, int topK) {
+        return index.search(query.text(), topK).stream().map(Bm25Index.Hit::id).toList();
+    }
+
+    /**
+     * The former re-ranking: over-fetch vector results and add a fixed boost to those whose
+     * text contains an identifier of the query verbatim.
+     */
+    private static List<Long> substringBoost(List<Chunk> chunks, Query query) {
+        List<String> keywords = new ArrayList<>();
+        Matcher matcher = ALPHANUMERIC_ID_PATTERN.matcher(query.text());
+        while (matcher.find()) {
+            keywords.add(matcher.group());
+        }
+        int candidates = keywords.isEmpty() ? N_RESULTS : Math.min(N_RESULTS * 20, 500);
+        return chunks.stream()
+                .sorted(Comparator.comparingDouble((Chunk chunk) -> -cosine(chunk.embedding(), query.embedding())))
+                .limit(candidates)
+                .sorted(Comparator.comparingDouble((Chunk chunk) -> {
+                    float boost = 0;
+                    for (String keyword : keywords) {
+                        if (chunk.text().contains(keyword)) {
+                            boost += SUBSTRING_BOOST;
+                        }
+                    }
+                    return -(cosine(chunk.embedding(), query.embedding()) + boost);
+                }))
+                .limit(N_RESULTS)
+                .map(Chunk::id)
+                .toList();
+    }
+
+    /**
+     * The search path of the store: vector and BM25 candidates fused by reciprocal rank.
+     */
+    private static List<Long> hybridSearch(List<Chunk> chunks, Bm25Index index, Query query) {
+        int candidates = N_RESULTS * 4;
+        return RankFusion.reciprocalRank(List.of(vectorSearch(chunks, query, candidates),
+                        bm25Search(index, query, candidates)), RankFusion.DEFAULT_RRF_K)
+                .keySet().stream()
+                .limit(N_RESULTS)
+                .toList();
+    }
+
+    private static String pseudoWord(Random random) {
+        String[] syllables = { "ka", "lo", "mi", "re", "su", "ta", "ven", "dor", "pel", "qui", "ban", "tor" };
+        StringBuilder word = new StringBuilder();
+        int length = 2 + random.nextInt(2);
+        for (int i = 0; i < length; i++) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String titleWord(Random random) {
+        String[] syllables = { "zar", "wix", "yon", "jub", "fex", "gir", "hov", "nuz" };
+        return syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)]
+                + syllables[random.nextInt(syllables.length)];
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return normalize(vector);
+    }
+
+    private static float[] noisy(float[] centroid, float noise, Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = centroid[i] + noise * (float) random.nextGaussian();
+        }
+        return normalize(vector);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static float cosine(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
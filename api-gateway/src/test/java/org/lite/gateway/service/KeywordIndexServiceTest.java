@@ -0,0 +1,187 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lite.gateway.util.Bm25Index;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+class KeywordIndexServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private ChunkEncryptionService encryption;
+    private ReactiveStringRedisTemplate redisTemplate;
+    private final AtomicInteger chunkReads = new AtomicInteger();
+    private final Map<String, String> leases = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Segment files are "encrypted" as their plaintext
+        encryption = mock(ChunkEncryptionService.class);
+        lenient().when(encryption.getCurrentKeyVersion(anyString())).thenReturn(Mono.just("v1"));
+        lenient().when(encryption.encryptFile(any(), anyString(), anyString()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        lenient().when(encryption.decryptFile(any(), anyString(), anyString()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // Directory leases: taking one passes the instance and TTL, releasing it only the instance
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        lenient().when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(invocation -> {
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            List<String> args = invocation.getArgument(2);
+            if (args.size() == 1) {
+                return Flux.just(leases.remove(key, args.get(0)) ? 1L : 0L);
+            }
+            String owner = leases.putIfAbsent(key, args.get(0));
+            return Flux.just(owner == null ? args.get(0) : owner);
+        });
+    }
+
+    private KeywordIndexService service() {
+        return service(30_000);
+    }
+
+    private KeywordIndexService service(long leaseTtlMillis) {
+        KeywordIndexService.ChunkSource chunkSource = (collectionName, teamId) -> Flux.defer(() -> {
+            chunkReads.incrementAndGet();
+            return Flux.just(
+                    new KeywordIndexService.KeywordDocument(1, "doc-a", "File form I-485 with the fee", null),
+                    new KeywordIndexService.KeywordDocument(2, "doc-b", "Where to mail the application",
+                            "Petition for Alien Relative"));
+        });
+        return new KeywordIndexService(encryption, chunkSource, redisTemplate, true, true, directory.toString(),
+                5_000, leaseTtlMillis);
+    }
+
+    private Path segment() {
+        return directory.resolve("docs").resolve("team-1.bm25");
+    }
+
+    @Test
+    void testMissingSegmentIsRebuiltFromMilvusAndWritten() {
+        KeywordIndexService service = service();
+
+        List<Bm25Index.Hit> hits = service.search("docs", "team-1", "petition", 10).block();
+
+        assertEquals(1, hits.size());
+        assertEquals(2, hits.get(0).id());
+        assertEquals(1L, service.getStats().get("rebuilds"));
+
+        service.flush().block();
+        assertTrue(Files.exists(segment()));
+
+        // A fresh instance loads the written segment instead of reading Milvus again
+        KeywordIndexService reloaded = service();
+        assertEquals(1, reloaded.search("docs", "team-1", "I-485", 10).block().size());
+        assertEquals(1, chunkReads.get());
+        assertEquals(0L, reloaded.getStats().get("rebuilds"));
+    }
+
+    @Test
+    void testUnreadableSegmentFailsTheLoadAndIsKept() throws Exception {
+        byte[] corrupt = "not a segment".getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(segment().getParent());
+        Files.write(segment(), corrupt);
+        KeywordIndexService service = service();
+
+        assertThrows(RuntimeException.class, () -> service.search("docs", "team-1", "petition", 10).block());
+        assertThrows(RuntimeException.class, () -> service.add("docs", "team-1",
+                List.of(new KeywordIndexService.KeywordDocument(3, "doc-c", "text", null))).block());
+        service.flush().block();
+
+        // The failure was not cached as an empty index, so nothing overwrote the file
+        assertArrayEquals(corrupt, Files.readAllBytes(segment()));
+        assertEquals(2L, service.getStats().get("loadFailures"));
+        assertEquals(0, chunkReads.get());
+    }
+
+    @Test
+    void testSearchDoesNotWaitForARebuildInProgress() throws Exception {
+        Sinks.Many<KeywordIndexService.KeywordDocument> milvus = Sinks.many().unicast().onBackpressureBuffer();
+        KeywordIndexService service = new KeywordIndexService(encryption, (collectionName, teamId) -> milvus.asFlux(),
+                redisTemplate, true, true, directory.toString(), 50, 30_000);
+
+        // The rebuild is still reading Milvus, so the search returns without keyword hits
+        assertEquals(List.of(), service.search("docs", "team-1", "petition", 10).block(Duration.ofSeconds(5)));
+        assertEquals(1L, service.getStats().get("searchesWhileLoading"));
+
+        // The rebuild went on after the search gave up on it
+        milvus.tryEmitNext(new KeywordIndexService.KeywordDocument(2, "doc-b", "Petition for Alien Relative", null));
+        milvus.tryEmitComplete();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!service.getStats().get("rebuilds").equals(1L) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1L, service.getStats().get("rebuilds"));
+        List<Bm25Index.Hit> hits = service.search("docs", "team-1", "petition", 10).block(Duration.ofSeconds(5));
+        assertEquals(1, hits.size());
+        assertEquals(2, hits.get(0).id());
+    }
+
+    @Test
+    void testDirectoryMustBeAnAbsolutePathWhenEnabled() {
+        KeywordIndexService.ChunkSource chunkSource = (collectionName, teamId) -> Flux.empty();
+
+        assertThrows(IllegalStateException.class, () -> new KeywordIndexService(encryption, chunkSource,
+                redisTemplate, true, true, "", 200, 30_000));
+        assertThrows(IllegalStateException.class, () -> new KeywordIndexService(encryption, chunkSource,
+                redisTemplate, true, true, "data/keyword-index", 200, 30_000));
+        assertFalse(new KeywordIndexService(encryption, chunkSource, redisTemplate, false, true, "", 200, 30_000)
+                .isEnabled());
+    }
+
+    @Test
+    void testSecondInstanceOnTheSameDirectoryFailsToStart() {
+        KeywordIndexService first = service();
+        first.acquireDirectoryLease();
+        KeywordIndexService second = service(100);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, second::acquireDirectoryLease);
+        assertTrue(error.getMessage().contains(directory.toString()));
+
+        // Once the first instance shuts down, the next one starts without waiting
+        first.shutdown();
+        second.acquireDirectoryLease();
+        assertEquals(1, leases.size());
+    }
+
+    @Test
+    void testInstanceThatLostItsLeaseStopsWritingSegments() {
+        KeywordIndexService service = service();
+        service.acquireDirectoryLease();
+        service.add("docs", "team-1", List.of(new KeywordIndexService.KeywordDocument(3, "doc-c", "text", null)))
+                .block();
+
+        leases.replaceAll((key, owner) -> "other-instance");
+        service.renewDirectoryLease();
+        service.flush().block();
+
+        assertEquals(true, service.getStats().get("directoryLeaseLost"));
+        assertFalse(Files.exists(segment()));
+        service.shutdown();
+        assertEquals("other-instance", leases.values().iterator().next());
+    }
+}
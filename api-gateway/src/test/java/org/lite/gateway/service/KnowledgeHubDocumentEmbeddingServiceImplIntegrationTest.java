@@ -90,6 +90,9 @@ class KnowledgeHubDocumentEmbeddingServiceImplIntegrationTest {
                                 .thenAnswer(i -> Mono.just(i.getArgument(0)));
                 when(chunkEncryptionService.decryptChunkText(anyString(), anyString(), anyString()))
                                 .thenAnswer(i -> Mono.just(i.getArgument(0)));
+                when(chunkEncryptionService.decryptChunkText(anyString(), anyString(), anyString(), any(), any(),
+                                any()))
+                                .thenAnswer(i -> Mono.just(i.getArgument(0)));
                 when(chunkEncryptionService.getCurrentKeyVersion(anyString())).thenReturn(Mono.just("v1"));
 
                 // Configure AuditLogHelper to return empty Mono for all method signatures
@@ -145,6 +145,9 @@ class KnowledgeHubDocumentMetaDataServiceImplIntegrationTest {
                                 .thenAnswer(i -> Mono.just(i.getArgument(0)));
                 when(chunkEncryptionService.decryptChunkText(anyString(), anyString(), anyString()))
                                 .thenAnswer(i -> Mono.just(i.getArgument(0)));
+                when(chunkEncryptionService.decryptChunkText(anyString(), anyString(), anyString(), any(), any(),
+                                any()))
+                                .thenAnswer(i -> Mono.just(i.getArgument(0)));
                 when(chunkEncryptionService.getCurrentKeyVersion(anyString())).thenReturn(Mono.just("v1"));
 
                 when(auditLogHelper.logDetailedEvent(
@@ -0,0 +1,149 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lite.gateway.entity.ApiMetric;
+import org.lite.gateway.enums.MetricsOverflowPolicy;
+import org.lite.gateway.repository.ApiMetricRepository;
+import org.lite.gateway.util.BoundedRingBuffer;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsIngestionPipelineTest {
+
+    @Mock
+    private ApiMetricRepository apiMetricRepository;
+
+    private MetricsIngestionPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void testRingBufferRoundsCapacityAndPreservesOrder() {
+        BoundedRingBuffer<Integer> buffer = new BoundedRingBuffer<>(5);
+        assertEquals(8, buffer.capacity());
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(8), "Full buffer should reject");
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(8, buffer.drainTo(drained, 100));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), drained);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testDropNewestCountsDroppedRecords() {
+        pipeline = new MetricsIngestionPipeline(apiMetricRepository, 4, 100, 1000, 1000,
+                MetricsOverflowPolicy.DROP_NEWEST, 10);
+
+        int accepted = 0;
+        for (int i = 0; i < 6; i++) {
+            if (pipeline.offer(metric("route-" + i))) {
+                accepted++;
+            }
+        }
+
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(4, accepted);
+        assertEquals(4L, stats.get("enqueued"));
+        assertEquals(2L, stats.get("dropped"));
+        assertEquals(4, stats.get("buffered"));
+    }
+
+    @Test
+    void testDrainWritesOneBulkInsertPerBatch() {
+        when(apiMetricRepository.insert(anyList())).thenAnswer(inv -> Flux.fromIterable(inv.getArgument(0)));
+        pipeline = new MetricsIngestionPipeline(apiMetricRepository, 64, 100, 1000, 1000,
+                MetricsOverflowPolicy.DROP_NEWEST, 10);
+
+        for (int i = 0; i < 10; i++) {
+            pipeline.offer(metric("route-" + i));
+        }
+        pipeline.drain();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ApiMetric>> captor = ArgumentCaptor.forClass(List.class);
+        verify(apiMetricRepository, times(1)).insert(captor.capture());
+        assertEquals(10, captor.getValue().size());
+        assertEquals("route-0", captor.getValue().get(0).getRouteIdentifier());
+
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(10L, stats.get("flushed"));
+        assertEquals(1L, stats.get("batches"));
+        assertEquals(0, stats.get("buffered"));
+    }
+
+    @Test
+    void testSamplePolicyThinsTrafficAboveHighWaterMark() {
+        pipeline = new MetricsIngestionPipeline(apiMetricRepository, 16, 100, 1000, 1000,
+                MetricsOverflowPolicy.SAMPLE, 4);
+
+        // 12 = 75% of 16 fills the buffer up to the high-water mark without sampling
+        for (int i = 0; i < 12; i++) {
+            assertTrue(pipeline.offer(metric("route-" + i)));
+        }
+        int acceptedAboveMark = 0;
+        for (int i = 0; i < 8; i++) {
+            if (pipeline.offer(metric("burst-" + i))) {
+                acceptedAboveMark++;
+            }
+        }
+
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(2, acceptedAboveMark);
+        assertEquals(6L, stats.get("sampledOut"));
+        assertEquals(0L, stats.get("dropped"));
+    }
+
+    @Test
+    void testUnwrittenRequestsAreCarriedOntoTheNextRecordOfTheRoute() {
+        when(apiMetricRepository.insert(anyList())).thenAnswer(inv -> Flux.fromIterable(inv.getArgument(0)));
+        pipeline = new MetricsIngestionPipeline(apiMetricRepository, 4, 100, 1000, 1000,
+                MetricsOverflowPolicy.DROP_NEWEST, 10);
+
+        for (int i = 0; i < 4; i++) {
+            pipeline.offer(metric("route-" + i));
+        }
+        // Buffer full: two requests of orders are dropped
+        assertFalse(pipeline.offer(metric("orders")));
+        assertFalse(pipeline.offer(metric("orders")));
+        assertEquals(2L, pipeline.getStats().get("carriedOver"));
+
+        pipeline.drain();
+        ApiMetric next = metric("orders");
+        ApiMetric other = metric("payments");
+        assertTrue(pipeline.offer(next));
+        assertTrue(pipeline.offer(other));
+
+        assertEquals(3, next.getSampleWeight());
+        assertNull(other.getSampleWeight());
+        assertEquals(0L, pipeline.getStats().get("carriedOver"));
+    }
+
+    private ApiMetric metric(String routeIdentifier) {
+        ApiMetric metric = new ApiMetric();
+        metric.setRouteIdentifier(routeIdentifier);
+        metric.setPathEndPoint("/r/" + routeIdentifier + "/items");
+        return metric;
+    }
+}
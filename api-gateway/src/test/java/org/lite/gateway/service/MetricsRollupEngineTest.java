@@ -0,0 +1,240 @@
+package org.lite.gateway.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lite.gateway.entity.ApiMetric;
+import org.lite.gateway.entity.ApiMetricRollup;
+import org.lite.gateway.repository.ApiMetricRollupRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsRollupEngineTest {
+
+    private static final LocalDateTime MINUTE = LocalDateTime.of(2025, 3, 14, 10, 0);
+
+    @Mock
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Mock
+    private ApiMetricRollupRepository rollupRepository;
+
+    private MetricsRollupEngine engine() {
+        return new MetricsRollupEngine(reactiveMongoTemplate, rollupRepository, 10_000, 5_000, 10);
+    }
+
+    private static ApiMetric metric(LocalDateTime timestamp, String route, long duration, boolean success) {
+        ApiMetric metric = new ApiMetric();
+        metric.setTimestamp(timestamp);
+        metric.setRouteIdentifier(route);
+        metric.setFromService("gateway");
+        metric.setToService("inventory");
+        metric.setDuration(duration);
+        metric.setSuccess(success);
+        metric.setBytes(100);
+        return metric;
+    }
+
+    /**
+     * Captures every upsert as (_id, $inc document) pairs.
+     */
+    private ConcurrentLinkedQueue<Map.Entry<String, Document>> captureUpserts() {
+        ConcurrentLinkedQueue<Map.Entry<String, Document>> upserts = new ConcurrentLinkedQueue<>();
+        when(reactiveMongoTemplate.upsert(any(Query.class), any(Update.class), eq(ApiMetricRollup.class)))
+                .thenAnswer(invocation -> {
+                    Query query = invocation.getArgument(0);
+                    Update update = invocation.getArgument(1);
+                    upserts.add(Map.entry(query.getQueryObject().getString("_id"),
+                            update.getUpdateObject().get("$inc", Document.class)));
+                    return Mono.empty();
+                });
+        return upserts;
+    }
+
+    private static Map<String, Document> byId(ConcurrentLinkedQueue<Map.Entry<String, Document>> upserts) {
+        Map<String, Document> byId = new HashMap<>();
+        upserts.forEach(entry -> byId.put(entry.getKey(), entry.getValue()));
+        return byId;
+    }
+
+    @Test
+    void testRecordsAreBucketedPerMinuteAndRoute() {
+        ConcurrentLinkedQueue<Map.Entry<String, Document>> upserts = captureUpserts();
+        MetricsRollupEngine engine = engine();
+
+        engine.record(metric(MINUTE.plusSeconds(5), "orders", 10, true));
+        engine.record(metric(MINUTE.plusSeconds(40), "orders", 30, false));
+        engine.record(metric(MINUTE.plusSeconds(59), "payments", 20, true));
+        engine.record(metric(MINUTE.plusMinutes(1).plusSeconds(1), "orders", 50, true));
+        engine.record(metric(null, "orders", 50, true));
+
+        engine.flushClosedBuckets(MINUTE.plusMinutes(5)).block();
+
+        Map<String, Document> byId = byId(upserts);
+        assertEquals(3, byId.size());
+
+        Document orders = byId.get(MINUTE + "|orders|gateway|inventory");
+        assertEquals(2L, orders.getLong("count"));
+        assertEquals(1L, orders.getLong("errorCount"));
+        assertEquals(40L, orders.getLong("totalDuration"));
+        assertEquals(200L, orders.getLong("bytes"));
+
+        Document payments = byId.get(MINUTE + "|payments|gateway|inventory");
+        assertEquals(1L, payments.getLong("count"));
+        assertEquals(0L, payments.getLong("errorCount"));
+
+        Document nextMinute = byId.get(MINUTE.plusMinutes(1) + "|orders|gateway|inventory");
+        assertEquals(1L, nextMinute.getLong("count"));
+
+        Map<String, Object> stats = engine.getStats();
+        assertEquals(4L, stats.get("recorded"));
+        assertEquals(0, stats.get("openBuckets"));
+        assertEquals(3L, stats.get("flushedBuckets"));
+    }
+
+    @Test
+    void testOpenMinuteIsNotFlushed() {
+        ConcurrentLinkedQueue<Map.Entry<String, Document>> upserts = captureUpserts();
+        MetricsRollupEngine engine = engine();
+
+        engine.record(metric(MINUTE.plusSeconds(5), "orders", 10, true));
+        engine.record(metric(MINUTE.plusMinutes(1).plusSeconds(5), "orders", 10, true));
+
+        // The first minute closed 3s ago, inside the 5s grace period
+        engine.flushClosedBuckets(MINUTE.plusMinutes(1).plusSeconds(3)).block();
+        assertTrue(upserts.isEmpty());
+
+        engine.flushClosedBuckets(MINUTE.plusMinutes(1).plusSeconds(6)).block();
+        assertEquals(1, upserts.size());
+        assertEquals(MINUTE + "|orders|gateway|inventory", upserts.peek().getKey());
+        assertEquals(1, engine.getStats().get("openBuckets"));
+    }
+
+    @Test
+    void testFlushFailureDoesNotStopOtherBuckets() {
+        when(reactiveMongoTemplate.upsert(any(Query.class), any(Update.class), eq(ApiMetricRollup.class)))
+                .thenReturn(Mono.error(new IllegalStateException("mongo down")));
+        MetricsRollupEngine engine = engine();
+
+        engine.record(metric(MINUTE, "orders", 10, true));
+        engine.record(metric(MINUTE, "payments", 10, true));
+
+        assertDoesNotThrow(() -> engine.flushClosedBuckets(MINUTE.plusMinutes(5)).block());
+        verify(reactiveMongoTemplate, times(2))
+                .upsert(any(Query.class), any(Update.class), eq(ApiMetricRollup.class));
+        assertEquals(0L, engine.getStats().get("flushedBuckets"));
+    }
+
+    @Test
+    void testRecordsDuringFlushAreNotLost() throws Exception {
+        ConcurrentLinkedQueue<Map.Entry<String, Document>> upserts = captureUpserts();
+        MetricsRollupEngine engine = engine();
+        int writers = 4;
+        int perWriter = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        engine.record(metric(MINUTE.plusSeconds(i % 60), "orders", 1, i % 10 != 0));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            // Flush the same minute repeatedly while the writers are still adding to it
+            Thread flusher = new Thread(() -> {
+                while (writing.get()) {
+                    engine.flushClosedBuckets(MINUTE.plusMinutes(5)).block();
+                }
+            });
+            flusher.start();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } finally {
+            executor.shutdownNow();
+        }
+        engine.flushClosedBuckets(MINUTE.plusMinutes(5)).block();
+
+        long count = upserts.stream().mapToLong(entry -> entry.getValue().getLong("count")).sum();
+        long errors = upserts.stream().mapToLong(entry -> entry.getValue().getLong("errorCount")).sum();
+        assertEquals((long) writers * perWriter, count);
+        assertEquals((long) writers * perWriter / 10, errors);
+    }
+
+    @Test
+    void testPlanWindowSplitsRangeIntoRawAndRollupSpans() {
+        ApiMetricRollup first = new ApiMetricRollup();
+        first.setMinute(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.MINUTES));
+        when(rollupRepository.findFirstByOrderByMinuteAsc()).thenReturn(Mono.just(first));
+        MetricsRollupEngine engine = engine();
+
+        LocalDateTime start = LocalDateTime.now().minusHours(3).truncatedTo(ChronoUnit.MINUTES).plusSeconds(20);
+        LocalDateTime end = start.plusHours(1).plusSeconds(15);
+        Optional<MetricsRollupEngine.RollupWindow> window = engine.planWindow(start, end).block();
+
+        assertTrue(window.isPresent());
+        assertEquals(start, window.get().rawStart());
+        assertEquals(start.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1), window.get().rollupStart());
+        assertEquals(end.truncatedTo(ChronoUnit.MINUTES), window.get().rollupEnd());
+        assertEquals(end, window.get().rawEnd());
+    }
+
+    @Test
+    void testPlanWindowFallsBackToRaw() {
+        ApiMetricRollup first = new ApiMetricRollup();
+        first.setMinute(LocalDateTime.now().minusHours(2).truncatedTo(ChronoUnit.MINUTES));
+        when(rollupRepository.findFirstByOrderByMinuteAsc()).thenReturn(Mono.just(first));
+        MetricsRollupEngine engine = engine();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Narrower than the 10 minute minimum span
+        assertTrue(engine.planWindow(now.minusMinutes(70), now.minusMinutes(65)).block().isEmpty());
+        // Starts before the first rollup
+        assertTrue(engine.planWindow(now.minusHours(3), now.minusHours(1)).block().isEmpty());
+        // Entirely after the flush watermark
+        assertTrue(engine.planWindow(now.minusSeconds(30), now).block().isEmpty());
+        assertTrue(engine.planWindow(null, now).block().isEmpty());
+    }
+
+    @Test
+    void testPlanWindowWithoutRollupsFallsBackToRaw() {
+        when(rollupRepository.findFirstByOrderByMinuteAsc()).thenReturn(Mono.empty());
+        MetricsRollupEngine engine = engine();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertTrue(engine.planWindow(now.minusHours(3), now.minusHours(1)).block().isEmpty());
+    }
+}
@@ -0,0 +1,192 @@
+package org.lite.gateway.service;
+
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.CollectionSchema;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.GetCollectionStatisticsResponse;
+import io.milvus.grpc.GetLoadStateResponse;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.LoadState;
+import io.milvus.grpc.ShowCollectionsResponse;
+import io.milvus.param.R;
+import io.milvus.param.RpcStatus;
+import io.milvus.param.collection.DescribeCollectionParam;
+import io.milvus.param.collection.GetCollectionStatisticsParam;
+import io.milvus.param.collection.GetLoadStateParam;
+import io.milvus.param.collection.LoadCollectionParam;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.service.MilvusCollectionCatalog.Entry;
+import org.lite.gateway.service.ReactiveMilvusClient.Operation;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MilvusCollectionCatalogTest {
+
+    private MilvusServiceClient sdk;
+    private ReactiveMilvusClient client;
+
+    @BeforeEach
+    void setUp() {
+        sdk = mock(MilvusServiceClient.class);
+        when(sdk.showCollections(any())).thenReturn(R.success(ShowCollectionsResponse.newBuilder()
+                .addCollectionNames("docs")
+                .addCollectionNames("faq")
+                .build()));
+        when(sdk.describeCollection(any())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0, DescribeCollectionParam.class).getCollectionName();
+            return R.success(DescribeCollectionResponse.newBuilder()
+                    .setCollectionName(name)
+                    .setSchema(CollectionSchema.newBuilder().setName(name))
+                    .addProperties(KeyValuePair.newBuilder().setKey("teamId").setValue("team-" + name))
+                    .addProperties(KeyValuePair.newBuilder().setKey("collectionType").setValue("KNOWLEDGE_HUB"))
+                    .build());
+        });
+        when(sdk.getLoadState(any())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0, GetLoadStateParam.class).getCollectionName();
+            return R.success(GetLoadStateResponse.newBuilder()
+                    .setState("docs".equals(name) ? LoadState.LoadStateLoaded : LoadState.LoadStateNotLoad)
+                    .build());
+        });
+        when(sdk.getCollectionStatistics(any())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0, GetCollectionStatisticsParam.class).getCollectionName();
+            return R.success(GetCollectionStatisticsResponse.newBuilder()
+                    .addStats(KeyValuePair.newBuilder().setKey("row_count").setValue("docs".equals(name) ? "42" : "0"))
+                    .build());
+        });
+        when(sdk.loadCollection(any())).thenReturn(R.success(new RpcStatus(RpcStatus.SUCCESS_MSG)));
+        client = new ReactiveMilvusClient(sdk, Schedulers.newBoundedElastic(4, 100, "milvus-test"), true,
+                Map.of(Operation.SEARCH, 4, Operation.WRITE, 2, Operation.QUERY, 4, Operation.ADMIN, 4),
+                Map.of(Operation.SEARCH, Duration.ofSeconds(5), Operation.WRITE, Duration.ofSeconds(5),
+                        Operation.QUERY, Duration.ofSeconds(5), Operation.ADMIN, Duration.ofSeconds(5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    private static LoadCollectionParam loadOf(String name) {
+        return argThat(param -> param != null && name.equals(param.getCollectionName()));
+    }
+
+    private static List<Entry> sorted(Collection<Entry> entries) {
+        return entries.stream().sorted(Comparator.comparing(Entry::name)).toList();
+    }
+
+    @Test
+    void testListingIsServedFromCatalogAfterFirstBuild() {
+        MilvusCollectionCatalog catalog = new MilvusCollectionCatalog(client, "", 5);
+
+        StepVerifier.create(catalog.entries().map(MilvusCollectionCatalogTest::sorted))
+                .assertNext(entries -> {
+                    assertEquals(2, entries.size());
+                    Entry docs = entries.get(0);
+                    assertEquals("team-docs", docs.teamId());
+                    assertEquals("KNOWLEDGE_HUB", docs.collectionType());
+                    assertEquals(MilvusCollectionCatalog.LoadState.LOADED, docs.loadState());
+                    assertEquals(42, docs.rowCount());
+                    assertEquals(MilvusCollectionCatalog.LoadState.NOT_LOADED, entries.get(1).loadState());
+                })
+                .verifyComplete();
+        StepVerifier.create(catalog.entries()).expectNextCount(1).verifyComplete();
+
+        verify(sdk, times(1)).showCollections(any());
+        verify(sdk, times(2)).describeCollection(any());
+        assertEquals(1L, catalog.getStats().get("refreshes"));
+    }
+
+    @Test
+    void testDescribeAndRowCountUpdatesUseCatalog() {
+        MilvusCollectionCatalog catalog = new MilvusCollectionCatalog(client, "", 5);
+        catalog.refresh().block(Duration.ofSeconds(5));
+
+        assertEquals(0, catalog.describe(sdk, "docs").getStatus());
+        assertEquals("docs", catalog.describe(sdk, "docs").getData().getCollectionName());
+        verify(sdk, times(2)).describeCollection(any());
+
+        catalog.recordInsert("docs", 8);
+        catalog.recordDelete("docs", 20);
+        catalog.remove("faq");
+        StepVerifier.create(catalog.entries())
+                .assertNext(entries -> {
+                    assertEquals(1, entries.size());
+                    assertEquals(30, entries.iterator().next().rowCount());
+                })
+                .verifyComplete();
+
+        // Unknown collections are described once and then cached
+        catalog.describe(sdk, "new");
+        catalog.describe(sdk, "new");
+        verify(sdk, times(3)).describeCollection(any());
+        assertEquals(1L, catalog.getStats().get("describeMisses"));
+    }
+
+    @Test
+    void testEnsureLoadedSkipsLoadedCollections() {
+        MilvusCollectionCatalog catalog = new MilvusCollectionCatalog(client, "", 0);
+        catalog.refresh().block(Duration.ofSeconds(5));
+
+        catalog.ensureLoaded(sdk, "docs");
+        verify(sdk, never()).loadCollection(any());
+
+        catalog.ensureLoaded(sdk, "faq");
+        catalog.ensureLoaded(sdk, "faq");
+        verify(sdk, times(1)).loadCollection(loadOf("faq"));
+
+        catalog.markNotLoaded("docs");
+        catalog.ensureLoaded(sdk, "docs");
+        verify(sdk, times(1)).loadCollection(loadOf("docs"));
+    }
+
+    @Test
+    void testRefreshPreloadsConfiguredCollections() {
+        MilvusCollectionCatalog catalog = new MilvusCollectionCatalog(client, "faq, missing", 0);
+
+        catalog.refresh().block(Duration.ofSeconds(5));
+
+        verify(sdk, times(1)).loadCollection(loadOf("faq"));
+        verify(sdk, never()).loadCollection(loadOf("missing"));
+    }
+
+    @Test
+    void testRefreshPreloadsMostSearchedCollections() {
+        MilvusCollectionCatalog catalog = new MilvusCollectionCatalog(client, "", 1);
+        catalog.refresh().block(Duration.ofSeconds(5));
+        verify(sdk, never()).loadCollection(any());
+
+        catalog.recordSearch("faq");
+        catalog.recordSearch("faq");
+        catalog.recordSearch("docs");
+        catalog.refresh().block(Duration.ofSeconds(5));
+
+        verify(sdk, times(1)).loadCollection(loadOf("faq"));
+        verify(sdk, never()).loadCollection(loadOf("docs"));
+    }
+
+    @Test
+    void testConcurrentRefreshesShareOneRebuild() {
+        MilvusCollectionCatalog catalog = new MilvusCollectionCatalog(client, "", 0);
+
+        Mono.when(catalog.refresh(), catalog.refresh(), catalog.entries()).block(Duration.ofSeconds(5));
+
+        verify(sdk, times(1)).showCollections(any());
+    }
+}
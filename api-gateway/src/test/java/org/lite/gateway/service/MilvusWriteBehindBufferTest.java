@@ -0,0 +1,204 @@
+package org.lite.gateway.service;
+
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.CollectionSchema;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.FieldSchema;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.MutationResult;
+import io.milvus.param.R;
+import io.milvus.param.dml.InsertParam;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.dto.MilvusBulkInsertResult;
+import org.lite.gateway.dto.MilvusInsertRow;
+import org.lite.gateway.service.ReactiveMilvusClient.Operation;
+import org.lite.gateway.service.impl.LinqMilvusStoreServiceImpl;
+import org.lite.gateway.util.AuditLogHelper;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MilvusWriteBehindBufferTest {
+
+    private static MilvusInsertRow row(int i, int dimension) {
+        return MilvusInsertRow.of(Map.of("text", "chunk " + i, "chunkIndex", i),
+                Collections.nCopies(dimension, 0.5f));
+    }
+
+    @Test
+    void testFlushesByRowCount() {
+        MilvusWriteBehindBuffer buffer = new MilvusWriteBehindBuffer(mock(LinqMilvusStoreService.class), 4,
+                Long.MAX_VALUE);
+
+        StepVerifier.create(buffer.batches(Flux.range(0, 10).map(i -> row(i, 8))).map(List::size))
+                .expectNext(4, 4, 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void testFlushesByByteSize() {
+        // 1,024-float embeddings are ~4 KB per row, so a 10 KB limit flushes every third row
+        MilvusWriteBehindBuffer buffer = new MilvusWriteBehindBuffer(mock(LinqMilvusStoreService.class), 100,
+                10_000);
+
+        StepVerifier.create(buffer.batches(Flux.range(0, 7).map(i -> row(i, 1024))).map(List::size))
+                .expectNext(3, 3, 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void testWriteIssuesOneBulkInsertPerFlushAndReportsFailures() {
+        LinqMilvusStoreService storeService = mock(LinqMilvusStoreService.class);
+        List<Integer> batchSizes = new ArrayList<>();
+        when(storeService.storeRecords(eq("kh_docs"), anyList(), eq("text"), eq("team-1")))
+                .thenAnswer(invocation -> {
+                    List<MilvusInsertRow> rows = invocation.getArgument(1);
+                    batchSizes.add(rows.size());
+                    List<MilvusBulkInsertResult.RowFailure> failures = batchSizes.size() == 2
+                            ? List.of(new MilvusBulkInsertResult.RowFailure(1, "dimension mismatch"))
+                            : List.of();
+                    return Mono.just(MilvusBulkInsertResult.builder()
+                            .collectionName("kh_docs")
+                            .requestedCount(rows.size())
+                            .insertedCount(rows.size() - failures.size())
+                            .insertCalls(1)
+                            .failures(failures)
+                            .build());
+                });
+        MilvusWriteBehindBuffer buffer = new MilvusWriteBehindBuffer(storeService, 50, Long.MAX_VALUE);
+
+        List<MilvusBulkInsertResult> results = buffer
+                .write("kh_docs", Flux.range(0, 120).map(i -> row(i, 8)), "text", "team-1")
+                .collectList()
+                .block();
+
+        assertEquals(List.of(50, 50, 20), batchSizes);
+        assertEquals(3, results.size());
+        assertTrue(results.get(1).hasFailures());
+        assertEquals(119L, buffer.getStats().get("rowsWritten"));
+        assertEquals(1L, buffer.getStats().get("failedRows"));
+        verify(storeService, times(3)).storeRecords(anyString(), anyList(), anyString(), anyString());
+    }
+
+    /**
+     * Store service over a mocked Milvus SDK with a {@code kh_docs} collection of
+     * id (Int64), text (VarChar, max 100 bytes), chunkIndex (Int32) and a 4-dimension vector.
+     */
+    private static LinqMilvusStoreServiceImpl storeService(MilvusServiceClient sdk) {
+        when(sdk.describeCollection(any())).thenReturn(R.success(DescribeCollectionResponse.newBuilder()
+                .setCollectionName("kh_docs")
+                .setSchema(CollectionSchema.newBuilder()
+                        .setName("kh_docs")
+                        .addFields(FieldSchema.newBuilder().setName("id").setDataType(DataType.Int64)
+                                .setIsPrimaryKey(true))
+                        .addFields(FieldSchema.newBuilder().setName("text").setDataType(DataType.VarChar)
+                                .addTypeParams(KeyValuePair.newBuilder().setKey("max_length").setValue("100")))
+                        .addFields(FieldSchema.newBuilder().setName("chunkIndex").setDataType(DataType.Int32))
+                        .addFields(FieldSchema.newBuilder().setName("embedding").setDataType(DataType.FloatVector)
+                                .addTypeParams(KeyValuePair.newBuilder().setKey("dim").setValue("4"))))
+                .build()));
+        ReactiveMilvusClient client = new ReactiveMilvusClient(sdk,
+                Schedulers.newBoundedElastic(2, 100, "milvus-bulk-test"), true,
+                Map.of(Operation.SEARCH, 2, Operation.WRITE, 2, Operation.QUERY, 2, Operation.ADMIN, 2),
+                Map.of(Operation.SEARCH, Duration.ofSeconds(5), Operation.WRITE, Duration.ofSeconds(5),
+                        Operation.QUERY, Duration.ofSeconds(5), Operation.ADMIN, Duration.ofSeconds(5)));
+        KeywordIndexService keywordIndexService = mock(KeywordIndexService.class);
+        when(keywordIndexService.add(anyString(), anyString(), anyList())).thenReturn(Mono.empty());
+        AuditLogHelper auditLogHelper = mock(AuditLogHelper.class);
+        when(auditLogHelper.logDetailedEvent(any(), any(), any(), anyString(), anyString(), anyMap(), any(), any(),
+                any())).thenReturn(Mono.empty());
+        LinqMilvusStoreServiceImpl service = new LinqMilvusStoreServiceImpl(null, null, null, client,
+                keywordIndexService, mock(MilvusCollectionCatalog.class), null, null, auditLogHelper);
+        ReflectionTestUtils.setField(service, "bulkMaxRows", 500);
+        return service;
+    }
+
+    private static MilvusInsertRow chunk(Object chunkIndex, String text, int dimension) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("text", text);
+        record.put("chunkIndex", chunkIndex);
+        return MilvusInsertRow.of(record, Collections.nCopies(dimension, 0.5f));
+    }
+
+    @Test
+    void testRowsThatCannotBeConvertedFailIndividually() {
+        MilvusServiceClient sdk = mock(MilvusServiceClient.class);
+        when(sdk.insert(any(InsertParam.class))).thenAnswer(invocation -> R.success(MutationResult.newBuilder()
+                .setInsertCnt(invocation.getArgument(0, InsertParam.class).getRowCount())
+                .build()));
+        MilvusWriteBehindBuffer buffer = new MilvusWriteBehindBuffer(storeService(sdk), 50, Long.MAX_VALUE);
+
+        List<MilvusBulkInsertResult> results = buffer.write("kh_docs", Flux.just(
+                        chunk(0, "first", 4),
+                        chunk("seven", "second", 4),
+                        chunk("2", "third", 4),
+                        chunk(3, "x".repeat(101), 4),
+                        chunk(4, "fifth", 3),
+                        chunk(5, null, 4)), "text", "team-1")
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // Unconvertible values fail their own row instead of the insert call or falling back to a default
+        MilvusBulkInsertResult result = results.get(0);
+        assertEquals(6, result.getRequestedCount());
+        assertEquals(2L, result.getInsertedCount());
+        assertEquals(1, result.getInsertCalls());
+        assertEquals(List.of(1, 3, 4, 5), result.getFailures().stream()
+                .map(MilvusBulkInsertResult.RowFailure::getRowIndex)
+                .toList());
+        assertTrue(result.getFailures().get(0).getError().contains("chunkIndex"));
+        assertTrue(result.getFailures().get(0).getError().contains("seven"));
+        assertTrue(result.getFailures().get(1).getError().contains("max length"));
+        assertTrue(result.getFailures().get(2).getError().contains("dimension"));
+        assertTrue(result.getFailures().get(3).getError().contains("not found"));
+
+        ArgumentCaptor<InsertParam> insert = ArgumentCaptor.forClass(InsertParam.class);
+        verify(sdk, times(1)).insert(insert.capture());
+        List<?> chunkIndexes = insert.getValue().getFields().stream()
+                .filter(field -> field.getName().equals("chunkIndex"))
+                .findFirst()
+                .orElseThrow()
+                .getValues();
+        assertEquals(List.of(0, 2), chunkIndexes);
+        assertEquals(2L, buffer.getStats().get("rowsWritten"));
+        assertEquals(4L, buffer.getStats().get("failedRows"));
+    }
+
+    @Test
+    void testFailedInsertCallReportsEachOfItsRows() {
+        MilvusServiceClient sdk = mock(MilvusServiceClient.class);
+        when(sdk.insert(any(InsertParam.class))).thenReturn(R.failed(new IllegalStateException("quota exceeded")));
+        MilvusWriteBehindBuffer buffer = new MilvusWriteBehindBuffer(storeService(sdk), 50, Long.MAX_VALUE);
+
+        MilvusBulkInsertResult result = buffer.write("kh_docs", Flux.just(
+                        chunk(0, "first", 4),
+                        chunk(1, "second", 3),
+                        chunk(2, "third", 4)), "text", "team-1")
+                .blockLast(Duration.ofSeconds(5));
+
+        assertEquals(0L, result.getInsertedCount());
+        assertEquals(1, result.getInsertCalls());
+        assertEquals(List.of(0, 1, 2), result.getFailures().stream()
+                .map(MilvusBulkInsertResult.RowFailure::getRowIndex)
+                .toList());
+        assertTrue(result.getFailures().get(0).getError().contains("quota exceeded"));
+        assertTrue(result.getFailures().get(1).getError().contains("dimension"));
+        assertTrue(result.getFailures().get(2).getError().contains("quota exceeded"));
+        assertEquals(3L, buffer.getStats().get("failedRows"));
+    }
+}
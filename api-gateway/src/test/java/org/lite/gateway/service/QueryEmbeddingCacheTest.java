@@ -0,0 +1,117 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.service.impl.InMemoryCacheServiceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryEmbeddingCacheTest {
+
+    private static final List<Float> VECTOR = List.of(0.1f, 0.2f, 0.3f, 0.4f);
+
+    private CacheService remote;
+    private AtomicInteger providerCalls;
+
+    @BeforeEach
+    void setUp() {
+        remote = new InMemoryCacheServiceImpl();
+        providerCalls = new AtomicInteger();
+    }
+
+    private QueryEmbeddingCache newCache() {
+        return new QueryEmbeddingCache(new EmbeddingCache(remote, 1, 1 << 20, "float32"), 100, 10);
+    }
+
+    private Mono<List<Float>> provider() {
+        return Mono.fromCallable(() -> {
+            providerCalls.incrementAndGet();
+            return VECTOR;
+        }).delayElement(Duration.ofMillis(30));
+    }
+
+    @Test
+    void testConcurrentIdenticalQueriesMakeOneProviderCall() {
+        QueryEmbeddingCache cache = newCache();
+
+        List<QueryEmbeddingCache.QueryEmbedding> results = Flux.range(0, 50)
+                .flatMap(i -> cache.embed("What is the refund policy?", "openai-embed", "m", 4, this::provider))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(50, results.size());
+        assertEquals(1, providerCalls.get());
+        // Callers that waited on the provider call are misses
+        assertTrue(results.stream().noneMatch(QueryEmbeddingCache.QueryEmbedding::cacheHit));
+
+        QueryEmbeddingCache.QueryEmbedding repeat = cache
+                .embed("What is the  refund policy? ", "openai-embed", "m", 4, this::provider)
+                .block(Duration.ofSeconds(5));
+        assertTrue(repeat.cacheHit());
+        assertEquals(VECTOR, repeat.embedding());
+        assertEquals(1, providerCalls.get());
+        assertEquals(1L, cache.getStats().get("localHits"));
+    }
+
+    @Test
+    void testOtherPodIsServedFromSharedCache() {
+        newCache().embed("q", "openai-embed", "m", 4, this::provider).block(Duration.ofSeconds(5));
+        QueryEmbeddingCache otherPod = new QueryEmbeddingCache(new EmbeddingCache(remote, 1, 1 << 20, "float32"),
+                100, 10);
+
+        QueryEmbeddingCache.QueryEmbedding result = otherPod.embed("q", "openai-embed", "m", 4, this::provider)
+                .block(Duration.ofSeconds(5));
+
+        assertTrue(result.cacheHit());
+        assertEquals(1, providerCalls.get());
+        assertEquals(1L, otherPod.getStats().get("sharedHits"));
+    }
+
+    @Test
+    void testDifferentModelsDoNotShareEntries() {
+        QueryEmbeddingCache cache = newCache();
+        cache.embed("q", "openai-embed", "small", 4, this::provider).block(Duration.ofSeconds(5));
+        cache.embed("q", "openai-embed", "large", 4, this::provider).block(Duration.ofSeconds(5));
+
+        assertEquals(2, providerCalls.get());
+    }
+
+    @Test
+    void testQueryReusesChunkEmbeddingOfTheSameDimension() {
+        EmbeddingCache embeddingCache = new EmbeddingCache(remote, 1, 1 << 20, "float32");
+        // Chunk embeddings are cached with the collection's embedding dimension
+        embeddingCache.getOrCompute("openai-embed", "m", 4, "Refunds take five days.", this::provider)
+                .block(Duration.ofSeconds(5));
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(embeddingCache, 100, 10);
+
+        QueryEmbeddingCache.QueryEmbedding sameDimension = cache
+                .embed("Refunds take five days.", "openai-embed", "m", 4, this::provider)
+                .block(Duration.ofSeconds(5));
+        cache.embed("Refunds take five days.", "openai-embed", "m", 8, this::provider).block(Duration.ofSeconds(5));
+
+        assertTrue(sameDimension.cacheHit());
+        assertEquals(1L, cache.getStats().get("sharedHits"));
+        assertEquals(2, providerCalls.get());
+    }
+
+    @Test
+    void testSearchLatencyIsSplitByHitAndMiss() {
+        QueryEmbeddingCache cache = newCache();
+        for (int i = 1; i <= 100; i++) {
+            cache.recordSearchLatency(true, i);
+            cache.recordSearchLatency(false, 500 + i);
+        }
+
+        assertEquals(100L, cache.getStats().get("searchHitCount"));
+        long hitP50 = (Long) cache.getStats().get("searchHitP50Ms");
+        assertTrue(hitP50 >= 50 && hitP50 <= 52, "hit p50 was " + hitP50);
+        assertTrue((Long) cache.getStats().get("searchMissP50Ms") >= 500);
+        assertTrue((Long) cache.getStats().get("searchMissP99Ms") >= (Long) cache.getStats().get("searchMissP50Ms"));
+    }
+}
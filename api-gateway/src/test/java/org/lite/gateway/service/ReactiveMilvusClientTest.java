@@ -0,0 +1,182 @@
+package org.lite.gateway.service;
+
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.param.R;
+import io.milvus.param.collection.HasCollectionParam;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.service.ReactiveMilvusClient.Operation;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// BlockHound instruments the whole JVM, so these tests run in their own surefire fork
+@Tag("blockhound")
+class ReactiveMilvusClientTest {
+
+    private MilvusServiceClient sdk;
+    private ReactiveMilvusClient client;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @BeforeAll
+    static void installBlockHound() {
+        BlockHound.install();
+    }
+
+    @BeforeEach
+    void setUp() {
+        sdk = mock(MilvusServiceClient.class);
+        // The SDK blocks the calling thread for the whole gRPC round trip
+        when(sdk.hasCollection(any())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } finally {
+                running.decrementAndGet();
+            }
+            return R.success(Boolean.TRUE);
+        });
+        client = new ReactiveMilvusClient(sdk, Schedulers.newBoundedElastic(8, 100, "milvus-test"), true,
+                Map.of(Operation.SEARCH, 8, Operation.WRITE, 2, Operation.QUERY, 8, Operation.ADMIN, 4),
+                Map.of(Operation.SEARCH, Duration.ofSeconds(5), Operation.WRITE, Duration.ofSeconds(5),
+                        Operation.QUERY, Duration.ofMillis(20), Operation.ADMIN, Duration.ofSeconds(5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    private static HasCollectionParam param(String collectionName) {
+        return HasCollectionParam.newBuilder().withCollectionName(collectionName).build();
+    }
+
+    @Test
+    void testBlockingSdkCallOnEventLoopIsDetected() {
+        // Negative control: calling the SDK directly from a non-blocking thread trips BlockHound
+        StepVerifier.create(Mono.delay(Duration.ofMillis(1))
+                .map(tick -> sdk.hasCollection(param("docs"))))
+                .expectError(BlockingOperationError.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testCallsFromEventLoopRunOnMilvusScheduler() {
+        StepVerifier.create(Mono.delay(Duration.ofMillis(1))
+                .flatMap(tick -> client.execute(Operation.SEARCH, "docs",
+                        milvus -> milvus.hasCollection(param("docs")))))
+                .assertNext(response -> assertEquals(Boolean.TRUE, response.getData()))
+                .verifyComplete();
+
+        StepVerifier.create(Mono.delay(Duration.ofMillis(1))
+                .flatMap(tick -> client.executeForData(Operation.ADMIN, ReactiveMilvusClient.ALL_COLLECTIONS,
+                        milvus -> milvus.hasCollection(param("docs")))))
+                .expectNext(Boolean.TRUE)
+                .verifyComplete();
+    }
+
+    @Test
+    void testLaneLimitsConcurrencyPerCollectionAndOperation() {
+        Long completed = Flux.range(0, 8)
+                .flatMap(i -> client.execute(Operation.WRITE, "docs",
+                        milvus -> milvus.hasCollection(param("docs"))))
+                .count()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(8L, completed);
+        assertEquals(2, maxRunning.get());
+        assertEquals(8L, operationStats("write").get("calls"));
+        assertEquals(0, client.getStats().get("queued"));
+        assertEquals(0, client.getStats().get("inFlight"));
+    }
+
+    @Test
+    void testOtherCollectionsAreNotQueuedBehindAFullLane() {
+        Long completed = Flux.range(0, 4)
+                .flatMap(i -> client.execute(Operation.WRITE, "docs-" + i,
+                        milvus -> milvus.hasCollection(param("docs-" + i))))
+                .count()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(4L, completed);
+        // Each collection has its own WRITE lane, so the limit of 2 does not apply across them
+        assertTrue(maxRunning.get() > 2, "max concurrent calls was " + maxRunning.get());
+    }
+
+    @Test
+    void testOperationTimeoutIsSignalledAndCounted() {
+        StepVerifier.create(client.execute(Operation.QUERY, "docs", milvus -> milvus.hasCollection(param("docs"))))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1L, operationStats("query").get("timeouts"));
+        assertEquals(1L, operationStats("query").get("failures"));
+    }
+
+    @Test
+    void testTimedOutCallKeepsItsLaneUntilTheSdkReturns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // Cancelling the timed-out call interrupts its thread; like a gRPC round trip, this call ignores that
+        doAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (release.getCount() > 0 && System.nanoTime() < deadline) {
+                try {
+                    release.await(10, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignored) {
+                    // keep waiting
+                }
+            }
+            return R.success(Boolean.TRUE);
+        }).when(sdk).hasCollection(any());
+        ReactiveMilvusClient narrow = new ReactiveMilvusClient(sdk,
+                Schedulers.newBoundedElastic(4, 100, "milvus-narrow"), true,
+                Map.of(Operation.QUERY, 1), Map.of(Operation.QUERY, Duration.ofMillis(200)));
+        try {
+            StepVerifier.create(narrow.execute(Operation.QUERY, "docs", milvus -> milvus.hasCollection(param("docs"))))
+                    .expectError(TimeoutException.class)
+                    .verify(Duration.ofSeconds(5));
+            assertEquals(1, narrow.getStats().get("abandoned"));
+            assertEquals(1, narrow.getStats().get("inFlight"));
+
+            // The SDK call is still running, so the next call on the lane has to wait for it
+            Mono<Boolean> next = narrow.executeForData(Operation.QUERY, "docs",
+                    milvus -> milvus.hasCollection(param("docs"))).cache();
+            next.subscribe(value -> { }, error -> { });
+            Thread.sleep(50);
+            assertEquals(1, narrow.getStats().get("queued"));
+
+            release.countDown();
+            assertEquals(Boolean.TRUE, next.block(Duration.ofSeconds(5)));
+            assertEquals(0, narrow.getStats().get("abandoned"));
+            assertEquals(0, narrow.getStats().get("inFlight"));
+            assertEquals(0, narrow.getStats().get("queued"));
+        } finally {
+            narrow.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> operationStats(String operation) {
+        return (Map<String, Object>) client.getStats().get(operation);
+    }
+}
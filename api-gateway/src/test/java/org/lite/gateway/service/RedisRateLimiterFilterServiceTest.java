@@ -0,0 +1,89 @@
+package org.lite.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lite.gateway.exception.InvalidAuthenticationException;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisRateLimiterFilterServiceTest {
+
+    @Mock
+    private HierarchicalRateLimiter rateLimiter;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private ObjectProvider<TeamContextService> teamContextServiceProvider;
+
+    @Mock
+    private TeamContextService teamContextService;
+
+    private RedisRateLimiterFilterService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RedisRateLimiterFilterService(rateLimiter, cacheService, new ObjectMapper(), true,
+                teamContextServiceProvider);
+    }
+
+    private static ServerWebExchange exchange(Principal principal) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/r/orders/items"));
+        return principal == null ? exchange : exchange.mutate().principal(Mono.just(principal)).build();
+    }
+
+    private static JwtAuthenticationToken jwtAuthentication() {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").claim("sub", "user-1").build();
+        return new JwtAuthenticationToken(jwt);
+    }
+
+    @Test
+    void testApiKeyCallerUsesTheTeamOfTheKey() {
+        ServerWebExchange exchange = exchange(null);
+        exchange.getAttributes().put("API_KEY_TEAM_ID", "team-a");
+
+        assertEquals(Optional.of("team-a"), service.teamId(exchange).block());
+        verifyNoInteractions(teamContextServiceProvider);
+    }
+
+    @Test
+    void testJwtCallerIsLimitedPerTeam() {
+        when(teamContextServiceProvider.getObject()).thenReturn(teamContextService);
+        ServerWebExchange exchange = exchange(jwtAuthentication());
+        when(teamContextService.getTeamFromContext(exchange)).thenReturn(Mono.just("team-b"));
+
+        assertEquals(Optional.of("team-b"), service.teamId(exchange).block());
+    }
+
+    @Test
+    void testUnresolvableOrAnonymousCallerSkipsTheTeamLevel() {
+        when(teamContextServiceProvider.getObject()).thenReturn(teamContextService);
+        ServerWebExchange jwtExchange = exchange(jwtAuthentication());
+        when(teamContextService.getTeamFromContext(jwtExchange))
+                .thenReturn(Mono.error(new InvalidAuthenticationException("No team ID found in token")));
+
+        assertEquals(Optional.empty(), service.teamId(jwtExchange).block());
+        assertEquals(Optional.empty(), service.teamId(exchange(new AnonymousAuthenticationToken("key",
+                "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")))).block());
+        assertEquals(Optional.empty(), service.teamId(exchange(null)).block());
+    }
+}
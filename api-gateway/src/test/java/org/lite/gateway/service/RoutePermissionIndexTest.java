@@ -0,0 +1,103 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lite.gateway.entity.ApiRoute;
+import org.lite.gateway.entity.RoutePermission;
+import org.lite.gateway.entity.TeamRoute;
+import org.lite.gateway.repository.ApiRouteRepository;
+import org.lite.gateway.repository.TeamRouteRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoutePermissionIndexTest {
+
+    @Mock
+    private ApiRouteRepository apiRouteRepository;
+    @Mock
+    private TeamRouteRepository teamRouteRepository;
+    @Mock
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private RoutePermissionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RoutePermissionIndex(apiRouteRepository, teamRouteRepository, reactiveMongoTemplate, 60_000, false);
+    }
+
+    @Test
+    void testReloadBuildsLookupsAndBumpsVersion() {
+        when(apiRouteRepository.findAll()).thenReturn(Flux.just(route("r1", "inventory")));
+        when(teamRouteRepository.findAll()).thenReturn(Flux.just(
+                grant("g1", "team-a", "r1", RoutePermission.USE),
+                grant("g2", "team-b", "r1", RoutePermission.VIEW)));
+        assertFalse(index.isReady());
+
+        index.reload().block();
+
+        assertTrue(index.isReady());
+        assertEquals(1, index.version());
+        assertEquals("r1", index.findRoute("inventory").orElseThrow().getId());
+        assertTrue(index.hasPermission("team-a", "r1", RoutePermission.USE));
+        assertFalse(index.hasPermission("team-b", "r1", RoutePermission.USE));
+        assertFalse(index.hasPermission("team-c", "r1", RoutePermission.USE));
+    }
+
+    @Test
+    void testIncrementalChangesRenameRoutesAndRevokeGrants() {
+        when(apiRouteRepository.findAll()).thenReturn(Flux.just(route("r1", "inventory")));
+        when(teamRouteRepository.findAll()).thenReturn(Flux.just(grant("g1", "team-a", "r1", RoutePermission.USE)));
+        index.reload().block();
+
+        index.apply(snapshot -> snapshot.putRoute(route("r1", "stock")));
+        index.apply(snapshot -> snapshot.removeGrant("g1"));
+
+        assertTrue(index.findRoute("inventory").isEmpty(), "Renamed route should drop its old identifier");
+        assertTrue(index.findRoute("stock").isPresent());
+        assertFalse(index.hasPermission("team-a", "r1", RoutePermission.USE));
+        assertEquals(3, index.version());
+        assertEquals(2L, index.getStats().get("incrementalUpdates"));
+    }
+
+    @Test
+    void testChangesDuringReloadAreNotLost() {
+        Sinks.Many<TeamRoute> slowGrants = Sinks.many().unicast().onBackpressureBuffer();
+        when(apiRouteRepository.findAll()).thenReturn(Flux.just(route("r1", "inventory")));
+        when(teamRouteRepository.findAll()).thenReturn(slowGrants.asFlux());
+
+        index.reload().subscribe();
+        // A grant revoked while the reload is still reading the old data
+        index.apply(snapshot -> snapshot.removeGrant("g1"));
+        slowGrants.tryEmitNext(grant("g1", "team-a", "r1", RoutePermission.USE));
+        slowGrants.tryEmitComplete();
+
+        assertFalse(index.hasPermission("team-a", "r1", RoutePermission.USE));
+    }
+
+    private ApiRoute route(String id, String routeIdentifier) {
+        ApiRoute route = new ApiRoute();
+        route.setId(id);
+        route.setRouteIdentifier(routeIdentifier);
+        return route;
+    }
+
+    private TeamRoute grant(String id, String teamId, String routeId, RoutePermission permission) {
+        return TeamRoute.builder()
+                .id(id)
+                .teamId(teamId)
+                .routeId(routeId)
+                .permissions(Set.of(permission))
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.lite.gateway.service.impl.RedisCacheServiceImpl;
+import org.lite.gateway.service.impl.TieredCacheService;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TieredCacheServiceTest {
+
+    @Mock
+    private RedisCacheServiceImpl remote;
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    private TieredCacheService tieredCacheService;
+
+    @BeforeEach
+    void setUp() {
+        tieredCacheService = new TieredCacheService(remote, redisTemplate, 1024 * 1024, 30_000,
+                "api_key:,permission:,scope:", false);
+    }
+
+    @Test
+    void testSecondReadIsServedLocally() {
+        when(remote.get("api_key:abc")).thenReturn(Mono.just("{\"key\":\"abc\"}"));
+        when(redisTemplate.getExpire("api_key:abc")).thenReturn(Mono.just(Duration.ofMinutes(5)));
+
+        assertEquals("{\"key\":\"abc\"}", tieredCacheService.get("api_key:abc").block());
+        assertEquals("{\"key\":\"abc\"}", tieredCacheService.get("api_key:abc").block());
+
+        verify(remote, times(1)).get("api_key:abc");
+        Map<String, Object> stats = tieredCacheService.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testClientScopesAreServedLocally() {
+        String key = DynamicRouteService.scopeKey("/inventory-service/**");
+        when(remote.get(key)).thenReturn(Mono.just("inventory.read"));
+        when(redisTemplate.getExpire(key)).thenReturn(Mono.just(Duration.ofHours(24)));
+
+        tieredCacheService.get(key).block();
+        assertEquals("inventory.read", tieredCacheService.get(key).block());
+
+        verify(remote, times(1)).get(key);
+    }
+
+    @Test
+    void testKeysOutsidePrefixesBypassLocalTier() {
+        when(remote.get("dailyCalls:/r/svc")).thenReturn(Mono.just("7"));
+
+        tieredCacheService.get("dailyCalls:/r/svc").block();
+        tieredCacheService.get("dailyCalls:/r/svc").block();
+
+        verify(remote, times(2)).get("dailyCalls:/r/svc");
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void testRemoteInvalidationEvictsLocalCopy() {
+        when(remote.get("permission:t1:route")).thenReturn(Mono.just("READ"), Mono.just("READ,WRITE"));
+        when(redisTemplate.getExpire("permission:t1:route")).thenReturn(Mono.just(Duration.ZERO));
+
+        assertEquals("READ", tieredCacheService.get("permission:t1:route").block());
+        tieredCacheService.onInvalidation("other-pod|" + System.currentTimeMillis() + "|permission:t1:route");
+        assertEquals("READ,WRITE", tieredCacheService.get("permission:t1:route").block());
+
+        assertEquals(1L, tieredCacheService.getStats().get("invalidationsReceived"));
+    }
+
+    @Test
+    void testDeleteInvalidatesAndBroadcasts() {
+        when(remote.get("api_key:abc")).thenReturn(Mono.just("v1"), Mono.empty());
+        when(redisTemplate.getExpire("api_key:abc")).thenReturn(Mono.just(Duration.ofMinutes(5)));
+        when(remote.delete("api_key:abc")).thenReturn(Mono.just(true));
+        when(remote.publish(eq(TieredCacheService.INVALIDATION_TOPIC), contains("|api_key:abc")))
+                .thenReturn(Mono.just(1L));
+
+        tieredCacheService.get("api_key:abc").block();
+        assertTrue(tieredCacheService.delete("api_key:abc").block());
+        assertNull(tieredCacheService.get("api_key:abc").block());
+
+        verify(remote).publish(eq(TieredCacheService.INVALIDATION_TOPIC), contains("|api_key:abc"));
+    }
+}
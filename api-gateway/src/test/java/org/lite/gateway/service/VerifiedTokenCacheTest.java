@@ -0,0 +1,96 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+    @Mock
+    private ReactiveJwtDecoder userJwtDecoder;
+    @Mock
+    private ReactiveJwtDecoder keycloakJwtDecoder;
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(userJwtDecoder, keycloakJwtDecoder, 100, 60_000);
+    }
+
+    @Test
+    void testTokenIsVerifiedOncePerPod() {
+        when(userJwtDecoder.decode("token-a")).thenReturn(Mono.fromCallable(() -> jwt("token-a",
+                Instant.now().plusSeconds(300))));
+
+        Jwt first = cache.verify("token-a", false).block().jwt();
+        Jwt second = cache.verify("token-a", false).block().jwt();
+
+        assertSame(first, second);
+        verify(userJwtDecoder, times(1)).decode("token-a");
+        verifyNoInteractions(keycloakJwtDecoder);
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    void testRequestMemoAndDerivedTeamsAreComputedOnce() {
+        when(keycloakJwtDecoder.decode("token-b")).thenReturn(Mono.fromCallable(() -> jwt("token-b",
+                Instant.now().plusSeconds(300))));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/r/app/items"));
+        AtomicInteger resolutions = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            List<String> teams = cache.verify(exchange, "token-b", true)
+                    .map(verified -> verified.authorizedTeams(jwt -> {
+                        resolutions.incrementAndGet();
+                        return List.of("team-1");
+                    }))
+                    .block();
+            assertEquals(List.of("team-1"), teams);
+        }
+
+        assertEquals(1, resolutions.get());
+        assertEquals(2L, cache.getStats().get("requestMemoHits"));
+        verify(keycloakJwtDecoder, times(1)).decode("token-b");
+    }
+
+    @Test
+    void testFailuresAndExpiredTokensAreNotCached() {
+        when(userJwtDecoder.decode("bad")).thenReturn(Mono.error(new BadJwtException("bad signature")));
+        when(userJwtDecoder.decode("stale")).thenReturn(Mono.fromCallable(() -> jwt("stale",
+                Instant.now().minusSeconds(1))));
+
+        assertThrows(BadJwtException.class, () -> cache.verify("bad", false).block());
+        assertThrows(BadJwtException.class, () -> cache.verify("bad", false).block());
+        cache.verify("stale", false).block();
+        cache.verify("stale", false).block();
+
+        verify(userJwtDecoder, times(2)).decode("bad");
+        verify(userJwtDecoder, times(2)).decode("stale");
+    }
+
+    private Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .subject("user")
+                .issuedAt(expiresAt.minusSeconds(600))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,214 @@
+package org.lite.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.security.access.AccessDeniedException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WebSocketTopicRouterTest {
+
+    private static final String TEAM_DESTINATIONS = "/topic/execution";
+
+    private WebSocketTopicRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new WebSocketTopicRouter(256, TEAM_DESTINATIONS);
+    }
+
+    @Test
+    void testMessageReachesOnlyMatchingTeamAndAnyTeamSubscribers() {
+        List<String> teamA = connect("a", "/topic/chat", "team-a");
+        List<String> teamB = connect("b", "/topic/chat", "team-b");
+        List<String> anyTeam = connect("c", "/topic/chat", null);
+        List<String> otherTopic = connect("d", "/topic/health", null);
+
+        int delivered = router.publish("/topic/chat", "team-a", "{\"teamId\":\"team-a\"}");
+
+        assertEquals(2, delivered);
+        assertEquals(1, teamA.size());
+        assertTrue(teamA.get(0).contains("destination:/topic/chat"));
+        assertTrue(teamA.get(0).contains("{\"teamId\":\"team-a\"}"));
+        assertEquals(0, teamB.size());
+        assertEquals(1, anyTeam.size());
+        assertEquals(0, otherTopic.size());
+        assertTrue(router.isTeamScoped("/topic/chat"));
+        assertFalse(router.isTeamScoped("/topic/health"));
+    }
+
+    @Test
+    void testTeamlessMessageReachesEveryTeam() {
+        List<String> teamA = connect("a", "/topic/health", "team-a");
+        List<String> teamB = connect("b", "/topic/health", "team-b");
+
+        assertEquals(2, router.publish("/topic/health", null, "{}"));
+        assertEquals(1, teamA.size());
+        assertEquals(1, teamB.size());
+    }
+
+    @Test
+    void testFrameIsEncodedOncePerSubscriptionId() {
+        for (int i = 0; i < 100; i++) {
+            connect("s" + i, "/topic/health", null);
+        }
+
+        router.publish("/topic/health", null, "{\"status\":\"UP\"}");
+
+        assertEquals(100L, router.getStats().get("deliveries"));
+        assertEquals(1L, router.getStats().get("frameEncodes"));
+    }
+
+    @Test
+    void testSessionCannotSubscribeToATeamItIsNotAuthenticatedFor() {
+        router.register(session("a"));
+        router.authenticate("a", List.of("team-a"));
+
+        assertThrows(AccessDeniedException.class, () -> router.subscribe("a", "/topic/chat", "sub-0", "team-b"));
+        // A session that connected without credentials has no teams
+        router.register(session("anonymous"));
+        assertThrows(AccessDeniedException.class,
+                () -> router.subscribe("anonymous", "/topic/chat", "sub-0", "team-a"));
+        assertFalse(router.hasSubscribers("/topic/chat"));
+
+        router.subscribe("a", "/topic/chat", "sub-0", "team-a");
+        assertTrue(router.hasSubscribers("/topic/chat"));
+    }
+
+    @Test
+    void testTeamDestinationRequiresATeam() {
+        router.register(session("a"));
+        router.authenticate("a", List.of("team-a"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> router.subscribe("a", "/topic/execution", "sub-0", null));
+        assertFalse(router.hasSubscribers("/topic/execution"));
+
+        router.subscribe("a", "/topic/execution", "sub-0", "team-a");
+        assertEquals(1, router.publish("/topic/execution", "team-a", "{}"));
+        assertEquals(0, router.publish("/topic/execution", "team-b", "{}"));
+    }
+
+    @Test
+    void testSuperAdminMaySubscribeToAnyTeam() {
+        router.register(session("admin"));
+        router.authenticate("admin", List.of(WebSocketTopicRouter.ALL_TEAMS));
+
+        router.subscribe("admin", "/topic/execution", "sub-0", "team-b");
+
+        assertEquals(1, router.publish("/topic/execution", "team-b", "{}"));
+    }
+
+    @Test
+    void testRemovedSessionIsUnindexed() {
+        connect("a", "/topic/chat", "team-a");
+        assertTrue(router.hasSubscribers("/topic/chat"));
+
+        router.remove("a");
+
+        assertFalse(router.hasSubscribers("/topic/chat"));
+        assertEquals(0, router.publish("/topic/chat", "team-a", "{}"));
+        assertEquals(0, router.sessionCount());
+    }
+
+    @Test
+    void testSlowConsumerIsDisconnected() {
+        router = new WebSocketTopicRouter(4, TEAM_DESTINATIONS);
+        WebSocketSession session = session("slow");
+        router.register(session); // outbound never subscribed, so nothing drains the queue
+        router.subscribe("slow", "/topic/chat", "sub-0", null);
+
+        for (int i = 0; i < 10; i++) {
+            router.publish("/topic/chat", null, "{\"n\":" + i + "}");
+        }
+
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()));
+        assertEquals(1L, router.getStats().get("slowConsumerDisconnects"));
+        assertEquals(0, router.sessionCount());
+        assertFalse(router.hasSubscribers("/topic/chat"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testPublishCostFollowsSubscribersNotConnections() {
+        int connections = 5_000;
+        int subscribers = 50;
+        int messages = 20_000;
+        int warmup = 1_000;
+        AtomicLong received = new AtomicLong();
+        for (int i = 0; i < connections; i++) {
+            String sessionId = "s" + i;
+            router.register(session(sessionId)).subscribe(message -> {
+                received.incrementAndGet();
+                message.release();
+            });
+            // A few sessions follow the team's chat; the rest watch other topics
+            router.authenticate(sessionId, List.of("team-a"));
+            router.subscribe(sessionId, i < subscribers ? "/topic/chat" : "/topic/health", "sub-0",
+                    i < subscribers ? "team-a" : null);
+        }
+
+        long nanosWithManyConnections = timePublishes(warmup, messages);
+
+        WebSocketTopicRouter small = new WebSocketTopicRouter(256, TEAM_DESTINATIONS);
+        for (int i = 0; i < subscribers; i++) {
+            String sessionId = "s" + i;
+            small.register(session(sessionId)).subscribe(WebSocketMessage::release);
+            small.authenticate(sessionId, List.of("team-a"));
+            small.subscribe(sessionId, "/topic/chat", "sub-0", "team-a");
+        }
+        router = small;
+        long nanosWithSubscribersOnly = timePublishes(warmup, messages);
+
+        System.out.printf("publish to %d subscribers: %d ns/message with %d connections, %d ns/message with %d%n",
+                subscribers, nanosWithManyConnections / messages, connections,
+                nanosWithSubscribersOnly / messages, subscribers);
+
+        // Work is counted rather than timed so the assertion holds on a noisy CI host
+        long published = warmup + messages;
+        assertEquals(subscribers * published, received.get());
+        assertEquals(subscribers * published, small.getStats().get("deliveries"));
+        assertEquals(published, small.getStats().get("frameEncodes"));
+    }
+
+    private long timePublishes(int warmup, int messages) {
+        for (int i = 0; i < warmup; i++) {
+            router.publish("/topic/chat", "team-a", "{\"teamId\":\"team-a\",\"n\":" + i + "}");
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            router.publish("/topic/chat", "team-a", "{\"teamId\":\"team-a\",\"n\":" + i + "}");
+        }
+        return System.nanoTime() - start;
+    }
+
+    private List<String> connect(String sessionId, String destination, String teamId) {
+        List<String> frames = new ArrayList<>();
+        router.register(session(sessionId)).subscribe(message -> frames.add(message.getPayloadAsText()));
+        if (teamId != null) {
+            router.authenticate(sessionId, List.of(teamId));
+        }
+        router.subscribe(sessionId, destination, "sub-0", teamId);
+        return frames;
+    }
+
+    private static WebSocketSession session(String sessionId) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        when(session.bufferFactory()).thenReturn(DefaultDataBufferFactory.sharedInstance);
+        when(session.close(any(CloseStatus.class))).thenReturn(Mono.empty());
+        return session;
+    }
+}
@@ -0,0 +1,200 @@
+package org.lite.gateway.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lite.gateway.entity.AgentTask;
+import org.lite.gateway.repository.AgentTaskRepository;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import com.mongodb.client.result.UpdateResult;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkflowCollectionIndexTest {
+
+    private AgentTaskRepository agentTaskRepository;
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private WorkflowCollectionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        agentTaskRepository = mock(AgentTaskRepository.class);
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        lenient().when(reactiveMongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AgentTask.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        index = new WorkflowCollectionIndex(agentTaskRepository, reactiveMongoTemplate, false);
+        when(agentTaskRepository.findAll()).thenReturn(Flux.empty());
+        index.rebuild().block(Duration.ofSeconds(5));
+    }
+
+    private static AgentTask task(String id, String... intents) {
+        List<Map<String, Object>> steps = Arrays.stream(intents)
+                .map(intent -> Map.<String, Object>of("step", 1, "intent", intent))
+                .toList();
+        AgentTask task = new AgentTask();
+        task.setId(id);
+        task.setLinqConfig(Map.of("query", Map.of("intent", "workflow", "workflow", steps)));
+        return task;
+    }
+
+    private void save(AgentTask task) {
+        index.onAfterSave(new AfterSaveEvent<>(task, new Document(), "agent_tasks"));
+    }
+
+    @Test
+    void testReferencedCollectionsParsesWorkflowStepIntents() {
+        Map<String, Object> linqConfig = Map.of(
+                "query", Map.of(
+                        "intent", "/api/milvus/collections/Direct/search",
+                        "workflow", List.of(
+                                Map.of("intent", "/api/milvus/collections/docs/search"),
+                                Map.of("intent", "/api/milvus/collections/faq?limit=5"),
+                                Map.of("intent", "/api/milvus/collections"),
+                                Map.of("intent", "generate"))),
+                "workflow", List.of(Map.of("intent", "/api/milvus/collections/legacy")));
+
+        assertEquals(Set.of("direct", "docs", "faq", "legacy"),
+                WorkflowCollectionIndex.referencedCollections(linqConfig));
+        assertTrue(WorkflowCollectionIndex.referencedCollections(null).isEmpty());
+    }
+
+    @Test
+    void testSaveLocksCollectionsCaseInsensitively() {
+        save(task("t1", "/api/milvus/collections/Docs/search"));
+
+        assertTrue(index.isReferenced("docs"));
+        assertTrue(index.isReferenced("DOCS"));
+        assertFalse(index.isReferenced("faq"));
+        assertFalse(index.isReferenced(null));
+        assertEquals(Set.of("t1"), index.tasksReferencing("docs"));
+    }
+
+    @Test
+    void testRenamedIntentMovesTheLock() {
+        save(task("t1", "/api/milvus/collections/docs/search"));
+        save(task("t1", "/api/milvus/collections/docs-v2/search"));
+
+        assertFalse(index.isReferenced("docs"));
+        assertTrue(index.isReferenced("docs-v2"));
+
+        save(task("t1", "generate"));
+        assertFalse(index.isReferenced("docs-v2"));
+        assertEquals(0, index.getStats().get("referencingTasks"));
+    }
+
+    @Test
+    void testDeleteByIdReleasesOnlyThatTasksLocks() {
+        save(task("t1", "/api/milvus/collections/docs/search", "/api/milvus/collections/faq/search"));
+        save(task("t2", "/api/milvus/collections/docs/search"));
+
+        index.onAfterDelete(new AfterDeleteEvent<>(new Document("_id", "t1"), AgentTask.class, "agent_tasks"));
+
+        assertTrue(index.isReferenced("docs"));
+        assertEquals(Set.of("t2"), index.tasksReferencing("docs"));
+        assertFalse(index.isReferenced("faq"));
+
+        index.remove("t2");
+        assertFalse(index.isReferenced("docs"));
+    }
+
+    @Test
+    void testCriteriaDeleteRebuildsFromRepository() {
+        save(task("t1", "/api/milvus/collections/docs/search"));
+        when(agentTaskRepository.findAll()).thenReturn(Flux.just(task("t2", "/api/milvus/collections/faq/search")));
+
+        index.onAfterDelete(new AfterDeleteEvent<>(new Document("agentId", "a1"), AgentTask.class, "agent_tasks"));
+
+        verify(agentTaskRepository, times(2)).findAll();
+        assertFalse(index.isReferenced("docs"));
+        assertTrue(index.isReferenced("faq"));
+    }
+
+    @Test
+    void testRebuildReplacesIndex() {
+        save(task("stale", "/api/milvus/collections/old/search"));
+        when(agentTaskRepository.findAll()).thenReturn(Flux.just(
+                task("t1", "/api/milvus/collections/docs/search"),
+                task("t2", "/api/milvus/collections/docs/search", "/api/milvus/collections/faq/search"),
+                task("t3", "generate")));
+
+        index.rebuild().block(Duration.ofSeconds(5));
+
+        assertFalse(index.isReferenced("old"));
+        assertEquals(Set.of("t1", "t2"), index.tasksReferencing("docs"));
+        assertEquals(2, index.getStats().get("referencingTasks"));
+        assertEquals(2, index.getStats().get("referencedCollections"));
+        assertEquals(2L, index.getStats().get("rebuilds"));
+    }
+
+    @Test
+    void testEveryCollectionIsReferencedUntilTheIndexIsBuilt() {
+        WorkflowCollectionIndex unbuilt = new WorkflowCollectionIndex(agentTaskRepository, reactiveMongoTemplate, false);
+
+        assertTrue(unbuilt.isReferenced("docs"));
+        assertFalse(unbuilt.isReferenced(null));
+        assertEquals(false, unbuilt.getStats().get("built"));
+
+        unbuilt.rebuild().block(Duration.ofSeconds(5));
+        assertFalse(unbuilt.isReferenced("docs"));
+        assertEquals(true, unbuilt.getStats().get("built"));
+    }
+
+    @Test
+    void testStoreCheckIsAnExactMatchOnTheStoredCollections() {
+        when(agentTaskRepository.existsByWorkflowCollections("docs.v1")).thenReturn(Mono.just(true));
+
+        assertTrue(index.isReferencedInStore("Docs.V1").block());
+        verify(agentTaskRepository).existsByWorkflowCollections("docs.v1");
+        assertFalse(index.isReferencedInStore(null).block());
+    }
+
+    @Test
+    void testCollectionsAreStoredOnTheTaskBeforeEverySave() {
+        AgentTask task = task("t1", "/api/milvus/collections/Docs/search", "/api/milvus/collections/faq");
+        task.setWorkflowCollections(List.of("stale"));
+
+        index.onBeforeConvert(new BeforeConvertEvent<>(task, "agent_tasks"));
+
+        assertEquals(Set.of("docs", "faq"), Set.copyOf(task.getWorkflowCollections()));
+    }
+
+    @Test
+    void testRebuildBackfillsOnlyTasksWhoseStoredCollectionsDiffer() {
+        AgentTask current = task("t1", "/api/milvus/collections/docs/search");
+        current.setWorkflowCollections(List.of("docs"));
+        AgentTask legacy = task("t2", "/api/milvus/collections/faq/search");
+        when(agentTaskRepository.findAll()).thenReturn(Flux.just(current, legacy));
+
+        index.rebuild().block(Duration.ofSeconds(5));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(reactiveMongoTemplate, times(1)).updateFirst(query.capture(), update.capture(), eq(AgentTask.class));
+        assertEquals("t2", query.getValue().getQueryObject().get("_id"));
+        assertEquals(List.of("faq"), update.getValue().getUpdateObject().get("$set", Document.class)
+                .get("workflowCollections"));
+        assertEquals(1L, index.getStats().get("backfilledTasks"));
+        assertTrue(index.isReferenced("faq"));
+    }
+}
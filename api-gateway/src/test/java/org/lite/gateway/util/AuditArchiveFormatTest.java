@@ -0,0 +1,147 @@
+package org.lite.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditArchiveFormatTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 14, 0, 0);
+
+    /**
+     * One event per minute, in shuffled order; user-N acts in minute N only.
+     */
+    private static List<AuditArchiveFormat.Event> events(int count) {
+        List<AuditArchiveFormat.Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime timestamp = DAY.plusMinutes(i).plusNanos(i * 1000L);
+            events.add(new AuditArchiveFormat.Event(timestamp, "user-" + i,
+                    i % 2 == 0 ? "DOCUMENT_ACCESSED" : "CHUNK_DECRYPTED", "doc-" + (i % 7),
+                    ("{\"n\":" + i + "}").getBytes(StandardCharsets.UTF_8)));
+        }
+        Collections.shuffle(events, new Random(7));
+        return events;
+    }
+
+    private static byte[] slice(byte[] bytes, long offset, int length) {
+        return Arrays.copyOfRange(bytes, (int) offset, (int) offset + length);
+    }
+
+    @Test
+    void testWriteAndReadRoundTrip() throws IOException {
+        AuditArchiveFormat.Archive archive = AuditArchiveFormat.write(events(100), 16);
+        byte[] bytes = archive.bytes();
+
+        assertTrue(AuditArchiveFormat.isIndexedArchive(slice(bytes, 0, 8)));
+        AuditArchiveFormat.Trailer trailer = AuditArchiveFormat.readTrailer(
+                slice(bytes, bytes.length - AuditArchiveFormat.TRAILER_LENGTH, AuditArchiveFormat.TRAILER_LENGTH));
+        assertEquals(archive.indexOffset(), trailer.indexOffset());
+        assertEquals(archive.indexLength(), trailer.indexLength());
+
+        AuditArchiveFormat.Index index = AuditArchiveFormat.readIndex(
+                slice(bytes, trailer.indexOffset(), trailer.indexLength()));
+        assertEquals(100, index.eventCount());
+        assertEquals(DAY, index.minTimestamp());
+        assertEquals(DAY.plusMinutes(99).plusNanos(99_000L), index.maxTimestamp());
+        assertEquals(7, index.blocks().size());
+
+        // Blocks hold the events in timestamp order
+        int next = 0;
+        for (AuditArchiveFormat.Block block : index.blocks()) {
+            List<byte[]> lines = AuditArchiveFormat.readBlock(slice(bytes, block.offset(), block.length()));
+            assertEquals(block.eventCount(), lines.size());
+            assertEquals(DAY.plusMinutes(next).plusNanos(next * 1000L), block.minTimestamp());
+            for (byte[] line : lines) {
+                assertEquals("{\"n\":" + next + "}", new String(line, StandardCharsets.UTF_8));
+                next++;
+            }
+        }
+        assertEquals(100, next);
+    }
+
+    @Test
+    void testIndexPrunesBlocks() throws IOException {
+        AuditArchiveFormat.Archive archive = AuditArchiveFormat.write(events(100), 10);
+        List<AuditArchiveFormat.Block> blocks = archive.index().blocks();
+
+        AuditArchiveFormat.Filter byUser = new AuditArchiveFormat.Filter(null, null, Set.of(), "user-42", null);
+        List<AuditArchiveFormat.Block> matching = blocks.stream()
+                .filter(block -> byUser.mayMatch(block.minTimestamp(), block.maxTimestamp(), block.userIds(),
+                        block.eventTypes(), block.resourceIds()))
+                .toList();
+        // user-42 is in block 4; at a 1% false positive rate the other blocks are very likely skipped
+        assertTrue(matching.contains(blocks.get(4)));
+        assertTrue(matching.size() <= 2, "matching blocks " + matching.size());
+
+        AuditArchiveFormat.Filter byTime = new AuditArchiveFormat.Filter(DAY.plusMinutes(25), DAY.plusMinutes(34),
+                Set.of(), null, null);
+        assertEquals(2, blocks.stream()
+                .filter(block -> byTime.mayMatch(block.minTimestamp(), block.maxTimestamp(), block.userIds(),
+                        block.eventTypes(), block.resourceIds()))
+                .count());
+
+        AuditArchiveFormat.Filter byType = new AuditArchiveFormat.Filter(null, null, Set.of("RAG_QUERY"), null,
+                null);
+        assertFalse(byType.mayMatch(archive.index().minTimestamp(), archive.index().maxTimestamp(),
+                archive.index().userIds(), archive.index().eventTypes(), archive.index().resourceIds()));
+    }
+
+    @Test
+    void testFilterWithoutBloomsOnlyChecksTime() {
+        AuditArchiveFormat.Filter filter = new AuditArchiveFormat.Filter(DAY, DAY.plusDays(1),
+                Set.of("RAG_QUERY"), "user-1", "doc-1");
+
+        assertTrue(filter.mayMatch(DAY.minusHours(1), DAY.plusHours(1), null, null, null));
+        assertFalse(filter.mayMatch(DAY.minusDays(2), DAY.minusDays(1), null, null, null));
+        assertFalse(filter.mayMatch(DAY.plusDays(2), DAY.plusDays(3), null, null, null));
+    }
+
+    @Test
+    void testFilterMatches() {
+        AuditArchiveFormat.Filter filter = new AuditArchiveFormat.Filter(DAY, DAY.plusDays(1),
+                Set.of("DOCUMENT_ACCESSED", "RAG_QUERY"), "user-1", null);
+
+        assertTrue(filter.matches(DAY, "user-1", "RAG_QUERY", "doc-1"));
+        assertTrue(filter.matches(DAY.plusDays(1), "user-1", "DOCUMENT_ACCESSED", null));
+        assertFalse(filter.matches(DAY.minusNanos(1), "user-1", "RAG_QUERY", "doc-1"));
+        assertFalse(filter.matches(DAY, "user-2", "RAG_QUERY", "doc-1"));
+        assertFalse(filter.matches(DAY, "user-1", "CHUNK_DECRYPTED", "doc-1"));
+        assertFalse(filter.matches(null, "user-1", "RAG_QUERY", "doc-1"));
+
+        AuditArchiveFormat.Filter everything = new AuditArchiveFormat.Filter(null, null, null, null, "");
+        assertTrue(everything.matches(DAY, null, null, null));
+    }
+
+    @Test
+    void testEmptyArchive() throws IOException {
+        AuditArchiveFormat.Archive archive = AuditArchiveFormat.write(List.of(), 10);
+
+        AuditArchiveFormat.Index index = AuditArchiveFormat.readIndex(
+                slice(archive.bytes(), archive.indexOffset(), archive.indexLength()));
+        assertEquals(0, index.eventCount());
+        assertNull(index.minTimestamp());
+        assertNull(index.maxTimestamp());
+        assertTrue(index.blocks().isEmpty());
+    }
+
+    @Test
+    void testRejectsOtherFiles() {
+        byte[] gzipHeader = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0};
+
+        assertFalse(AuditArchiveFormat.isIndexedArchive(gzipHeader));
+        assertFalse(AuditArchiveFormat.isIndexedArchive(new byte[4]));
+        assertThrows(IllegalArgumentException.class,
+                () -> AuditArchiveFormat.readTrailer(new byte[AuditArchiveFormat.TRAILER_LENGTH]));
+        assertThrows(IOException.class, () -> AuditArchiveFormat.readIndex(new byte[64]));
+    }
+}
@@ -0,0 +1,71 @@
+package org.lite.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testNoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("user-" + i), "user-" + i);
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateNearTarget() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user-" + i);
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.03, "false positive rate " + rate);
+    }
+
+    @Test
+    void testSingleValueFilter() {
+        BloomFilter filter = BloomFilter.create(1, 0.01);
+        filter.put("DOCUMENT_ACCESSED");
+
+        assertTrue(filter.mightContain("DOCUMENT_ACCESSED"));
+        assertFalse(filter.mightContain("CHUNK_DECRYPTED"));
+    }
+
+    @Test
+    void testSerializationRoundTrip() {
+        BloomFilter filter = BloomFilter.create(500, 0.01);
+        for (int i = 0; i < 500; i++) {
+            filter.put("resource-" + i);
+        }
+
+        BloomFilter copy = BloomFilter.fromByteArray(filter.toByteArray());
+
+        assertEquals(filter.bitCount(), copy.bitCount());
+        assertArrayEquals(filter.toByteArray(), copy.toByteArray());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(filter.mightContain("resource-" + i), copy.mightContain("resource-" + i));
+        }
+    }
+
+    @Test
+    void testRejectsCorruptBytes() {
+        byte[] bytes = BloomFilter.create(10, 0.01).toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.fromByteArray(truncated));
+    }
+}
@@ -0,0 +1,106 @@
+package org.lite.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Bm25IndexTest {
+
+    private final Bm25Analyzer analyzer = new Bm25Analyzer();
+
+    @Test
+    void testAnalyzerKeepsIdentifiersAndStemsPlurals() {
+        assertEquals(List.of("file", "form", "i-485", "485", "policy", "status"),
+                analyzer.analyze("File the Forms: I-485 and policies with status"));
+        assertEquals(List.of("v2.1.0", "v2", "1", "0"), analyzer.analyze("v2.1.0"));
+        assertEquals("class", Bm25Analyzer.stem("class"));
+        assertEquals("analysis", Bm25Analyzer.stem("analysis"));
+        assertEquals("address", Bm25Analyzer.stem("addresses"));
+        assertTrue(analyzer.analyze("x".repeat(Bm25Analyzer.MAX_TOKEN_LENGTH + 1)).isEmpty());
+    }
+
+    @Test
+    void testRanksRareAndRepeatedTermsFirst() {
+        Bm25Index index = new Bm25Index(analyzer);
+        index.add(1, "doc-a", "General guidance about travel documents and fees");
+        index.add(2, "doc-a", "Form I-485 adjustment of status; file form I-485 with fees");
+        index.add(3, "doc-b", "Form I-130 petition for relative and fees");
+
+        List<Bm25Index.Hit> hits = index.search("I-485 fees", 10);
+
+        assertEquals(3, hits.size());
+        assertEquals(2, hits.get(0).id());
+        assertEquals("doc-a", hits.get(0).documentId());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals(1, index.search("I-485 fees", 1).size());
+        assertTrue(index.search("the and of", 10).isEmpty(), "Stop words alone match nothing");
+    }
+
+    @Test
+    void testMetadataTermsOutweighBodyTerms() {
+        Bm25Index index = new Bm25Index(analyzer);
+        index.add(1, "doc-a", "Mailing addresses for the petition and the filing fee", null);
+        index.add(2, "doc-b", "Where to mail the application and how to pay", "Petition for Alien Relative");
+
+        List<Bm25Index.Hit> hits = index.search("petition", 10);
+
+        assertEquals(2, hits.size());
+        assertEquals(2, hits.get(0).id());
+        assertEquals(1, hits.get(1).id());
+    }
+
+    @Test
+    void testReplaceRemoveAndCompaction() {
+        Bm25Index index = new Bm25Index(analyzer);
+        index.add(1, "doc-a", "alpha beta");
+        index.add(1, "doc-a", "gamma");
+        assertEquals(1, index.size());
+        assertTrue(index.search("alpha", 10).isEmpty());
+        assertEquals(1, index.search("gamma", 10).get(0).id());
+
+        for (long id = 2; id <= 10; id++) {
+            index.add(id, "doc-b", "delta chunk " + id);
+        }
+        assertEquals(9, index.removeDocument("doc-b"));
+        assertEquals(0, index.removeDocument("doc-b"));
+        assertFalse(index.remove(42));
+        assertEquals(1, index.size());
+        assertTrue(index.search("delta", 10).isEmpty());
+        assertEquals(1, index.termCount(), "Compaction should drop the terms of removed chunks");
+    }
+
+    @Test
+    void testSegmentRoundTrip() throws IOException {
+        Bm25Index index = new Bm25Index(analyzer, 1.5f, 0.5f);
+        for (long id = 0; id < 200; id++) {
+            index.add(id, id % 2 == 0 ? "even" : null, "chunk " + id + " topic" + (id % 7) + " shared words");
+        }
+        index.remove(3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.write(out);
+        }
+        Bm25Index restored = Bm25Index.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                analyzer);
+
+        assertEquals(index.size(), restored.size());
+        assertEquals(index.termCount(), restored.termCount());
+        assertEquals(index.search("topic3 shared", 20), restored.search("topic3 shared", 20));
+        assertEquals(100, restored.removeDocument("even"));
+    }
+
+    @Test
+    void testReadRejectsForeignData() {
+        byte[] garbage = { 1, 2, 3, 4, 5, 6, 7, 8 };
+        assertThrows(IOException.class,
+                () -> Bm25Index.read(new DataInputStream(new ByteArrayInputStream(garbage)), analyzer));
+    }
+}
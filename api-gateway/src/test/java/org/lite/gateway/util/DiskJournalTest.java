@@ -0,0 +1,177 @@
+package org.lite.gateway.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskJournalTest {
+
+    private Path directory;
+    private final List<DiskJournal> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("disk-journal-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (DiskJournal journal : opened) {
+            journal.close();
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Opens the journal without closing the previous instance, the way a restart after a
+     * crash finds it.
+     */
+    private DiskJournal open() throws IOException {
+        DiskJournal journal = new DiskJournal(directory, false);
+        opened.add(journal);
+        return journal;
+    }
+
+    private static byte[] record(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> read(DiskJournal journal, int maxRecords) throws IOException {
+        List<String> values = new ArrayList<>();
+        for (byte[] bytes : journal.read(maxRecords)) {
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    @Test
+    void testReadsRecordsInAppendOrder() throws IOException {
+        DiskJournal journal = open();
+        assertTrue(journal.isEmpty());
+        journal.append(record("a"));
+        journal.append(record("bb"));
+        journal.append(record("ccc"));
+
+        assertEquals(3, journal.pendingRecords());
+        assertEquals(3 * 8 + 6, journal.pendingBytes());
+        assertEquals(List.of("a", "bb"), read(journal, 2));
+        assertEquals(List.of("ccc"), read(journal, 10));
+        assertEquals(List.of(), read(journal, 10));
+    }
+
+    @Test
+    void testCommittedRecordsAreGoneAfterRestart() throws IOException {
+        DiskJournal journal = open();
+        for (int i = 0; i < 5; i++) {
+            journal.append(record("event-" + i));
+        }
+        assertEquals(List.of("event-0", "event-1"), read(journal, 2));
+        journal.commit();
+        assertEquals(3, journal.pendingRecords());
+
+        DiskJournal recovered = open();
+
+        assertEquals(3, recovered.pendingRecords());
+        assertEquals(List.of("event-2", "event-3", "event-4"), read(recovered, 10));
+    }
+
+    @Test
+    void testUncommittedRecordsAreReadAgainAfterCrash() throws IOException {
+        DiskJournal journal = open();
+        journal.append(record("event-0"));
+        journal.append(record("event-1"));
+        assertEquals(List.of("event-0", "event-1"), read(journal, 10));
+
+        // Crash before commit: the records were possibly stored, so they come back
+        DiskJournal recovered = open();
+
+        assertEquals(List.of("event-0", "event-1"), read(recovered, 10));
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        DiskJournal journal = open();
+        journal.append(record("event-0"));
+        journal.append(record("event-1"));
+        Path log = directory.resolve("journal.log");
+        long intact = Files.size(log);
+        // Half of a third record made it to disk before the crash
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            file.seek(intact);
+            file.writeInt(100);
+            file.writeInt(12345);
+            file.write(new byte[40]);
+        }
+
+        DiskJournal recovered = open();
+
+        assertEquals(2, recovered.pendingRecords());
+        assertEquals(intact, Files.size(log));
+        recovered.append(record("event-2"));
+        assertEquals(List.of("event-0", "event-1", "event-2"), read(recovered, 10));
+    }
+
+    @Test
+    void testCorruptRecordDiscardsItAndEverythingAfter() throws IOException {
+        DiskJournal journal = open();
+        journal.append(record("event-0"));
+        journal.append(record("event-1"));
+        journal.append(record("event-2"));
+        Path log = directory.resolve("journal.log");
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            // Flip a byte in the body of the second record
+            file.seek(8 + 7 + 8);
+            file.write('X');
+        }
+
+        DiskJournal recovered = open();
+
+        assertEquals(List.of("event-0"), read(recovered, 10));
+    }
+
+    @Test
+    void testRewindMakesRecordsReadableAgain() throws IOException {
+        DiskJournal journal = open();
+        journal.append(record("event-0"));
+        journal.append(record("event-1"));
+        assertEquals(List.of("event-0"), read(journal, 1));
+
+        journal.rewind();
+
+        assertEquals(List.of("event-0", "event-1"), read(journal, 10));
+        assertEquals(2, journal.pendingRecords());
+    }
+
+    @Test
+    void testFullyCommittedJournalIsTruncated() throws IOException {
+        DiskJournal journal = open();
+        journal.append(record("event-0"));
+        read(journal, 10);
+        journal.append(record("event-1"));
+        read(journal, 10);
+
+        journal.commit();
+
+        assertTrue(journal.isEmpty());
+        assertEquals(0, journal.pendingBytes());
+        assertEquals(0, Files.size(directory.resolve("journal.log")));
+        journal.append(record("event-2"));
+        assertEquals(List.of("event-2"), read(open(), 10));
+    }
+}
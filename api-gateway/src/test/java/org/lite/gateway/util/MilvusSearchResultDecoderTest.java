@@ -0,0 +1,266 @@
+package org.lite.gateway.util;
+
+import com.google.protobuf.ByteString;
+import io.milvus.grpc.BoolArray;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DoubleArray;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.IDs;
+import io.milvus.grpc.IntArray;
+import io.milvus.grpc.JSONArray;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.grpc.StringArray;
+import io.milvus.grpc.VectorField;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MilvusSearchResultDecoderTest {
+
+    private static final int OUTPUT_FIELDS = 20;
+    private static final DataType[] FIELD_TYPES = { DataType.VarChar, DataType.Int64, DataType.Float, DataType.Bool };
+
+    @Test
+    void testTypedAccessors() {
+        SearchResultData data = SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(2)
+                .addTopks(2)
+                .setIds(IDs.newBuilder().setIntId(LongArray.newBuilder().addData(7L).addData(9L)))
+                .addScores(0.91f)
+                .addScores(0.42f)
+                .addFieldsData(scalar("text", DataType.VarChar,
+                        ScalarField.newBuilder().setStringData(StringArray.newBuilder().addData("a").addData("b"))))
+                .addFieldsData(scalar("createdAt", DataType.Int64,
+                        ScalarField.newBuilder().setLongData(LongArray.newBuilder().addData(100L).addData(200L))))
+                .addFieldsData(scalar("page", DataType.Int32,
+                        ScalarField.newBuilder().setIntData(IntArray.newBuilder().addData(3).addData(4))))
+                .addFieldsData(scalar("weight", DataType.Double,
+                        ScalarField.newBuilder().setDoubleData(DoubleArray.newBuilder().addData(1.5).addData(2.5))))
+                .addFieldsData(scalar("active", DataType.Bool,
+                        ScalarField.newBuilder().setBoolData(BoolArray.newBuilder().addData(true).addData(false))))
+                .addFieldsData(scalar("meta", DataType.JSON,
+                        ScalarField.newBuilder().setJsonData(JSONArray.newBuilder()
+                                .addData(ByteString.copyFromUtf8("{\"k\":1}"))
+                                .addData(ByteString.copyFromUtf8("{\"k\":2}")))))
+                .addFieldsData(FieldData.newBuilder()
+                        .setFieldName("embedding")
+                        .setType(DataType.FloatVector)
+                        .setVectors(VectorField.newBuilder().setDim(2)
+                                .setFloatVector(FloatArray.newBuilder()
+                                        .addData(1f).addData(2f).addData(3f).addData(4f))))
+                .build();
+
+        MilvusSearchResultDecoder decoder = MilvusSearchResultDecoder.of(data);
+
+        assertEquals(9L, decoder.id(1));
+        assertEquals(0.42f, decoder.score(1));
+        assertEquals(0.0f, decoder.score(5));
+        assertEquals("b", decoder.getVarchar("text", 1));
+        assertEquals(200L, decoder.getInt64("createdAt", 1, -1L));
+        assertEquals(4L, decoder.getInt64("page", 1, -1L));
+        assertEquals(2.5f, decoder.getFloat("weight", 1, -1f));
+        assertEquals(Boolean.FALSE, decoder.getValue("active", 1));
+        assertEquals("{\"k\":2}", decoder.getJson("meta", 1));
+        assertArrayEquals(new float[] { 3f, 4f }, decoder.getFloatVector("embedding", 1));
+
+        // Missing fields, rows past the end and type mismatches read as empty
+        assertFalse(decoder.hasField("missing"));
+        assertNull(decoder.getValue("missing", 0));
+        assertNull(decoder.getVarchar("text", 2));
+        assertNull(decoder.getVarchar("createdAt", 0));
+        assertEquals(-1L, decoder.getInt64("text", 0, -1L));
+        assertNull(decoder.getFloatVector("text", 0));
+    }
+
+    @Test
+    void testStringIdsAndFirstDuplicateColumnWins() {
+        SearchResultData data = SearchResultData.newBuilder()
+                .setIds(IDs.newBuilder().setStrId(StringArray.newBuilder().addData("doc-1")))
+                .addFieldsData(scalar("teamId", DataType.VarChar,
+                        ScalarField.newBuilder().setStringData(StringArray.newBuilder().addData("first"))))
+                .addFieldsData(scalar("teamId", DataType.VarChar,
+                        ScalarField.newBuilder().setStringData(StringArray.newBuilder().addData("second"))))
+                .build();
+
+        MilvusSearchResultDecoder decoder = MilvusSearchResultDecoder.of(data);
+
+        assertEquals("doc-1", decoder.id(0));
+        assertEquals("first", decoder.getValue("teamId", 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 100, 1000 })
+    void testDecodeMatchesFieldListScan(int topK) {
+        SearchResultData data = searchResult(topK);
+        List<String> outFields = outputFields();
+
+        assertEquals(decodeByFieldScan(data, outFields), decodeByColumns(data, outFields));
+    }
+
+    /**
+     * Compares the decoder with the per-row, per-field scan of the field list it replaced.
+     * JMH is not part of this build, so this prints ns/row instead of asserting on timings.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = { 100, 1000 })
+    @Tag("benchmark")
+    void testDecodeCostAgainstFieldListScan(int topK) {
+        SearchResultData data = searchResult(topK);
+        List<String> outFields = outputFields();
+
+        int iterations = topK == 100 ? 2000 : 200;
+        for (int i = 0; i < iterations; i++) {
+            decodeByFieldScan(data, outFields);
+            decodeByColumns(data, outFields);
+        }
+        long scanNanos = time(() -> decodeByFieldScan(data, outFields), iterations);
+        long columnNanos = time(() -> decodeByColumns(data, outFields), iterations);
+
+        System.out.printf("topK=%d fields=%d: field scan %d ns/row, columnar %d ns/row%n", topK, OUTPUT_FIELDS,
+                scanNanos / ((long) iterations * topK), columnNanos / ((long) iterations * topK));
+    }
+
+    private static List<String> outputFields() {
+        List<String> outFields = new ArrayList<>();
+        for (int f = 0; f < OUTPUT_FIELDS; f++) {
+            outFields.add("field" + f);
+        }
+        return outFields;
+    }
+
+    private static long time(Runnable decode, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            decode.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<Map<String, Object>> decodeByColumns(SearchResultData data, List<String> outFields) {
+        MilvusSearchResultDecoder decoder = MilvusSearchResultDecoder.of(data);
+        int rows = (int) data.getTopK();
+        List<Map<String, Object>> records = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("id", decoder.id(row));
+            record.put("distance", decoder.score(row));
+            for (String fieldName : outFields) {
+                Object value = decoder.getValue(fieldName, row);
+                if (value != null) {
+                    record.put(fieldName, value);
+                }
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    // The decoding LinqMilvusStoreServiceImpl did before the decoder
+    private static List<Map<String, Object>> decodeByFieldScan(SearchResultData data, List<String> outFields) {
+        int rows = (int) data.getTopK();
+        List<Map<String, Object>> records = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("id", data.getIds().getIntId().getData(row));
+            float distance = 0.0f;
+            if (data.getScoresCount() > row) {
+                distance = data.getScores(row);
+            }
+            record.put("distance", distance);
+            for (String fieldName : outFields) {
+                var fieldData = data.getFieldsDataList().stream()
+                        .filter(f -> f.getFieldName().equals(fieldName))
+                        .findFirst()
+                        .orElse(null);
+                if (fieldData != null) {
+                    Object value = extractFieldValue(fieldData, row);
+                    if (value != null) {
+                        record.put(fieldName, value);
+                    }
+                }
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static Object extractFieldValue(FieldData fieldData, int index) {
+        if (fieldData.getScalars().hasStringData() && fieldData.getScalars().getStringData().getDataCount() > index) {
+            return fieldData.getScalars().getStringData().getData(index);
+        } else if (fieldData.getScalars().hasLongData()
+                && fieldData.getScalars().getLongData().getDataCount() > index) {
+            return fieldData.getScalars().getLongData().getData(index);
+        } else if (fieldData.getScalars().hasFloatData()
+                && fieldData.getScalars().getFloatData().getDataCount() > index) {
+            return fieldData.getScalars().getFloatData().getData(index);
+        } else if (fieldData.getScalars().hasDoubleData()
+                && fieldData.getScalars().getDoubleData().getDataCount() > index) {
+            return fieldData.getScalars().getDoubleData().getData(index);
+        } else if (fieldData.getScalars().hasBoolData()
+                && fieldData.getScalars().getBoolData().getDataCount() > index) {
+            return fieldData.getScalars().getBoolData().getData(index);
+        }
+        return null;
+    }
+
+    private static SearchResultData searchResult(int topK) {
+        LongArray.Builder ids = LongArray.newBuilder();
+        SearchResultData.Builder builder = SearchResultData.newBuilder().setNumQueries(1).setTopK(topK).addTopks(topK);
+        for (int row = 0; row < topK; row++) {
+            ids.addData(1_000L + row);
+            builder.addScores(1.0f - row / (float) topK);
+        }
+        builder.setIds(IDs.newBuilder().setIntId(ids));
+        for (int f = 0; f < OUTPUT_FIELDS; f++) {
+            ScalarField.Builder scalars = ScalarField.newBuilder();
+            switch (f % 4) {
+                case 0 -> {
+                    StringArray.Builder values = StringArray.newBuilder();
+                    for (int row = 0; row < topK; row++) {
+                        values.addData("value-" + f + "-" + row);
+                    }
+                    scalars.setStringData(values);
+                }
+                case 1 -> {
+                    LongArray.Builder values = LongArray.newBuilder();
+                    for (int row = 0; row < topK; row++) {
+                        values.addData((long) f * row);
+                    }
+                    scalars.setLongData(values);
+                }
+                case 2 -> {
+                    FloatArray.Builder values = FloatArray.newBuilder();
+                    for (int row = 0; row < topK; row++) {
+                        values.addData(row / 3f);
+                    }
+                    scalars.setFloatData(values);
+                }
+                default -> {
+                    BoolArray.Builder values = BoolArray.newBuilder();
+                    for (int row = 0; row < topK; row++) {
+                        values.addData(row % 2 == 0);
+                    }
+                    scalars.setBoolData(values);
+                }
+            }
+            builder.addFieldsData(scalar("field" + f, FIELD_TYPES[f % 4], scalars));
+        }
+        return builder.build();
+    }
+
+    private static FieldData scalar(String name, DataType type, ScalarField.Builder scalars) {
+        return FieldData.newBuilder().setFieldName(name).setType(type).setScalars(scalars).build();
+    }
+}
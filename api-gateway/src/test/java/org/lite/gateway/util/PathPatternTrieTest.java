@@ -0,0 +1,92 @@
+package org.lite.gateway.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathPatternTrieTest {
+
+    private static final String[] SEGMENTS = {"api", "r", "teams", "auth", "tools", "v1", "chat-ws", "health", "x.json"};
+    private static final String[] PATTERN_SEGMENTS = {"api", "r", "teams", "auth", "tools", "v1", "*", "**",
+            "*-ws", "*.json", "v?", "{id}"};
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Test
+    void testAntSemanticsForGatewayPatterns() {
+        PathPatternTrie trie = PathPatternTrie.of(List.of(
+                "/api/teams/**", "/r/*/*-ws/**", "/r/**/api/advising/**", "/favicon.ico", "/api/tools/*/execute"));
+
+        assertTrue(trie.matches("/api/teams"), "Trailing /** should match the bare prefix");
+        assertTrue(trie.matches("/api/teams/42/members/"));
+        assertTrue(trie.matches("/r/komunas-app/chat-ws/socket"));
+        assertTrue(trie.matches("/r/app/nested/api/advising/report"));
+        assertTrue(trie.matches("/api/tools/search/execute"));
+        assertFalse(trie.matches("/api/tools/search/execute/now"));
+        assertFalse(trie.matches("/favicon.ico/"));
+        assertFalse(trie.matches("/r/app/chat/socket"));
+    }
+
+    @Test
+    void testMethodConstraints() {
+        PathPatternTrie trie = PathPatternTrie.builder()
+                .add("/api/internal/**")
+                .add("/api/internal-public/**", Set.of(HttpMethod.GET))
+                .build();
+
+        assertTrue(trie.matches("/api/internal-public/docs", HttpMethod.GET));
+        assertFalse(trie.matches("/api/internal-public/docs", HttpMethod.POST));
+        assertTrue(trie.matches("/api/internal/sync", HttpMethod.POST));
+        assertTrue(trie.matches("/api/internal-public/docs"), "A null method ignores constraints");
+    }
+
+    @Test
+    void testMalformedPatternIsRejectedWithoutChangingTheBuilder() {
+        PathPatternTrie.Builder builder = PathPatternTrie.builder().add("/api/teams/**");
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add("/api/{id/members"));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("/api/{id:[a-}/members"));
+        PathPatternTrie trie = builder.add("/api/{id}/docs").build();
+
+        assertEquals(2, trie.size());
+        assertTrue(trie.matches("/api/teams/42"));
+        assertTrue(trie.matches("/api/42/docs"));
+        assertFalse(trie.matches("/api/42/members"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1000})
+    void testAgreesWithAntPathMatcher(int patternCount) {
+        Random random = new Random(patternCount);
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < patternCount; i++) {
+            patterns.add(randomPath(random, PATTERN_SEGMENTS, random.nextInt(10) == 0));
+        }
+        PathPatternTrie trie = PathPatternTrie.of(patterns);
+        assertEquals(patternCount, trie.size());
+
+        for (int i = 0; i < 2000; i++) {
+            String path = randomPath(random, SEGMENTS, random.nextInt(8) == 0);
+            boolean expected = patterns.stream().anyMatch(pattern -> antPathMatcher.match(pattern, path));
+            assertEquals(expected, trie.matches(path), () -> "Mismatch for " + path);
+        }
+    }
+
+    private static String randomPath(Random random, String[] segments, boolean trailingSlash) {
+        StringBuilder path = new StringBuilder();
+        int depth = 1 + random.nextInt(5);
+        for (int i = 0; i < depth; i++) {
+            path.append('/').append(segments[random.nextInt(segments.length)]);
+        }
+        return trailingSlash ? path.append('/').toString() : path.toString();
+    }
+}
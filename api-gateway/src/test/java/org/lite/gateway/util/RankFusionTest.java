@@ -0,0 +1,59 @@
+package org.lite.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankFusionTest {
+
+    @Test
+    void testReciprocalRankFavoursKeysFoundByBothRetrievers() {
+        Map<String, Double> fused = RankFusion.reciprocalRank(
+                List.of(List.of("a", "b", "c"), List.of("c", "d", "b")), RankFusion.DEFAULT_RRF_K);
+
+        assertEquals(List.of("c", "b", "a", "d"), List.copyOf(fused.keySet()));
+        assertEquals(1.0 / 63 + 1.0 / 61, fused.get("c"), 1e-12);
+        assertEquals(1.0 / 61, fused.get("a"), 1e-12);
+    }
+
+    @Test
+    void testReciprocalRankKeepsFirstSeenOrderOnTies() {
+        Map<String, Double> fused = RankFusion.reciprocalRank(List.of(List.of("x"), List.of("y")), 60);
+
+        assertEquals(List.of("x", "y"), List.copyOf(fused.keySet()));
+    }
+
+    @Test
+    void testWeightedNormalizesEachRetriever() {
+        Map<String, Float> vector = new LinkedHashMap<>();
+        vector.put("a", 0.9f);
+        vector.put("b", 0.7f);
+        vector.put("c", 0.5f);
+        Map<String, Float> keyword = new LinkedHashMap<>();
+        keyword.put("c", 12.0f);
+        keyword.put("d", 2.0f);
+
+        Map<String, Double> fused = RankFusion.weighted(List.of(vector, keyword), new double[] { 0.5, 0.5 });
+
+        assertEquals(List.of("a", "c", "b", "d"), List.copyOf(fused.keySet()));
+        assertEquals(0.5, fused.get("a"), 1e-6);
+        assertEquals(0.5, fused.get("c"), 1e-6);
+        assertEquals(0.25, fused.get("b"), 1e-6);
+        assertEquals(0.0, fused.get("d"), 1e-6);
+    }
+
+    @Test
+    void testWeightedTreatsEqualScoresAsBest() {
+        Map<String, Double> fused = RankFusion.weighted(List.of(Map.of("a", 3), Map.of("b", 1)),
+                new double[] { 0.7, 0.3 });
+
+        assertEquals(0.7, fused.get("a"), 1e-12);
+        assertEquals(0.3, fused.get("b"), 1e-12);
+        assertThrows(IllegalArgumentException.class,
+                () -> RankFusion.weighted(List.of(Map.of("a", 1)), new double[] { 0.5, 0.5 }));
+    }
+}
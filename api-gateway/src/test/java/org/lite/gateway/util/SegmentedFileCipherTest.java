@@ -0,0 +1,191 @@
+package org.lite.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedFileCipherTest {
+
+    private static final int SEGMENT_SIZE = 64;
+    private static final int ENCRYPTED_SEGMENT_SIZE = SEGMENT_SIZE + SegmentedFileCipher.TAG_LENGTH;
+    private static final SecretKey KEY = new SecretKeySpec(new byte[32], "AES");
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] streamEncrypt(byte[] plaintext, Random pieces) {
+        SegmentedFileCipher.StreamEncryptor encryptor = new SegmentedFileCipher.StreamEncryptor(KEY, "v2",
+                SEGMENT_SIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(encryptor.header());
+        int offset = 0;
+        while (offset < plaintext.length) {
+            int length = Math.min(plaintext.length - offset, 1 + pieces.nextInt(150));
+            encryptor.update(plaintext, offset, length).forEach(out::writeBytes);
+            offset += length;
+        }
+        out.writeBytes(encryptor.finish());
+        return out.toByteArray();
+    }
+
+    private static byte[] streamDecrypt(byte[] encrypted, Random pieces) {
+        SegmentedFileCipher.StreamDecryptor decryptor = new SegmentedFileCipher.StreamDecryptor();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int offset = 0;
+        while (offset < encrypted.length) {
+            int length = Math.min(encrypted.length - offset, 1 + pieces.nextInt(150));
+            decryptor.update(encrypted, offset, length).forEach(out::writeBytes);
+            if (decryptor.awaitingKey()) {
+                assertEquals("v2", decryptor.header().keyVersion());
+                decryptor.init(KEY).forEach(out::writeBytes);
+            }
+            offset += length;
+        }
+        out.writeBytes(decryptor.finish());
+        return out.toByteArray();
+    }
+
+    private static byte[] readRange(byte[] encrypted, long offset, long length) {
+        SegmentedFileCipher.Header header = SegmentedFileCipher.Header.parse(
+                Arrays.copyOf(encrypted, Math.min(encrypted.length, SegmentedFileCipher.MAX_HEADER_LENGTH)));
+        SegmentedFileCipher.StreamDecryptor decryptor = SegmentedFileCipher.StreamDecryptor.forRange(KEY, header,
+                encrypted.length, offset, length);
+        SegmentedFileCipher.Range range = decryptor.range(encrypted.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        decryptor.update(encrypted, (int) range.start(), (int) range.length()).forEach(out::writeBytes);
+        out.writeBytes(decryptor.finish());
+        return out.toByteArray();
+    }
+
+    private static byte[] withoutRange(byte[] data, int from, int to) {
+        byte[] result = new byte[data.length - (to - from)];
+        System.arraycopy(data, 0, result, 0, from);
+        System.arraycopy(data, to, result, from, data.length - to);
+        return result;
+    }
+
+    @Test
+    void testRoundTripAcrossSegmentBoundaries() {
+        Random pieces = new Random(1);
+        for (int length : new int[] { 0, 1, 63, 64, 65, 128, 129, 1000 }) {
+            byte[] plaintext = randomBytes(length, length);
+
+            byte[] encrypted = SegmentedFileCipher.encrypt(KEY, "v2", SEGMENT_SIZE, plaintext);
+            byte[] streamed = streamEncrypt(plaintext, pieces);
+
+            assertEquals(SegmentedFileCipher.encryptedLength(length, "v2", SEGMENT_SIZE), encrypted.length);
+            assertEquals(encrypted.length, streamed.length);
+            assertTrue(SegmentedFileCipher.isSegmented(encrypted));
+            assertArrayEquals(plaintext, SegmentedFileCipher.decrypt(KEY, streamed), "length " + length);
+            assertArrayEquals(plaintext, streamDecrypt(encrypted, pieces), "length " + length);
+        }
+    }
+
+    @Test
+    void testRandomAccessReadsAnySegmentRange() {
+        byte[] plaintext = randomBytes(1000, 7);
+        byte[] encrypted = SegmentedFileCipher.encrypt(KEY, "v2", SEGMENT_SIZE, plaintext);
+
+        long[][] ranges = { { 0, 1000 }, { 0, 10 }, { 10, 54 }, { 64, 64 }, { 100, 300 }, { 990, 10 },
+                { 960, 40 }, { 995, 100 }, { 500, 0 }, { 2000, 10 } };
+        for (long[] range : ranges) {
+            int from = (int) Math.min(range[0], plaintext.length);
+            int to = (int) Math.min(plaintext.length, from + range[1]);
+            assertArrayEquals(Arrays.copyOfRange(plaintext, from, to), readRange(encrypted, range[0], range[1]),
+                    "range " + range[0] + "+" + range[1]);
+        }
+
+        SegmentedFileCipher.Header header = SegmentedFileCipher.Header.parse(encrypted);
+        SegmentedFileCipher.Range middle = SegmentedFileCipher.StreamDecryptor
+                .forRange(KEY, header, encrypted.length, 100, 300)
+                .range(encrypted.length);
+        assertEquals(header.segmentOffset(1), middle.start());
+        assertEquals(header.segmentOffset(7), middle.end());
+    }
+
+    @Test
+    void testTruncationIsDetected() {
+        byte[] encrypted = SegmentedFileCipher.encrypt(KEY, "v2", SEGMENT_SIZE, randomBytes(200, 3));
+        int headerLength = SegmentedFileCipher.Header.parse(encrypted).length();
+
+        // Cut at a segment boundary: the last remaining segment was not sealed as final
+        byte[] lastSegmentDropped = Arrays.copyOf(encrypted, headerLength + 3 * ENCRYPTED_SEGMENT_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> SegmentedFileCipher.decrypt(KEY, lastSegmentDropped));
+        assertThrows(IllegalArgumentException.class, () -> streamDecrypt(lastSegmentDropped, new Random(1)));
+
+        byte[] cutInSegment = Arrays.copyOf(encrypted, encrypted.length - 5);
+        assertThrows(IllegalArgumentException.class, () -> streamDecrypt(cutInSegment, new Random(1)));
+
+        byte[] headerOnly = Arrays.copyOf(encrypted, headerLength);
+        assertThrows(IllegalArgumentException.class, () -> SegmentedFileCipher.decrypt(KEY, headerOnly));
+        assertThrows(IllegalArgumentException.class, () -> streamDecrypt(headerOnly, new Random(1)));
+
+        byte[] partialHeader = Arrays.copyOf(encrypted, 8);
+        assertThrows(IllegalArgumentException.class, () -> streamDecrypt(partialHeader, new Random(1)));
+    }
+
+    @Test
+    void testReorderedDroppedAndAppendedSegmentsAreDetected() {
+        byte[] encrypted = SegmentedFileCipher.encrypt(KEY, "v2", SEGMENT_SIZE, randomBytes(300, 4));
+        int headerLength = SegmentedFileCipher.Header.parse(encrypted).length();
+        int first = headerLength;
+        int second = headerLength + ENCRYPTED_SEGMENT_SIZE;
+
+        byte[] swapped = encrypted.clone();
+        System.arraycopy(encrypted, first, swapped, second, ENCRYPTED_SEGMENT_SIZE);
+        System.arraycopy(encrypted, second, swapped, first, ENCRYPTED_SEGMENT_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> SegmentedFileCipher.decrypt(KEY, swapped));
+        assertThrows(IllegalArgumentException.class, () -> streamDecrypt(swapped, new Random(2)));
+        assertThrows(IllegalArgumentException.class, () -> readRange(swapped, 0, 10));
+
+        byte[] middleDropped = withoutRange(encrypted, second, second + ENCRYPTED_SEGMENT_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> streamDecrypt(middleDropped, new Random(2)));
+
+        byte[] appended = Arrays.copyOf(encrypted, encrypted.length + ENCRYPTED_SEGMENT_SIZE);
+        System.arraycopy(encrypted, first, appended, encrypted.length, ENCRYPTED_SEGMENT_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> streamDecrypt(appended, new Random(2)));
+    }
+
+    @Test
+    void testTamperedHeaderAndWrongKeyAreDetected() {
+        byte[] encrypted = SegmentedFileCipher.encrypt(KEY, "v2", SEGMENT_SIZE, randomBytes(100, 5));
+        int headerLength = SegmentedFileCipher.Header.parse(encrypted).length();
+
+        byte[] noncePrefixChanged = encrypted.clone();
+        noncePrefixChanged[headerLength - 1] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> SegmentedFileCipher.decrypt(KEY, noncePrefixChanged));
+
+        byte[] versionChanged = encrypted.clone();
+        versionChanged[11] = '3';
+        assertThrows(IllegalArgumentException.class, () -> SegmentedFileCipher.decrypt(KEY, versionChanged));
+
+        SecretKey otherKey = new SecretKeySpec(randomBytes(32, 6), "AES");
+        assertThrows(IllegalArgumentException.class, () -> SegmentedFileCipher.decrypt(otherKey, encrypted));
+    }
+
+    @Test
+    void testWholeFileCiphertextIsCollectedForTheCompatibilityReader() {
+        byte[] legacy = randomBytes(500, 8);
+        legacy[0] = 'X';
+
+        SegmentedFileCipher.StreamDecryptor decryptor = new SegmentedFileCipher.StreamDecryptor();
+        for (int offset = 0; offset < legacy.length; offset += 7) {
+            assertTrue(decryptor.update(legacy, offset, Math.min(7, legacy.length - offset)).isEmpty());
+        }
+
+        assertFalse(SegmentedFileCipher.isSegmented(legacy));
+        assertTrue(decryptor.isLegacy());
+        assertFalse(decryptor.awaitingKey());
+        assertArrayEquals(legacy, decryptor.legacyCiphertext());
+        assertThrows(IllegalStateException.class, decryptor::finish);
+    }
+}
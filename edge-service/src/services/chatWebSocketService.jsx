@@ -1,3 +1,5 @@
+import { authorizationHeader } from './webSocketHeaders';
+
 class ChatWebSocketService {
     constructor() {
         this.subscribers = new Set();
@@ -56,6 +58,7 @@ class ChatWebSocketService {
                     const connectFrame = 'CONNECT\n' +
                         'accept-version:1.1,1.0\n' +
                         'heart-beat:4000,4000\n' +
+                        authorizationHeader() +
                         '\n\0';
                     this.ws.send(connectFrame);
                 }
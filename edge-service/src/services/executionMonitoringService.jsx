@@ -1,4 +1,5 @@
 import { Client } from '@stomp/stompjs';
+import { authorizationHeader, teamHeader } from './webSocketHeaders';
 
 class ExecutionMonitoringWebSocket {
     constructor() {
@@ -55,6 +56,7 @@ class ExecutionMonitoringWebSocket {
                     const connectFrame = 'CONNECT\n' +
                         'accept-version:1.1,1.0\n' +
                         'heart-beat:4000,4000\n' +
+                        authorizationHeader() +
                         '\n\0';
                     this.ws.send(connectFrame);
                 }
@@ -73,6 +75,7 @@ class ExecutionMonitoringWebSocket {
                 const subscribeFrame = 'SUBSCRIBE\n' +
                     'id:exec-sub-0\n' +
                     'destination:/topic/execution\n' +
+                    teamHeader() +
                     '\n\0';
                 this.ws.send(subscribeFrame);
             }
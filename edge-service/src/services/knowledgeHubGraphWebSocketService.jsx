@@ -1,3 +1,5 @@
+import { authorizationHeader, teamHeader } from './webSocketHeaders';
+
 class KnowledgeHubGraphWebSocketService {
     constructor() {
         this.ws = null;
@@ -36,6 +38,7 @@ class KnowledgeHubGraphWebSocketService {
                     const connectFrame = 'CONNECT\n' +
                         'accept-version:1.1,1.0\n' +
                         'heart-beat:4000,4000\n' +
+                        authorizationHeader() +
                         '\n\0';
                     this.ws.send(connectFrame);
                 }
@@ -53,6 +56,7 @@ class KnowledgeHubGraphWebSocketService {
                 const subscribeFrame = 'SUBSCRIBE\n' +
                     'id:graph-extraction-sub-0\n' +
                     'destination:/topic/graph-extraction\n' +
+                    teamHeader() +
                     '\n\0';
                 this.ws.send(subscribeFrame);
                 console.log('Subscribed to graph extraction updates');
@@ -0,0 +1,13 @@
+// STOMP header lines identifying the caller to the gateway's /ws-linqra endpoint.
+// The token lets the gateway verify which teams the session may subscribe to.
+
+export const authorizationHeader = () => {
+    const { token } = JSON.parse(localStorage.getItem('authState') || '{}');
+    return token ? `Authorization:Bearer ${token}\n` : '';
+};
+
+// Team-scoped topics (execution, graph extraction, collection export) require a team
+export const teamHeader = () => {
+    const teamId = localStorage.getItem('currentTeamId');
+    return teamId ? `teamId:${teamId}\n` : '';
+};